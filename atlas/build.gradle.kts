@@ -82,3 +82,10 @@ testDependencies {
    api("us.ihmc:ihmc-simulation-toolkit-test:source")
    api("us.ihmc:simulation-construction-set-tools-test:source")
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+
+   api("us.ihmc:ihmc-avatar-interfaces-benchmarks:source")
+   "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.25")
+}
@@ -0,0 +1,22 @@
+package us.ihmc.atlas.controllerCore;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.controllerCore.AvatarWholeBodyControllerCoreBenchmark;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+
+public class AtlasWholeBodyControllerCoreBenchmark extends AvatarWholeBodyControllerCoreBenchmark
+{
+   @Override
+   protected DRCRobotModel createRobotModel()
+   {
+      return new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_FOREARMS, RobotTarget.SCS, false);
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(AtlasWholeBodyControllerCoreBenchmark.class, args);
+   }
+}
@@ -0,0 +1,66 @@
+package us.ihmc.atlas.networkProcessor.wholeBodyTrajectoryToolboxModule;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.avatar.networkProcessor.wholeBodyTrajectoryToolboxModule.AvatarWholeBodyTrajectoryToolboxControllerTest;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+
+public class AtlasWholeBodyTrajectoryToolboxControllerTest extends AvatarWholeBodyTrajectoryToolboxControllerTest
+{
+   private final DRCRobotModel robotModel = new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_HANDS, RobotTarget.SCS, false);
+   private final DRCRobotModel ghostRobotModel = new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_HANDS, RobotTarget.SCS, false);
+
+   @Override
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   @Override
+   public String getSimpleRobotName()
+   {
+      return robotModel.getSimpleRobotName();
+   }
+
+   @Override
+   public DRCRobotModel getGhostRobotModel()
+   {
+      return ghostRobotModel;
+   }
+
+   @Override
+   @Disabled
+   @Test
+   public void testOneBigCircle() throws Exception, UnreasonableAccelerationException
+   {
+      super.testOneBigCircle();
+   }
+
+   @Override
+   @Disabled
+   @Test
+   public void testHandCirclePositionAndYaw() throws Exception, UnreasonableAccelerationException
+   {
+      super.testHandCirclePositionAndYaw();
+   }
+
+   @Override
+   @Disabled
+   @Test
+   public void testHandCirclePositionAndYawPitchRoll() throws Exception, UnreasonableAccelerationException
+   {
+      super.testHandCirclePositionAndYawPitchRoll();
+   }
+
+   @Override
+   @Test
+   public void testParallelValidationMatchesSequentialValidation()
+   {
+      super.testParallelValidationMatchesSequentialValidation();
+   }
+}
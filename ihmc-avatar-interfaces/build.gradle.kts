@@ -89,3 +89,10 @@ visualizersDependencies {
    api("us.ihmc:robot-environment-awareness-application:source")
    api("us.ihmc:ihmc-path-planning-visualizers:source")
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+
+   api("us.ihmc:ihmc-robotics-toolkit-benchmarks:source")
+   "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.25")
+}
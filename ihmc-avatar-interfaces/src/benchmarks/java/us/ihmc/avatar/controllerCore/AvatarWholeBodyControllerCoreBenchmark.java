@@ -0,0 +1,330 @@
+package us.ihmc.avatar.controllerCore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.initialSetup.DRCRobotInitialSetup;
+import us.ihmc.commonWalkingControlModules.configurations.ICPWithTimeFreezingPlannerParameters;
+import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
+import us.ihmc.commonWalkingControlModules.controllerCore.FeedbackControllerTemplate;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.ContactableBodiesFactory;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.ControllerAPIDefinition;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.HighLevelControlManagerFactory;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.highLevelStates.WalkingHighLevelHumanoidController;
+import us.ihmc.commonWalkingControlModules.messageHandlers.WalkingMessageHandler;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
+import us.ihmc.communication.controllerAPI.CommandInputManager;
+import us.ihmc.communication.controllerAPI.StatusMessageOutputManager;
+import us.ihmc.euclid.referenceFrame.FramePoint2D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.graphicsDescription.yoGraphics.YoGraphicsListRegistry;
+import us.ihmc.humanoidRobotics.bipedSupportPolygons.ContactableFoot;
+import us.ihmc.humanoidRobotics.communication.controllerAPI.converter.FrameMessageCommandConverter;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.spatial.Wrench;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotics.contactable.ContactablePlaneBody;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.robotics.screwTheory.TotalMassCalculator;
+import us.ihmc.robotics.sensors.FootSwitchInterface;
+import us.ihmc.sensorProcessing.frames.ReferenceFrameHashCodeResolver;
+import us.ihmc.sensorProcessing.outputData.JointDesiredOutputList;
+import us.ihmc.simulationConstructionSetTools.util.HumanoidFloatingRootJointRobot;
+import us.ihmc.wholeBodyController.DRCControllerThread;
+import us.ihmc.wholeBodyController.RobotContactPointParameters;
+import us.ihmc.wholeBodyController.parameters.ParameterLoaderHelper;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+/**
+ * Measures one control tick of the walking controller and the whole-body controller core for a humanoid standing in double support.
+ * The robot is created in its default initial configuration and the controller is run without a simulation, the same way as in the
+ * walking controller garbage tests.
+ *
+ * {@link #controllerCoreCompute()} only runs {@link WholeBodyControllerCore#compute()} on a command captured once during setup, while
+ * {@link #walkingControllerTick()} also runs the walking controller that creates the command.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public abstract class AvatarWholeBodyControllerCoreBenchmark
+{
+   private static final double gravityZ = 9.81;
+
+   private DRCRobotModel robotModel;
+   private double controlDT;
+
+   private final YoRegistry registry = new YoRegistry(getClass().getSimpleName());
+   private final YoGraphicsListRegistry yoGraphicsListRegistry = new YoGraphicsListRegistry();
+   private final YoDouble yoTime = new YoDouble("time", registry);
+
+   private final StatusMessageOutputManager statusOutputManager = new StatusMessageOutputManager(ControllerAPIDefinition.getControllerSupportedStatusMessages());
+   private final CommandInputManager commandInputManager = new CommandInputManager(ControllerAPIDefinition.getControllerSupportedCommands());
+   private final HighLevelControlManagerFactory managerFactory = new HighLevelControlManagerFactory(registry);
+   private final List<ContactablePlaneBody> contactableBodies = new ArrayList<>();
+
+   private FullHumanoidRobotModel fullRobotModel;
+   private HumanoidReferenceFrames referenceFrames;
+
+   private WalkingHighLevelHumanoidController walkingController;
+   private WholeBodyControllerCore controllerCore;
+   private ControllerCoreCommand controllerCoreCommand;
+
+   protected abstract DRCRobotModel createRobotModel();
+
+   @Setup
+   public void setup()
+   {
+      robotModel = createRobotModel();
+      controlDT = robotModel.getControllerDT();
+
+      fullRobotModel = robotModel.createFullRobotModel();
+      referenceFrames = new HumanoidReferenceFrames(fullRobotModel);
+
+      copyInitialConfiguration();
+      createWalkingControllerAndSetUpManagerFactory();
+      createControllerCore();
+
+      registry.addChild(walkingController.getYoVariableRegistry());
+      walkingController.setControllerCoreOutput(controllerCore.getOutputForHighLevelController());
+
+      for (RobotSide robotSide : RobotSide.values)
+      {
+         ((YoBoolean) registry.findVariable(robotSide.getLowerCaseName() + "FootAssumeCopOnEdge")).set(true);
+         ((YoBoolean) registry.findVariable(robotSide.getLowerCaseName() + "FootAssumeFootBarelyLoaded")).set(true);
+      }
+
+      ParameterLoaderHelper.loadParameters(this, robotModel.getWholeBodyControllerParametersFile(), registry);
+
+      walkingController.initialize();
+      walkingController.doAction();
+      controllerCoreCommand = walkingController.getControllerCoreCommand();
+   }
+
+   @Benchmark
+   public WholeBodyControllerCore controllerCoreCompute()
+   {
+      controllerCore.submitControllerCoreCommand(controllerCoreCommand);
+      controllerCore.compute();
+      return controllerCore;
+   }
+
+   @Benchmark
+   public WholeBodyControllerCore walkingControllerTick()
+   {
+      yoTime.add(controlDT);
+      walkingController.doAction();
+      controllerCore.submitControllerCoreCommand(walkingController.getControllerCoreCommand());
+      controllerCore.compute();
+      return controllerCore;
+   }
+
+   private void copyInitialConfiguration()
+   {
+      HumanoidFloatingRootJointRobot robot = robotModel.createHumanoidFloatingRootJointRobot(false);
+      robot.setDynamic(false);
+      DRCRobotInitialSetup<HumanoidFloatingRootJointRobot> initialSetup = robotModel.getDefaultRobotInitialSetup(0.0, 0.0);
+      initialSetup.initializeRobot(robot, robotModel.getJointMap());
+
+      for (OneDoFJointBasics joint : fullRobotModel.getOneDoFJoints())
+      {
+         joint.setQ(robot.getOneDegreeOfFreedomJoint(joint.getName()).getQ());
+         joint.setQd(0.0);
+      }
+
+      RigidBodyTransform rootJointTransform = new RigidBodyTransform();
+      robot.getRootJoint().getTransformToWorld(rootJointTransform);
+      fullRobotModel.getRootJoint().setJointConfiguration(rootJointTransform);
+
+      fullRobotModel.updateFrames();
+      referenceFrames.updateFrames();
+   }
+
+   private void createWalkingControllerAndSetUpManagerFactory()
+   {
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+      ICPWithTimeFreezingPlannerParameters capturePointPlannerParameters = robotModel.getCapturePointPlannerParameters();
+
+      ReferenceFrameHashCodeResolver referenceFrameHashCodeResolver = new ReferenceFrameHashCodeResolver(fullRobotModel, referenceFrames);
+      commandInputManager.registerConversionHelper(new FrameMessageCommandConverter(referenceFrameHashCodeResolver));
+
+      RobotContactPointParameters<RobotSide> contactPointParameters = robotModel.getContactPointParameters();
+      ArrayList<String> additionalContactRigidBodyNames = contactPointParameters.getAdditionalContactRigidBodyNames();
+      ArrayList<String> additionalContactNames = contactPointParameters.getAdditionalContactNames();
+      ArrayList<RigidBodyTransform> additionalContactTransforms = contactPointParameters.getAdditionalContactTransforms();
+
+      ContactableBodiesFactory<RobotSide> contactableBodiesFactory = new ContactableBodiesFactory<>();
+      contactableBodiesFactory.setFootContactPoints(contactPointParameters.getFootContactPoints());
+      contactableBodiesFactory.setToeContactParameters(contactPointParameters.getControllerToeContactPoints(),
+                                                       contactPointParameters.getControllerToeContactLines());
+      for (int i = 0; i < additionalContactNames.size(); i++)
+         contactableBodiesFactory.addAdditionalContactPoint(additionalContactRigidBodyNames.get(i),
+                                                            additionalContactNames.get(i),
+                                                            additionalContactTransforms.get(i));
+      contactableBodiesFactory.setFullRobotModel(fullRobotModel);
+      contactableBodiesFactory.setReferenceFrames(referenceFrames);
+      SideDependentList<ContactableFoot> feet = new SideDependentList<>(contactableBodiesFactory.createFootContactableFeet());
+      for (RobotSide robotSide : RobotSide.values)
+         contactableBodies.add(feet.get(robotSide));
+      contactableBodies.addAll(contactableBodiesFactory.createAdditionalContactPoints());
+      contactableBodiesFactory.disposeFactory();
+
+      double totalRobotWeight = TotalMassCalculator.computeSubTreeMass(fullRobotModel.getElevator()) * gravityZ;
+      SideDependentList<FootSwitchInterface> footSwitches = new SideDependentList<>();
+      for (RobotSide robotSide : RobotSide.values)
+         footSwitches.put(robotSide, new LoadedFootSwitch(feet.get(robotSide), totalRobotWeight));
+
+      HighLevelHumanoidControllerToolbox controllerToolbox = new HighLevelHumanoidControllerToolbox(fullRobotModel,
+                                                                                                    referenceFrames,
+                                                                                                    footSwitches,
+                                                                                                    null,
+                                                                                                    yoTime,
+                                                                                                    gravityZ,
+                                                                                                    walkingControllerParameters.getOmega0(),
+                                                                                                    feet,
+                                                                                                    controlDT,
+                                                                                                    null,
+                                                                                                    contactableBodies,
+                                                                                                    yoGraphicsListRegistry);
+      registry.addChild(controllerToolbox.getYoVariableRegistry());
+
+      WalkingMessageHandler walkingMessageHandler = new WalkingMessageHandler(walkingControllerParameters.getDefaultTransferTime(),
+                                                                              walkingControllerParameters.getDefaultSwingTime(),
+                                                                              walkingControllerParameters.getDefaultInitialTransferTime(),
+                                                                              walkingControllerParameters.getDefaultFinalTransferTime(),
+                                                                              capturePointPlannerParameters.getSwingDurationShiftFraction(),
+                                                                              capturePointPlannerParameters.getSwingSplitFraction(),
+                                                                              capturePointPlannerParameters.getTransferSplitFraction(),
+                                                                              capturePointPlannerParameters.getTransferSplitFraction(),
+                                                                              feet,
+                                                                              statusOutputManager,
+                                                                              yoTime,
+                                                                              yoGraphicsListRegistry,
+                                                                              registry);
+      controllerToolbox.setWalkingMessageHandler(walkingMessageHandler);
+
+      managerFactory.setHighLevelHumanoidControllerToolbox(controllerToolbox);
+      managerFactory.setWalkingControllerParameters(walkingControllerParameters);
+      managerFactory.setCapturePointPlannerParameters(capturePointPlannerParameters);
+
+      walkingController = new WalkingHighLevelHumanoidController(commandInputManager,
+                                                                 statusOutputManager,
+                                                                 managerFactory,
+                                                                 walkingControllerParameters,
+                                                                 controllerToolbox);
+   }
+
+   private void createControllerCore()
+   {
+      JointBasics[] jointsToIgnore = DRCControllerThread.createListOfJointsToIgnore(fullRobotModel, robotModel, robotModel.getSensorInformation());
+      JointBasics[] jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel, jointsToIgnore);
+
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(controlDT,
+                                                                            gravityZ,
+                                                                            fullRobotModel.getRootJoint(),
+                                                                            jointsToOptimizeFor,
+                                                                            referenceFrames.getCenterOfMassFrame(),
+                                                                            walkingControllerParameters.getMomentumOptimizationSettings(),
+                                                                            yoGraphicsListRegistry,
+                                                                            registry);
+      toolbox.setupForInverseDynamicsSolver(contactableBodies);
+      toolbox.setJointPrivilegedConfigurationParameters(walkingControllerParameters.getJointPrivilegedConfigurationParameters());
+
+      FeedbackControllerTemplate template = managerFactory.createFeedbackControlTemplate();
+      JointDesiredOutputList controllerOutput = new JointDesiredOutputList(fullRobotModel.getControllableOneDoFJoints());
+      controllerCore = new WholeBodyControllerCore(toolbox, template, controllerOutput, registry);
+   }
+
+   /**
+    * Foot switch of a robot standing still: the foot is always on the ground and carries half of the robot weight.
+    */
+   private static class LoadedFootSwitch implements FootSwitchInterface
+   {
+      private final ContactableFoot foot;
+      private final double totalRobotWeight;
+
+      public LoadedFootSwitch(ContactableFoot foot, double totalRobotWeight)
+      {
+         this.foot = foot;
+         this.totalRobotWeight = totalRobotWeight;
+      }
+
+      @Override
+      public boolean hasFootHitGround()
+      {
+         return true;
+      }
+
+      @Override
+      public double computeFootLoadPercentage()
+      {
+         return Double.NaN;
+      }
+
+      @Override
+      public void computeAndPackCoP(FramePoint2D copToPack)
+      {
+         copToPack.setToNaN(getMeasurementFrame());
+      }
+
+      @Override
+      public void updateCoP()
+      {
+      }
+
+      @Override
+      public void computeAndPackFootWrench(Wrench footWrenchToPack)
+      {
+         footWrenchToPack.setToZero();
+         footWrenchToPack.setLinearPartZ(totalRobotWeight / 2.0);
+      }
+
+      @Override
+      public ReferenceFrame getMeasurementFrame()
+      {
+         return foot.getSoleFrame();
+      }
+
+      @Override
+      public void reset()
+      {
+      }
+
+      @Override
+      public boolean getForceMagnitudePastThreshhold()
+      {
+         return false;
+      }
+
+      @Override
+      public void setFootContactState(boolean hasFootHitGround)
+      {
+      }
+
+      @Override
+      public void trustFootSwitchInSwing(boolean trustFootSwitch)
+      {
+      }
+
+      @Override
+      public void trustFootSwitchInSupport(boolean trustFootSwitch)
+      {
+      }
+   }
+}
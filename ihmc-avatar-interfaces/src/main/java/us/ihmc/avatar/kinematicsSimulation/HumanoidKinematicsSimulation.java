@@ -472,6 +472,7 @@ public class HumanoidKinematicsSimulation
    {
       LogTools.info("Shutting down...");
       controlThread.stop();
+      controllerCore.destroy();
       ros2Node.destroy();
       if (yoVariableServer != null)
          yoVariableServer.close();
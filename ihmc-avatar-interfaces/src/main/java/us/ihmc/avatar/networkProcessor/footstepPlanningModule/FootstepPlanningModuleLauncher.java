@@ -15,12 +15,16 @@ import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.footstepPlanning.FootstepPlannerRequest;
 import us.ihmc.footstepPlanning.FootstepPlannerRequestedAction;
 import us.ihmc.footstepPlanning.FootstepPlanningModule;
+import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.FootstepPlanningService;
+import us.ihmc.footstepPlanning.FootstepPlannerOutput;
 import us.ihmc.footstepPlanning.graphSearch.graph.visualization.FootstepPlannerOccupancyMapAssembler;
 import us.ihmc.footstepPlanning.graphSearch.graph.visualization.PlannerOccupancyMap;
 import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersBasics;
 import us.ihmc.footstepPlanning.log.FootstepPlannerLogger;
 import us.ihmc.footstepPlanning.tools.FootstepPlannerMessageTools;
 import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.log.LogTools;
 import us.ihmc.pathPlanning.visibilityGraphs.parameters.VisibilityGraphsParametersBasics;
 import us.ihmc.pubsub.DomainFactory;
 import us.ihmc.robotics.robotSide.RobotSide;
@@ -29,6 +33,7 @@ import us.ihmc.wholeBodyController.RobotContactPointParameters;
 
 import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 
 public class FootstepPlanningModuleLauncher
 {
@@ -80,6 +85,8 @@ public class FootstepPlanningModuleLauncher
    {
       FootstepPlanningModule footstepPlanningModule = createModule(robotModel);
       footstepPlanningModule.registerRosNode(ros2Node);
+      // The continuous planning toolbox replans on this module as the map updates, this does not change the plans
+      footstepPlanningModule.setReuseSnapDataBetweenRequests(true);
       String name = footstepPlanningModule.getName();
       ROS2Topic inputTopic = ROS2Tools.FOOTSTEP_PLANNER.withRobot(name).withInput();
       ROS2Topic outputTopic = ROS2Tools.FOOTSTEP_PLANNER.withRobot(name).withOutput();
@@ -96,6 +103,103 @@ public class FootstepPlanningModuleLauncher
       return footstepPlanningModule;
    }
 
+   /**
+    * Creates a FootstepPlanningService with a pool of modules serving the requests of all clients of the robot, and creates ROS 2
+    * subscribers and publishers. Requests received while the queue is full are answered right away with an {@link FootstepPlanningResult#EXCEPTION}
+    * status.
+    *
+    * The parameter packets update the default parameters of the service. Each request is planned with the parameters received before it,
+    * later parameter packets do not change requests already received.
+    *
+    * The halt action halts the pending request whose planner request id is the sequence id of the action. An action without sequence id, as
+    * sent by the planner UI, halts all pending requests.
+    */
+   public static FootstepPlanningService createService(ROS2Node ros2Node, DRCRobotModel robotModel, int numberOfWorkers, int queueCapacity)
+   {
+      FootstepPlanningService service = new FootstepPlanningService(() -> createModule(robotModel), numberOfWorkers, queueCapacity);
+      String name = robotModel.getSimpleRobotName();
+      ROS2Topic inputTopic = ROS2Tools.FOOTSTEP_PLANNER.withRobot(name).withInput();
+      ROS2Topic outputTopic = ROS2Tools.FOOTSTEP_PLANNER.withRobot(name).withOutput();
+
+      IHMCROS2Publisher<FootstepPlanningToolboxOutputStatus> resultPublisher = ROS2Tools.createPublisherTypeNamed(ros2Node,
+                                                                                                                  FootstepPlanningToolboxOutputStatus.class,
+                                                                                                                  outputTopic);
+      service.addStatusCallback(output ->
+                                {
+                                   FootstepPlanningToolboxOutputStatus outputStatus = new FootstepPlanningToolboxOutputStatus();
+                                   output.setPacket(outputStatus);
+                                   resultPublisher.publish(outputStatus);
+                                });
+
+      createServiceParametersCallback(ros2Node,
+                                      service,
+                                      FootstepPlannerParametersPacket.class,
+                                      inputTopic,
+                                      (parameters, packet) -> parameters.withFootstepPlannerParameters(p -> p.set(packet)));
+      createServiceParametersCallback(ros2Node,
+                                      service,
+                                      VisibilityGraphsParametersPacket.class,
+                                      inputTopic,
+                                      (parameters, packet) -> parameters.withVisibilityGraphParameters(p -> p.set(packet)));
+      createServiceParametersCallback(ros2Node,
+                                      service,
+                                      SwingPlannerParametersPacket.class,
+                                      inputTopic,
+                                      (parameters, packet) -> parameters.withSwingPlannerParameters(p -> p.set(packet)));
+      createServiceParametersCallback(ros2Node,
+                                      service,
+                                      SplitFractionCalculatorParametersPacket.class,
+                                      inputTopic,
+                                      (parameters, packet) -> parameters.withSplitFractionParameters(p -> p.set(packet)));
+
+      ROS2Tools.createCallbackSubscriptionTypeNamed(ros2Node, FootstepPlanningRequestPacket.class, inputTopic, s ->
+      {
+         FootstepPlannerRequest request = new FootstepPlannerRequest();
+         request.setFromPacket(s.takeNextData());
+
+         // Halted and failed requests are published by the status callback, only rejected requests complete exceptionally
+         service.submitRequest(request).whenComplete((output, exception) ->
+         {
+            if (exception == null)
+               return;
+
+            LogTools.warn(exception.getMessage());
+            FootstepPlannerOutput rejectedOutput = new FootstepPlannerOutput();
+            rejectedOutput.setRequestId(request.getRequestId());
+            rejectedOutput.setFootstepPlanningResult(FootstepPlanningResult.EXCEPTION);
+            rejectedOutput.setException(exception instanceof Exception ? (Exception) exception : new RuntimeException(exception));
+            FootstepPlanningToolboxOutputStatus outputStatus = new FootstepPlanningToolboxOutputStatus();
+            rejectedOutput.setPacket(outputStatus);
+            resultPublisher.publish(outputStatus);
+         });
+      });
+
+      FootstepPlannerActionMessage footstepPlannerActionMessage = new FootstepPlannerActionMessage();
+      ROS2Tools.createCallbackSubscriptionTypeNamed(ros2Node, FootstepPlannerActionMessage.class, inputTopic, s ->
+      {
+         s.takeNextData(footstepPlannerActionMessage, null);
+         if (FootstepPlannerRequestedAction.fromByte(footstepPlannerActionMessage.getRequestedAction()) != FootstepPlannerRequestedAction.HALT)
+            return;
+
+         service.handleHaltAction((int) footstepPlannerActionMessage.getSequenceId());
+      });
+
+      return service;
+   }
+
+   private static <T> void createServiceParametersCallback(ROS2Node ros2Node,
+                                                           FootstepPlanningService service,
+                                                           Class<T> packetType,
+                                                           ROS2Topic inputTopic,
+                                                           BiFunction<FootstepPlanningService.Parameters, T, FootstepPlanningService.Parameters> update)
+   {
+      ROS2Tools.createCallbackSubscriptionTypeNamed(ros2Node, packetType, inputTopic, s ->
+      {
+         T packet = s.takeNextData();
+         service.updateDefaultParameters(parameters -> update.apply(parameters, packet));
+      });
+   }
+
    private static void createParametersCallbacks(ROS2Node ros2Node,
                                                  FootstepPlanningModule footstepPlanningModule,
                                                  ROS2Topic inputTopic)
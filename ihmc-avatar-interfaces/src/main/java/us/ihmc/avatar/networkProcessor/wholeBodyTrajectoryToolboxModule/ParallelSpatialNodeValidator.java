@@ -0,0 +1,171 @@
+package us.ihmc.avatar.networkProcessor.wholeBodyTrajectoryToolboxModule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+import controller_msgs.msg.dds.KinematicsToolboxOutputStatus;
+import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsSolver;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.manipulation.planning.exploringSpatial.SpatialNode;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+/**
+ * Validates batches of {@link SpatialNode}s concurrently.
+ * <p>
+ * Each worker owns its own {@link HumanoidKinematicsSolver}, and so its own robot model, command
+ * input manager and registry. The solvers are handed out to the worker threads through a pool such
+ * that a solver is never used by two threads at the same time. The messages describing the nodes
+ * are created on the calling thread as {@link WholeBodyTrajectoryToolboxData} is not thread-safe.
+ * The worker threads are daemon threads, such that a validator that is not disposed does not keep
+ * the JVM alive.
+ * </p>
+ */
+public class ParallelSpatialNodeValidator
+{
+   private final int numberOfWorkers;
+   private final BlockingQueue<HumanoidKinematicsSolver> solverPool;
+   private final ExecutorService executorService;
+
+   public ParallelSpatialNodeValidator(DRCRobotModel drcRobotModel, int numberOfWorkers)
+   {
+      if (numberOfWorkers < 1)
+         throw new IllegalArgumentException("The number of workers should be at least 1, was: " + numberOfWorkers);
+
+      this.numberOfWorkers = numberOfWorkers;
+
+      solverPool = new ArrayBlockingQueue<>(numberOfWorkers);
+      for (int i = 0; i < numberOfWorkers; i++)
+      {
+         // The worker registries are not attached to the toolbox registry, they would only duplicate the variables of the main solver.
+         YoRegistry workerRegistry = new YoRegistry(getClass().getSimpleName() + "Worker" + i);
+         solverPool.add(new HumanoidKinematicsSolver(drcRobotModel, null, workerRegistry));
+      }
+
+      executorService = Executors.newFixedThreadPool(numberOfWorkers, ThreadTools.createNamedDaemonThreadFactory(getClass().getSimpleName()));
+   }
+
+   /**
+    * Updates the configuration and validity of each node, solving them concurrently.
+    * <p>
+    * A node is solved starting from its parent configuration when available, from
+    * {@code defaultInitialConfiguration} otherwise. This method blocks until all the nodes have been
+    * processed.
+    * </p>
+    *
+    * @param nodes                       the nodes to validate. Modified.
+    * @param toolboxData                 used to create the kinematics messages for each node.
+    * @param defaultInitialConfiguration the configuration to start from for nodes without parent.
+    * @param scoreFunction               optional, evaluated on the solver robot model right after a
+    *                                    node is found valid. Can be {@code null}.
+    * @return the scores of the nodes, {@code 0.0} for invalid nodes or when no score function is
+    *         provided.
+    */
+   public double[] updateValidity(List<SpatialNode> nodes, WholeBodyTrajectoryToolboxData toolboxData,
+                                  KinematicsToolboxOutputStatus defaultInitialConfiguration, ToDoubleFunction<FullHumanoidRobotModel> scoreFunction)
+   {
+      double[] scores = new double[nodes.size()];
+      List<Future<?>> futures = new ArrayList<>(nodes.size());
+
+      for (int i = 0; i < nodes.size(); i++)
+      {
+         SpatialNode node = nodes.get(i);
+         List<KinematicsToolboxRigidBodyMessage> messages = toolboxData.createMessages(node);
+
+         int nodeIndex = i;
+         futures.add(executorService.submit(() -> scores[nodeIndex] = solve(node, defaultInitialConfiguration, messages, scoreFunction)));
+      }
+
+      try
+      {
+         for (int i = 0; i < futures.size(); i++)
+         {
+            futures.get(i).get();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         futures.forEach(future -> future.cancel(true));
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while validating nodes.", e);
+      }
+      catch (ExecutionException e)
+      {
+         futures.forEach(future -> future.cancel(true));
+         throw new RuntimeException("Failed to validate nodes.", e.getCause());
+      }
+
+      return scores;
+   }
+
+   private double solve(SpatialNode node, KinematicsToolboxOutputStatus defaultInitialConfiguration, List<KinematicsToolboxRigidBodyMessage> messages,
+                        ToDoubleFunction<FullHumanoidRobotModel> scoreFunction)
+         throws InterruptedException
+   {
+      HumanoidKinematicsSolver solver = solverPool.take();
+
+      try
+      {
+         boolean success = updateValidity(solver, node, defaultInitialConfiguration, messages);
+
+         if (success && scoreFunction != null)
+            return scoreFunction.applyAsDouble(solver.getDesiredFullRobotModel());
+         else
+            return 0.0;
+      }
+      finally
+      {
+         solverPool.put(solver);
+      }
+   }
+
+   /**
+    * Solves a single node with the given solver and updates its configuration and validity. This is
+    * the validation performed for each node, whether sequentially by the toolbox or concurrently by
+    * this class.
+    *
+    * @param solver                      the solver to use, it is re-initialized before solving.
+    * @param node                        the node to validate. Modified.
+    * @param defaultInitialConfiguration the configuration to start from if the node has no parent
+    *                                    configuration.
+    * @param messages                    the kinematics messages describing the node.
+    * @return whether the node is valid.
+    */
+   static boolean updateValidity(HumanoidKinematicsSolver solver, SpatialNode node, KinematicsToolboxOutputStatus defaultInitialConfiguration,
+                                 List<KinematicsToolboxRigidBodyMessage> messages)
+   {
+      if (node.getParent() != null && node.getParent().getConfiguration() != null)
+         solver.setInitialConfiguration(node.getParent().getConfiguration());
+      else
+         solver.setInitialConfiguration(defaultInitialConfiguration);
+
+      solver.initialize();
+      solver.submit(messages);
+
+      boolean success = solver.solve();
+
+      node.setConfiguration(solver.getSolution());
+      node.setValidity(success);
+
+      return success;
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return numberOfWorkers;
+   }
+
+   public void closeAndDispose()
+   {
+      executorService.shutdownNow();
+   }
+}
@@ -58,6 +58,8 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    private final Random randomManager = new Random(1);
 
    private final HumanoidKinematicsSolver humanoidKinematicsSolver;
+   /** When not {@code null}, batches of nodes are validated concurrently, each worker using its own kinematics solver. */
+   private final ParallelSpatialNodeValidator parallelValidator;
 
    private final WholeBodyTrajectoryToolboxOutputStatus toolboxSolution;
 
@@ -155,6 +157,19 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    public WholeBodyTrajectoryToolboxController(DRCRobotModel drcRobotModel, FullHumanoidRobotModel fullRobotModel, CommandInputManager commandInputManager,
                                                StatusMessageOutputManager statusOutputManager, YoRegistry registry,
                                                YoGraphicsListRegistry yoGraphicsListRegistry, boolean visualize)
+   {
+      this(drcRobotModel, fullRobotModel, commandInputManager, statusOutputManager, registry, yoGraphicsListRegistry, visualize, 1);
+   }
+
+   /**
+    * @param numberOfWorkers when greater than 1, the initial guesses, the tree expansion candidates,
+    *                        and the shortcut candidates are validated in batches of
+    *                        {@code numberOfWorkers} nodes solved concurrently. The batch results are
+    *                        merged sequentially into the single tree.
+    */
+   public WholeBodyTrajectoryToolboxController(DRCRobotModel drcRobotModel, FullHumanoidRobotModel fullRobotModel, CommandInputManager commandInputManager,
+                                               StatusMessageOutputManager statusOutputManager, YoRegistry registry,
+                                               YoGraphicsListRegistry yoGraphicsListRegistry, boolean visualize, int numberOfWorkers)
    {
       super(statusOutputManager, registry);
       this.commandInputManager = commandInputManager;
@@ -188,6 +203,11 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
 
       humanoidKinematicsSolver = new HumanoidKinematicsSolver(drcRobotModel, yoGraphicsListRegistry, registry);
 
+      if (numberOfWorkers > 1)
+         parallelValidator = new ParallelSpatialNodeValidator(drcRobotModel, numberOfWorkers);
+      else
+         parallelValidator = null;
+
       toolboxSolution = new WholeBodyTrajectoryToolboxOutputStatus();
       toolboxSolution.setDestination(-1);
 
@@ -386,21 +406,103 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
     */
    private void expandingTree()
    {
+      if (parallelValidator != null)
+      {
+         expandingTreeInParallel();
+         return;
+      }
+
       currentExpansionSize.increment();
       boolean isExpandingTerminalCondition = false;
 
-      boolean randomNodeHasParentNode = false;
-      int maximumPatientCounter = 1000;
-      while (!randomNodeHasParentNode)
+      SpatialNode candidate = createCandidate();
+      updateValidity(candidate);
+
+      /*
+       * visualize
+       */
+      visualizedNode = new SpatialNode(candidate);
+      nodePlotter.update(candidate, 1);
+
+      if (candidate.isValid())
       {
-         SpatialNode randomNode;
+         tree.attachCandidate();
+         numberOfValidPosture++;
 
+         isExpandingTerminalCondition = isExpandingTerminalConditionReached();
+      }
+      else
+      {
+         tree.dismissCandidate();
+         numberOfInvalidPosture++;
+      }
+
+      terminateExpandingTree(isExpandingTerminalCondition);
+   }
+
+   /**
+    * Expands the tree with a batch of candidates validated concurrently.
+    * <p>
+    * All the candidates of a batch are created from the same tree, then they are attached in order
+    * until the terminal condition is reached such that the last node added remains the end of the
+    * path.
+    * </p>
+    */
+   private void expandingTreeInParallel()
+   {
+      int remainingExpansionSize = maximumExpansionSize.getIntegerValue() - currentExpansionSize.getIntegerValue();
+      int numberOfCandidates = Math.max(1, Math.min(parallelValidator.getNumberOfWorkers(), remainingExpansionSize));
+
+      List<SpatialNode> candidates = new ArrayList<>(numberOfCandidates);
+      for (int i = 0; i < numberOfCandidates; i++)
+      {
+         currentExpansionSize.increment();
+         candidates.add(createCandidate());
+      }
+
+      parallelValidator.updateValidity(candidates, toolboxData, initialConfiguration, null);
+
+      boolean isExpandingTerminalCondition = false;
+
+      for (int i = 0; i < numberOfCandidates && !isExpandingTerminalCondition; i++)
+      {
+         SpatialNode candidate = candidates.get(i);
+
+         visualizedNode = new SpatialNode(candidate);
+         nodePlotter.update(candidate, 1);
+
+         if (candidate.isValid())
+         {
+            tree.attachCandidate(candidate);
+            numberOfValidPosture++;
+
+            isExpandingTerminalCondition = isExpandingTerminalConditionReached();
+         }
+         else
+         {
+            tree.dismissCandidate(candidate);
+            numberOfInvalidPosture++;
+         }
+      }
+
+      terminateExpandingTree(isExpandingTerminalCondition);
+   }
+
+   /**
+    * Samples random nodes until one can be connected to the tree and returns the candidate created
+    * toward it.
+    */
+   private SpatialNode createCandidate()
+   {
+      while (true)
+      {
          SpatialData randomData = toolboxData.createRandomSpatialData();
          double nextDouble = WholeBodyTrajectoryToolboxSettings.randomManager.nextDouble();
          double randomTime = nextDouble * (1.0 + WholeBodyTrajectoryToolboxSettings.timeCoefficient * tree.getMostAdvancedTime());
 
-         randomNode = new SpatialNode(randomTime, randomData);
+         SpatialNode randomNode = new SpatialNode(randomTime, randomData);
 
+         boolean randomNodeHasParentNode = false;
          tree.setRandomNode(randomNode);
          if (trajectoryCommands != null)
             randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(true);
@@ -410,61 +512,42 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
          if (randomNodeHasParentNode)
          {
             tree.limitCandidateDistanceFromParent(toolboxData.getTrajectoryTime());
-            SpatialNode candidate = tree.getCandidate();
-            updateValidity(candidate);
+            return tree.getCandidate();
+         }
+      }
+   }
+
+   private boolean isExpandingTerminalConditionReached()
+   {
+      // TODO: generic terminal conditions.
+      if (trajectoryCommands != null)
+      {
+         return tree.getMostAdvancedTime() >= toolboxData.getTrajectoryTime();
+      }
+      else if (manifoldCommands != null)
+      {
+         Pose3D testFrame = toolboxData.getTestFrame(tree.getLastNodeAdded());
 
-            /*
-             * visualize
-             */
-            visualizedNode = new SpatialNode(candidate);
-            nodePlotter.update(candidate, 1);
+         testFramePose.setPosition(testFrame.getPosition());
+         testFramePose.setOrientation(testFrame.getOrientation());
+         testFrameViz.setVisible(true);
+         testFrameViz.update();
 
-            if (candidate.isValid())
-            {
-               tree.attachCandidate();
-               numberOfValidPosture++;
-
-               // TODO: generic terminal conditions.
-               if (trajectoryCommands != null)
-               {
-                  if (tree.getMostAdvancedTime() >= toolboxData.getTrajectoryTime())
-                     isExpandingTerminalCondition = true;
-               }
-               else if (manifoldCommands != null)
-               {  
-                  Pose3D testFrame = toolboxData.getTestFrame(tree.getLastNodeAdded());
-
-                  testFramePose.setPosition(testFrame.getPosition());
-                  testFramePose.setOrientation(testFrame.getOrientation());
-                  testFrameViz.setVisible(true);
-                  testFrameViz.update();
-
-                  // TODO : terminal condition for manifold command.
-                  double maximumDistanceFromManifolds = toolboxData.getMaximumDistanceFromManifolds(tree.getLastNodeAdded());
-                  minimumDistanceFromManifold.set(maximumDistanceFromManifolds);
-                  if(maximumDistanceFromManifolds < 0.05)
-                     isExpandingTerminalCondition = true;
-               }
-               else
-               {
-                  if (VERBOSE)
-                     PrintTools.warn("any command is available");
-               }
-            }
-            else
-            {
-               tree.dismissCandidate();
-               numberOfInvalidPosture++;
-            }
-         }
-         else
-         {
-            maximumPatientCounter--;
-            if (maximumPatientCounter == 0)
-               continue;
-         }
+         // TODO : terminal condition for manifold command.
+         double maximumDistanceFromManifolds = toolboxData.getMaximumDistanceFromManifolds(tree.getLastNodeAdded());
+         minimumDistanceFromManifold.set(maximumDistanceFromManifolds);
+         return maximumDistanceFromManifolds < 0.05;
       }
+      else
+      {
+         if (VERBOSE)
+            PrintTools.warn("any command is available");
+         return false;
+      }
+   }
 
+   private void terminateExpandingTree(boolean isExpandingTerminalCondition)
+   {
       /*
        * terminate expanding tree.
        */
@@ -556,28 +639,27 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
 
    private void findInitialGuess()
    {
-      SpatialData initialGuessData = toolboxData.createRandomSpatialData();
+      if (parallelValidator != null)
+      {
+         findInitialGuessesInParallel();
+      }
+      else
+      {
+         SpatialData initialGuessData = toolboxData.createRandomSpatialData();
 
-      SpatialNode initialGuessNode = new SpatialNode(initialGuessData);
-      updateValidity(initialGuessNode);
+         SpatialNode initialGuessNode = new SpatialNode(initialGuessData);
+         updateValidity(initialGuessNode);
 
-      visualizedNode = initialGuessNode;
+         double jointScore = 0.0;
+         if (initialGuessNode.isValid())
+            jointScore = computeArmJointsLimitScore(humanoidKinematicsSolver.getDesiredFullRobotModel());
 
-      double jointScore = 0.0;
-      if (initialGuessNode.isValid())
-      {
-         tree.addInitialNode(initialGuessNode);
-         currentNumberOfValidInitialGuesses.increment();
-         jointScore = computeArmJointsLimitScore(humanoidKinematicsSolver.getDesiredFullRobotModel());
+         processInitialGuess(initialGuessNode, jointScore);
       }
-      jointlimitScore.set(jointScore);
-
-      nodePlotter.update(initialGuessNode, 1);
 
       /*
        * terminate finding initial guess.
        */
-      currentNumberOfInitialGuesses.increment();
 
       if (currentNumberOfInitialGuesses.getIntegerValue() >= desiredNumberOfInitialGuesses.getIntegerValue()
             || currentNumberOfValidInitialGuesses.getIntegerValue() >= terminalConditionNumberOfValidInitialGuesses.getIntegerValue())
@@ -600,6 +682,42 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       treeExpansionStartTime = updateTimer(initialGuessComputationTime, initialGuessStartTime);
    }
 
+   private void findInitialGuessesInParallel()
+   {
+      int remainingNumberOfInitialGuesses = desiredNumberOfInitialGuesses.getIntegerValue() - currentNumberOfInitialGuesses.getIntegerValue();
+      int numberOfGuesses = Math.max(1, Math.min(parallelValidator.getNumberOfWorkers(), remainingNumberOfInitialGuesses));
+
+      List<SpatialNode> initialGuessNodes = new ArrayList<>(numberOfGuesses);
+      for (int i = 0; i < numberOfGuesses; i++)
+         initialGuessNodes.add(new SpatialNode(toolboxData.createRandomSpatialData()));
+
+      double[] jointScores = parallelValidator.updateValidity(initialGuessNodes, toolboxData, initialConfiguration, this::computeArmJointsLimitScore);
+
+      for (int i = 0; i < numberOfGuesses; i++)
+      {
+         if (currentNumberOfValidInitialGuesses.getIntegerValue() >= terminalConditionNumberOfValidInitialGuesses.getIntegerValue())
+            break;
+
+         processInitialGuess(initialGuessNodes.get(i), jointScores[i]);
+      }
+   }
+
+   private void processInitialGuess(SpatialNode initialGuessNode, double jointScore)
+   {
+      visualizedNode = initialGuessNode;
+
+      if (initialGuessNode.isValid())
+      {
+         tree.addInitialNode(initialGuessNode);
+         currentNumberOfValidInitialGuesses.increment();
+      }
+      jointlimitScore.set(jointScore);
+
+      nodePlotter.update(initialGuessNode, 1);
+
+      currentNumberOfInitialGuesses.increment();
+   }
+
    private long updateTimer(YoDouble currentTimer, long currentTimerStartTime)
    {
       long endTime = System.nanoTime();
@@ -809,26 +927,7 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
     */
    private boolean updateValidity(SpatialNode node)
    {
-      if (node.getParent() != null && node.getParent().getConfiguration() != null)
-      {
-         humanoidKinematicsSolver.setInitialConfiguration(node.getParent().getConfiguration());
-      }
-      else
-      {
-         humanoidKinematicsSolver.setInitialConfiguration(initialConfiguration);
-      }
-
-      humanoidKinematicsSolver.initialize();
-      humanoidKinematicsSolver.submit(toolboxData.createMessages(node));
-      /*
-       * result
-       */
-      boolean success = humanoidKinematicsSolver.solve();
-
-      node.setConfiguration(humanoidKinematicsSolver.getSolution());
-      node.setValidity(success);
-
-      return success;
+      return ParallelSpatialNodeValidator.updateValidity(humanoidKinematicsSolver, node, initialConfiguration, toolboxData.createMessages(node));
    }
 
    /**
@@ -886,13 +985,53 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
          return false;
       }
 
+      SpatialNode nodeDummy = createShortcutNode(path, index);
+
+      updateValidity(nodeDummy);
+
+      return applyShortcut(path, index, nodeDummy);
+   }
+
+   /**
+    * Tries the shortcuts from index to index+2 for every other index starting at {@code firstIndex}.
+    * These shortcuts modify disjoint nodes of the path and only read nodes that are not modified, so
+    * they are validated concurrently.
+    * <p>
+    * Running this for the even indices and then for the odd indices does not give the same path as
+    * the sequential sweep. The sequential sweep is Gauss-Seidel like: the shortcut at {@code index}
+    * starts from the node {@code index} already moved by the shortcut at {@code index - 1}. Here, the
+    * even shortcuts only see the path from before the pass, and the odd shortcuts see the result of
+    * the even ones. Both orderings pull each node toward the midpoint of its neighbors and the passes
+    * are repeated until the path stops moving, but the intermediate and final paths differ.
+    * </p>
+    */
+   private void updateShortcutPathInParallel(List<SpatialNode> path, int firstIndex)
+   {
+      List<SpatialNode> nodeDummies = new ArrayList<>();
+      for (int index = firstIndex; index <= path.size() - 3; index += 2)
+         nodeDummies.add(createShortcutNode(path, index));
+
+      if (nodeDummies.isEmpty())
+         return;
+
+      parallelValidator.updateValidity(nodeDummies, toolboxData, initialConfiguration, null);
+
+      for (int i = 0; i < nodeDummies.size(); i++)
+         applyShortcut(path, firstIndex + 2 * i, nodeDummies.get(i));
+   }
+
+   private static SpatialNode createShortcutNode(List<SpatialNode> path, int index)
+   {
       SpatialNode nodeDummy = new SpatialNode(path.get(index + 1));
 
       nodeDummy.setParent(path.get(index));
       nodeDummy.interpolate(path.get(index), path.get(index + 2), 0.5);
 
-      updateValidity(nodeDummy);
+      return nodeDummy;
+   }
 
+   private static boolean applyShortcut(List<SpatialNode> path, int index, SpatialNode nodeDummy)
+   {
       if (nodeDummy.isValid())
       {
          path.get(index + 1).interpolate(path.get(index), path.get(index + 2), 0.5);
@@ -918,10 +1057,18 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
          pathBeforeShortcut.add(new SpatialNode(path.get(i)));
       }
 
-      for (int i = 0; i < path.size(); i++)
+      if (parallelValidator != null)
       {
-         if (updateShortcutPath(path, i))
-            ;
+         updateShortcutPathInParallel(path, 0);
+         updateShortcutPathInParallel(path, 1);
+      }
+      else
+      {
+         for (int i = 0; i < path.size(); i++)
+         {
+            if (updateShortcutPath(path, i))
+               ;
+         }
       }
 
       double distance = 0.0;
@@ -954,4 +1101,10 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    {
       return humanoidKinematicsSolver.getDesiredFullRobotModel();
    }
-}
\ No newline at end of file
+
+   public void closeAndDispose()
+   {
+      if (parallelValidator != null)
+         parallelValidator.closeAndDispose();
+   }
+}
@@ -30,6 +30,17 @@ public class WholeBodyTrajectoryToolboxModule extends ToolboxModule
 
    public WholeBodyTrajectoryToolboxModule(DRCRobotModel drcRobotModel, boolean startYoVariableServer, PubSubImplementation pubSubImplementation)
          throws IOException
+   {
+      this(drcRobotModel, startYoVariableServer, pubSubImplementation, 1);
+   }
+
+   /**
+    * @param numberOfWorkers the number of kinematics solvers used to validate the nodes
+    *                        concurrently, see {@link WholeBodyTrajectoryToolboxController}.
+    */
+   public WholeBodyTrajectoryToolboxModule(DRCRobotModel drcRobotModel, boolean startYoVariableServer, PubSubImplementation pubSubImplementation,
+                                           int numberOfWorkers)
+         throws IOException
    {
       super(drcRobotModel.getSimpleRobotName(),
             drcRobotModel.createFullRobotModel(),
@@ -40,7 +51,7 @@ public class WholeBodyTrajectoryToolboxModule extends ToolboxModule
       setTimeWithoutInputsBeforeGoingToSleep(Double.POSITIVE_INFINITY);
 
       wholeBodyTrajectoryToolboxController = new WholeBodyTrajectoryToolboxController(drcRobotModel, fullRobotModel, commandInputManager, statusOutputManager,
-                                                                                      registry, yoGraphicsListRegistry, startYoVariableServer);
+                                                                                      registry, yoGraphicsListRegistry, startYoVariableServer, numberOfWorkers);
       controllerNetworkSubscriber.registerSubcriberWithMessageUnpacker(WholeBodyTrajectoryToolboxMessage.class, 10,
                                                                        MessageUnpackingTools.createWholeBodyTrajectoryToolboxMessageUnpacker());
       commandInputManager.registerConversionHelper(new WholeBodyTrajectoryToolboxCommandConverter(fullRobotModel));
@@ -52,6 +63,13 @@ public class WholeBodyTrajectoryToolboxModule extends ToolboxModule
       return wholeBodyTrajectoryToolboxController;
    }
 
+   @Override
+   public void destroy()
+   {
+      super.destroy();
+      wholeBodyTrajectoryToolboxController.closeAndDispose();
+   }
+
    @Override
    public List<Class<? extends Command<?, ?>>> createListOfSupportedCommands()
    {
@@ -0,0 +1,181 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+
+/**
+ * Loads a reachability map written by {@link ReachabilityMapBinaryFileWriter}. The file is memory-mapped and the grid is filled directly
+ * from the packed bit sets, the resulting {@link Voxel3DGrid} is the same as the one loaded by {@link ReachabilityMapFileLoader} from the
+ * equivalent Excel file.
+ */
+public class ReachabilityMapBinaryFileLoader
+{
+   private final Voxel3DGrid loadedGrid;
+   private final long[] evaluatedVoxels;
+   private final List<String> jointNames = new ArrayList<>();
+
+   public ReachabilityMapBinaryFileLoader(String robotName, RigidBodyBasics rootBody)
+   {
+      this(robotName, rootBody, null);
+   }
+
+   public ReachabilityMapBinaryFileLoader(String robotName, RigidBodyBasics rootBody, HumanoidReferenceFrames referenceFrames)
+   {
+      this(ReachabilityMapFileLoader.selectionFileDialog(), robotName, rootBody, referenceFrames);
+   }
+
+   public ReachabilityMapBinaryFileLoader(File fileToLoad, String robotName, RigidBodyBasics rootBody)
+   {
+      this(fileToLoad, robotName, rootBody, null);
+   }
+
+   public ReachabilityMapBinaryFileLoader(File fileToLoad, String robotName, RigidBodyBasics rootBody, HumanoidReferenceFrames referenceFrames)
+   {
+      try (FileChannel fileChannel = FileChannel.open(fileToLoad.toPath(), StandardOpenOption.READ))
+      {
+         MappedByteBuffer buffer = fileChannel.map(MapMode.READ_ONLY, 0, fileChannel.size());
+
+         if (buffer.getInt() != ReachabilityMapBinaryFileWriter.MAGIC_NUMBER)
+            throw new RuntimeException("The file " + fileToLoad + " is not a reachability map");
+         int version = buffer.getInt();
+         if (version != ReachabilityMapBinaryFileWriter.FORMAT_VERSION)
+            throw new RuntimeException("Unsupported reachability map format version: " + version);
+
+         String robotNameInFile = readString(buffer);
+         if (!robotName.equals(robotNameInFile))
+            throw new RuntimeException("Trying to load the data for another robot: Loading data for " + robotName + ", file contains data for " + robotNameInFile);
+
+         int numberOfVoxelsPerDimension = buffer.getInt();
+         double voxelSize = buffer.getDouble();
+         int numberOfRaysPerVoxel = buffer.getInt();
+         int numberOfRotationsPerRay = buffer.getInt();
+
+         String gridFrameName = readString(buffer);
+         String parentFrameName = readString(buffer);
+         double[] transformElements = new double[12];
+         for (int i = 0; i < transformElements.length; i++)
+            transformElements[i] = buffer.getDouble();
+
+         int numberOfJoints = buffer.getInt();
+         for (int i = 0; i < numberOfJoints; i++)
+         {
+            jointNames.add(readString(buffer));
+            buffer.getDouble(); // lower limit
+            buffer.getDouble(); // upper limit
+         }
+         ReachabilityMapFileLoader.checkJointsExist(rootBody, jointNames);
+
+         RigidBodyTransform transformToParentFrame = new RigidBodyTransform(transformElements[0], transformElements[1], transformElements[2], transformElements[3],
+                                                                            transformElements[4], transformElements[5], transformElements[6], transformElements[7],
+                                                                            transformElements[8], transformElements[9], transformElements[10], transformElements[11]);
+         ReferenceFrame parentFrame = ReachabilityMapFileLoader.searchParentFrameInCommonRobotFrames(parentFrameName, referenceFrames, rootBody);
+         ReferenceFrame gridFrame = ReferenceFrameTools.constructFrameWithUnchangingTransformToParent(gridFrameName, parentFrame, transformToParentFrame);
+
+         SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRaysPerVoxel, numberOfRotationsPerRay, SphereVoxelType.graspOrigin);
+         loadedGrid = new Voxel3DGrid(gridFrame, sphereVoxelShape, numberOfVoxelsPerDimension, voxelSize);
+
+         evaluatedVoxels = readWords(buffer);
+         loadData(readWords(buffer));
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private void loadData(long[] reachablePoses)
+   {
+      int numberOfVoxelsPerDimension = loadedGrid.getNumberOfVoxelsPerDimension();
+      int numberOfRays = loadedGrid.getSphereVoxelShape().getNumberOfRays();
+      int numberOfRotationsAroundRay = loadedGrid.getSphereVoxelShape().getNumberOfRotationsAroundRay();
+      int numberOfPosesPerVoxel = numberOfRays * numberOfRotationsAroundRay;
+
+      for (int wordIndex = 0; wordIndex < reachablePoses.length; wordIndex++)
+      {
+         long word = reachablePoses[wordIndex];
+
+         while (word != 0L)
+         {
+            long poseIndex = (long) wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word);
+            word &= word - 1L;
+
+            int voxelIndex = (int) (poseIndex / numberOfPosesPerVoxel);
+            int poseInVoxel = (int) (poseIndex % numberOfPosesPerVoxel);
+            int zIndex = voxelIndex % numberOfVoxelsPerDimension;
+            int yIndex = (voxelIndex / numberOfVoxelsPerDimension) % numberOfVoxelsPerDimension;
+            int xIndex = voxelIndex / (numberOfVoxelsPerDimension * numberOfVoxelsPerDimension);
+
+            loadedGrid.registerReachablePose(xIndex, yIndex, zIndex, poseInVoxel / numberOfRotationsAroundRay, poseInVoxel % numberOfRotationsAroundRay);
+         }
+      }
+   }
+
+   private static String readString(ByteBuffer buffer)
+   {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   private static long[] readWords(ByteBuffer buffer)
+   {
+      long[] words = new long[buffer.getInt()];
+      buffer.asLongBuffer().get(words);
+      buffer.position(buffer.position() + words.length * Long.BYTES);
+      return words;
+   }
+
+   public Voxel3DGrid getLoadedGrid()
+   {
+      return loadedGrid;
+   }
+
+   /**
+    * @return the bit set of the voxels that had been evaluated when the file was written, indexed with
+    *       {@link ReachabilityMapBinaryFileWriter#getVoxelIndex(int, int, int, int)}.
+    */
+   public long[] getEvaluatedVoxels()
+   {
+      return evaluatedVoxels;
+   }
+
+   public boolean isVoxelEvaluated(int xIndex, int yIndex, int zIndex)
+   {
+      int voxelIndex = ReachabilityMapBinaryFileWriter.getVoxelIndex(xIndex, yIndex, zIndex, loadedGrid.getNumberOfVoxelsPerDimension());
+      return ReachabilityMapBinaryFileWriter.getBit(evaluatedVoxels, voxelIndex);
+   }
+
+   /**
+    * @return whether the map is complete, as opposed to a checkpoint of a computation that has not finished yet.
+    */
+   public boolean isComplete()
+   {
+      for (int i = 0; i < loadedGrid.getTotalNumberOfVoxels(); i++)
+      {
+         if (!ReachabilityMapBinaryFileWriter.getBit(evaluatedVoxels, i))
+            return false;
+      }
+      return true;
+   }
+
+   public List<String> getJointNames()
+   {
+      return jointNames;
+   }
+}
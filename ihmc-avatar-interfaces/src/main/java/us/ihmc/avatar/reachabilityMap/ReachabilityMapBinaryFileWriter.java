@@ -0,0 +1,185 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import us.ihmc.commons.nio.FileTools;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+
+/**
+ * Writes a reachability map in a compact binary format that can be loaded back with {@link ReachabilityMapBinaryFileLoader}.
+ * <p>
+ * The file holds the same description as the Excel file written by {@link ReachabilityMapFileWriter}, followed by two bit sets: the
+ * voxels that have been evaluated, which allows to resume a partial computation, and the reachable poses. The bits are indexed with
+ * {@link #getVoxelIndex(int, int, int, int)} and {@link #getPoseIndex(int, int, int, int, int, int, int, int)}.
+ * </p>
+ */
+public class ReachabilityMapBinaryFileWriter
+{
+   public static final String FILE_EXTENSION = ".rmap";
+   static final int MAGIC_NUMBER = 0x524D4150;
+   static final int FORMAT_VERSION = 1;
+
+   /**
+    * Creates the file a map should be written into, next to the Excel files created by {@link ReachabilityMapFileWriter}.
+    *
+    * @param robotName the robot name.
+    * @param classForFilePath this can be the class of the caller of this method.
+    */
+   public static File createFile(String robotName, Class<?> classForFilePath) throws IOException
+   {
+      Path filePath = ReachabilityMapFileWriter.deriveResourcesPath(classForFilePath);
+      FileTools.ensureDirectoryExists(filePath);
+      return filePath.resolve(ReachabilityMapFileWriter.prependDateToFileName(robotName) + FILE_EXTENSION).toFile();
+   }
+
+   /**
+    * Writes a complete map, all the voxels are marked as evaluated.
+    */
+   public static void write(File file, String robotName, OneDoFJointBasics[] robotArmJoints, Voxel3DGrid grid) throws IOException
+   {
+      int numberOfVoxels = grid.getTotalNumberOfVoxels();
+      long[] evaluatedVoxels = new long[getNumberOfWords(numberOfVoxels)];
+      for (int i = 0; i < numberOfVoxels; i++)
+         setBit(evaluatedVoxels, i);
+
+      write(file, robotName, robotArmJoints, grid, evaluatedVoxels);
+   }
+
+   /**
+    * Writes the map to a temporary file first and then moves it to {@code file}, so an interrupted write never corrupts a previous checkpoint.
+    *
+    * @param evaluatedVoxels bit set of the voxels that have been evaluated, indexed with {@link #getVoxelIndex(int, int, int, int)}.
+    */
+   public static void write(File file, String robotName, OneDoFJointBasics[] robotArmJoints, Voxel3DGrid grid, long[] evaluatedVoxels) throws IOException
+   {
+      Path path = file.toPath();
+      Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+      try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath))))
+      {
+         outputStream.writeInt(MAGIC_NUMBER);
+         outputStream.writeInt(FORMAT_VERSION);
+         writeString(outputStream, robotName);
+
+         outputStream.writeInt(grid.getNumberOfVoxelsPerDimension());
+         outputStream.writeDouble(grid.getVoxelSize());
+         outputStream.writeInt(grid.getSphereVoxelShape().getNumberOfRays());
+         outputStream.writeInt(grid.getSphereVoxelShape().getNumberOfRotationsAroundRay());
+
+         ReferenceFrame gridFrame = grid.getReferenceFrame();
+         writeString(outputStream, gridFrame.getName());
+         writeString(outputStream, gridFrame.isWorldFrame() ? "null" : gridFrame.getParent().getName());
+
+         FramePose3D poseToParent = new FramePose3D(gridFrame);
+         if (!gridFrame.isWorldFrame())
+            poseToParent.changeFrame(gridFrame.getParent());
+         RigidBodyTransform transformToParent = new RigidBodyTransform();
+         poseToParent.get(transformToParent);
+         double[] transformElements = {transformToParent.getM00(), transformToParent.getM01(), transformToParent.getM02(), transformToParent.getM03(),
+                                       transformToParent.getM10(), transformToParent.getM11(), transformToParent.getM12(), transformToParent.getM13(),
+                                       transformToParent.getM20(), transformToParent.getM21(), transformToParent.getM22(), transformToParent.getM23()};
+         for (double transformElement : transformElements)
+            outputStream.writeDouble(transformElement);
+
+         outputStream.writeInt(robotArmJoints.length);
+         for (OneDoFJointBasics joint : robotArmJoints)
+         {
+            writeString(outputStream, joint.getName());
+            outputStream.writeDouble(joint.getJointLimitLower());
+            outputStream.writeDouble(joint.getJointLimitUpper());
+         }
+
+         writeWords(outputStream, evaluatedVoxels);
+         writeWords(outputStream, packReachablePoses(grid));
+      }
+
+      Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   private static long[] packReachablePoses(Voxel3DGrid grid)
+   {
+      int numberOfVoxelsPerDimension = grid.getNumberOfVoxelsPerDimension();
+      int numberOfRays = grid.getSphereVoxelShape().getNumberOfRays();
+      int numberOfRotationsAroundRay = grid.getSphereVoxelShape().getNumberOfRotationsAroundRay();
+      long[] reachablePoses = new long[getNumberOfWords(getNumberOfPoses(numberOfVoxelsPerDimension, numberOfRays, numberOfRotationsAroundRay))];
+
+      long poseIndex = 0;
+      for (int xIndex = 0; xIndex < numberOfVoxelsPerDimension; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < numberOfVoxelsPerDimension; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < numberOfVoxelsPerDimension; zIndex++)
+            {
+               for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+               {
+                  for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+                  {
+                     if (grid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex))
+                        setBit(reachablePoses, poseIndex);
+                     poseIndex++;
+                  }
+               }
+            }
+         }
+      }
+
+      return reachablePoses;
+   }
+
+   private static void writeString(DataOutputStream outputStream, String string) throws IOException
+   {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      outputStream.writeInt(bytes.length);
+      outputStream.write(bytes);
+   }
+
+   private static void writeWords(DataOutputStream outputStream, long[] words) throws IOException
+   {
+      outputStream.writeInt(words.length);
+      for (long word : words)
+         outputStream.writeLong(word);
+   }
+
+   public static int getVoxelIndex(int xIndex, int yIndex, int zIndex, int numberOfVoxelsPerDimension)
+   {
+      return (xIndex * numberOfVoxelsPerDimension + yIndex) * numberOfVoxelsPerDimension + zIndex;
+   }
+
+   public static long getPoseIndex(int xIndex, int yIndex, int zIndex, int rayIndex, int rotationAroundRayIndex, int numberOfVoxelsPerDimension,
+                                   int numberOfRays, int numberOfRotationsAroundRay)
+   {
+      long voxelIndex = getVoxelIndex(xIndex, yIndex, zIndex, numberOfVoxelsPerDimension);
+      return (voxelIndex * numberOfRays + rayIndex) * numberOfRotationsAroundRay + rotationAroundRayIndex;
+   }
+
+   static long getNumberOfPoses(int numberOfVoxelsPerDimension, int numberOfRays, int numberOfRotationsAroundRay)
+   {
+      long numberOfVoxels = (long) numberOfVoxelsPerDimension * numberOfVoxelsPerDimension * numberOfVoxelsPerDimension;
+      return numberOfVoxels * numberOfRays * numberOfRotationsAroundRay;
+   }
+
+   public static int getNumberOfWords(long numberOfBits)
+   {
+      return (int) ((numberOfBits + Long.SIZE - 1) / Long.SIZE);
+   }
+
+   public static void setBit(long[] words, long bitIndex)
+   {
+      words[(int) (bitIndex >>> 6)] |= 1L << bitIndex;
+   }
+
+   public static boolean getBit(long[] words, long bitIndex)
+   {
+      return (words[(int) (bitIndex >>> 6)] & (1L << bitIndex)) != 0L;
+   }
+}
@@ -0,0 +1,317 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.euclid.referenceFrame.FramePoint3D;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.FrameQuaternion;
+import us.ihmc.euclid.referenceFrame.FrameVector3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.log.LogTools;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
+import us.ihmc.robotics.referenceFrames.PoseReferenceFrame;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+/**
+ * Headless version of {@link ReachabilitySphereMapCalculator} that explores the grid on several threads.
+ * <p>
+ * Each worker thread has its own copy of the robot arm, created with the factory given to the constructor, and its own
+ * {@link ReachabilityMapSolver}. The grid is processed one x-slice at a time, the voxels of a slice being distributed among the workers.
+ * When a checkpoint file is set, the map is saved with {@link ReachabilityMapBinaryFileWriter} after each slice and a computation that is
+ * interrupted can be resumed by running the calculator again with the same file and parameters.
+ * </p>
+ */
+public class ReachabilityMapParallelCalculator
+{
+   private final String robotName;
+   private final Supplier<OneDoFJointBasics[]> robotArmJointsFactory;
+   private final int numberOfThreads;
+
+   private int gridSizeInNumberOfVoxels = 25;
+   private double voxelSize = 0.05;
+   private int numberOfRays = 50;
+   private int numberOfRotationsAroundRay = 1;
+   private final RigidBodyTransform controlFramePose = new RigidBodyTransform();
+   private boolean selectX = true, selectY = true, selectZ = true;
+   private FramePose3D gridFramePose;
+
+   private File checkpointFile;
+
+   private OneDoFJointBasics[] robotArmJoints;
+   private Voxel3DGrid voxel3dGrid;
+   private long[] evaluatedVoxels;
+
+   /**
+    * @param robotName the robot name, saved in the checkpoint file.
+    * @param robotArmJointsFactory creates a new copy of the arm joints every time it is called, from the first joint to the end-effector.
+    *           The factory is called once per worker thread.
+    * @param numberOfThreads the number of worker threads.
+    */
+   public ReachabilityMapParallelCalculator(String robotName, Supplier<OneDoFJointBasics[]> robotArmJointsFactory, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("Number of threads must be at least 1, got " + numberOfThreads);
+
+      this.robotName = robotName;
+      this.robotArmJointsFactory = robotArmJointsFactory;
+      this.numberOfThreads = numberOfThreads;
+
+      robotArmJoints = robotArmJointsFactory.get();
+      gridFramePose = new FramePose3D(ReferenceFrame.getWorldFrame(), robotArmJoints[0].getFrameBeforeJoint().getTransformToWorldFrame());
+      gridFramePose.appendTranslation(getGridSizeInMeters() / 2.5, 0.0, 0.0);
+   }
+
+   /**
+    * See {@link ReachabilitySphereMapCalculator#setGridParameters(int, double, int, int)}.
+    */
+   public void setGridParameters(int gridSizeInNumberOfVoxels, double voxelSize, int numberOfRays, int numberOfRotationsAroundRay)
+   {
+      this.gridSizeInNumberOfVoxels = gridSizeInNumberOfVoxels;
+      this.voxelSize = voxelSize;
+      this.numberOfRays = numberOfRays;
+      this.numberOfRotationsAroundRay = numberOfRotationsAroundRay;
+   }
+
+   /**
+    * See {@link ReachabilitySphereMapCalculator#setControlFramePose(RigidBodyTransform)}.
+    */
+   public void setControlFramePose(RigidBodyTransform controlFramePose)
+   {
+      this.controlFramePose.set(controlFramePose);
+   }
+
+   /**
+    * See {@link ReachabilitySphereMapCalculator#setAngularSelection(boolean, boolean, boolean)}.
+    */
+   public void setAngularSelection(boolean selectX, boolean selectY, boolean selectZ)
+   {
+      this.selectX = selectX;
+      this.selectY = selectY;
+      this.selectZ = selectZ;
+   }
+
+   /**
+    * Sets the center and orientation of the grid.
+    *
+    * @param pose the pose of the grid expressed in world.
+    */
+   public void setGridFramePose(FramePose3D pose)
+   {
+      pose.checkReferenceFrameMatch(ReferenceFrame.getWorldFrame());
+      gridFramePose.setIncludingFrame(pose);
+   }
+
+   /**
+    * Sets the file the map is saved into while it is computed. If the file already exists, the voxels it marks as evaluated are loaded and
+    * skipped, the grid parameters have to match the ones the file was written with.
+    */
+   public void setCheckpointFile(File checkpointFile)
+   {
+      this.checkpointFile = checkpointFile;
+   }
+
+   /**
+    * Starts the exploration of the reachable space of the arm and blocks until it is done.
+    *
+    * @return the grid holding the reachable poses.
+    */
+   public Voxel3DGrid buildReachabilitySpace() throws IOException
+   {
+      PoseReferenceFrame gridFrame = new PoseReferenceFrame("gridFrame", ReferenceFrame.getWorldFrame());
+      gridFrame.setPoseAndUpdate(gridFramePose);
+      SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRays, numberOfRotationsAroundRay, SphereVoxelType.graspOrigin);
+      voxel3dGrid = new Voxel3DGrid(gridFrame, sphereVoxelShape, gridSizeInNumberOfVoxels, voxelSize);
+      evaluatedVoxels = new long[ReachabilityMapBinaryFileWriter.getNumberOfWords(voxel3dGrid.getTotalNumberOfVoxels())];
+
+      if (checkpointFile != null && checkpointFile.exists())
+         resumeFromCheckpoint();
+
+      List<Worker> workers = new ArrayList<>();
+      for (int i = 0; i < numberOfThreads; i++)
+         workers.add(new Worker(i == 0 ? robotArmJoints : robotArmJointsFactory.get(), i));
+
+      ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+      AtomicInteger nextVoxelInSlice = new AtomicInteger();
+
+      try
+      {
+         for (int xIndex = 0; xIndex < gridSizeInNumberOfVoxels; xIndex++)
+         {
+            int sliceIndex = xIndex;
+            nextVoxelInSlice.set(0);
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (Worker worker : workers)
+               tasks.add(() -> worker.processSlice(sliceIndex, nextVoxelInSlice));
+
+            for (Future<Void> future : executorService.invokeAll(tasks))
+               future.get();
+
+            if (checkpointFile != null)
+               ReachabilityMapBinaryFileWriter.write(checkpointFile, robotName, robotArmJoints, voxel3dGrid, evaluatedVoxels);
+
+            LogTools.info("Processed slice " + (xIndex + 1) + "/" + gridSizeInNumberOfVoxels);
+         }
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+      finally
+      {
+         executorService.shutdownNow();
+      }
+
+      return voxel3dGrid;
+   }
+
+   private void resumeFromCheckpoint()
+   {
+      ReachabilityMapBinaryFileLoader loader = new ReachabilityMapBinaryFileLoader(checkpointFile,
+                                                                                   robotName,
+                                                                                   MultiBodySystemTools.getRootBody(robotArmJoints[0].getPredecessor()));
+      Voxel3DGrid loadedGrid = loader.getLoadedGrid();
+
+      if (loadedGrid.getNumberOfVoxelsPerDimension() != gridSizeInNumberOfVoxels || loadedGrid.getVoxelSize() != voxelSize
+            || loadedGrid.getSphereVoxelShape().getNumberOfRays() != numberOfRays
+            || loadedGrid.getSphereVoxelShape().getNumberOfRotationsAroundRay() != numberOfRotationsAroundRay)
+      {
+         throw new RuntimeException("The checkpoint file " + checkpointFile + " was written with different grid parameters");
+      }
+
+      System.arraycopy(loader.getEvaluatedVoxels(), 0, evaluatedVoxels, 0, evaluatedVoxels.length);
+
+      for (int xIndex = 0; xIndex < gridSizeInNumberOfVoxels; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < gridSizeInNumberOfVoxels; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < gridSizeInNumberOfVoxels; zIndex++)
+            {
+               for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+               {
+                  for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+                  {
+                     if (loadedGrid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex))
+                        voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+                  }
+               }
+            }
+         }
+      }
+
+      LogTools.info("Resuming from " + checkpointFile);
+   }
+
+   private boolean isVoxelEvaluated(int voxelIndex)
+   {
+      synchronized (evaluatedVoxels)
+      {
+         return ReachabilityMapBinaryFileWriter.getBit(evaluatedVoxels, voxelIndex);
+      }
+   }
+
+   private void setVoxelEvaluated(int voxelIndex)
+   {
+      synchronized (evaluatedVoxels)
+      {
+         ReachabilityMapBinaryFileWriter.setBit(evaluatedVoxels, voxelIndex);
+      }
+   }
+
+   public double getGridSizeInMeters()
+   {
+      return gridSizeInNumberOfVoxels * voxelSize;
+   }
+
+   /**
+    * Explores voxels with its own arm and solver. The grid frame and voxel shape are copied as well so that changing frames on a worker
+    * thread does not update the cached transforms of frames used by other threads.
+    */
+   private class Worker
+   {
+      private final ReachabilityMapSolver solver;
+      private final PoseReferenceFrame workerGridFrame;
+      private final SphereVoxelShape workerSphereVoxelShape;
+
+      private final FramePoint3D voxelLocation = new FramePoint3D();
+      private final FramePoint3D modifiableVoxelLocation = new FramePoint3D();
+      private final FrameVector3D translationFromVoxelOrigin = new FrameVector3D();
+      private final FrameQuaternion orientation = new FrameQuaternion();
+
+      Worker(OneDoFJointBasics[] workerArmJoints, int workerIndex)
+      {
+         solver = new ReachabilityMapSolver(workerArmJoints, null, new YoRegistry("worker" + workerIndex));
+         solver.setControlFramePose(controlFramePose);
+         solver.setAngularSelection(selectX, selectY, selectZ);
+
+         workerGridFrame = new PoseReferenceFrame("gridFrame" + workerIndex, ReferenceFrame.getWorldFrame());
+         workerGridFrame.setPoseAndUpdate(gridFramePose);
+         workerSphereVoxelShape = new SphereVoxelShape(workerGridFrame, voxelSize, numberOfRays, numberOfRotationsAroundRay, SphereVoxelType.graspOrigin);
+      }
+
+      Void processSlice(int xIndex, AtomicInteger nextVoxelInSlice)
+      {
+         int numberOfVoxelsInSlice = gridSizeInNumberOfVoxels * gridSizeInNumberOfVoxels;
+         int voxelInSlice;
+
+         while ((voxelInSlice = nextVoxelInSlice.getAndIncrement()) < numberOfVoxelsInSlice)
+         {
+            int yIndex = voxelInSlice / gridSizeInNumberOfVoxels;
+            int zIndex = voxelInSlice % gridSizeInNumberOfVoxels;
+            int voxelIndex = ReachabilityMapBinaryFileWriter.getVoxelIndex(xIndex, yIndex, zIndex, gridSizeInNumberOfVoxels);
+
+            if (isVoxelEvaluated(voxelIndex))
+               continue;
+
+            processVoxel(xIndex, yIndex, zIndex);
+            setVoxelEvaluated(voxelIndex);
+         }
+
+         return null;
+      }
+
+      private void processVoxel(int xIndex, int yIndex, int zIndex)
+      {
+         voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
+         voxelLocation.setIncludingFrame(workerGridFrame, voxelLocation);
+
+         if (!solver.solveFor(voxelLocation))
+            return;
+
+         for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+         {
+            for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+            {
+               modifiableVoxelLocation.setIncludingFrame(voxelLocation);
+               workerSphereVoxelShape.getPose(translationFromVoxelOrigin, orientation, rayIndex, rotationAroundRayIndex);
+               modifiableVoxelLocation.add(translationFromVoxelOrigin);
+
+               if (solver.solveFor(modifiableVoxelLocation, orientation))
+               {
+                  voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+                  break;
+               }
+            }
+         }
+      }
+   }
+}
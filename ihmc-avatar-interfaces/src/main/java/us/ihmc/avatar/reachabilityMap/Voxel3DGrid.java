@@ -105,6 +105,16 @@ public class Voxel3DGrid implements ReferenceFrameHolder
       isRayReachable[xIndex][yIndex][zIndex][rayIndex] = true;
    }
 
+   public boolean isPoseReachable(int xIndex, int yIndex, int zIndex, int rayIndex, int rotationAroundRayIndex)
+   {
+      return isPoseReachable[xIndex][yIndex][zIndex][rayIndex][rotationAroundRayIndex];
+   }
+
+   public boolean isRayReachable(int xIndex, int yIndex, int zIndex, int rayIndex)
+   {
+      return isRayReachable[xIndex][yIndex][zIndex][rayIndex];
+   }
+
    /**
     * Return the D reachability value in percent for this voxel based on the number of the rays that
     * have been reached.
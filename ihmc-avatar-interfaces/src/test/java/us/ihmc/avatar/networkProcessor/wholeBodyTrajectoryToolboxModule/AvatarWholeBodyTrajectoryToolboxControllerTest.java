@@ -6,7 +6,9 @@ import static us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeB
 import static us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.ConfigurationSpaceName.ROLL;
 import static us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.ConfigurationSpaceName.YAW;
 import static us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxMessageTools.createTrajectoryMessage;
+import static us.ihmc.robotics.Assert.assertEquals;
 import static us.ihmc.robotics.Assert.assertNotNull;
+import static us.ihmc.robotics.Assert.assertTrue;
 import static us.ihmc.robotics.Assert.fail;
 
 import java.util.ArrayList;
@@ -32,6 +34,7 @@ import controller_msgs.msg.dds.WholeBodyTrajectoryToolboxOutputStatus;
 import us.ihmc.avatar.MultiRobotTestInterface;
 import us.ihmc.avatar.drcRobot.DRCRobotModel;
 import us.ihmc.avatar.jointAnglesWriter.JointAnglesWriter;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsSolver;
 import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsToolboxController;
 import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.KinematicsToolboxCommandConverter;
 import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.KinematicsToolboxControllerTest;
@@ -60,6 +63,8 @@ import us.ihmc.humanoidRobotics.communication.packets.KinematicsToolboxOutputCon
 import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.ConfigurationSpaceName;
 import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxMessageTools;
 import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxMessageTools.FunctionTrajectory;
+import us.ihmc.humanoidRobotics.communication.wholeBodyTrajectoryToolboxAPI.RigidBodyExplorationConfigurationCommand;
+import us.ihmc.manipulation.planning.exploringSpatial.SpatialNode;
 import us.ihmc.mecano.multiBodySystem.interfaces.FloatingJointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
@@ -137,7 +142,7 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
       commandConversionHelper = new WholeBodyTrajectoryToolboxCommandConverter(desiredFullRobotModel);
       commandInputManager.registerConversionHelper(commandConversionHelper);
       commandInputManager.registerMessageUnpacker(WholeBodyTrajectoryToolboxMessage.class,
-                                                  MessageUnpackingTools.createWholeBodyTrajectoryToolboxMessageUnpacker());
+                                                  MessageUnpackingTools::createWholeBodyTrajectoryToolboxMessageUnpacker);
 
       converter = new KinematicsToolboxOutputConverter(robotModel);
 
@@ -438,6 +443,63 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
       runTrajectoryTest(message, maxNumberOfIterations);
    }
 
+   @Test
+   public void testParallelValidationMatchesSequentialValidation()
+   {
+      DRCRobotModel robotModel = getRobotModel();
+      FullHumanoidRobotModel fullRobotModel = createFullRobotModelAtInitialConfiguration();
+      KinematicsToolboxOutputStatus initialConfiguration = HumanoidMessageTools.createKinematicsToolboxOutputStatus(fullRobotModel);
+
+      List<RigidBodyExplorationConfigurationCommand> explorationCommands = new ArrayList<>();
+      for (RobotSide robotSide : RobotSide.values)
+         explorationCommands.add(new RigidBodyExplorationConfigurationCommand(fullRobotModel.getHand(robotSide), YAW, PITCH, ROLL));
+      WholeBodyTrajectoryToolboxData toolboxData = new WholeBodyTrajectoryToolboxData(fullRobotModel, null, null, explorationCommands);
+
+      HumanoidKinematicsSolver sequentialSolver = new HumanoidKinematicsSolver(robotModel, null, new YoRegistry("sequential"));
+      ParallelSpatialNodeValidator parallelValidator = new ParallelSpatialNodeValidator(robotModel, 4);
+
+      try
+      {
+         // Nodes without parent start from the initial configuration, the others from their parent configuration.
+         List<SpatialNode> parents = new ArrayList<>();
+         for (int i = 0; i < 4; i++)
+         {
+            SpatialNode parent = new SpatialNode(toolboxData.createRandomSpatialData());
+            ParallelSpatialNodeValidator.updateValidity(sequentialSolver, parent, initialConfiguration, toolboxData.createMessages(parent));
+            parents.add(parent);
+         }
+
+         List<SpatialNode> parallelNodes = new ArrayList<>();
+         for (int i = 0; i < 16; i++)
+         {
+            SpatialNode node = new SpatialNode(toolboxData.createRandomSpatialData());
+            if (i % 4 != 0)
+               node.setParent(parents.get(i % parents.size()));
+            parallelNodes.add(node);
+         }
+
+         List<SpatialNode> sequentialNodes = new ArrayList<>();
+         for (SpatialNode node : parallelNodes)
+            sequentialNodes.add(new SpatialNode(node));
+
+         for (SpatialNode node : sequentialNodes)
+            ParallelSpatialNodeValidator.updateValidity(sequentialSolver, node, initialConfiguration, toolboxData.createMessages(node));
+         parallelValidator.updateValidity(parallelNodes, toolboxData, initialConfiguration, null);
+
+         for (int i = 0; i < parallelNodes.size(); i++)
+         {
+            SpatialNode expected = sequentialNodes.get(i);
+            SpatialNode actual = parallelNodes.get(i);
+            assertEquals("Validity differs for node " + i, expected.isValid(), actual.isValid());
+            assertTrue("Configuration differs for node " + i, expected.getConfiguration().epsilonEquals(actual.getConfiguration(), 1.0e-7));
+         }
+      }
+      finally
+      {
+         parallelValidator.closeAndDispose();
+      }
+   }
+
    protected void runTrajectoryTest(WholeBodyTrajectoryToolboxMessage message, int maxNumberOfIterations) throws UnreasonableAccelerationException
    {
       List<WaypointBasedTrajectoryMessage> endEffectorTrajectories = message.getEndEffectorTrajectories();
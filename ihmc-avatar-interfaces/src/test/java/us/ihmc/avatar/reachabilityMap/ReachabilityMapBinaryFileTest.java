@@ -0,0 +1,116 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.mecano.multiBodySystem.RigidBody;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+
+public class ReachabilityMapBinaryFileTest
+{
+   private static final String ROBOT_NAME = "testRobot";
+
+   @Test
+   public void testWriteAndLoad() throws IOException
+   {
+      Random random = new Random(4351);
+      RigidBodyBasics rootBody = new RigidBody("root", ReferenceFrame.getWorldFrame());
+      List<? extends OneDoFJointBasics> joints = MultiBodySystemRandomTools.nextOneDoFJointChain(random, "arm", rootBody, 4);
+      OneDoFJointBasics[] armJoints = joints.toArray(new OneDoFJointBasics[0]);
+
+      Voxel3DGrid grid = createGrid(random, 5, 0.1, 12, 3);
+      for (int i = 0; i < 200; i++)
+      {
+         grid.registerReachablePose(random.nextInt(5), random.nextInt(5), random.nextInt(5), random.nextInt(12), random.nextInt(3));
+      }
+
+      File file = File.createTempFile("reachabilityMap", ReachabilityMapBinaryFileWriter.FILE_EXTENSION);
+      file.deleteOnExit();
+      ReachabilityMapBinaryFileWriter.write(file, ROBOT_NAME, armJoints, grid);
+
+      ReachabilityMapBinaryFileLoader loader = new ReachabilityMapBinaryFileLoader(file, ROBOT_NAME, rootBody);
+      Voxel3DGrid loadedGrid = loader.getLoadedGrid();
+
+      assertTrue(loader.isComplete());
+      assertEquals(armJoints.length, loader.getJointNames().size());
+      assertEquals(grid.getNumberOfVoxelsPerDimension(), loadedGrid.getNumberOfVoxelsPerDimension());
+      assertEquals(grid.getVoxelSize(), loadedGrid.getVoxelSize());
+      assertTrue(grid.getReferenceFrame().getTransformToWorldFrame().epsilonEquals(loadedGrid.getReferenceFrame().getTransformToWorldFrame(), 1.0e-12));
+
+      for (int x = 0; x < 5; x++)
+      {
+         for (int y = 0; y < 5; y++)
+         {
+            for (int z = 0; z < 5; z++)
+            {
+               assertEquals(grid.getD(x, y, z), loadedGrid.getD(x, y, z));
+
+               for (int ray = 0; ray < 12; ray++)
+               {
+                  assertEquals(grid.isRayReachable(x, y, z, ray), loadedGrid.isRayReachable(x, y, z, ray));
+
+                  for (int rotation = 0; rotation < 3; rotation++)
+                     assertEquals(grid.isPoseReachable(x, y, z, ray, rotation), loadedGrid.isPoseReachable(x, y, z, ray, rotation));
+               }
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testPartialWrite() throws IOException
+   {
+      Random random = new Random(8734);
+      RigidBodyBasics rootBody = new RigidBody("root", ReferenceFrame.getWorldFrame());
+      List<? extends OneDoFJointBasics> joints = MultiBodySystemRandomTools.nextOneDoFJointChain(random, "arm", rootBody, 3);
+      OneDoFJointBasics[] armJoints = joints.toArray(new OneDoFJointBasics[0]);
+
+      Voxel3DGrid grid = createGrid(random, 4, 0.05, 8, 1);
+      long[] evaluatedVoxels = new long[ReachabilityMapBinaryFileWriter.getNumberOfWords(grid.getTotalNumberOfVoxels())];
+      for (int y = 0; y < 4; y++)
+      {
+         for (int z = 0; z < 4; z++)
+            ReachabilityMapBinaryFileWriter.setBit(evaluatedVoxels, ReachabilityMapBinaryFileWriter.getVoxelIndex(0, y, z, 4));
+      }
+
+      File file = File.createTempFile("reachabilityMap", ReachabilityMapBinaryFileWriter.FILE_EXTENSION);
+      file.deleteOnExit();
+      ReachabilityMapBinaryFileWriter.write(file, ROBOT_NAME, armJoints, grid, evaluatedVoxels);
+
+      ReachabilityMapBinaryFileLoader loader = new ReachabilityMapBinaryFileLoader(file, ROBOT_NAME, rootBody);
+      assertFalse(loader.isComplete());
+
+      for (int x = 0; x < 4; x++)
+      {
+         for (int y = 0; y < 4; y++)
+         {
+            for (int z = 0; z < 4; z++)
+               assertEquals(x == 0, loader.isVoxelEvaluated(x, y, z));
+         }
+      }
+   }
+
+   private static Voxel3DGrid createGrid(Random random, int gridSize, double voxelSize, int numberOfRays, int numberOfRotations)
+   {
+      ReferenceFrame gridFrame = ReferenceFrameTools.constructFrameWithUnchangingTransformToParent("gridFrame",
+                                                                                                 ReferenceFrame.getWorldFrame(),
+                                                                                                 EuclidCoreRandomTools.nextRigidBodyTransform(random));
+      SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRays, numberOfRotations, SphereVoxelType.graspOrigin);
+      return new Voxel3DGrid(gridFrame, sphereVoxelShape, gridSize, voxelSize);
+   }
+}
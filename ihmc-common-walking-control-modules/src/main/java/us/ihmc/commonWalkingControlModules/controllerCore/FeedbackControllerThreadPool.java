@@ -0,0 +1,253 @@
+package us.ihmc.commonWalkingControlModules.controllerCore;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+import us.ihmc.affinity.Affinity;
+import us.ihmc.affinity.Processor;
+import us.ihmc.robotics.time.ExecutionTimer;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+/**
+ * Small fixed pool of worker threads used to evaluate the feedback controllers in parallel.
+ * <p>
+ * The scheduling is barrier-style: the calling thread releases all the workers at once, evaluates
+ * its own share of the tasks, and then waits for all the workers to be done before returning. The
+ * task indices are statically assigned to the participants, i.e. the task {@code i} is always
+ * evaluated by the participant {@code i % (numberOfWorkers + 1)}, the calling thread being the
+ * participant {@code 0}. The workers spin while waiting for the next tick and are meant to be pinned
+ * to dedicated processors on the real robot. A worker that has not been released for
+ * {@link #IDLE_SPIN_DURATION_NANOS} parks between checks instead of spinning.
+ * </p>
+ * <p>
+ * The workers stop when {@link #destroy()} is called, or on their own once the pool is garbage
+ * collected, so that discarding a controller core without destroying it does not leak threads.
+ * </p>
+ * <p>
+ * No garbage is generated when executing tasks.
+ * </p>
+ */
+public class FeedbackControllerThreadPool
+{
+   /** Time a worker keeps spinning after its last task, long enough to span several control ticks. */
+   static final long IDLE_SPIN_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+   private static final long IDLE_PARK_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+   private final Barrier barrier;
+   private final Worker[] workers;
+
+   /**
+    * Creates and starts the workers.
+    *
+    * @param numberOfWorkers the number of threads to create in addition to the calling thread.
+    * @param processors      the processors to pin the workers to, one per worker. Can be
+    *                        {@code null} in which case the workers are not pinned.
+    * @param registry        the registry to which the timers of each participant are attached.
+    */
+   public FeedbackControllerThreadPool(int numberOfWorkers, Processor[] processors, YoRegistry registry)
+   {
+      if (numberOfWorkers < 1)
+         throw new IllegalArgumentException("The number of workers should be at least 1, was: " + numberOfWorkers);
+      if (processors != null && processors.length != numberOfWorkers)
+         throw new IllegalArgumentException("Expected one processor per worker, got " + processors.length + " processors for " + numberOfWorkers
+               + " workers.");
+
+      barrier = new Barrier(numberOfWorkers, registry);
+      workers = new Worker[numberOfWorkers];
+      WeakReference<FeedbackControllerThreadPool> poolReference = new WeakReference<>(this);
+
+      for (int workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++)
+      {
+         workers[workerIndex] = new Worker(workerIndex + 1, processors == null ? null : processors[workerIndex], barrier, poolReference);
+         workers[workerIndex].start();
+      }
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return barrier.numberOfWorkers;
+   }
+
+   /**
+    * Evaluates {@code task} for every index in [0, {@code numberOfTasks}[ and returns once all the
+    * tasks are done.
+    * <p>
+    * Tasks assigned to different participants must be independent. If a task throws, the exception
+    * is re-thrown here once all the participants are done.
+    * </p>
+    */
+   public void execute(IntConsumer task, int numberOfTasks)
+   {
+      if (!barrier.running)
+         throw new IllegalStateException("The thread pool has been destroyed.");
+
+      barrier.task = task;
+      barrier.numberOfTasks = numberOfTasks;
+      barrier.numberOfWorkersRunning.set(barrier.numberOfWorkers);
+      barrier.generation++; // Releases the workers, the volatile write publishes the task.
+
+      barrier.runTasks(0);
+
+      while (barrier.numberOfWorkersRunning.get() > 0)
+      {
+         Thread.yield();
+      }
+
+      // The workers must not keep the task, and whatever it references, reachable in between ticks.
+      barrier.task = null;
+
+      Throwable exception = barrier.workerException.getAndSet(null);
+      if (exception != null)
+      {
+         if (exception instanceof RuntimeException)
+            throw (RuntimeException) exception;
+         else if (exception instanceof Error)
+            throw (Error) exception;
+         else
+            throw new FeedbackControllerException("A feedback controller failed.", exception);
+      }
+   }
+
+   /**
+    * Stops the workers, the pool cannot be used afterwards.
+    */
+   public void destroy()
+   {
+      barrier.running = false;
+
+      for (Worker worker : workers)
+      {
+         LockSupport.unpark(worker);
+
+         try
+         {
+            worker.join();
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            return;
+         }
+      }
+   }
+
+   Thread[] getWorkers()
+   {
+      return workers.clone();
+   }
+
+   /**
+    * State shared between the pool and its workers. It does not reference the pool such that the pool
+    * can be garbage collected while the workers are running.
+    */
+   private static class Barrier
+   {
+      private final int numberOfWorkers;
+      private final ExecutionTimer[] participantTimers;
+
+      private volatile int generation = 0;
+      private volatile boolean running = true;
+      private final AtomicInteger numberOfWorkersRunning = new AtomicInteger(0);
+      private final AtomicReference<Throwable> workerException = new AtomicReference<>(null);
+
+      private IntConsumer task;
+      private int numberOfTasks;
+
+      private Barrier(int numberOfWorkers, YoRegistry registry)
+      {
+         this.numberOfWorkers = numberOfWorkers;
+         participantTimers = new ExecutionTimer[numberOfWorkers + 1];
+
+         for (int participantIndex = 0; participantIndex <= numberOfWorkers; participantIndex++)
+            participantTimers[participantIndex] = new ExecutionTimer("feedbackControllerParticipant" + participantIndex + "Timer", 1.0, registry);
+      }
+
+      private void runTasks(int participantIndex)
+      {
+         ExecutionTimer timer = participantTimers[participantIndex];
+         timer.startMeasurement();
+
+         try
+         {
+            for (int taskIndex = participantIndex; taskIndex < numberOfTasks; taskIndex += numberOfWorkers + 1)
+            {
+               task.accept(taskIndex);
+            }
+         }
+         catch (Throwable e)
+         {
+            workerException.compareAndSet(null, e);
+         }
+
+         timer.stopMeasurement();
+      }
+   }
+
+   private static class Worker extends Thread
+   {
+      private final int participantIndex;
+      private final Processor processor;
+      private final Barrier barrier;
+      private final WeakReference<FeedbackControllerThreadPool> poolReference;
+      private int lastGeneration;
+
+      public Worker(int participantIndex, Processor processor, Barrier barrier, WeakReference<FeedbackControllerThreadPool> poolReference)
+      {
+         super("FeedbackControllerWorker" + participantIndex);
+         this.participantIndex = participantIndex;
+         this.processor = processor;
+         this.barrier = barrier;
+         this.poolReference = poolReference;
+         // Read before the thread starts such that a tick released right after is not missed.
+         lastGeneration = barrier.generation;
+         setDaemon(true);
+      }
+
+      @Override
+      public void run()
+      {
+         if (processor != null)
+            Affinity.setAffinity(processor);
+
+         while (true)
+         {
+            if (!waitForNextGeneration())
+               return;
+
+            lastGeneration = barrier.generation;
+            barrier.runTasks(participantIndex);
+            barrier.numberOfWorkersRunning.decrementAndGet();
+         }
+      }
+
+      /**
+       * Spins until the next tick is released, parking instead once the pool has been idle for a while.
+       *
+       * @return {@code false} if the worker should stop.
+       */
+      private boolean waitForNextGeneration()
+      {
+         long idleStartTime = System.nanoTime();
+
+         while (barrier.running && barrier.generation == lastGeneration)
+         {
+            if (System.nanoTime() - idleStartTime < IDLE_SPIN_DURATION_NANOS)
+            {
+               Thread.yield();
+            }
+            else
+            {
+               if (poolReference.get() == null)
+                  return false; // The pool was discarded without being destroyed.
+               LockSupport.parkNanos(IDLE_PARK_DURATION_NANOS);
+            }
+         }
+
+         return barrier.running;
+      }
+   }
+}
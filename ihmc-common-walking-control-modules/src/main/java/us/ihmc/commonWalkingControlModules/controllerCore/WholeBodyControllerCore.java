@@ -312,6 +312,15 @@ public class WholeBodyControllerCore
       jointDesiredOutputList.insertDesiredTorquesIntoOneDoFJoints(controlledOneDoFJoints);
    }
 
+   /**
+    * Releases the resources held by the controller core, such as the worker threads evaluating the
+    * feedback controllers in parallel.
+    */
+   public void destroy()
+   {
+      feedbackController.destroy();
+   }
+
    public ControllerCoreOutput getControllerCoreOutput()
    {
       return controllerCoreOutput;
@@ -2,8 +2,10 @@ package us.ihmc.commonWalkingControlModules.controllerCore;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommandType;
 import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.CenterOfMassFeedbackControlCommand;
@@ -17,11 +19,16 @@ import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamic
 import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseKinematics.InverseKinematicsCommandList;
 import us.ihmc.commonWalkingControlModules.controllerCore.command.virtualModelControl.VirtualModelControlCommandList;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.FeedbackControllerInterface;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.FeedbackControllerSettings;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.jointspace.OneDoFJointFeedbackController;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.taskspace.CenterOfMassFeedbackController;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.taskspace.OrientationFeedbackController;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.taskspace.PointFeedbackController;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.taskspace.SpatialFeedbackController;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.mecano.frames.MovingReferenceFrame;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
 import us.ihmc.robotics.time.ExecutionTimer;
@@ -51,11 +58,56 @@ public class WholeBodyFeedbackController
    private final ExecutionTimer feedbackControllerTimer = new ExecutionTimer("wholeBodyFeedbackControllerTimer", 1.0, registry);
    private final ExecutionTimer achievedComputationTimer = new ExecutionTimer("achievedComputationTimer", 1.0, registry);
 
+   /** Only created when the feedback controllers are to be evaluated in parallel. */
+   private final FeedbackControllerThreadPool threadPool;
+   /**
+    * The robot frames compute their transform and twist lazily, this is done before releasing the
+    * workers such that the workers only read them.
+    */
+   private final List<MovingReferenceFrame> robotFrames = new ArrayList<>();
+   private final RigidBodyTransform transformToWorld = new RigidBodyTransform();
+
+   /**
+    * The reference frames used by the commands, such as the gains frames, are also not necessarily
+    * part of the robot and are collected when the commands are submitted.
+    */
+   private final List<ReferenceFrame> commandFrames = new ArrayList<>();
+   /**
+    * The controllers of the same end-effector, joint, or the center of mass controller, share data
+    * through the {@link FeedbackControllerToolbox}. Each such group is evaluated by a single
+    * participant, in the order of {@link #allControllers}, to avoid races and keep the result
+    * identical to the serial evaluation. The groups are stored as contiguous ranges of
+    * {@code groupedControllerIndices} starting at {@code controllerGroupStartIndices}.
+    */
+   private final List<Object> controllerDataKeys = new ArrayList<>();
+   private int[] controllerGroupStartIndices = new int[1];
+   private int[] groupedControllerIndices = new int[0];
+   private int numberOfControllerGroups = 0;
+   private IntConsumer controllerTask;
+   private final IntConsumer controllerGroupTask = this::evaluateControllerGroup;
+
+   private final IntConsumer inverseDynamicsTask = this::computeInverseDynamics;
+   private final IntConsumer inverseKinematicsTask = this::computeInverseKinematics;
+   private final IntConsumer virtualModelControlTask = this::computeVirtualModelControl;
+
    public WholeBodyFeedbackController(WholeBodyControlCoreToolbox coreToolbox, FeedbackControllerTemplate feedbackControllerTemplate,
                                       YoRegistry parentRegistry)
    {
       this.coreToolbox = coreToolbox;
-      feedbackControllerToolbox = new FeedbackControllerToolbox(coreToolbox.getFeedbackControllerSettings(), registry);
+      FeedbackControllerSettings settings = coreToolbox.getFeedbackControllerSettings();
+      feedbackControllerToolbox = new FeedbackControllerToolbox(settings, registry);
+
+      int numberOfWorkers = settings != null ? settings.getNumberOfFeedbackControllerWorkers() : 0;
+
+      if (numberOfWorkers > 0)
+      {
+         threadPool = new FeedbackControllerThreadPool(numberOfWorkers, settings.getFeedbackControllerWorkerProcessors(), registry);
+         collectRobotFrames(coreToolbox.getRootBody());
+      }
+      else
+      {
+         threadPool = null;
+      }
 
       if (feedbackControllerTemplate == null)
          return;
@@ -76,6 +128,31 @@ public class WholeBodyFeedbackController
          registerCenterOfMassController();
    }
 
+   private void collectRobotFrames(RigidBodyBasics rootBody)
+   {
+      for (RigidBodyBasics rigidBody : rootBody.subtreeIterable())
+      {
+         robotFrames.add(rigidBody.getBodyFixedFrame());
+
+         JointBasics parentJoint = rigidBody.getParentJoint();
+         if (parentJoint != null)
+         {
+            robotFrames.add(parentJoint.getFrameBeforeJoint());
+            robotFrames.add(parentJoint.getFrameAfterJoint());
+         }
+      }
+   }
+
+   /**
+    * @param dataKey the key identifying the data the controller shares with other controllers
+    *                through the {@link FeedbackControllerToolbox}.
+    */
+   private void addController(FeedbackControllerInterface controller, Object dataKey)
+   {
+      allControllers.add(controller);
+      controllerDataKeys.add(dataKey);
+   }
+
    private void registerSpatialControllers(RigidBodyBasics endEffector, int numberOfControllers)
    {
       List<SpatialFeedbackController> endEffectorControllers = new ArrayList<>();
@@ -85,7 +162,7 @@ public class WholeBodyFeedbackController
       {
          SpatialFeedbackController controller = new SpatialFeedbackController(endEffector, controllerIndex, coreToolbox, feedbackControllerToolbox, registry);
          endEffectorControllers.add(controller);
-         allControllers.add(controller);
+         addController(controller, endEffector);
       }
    }
 
@@ -98,7 +175,7 @@ public class WholeBodyFeedbackController
       {
          PointFeedbackController controller = new PointFeedbackController(endEffector, controllerIndex, coreToolbox, feedbackControllerToolbox, registry);
          endEffectorControllers.add(controller);
-         allControllers.add(controller);
+         addController(controller, endEffector);
       }
    }
 
@@ -115,7 +192,7 @@ public class WholeBodyFeedbackController
                                                                                       feedbackControllerToolbox,
                                                                                       registry);
          endEffectorControllers.add(controller);
-         allControllers.add(controller);
+         addController(controller, endEffector);
       }
    }
 
@@ -123,13 +200,13 @@ public class WholeBodyFeedbackController
    {
       OneDoFJointFeedbackController controller = new OneDoFJointFeedbackController(joint, coreToolbox, feedbackControllerToolbox, registry);
       oneDoFJointFeedbackControllerMap.put(joint, controller);
-      allControllers.add(controller);
+      addController(controller, joint);
    }
 
    private void registerCenterOfMassController()
    {
       centerOfMassFeedbackController = new CenterOfMassFeedbackController(coreToolbox, feedbackControllerToolbox, registry);
-      allControllers.add(centerOfMassFeedbackController);
+      addController(centerOfMassFeedbackController, FeedbackControllerToolbox.centerOfMassName);
    }
 
    public void initialize()
@@ -148,6 +225,8 @@ public class WholeBodyFeedbackController
          FeedbackControllerInterface controller = allControllers.get(i);
          controller.setEnabled(false);
       }
+
+      commandFrames.clear();
    }
 
    public void computeInverseDynamics()
@@ -155,69 +234,177 @@ public class WholeBodyFeedbackController
       feedbackControllerTimer.startMeasurement();
       inverseDynamicsOutput.clear();
 
+      evaluateControllers(inverseDynamicsTask);
+
       for (int i = 0; i < allControllers.size(); i++)
       {
          FeedbackControllerInterface controller = allControllers.get(i);
          if (controller.isEnabled())
-         {
-            controller.computeInverseDynamics();
             inverseDynamicsOutput.addCommand(controller.getInverseDynamicsOutput());
-         }
-         else
-         {
-            controller.initialize();
-         }
       }
       feedbackControllerToolbox.registerFeedbackControllerOutput(inverseDynamicsOutput);
       feedbackControllerTimer.stopMeasurement();
    }
 
+   private void computeInverseDynamics(int controllerIndex)
+   {
+      FeedbackControllerInterface controller = allControllers.get(controllerIndex);
+      if (controller.isEnabled())
+         controller.computeInverseDynamics();
+      else
+         controller.initialize();
+   }
+
    public void computeInverseKinematics()
    {
       feedbackControllerTimer.startMeasurement();
       inverseKinematicsOutput.clear();
 
+      evaluateControllers(inverseKinematicsTask);
+
       for (int i = 0; i < allControllers.size(); i++)
       {
          FeedbackControllerInterface controller = allControllers.get(i);
          if (controller.isEnabled())
-         {
-            controller.computeInverseKinematics();
             inverseKinematicsOutput.addCommand(controller.getInverseKinematicsOutput());
-         }
-         else
-         {
-            controller.initialize();
-         }
       }
       feedbackControllerToolbox.clearUnusedData();
       feedbackControllerToolbox.registerFeedbackControllerOutput(inverseKinematicsOutput);
       feedbackControllerTimer.stopMeasurement();
    }
 
+   private void computeInverseKinematics(int controllerIndex)
+   {
+      FeedbackControllerInterface controller = allControllers.get(controllerIndex);
+      if (controller.isEnabled())
+         controller.computeInverseKinematics();
+      else
+         controller.initialize();
+   }
+
    public void computeVirtualModelControl()
    {
       feedbackControllerTimer.startMeasurement();
       virtualModelControlOutput.clear();
 
+      evaluateControllers(virtualModelControlTask);
+
       for (int i = 0; i < allControllers.size(); i++)
       {
          FeedbackControllerInterface controller = allControllers.get(i);
          if (controller.isEnabled())
-         {
-            controller.computeVirtualModelControl();
             virtualModelControlOutput.addCommand(controller.getVirtualModelControlOutput());
-         }
-         else
-         {
-            controller.initialize();
-         }
       }
       feedbackControllerToolbox.clearUnusedData();
       feedbackControllerToolbox.registerFeedbackControllerOutput(virtualModelControlOutput);
       feedbackControllerTimer.stopMeasurement();
    }
 
+   private void computeVirtualModelControl(int controllerIndex)
+   {
+      FeedbackControllerInterface controller = allControllers.get(controllerIndex);
+      if (controller.isEnabled())
+         controller.computeVirtualModelControl();
+      else
+         controller.initialize();
+   }
+
+   /**
+    * Evaluates the given task for every controller, in parallel if enabled in the
+    * {@link FeedbackControllerSettings}. The outputs are always collected in the order of the
+    * controllers such that they do not depend on the scheduling.
+    */
+   private void evaluateControllers(IntConsumer task)
+   {
+      if (threadPool == null)
+      {
+         for (int i = 0; i < allControllers.size(); i++)
+         {
+            task.accept(i);
+         }
+      }
+      else
+      {
+         if (controllerGroupStartIndices[numberOfControllerGroups] != allControllers.size())
+            updateControllerGroups();
+
+         updateFrames();
+         controllerTask = task;
+         threadPool.execute(controllerGroupTask, numberOfControllerGroups);
+         controllerTask = null;
+      }
+   }
+
+   private void evaluateControllerGroup(int groupIndex)
+   {
+      for (int i = controllerGroupStartIndices[groupIndex]; i < controllerGroupStartIndices[groupIndex + 1]; i++)
+      {
+         controllerTask.accept(groupedControllerIndices[i]);
+      }
+   }
+
+   /**
+    * Groups the controllers by the data they share, only needed when controllers have been created
+    * since the last update.
+    */
+   private void updateControllerGroups()
+   {
+      int numberOfControllers = allControllers.size();
+      Map<Object, List<Integer>> groups = new LinkedHashMap<>();
+
+      for (int i = 0; i < numberOfControllers; i++)
+      {
+         groups.computeIfAbsent(controllerDataKeys.get(i), key -> new ArrayList<>()).add(i);
+      }
+
+      numberOfControllerGroups = groups.size();
+      controllerGroupStartIndices = new int[numberOfControllerGroups + 1];
+      groupedControllerIndices = new int[numberOfControllers];
+      int groupIndex = 0;
+      int index = 0;
+
+      for (List<Integer> group : groups.values())
+      {
+         controllerGroupStartIndices[groupIndex++] = index;
+         for (int controllerIndex : group)
+            groupedControllerIndices[index++] = controllerIndex;
+      }
+
+      controllerGroupStartIndices[numberOfControllerGroups] = index;
+   }
+
+   /**
+    * Brings the lazily computed transforms and twists of the frames used by the controllers up to
+    * date, such that the participants only read them.
+    */
+   private void updateFrames()
+   {
+      for (int i = 0; i < robotFrames.size(); i++)
+      {
+         MovingReferenceFrame frame = robotFrames.get(i);
+         frame.getTransformToDesiredFrame(transformToWorld, ReferenceFrame.getWorldFrame());
+         frame.getTwistOfFrame();
+      }
+
+      ReferenceFrame centerOfMassFrame = coreToolbox.getCenterOfMassFrame();
+      if (centerOfMassFrame != null)
+         centerOfMassFrame.getTransformToDesiredFrame(transformToWorld, ReferenceFrame.getWorldFrame());
+
+      for (int i = 0; i < commandFrames.size(); i++)
+      {
+         ReferenceFrame frame = commandFrames.get(i);
+         frame.getTransformToDesiredFrame(transformToWorld, ReferenceFrame.getWorldFrame());
+         if (frame instanceof MovingReferenceFrame)
+            ((MovingReferenceFrame) frame).getTwistOfFrame();
+      }
+   }
+
+   private void registerCommandFrame(ReferenceFrame frame)
+   {
+      if (threadPool != null && frame != null)
+         commandFrames.add(frame);
+   }
+
    public void computeAchievedAccelerations()
    {
       achievedComputationTimer.startMeasurement();
@@ -317,7 +504,7 @@ public class WholeBodyFeedbackController
                                                                                     feedbackControllerToolbox,
                                                                                     registry);
                endEffectorControllers.add(controller);
-               allControllers.add(controller);
+               addController(controller, endEffector);
 
                if (isOrientationControllerCreatedAndEnabled(endEffector, controllerIndex))
                   continue; // The orientation controller and the spatial controller share data => cannot be used at the same time.
@@ -331,6 +518,11 @@ public class WholeBodyFeedbackController
 
       nextControllerAvailable.submitFeedbackControlCommand(feedbackControlCommand);
       nextControllerAvailable.setEnabled(true);
+      registerCommandFrame(feedbackControlCommand.getControlBaseFrame());
+      registerCommandFrame(feedbackControlCommand.getAngularGainsFrame());
+      registerCommandFrame(feedbackControlCommand.getLinearGainsFrame());
+      registerCommandFrame(feedbackControlCommand.getReferencePosition().getReferenceFrame());
+      registerCommandFrame(feedbackControlCommand.getReferenceOrientation().getReferenceFrame());
    }
 
    private void submitPointFeedbackControlCommand(WholeBodyControllerCoreMode activeControlMode, PointFeedbackControlCommand feedbackControlCommand)
@@ -380,7 +572,7 @@ public class WholeBodyFeedbackController
                int controllerIndex = endEffectorControllers.size();
                PointFeedbackController controller = new PointFeedbackController(endEffector, controllerIndex, coreToolbox, feedbackControllerToolbox, registry);
                endEffectorControllers.add(controller);
-               allControllers.add(controller);
+               addController(controller, endEffector);
 
                if (isSpatialControllerCreatedAndEnabled(endEffector, controllerIndex))
                   continue; // The point controller and the spatial controller share data => cannot be used at the same time.
@@ -392,6 +584,9 @@ public class WholeBodyFeedbackController
 
       nextControllerAvailable.submitFeedbackControlCommand(feedbackControlCommand);
       nextControllerAvailable.setEnabled(true);
+      registerCommandFrame(feedbackControlCommand.getControlBaseFrame());
+      registerCommandFrame(feedbackControlCommand.getLinearGainsFrame());
+      registerCommandFrame(feedbackControlCommand.getReferencePosition().getReferenceFrame());
    }
 
    private void submitOrientationFeedbackControlCommand(WholeBodyControllerCoreMode activeControlMode, OrientationFeedbackControlCommand feedbackControlCommand)
@@ -445,7 +640,7 @@ public class WholeBodyFeedbackController
                                                                                             feedbackControllerToolbox,
                                                                                             registry);
                endEffectorControllers.add(controller);
-               allControllers.add(controller);
+               addController(controller, endEffector);
 
                if (isSpatialControllerCreatedAndEnabled(endEffector, controllerIndex))
                   continue; // The orientation controller and the spatial controller share data => cannot be used at the same time.
@@ -457,6 +652,9 @@ public class WholeBodyFeedbackController
 
       nextControllerAvailable.submitFeedbackControlCommand(feedbackControlCommand);
       nextControllerAvailable.setEnabled(true);
+      registerCommandFrame(feedbackControlCommand.getControlBaseFrame());
+      registerCommandFrame(feedbackControlCommand.getAngularGainsFrame());
+      registerCommandFrame(feedbackControlCommand.getReferenceOrientation().getReferenceFrame());
    }
 
    private boolean isSpatialControllerCreatedAndEnabled(RigidBodyBasics endEffector, int controllerIndex)
@@ -542,6 +740,15 @@ public class WholeBodyFeedbackController
                + activeControlMode);
    }
 
+   /**
+    * Stops the worker threads if the feedback controllers are evaluated in parallel.
+    */
+   public void destroy()
+   {
+      if (threadPool != null)
+         threadPool.destroy();
+   }
+
    public InverseDynamicsCommandList getInverseDynamicsOutput()
    {
       return inverseDynamicsOutput;
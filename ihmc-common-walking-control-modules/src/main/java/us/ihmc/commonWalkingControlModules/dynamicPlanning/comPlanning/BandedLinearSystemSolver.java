@@ -0,0 +1,363 @@
+package us.ihmc.commonWalkingControlModules.dynamicPlanning.comPlanning;
+
+import java.util.Arrays;
+
+import org.ejml.data.DMatrixRMaj;
+
+/**
+ * <p>
+ * Solves the square system A x = b where A is a banded matrix, using an LU decomposition with
+ * partial pivoting that only operates on the band. The decomposition costs O(n kl (kl + ku)) and each
+ * solve O(n (kl + ku)), where n is the size of the system and kl and ku are the lower and upper
+ * bandwidths of A.
+ * </p>
+ * <p>
+ * The decomposition is performed on the system with its rows and columns in reverse order, i.e.
+ * starting from the bottom-right corner of A. When the rows at the bottom of A are the same as in
+ * the previous call to {@link #setA(BandedMatrix)}, the elimination steps that only involve these rows
+ * are reused, even if the size of the system has changed. For the {@link CoMTrajectoryPlanner}, the
+ * bottom rows are the constraints at the end of the contact sequence, which usually do not change
+ * from one tick to the next.
+ * </p>
+ */
+public class BandedLinearSystemSolver
+{
+   private final int lowerBandwidth;
+   private final int upperBandwidth;
+   private final int rowWidth;
+
+   private int size = 0;
+   private int previousSize = 0;
+   private boolean isDecompositionValid = false;
+   private int numberOfReusedSteps = 0;
+
+   /** Band of the reversed matrix as loaded, used to detect the rows that have not changed. */
+   private double[] reversedBand = new double[0];
+   private double[] previousReversedBand = new double[0];
+   /** Rows of the upper triangular factor, each starting at its diagonal. */
+   private double[] upper = new double[0];
+   /** Multipliers of the lower triangular factor, {@code lowerBandwidth} per elimination step. */
+   private double[] lower = new double[0];
+   private int[] pivots = new int[0];
+   /** State of the rows that are being eliminated after each step, used to resume the decomposition. */
+   private double[] checkpoints = new double[0];
+
+   private double[] workspace = new double[0];
+
+   /**
+    * @param lowerBandwidth the number of sub-diagonals of A, i.e. A(i, j) = 0 for i - j &gt;
+    *                       {@code lowerBandwidth}.
+    * @param upperBandwidth the number of super-diagonals of A, i.e. A(i, j) = 0 for j - i &gt;
+    *                       {@code upperBandwidth}.
+    */
+   public BandedLinearSystemSolver(int lowerBandwidth, int upperBandwidth)
+   {
+      if (lowerBandwidth < 0 || upperBandwidth < 0)
+         throw new IllegalArgumentException("The bandwidths cannot be negative, lower: " + lowerBandwidth + ", upper: " + upperBandwidth);
+
+      // Reversing the system swaps the lower and upper bandwidths.
+      this.lowerBandwidth = upperBandwidth;
+      this.upperBandwidth = lowerBandwidth;
+      rowWidth = lowerBandwidth + upperBandwidth + 1;
+   }
+
+   /**
+    * Loads the band of {@code A} and decomposes it. The elements outside of the band are checked,
+    * which costs O(n<sup>2</sup>), {@link #setA(BandedMatrix)} avoids it when the matrix is assembled
+    * at each tick.
+    *
+    * @param A the square matrix of the system. Not modified.
+    * @throws IllegalArgumentException if {@code A} is not square or has a non-zero element outside of
+    *                                  the band declared at construction.
+    */
+   public void setA(DMatrixRMaj A)
+   {
+      if (A.getNumRows() != A.getNumCols())
+         throw new IllegalArgumentException("The matrix should be square, was: " + A.getNumRows() + "x" + A.getNumCols());
+      checkBand(A);
+
+      resize(A.getNumRows());
+      loadReversedBand(A);
+      decompose();
+   }
+
+   /**
+    * Loads {@code A} and decomposes it, in time linear in the size of the system.
+    *
+    * @param A the matrix of the system. Not modified.
+    * @throws IllegalArgumentException if the band of {@code A} is wider than the band declared at
+    *                                  construction.
+    */
+   public void setA(BandedMatrix A)
+   {
+      // The fields hold the bandwidths of the reversed matrix.
+      if (A.getLowerBandwidth() > upperBandwidth || A.getUpperBandwidth() > lowerBandwidth)
+         throw new IllegalArgumentException("The band of the matrix, lower: " + A.getLowerBandwidth() + ", upper: " + A.getUpperBandwidth()
+               + ", is wider than the band of the solver, lower: " + upperBandwidth + ", upper: " + lowerBandwidth);
+
+      resize(A.getNumRows());
+      loadReversedBand(A);
+      decompose();
+   }
+
+   /**
+    * Clears the previous decomposition such that the next call to {@code setA} performs the complete
+    * decomposition.
+    */
+   public void reset()
+   {
+      isDecompositionValid = false;
+   }
+
+   /**
+    * @return the number of elimination steps of the last decomposition that were reused from the
+    *         previous one.
+    */
+   public int getNumberOfReusedSteps()
+   {
+      return numberOfReusedSteps;
+   }
+
+   private void resize(int newSize)
+   {
+      double[] temp = previousReversedBand;
+      previousReversedBand = reversedBand;
+      reversedBand = temp;
+      previousSize = size;
+      size = newSize;
+      ensureCapacity(size);
+   }
+
+   private void decompose()
+   {
+      int firstStep = isDecompositionValid ? computeNumberOfReusableSteps() : 0;
+      decompose(firstStep);
+      numberOfReusedSteps = firstStep;
+      isDecompositionValid = true;
+   }
+
+   /**
+    * The fields hold the bandwidths of the reversed matrix, such that the lower bandwidth of A is
+    * {@link #upperBandwidth} and its upper bandwidth is {@link #lowerBandwidth}.
+    */
+   private void checkBand(DMatrixRMaj A)
+   {
+      int n = A.getNumRows();
+
+      for (int row = 0; row < n; row++)
+      {
+         for (int column = 0; column < n; column++)
+         {
+            if (row - column <= upperBandwidth && column - row <= lowerBandwidth)
+               continue;
+
+            if (A.unsafe_get(row, column) != 0.0)
+               throw new IllegalArgumentException("The element A(" + row + ", " + column + ") = " + A.unsafe_get(row, column)
+                     + " is outside of the band, lower bandwidth: " + upperBandwidth + ", upper bandwidth: " + lowerBandwidth);
+         }
+      }
+   }
+
+   private void ensureCapacity(int size)
+   {
+      if (upper.length >= size * rowWidth)
+         return;
+
+      reversedBand = Arrays.copyOf(reversedBand, size * rowWidth);
+      previousReversedBand = Arrays.copyOf(previousReversedBand, size * rowWidth);
+      upper = Arrays.copyOf(upper, size * rowWidth);
+      lower = Arrays.copyOf(lower, size * lowerBandwidth);
+      pivots = Arrays.copyOf(pivots, size);
+      checkpoints = Arrays.copyOf(checkpoints, size * lowerBandwidth * rowWidth);
+      workspace = new double[size];
+   }
+
+   /**
+    * Stores the row i of the reversed matrix B starting at its column max(0, i - lowerBandwidth), with
+    * B(i, j) = A(n - 1 - i, n - 1 - j).
+    */
+   private void loadReversedBand(DMatrixRMaj A)
+   {
+      int n = size;
+
+      for (int row = 0; row < n; row++)
+      {
+         int firstColumn = Math.max(0, row - lowerBandwidth);
+         int lastColumn = Math.min(row + upperBandwidth, n - 1);
+         int offset = row * rowWidth;
+
+         for (int k = 0; k < rowWidth; k++)
+         {
+            int column = firstColumn + k;
+            reversedBand[offset + k] = column <= lastColumn ? A.unsafe_get(n - 1 - row, n - 1 - column) : 0.0;
+         }
+      }
+   }
+
+   private void loadReversedBand(BandedMatrix A)
+   {
+      int n = size;
+
+      for (int row = 0; row < n; row++)
+      {
+         int firstColumn = Math.max(0, row - lowerBandwidth);
+         int lastColumn = Math.min(row + upperBandwidth, n - 1);
+         int offset = row * rowWidth;
+
+         for (int k = 0; k < rowWidth; k++)
+         {
+            int column = firstColumn + k;
+            reversedBand[offset + k] = column <= lastColumn ? A.get(n - 1 - row, n - 1 - column) : 0.0;
+         }
+      }
+   }
+
+   /**
+    * The elimination step k involves the rows k to k + lowerBandwidth, the steps can be reused as long
+    * as all the rows they involve are unchanged.
+    */
+   private int computeNumberOfReusableSteps()
+   {
+      int minimumSize = Math.min(size, previousSize);
+      int numberOfUnchangedRows = 0;
+
+      while (numberOfUnchangedRows < minimumSize)
+      {
+         int offset = numberOfUnchangedRows * rowWidth;
+         boolean isRowUnchanged = true;
+
+         for (int k = 0; k < rowWidth; k++)
+         {
+            if (reversedBand[offset + k] != previousReversedBand[offset + k])
+            {
+               isRowUnchanged = false;
+               break;
+            }
+         }
+
+         if (!isRowUnchanged)
+            break;
+         numberOfUnchangedRows++;
+      }
+
+      // The last rows of the previous decomposition were set up for its own size.
+      return Math.max(0, Math.min(numberOfUnchangedRows, minimumSize - 1) - lowerBandwidth);
+   }
+
+   private void decompose(int firstStep)
+   {
+      int n = size;
+
+      // The rows that have not been touched by the elimination yet are copied as loaded.
+      int firstFreshRow = firstStep == 0 ? 0 : Math.min(firstStep + lowerBandwidth, n);
+      System.arraycopy(reversedBand, firstFreshRow * rowWidth, upper, firstFreshRow * rowWidth, (n - firstFreshRow) * rowWidth);
+
+      if (firstStep > 0)
+      { // Restores the rows being eliminated as they were after the last reused step.
+         int numberOfRows = Math.min(lowerBandwidth, n - firstStep);
+         System.arraycopy(checkpoints, (firstStep - 1) * lowerBandwidth * rowWidth, upper, firstStep * rowWidth, numberOfRows * rowWidth);
+      }
+
+      for (int step = firstStep; step < n; step++)
+      {
+         int lastRow = Math.min(step + lowerBandwidth, n - 1);
+
+         int pivotRow = step;
+         double pivot = upper[step * rowWidth];
+         for (int row = step + 1; row <= lastRow; row++)
+         {
+            double candidate = upper[row * rowWidth];
+            if (Math.abs(candidate) > Math.abs(pivot))
+            {
+               pivot = candidate;
+               pivotRow = row;
+            }
+         }
+
+         pivots[step] = pivotRow;
+         if (pivotRow != step)
+            swapRows(step, pivotRow);
+
+         int stepOffset = step * rowWidth;
+
+         for (int row = step + 1; row <= lastRow; row++)
+         {
+            int rowOffset = row * rowWidth;
+            double multiplier = upper[rowOffset] / pivot;
+            lower[step * lowerBandwidth + row - step - 1] = multiplier;
+
+            // Shifts the row such that it starts at the next column.
+            for (int k = 1; k < rowWidth; k++)
+               upper[rowOffset + k - 1] = upper[rowOffset + k] - multiplier * upper[stepOffset + k];
+            upper[rowOffset + rowWidth - 1] = 0.0;
+         }
+
+         int numberOfRows = lastRow - step;
+         System.arraycopy(upper, (step + 1) * rowWidth, checkpoints, step * lowerBandwidth * rowWidth, numberOfRows * rowWidth);
+      }
+   }
+
+   private void swapRows(int rowA, int rowB)
+   {
+      int offsetA = rowA * rowWidth;
+      int offsetB = rowB * rowWidth;
+
+      for (int k = 0; k < rowWidth; k++)
+      {
+         double temp = upper[offsetA + k];
+         upper[offsetA + k] = upper[offsetB + k];
+         upper[offsetB + k] = temp;
+      }
+   }
+
+   /**
+    * Solves A x = b using the last decomposition.
+    *
+    * @param b the right-hand side vector. Not modified.
+    * @param x the solution vector. Modified.
+    */
+   public void solve(DMatrixRMaj b, DMatrixRMaj x)
+   {
+      if (!isDecompositionValid)
+         throw new IllegalStateException("The matrix has to be set first.");
+      if (b.getNumElements() != size)
+         throw new IllegalArgumentException("Expected a vector of size " + size + ", was: " + b.getNumElements());
+
+      int n = size;
+      double[] y = workspace;
+
+      for (int i = 0; i < n; i++)
+         y[i] = b.unsafe_get(n - 1 - i, 0);
+
+      // Forward substitution with the lower triangular factor.
+      for (int step = 0; step < n; step++)
+      {
+         int pivotRow = pivots[step];
+         if (pivotRow != step)
+         {
+            double temp = y[step];
+            y[step] = y[pivotRow];
+            y[pivotRow] = temp;
+         }
+
+         int lastRow = Math.min(step + lowerBandwidth, n - 1);
+         for (int row = step + 1; row <= lastRow; row++)
+            y[row] -= lower[step * lowerBandwidth + row - step - 1] * y[step];
+      }
+
+      // Backward substitution with the upper triangular factor.
+      for (int row = n - 1; row >= 0; row--)
+      {
+         int offset = row * rowWidth;
+         int numberOfElements = Math.min(rowWidth, n - row);
+         double value = y[row];
+         for (int k = 1; k < numberOfElements; k++)
+            value -= upper[offset + k] * y[row + k];
+         y[row] = value / upper[offset];
+      }
+
+      x.reshape(n, 1);
+      for (int i = 0; i < n; i++)
+         x.unsafe_set(n - 1 - i, 0, y[i]);
+   }
+}
@@ -0,0 +1,106 @@
+package us.ihmc.commonWalkingControlModules.dynamicPlanning.comPlanning;
+
+import java.util.Arrays;
+
+/**
+ * Square matrix that only stores the elements of its band, such that it can be resized and zeroed in
+ * time linear in its size. Setting an element outside of the band throws an
+ * {@link IllegalArgumentException}, such that a constraint that does not fit the declared band is
+ * rejected while the matrix is assembled.
+ */
+public class BandedMatrix
+{
+   private final int lowerBandwidth;
+   private final int upperBandwidth;
+   private final int rowWidth;
+
+   private int size = 0;
+   /** Row i stores the columns i - lowerBandwidth to i + upperBandwidth. */
+   private double[] data = new double[0];
+
+   /**
+    * @param lowerBandwidth the number of sub-diagonals, i.e. A(i, j) = 0 for i - j &gt;
+    *                       {@code lowerBandwidth}.
+    * @param upperBandwidth the number of super-diagonals, i.e. A(i, j) = 0 for j - i &gt;
+    *                       {@code upperBandwidth}.
+    */
+   public BandedMatrix(int lowerBandwidth, int upperBandwidth)
+   {
+      if (lowerBandwidth < 0 || upperBandwidth < 0)
+         throw new IllegalArgumentException("The bandwidths cannot be negative, lower: " + lowerBandwidth + ", upper: " + upperBandwidth);
+
+      this.lowerBandwidth = lowerBandwidth;
+      this.upperBandwidth = upperBandwidth;
+      rowWidth = lowerBandwidth + upperBandwidth + 1;
+   }
+
+   /**
+    * Resizes the matrix to {@code size} x {@code size} and sets all of its elements to zero.
+    */
+   public void reshape(int size)
+   {
+      this.size = size;
+      int length = size * rowWidth;
+
+      if (data.length < length)
+         data = new double[length];
+      else
+         Arrays.fill(data, 0, length, 0.0);
+   }
+
+   /**
+    * @throws IllegalArgumentException if the element is outside of the band.
+    */
+   public void set(int row, int column, double value)
+   {
+      checkIndices(row, column);
+      if (!isInBand(row, column))
+         throw new IllegalArgumentException("The element (" + row + ", " + column + ") is outside of the band, lower bandwidth: " + lowerBandwidth
+               + ", upper bandwidth: " + upperBandwidth);
+
+      data[row * rowWidth + column - row + lowerBandwidth] = value;
+   }
+
+   /**
+    * @return the element at the given row and column, zero if it is outside of the band.
+    */
+   public double get(int row, int column)
+   {
+      checkIndices(row, column);
+      if (!isInBand(row, column))
+         return 0.0;
+
+      return data[row * rowWidth + column - row + lowerBandwidth];
+   }
+
+   public boolean isInBand(int row, int column)
+   {
+      return row - column <= lowerBandwidth && column - row <= upperBandwidth;
+   }
+
+   public int getNumRows()
+   {
+      return size;
+   }
+
+   public int getNumCols()
+   {
+      return size;
+   }
+
+   public int getLowerBandwidth()
+   {
+      return lowerBandwidth;
+   }
+
+   public int getUpperBandwidth()
+   {
+      return upperBandwidth;
+   }
+
+   private void checkIndices(int row, int column)
+   {
+      if (row < 0 || row >= size || column < 0 || column >= size)
+         throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside of the " + size + "x" + size + " matrix");
+   }
+}
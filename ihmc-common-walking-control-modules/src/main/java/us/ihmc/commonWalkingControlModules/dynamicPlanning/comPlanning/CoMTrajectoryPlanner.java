@@ -4,8 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.ejml.data.DMatrixRMaj;
-import org.ejml.dense.row.CommonOps_DDRM;
 
+import gnu.trove.list.array.TIntArrayList;
 import us.ihmc.commonWalkingControlModules.capturePoint.CapturePointTools;
 import us.ihmc.commons.lists.RecyclingArrayList;
 import us.ihmc.euclid.geometry.LineSegment3D;
@@ -17,7 +17,6 @@ import us.ihmc.euclid.referenceFrame.interfaces.FixedFrameVector3DBasics;
 import us.ihmc.euclid.referenceFrame.interfaces.FramePoint3DReadOnly;
 import us.ihmc.euclid.referenceFrame.interfaces.FrameVector3DReadOnly;
 import us.ihmc.log.LogTools;
-import us.ihmc.matrixlib.NativeCommonOps;
 import us.ihmc.robotics.math.trajectories.Trajectory3D;
 import us.ihmc.yoVariables.euclid.referenceFrame.YoFramePoint3D;
 import us.ihmc.yoVariables.euclid.referenceFrame.YoFrameVector3D;
@@ -55,23 +54,33 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
 
    private final YoRegistry registry = new YoRegistry(getClass().getSimpleName());
 
-   private final DMatrixRMaj coefficientMultipliers = new DMatrixRMaj(0, 0);
-   private final DMatrixRMaj coefficientMultipliersInv = new DMatrixRMaj(0, 0);
+   /**
+    * The lower and upper bandwidths of the constraint matrix. The constraints are ordered by segment, and each constraint only
+    * involves the coefficients of the segments around it, such that the matrix is banded and the system can be solved in time
+    * linear in the number of segments.
+    */
+   static final int constraintLowerBandwidth = 6;
+   static final int constraintUpperBandwidth = 8;
 
-   private final DMatrixRMaj xEquivalents = new DMatrixRMaj(0, 1);
-   private final DMatrixRMaj yEquivalents = new DMatrixRMaj(0, 1);
-   private final DMatrixRMaj zEquivalents = new DMatrixRMaj(0, 1);
+   final BandedMatrix coefficientMultipliers = new BandedMatrix(constraintLowerBandwidth, constraintUpperBandwidth);
+   private final BandedLinearSystemSolver coefficientSolver = new BandedLinearSystemSolver(constraintLowerBandwidth, constraintUpperBandwidth);
+
+   final DMatrixRMaj xEquivalents = new DMatrixRMaj(0, 1);
+   final DMatrixRMaj yEquivalents = new DMatrixRMaj(0, 1);
+   final DMatrixRMaj zEquivalents = new DMatrixRMaj(0, 1);
 
    private final DMatrixRMaj xConstants = new DMatrixRMaj(0, 1);
    private final DMatrixRMaj yConstants = new DMatrixRMaj(0, 1);
    private final DMatrixRMaj zConstants = new DMatrixRMaj(0, 1);
 
-   private final DMatrixRMaj vrpWaypointJacobian = new DMatrixRMaj(0, 1);
-
    private final DMatrixRMaj vrpXWaypoints = new DMatrixRMaj(0, 1);
    private final DMatrixRMaj vrpYWaypoints = new DMatrixRMaj(0, 1);
    private final DMatrixRMaj vrpZWaypoints = new DMatrixRMaj(0, 1);
 
+   /** Rows of the VRP constraints and their waypoint index, i.e. the non-zero elements of the VRP waypoint Jacobian. */
+   private final TIntArrayList vrpConstraintRows = new TIntArrayList();
+   private final TIntArrayList vrpConstraintWaypointIndices = new TIntArrayList();
+
    final DMatrixRMaj xCoefficientVector = new DMatrixRMaj(0, 1);
    final DMatrixRMaj yCoefficientVector = new DMatrixRMaj(0, 1);
    final DMatrixRMaj zCoefficientVector = new DMatrixRMaj(0, 1);
@@ -167,13 +176,19 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
       yEquivalents.set(yConstants);
       zEquivalents.set(zConstants);
 
-      CommonOps_DDRM.multAdd(vrpWaypointJacobian, vrpXWaypoints, xEquivalents);
-      CommonOps_DDRM.multAdd(vrpWaypointJacobian, vrpYWaypoints, yEquivalents);
-      CommonOps_DDRM.multAdd(vrpWaypointJacobian, vrpZWaypoints, zEquivalents);
+      // equivalent to adding J * vrpWaypoints, where the VRP waypoint Jacobian J only has one non-zero element per VRP constraint
+      for (int i = 0; i < vrpConstraintRows.size(); i++)
+      {
+         int row = vrpConstraintRows.get(i);
+         int waypointIndex = vrpConstraintWaypointIndices.get(i);
+         xEquivalents.add(row, 0, vrpXWaypoints.get(waypointIndex));
+         yEquivalents.add(row, 0, vrpYWaypoints.get(waypointIndex));
+         zEquivalents.add(row, 0, vrpZWaypoints.get(waypointIndex));
+      }
 
-      CommonOps_DDRM.mult(coefficientMultipliersInv, xEquivalents, xCoefficientVector);
-      CommonOps_DDRM.mult(coefficientMultipliersInv, yEquivalents, yCoefficientVector);
-      CommonOps_DDRM.mult(coefficientMultipliersInv, zEquivalents, zCoefficientVector);
+      coefficientSolver.solve(xEquivalents, xCoefficientVector);
+      coefficientSolver.solve(yEquivalents, yCoefficientVector);
+      coefficientSolver.solve(zEquivalents, zCoefficientVector);
 
       // update coefficient holders
       int firstCoefficientIndex = 0;
@@ -246,7 +261,9 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
       setDCMPositionConstraint(numberOfPhases - 1, finalDuration, finalDCMPosition);
       setDynamicsFinalConstraint(contactSequence, numberOfPhases - 1);
 
-      NativeCommonOps.invert(coefficientMultipliers, coefficientMultipliersInv);
+      // Only the elimination steps involving the constraints that changed since the last tick are recomputed, which are usually
+      // the ones at the start of the contact sequence.
+      coefficientSolver.setA(coefficientMultipliers);
    }
 
 
@@ -427,15 +444,13 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
       int size = indexHandler.getTotalNumberOfCoefficients();
       int numberOfVRPWaypoints = indexHandler.getNumberOfVRPWaypoints();
 
-      coefficientMultipliers.reshape(size, size);
-      coefficientMultipliersInv.reshape(size, size);
+      coefficientMultipliers.reshape(size);
       xEquivalents.reshape(size, 1);
       yEquivalents.reshape(size, 1);
       zEquivalents.reshape(size, 1);
       xConstants.reshape(size, 1);
       yConstants.reshape(size, 1);
       zConstants.reshape(size, 1);
-      vrpWaypointJacobian.reshape(size, numberOfVRPWaypoints); // only position
       vrpXWaypoints.reshape(numberOfVRPWaypoints, 1);
       vrpYWaypoints.reshape(numberOfVRPWaypoints, 1);
       vrpZWaypoints.reshape(numberOfVRPWaypoints, 1);
@@ -443,21 +458,21 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
       yCoefficientVector.reshape(size, 1);
       zCoefficientVector.reshape(size, 1);
 
-      coefficientMultipliers.zero();
-      coefficientMultipliersInv.zero();
       xEquivalents.zero();
       yEquivalents.zero();
       zEquivalents.zero();
       xConstants.zero();
       yConstants.zero();
       zConstants.zero();
-      vrpWaypointJacobian.zero();
       vrpXWaypoints.zero();
       vrpYWaypoints.zero();
       vrpZWaypoints.zero();
       xCoefficientVector.zero();
       yCoefficientVector.zero();
       zCoefficientVector.zero();
+
+      vrpConstraintRows.reset();
+      vrpConstraintWaypointIndices.reset();
    }
 
    /**
@@ -635,7 +650,9 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
    private void constrainVRPPosition(int sequenceId, int vrpWaypointPositionIndex, double time, FramePoint3DReadOnly desiredVRPPosition)
    {
       CoMTrajectoryPlannerTools.addVRPPositionConstraint(sequenceId, numberOfConstraints, vrpWaypointPositionIndex, time, omega.getValue(), desiredVRPPosition,
-                                                         coefficientMultipliers, vrpXWaypoints, vrpYWaypoints, vrpZWaypoints, vrpWaypointJacobian);
+                                                         coefficientMultipliers, vrpXWaypoints, vrpYWaypoints, vrpZWaypoints);
+      vrpConstraintRows.add(numberOfConstraints);
+      vrpConstraintWaypointIndices.add(vrpWaypointPositionIndex);
       numberOfConstraints++;
    }
 
@@ -656,7 +673,9 @@ public class CoMTrajectoryPlanner implements CoMTrajectoryProvider
    private void constrainVRPVelocity(int sequenceId, int vrpWaypointVelocityIndex, double time, FrameVector3DReadOnly desiredVRPVelocity)
    {
       CoMTrajectoryPlannerTools.addVRPVelocityConstraint(sequenceId, numberOfConstraints, vrpWaypointVelocityIndex, omega.getValue(), time, desiredVRPVelocity,
-                                                         coefficientMultipliers, vrpXWaypoints, vrpYWaypoints, vrpZWaypoints, vrpWaypointJacobian);
+                                                         coefficientMultipliers, vrpXWaypoints, vrpYWaypoints, vrpZWaypoints);
+      vrpConstraintRows.add(numberOfConstraints);
+      vrpConstraintWaypointIndices.add(vrpWaypointVelocityIndex);
       numberOfConstraints++;
    }
 
@@ -125,7 +125,7 @@ public class CoMTrajectoryPlannerTools
     * @param centerOfMassLocationForConstraint x<sub>d</sub> in the above equations
     */
    public static void addCoMPositionConstraint(FramePoint3DReadOnly centerOfMassLocationForConstraint, double omega, double time, int sequenceId, int rowStart,
-                                               DMatrixRMaj constraintMatrixToPack, DMatrixRMaj xObjectiveMatrixToPack,
+                                               BandedMatrix constraintMatrixToPack, DMatrixRMaj xObjectiveMatrixToPack,
                                                DMatrixRMaj yObjectiveMatrixToPack, DMatrixRMaj zObjectiveMatrixToPack)
    {
       centerOfMassLocationForConstraint.checkReferenceFrameMatch(worldFrame);
@@ -169,7 +169,7 @@ public class CoMTrajectoryPlannerTools
     * @param desiredDCMPosition desired DCM location. &xi;<sub>d</sub> in the above equations.
     */
    public static void addDCMPositionConstraint(int sequenceId, int rowStart, double time, double omega, FramePoint3DReadOnly desiredDCMPosition,
-                                               DMatrixRMaj constraintMatrixToPack, DMatrixRMaj xObjectiveMatrixToPack,
+                                               BandedMatrix constraintMatrixToPack, DMatrixRMaj xObjectiveMatrixToPack,
                                                DMatrixRMaj yObjectiveMatrixToPack, DMatrixRMaj zObjectiveMatrixToPack)
    {
       desiredDCMPosition.checkReferenceFrameMatch(worldFrame);
@@ -206,9 +206,9 @@ public class CoMTrajectoryPlannerTools
     * @param desiredVRPPosition reference VRP position, v<sub>r</sub> in the above equations.
     */
    public static void addVRPPositionConstraint(int sequenceId, int constraintNumber, int vrpWaypointPositionIndex, double time, double omega,
-                                               FramePoint3DReadOnly desiredVRPPosition, DMatrixRMaj constraintMatrixToPack,
+                                               FramePoint3DReadOnly desiredVRPPosition, BandedMatrix constraintMatrixToPack,
                                                DMatrixRMaj xObjectiveMatrixToPack, DMatrixRMaj yObjectiveMatrixToPack,
-                                               DMatrixRMaj zObjectiveMatrixToPack, DMatrixRMaj vrpWaypointJacobianToPack)
+                                               DMatrixRMaj zObjectiveMatrixToPack)
    {
       int startIndex = 6 * sequenceId;
 
@@ -223,8 +223,6 @@ public class CoMTrajectoryPlannerTools
       constraintMatrixToPack.set(constraintNumber, startIndex + 4, CoMTrajectoryPlannerTools.getVRPPositionFifthCoefficientTimeFunction(time));
       constraintMatrixToPack.set(constraintNumber, startIndex + 5, CoMTrajectoryPlannerTools.getVRPPositionSixthCoefficientTimeFunction());
 
-      vrpWaypointJacobianToPack.set(constraintNumber, vrpWaypointPositionIndex, 1.0);
-
       xObjectiveMatrixToPack.set(vrpWaypointPositionIndex, 0, desiredVRPPosition.getX());
       yObjectiveMatrixToPack.set(vrpWaypointPositionIndex, 0, desiredVRPPosition.getY());
       zObjectiveMatrixToPack.set(vrpWaypointPositionIndex, 0, desiredVRPPosition.getZ());
@@ -245,9 +243,9 @@ public class CoMTrajectoryPlannerTools
     * @param desiredVRPVelocity reference VRP veloctiy, d/dt v<sub>r</sub> in the above equations.
     */
    public static void addVRPVelocityConstraint(int sequenceId, int constraintRow, int vrpWaypointVelocityIndex, double omega, double time,
-                                               FrameVector3DReadOnly desiredVRPVelocity, DMatrixRMaj constraintMatrixToPack,
+                                               FrameVector3DReadOnly desiredVRPVelocity, BandedMatrix constraintMatrixToPack,
                                                DMatrixRMaj xObjectiveMatrixToPack, DMatrixRMaj yObjectiveMatrixToPack,
-                                               DMatrixRMaj zObjectiveMatrixToPack, DMatrixRMaj vrpWaypointJacobianToPack)
+                                               DMatrixRMaj zObjectiveMatrixToPack)
    {
       int startIndex = 6 * sequenceId;
 
@@ -260,8 +258,6 @@ public class CoMTrajectoryPlannerTools
       constraintMatrixToPack.set(constraintRow, startIndex + 4, CoMTrajectoryPlannerTools.getVRPVelocityFifthCoefficientTimeFunction());
       constraintMatrixToPack.set(constraintRow, startIndex + 5, CoMTrajectoryPlannerTools.getVRPVelocitySixthCoefficientTimeFunction());
 
-      vrpWaypointJacobianToPack.set(constraintRow, vrpWaypointVelocityIndex, 1.0);
-
       xObjectiveMatrixToPack.set(vrpWaypointVelocityIndex, 0, desiredVRPVelocity.getX());
       yObjectiveMatrixToPack.set(vrpWaypointVelocityIndex, 0, desiredVRPVelocity.getY());
       zObjectiveMatrixToPack.set(vrpWaypointVelocityIndex, 0, desiredVRPVelocity.getZ());
@@ -283,7 +279,7 @@ public class CoMTrajectoryPlannerTools
     * @param nextSequence i in the above equations.
     */
    public static void addCoMPositionContinuityConstraint(int previousSequence, int nextSequence, int constraintRow, double omega, double previousDuration,
-                                                         DMatrixRMaj constraintMatrixToPack)
+                                                         BandedMatrix constraintMatrixToPack)
    {
       // move next sequence coefficients to the left hand side
       int previousStartIndex = 6 * previousSequence;
@@ -321,7 +317,7 @@ public class CoMTrajectoryPlannerTools
     * @param nextSequence i in the above equations.
     */
    public static void addCoMVelocityContinuityConstraint(int previousSequence, int nextSequence, int constraintRow, double omega, double previousDuration,
-                                                         DMatrixRMaj constraintMatrixToPack)
+                                                         BandedMatrix constraintMatrixToPack)
    {
       // move next sequence coefficients to the left hand side
       int previousStartIndex = 6 * previousSequence;
@@ -355,7 +351,7 @@ public class CoMTrajectoryPlannerTools
     * @param time time for the constraint, t<sub>i</sub> in the above equations.
     */
    public static void constrainCoMAccelerationToGravity(int sequenceId, int constraintRow, double omega, double time, double gravityZ,
-                                                        DMatrixRMaj constraintMatrixToPack, DMatrixRMaj zObjectiveMatrixToPack)
+                                                        BandedMatrix constraintMatrixToPack, DMatrixRMaj zObjectiveMatrixToPack)
    {
       int startIndex = 6 * sequenceId;
 
@@ -382,7 +378,7 @@ public class CoMTrajectoryPlannerTools
     * @param sequenceId segment of interest, i in the above equations.
     * @param time time for the constraint, t<sub>i</sub> in the above equations.
     */
-   public static void constrainCoMJerkToZero(double time, double omega, int sequenceId, int rowStart, DMatrixRMaj matrixToPack)
+   public static void constrainCoMJerkToZero(double time, double omega, int sequenceId, int rowStart, BandedMatrix matrixToPack)
    {
       time = Math.min(time, sufficientlyLongTime);
 
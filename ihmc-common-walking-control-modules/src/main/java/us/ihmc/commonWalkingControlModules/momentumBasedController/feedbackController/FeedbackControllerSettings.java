@@ -2,7 +2,9 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackCont
 
 import java.util.List;
 
+import us.ihmc.affinity.Processor;
 import us.ihmc.commonWalkingControlModules.configurations.GroupParameter;
+import us.ihmc.commonWalkingControlModules.controllerCore.FeedbackControllerThreadPool;
 import us.ihmc.commonWalkingControlModules.controllerCore.FeedbackControllerToolbox;
 
 public interface FeedbackControllerSettings
@@ -40,6 +42,37 @@ public interface FeedbackControllerSettings
       return null;
    }
 
+   /**
+    * Gets the number of worker threads to use, in addition to the controller thread, for evaluating
+    * the feedback controllers in parallel. IMPORTANT: This cannot be changed at runtime.
+    * <p>
+    * When greater than zero, the feedback controllers are evaluated with a
+    * {@link FeedbackControllerThreadPool}. The controllers sharing the data of an end-effector are
+    * evaluated on the same thread. The transforms of the robot frames and of the frames referenced by
+    * the feedback control commands (control base, gains, and trajectory frames) are computed before
+    * the workers are released. As in serial mode, frames that need an explicit update are to be
+    * updated before calling the controller core. The output does not depend on the number of workers.
+    * </p>
+    * 
+    * @return the number of worker threads, {@code 0} to evaluate the feedback controllers on the
+    *         controller thread only.
+    */
+   default int getNumberOfFeedbackControllerWorkers()
+   {
+      return 0;
+   }
+
+   /**
+    * Gets the processors to which the worker threads evaluating the feedback controllers are to be
+    * pinned, one per worker. IMPORTANT: This cannot be changed at runtime.
+    * 
+    * @return the processors to pin the workers to, or {@code null} to not pin the workers.
+    */
+   default Processor[] getFeedbackControllerWorkerProcessors()
+   {
+      return null;
+   }
+
    /**
     * Creates an instance of {@code FeedbackControllerSettings} for a default setup of the feedback
     * controllers.
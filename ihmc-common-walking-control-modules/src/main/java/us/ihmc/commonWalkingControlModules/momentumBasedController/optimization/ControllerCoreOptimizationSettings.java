@@ -340,6 +340,16 @@ public interface ControllerCoreOptimizationSettings
       return false;
    }
 
+   /**
+    * Sets whether the inverse dynamics QP should be formed using only the non-zero columns of the
+    * task Jacobians. The resulting problem is the same, it is cheaper to build when the tasks only
+    * involve part of the robot or when some contact points are not in contact.
+    */
+   default boolean useSparseQPFormulation()
+   {
+      return false;
+   }
+
    /**
     * Sets the maximum number of iterations allowed in the solver before throwing a no convergence
     * exception.
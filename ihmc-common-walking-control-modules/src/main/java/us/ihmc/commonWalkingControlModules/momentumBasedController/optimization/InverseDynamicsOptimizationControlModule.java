@@ -148,6 +148,7 @@ public class InverseDynamicsOptimizationControlModule
       qpSolver.setJerkRegularizationWeight(optimizationSettings.getJointJerkWeight());
       qpSolver.setJointTorqueWeight(optimizationSettings.getJointTorqueWeight());
       qpSolver.setUseWarmStart(optimizationSettings.useWarmStartInSolver());
+      qpSolver.setUseSparseFormulation(optimizationSettings.useSparseQPFormulation());
       qpSolver.setMaxNumberOfIterations(optimizationSettings.getMaxNumberOfSolverIterations());
 
       useWarmStart.set(optimizationSettings.useWarmStartInSolver());
@@ -26,6 +26,13 @@ public class InverseDynamicsQPSolver
    private final YoFrameVector3D wrenchEquilibriumTorqueError;
 
    private final YoBoolean addRateRegularization = new YoBoolean("AddRateRegularization", registry);
+   /**
+    * When {@code true}, the quadratic terms of the problem are only accumulated over the non-zero
+    * columns of the task Jacobians. Task Jacobians typically only span part of the kinematic tree, and
+    * the rho Jacobians have zero columns for the contact points that are not in contact.
+    */
+   private final YoBoolean useSparseFormulation = new YoBoolean("useSparseQPFormulation", registry);
+   private final YoBoolean previousSolveFailed = new YoBoolean("previousQPSolveFailed", registry);
    private final ActiveSetQPSolverWithInactiveVariablesInterface qpSolver;
 
    private final QPVariableSubstitution accelerationVariablesSubstitution = new QPVariableSubstitution();
@@ -64,6 +71,7 @@ public class InverseDynamicsQPSolver
    private final DMatrixRMaj regularizationMatrix;
 
    private final DMatrixRMaj tempJtW;
+   private final TIntArrayList nonZeroColumns = new TIntArrayList();
 
    private final int numberOfDoFs;
    private final int rhoSize;
@@ -73,6 +81,7 @@ public class InverseDynamicsQPSolver
 
    private boolean resetActiveSet = false;
    private boolean useWarmStart = false;
+   private int previousNumberOfInequalityConstraints = -1;
    private int maxNumberOfIterations = 100;
 
    private final double dt;
@@ -168,6 +177,15 @@ public class InverseDynamicsQPSolver
       this.useWarmStart = useWarmStart;
    }
 
+   /**
+    * Sets whether the cost function should be formed using only the non-zero columns of the task
+    * Jacobians. This gives the same problem with fewer operations when the Jacobians are sparse.
+    */
+   public void setUseSparseFormulation(boolean useSparseFormulation)
+   {
+      this.useSparseFormulation.set(useSparseFormulation);
+   }
+
    public void setMaxNumberOfIterations(int maxNumberOfIterations)
    {
       this.maxNumberOfIterations = maxNumberOfIterations;
@@ -384,7 +402,10 @@ public class InverseDynamicsQPSolver
       CommonOps_DDRM.multTransA(taskJacobian, taskWeight, tempJtW);
 
       // Compute: H += J^T W J
-      MatrixTools.multAddBlock(tempJtW, taskJacobian, solverInput_H, offset, offset);
+      if (useSparseFormulation.getBooleanValue())
+         multAddBlockOverNonZeroColumns(tempJtW, taskJacobian, solverInput_H, offset);
+      else
+         MatrixTools.multAddBlock(tempJtW, taskJacobian, solverInput_H, offset, offset);
 
       // Compute: f += - J^T W Objective
       MatrixTools.multAddBlock(-1.0, tempJtW, taskObjective, solverInput_f, offset, 0);
@@ -399,7 +420,10 @@ public class InverseDynamicsQPSolver
       }
 
       // Compute: H += J^T W J
-      MatrixTools.multAddBlockInner(taskWeight, taskJacobian, solverInput_H, offset, offset);
+      if (useSparseFormulation.getBooleanValue())
+         multAddBlockInnerOverNonZeroColumns(taskWeight, taskJacobian, solverInput_H, offset);
+      else
+         MatrixTools.multAddBlockInner(taskWeight, taskJacobian, solverInput_H, offset, offset);
 
       // Compute: f += - J^T W Objective
       MatrixTools.multAddBlockTransA(-taskWeight, taskJacobian, taskObjective, solverInput_f, offset, 0);
@@ -494,7 +518,10 @@ public class InverseDynamicsQPSolver
    public void addTorqueMinimizationObjective(DMatrixRMaj torqueJacobian, DMatrixRMaj torqueObjective)
    {
       // Compute: H += J^T W J
-      MatrixTools.multAddInner(jointTorqueWeight.getDoubleValue(), torqueJacobian, solverInput_H);
+      if (useSparseFormulation.getBooleanValue())
+         multAddBlockInnerOverNonZeroColumns(jointTorqueWeight.getDoubleValue(), torqueJacobian, solverInput_H, 0);
+      else
+         MatrixTools.multAddInner(jointTorqueWeight.getDoubleValue(), torqueJacobian, solverInput_H);
 
       // Compute: f += - J^T W Objective
       CommonOps_DDRM.multAddTransA(-jointTorqueWeight.getDoubleValue(), torqueJacobian, torqueObjective, solverInput_f);
@@ -553,7 +580,10 @@ public class InverseDynamicsQPSolver
          CommonOps_DDRM.insert(rhoJacobian, tempWrenchConstraint_J, 0, numberOfDoFs);
 
          double weight = 150.0;
-         MatrixTools.multAddInner(weight, tempWrenchConstraint_J, solverInput_H);
+         if (useSparseFormulation.getBooleanValue())
+            multAddBlockInnerOverNonZeroColumns(weight, tempWrenchConstraint_J, solverInput_H, 0);
+         else
+            MatrixTools.multAddInner(weight, tempWrenchConstraint_J, solverInput_H);
 
          CommonOps_DDRM.multAddTransA(-weight, tempWrenchConstraint_J, tempWrenchConstraint_RHS, solverInput_f);
       }
@@ -601,8 +631,11 @@ public class InverseDynamicsQPSolver
 
       qpSolver.setUseWarmStart(useWarmStart);
       qpSolver.setMaxNumberOfIterations(maxNumberOfIterations);
-      if (useWarmStart && pollResetActiveSet())
+      // The previous active set is only meaningful if the previous solve succeeded and the inequality constraints still have the same rows.
+      boolean inequalityConstraintsChanged = solverInput_Ain.getNumRows() != previousNumberOfInequalityConstraints;
+      if (useWarmStart && (pollResetActiveSet() || previousSolveFailed.getBooleanValue() || inequalityConstraintsChanged))
          qpSolver.resetActiveSet();
+      previousNumberOfInequalityConstraints = solverInput_Ain.getNumRows();
 
       numberOfActiveVariables.set((int) CommonOps_DDRM.elementSum(solverInput_activeIndices));
 
@@ -630,9 +663,12 @@ public class InverseDynamicsQPSolver
 
       if (MatrixTools.containsNaN(solverOutput))
       {
+         previousSolveFailed.set(true);
          return false;
       }
 
+      previousSolveFailed.set(false);
+
       CommonOps_DDRM.extract(solverOutput, 0, numberOfDoFs, 0, 1, solverOutput_jointAccelerations, 0, 0);
       CommonOps_DDRM.extract(solverOutput, numberOfDoFs, problemSize, 0, 1, solverOutput_rhos, 0, 0);
 
@@ -662,6 +698,86 @@ public class InverseDynamicsQPSolver
       return true;
    }
 
+   /**
+    * Computes: H += w * J<sup>T</sup> J, where the product is added to the diagonal block of H
+    * starting at (offset, offset) and only the non-zero columns of J are considered.
+    */
+   private void multAddBlockInnerOverNonZeroColumns(double weight, DMatrixRMaj J, DMatrixRMaj H, int offset)
+   {
+      findNonZeroColumns(J);
+
+      int numberOfRows = J.getNumRows();
+      int numberOfColumns = J.getNumCols();
+
+      for (int a = 0; a < nonZeroColumns.size(); a++)
+      {
+         int col1 = nonZeroColumns.get(a);
+
+         for (int b = a; b < nonZeroColumns.size(); b++)
+         {
+            int col2 = nonZeroColumns.get(b);
+            double sum = 0.0;
+
+            for (int row = 0; row < numberOfRows; row++)
+               sum += J.data[row * numberOfColumns + col1] * J.data[row * numberOfColumns + col2];
+
+            sum *= weight;
+            H.add(offset + col1, offset + col2, sum);
+            if (col1 != col2)
+               H.add(offset + col2, offset + col1, sum);
+         }
+      }
+   }
+
+   /**
+    * Computes: H += JtW * J, where the product is added to the diagonal block of H starting at
+    * (offset, offset) and only the non-zero columns of J are considered. The rows of JtW that
+    * correspond to zero columns of J are zero as well, so they can be skipped.
+    */
+   private void multAddBlockOverNonZeroColumns(DMatrixRMaj JtW, DMatrixRMaj J, DMatrixRMaj H, int offset)
+   {
+      findNonZeroColumns(J);
+
+      int taskSize = J.getNumRows();
+      int numberOfColumns = J.getNumCols();
+
+      for (int a = 0; a < nonZeroColumns.size(); a++)
+      {
+         int col1 = nonZeroColumns.get(a);
+
+         for (int b = 0; b < nonZeroColumns.size(); b++)
+         {
+            int col2 = nonZeroColumns.get(b);
+            double sum = 0.0;
+
+            for (int k = 0; k < taskSize; k++)
+               sum += JtW.data[col1 * taskSize + k] * J.data[k * numberOfColumns + col2];
+
+            H.add(offset + col1, offset + col2, sum);
+         }
+      }
+   }
+
+   private void findNonZeroColumns(DMatrixRMaj J)
+   {
+      nonZeroColumns.reset();
+
+      int numberOfRows = J.getNumRows();
+      int numberOfColumns = J.getNumCols();
+
+      for (int col = 0; col < numberOfColumns; col++)
+      {
+         for (int row = 0; row < numberOfRows; row++)
+         {
+            if (J.data[row * numberOfColumns + col] != 0.0)
+            {
+               nonZeroColumns.add(col);
+               break;
+            }
+         }
+      }
+   }
+
    private TIntArrayList applySubstitution()
    {
       if (accelerationVariablesSubstitution.isEmpty())
@@ -0,0 +1,107 @@
+package us.ihmc.commonWalkingControlModules.controllerCore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+class FeedbackControllerThreadPoolTest
+{
+   @Test
+   void testExecute() throws Exception
+   {
+      Random random = new Random(34534);
+      FeedbackControllerThreadPool threadPool = new FeedbackControllerThreadPool(3, null, new YoRegistry("test"));
+
+      try
+      {
+         for (int tick = 0; tick < 1000; tick++)
+         {
+            int numberOfTasks = random.nextInt(20);
+            double[] inputs = new double[numberOfTasks];
+            double[] outputs = new double[numberOfTasks];
+            int[] numberOfEvaluations = new int[numberOfTasks];
+            for (int i = 0; i < numberOfTasks; i++)
+               inputs[i] = random.nextDouble();
+
+            threadPool.execute(taskIndex ->
+            {
+               outputs[taskIndex] = Math.sqrt(inputs[taskIndex]);
+               numberOfEvaluations[taskIndex]++;
+            }, numberOfTasks);
+
+            for (int i = 0; i < numberOfTasks; i++)
+            {
+               assertEquals(Math.sqrt(inputs[i]), outputs[i]);
+               assertEquals(1, numberOfEvaluations[i]);
+            }
+         }
+      }
+      finally
+      {
+         threadPool.destroy();
+      }
+   }
+
+   @Test
+   void testExceptionIsForwarded() throws Exception
+   {
+      FeedbackControllerThreadPool threadPool = new FeedbackControllerThreadPool(2, null, new YoRegistry("test"));
+
+      try
+      {
+         assertThrows(FeedbackControllerException.class, () -> threadPool.execute(taskIndex ->
+         {
+            if (taskIndex == 4)
+               throw new FeedbackControllerException("Failure in task " + taskIndex);
+         }, 6));
+
+         // The pool is still usable afterwards.
+         int[] numberOfEvaluations = new int[6];
+         threadPool.execute(taskIndex -> numberOfEvaluations[taskIndex]++, numberOfEvaluations.length);
+         for (int numberOfEvaluation : numberOfEvaluations)
+            assertEquals(1, numberOfEvaluation);
+      }
+      finally
+      {
+         threadPool.destroy();
+      }
+
+      assertThrows(IllegalStateException.class, () -> threadPool.execute(taskIndex ->
+      {
+      }, 1));
+   }
+
+   @Test
+   void testWorkersStopOnceThePoolIsDiscarded() throws Exception
+   {
+      Thread[] workers = createAndDiscardThreadPool();
+      long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+      for (Thread worker : workers)
+      {
+         while (worker.isAlive() && System.nanoTime() < timeout)
+         {
+            System.gc();
+            worker.join(10);
+         }
+
+         assertFalse(worker.isAlive());
+      }
+   }
+
+   private static Thread[] createAndDiscardThreadPool()
+   {
+      FeedbackControllerThreadPool threadPool = new FeedbackControllerThreadPool(2, null, new YoRegistry("test"));
+      threadPool.execute(taskIndex ->
+      {
+      }, 3);
+      return threadPool.getWorkers();
+   }
+}
@@ -0,0 +1,235 @@
+package us.ihmc.commonWalkingControlModules.controllerCore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.OneDoFJointFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.OrientationFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.PointFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.SpatialFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.FeedbackControllerSettings;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameRandomTools;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.mecano.frames.CenterOfMassReferenceFrame;
+import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.spatial.SpatialVector;
+import us.ihmc.mecano.tools.JointStateType;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools.RandomFloatingRevoluteJointChain;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
+import us.ihmc.robotics.controllers.pidGains.implementations.DefaultPID3DGains;
+import us.ihmc.robotics.controllers.pidGains.implementations.DefaultPIDSE3Gains;
+import us.ihmc.robotics.controllers.pidGains.implementations.PDGains;
+import us.ihmc.robotics.random.RandomGeometry;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+class WholeBodyFeedbackControllerTest
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+   /**
+    * Runs the same command sets through a serial and a parallel feedback controller and checks that
+    * the outputs are identical, including when controllers of the same end-effector share their data
+    * and when the commands use frames that are not part of the robot.
+    */
+   @Test
+   void testParallelEvaluationMatchesSerialEvaluation()
+   {
+      Random random = new Random(4367L);
+      double controlDT = 0.004;
+      int numberOfJoints = 12;
+      int numberOfTicks = 500;
+
+      Vector3D[] jointAxes = new Vector3D[numberOfJoints];
+      for (int i = 0; i < numberOfJoints; i++)
+         jointAxes[i] = RandomGeometry.nextVector3D(random, 1.0);
+
+      RandomFloatingRevoluteJointChain randomFloatingChain = new RandomFloatingRevoluteJointChain(random, jointAxes);
+      List<RevoluteJoint> revoluteJoints = randomFloatingChain.getRevoluteJoints();
+      RigidBodyBasics elevator = randomFloatingChain.getElevator();
+      JointBasics[] joints = MultiBodySystemTools.collectSubtreeJoints(elevator);
+      ReferenceFrame centerOfMassFrame = new CenterOfMassReferenceFrame("centerOfMassFrame", worldFrame, elevator);
+
+      List<RigidBodyBasics> endEffectors = new ArrayList<>();
+      for (int i = 1; i < revoluteJoints.size(); i += 2)
+         endEffectors.add(revoluteJoints.get(i).getSuccessor());
+
+      FeedbackControllerTemplate template = new FeedbackControllerTemplate();
+      for (RigidBodyBasics endEffector : endEffectors)
+      {
+         template.enableSpatialFeedbackController(endEffector, 2);
+         template.enablePointFeedbackController(endEffector);
+         template.enableOrientationFeedbackController(endEffector);
+      }
+      revoluteJoints.forEach(template::enableOneDoFJointFeedbackController);
+
+      WholeBodyFeedbackController serialController = createFeedbackController(controlDT, joints, centerOfMassFrame, template, 0);
+      WholeBodyFeedbackController parallelController = createFeedbackController(controlDT, joints, centerOfMassFrame, template, 3);
+
+      // Frames that are not updated by the controller core and whose transform to root is computed lazily.
+      List<ReferenceFrame> gainsFrames = new ArrayList<>();
+      for (RigidBodyBasics endEffector : endEffectors)
+      {
+         ReferenceFrame parentFrame = endEffector.getParentJoint().getPredecessor().getBodyFixedFrame();
+         gainsFrames.add(ReferenceFrameTools.constructFrameWithUnchangingTransformToParent("gainsFrame" + gainsFrames.size(),
+                                                                                            parentFrame,
+                                                                                            EuclidCoreRandomTools.nextRigidBodyTransform(random)));
+      }
+
+      try
+      {
+         serialController.initialize();
+         parallelController.initialize();
+
+         for (int tick = 0; tick < numberOfTicks; tick++)
+         {
+            MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, -Math.PI / 2.0, Math.PI / 2.0, revoluteJoints);
+            MultiBodySystemRandomTools.nextState(random, JointStateType.VELOCITY, -1.0, 1.0, revoluteJoints);
+            elevator.updateFramesRecursively();
+
+            FeedbackControlCommandList commandList = nextCommandList(random, elevator, endEffectors, gainsFrames, revoluteJoints);
+
+            serialController.reset();
+            serialController.submitFeedbackControlCommandList(WholeBodyControllerCoreMode.INVERSE_DYNAMICS, commandList);
+            serialController.computeInverseDynamics();
+
+            parallelController.reset();
+            parallelController.submitFeedbackControlCommandList(WholeBodyControllerCoreMode.INVERSE_DYNAMICS, commandList);
+            parallelController.computeInverseDynamics();
+
+            assertTrue(serialController.getInverseDynamicsOutput().getNumberOfCommands() > 0);
+            assertEquals(serialController.getInverseDynamicsOutput(), parallelController.getInverseDynamicsOutput(), "Outputs differ at tick " + tick);
+         }
+      }
+      finally
+      {
+         serialController.destroy();
+         parallelController.destroy();
+      }
+   }
+
+   private static WholeBodyFeedbackController createFeedbackController(double controlDT, JointBasics[] joints, ReferenceFrame centerOfMassFrame,
+                                                                       FeedbackControllerTemplate template, int numberOfWorkers)
+   {
+      YoRegistry registry = new YoRegistry("test" + numberOfWorkers);
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(controlDT, 0.0, null, joints, centerOfMassFrame, null, null, registry);
+      toolbox.setFeedbackControllerSettings(new FeedbackControllerSettings()
+      {
+         @Override
+         public int getNumberOfFeedbackControllerWorkers()
+         {
+            return numberOfWorkers;
+         }
+      });
+      toolbox.setupForInverseDynamicsSolver(null);
+      return new WholeBodyFeedbackController(toolbox, template, registry);
+   }
+
+   private static FeedbackControlCommandList nextCommandList(Random random, RigidBodyBasics elevator, List<RigidBodyBasics> endEffectors,
+                                                             List<ReferenceFrame> gainsFrames, List<RevoluteJoint> revoluteJoints)
+   {
+      FeedbackControlCommandList commandList = new FeedbackControlCommandList();
+
+      for (int i = 0; i < endEffectors.size(); i++)
+      {
+         RigidBodyBasics endEffector = endEffectors.get(i);
+         ReferenceFrame gainsFrame = gainsFrames.get(i);
+
+         // Toggling the commands from one tick to the next exercises the controller (re-)initialization.
+         int numberOfSpatialCommands = random.nextInt(3);
+         for (int j = 0; j < numberOfSpatialCommands; j++)
+         {
+            SpatialFeedbackControlCommand command = new SpatialFeedbackControlCommand();
+            command.set(elevator, endEffector);
+            command.setGains(nextSE3Gains(random));
+            command.setGainsFrames(gainsFrame, random.nextBoolean() ? gainsFrame : null);
+            command.setControlFrameFixedInEndEffector(EuclidFrameRandomTools.nextFramePose3D(random, endEffector.getBodyFixedFrame()));
+            command.setInverseDynamics(EuclidFrameRandomTools.nextFramePose3D(random, worldFrame),
+                                       nextSpatialVector(random, worldFrame),
+                                       nextSpatialVector(random, worldFrame));
+            command.setWeightForSolver(random.nextDouble());
+            commandList.addCommand(command);
+         }
+
+         if (random.nextBoolean())
+         {
+            PointFeedbackControlCommand command = new PointFeedbackControlCommand();
+            command.set(elevator, endEffector);
+            command.setGains(nextPID3DGains(random));
+            command.setGainsFrame(gainsFrame);
+            command.setBodyFixedPointToControl(EuclidFrameRandomTools.nextFramePoint3D(random, endEffector.getBodyFixedFrame()));
+            command.setInverseDynamics(EuclidFrameRandomTools.nextFramePoint3D(random, worldFrame),
+                                       EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame),
+                                       EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame));
+            command.setWeightForSolver(random.nextDouble());
+            commandList.addCommand(command);
+         }
+
+         if (random.nextBoolean())
+         {
+            OrientationFeedbackControlCommand command = new OrientationFeedbackControlCommand();
+            command.set(elevator, endEffector);
+            command.setGains(nextPID3DGains(random));
+            command.setGainsFrame(gainsFrame);
+            command.setInverseDynamics(EuclidFrameRandomTools.nextFrameQuaternion(random, worldFrame),
+                                       EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame),
+                                       EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame));
+            command.setWeightForSolver(random.nextDouble());
+            commandList.addCommand(command);
+         }
+      }
+
+      for (RevoluteJoint joint : revoluteJoints)
+      {
+         if (random.nextBoolean())
+            continue;
+
+         OneDoFJointFeedbackControlCommand command = new OneDoFJointFeedbackControlCommand();
+         command.setJoint(joint);
+         PDGains gains = new PDGains();
+         gains.set(random.nextDouble() * 100.0, random.nextDouble() * 10.0, 50.0, 1000.0);
+         command.setGains(gains);
+         command.setInverseDynamics(random.nextDouble(), random.nextDouble(), random.nextDouble());
+         command.setWeightForSolver(random.nextDouble());
+         commandList.addCommand(command);
+      }
+
+      return commandList;
+   }
+
+   private static DefaultPIDSE3Gains nextSE3Gains(Random random)
+   {
+      DefaultPIDSE3Gains gains = new DefaultPIDSE3Gains();
+      gains.setPositionGains(nextPID3DGains(random));
+      gains.setOrientationGains(nextPID3DGains(random));
+      return gains;
+   }
+
+   private static DefaultPID3DGains nextPID3DGains(Random random)
+   {
+      DefaultPID3DGains gains = new DefaultPID3DGains();
+      gains.setProportionalGains(random.nextDouble() * 100.0, random.nextDouble() * 100.0, random.nextDouble() * 100.0);
+      gains.setDerivativeGains(random.nextDouble() * 10.0, random.nextDouble() * 10.0, random.nextDouble() * 10.0);
+      gains.setIntegralGains(random.nextDouble(), random.nextDouble(), random.nextDouble(), 0.5);
+      // The rate limits make the output depend on the previous ticks, i.e. on the data shared by the controllers.
+      gains.setMaxFeedbackAndFeedbackRate(50.0, 1000.0);
+      return gains;
+   }
+
+   private static SpatialVector nextSpatialVector(Random random, ReferenceFrame expressedInFrame)
+   {
+      return new SpatialVector(expressedInFrame, EuclidCoreRandomTools.nextVector3D(random), EuclidCoreRandomTools.nextVector3D(random));
+   }
+}
@@ -0,0 +1,208 @@
+package us.ihmc.commonWalkingControlModules.dynamicPlanning.comPlanning;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.junit.jupiter.api.Test;
+
+public class BandedLinearSystemSolverTest
+{
+   private static final int iters = 100;
+   private static final double epsilon = 1e-10;
+
+   @Test
+   public void testSolveRandomBandedSystems()
+   {
+      Random random = new Random(1738L);
+
+      for (int iter = 0; iter < iters; iter++)
+      {
+         int lowerBandwidth = random.nextInt(8);
+         int upperBandwidth = random.nextInt(8);
+         int size = 1 + random.nextInt(60);
+
+         BandedLinearSystemSolver solver = new BandedLinearSystemSolver(lowerBandwidth, upperBandwidth);
+         DMatrixRMaj A = nextBandedMatrix(random, size, lowerBandwidth, upperBandwidth);
+         solver.setA(A);
+
+         assertSolutionIsCorrect(random, solver, A);
+      }
+   }
+
+   @Test
+   public void testReuseWhenOnlyTheFirstRowsChange()
+   {
+      Random random = new Random(4328L);
+      int lowerBandwidth = CoMTrajectoryPlanner.constraintLowerBandwidth;
+      int upperBandwidth = CoMTrajectoryPlanner.constraintUpperBandwidth;
+
+      for (int iter = 0; iter < iters; iter++)
+      {
+         int size = 30 + random.nextInt(60);
+         BandedLinearSystemSolver solver = new BandedLinearSystemSolver(lowerBandwidth, upperBandwidth);
+         DMatrixRMaj A = nextBandedMatrix(random, size, lowerBandwidth, upperBandwidth);
+         solver.setA(A);
+         assertEquals(0, solver.getNumberOfReusedSteps());
+
+         // Same matrix, everything but the last steps can be reused.
+         solver.setA(A);
+         assertTrue(solver.getNumberOfReusedSteps() > 0);
+         assertSolutionIsCorrect(random, solver, A);
+
+         // The first rows change, as when the current segment progresses.
+         int numberOfChangedRows = 1 + random.nextInt(10);
+         DMatrixRMaj newA = new DMatrixRMaj(A);
+         randomizeBand(random, newA, 0, numberOfChangedRows, lowerBandwidth, upperBandwidth);
+         solver.setA(newA);
+         assertEquals(size - numberOfChangedRows - upperBandwidth, solver.getNumberOfReusedSteps());
+         assertSolutionIsCorrect(random, solver, newA);
+
+         // The first segment is removed, shrinking the system.
+         int numberOfRemovedRows = 6;
+         DMatrixRMaj smallerA = new DMatrixRMaj(size - numberOfRemovedRows, size - numberOfRemovedRows);
+         CommonOps_DDRM.extract(newA, numberOfRemovedRows, size, numberOfRemovedRows, size, smallerA, 0, 0);
+         randomizeBand(random, smallerA, 0, 3, lowerBandwidth, upperBandwidth);
+         solver.setA(smallerA);
+         assertTrue(solver.getNumberOfReusedSteps() > 0);
+         assertSolutionIsCorrect(random, solver, smallerA);
+
+         // A segment is added at the end, nothing can be reused.
+         DMatrixRMaj largerA = new DMatrixRMaj(size, size);
+         CommonOps_DDRM.extract(smallerA, 0, size - numberOfRemovedRows, 0, size - numberOfRemovedRows, largerA, 0, 0);
+         randomizeBand(random, largerA, size - numberOfRemovedRows, size, lowerBandwidth, upperBandwidth);
+         solver.setA(largerA);
+         assertEquals(0, solver.getNumberOfReusedSteps());
+         assertSolutionIsCorrect(random, solver, largerA);
+
+         solver.reset();
+         solver.setA(largerA);
+         assertEquals(0, solver.getNumberOfReusedSteps());
+         assertSolutionIsCorrect(random, solver, largerA);
+      }
+   }
+
+   @Test
+   public void testNonZeroElementOutsideOfTheBand()
+   {
+      Random random = new Random(9841L);
+      int lowerBandwidth = CoMTrajectoryPlanner.constraintLowerBandwidth;
+      int upperBandwidth = CoMTrajectoryPlanner.constraintUpperBandwidth;
+      int size = 30;
+
+      for (int iter = 0; iter < iters; iter++)
+      {
+         BandedLinearSystemSolver solver = new BandedLinearSystemSolver(lowerBandwidth, upperBandwidth);
+         DMatrixRMaj A = nextBandedMatrix(random, size, lowerBandwidth, upperBandwidth);
+         solver.setA(A);
+
+         DMatrixRMaj outOfBandA = new DMatrixRMaj(A);
+         int row = random.nextInt(size);
+         int column;
+         if (row > lowerBandwidth && (row >= size - upperBandwidth - 1 || random.nextBoolean()))
+            column = random.nextInt(row - lowerBandwidth);
+         else
+            column = row + upperBandwidth + 1 + random.nextInt(size - row - upperBandwidth - 1);
+         outOfBandA.set(row, column, 1.0);
+         assertThrows(IllegalArgumentException.class, () -> solver.setA(outOfBandA));
+
+         // The failed call leaves the previous decomposition untouched.
+         assertSolutionIsCorrect(random, solver, A);
+      }
+   }
+
+   @Test
+   public void testBandedMatrixInput()
+   {
+      Random random = new Random(6120L);
+      int lowerBandwidth = CoMTrajectoryPlanner.constraintLowerBandwidth;
+      int upperBandwidth = CoMTrajectoryPlanner.constraintUpperBandwidth;
+      BandedLinearSystemSolver denseSolver = new BandedLinearSystemSolver(lowerBandwidth, upperBandwidth);
+      BandedLinearSystemSolver bandedSolver = new BandedLinearSystemSolver(lowerBandwidth, upperBandwidth);
+      BandedMatrix bandedA = new BandedMatrix(lowerBandwidth, upperBandwidth);
+
+      for (int iter = 0; iter < iters; iter++)
+      {
+         int size = 1 + random.nextInt(60);
+         DMatrixRMaj A = nextBandedMatrix(random, size, lowerBandwidth, upperBandwidth);
+         bandedA.reshape(size);
+         for (int row = 0; row < size; row++)
+         {
+            for (int col = Math.max(0, row - lowerBandwidth); col <= Math.min(size - 1, row + upperBandwidth); col++)
+               bandedA.set(row, col, A.get(row, col));
+         }
+
+         denseSolver.setA(A);
+         bandedSolver.setA(bandedA);
+         assertEquals(denseSolver.getNumberOfReusedSteps(), bandedSolver.getNumberOfReusedSteps());
+
+         DMatrixRMaj b = new DMatrixRMaj(size, 1);
+         for (int i = 0; i < size; i++)
+            b.set(i, 0, random.nextDouble() - 0.5);
+         DMatrixRMaj expected = new DMatrixRMaj(size, 1);
+         DMatrixRMaj actual = new DMatrixRMaj(size, 1);
+         denseSolver.solve(b, expected);
+         bandedSolver.solve(b, actual);
+
+         for (int i = 0; i < size; i++)
+            assertEquals(expected.get(i, 0), actual.get(i, 0), 0.0);
+
+         // even a zero is rejected outside of the band, the constraint does not fit the band
+         if (size > upperBandwidth + 1)
+            assertThrows(IllegalArgumentException.class, () -> bandedA.set(0, upperBandwidth + 1, 0.0));
+         if (size > lowerBandwidth + 1)
+            assertThrows(IllegalArgumentException.class, () -> bandedA.set(lowerBandwidth + 1, 0, 0.0));
+      }
+
+      assertThrows(IllegalArgumentException.class, () -> bandedSolver.setA(new BandedMatrix(lowerBandwidth + 1, upperBandwidth)));
+   }
+
+   private static void assertSolutionIsCorrect(Random random, BandedLinearSystemSolver solver, DMatrixRMaj A)
+   {
+      int size = A.getNumRows();
+      DMatrixRMaj b = new DMatrixRMaj(size, 1);
+      for (int i = 0; i < size; i++)
+         b.set(i, 0, 10.0 * (random.nextDouble() - 0.5));
+
+      DMatrixRMaj x = new DMatrixRMaj(size, 1);
+      solver.solve(b, x);
+
+      // The random matrices can be poorly conditioned, so the residual is checked rather than the solution itself.
+      DMatrixRMaj residual = new DMatrixRMaj(b);
+      CommonOps_DDRM.multAdd(-1.0, A, x, residual);
+      double scale = 1.0 + CommonOps_DDRM.elementMaxAbs(A) * CommonOps_DDRM.elementMaxAbs(x);
+
+      for (int i = 0; i < size; i++)
+         assertEquals(0.0, residual.get(i, 0), epsilon * scale);
+   }
+
+   private static DMatrixRMaj nextBandedMatrix(Random random, int size, int lowerBandwidth, int upperBandwidth)
+   {
+      DMatrixRMaj matrix = new DMatrixRMaj(size, size);
+      randomizeBand(random, matrix, 0, size, lowerBandwidth, upperBandwidth);
+      return matrix;
+   }
+
+   private static void randomizeBand(Random random, DMatrixRMaj matrix, int startRow, int endRow, int lowerBandwidth, int upperBandwidth)
+   {
+      int size = matrix.getNumRows();
+
+      for (int row = startRow; row < endRow; row++)
+      {
+         for (int col = Math.max(0, row - lowerBandwidth); col <= Math.min(size - 1, row + upperBandwidth); col++)
+         {
+            double value = 2.0 * (random.nextDouble() - 0.5);
+            // Small diagonal elements require pivoting, as with the zero elements on the diagonal of the CoM constraints.
+            if (row == col && random.nextBoolean())
+               value *= 1.0e-3;
+            else if (row != col && random.nextInt(4) == 0)
+               value = 0.0;
+            matrix.set(row, col, value);
+         }
+      }
+   }
+}
@@ -1,14 +1,18 @@
 package us.ihmc.commonWalkingControlModules.dynamicPlanning.comPlanning;
 
 import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
 import org.junit.jupiter.api.Test;
 import us.ihmc.commons.RandomNumbers;
 import us.ihmc.euclid.referenceFrame.FramePoint3D;
 import us.ihmc.euclid.referenceFrame.FrameVector3D;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.referenceFrame.interfaces.FrameVector3DReadOnly;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameRandomTools;
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
 import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.matrixlib.NativeCommonOps;
 import us.ihmc.robotics.time.TimeInterval;
 
 import java.util.Random;
@@ -24,6 +28,89 @@ public class ComTrajectoryPlannerTest extends CoMTrajectoryPlannerInterfaceTest
       return new CoMTrajectoryPlanner(gravityZ, nominalHeight, registry);
    }
 
+   @Test
+   public void testBandedSolveMatchesDenseSolve()
+   {
+      CoMTrajectoryPlanner planner = (CoMTrajectoryPlanner) createComTrajectoryPlanner();
+      Random random = new Random(4571L);
+
+      for (int iter = 0; iter < 50; iter++)
+      {
+         contactSequence.clear();
+
+         double currentStartTime = 0.0;
+         FramePoint3D currentCoPPosition = EuclidFrameRandomTools.nextFramePoint3D(random, ReferenceFrame.getWorldFrame(), 10.0);
+         int numberOfContacts = RandomNumbers.nextInt(random, 2, 15);
+
+         for (int contactIndex = 0; contactIndex < numberOfContacts; contactIndex++)
+         {
+            SettableContactStateProvider contactPhase = new SettableContactStateProvider();
+
+            // Flight phases are never consecutive, and the sequence ends in contact.
+            boolean isFlight = contactIndex < numberOfContacts - 1 && random.nextInt(3) == 0
+                               && (contactIndex == 0 || contactSequence.get(contactIndex - 1).getContactState().isLoadBearing());
+            double segmentDuration = isFlight ? RandomNumbers.nextDouble(random, 0.1, 0.4) : RandomNumbers.nextDouble(random, 0.1, 1.5);
+            contactPhase.setTimeInterval(new TimeInterval(currentStartTime, currentStartTime + segmentDuration));
+
+            if (isFlight)
+            {
+               contactPhase.setContactState(ContactState.FLIGHT);
+            }
+            else
+            {
+               contactPhase.setStartCopPosition(currentCoPPosition);
+               currentCoPPosition.add(EuclidFrameRandomTools.nextFrameVector3D(random, ReferenceFrame.getWorldFrame(), new Vector3D(1.0, 1.0, 0.0)));
+               contactPhase.setEndCopPosition(currentCoPPosition);
+            }
+
+            contactSequence.add(contactPhase);
+            currentStartTime += segmentDuration;
+         }
+
+         FramePoint3D comPosition = EuclidFrameRandomTools.nextFramePoint3D(random, ReferenceFrame.getWorldFrame(), 0.1);
+         comPosition.addZ(nominalHeight);
+         planner.setInitialCenterOfMassState(comPosition, EuclidFrameRandomTools.nextFrameVector3D(random, ReferenceFrame.getWorldFrame(), 0.2));
+         planner.solveForTrajectory(contactSequence);
+         assertCoefficientsMatchDenseSolve("iter = " + iter, planner);
+
+         // The first segment progresses, such that the solver reuses most of its previous decomposition.
+         SettableContactStateProvider firstPhase = (SettableContactStateProvider) contactSequence.get(0);
+         double firstStartTime = firstPhase.getTimeInterval().getStartTime();
+         firstPhase.setTimeInterval(new TimeInterval(firstStartTime, firstStartTime + 0.5 * firstPhase.getTimeInterval().getDuration()));
+         planner.solveForTrajectory(contactSequence);
+         assertCoefficientsMatchDenseSolve("iter = " + iter + ", after progressing", planner);
+      }
+   }
+
+   private static void assertCoefficientsMatchDenseSolve(String messagePrefix, CoMTrajectoryPlanner planner)
+   {
+      BandedMatrix bandedA = planner.coefficientMultipliers;
+      DMatrixRMaj A = new DMatrixRMaj(bandedA.getNumRows(), bandedA.getNumCols());
+      for (int row = 0; row < A.getNumRows(); row++)
+      {
+         for (int col = 0; col < A.getNumCols(); col++)
+            A.set(row, col, bandedA.get(row, col));
+      }
+
+      DMatrixRMaj AInverse = new DMatrixRMaj(A.getNumRows(), A.getNumCols());
+      NativeCommonOps.invert(A, AInverse);
+
+      assertSolutionEquals(messagePrefix + ", x", AInverse, planner.xEquivalents, planner.xCoefficientVector);
+      assertSolutionEquals(messagePrefix + ", y", AInverse, planner.yEquivalents, planner.yCoefficientVector);
+      assertSolutionEquals(messagePrefix + ", z", AInverse, planner.zEquivalents, planner.zCoefficientVector);
+   }
+
+   private static void assertSolutionEquals(String messagePrefix, DMatrixRMaj AInverse, DMatrixRMaj b, DMatrixRMaj actual)
+   {
+      DMatrixRMaj expected = new DMatrixRMaj(AInverse.getNumRows(), 1);
+      CommonOps_DDRM.mult(AInverse, b, expected);
+
+      assertEquals(messagePrefix + ", size", expected.getNumRows(), actual.getNumRows());
+      double tolerance = 1.0e-7 * (1.0 + CommonOps_DDRM.elementMaxAbs(expected));
+      for (int i = 0; i < expected.getNumRows(); i++)
+         assertEquals(messagePrefix + ", coefficient " + i, expected.get(i, 0), actual.get(i, 0), tolerance);
+   }
+
    @Test
    public void testStartingInFlight()
    {
@@ -0,0 +1,88 @@
+package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.RandomMatrices_DDRM;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolverWithInactiveVariables;
+import us.ihmc.matrixlib.MatrixTestTools;
+import us.ihmc.mecano.spatial.Wrench;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+public class InverseDynamicsQPSolverTest
+{
+   private static final int NUMBER_OF_DOFS = 12;
+   private static final int RHO_SIZE = 16;
+   private static final double EPSILON = 1.0e-8;
+
+   @Test
+   public void testSparseFormulationGivesSameSolution()
+   {
+      Random random = new Random(6734);
+
+      for (int iteration = 0; iteration < 50; iteration++)
+      {
+         DMatrixRMaj centroidalMomentumMatrix = RandomMatrices_DDRM.rectangle(Wrench.SIZE, NUMBER_OF_DOFS, -1.0, 1.0, random);
+         DMatrixRMaj rhoJacobian = nextSparseMatrix(random, Wrench.SIZE, RHO_SIZE);
+         DMatrixRMaj convectiveTerm = RandomMatrices_DDRM.rectangle(Wrench.SIZE, 1, -1.0, 1.0, random);
+         DMatrixRMaj externalWrench = new DMatrixRMaj(Wrench.SIZE, 1);
+         DMatrixRMaj gravityWrench = RandomMatrices_DDRM.rectangle(Wrench.SIZE, 1, -1.0, 1.0, random);
+
+         DMatrixRMaj motionJacobian = nextSparseMatrix(random, 6, NUMBER_OF_DOFS);
+         DMatrixRMaj motionObjective = RandomMatrices_DDRM.rectangle(6, 1, -1.0, 1.0, random);
+         DMatrixRMaj otherMotionJacobian = nextSparseMatrix(random, 3, NUMBER_OF_DOFS);
+         DMatrixRMaj otherMotionObjective = RandomMatrices_DDRM.rectangle(3, 1, -1.0, 1.0, random);
+         DMatrixRMaj otherMotionWeight = RandomMatrices_DDRM.diagonal(3, 0.5, 5.0, random);
+         DMatrixRMaj torqueQddotJacobian = RandomMatrices_DDRM.rectangle(NUMBER_OF_DOFS, NUMBER_OF_DOFS, -1.0, 1.0, random);
+         DMatrixRMaj torqueRhoJacobian = nextSparseMatrix(random, NUMBER_OF_DOFS, RHO_SIZE);
+         DMatrixRMaj torqueObjective = RandomMatrices_DDRM.rectangle(NUMBER_OF_DOFS, 1, -1.0, 1.0, random);
+
+         DMatrixRMaj[] solutions = new DMatrixRMaj[2];
+
+         for (int i = 0; i < 2; i++)
+         {
+            InverseDynamicsQPSolver solver = new InverseDynamicsQPSolver(new SimpleEfficientActiveSetQPSolverWithInactiveVariables(),
+                                                                         NUMBER_OF_DOFS,
+                                                                         RHO_SIZE,
+                                                                         true,
+                                                                         0.004,
+                                                                         new YoRegistry("test"));
+            solver.setUseSparseFormulation(i == 1);
+            solver.reset();
+            solver.setMinRho(0.0);
+            solver.addMotionTask(motionJacobian, motionObjective, 10.0);
+            solver.addMotionTask(otherMotionJacobian, otherMotionObjective, otherMotionWeight);
+            solver.addTorqueMinimizationObjective(torqueQddotJacobian, torqueRhoJacobian, torqueObjective);
+            solver.setupWrenchesEquilibriumConstraint(centroidalMomentumMatrix, rhoJacobian, convectiveTerm, externalWrench, gravityWrench);
+            assertTrue(solver.solve());
+
+            solutions[i] = new DMatrixRMaj(NUMBER_OF_DOFS + RHO_SIZE, 1);
+            CommonOps_DDRM.insert(solver.getJointAccelerations(), solutions[i], 0, 0);
+            CommonOps_DDRM.insert(solver.getRhos(), solutions[i], NUMBER_OF_DOFS, 0);
+         }
+
+         MatrixTestTools.assertMatrixEquals(solutions[0], solutions[1], EPSILON);
+      }
+   }
+
+   private static DMatrixRMaj nextSparseMatrix(Random random, int numberOfRows, int numberOfColumns)
+   {
+      DMatrixRMaj matrix = RandomMatrices_DDRM.rectangle(numberOfRows, numberOfColumns, -1.0, 1.0, random);
+
+      for (int col = 0; col < numberOfColumns; col++)
+      {
+         if (random.nextBoolean())
+         {
+            for (int row = 0; row < numberOfRows; row++)
+               matrix.set(row, col, 0.0);
+         }
+      }
+
+      return matrix;
+   }
+}
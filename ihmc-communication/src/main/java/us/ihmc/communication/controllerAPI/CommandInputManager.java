@@ -1,11 +1,17 @@
 package us.ihmc.communication.controllerAPI;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 import us.ihmc.commons.lists.RecyclingArrayList;
 import us.ihmc.communication.controllerAPI.MessageUnpackingTools.MessageUnpacker;
@@ -37,28 +43,57 @@ import us.ihmc.log.LogTools;
  */
 public class CommandInputManager
 {
+   /**
+    * Maximum number of threads that get their own buffers. Any additional thread submits through a
+    * single shared producer that is guarded by a lock.
+    */
+   public static final int MAXIMUM_NUMBER_OF_PRODUCERS = 16;
+
    private final String printStatementPrefix;
    private final int buffersCapacity;
 
    /**
-    * List of all the buffers that allows the user to easily flush all new commands using
-    * {@link #clearAllCommands()}. These buffers CANNOT be visible or accessed from outside this
-    * class.
+    * Registered command types indexed by their integer id. The id of a command type is the index at
+    * which it was registered and is used to index the per-producer buffers without hashing.
     */
-   private final List<ConcurrentRingBuffer<?>> allBuffers = new ArrayList<>();
+   private final List<CommandType<?>> commandTypes = new ArrayList<>();
+   /** Map from the registered commands to their type. Only modified at construction. */
+   private final Map<Class<? extends Command<?, ?>>, CommandType<?>> commandClassToTypeMap = new HashMap<>();
+   /** Map from the registered messages to their type. Only modified at construction. */
+   private final Map<Class<? extends Settable<?>>, CommandType<?>> messageClassToTypeMap = new HashMap<>();
    /**
-    * Map from the registered commands to their associated buffer. These buffers CANNOT be visible
-    * or accessed from outside this class.
+    * Type of each submitted message class, resolved from {@link #messageClassToTypeMap} the first time
+    * a class is submitted and then cached in the class itself, such that submitting a message does not
+    * hash its class. The value is {@code null} for the classes that are not registered.
     */
-   private final Map<Class<? extends Command<?, ?>>, ConcurrentRingBuffer<? extends Command<?, ?>>> commandClassToBufferMap = new HashMap<>();
+   private final ClassValue<CommandType<?>> messageClassToType = new ClassValue<CommandType<?>>()
+   {
+      @Override
+      protected CommandType<?> computeValue(Class<?> messageClass)
+      {
+         return messageClassToTypeMap.get(messageClass);
+      }
+   };
+
    /**
-    * Map from the registered messages to their associated buffer. These buffers CANNOT be visible
-    * or accessed from outside this class.
+    * The {@link ConcurrentRingBuffer} only supports a single producer, so each thread submitting
+    * inputs gets its own set of buffers. These buffers CANNOT be visible or accessed from outside
+    * this class.
+    * <p>
+    * Producers are only added by the submitting threads and only removed by the controller thread,
+    * once their thread has terminated and their buffers have been emptied.
+    * </p>
     */
-   private final Map<Class<? extends Settable<?>>, ConcurrentRingBuffer<? extends Command<?, ?>>> messageClassToBufferMap = new HashMap<>();
+   private final List<CommandProducer> producers = new CopyOnWriteArrayList<>();
+   private final ThreadLocal<CommandProducer> threadLocalProducer = ThreadLocal.withInitial(this::createProducer);
+   /** Used by the threads submitting inputs once {@link #MAXIMUM_NUMBER_OF_PRODUCERS} is reached. */
+   private CommandProducer sharedProducer = null;
+   /** Used to stamp the submitted commands such that the commands from different producers can be polled in order. */
+   private final AtomicLong sequenceNumberGenerator = new AtomicLong();
 
-   /** Controller's copy of the new commands to be processed. */
-   private final Map<Class<? extends Command<?, ?>>, RecyclingArrayList<? extends Command<?, ?>>> commandsMap = new HashMap<>();
+   /** Controller side buffers used to merge the commands from the different producers. */
+   private CommandHolder<?>[] producerHeads = new CommandHolder<?>[0];
+   private ConcurrentRingBuffer<?>[] polledBuffers = new ConcurrentRingBuffer<?>[0];
 
    /** Exhaustive list of all the supported commands that this API can process. */
    private final List<Class<? extends Command<?, ?>>> listOfSupportedCommands = new ArrayList<>();
@@ -75,9 +110,7 @@ public class CommandInputManager
     * Protocols for unpacking certain types of messages. These messages do not have to be registered
     * at construction time.
     */
-   private final Map<Class<? extends Settable<?>>, MessageUnpacker<? extends Settable<?>>> messageUnpackers = new HashMap<>();
-   /** Buffer used to unpack messages without making garbage. */
-   private final List<Settable<?>> unpackedMessages = new ArrayList<>();
+   private final Map<Class<? extends Settable<?>>, Supplier<? extends MessageUnpacker<?>>> messageUnpackerFactories = new ConcurrentHashMap<>();
 
    /**
     * Only constructor to build a new API. No new constructors will be tolerated.
@@ -107,7 +140,8 @@ public class CommandInputManager
     * @param name name used when printing statements. It should preferably be unique to distinguish
     *           the different modules using this class.
     * @param commandsToRegister list of the commands that this API should support.
-    * @param buffersCapacity the capacity of the internal buffers, should be a power of 2.
+    * @param buffersCapacity the capacity of the internal buffers, should be a power of 2. Each
+    *           thread submitting inputs gets its own buffers of this capacity.
     */
    public CommandInputManager(String name, List<Class<? extends Command<?, ?>>> commandsToRegister, int buffersCapacity)
    {
@@ -129,14 +163,18 @@ public class CommandInputManager
 
    /**
     * Registers a protocol for unpacking a certain of message.
+    * <p>
+    * The unpackers reuse their output messages, so each thread submitting inputs gets its own
+    * unpacker created with {@code messageUnpackerFactory}.
+    * </p>
     * 
     * @param messageClass the type of messages that holds onto multiple messages which should be
     *           unpacked at reception.
-    * @param messageUnpacker the protocol for unpacking the message.
+    * @param messageUnpackerFactory creates the protocol for unpacking the message.
     */
-   public <T extends Settable<T>> void registerMessageUnpacker(Class<T> messageClass, MessageUnpacker<T> messageUnpacker)
+   public <T extends Settable<T>> void registerMessageUnpacker(Class<T> messageClass, Supplier<? extends MessageUnpacker<T>> messageUnpackerFactory)
    {
-      messageUnpackers.put(messageClass, messageUnpacker);
+      messageUnpackerFactories.put(messageClass, messageUnpackerFactory);
    }
 
    /**
@@ -159,13 +197,12 @@ public class CommandInputManager
    private <C extends Command<C, M>, M extends Settable<M>> void registerNewCommand(Class<C> commandClass)
    {
       Builder<C> builer = createBuilderWithEmptyConstructor(commandClass);
-      ConcurrentRingBuffer<C> newBuffer = new ConcurrentRingBuffer<>(builer, buffersCapacity);
-      allBuffers.add(newBuffer);
       // This is retarded, but I could not find another way that is more elegant.
       Class<M> messageClass = builer.newInstance().getMessageClass();
-      commandClassToBufferMap.put(commandClass, newBuffer);
-      messageClassToBufferMap.put(messageClass, newBuffer);
-      commandsMap.put(commandClass, new RecyclingArrayList<>(buffersCapacity, commandClass));
+      CommandType<C> commandType = new CommandType<>(commandTypes.size(), commandClass, builer, buffersCapacity);
+      commandTypes.add(commandType);
+      commandClassToTypeMap.put(commandClass, commandType);
+      messageClassToTypeMap.put(messageClass, commandType);
 
       listOfSupportedCommands.add(commandClass);
       listOfSupportedMessages.add(messageClass);
@@ -176,6 +213,33 @@ public class CommandInputManager
       hasReceivedInputListeners.add(hasReceivedInputListener);
    }
 
+   /**
+    * Called the first time a thread submits an input. The new producer is from then on polled by
+    * the controller until the thread terminates.
+    */
+   private CommandProducer createProducer()
+   {
+      synchronized (producers)
+      {
+         if (producers.size() < MAXIMUM_NUMBER_OF_PRODUCERS)
+         {
+            CommandProducer producer = new CommandProducer(Thread.currentThread(), commandTypes.size(), printStatementPrefix, buffersCapacity);
+            producers.add(producer);
+            return producer;
+         }
+
+         if (sharedProducer == null)
+         {
+            LogTools.warn("{}More than {} threads are submitting inputs, additional threads share a synchronized producer.",
+                          printStatementPrefix,
+                          MAXIMUM_NUMBER_OF_PRODUCERS);
+            sharedProducer = new CommandProducer(null, commandTypes.size(), printStatementPrefix, buffersCapacity);
+            producers.add(sharedProducer);
+         }
+         return sharedProducer;
+      }
+   }
+
    /**
     * Submit a new {@link Packet} to be processed by the controller. This method can be called from
     * any thread. The message is first copied locally and only the copy will be visible for the
@@ -186,11 +250,23 @@ public class CommandInputManager
     */
    public <M extends Settable<M>> void submitMessage(M message)
    {
-      submitMessageInternal(message);
+      CommandProducer producer = threadLocalProducer.get();
+
+      if (producer.isShared())
+      {
+         synchronized (producer)
+         {
+            submitMessageInternal(producer, message);
+         }
+      }
+      else
+      {
+         submitMessageInternal(producer, message);
+      }
    }
 
    @SuppressWarnings({"unchecked", "rawtypes"})
-   private void submitMessageInternal(Settable message)
+   private void submitMessageInternal(CommandProducer producer, Settable message)
    {
       if (message == null)
       {
@@ -198,43 +274,50 @@ public class CommandInputManager
          return;
       }
 
-      MessageUnpacker messageUnpacker = messageUnpackers.get(message.getClass());
+      Supplier<? extends MessageUnpacker<?>> messageUnpackerFactory = messageUnpackerFactories.get(message.getClass());
 
-      if (messageUnpacker != null)
+      if (messageUnpackerFactory != null)
       {
+         MessageUnpacker messageUnpacker = producer.getOrCreateMessageUnpacker(message.getClass(), messageUnpackerFactory);
+         List<Settable<?>> unpackedMessages = producer.unpackedMessages;
+         int numberOfPendingMessages = unpackedMessages.size();
          messageUnpacker.unpackMessage(message, unpackedMessages);
 
-         while (!unpackedMessages.isEmpty())
+         while (unpackedMessages.size() > numberOfPendingMessages)
          {
-            submitMessageInternal(unpackedMessages.remove(unpackedMessages.size() - 1));
+            submitMessageInternal(producer, unpackedMessages.remove(unpackedMessages.size() - 1));
          }
          return;
       }
 
-      ConcurrentRingBuffer buffer = messageClassToBufferMap.get(message.getClass());
-      if (buffer == null)
+      CommandType<?> commandType = messageClassToType.get(message.getClass());
+      if (commandType == null)
       {
          LogTools.error("{}The message type {} is not supported.", printStatementPrefix, message.getClass().getSimpleName());
          return;
       }
-      Command nextCommand = (Command) buffer.next();
-      if (nextCommand == null)
+
+      ConcurrentRingBuffer<? extends CommandHolder<?>> buffer = producer.getOrCreateBuffer(commandType);
+      CommandHolder<?> nextHolder = buffer.next();
+      if (nextHolder == null)
       {
+         commandType.numberOfDroppedCommands.incrementAndGet();
          LogTools.warn("{}The buffer for the message: {} is full. Message ignored.", printStatementPrefix, message.getClass().getSimpleName());
          return;
       }
 
-      Class<?> commandClass = nextCommand.getClass();
+      Command nextCommand = nextHolder.command;
 
       if (!performCustomConversion(message, nextCommand))
       {
          nextCommand.setFromMessage(message);
       }
 
+      nextHolder.sequenceNumber = sequenceNumberGenerator.getAndIncrement();
       buffer.commit();
 
       for (int i = 0; i < hasReceivedInputListeners.size(); i++)
-         hasReceivedInputListeners.get(i).hasReceivedInput((Class<? extends Command<?, ?>>) commandClass);
+         hasReceivedInputListeners.get(i).hasReceivedInput(commandType.commandClass);
    }
 
    /**
@@ -286,30 +369,50 @@ public class CommandInputManager
     * 
     * @param command command to be submitted to the controller.
     */
-   @SuppressWarnings("unchecked")
    public <C extends Command<C, ?>> void submitCommand(C command)
+   {
+      CommandProducer producer = threadLocalProducer.get();
+
+      if (producer.isShared())
+      {
+         synchronized (producer)
+         {
+            submitCommandInternal(producer, command);
+         }
+      }
+      else
+      {
+         submitCommandInternal(producer, command);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private <C extends Command<C, ?>> void submitCommandInternal(CommandProducer producer, C command)
    {
       if (!command.isCommandValid())
          return;
 
-      ConcurrentRingBuffer<? extends Command<?, ?>> buffer = commandClassToBufferMap.get(command.getClass());
-      if (buffer == null)
+      CommandType<C> commandType = (CommandType<C>) commandClassToTypeMap.get(command.getClass());
+      if (commandType == null)
       {
          LogTools.error("{}The command type {} is not supported.", printStatementPrefix, command.getClass().getSimpleName());
          return;
       }
 
-      Command<C, ?> nextModifiableMessage = (Command<C, ?>) buffer.next();
-      if (nextModifiableMessage == null)
+      ConcurrentRingBuffer<CommandHolder<C>> buffer = producer.getOrCreateBuffer(commandType);
+      CommandHolder<C> nextHolder = buffer.next();
+      if (nextHolder == null)
       {
+         commandType.numberOfDroppedCommands.incrementAndGet();
          LogTools.warn("{}The buffer for the command: {} is full. Command ignored.", printStatementPrefix, command.getClass().getSimpleName());
          return;
       }
-      nextModifiableMessage.set(command);
+      nextHolder.command.set(command);
+      nextHolder.sequenceNumber = sequenceNumberGenerator.getAndIncrement();
       buffer.commit();
 
       for (int i = 0; i < hasReceivedInputListeners.size(); i++)
-         hasReceivedInputListeners.get(i).hasReceivedInput((Class<? extends Command<?, ?>>) command.getClass());
+         hasReceivedInputListeners.get(i).hasReceivedInput(commandType.commandClass);
    }
 
    /**
@@ -329,9 +432,9 @@ public class CommandInputManager
 
    public boolean isNewCommandAvailable()
    {
-      for (int i = 0; i < allBuffers.size(); i++)
+      for (int i = 0; i < commandTypes.size(); i++)
       {
-         if (allBuffers.get(i).poll())
+         if (isNewCommandAvailable(commandTypes.get(i)))
             return true;
       }
       return false;
@@ -345,7 +448,18 @@ public class CommandInputManager
     */
    public boolean isNewCommandAvailable(Class<? extends Command<?, ?>> commandClassToCheck)
    {
-      return commandClassToBufferMap.get(commandClassToCheck).poll();
+      return isNewCommandAvailable(commandClassToTypeMap.get(commandClassToCheck));
+   }
+
+   private boolean isNewCommandAvailable(CommandType<?> commandType)
+   {
+      for (int i = 0; i < producers.size(); i++)
+      {
+         ConcurrentRingBuffer<?> buffer = producers.get(i).getBuffer(commandType.id);
+         if (buffer != null && buffer.poll())
+            return true;
+      }
+      return false;
    }
 
    /**
@@ -363,8 +477,8 @@ public class CommandInputManager
     */
    public void clearAllCommands()
    {
-      for (int i = 0; i < allBuffers.size(); i++)
-         clearBuffer(allBuffers.get(i));
+      for (int i = 0; i < commandTypes.size(); i++)
+         clearCommands(commandTypes.get(i));
    }
 
    /**
@@ -386,7 +500,19 @@ public class CommandInputManager
     */
    public <C extends Command<C, ?>> void clearCommands(Class<C> commandClassToClear)
    {
-      clearBuffer(commandClassToBufferMap.get(commandClassToClear));
+      clearCommands(commandClassToTypeMap.get(commandClassToClear));
+   }
+
+   private void clearCommands(CommandType<?> commandType)
+   {
+      for (int i = 0; i < producers.size(); i++)
+      {
+         ConcurrentRingBuffer<?> buffer = producers.get(i).getBuffer(commandType.id);
+         if (buffer != null)
+            clearBuffer(buffer);
+      }
+
+      removeTerminatedProducers();
    }
 
    /**
@@ -404,6 +530,10 @@ public class CommandInputManager
    /**
     * Poll all the new available commands. After calling this method, no new command will be
     * available.
+    * <p>
+    * When several threads submitted commands of the same type, the commands are sorted in the order
+    * they were submitted.
+    * </p>
     * 
     * @param commandClassToPoll Used to know what type of command is to be polled.
     * @return the new commands to be processed stored in a list, returns an empty list if there is
@@ -412,10 +542,107 @@ public class CommandInputManager
    @SuppressWarnings("unchecked")
    public <C extends Command<C, ?>> List<C> pollNewCommands(Class<C> commandClassToPoll)
    {
-      RecyclingArrayList<C> commands = (RecyclingArrayList<C>) commandsMap.get(commandClassToPoll);
-      ConcurrentRingBuffer<C> buffer = (ConcurrentRingBuffer<C>) commandClassToBufferMap.get(commandClassToPoll);
-      pollNewCommands(buffer, commands);
-      return commands;
+      CommandType<C> commandType = (CommandType<C>) commandClassToTypeMap.get(commandClassToPoll);
+      pollNewCommands(commandType);
+      return commandType.commands;
+   }
+
+   /**
+    * This method has to remain private. Reads all the new available commands of the given type from
+    * the buffers of every producer and copy them in {@code commandType.commands} in the order they
+    * were submitted.
+    * 
+    * @param commandType the type of the commands to poll.
+    */
+   @SuppressWarnings("unchecked")
+   private <C extends Command<C, ?>> void pollNewCommands(CommandType<C> commandType)
+   {
+      RecyclingArrayList<C> commandsToPack = commandType.commands;
+      commandsToPack.clear();
+
+      int numberOfProducers = producers.size();
+
+      if (producerHeads.length < numberOfProducers)
+      {
+         producerHeads = new CommandHolder<?>[numberOfProducers];
+         polledBuffers = new ConcurrentRingBuffer<?>[numberOfProducers];
+      }
+
+      int numberOfPolledBuffers = 0;
+
+      for (int i = 0; i < numberOfProducers; i++)
+      {
+         ConcurrentRingBuffer<CommandHolder<C>> buffer = (ConcurrentRingBuffer<CommandHolder<C>>) producers.get(i).getBuffer(commandType.id);
+
+         if (buffer != null && buffer.poll())
+         {
+            CommandHolder<C> head = buffer.read();
+
+            if (head == null)
+            {
+               buffer.flush();
+               continue;
+            }
+
+            polledBuffers[numberOfPolledBuffers] = buffer;
+            producerHeads[numberOfPolledBuffers] = head;
+            numberOfPolledBuffers++;
+         }
+      }
+
+      if (numberOfPolledBuffers == 0)
+      {
+         removeTerminatedProducers();
+         return;
+      }
+
+      // Each buffer is already sorted, only need to merge them.
+      while (true)
+      {
+         int oldestIndex = -1;
+
+         for (int i = 0; i < numberOfPolledBuffers; i++)
+         {
+            CommandHolder<?> head = producerHeads[i];
+            if (head != null && (oldestIndex == -1 || head.sequenceNumber < producerHeads[oldestIndex].sequenceNumber))
+               oldestIndex = i;
+         }
+
+         if (oldestIndex == -1)
+            break;
+
+         C command = (C) producerHeads[oldestIndex].command;
+         commandsToPack.add().set(command);
+         command.clear();
+         producerHeads[oldestIndex] = (CommandHolder<?>) polledBuffers[oldestIndex].read();
+      }
+
+      for (int i = 0; i < numberOfPolledBuffers; i++)
+      {
+         polledBuffers[i].flush();
+         polledBuffers[i] = null;
+      }
+
+      commandType.lastQueueOccupancy = commandsToPack.size();
+      commandType.maximumQueueOccupancy = Math.max(commandType.maximumQueueOccupancy, commandsToPack.size());
+
+      removeTerminatedProducers();
+   }
+
+   /**
+    * This method has to remain private and only be called from the controller thread. Removes the
+    * producers whose thread has terminated once all their commands have been consumed such that
+    * the list of producers does not grow with short-lived threads.
+    */
+   private void removeTerminatedProducers()
+   {
+      for (int i = producers.size() - 1; i >= 0; i--)
+      {
+         CommandProducer producer = producers.get(i);
+
+         if (producer.isTerminated() && !producer.hasPendingCommands())
+            producers.remove(i);
+      }
    }
 
    /**
@@ -437,27 +664,59 @@ public class CommandInputManager
    }
 
    /**
-    * This method has to remain private. Reads all the new available commands from a buffer and copy
-    * them in a list.
+    * Gets the number of commands of the given type that were ignored because the buffer of the
+    * submitting thread was full.
     * 
-    * @param buffer Buffer in which the new available commands are stored.
-    * @param commandsToPack Used to copy and store all the new available commands. This list will be
-    *           empty is there is no new available command.
+    * @param commandClass the type of command to get the metric of.
+    * @return the number of dropped commands since the creation of this API.
     */
-   private static <C extends Command<C, ?>> void pollNewCommands(ConcurrentRingBuffer<C> buffer, RecyclingArrayList<C> commandsToPack)
+   public long getNumberOfDroppedCommands(Class<? extends Command<?, ?>> commandClass)
    {
-      commandsToPack.clear();
+      return commandClassToTypeMap.get(commandClass).numberOfDroppedCommands.get();
+   }
 
-      if (buffer.poll())
-      {
-         C command;
-         while ((command = buffer.read()) != null)
-         {
-            commandsToPack.add().set(command);
-            command.clear();
-         }
-         buffer.flush();
-      }
+   /**
+    * @return the total number of commands that were ignored because a buffer was full.
+    */
+   public long getNumberOfDroppedCommands()
+   {
+      long numberOfDroppedCommands = 0;
+      for (int i = 0; i < commandTypes.size(); i++)
+         numberOfDroppedCommands += commandTypes.get(i).numberOfDroppedCommands.get();
+      return numberOfDroppedCommands;
+   }
+
+   /**
+    * Gets the number of commands of the given type that were read during the last poll. This method
+    * should only be called from the controller thread.
+    * 
+    * @param commandClass the type of command to get the metric of.
+    * @return the queue occupancy at the last poll.
+    */
+   public int getLastQueueOccupancy(Class<? extends Command<?, ?>> commandClass)
+   {
+      return commandClassToTypeMap.get(commandClass).lastQueueOccupancy;
+   }
+
+   /**
+    * Gets the largest number of commands of the given type that were read in a single poll. This
+    * method should only be called from the controller thread.
+    * 
+    * @param commandClass the type of command to get the metric of.
+    * @return the maximum queue occupancy since the creation of this API.
+    */
+   public int getMaximumQueueOccupancy(Class<? extends Command<?, ?>> commandClass)
+   {
+      return commandClassToTypeMap.get(commandClass).maximumQueueOccupancy;
+   }
+
+   /**
+    * @return the number of producers currently polled by the controller, i.e. the threads that have
+    *         submitted inputs to this API and either are still alive or have unread inputs.
+    */
+   public int getNumberOfProducers()
+   {
+      return producers.size();
    }
 
    /**
@@ -520,6 +779,141 @@ public class CommandInputManager
       return listOfSupportedMessages;
    }
 
+   /**
+    * Holds onto the precomputed information for a registered command type.
+    */
+   private static class CommandType<C extends Command<C, ?>>
+   {
+      private final int id;
+      private final Class<? extends Command<?, ?>> commandClass;
+      private final Builder<CommandHolder<C>> holderBuilder;
+      /** Controller's copy of the new commands to be processed. */
+      private final RecyclingArrayList<C> commands;
+      private final AtomicLong numberOfDroppedCommands = new AtomicLong();
+      private int lastQueueOccupancy = 0;
+      private int maximumQueueOccupancy = 0;
+
+      private CommandType(int id, Class<C> commandClass, Builder<C> commandBuilder, int buffersCapacity)
+      {
+         this.id = id;
+         this.commandClass = commandClass;
+         holderBuilder = new Builder<CommandHolder<C>>()
+         {
+            @Override
+            public CommandHolder<C> newInstance()
+            {
+               return new CommandHolder<>(commandBuilder.newInstance());
+            }
+         };
+         commands = new RecyclingArrayList<>(buffersCapacity, commandClass);
+      }
+   }
+
+   /**
+    * Element of the buffers, the sequence number is used to retrieve the submission order across
+    * producers.
+    */
+   private static class CommandHolder<C extends Command<C, ?>>
+   {
+      private final C command;
+      private long sequenceNumber;
+
+      private CommandHolder(C command)
+      {
+         this.command = command;
+      }
+   }
+
+   /**
+    * The buffers used by a single thread to submit inputs. The buffers are created lazily the first
+    * time the thread submits a command of a given type.
+    * <p>
+    * This class is static such that the thread-local reference to a producer does not keep the
+    * {@link CommandInputManager} reachable.
+    * </p>
+    */
+   private static class CommandProducer
+   {
+      /** The thread owning this producer, {@code null} for the shared producer. */
+      private final WeakReference<Thread> owner;
+      private final String threadName;
+      private final String printStatementPrefix;
+      private final int buffersCapacity;
+      private final AtomicReferenceArray<ConcurrentRingBuffer<? extends CommandHolder<?>>> buffers;
+      /** The unpackers of this producer, they reuse their output messages and cannot be shared by two threads. */
+      private final Map<Class<?>, MessageUnpacker<?>> messageUnpackers = new HashMap<>();
+      /** Buffer used to unpack messages without making garbage. */
+      private final List<Settable<?>> unpackedMessages = new ArrayList<>();
+
+      private CommandProducer(Thread owner, int numberOfCommandTypes, String printStatementPrefix, int buffersCapacity)
+      {
+         this.owner = owner == null ? null : new WeakReference<>(owner);
+         threadName = owner == null ? "shared" : owner.getName();
+         this.printStatementPrefix = printStatementPrefix;
+         this.buffersCapacity = buffersCapacity;
+         buffers = new AtomicReferenceArray<>(numberOfCommandTypes);
+      }
+
+      private boolean isShared()
+      {
+         return owner == null;
+      }
+
+      private boolean isTerminated()
+      {
+         if (owner == null)
+            return false;
+
+         Thread thread = owner.get();
+         return thread == null || !thread.isAlive();
+      }
+
+      /** Should only be called from the controller thread. */
+      private boolean hasPendingCommands()
+      {
+         for (int i = 0; i < buffers.length(); i++)
+         {
+            ConcurrentRingBuffer<?> buffer = buffers.get(i);
+            if (buffer != null && buffer.poll())
+               return true;
+         }
+         return false;
+      }
+
+      private MessageUnpacker<?> getOrCreateMessageUnpacker(Class<?> messageClass, Supplier<? extends MessageUnpacker<?>> messageUnpackerFactory)
+      {
+         MessageUnpacker<?> messageUnpacker = messageUnpackers.get(messageClass);
+
+         if (messageUnpacker == null)
+         {
+            messageUnpacker = messageUnpackerFactory.get();
+            messageUnpackers.put(messageClass, messageUnpacker);
+         }
+
+         return messageUnpacker;
+      }
+
+      private ConcurrentRingBuffer<? extends CommandHolder<?>> getBuffer(int commandTypeId)
+      {
+         return buffers.get(commandTypeId);
+      }
+
+      @SuppressWarnings("unchecked")
+      private <C extends Command<C, ?>> ConcurrentRingBuffer<CommandHolder<C>> getOrCreateBuffer(CommandType<C> commandType)
+      {
+         ConcurrentRingBuffer<CommandHolder<C>> buffer = (ConcurrentRingBuffer<CommandHolder<C>>) getBuffer(commandType.id);
+
+         if (buffer == null)
+         {
+            LogTools.debug("{}Creating buffer for {} on thread {}.", printStatementPrefix, commandType.commandClass.getSimpleName(), threadName);
+            buffer = new ConcurrentRingBuffer<>(commandType.holderBuilder, buffersCapacity);
+            buffers.set(commandType.id, buffer);
+         }
+
+         return buffer;
+      }
+   }
+
    /**
     * Use this interface to get notified when this API has received a new valid command.
     */
@@ -0,0 +1,282 @@
+package us.ihmc.communication.controllerAPI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import controller_msgs.msg.dds.AbortWalkingMessage;
+import us.ihmc.communication.controllerAPI.command.Command;
+import us.ihmc.euclid.interfaces.Settable;
+
+public class CommandInputManagerTest
+{
+   @Test
+   public void testSubmitFromMultipleThreads() throws InterruptedException
+   {
+      int numberOfThreads = 4;
+      int commandsPerThread = 8;
+      CommandInputManager commandInputManager = new CommandInputManager("test", Collections.singletonList(SequenceCommand.class), 16);
+
+      CountDownLatch startLatch = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+
+      for (int threadIndex = 0; threadIndex < numberOfThreads; threadIndex++)
+      {
+         int producerId = threadIndex;
+         Thread thread = new Thread(() ->
+         {
+            try
+            {
+               startLatch.await();
+            }
+            catch (InterruptedException e)
+            {
+               throw new RuntimeException(e);
+            }
+
+            SequenceCommand command = new SequenceCommand();
+            for (int i = 0; i < commandsPerThread; i++)
+            {
+               command.producerId = producerId;
+               command.value = i;
+               commandInputManager.submitCommand(command);
+            }
+         });
+         threads.add(thread);
+         thread.start();
+      }
+
+      startLatch.countDown();
+      for (Thread thread : threads)
+         thread.join();
+
+      assertEquals(numberOfThreads, commandInputManager.getNumberOfProducers());
+      assertTrue(commandInputManager.isNewCommandAvailable(SequenceCommand.class));
+
+      List<SequenceCommand> commands = commandInputManager.pollNewCommands(SequenceCommand.class);
+      assertEquals(numberOfThreads * commandsPerThread, commands.size());
+      assertEquals(0, commandInputManager.getNumberOfDroppedCommands());
+      assertEquals(numberOfThreads * commandsPerThread, commandInputManager.getLastQueueOccupancy(SequenceCommand.class));
+
+      // The commands from a given thread have to come out in the order they were submitted.
+      int[] lastValues = new int[numberOfThreads];
+      for (int i = 0; i < numberOfThreads; i++)
+         lastValues[i] = -1;
+
+      for (SequenceCommand command : commands)
+      {
+         assertEquals(lastValues[command.producerId] + 1, command.value);
+         lastValues[command.producerId] = command.value;
+      }
+
+      assertFalse(commandInputManager.isNewCommandAvailable());
+   }
+
+   @Test
+   public void testDroppedCommandsAndNewestCommand()
+   {
+      int capacity = 4;
+      CommandInputManager commandInputManager = new CommandInputManager("test", Collections.singletonList(SequenceCommand.class), capacity);
+
+      SequenceCommand command = new SequenceCommand();
+      int numberOfCommands = 2 * capacity;
+      for (int i = 0; i < numberOfCommands; i++)
+      {
+         command.value = i;
+         commandInputManager.submitCommand(command);
+      }
+
+      long numberOfDroppedCommands = commandInputManager.getNumberOfDroppedCommands(SequenceCommand.class);
+      assertTrue(numberOfDroppedCommands > 0);
+      // The newest commands are the ones being dropped.
+      int numberOfQueuedCommands = (int) (numberOfCommands - numberOfDroppedCommands);
+      assertEquals(numberOfQueuedCommands - 1, commandInputManager.pollNewestCommand(SequenceCommand.class).value);
+      assertEquals(numberOfQueuedCommands, commandInputManager.getMaximumQueueOccupancy(SequenceCommand.class));
+
+      commandInputManager.submitCommand(command);
+      commandInputManager.clearAllCommands();
+      assertFalse(commandInputManager.isNewCommandAvailable());
+      assertTrue(commandInputManager.pollNewCommands(SequenceCommand.class).isEmpty());
+   }
+
+   @Test
+   public void testTerminatedProducersAreRemoved() throws InterruptedException
+   {
+      CommandInputManager commandInputManager = new CommandInputManager("test", Collections.singletonList(SequenceCommand.class), 16);
+
+      for (int threadIndex = 0; threadIndex < 3 * CommandInputManager.MAXIMUM_NUMBER_OF_PRODUCERS; threadIndex++)
+      {
+         int value = threadIndex;
+         Thread thread = new Thread(() ->
+         {
+            SequenceCommand command = new SequenceCommand();
+            command.value = value;
+            commandInputManager.submitCommand(command);
+         });
+         thread.start();
+         thread.join();
+
+         // The producer of a terminated thread is kept until its commands have been polled.
+         assertEquals(1, commandInputManager.getNumberOfProducers());
+         assertEquals(value, commandInputManager.pollNewestCommand(SequenceCommand.class).value);
+         assertEquals(0, commandInputManager.getNumberOfProducers());
+      }
+   }
+
+   @Test
+   public void testNumberOfProducersIsBounded() throws InterruptedException
+   {
+      int numberOfThreads = CommandInputManager.MAXIMUM_NUMBER_OF_PRODUCERS + 4;
+      CommandInputManager commandInputManager = new CommandInputManager("test", Collections.singletonList(SequenceCommand.class), 16);
+
+      CountDownLatch submittedLatch = new CountDownLatch(numberOfThreads);
+      CountDownLatch terminateLatch = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+
+      for (int threadIndex = 0; threadIndex < numberOfThreads; threadIndex++)
+      {
+         int value = threadIndex;
+         Thread thread = new Thread(() ->
+         {
+            SequenceCommand command = new SequenceCommand();
+            command.value = value;
+            commandInputManager.submitCommand(command);
+            submittedLatch.countDown();
+
+            try
+            {
+               terminateLatch.await();
+            }
+            catch (InterruptedException e)
+            {
+               throw new RuntimeException(e);
+            }
+         });
+         threads.add(thread);
+         thread.start();
+      }
+
+      submittedLatch.await();
+      // The threads in excess share a single producer.
+      assertEquals(CommandInputManager.MAXIMUM_NUMBER_OF_PRODUCERS + 1, commandInputManager.getNumberOfProducers());
+      assertEquals(numberOfThreads, commandInputManager.pollNewCommands(SequenceCommand.class).size());
+      assertEquals(0, commandInputManager.getNumberOfDroppedCommands());
+
+      terminateLatch.countDown();
+      for (Thread thread : threads)
+         thread.join();
+
+      commandInputManager.clearAllCommands();
+      assertEquals(1, commandInputManager.getNumberOfProducers());
+   }
+
+   @Test
+   public void testMessageUnpackerPerThread() throws InterruptedException
+   {
+      int numberOfThreads = 4;
+      int messagesPerThread = 4;
+      CommandInputManager commandInputManager = new CommandInputManager("test", Collections.singletonList(SequenceCommand.class), 16);
+      AtomicInteger numberOfUnpackers = new AtomicInteger();
+      commandInputManager.registerMessageUnpacker(MultipleMessageHolder.class, () ->
+      {
+         numberOfUnpackers.incrementAndGet();
+         AbortWalkingMessage unpackedMessage = new AbortWalkingMessage();
+
+         return (multipleMessageHolder, messagesToPack) ->
+         {
+            unpackedMessage.setSequenceId(multipleMessageHolder.sequenceId);
+            messagesToPack.add(unpackedMessage);
+         };
+      });
+
+      List<Thread> threads = new ArrayList<>();
+
+      for (int threadIndex = 0; threadIndex < numberOfThreads; threadIndex++)
+      {
+         Thread thread = new Thread(() ->
+         {
+            MultipleMessageHolder message = new MultipleMessageHolder();
+            for (int i = 0; i < messagesPerThread; i++)
+            {
+               message.sequenceId = i;
+               commandInputManager.submitMessage(message);
+            }
+         });
+         threads.add(thread);
+         thread.start();
+      }
+
+      for (Thread thread : threads)
+         thread.join();
+
+      assertEquals(numberOfThreads, numberOfUnpackers.get());
+      assertEquals(numberOfThreads * messagesPerThread, commandInputManager.pollNewCommands(SequenceCommand.class).size());
+   }
+
+   public static class MultipleMessageHolder implements Settable<MultipleMessageHolder>
+   {
+      private long sequenceId;
+
+      @Override
+      public void set(MultipleMessageHolder other)
+      {
+         sequenceId = other.sequenceId;
+      }
+   }
+
+   public static class SequenceCommand implements Command<SequenceCommand, AbortWalkingMessage>
+   {
+      private int producerId;
+      private int value;
+
+      public SequenceCommand()
+      {
+      }
+
+      @Override
+      public void set(SequenceCommand other)
+      {
+         producerId = other.producerId;
+         value = other.value;
+      }
+
+      @Override
+      public void clear()
+      {
+         producerId = 0;
+         value = 0;
+      }
+
+      @Override
+      public void setFromMessage(AbortWalkingMessage message)
+      {
+         value = (int) message.getSequenceId();
+      }
+
+      @Override
+      public Class<AbortWalkingMessage> getMessageClass()
+      {
+         return AbortWalkingMessage.class;
+      }
+
+      @Override
+      public boolean isCommandValid()
+      {
+         return true;
+      }
+
+      @Override
+      public long getSequenceId()
+      {
+         return value;
+      }
+   }
+}
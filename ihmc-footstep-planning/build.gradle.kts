@@ -51,3 +51,11 @@ visualizersDependencies {
    api("us.ihmc:ihmc-common-walking-control-modules-test:source")
 
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+
+   api("us.ihmc:ihmc-path-planning-data-sets:source")
+   api("us.ihmc:ihmc-robotics-toolkit-benchmarks:source")
+   "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.25")
+}
@@ -0,0 +1,100 @@
+package us.ihmc.footstepPlanning;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import us.ihmc.euclid.geometry.Pose3D;
+import us.ihmc.euclid.tuple4D.Quaternion;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlannerParameters;
+import us.ihmc.footstepPlanning.icp.DefaultSplitFractionCalculatorParameters;
+import us.ihmc.footstepPlanning.swing.DefaultSwingPlannerParameters;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.pathPlanning.DataSet;
+import us.ihmc.pathPlanning.DataSetIOTools;
+import us.ihmc.pathPlanning.DataSetName;
+import us.ihmc.pathPlanning.PlannerInput;
+import us.ihmc.pathPlanning.visibilityGraphs.parameters.DefaultVisibilityGraphParameters;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Plans steps with the A* footstep planner on the planner test environments. The number of iterations is capped so that a single
+ * invocation measures the same amount of search on every run, regardless of whether the goal is reached.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AStarFootstepPlannerBenchmark
+{
+   private static final int maximumIterations = 100;
+
+   @Param({"_20190219_182005_Random",
+           "_20190219_182005_Corridor",
+           "_20190219_182005_SimpleGaps",
+           "_20190219_182005_PartialGaps",
+           "_20190219_182005_SpiralStaircase",
+           "_20190219_182005_StepUpsAndDownsScoringDifficult",
+           "_20190219_182005_OverCinderBlockField"})
+   public DataSetName dataSetName;
+
+   @Param({"false", "true"})
+   public boolean usePackedSearchGraph;
+
+   @Param({"1"})
+   public int numberOfSnapperThreads;
+
+   private FootstepPlanningModule planningModule;
+   private final FootstepPlannerRequest request = new FootstepPlannerRequest();
+
+   @Setup
+   public void setup()
+   {
+      planningModule = new FootstepPlanningModule(getClass().getSimpleName(),
+                                                  new DefaultVisibilityGraphParameters(),
+                                                  new DefaultFootstepPlannerParameters(),
+                                                  new DefaultSwingPlannerParameters(),
+                                                  new DefaultSplitFractionCalculatorParameters(),
+                                                  null,
+                                                  PlannerTools.createDefaultFootPolygons(),
+                                                  usePackedSearchGraph);
+      planningModule.setNumberOfSnapperThreads(numberOfSnapperThreads);
+
+      DataSet dataSet = DataSetIOTools.loadDataSet(dataSetName);
+      PlannerInput plannerInput = dataSet.getPlannerInput();
+      double idealFootstepWidth = planningModule.getFootstepPlannerParameters().getIdealFootstepWidth();
+
+      Pose3D initialMidFootPose = new Pose3D(plannerInput.getStartPosition(), new Quaternion(plannerInput.getStartYaw(), 0.0, 0.0));
+      Pose3D goalMidFootPose = new Pose3D(plannerInput.getGoalPosition(), new Quaternion(plannerInput.getGoalYaw(), 0.0, 0.0));
+      request.setStartFootPoses(idealFootstepWidth, initialMidFootPose);
+      request.setGoalFootPoses(idealFootstepWidth, goalMidFootPose);
+      request.setRequestedInitialStanceSide(RobotSide.LEFT);
+      request.setPlanarRegionsList(dataSet.getPlanarRegionsList());
+      request.setPlanBodyPath(false);
+      request.setAbortIfBodyPathPlannerFails(false);
+      request.setTimeout(Double.MAX_VALUE);
+      request.setMaximumIterations(maximumIterations);
+   }
+
+   @Benchmark
+   public FootstepPlannerOutput plan()
+   {
+      return planningModule.handleRequest(request);
+   }
+
+   @TearDown
+   public void tearDown()
+   {
+      planningModule.closeAndDispose();
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(AStarFootstepPlannerBenchmark.class, args);
+   }
+}
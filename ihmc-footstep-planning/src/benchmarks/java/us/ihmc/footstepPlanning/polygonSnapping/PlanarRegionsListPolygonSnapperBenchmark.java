@@ -0,0 +1,87 @@
+package us.ihmc.footstepPlanning.polygonSnapping;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.pathPlanning.DataSetIOTools;
+import us.ihmc.pathPlanning.DataSetName;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Snaps foot polygons at random locations and yaws onto the planar regions of a data set.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PlanarRegionsListPolygonSnapperBenchmark
+{
+   private static final int numberOfPolygons = 512;
+
+   @Param({"_20190219_182005_Random", "_20190219_182005_SpiralStaircase", "_20171030_144754_LargeCinderBlockField"})
+   public DataSetName dataSetName;
+
+   private PlanarRegionsList planarRegionsList;
+   private final ConvexPolygon2D[] polygonsToSnap = new ConvexPolygon2D[numberOfPolygons];
+   private final PlanarRegion regionToPack = new PlanarRegion();
+
+   private int index = 0;
+
+   @Setup
+   public void setup()
+   {
+      planarRegionsList = DataSetIOTools.loadDataSet(dataSetName).getPlanarRegionsList();
+
+      double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+      for (PlanarRegion planarRegion : planarRegionsList.getPlanarRegionsAsList())
+      {
+         BoundingBox3D boundingBox = planarRegion.getBoundingBox3dInWorld();
+         minX = Math.min(minX, boundingBox.getMinX());
+         minY = Math.min(minY, boundingBox.getMinY());
+         maxX = Math.max(maxX, boundingBox.getMaxX());
+         maxY = Math.max(maxY, boundingBox.getMaxY());
+      }
+
+      Random random = new Random(3290L);
+      ConvexPolygon2D footPolygon = PlannerTools.createDefaultFootPolygons().get(RobotSide.LEFT);
+      RigidBodyTransform transform = new RigidBodyTransform();
+
+      for (int i = 0; i < numberOfPolygons; i++)
+      {
+         double x = minX + random.nextDouble() * (maxX - minX);
+         double y = minY + random.nextDouble() * (maxY - minY);
+         double yaw = Math.PI * (2.0 * random.nextDouble() - 1.0);
+
+         transform.setRotationYawAndZeroTranslation(yaw);
+         transform.getTranslation().set(x, y, 0.0);
+
+         polygonsToSnap[i] = new ConvexPolygon2D(footPolygon);
+         polygonsToSnap[i].applyTransform(transform, false);
+      }
+   }
+
+   @Benchmark
+   public RigidBodyTransform snapPolygonToPlanarRegionsList()
+   {
+      index = (index + 1) % numberOfPolygons;
+      return PlanarRegionsListPolygonSnapper.snapPolygonToPlanarRegionsList(polygonsToSnap[index], planarRegionsList, Double.POSITIVE_INFINITY, regionToPack);
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(PlanarRegionsListPolygonSnapperBenchmark.class, args);
+   }
+}
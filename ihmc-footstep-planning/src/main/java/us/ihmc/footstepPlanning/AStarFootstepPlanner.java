@@ -15,12 +15,15 @@ import us.ihmc.footstepPlanning.graphSearch.FootstepPlannerHeuristicCalculator;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapAndWiggler;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapData;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnappingTools;
+import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.ParallelFootstepNodeSnapper;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.graph.PackedFootstepSearchGraph;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.FootstepNodeChecker;
 import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.IdealStepCalculator;
 import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.ParameterBasedNodeExpansion;
 import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersBasics;
 import us.ihmc.footstepPlanning.log.FootstepPlannerEdgeData;
+import us.ihmc.footstepPlanning.log.FootstepPlannerEdgeDataBuffer;
 import us.ihmc.footstepPlanning.log.FootstepPlannerIterationData;
 import us.ihmc.footstepPlanning.tools.PlannerTools;
 import us.ihmc.pathPlanning.bodyPathPlanner.WaypointDefinedBodyPathPlanHolder;
@@ -52,9 +55,13 @@ public class AStarFootstepPlanner
    private final IdealStepCalculator idealStepCalculator;
    private final FootstepPlannerCompletionChecker completionChecker;
    private final WaypointDefinedBodyPathPlanHolder bodyPathPlanHolder;
+   private ParallelFootstepNodeSnapper parallelSnapper = null;
+   private boolean reuseSnapDataBetweenRequests = false;
 
    private final FootstepPlannerEdgeData edgeData;
    private final HashMap<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> edgeDataMap = new HashMap<>();
+   private final List<YoVariable> loggedVariables;
+   private FootstepPlannerEdgeDataBuffer edgeDataBuffer = null;
    private final List<FootstepPlannerIterationData> iterationData = new ArrayList<>();
    private final List<FootstepPlannerTerminationCondition> customTerminationConditions = new ArrayList<>();
 
@@ -67,11 +74,23 @@ public class AStarFootstepPlanner
 
    private final Stopwatch stopwatch = new Stopwatch();
    private int iterations = 0;
+   private long allocatedBytesAtStart;
    private FootstepPlanningResult result = null;
 
    public AStarFootstepPlanner(FootstepPlannerParametersBasics footstepPlannerParameters,
                                SideDependentList<ConvexPolygon2D> footPolygons,
                                WaypointDefinedBodyPathPlanHolder bodyPathPlanHolder)
+   {
+      this(footstepPlannerParameters, footPolygons, bodyPathPlanHolder, false);
+   }
+
+   /**
+    * @param usePackedSearchGraph whether to keep the search graph in a {@link PackedFootstepSearchGraph}
+    */
+   public AStarFootstepPlanner(FootstepPlannerParametersBasics footstepPlannerParameters,
+                               SideDependentList<ConvexPolygon2D> footPolygons,
+                               WaypointDefinedBodyPathPlanHolder bodyPathPlanHolder,
+                               boolean usePackedSearchGraph)
    {
       this.footstepPlannerParameters = footstepPlannerParameters;
       this.bodyPathPlanHolder = bodyPathPlanHolder;
@@ -85,14 +104,34 @@ public class AStarFootstepPlanner
       this.distanceAndYawHeuristics = new FootstepPlannerHeuristicCalculator(snapper, footstepPlannerParameters, bodyPathPlanHolder, registry);
       FootstepCostCalculator stepCostCalculator = new FootstepCostCalculator(footstepPlannerParameters, snapper, idealStepCalculator::computeIdealStep, distanceAndYawHeuristics::compute, footPolygons, registry);
 
-      this.footstepPlanner = new AStarFootstepPlannerIterationConductor(expansion, checker::isNodeValid, stepCostCalculator::computeCost, distanceAndYawHeuristics::compute);
+      this.footstepPlanner = new AStarFootstepPlannerIterationConductor(expansion,
+                                                                        checker::isNodeValid,
+                                                                        stepCostCalculator::computeCost,
+                                                                        distanceAndYawHeuristics::compute,
+                                                                        usePackedSearchGraph);
       this.checker.setParentNodeSupplier(node -> footstepPlanner.getGraph().getParentNode(node));
       this.completionChecker = new FootstepPlannerCompletionChecker(footstepPlannerParameters, footstepPlanner, distanceAndYawHeuristics);
 
       List<YoVariable> allVariables = registry.collectSubtreeVariables();
+      this.loggedVariables = allVariables;
       this.edgeData = new FootstepPlannerEdgeData(allVariables.size());
       footstepPlanner.getGraph().setGraphExpansionCallback(edge ->
                                                            {
+                                                              if (edgeDataBuffer != null)
+                                                              {
+                                                                 if (edgeDataBuffer.startEdge())
+                                                                 {
+                                                                    edgeDataBuffer.record(edge.getStartNode(),
+                                                                                          edge.getEndNode(),
+                                                                                          snapper.snapFootstepNode(edge.getEndNode()),
+                                                                                          allVariables);
+                                                                 }
+
+                                                                 stepCostCalculator.resetLoggedVariables();
+                                                                 distanceAndYawHeuristics.resetLoggedVariables();
+                                                                 return;
+                                                              }
+
                                                               for (int i = 0; i < allVariables.size(); i++)
                                                               {
                                                                  edgeData.setData(i, allVariables.get(i).getValueAsLongBits());
@@ -113,10 +152,13 @@ public class AStarFootstepPlanner
       Objects.requireNonNull(postProcessorCallback);
       iterations = 0;
       stopwatch.start();
+      allocatedBytesAtStart = PlannerTools.getCurrentThreadAllocatedBytes();
 
       // Reset logged variables
       edgeData.clear();
       edgeDataMap.clear();
+      if (edgeDataBuffer != null)
+         edgeDataBuffer.clear();
       iterationData.clear();
 
       haltRequested.set(false);
@@ -125,9 +167,18 @@ public class AStarFootstepPlanner
 
       // Update planar regions
       boolean flatGroundMode = request.getAssumeFlatGround() || request.getPlanarRegionsList() == null || request.getPlanarRegionsList().isEmpty();
-      PlanarRegionsList planarRegionsList = flatGroundMode ? null : request.getPlanarRegionsList();
+      PlanarRegionsList planarRegionsList = null;
+      if (!flatGroundMode)
+      {
+         // Shallow copy owned by the planner so that indexing the regions does not alter the request's list
+         planarRegionsList = new PlanarRegionsList(request.getPlanarRegionsList().getPlanarRegionsAsList());
+         planarRegionsList.setUseSpatialIndex(true);
+      }
 
-      snapper.setPlanarRegions(planarRegionsList);
+      if (reuseSnapDataBetweenRequests)
+         snapper.updatePlanarRegions(planarRegionsList);
+      else
+         snapper.setPlanarRegions(planarRegionsList);
       checker.setPlanarRegions(planarRegionsList);
       idealStepCalculator.setPlanarRegionsList(planarRegionsList);
 
@@ -156,6 +207,8 @@ public class AStarFootstepPlanner
       completionChecker.initialize(startNode, goalNodes, request.getGoalDistanceProximity(), request.getGoalYawProximity());
       expansion.initialize();
       snapper.initialize();
+      if (parallelSnapper != null)
+         parallelSnapper.initialize();
 
       // Check valid goal
       if (!snapAndCheckGoalNodes(goalNodes, imposeHorizonLength, request))
@@ -237,6 +290,11 @@ public class AStarFootstepPlanner
       outputToPack.setRequestId(request.getRequestId());
       outputToPack.setFootstepPlanningResult(result);
 
+      double elapsedTime = stopwatch.totalElapsed();
+      outputToPack.getPlannerTimings().setStepPlanningIterationsPerSecond(elapsedTime > 0.0 ? iterations / elapsedTime : 0.0);
+      long allocatedBytes = PlannerTools.getCurrentThreadAllocatedBytes();
+      outputToPack.getPlannerTimings().setStepPlanningAllocatedBytes(allocatedBytes < 0 ? -1 : allocatedBytes - allocatedBytesAtStart);
+
       // Pack solution path
       outputToPack.getFootstepPlan().clear();
       List<FootstepNode> path = footstepPlanner.getGraph().getPathFromStart(completionChecker.getEndNode());
@@ -253,7 +311,7 @@ public class AStarFootstepPlanner
             footstep.getFootstepPose().setZ(flatGroundHeight);
          }
 
-         if (!footstepPlannerParameters.getWiggleWhilePlanning())
+         if (!footstepPlannerParameters.getWiggleWhilePlanning() && edgeDataBuffer == null)
          {
             // log wiggle transform if not yet computed
             edgeDataMap.get(new GraphEdge<>(path.get(i - 1), path.get(i))).getCandidateNodeSnapData().set(snapData);
@@ -269,15 +327,47 @@ public class AStarFootstepPlanner
 
    private void markSolutionEdges()
    {
+      List<FootstepNode> path = footstepPlanner.getGraph().getPathFromStart(completionChecker.getEndNode());
+
+      if (edgeDataBuffer != null)
+      {
+         markSolutionEdgesInBuffer(path);
+         return;
+      }
+
       edgeDataMap.values().forEach(data -> data.setSolutionEdge(false));
 
-      List<FootstepNode> path = footstepPlanner.getGraph().getPathFromStart(completionChecker.getEndNode());
       for (int i = 1; i < path.size(); i++)
       {
          edgeDataMap.get(new GraphEdge<>(path.get(i - 1), path.get(i))).setSolutionEdge(true);
       }
    }
 
+   /**
+    * Solution edges that were not sampled are not in the buffer and can't be marked
+    */
+   private void markSolutionEdgesInBuffer(List<FootstepNode> path)
+   {
+      HashMap<GraphEdge<FootstepNode>, FootstepNode> solutionEdges = new HashMap<>();
+      for (int i = 1; i < path.size(); i++)
+      {
+         solutionEdges.put(new GraphEdge<>(path.get(i - 1), path.get(i)), path.get(i - 1));
+      }
+
+      for (int edgeIndex = 0; edgeIndex < edgeDataBuffer.getNumberOfEdges(); edgeIndex++)
+      {
+         FootstepNode candidateNode = edgeDataBuffer.getCandidateNode(edgeIndex);
+         FootstepNode stanceNode = solutionEdges.get(new GraphEdge<>(edgeDataBuffer.getStanceNode(edgeIndex), candidateNode));
+         edgeDataBuffer.setSolutionEdge(edgeIndex, stanceNode != null);
+
+         if (stanceNode != null && !footstepPlannerParameters.getWiggleWhilePlanning())
+         {
+            // log wiggle transform if not yet computed
+            edgeDataBuffer.setCandidateNodeSnapData(edgeIndex, snapper.snapFootstepNode(candidateNode, stanceNode, true));
+         }
+      }
+   }
+
    private void recordIterationData(AStarIterationData<FootstepNode> iterationData)
    {
       if (iterationData.getParentNode() == null)
@@ -385,6 +475,41 @@ public class AStarFootstepPlanner
       haltRequested.set(true);
    }
 
+   /**
+    * Sets the number of worker threads used to snap and wiggle the children of each expanded node before they are checked.
+    * With one thread or less, nodes are snapped one at a time on the planning thread. Both modes produce the same plans.
+    * Should not be called while planning.
+    */
+   public void setNumberOfSnapperThreads(int numberOfThreads)
+   {
+      if (parallelSnapper != null)
+      {
+         parallelSnapper.shutdown();
+         parallelSnapper = null;
+      }
+
+      if (numberOfThreads > 1)
+      {
+         parallelSnapper = new ParallelFootstepNodeSnapper(snapper, footstepPlannerParameters, numberOfThreads);
+         footstepPlanner.setNeighborPreprocessor(parallelSnapper::snapCandidateNodes);
+      }
+      else
+      {
+         footstepPlanner.setNeighborPreprocessor(null);
+      }
+   }
+
+   /**
+    * If true, the snap and wiggle results which do not depend on the stance step are kept between requests for all nodes away from the
+    * planar regions that were added, removed or moved, see {@link FootstepNodeSnapAndWiggler#updatePlanarRegions(PlanarRegionsList)}. This
+    * is meant for replanning several times a second on a slowly changing map, where snapping and wiggling is most of the planning time. The
+    * search itself starts from scratch and the plan is the same as without reuse.
+    */
+   public void setReuseSnapDataBetweenRequests(boolean reuseSnapDataBetweenRequests)
+   {
+      this.reuseSnapDataBetweenRequests = reuseSnapDataBetweenRequests;
+   }
+
    private void addFootPosesToSnapper(FootstepPlannerRequest request)
    {
       addSnapData(request.getStartFootPoses().get(RobotSide.LEFT), RobotSide.LEFT);
@@ -446,6 +571,36 @@ public class AStarFootstepPlanner
       return completionChecker.getEndNode();
    }
 
+   /**
+    * Records the edge data in a preallocated {@link FootstepPlannerEdgeDataBuffer} instead of the edge data map, which then stays empty.
+    * This is much cheaper when logging large searches. Should not be called while planning.
+    *
+    * @param capacity maximum number of edges recorded per request
+    * @param samplePeriod records one out of this many expanded edges, 1 to record all of them
+    * @param overwriteOldest when full, whether the newest edges overwrite the oldest ones or are dropped
+    */
+   public void enableBufferedEdgeDataLogging(int capacity, int samplePeriod, boolean overwriteOldest)
+   {
+      edgeDataBuffer = new FootstepPlannerEdgeDataBuffer(capacity, loggedVariables.size(), samplePeriod, overwriteOldest);
+      edgeDataMap.clear();
+   }
+
+   /**
+    * Goes back to recording the edge data in the edge data map. Should not be called while planning.
+    */
+   public void disableBufferedEdgeDataLogging()
+   {
+      edgeDataBuffer = null;
+   }
+
+   /**
+    * @return the edge data of the last request if buffered logging is enabled, null otherwise
+    */
+   public FootstepPlannerEdgeDataBuffer getEdgeDataBuffer()
+   {
+      return edgeDataBuffer;
+   }
+
    public HashMap<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> getEdgeDataMap()
    {
       return edgeDataMap;
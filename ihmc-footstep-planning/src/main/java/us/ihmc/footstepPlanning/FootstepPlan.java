@@ -73,6 +73,19 @@ public class FootstepPlan implements FootstepPlanReadOnly
       this.finalTransferWeightDistribution = finalTransferWeightDistribution;
    }
 
+   /** deep copy */
+   public void set(FootstepPlan other)
+   {
+      footsteps.clear();
+      for (PlannedFootstep otherFootstep : other.footsteps)
+      {
+         footsteps.add(new PlannedFootstep(otherFootstep));
+      }
+
+      this.finalTransferSplitFraction = other.finalTransferSplitFraction;
+      this.finalTransferWeightDistribution = other.finalTransferWeightDistribution;
+   }
+
    public void reverse()
    {
       Collections.reverse(footsteps);
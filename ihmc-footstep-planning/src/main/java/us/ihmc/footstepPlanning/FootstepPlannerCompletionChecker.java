@@ -9,14 +9,12 @@ import us.ihmc.footstepPlanning.graphSearch.FootstepPlannerHeuristicCalculator;
 import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersBasics;
 import us.ihmc.footstepPlanning.graphSearch.AStarIterationData;
 import us.ihmc.footstepPlanning.graphSearch.AStarFootstepPlannerIterationConductor;
-import us.ihmc.pathPlanning.graph.structure.DirectedGraph;
-import us.ihmc.pathPlanning.graph.structure.GraphEdge;
+import us.ihmc.pathPlanning.graph.structure.SearchGraph;
 import us.ihmc.robotics.geometry.AngleTools;
 import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.robotSide.SideDependentList;
 
 import java.util.*;
-import java.util.function.Predicate;
 
 public class FootstepPlannerCompletionChecker
 {
@@ -132,17 +130,15 @@ public class FootstepPlannerCompletionChecker
     */
    private boolean searchForSquaredUpStepInProximity(FootstepNode parentNode, FootstepNode nodeInProximity)
    {
-      DirectedGraph<FootstepNode> graph = iterationConductor.getGraph();
-      if (!graph.getOutgoingEdges().containsKey(nodeInProximity))
+      SearchGraph<FootstepNode> graph = iterationConductor.getGraph();
+      if (!graph.hasOutgoingEdges(nodeInProximity))
       {
          // this step hasn't been expanded yet, perform iteration now
          iterationConductor.doPlanningIteration(nodeInProximity, false);
       }
 
       // grab all outgoing edges
-      childNodes.clear();
-      Predicate<GraphEdge<FootstepNode>> validEdgeFilter = edge -> Double.isFinite(graph.getEdgeCostMap().get(edge).getEdgeCost());
-      graph.getOutgoingEdges().get(nodeInProximity).stream().filter(validEdgeFilter).forEach(edge -> childNodes.add(edge.getEndNode()));
+      graph.getValidChildNodes(nodeInProximity, childNodes);
 
       if (childNodes.isEmpty())
          return false;
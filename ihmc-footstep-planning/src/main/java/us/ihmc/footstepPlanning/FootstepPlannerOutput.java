@@ -74,6 +74,26 @@ public class FootstepPlannerOutput
       plannerTimings.clear();
    }
 
+   /**
+    * Deep copy of the plan, body path and timings. The planar regions and exception are shared.
+    */
+   public void set(FootstepPlannerOutput other)
+   {
+      requestId = other.requestId;
+      footstepPlan.set(other.footstepPlan);
+      bodyPathPlanningResult = other.bodyPathPlanningResult;
+      footstepPlanningResult = other.footstepPlanningResult;
+      planarRegionsList = other.planarRegionsList;
+      bodyPath.clear();
+      for (int i = 0; i < other.bodyPath.size(); i++)
+      {
+         bodyPath.add(new Pose3D(other.bodyPath.get(i)));
+      }
+      goalPose.set(other.goalPose);
+      exception = other.exception;
+      plannerTimings.set(other.plannerTimings);
+   }
+
    public int getRequestId()
    {
       return requestId;
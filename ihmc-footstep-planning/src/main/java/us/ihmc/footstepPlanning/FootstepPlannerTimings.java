@@ -29,6 +29,16 @@ public class FootstepPlannerTimings
     */
    private long stepPlanningIterations;
 
+   /**
+    * Average number of step planning iterations per second. Not included in {@link FootstepPlanningTimingsMessage}
+    */
+   private double stepPlanningIterationsPerSecond;
+
+   /**
+    * Bytes allocated by the planning thread during step planning, or -1 if not supported by the JVM. Not included in {@link FootstepPlanningTimingsMessage}
+    */
+   private long stepPlanningAllocatedBytes;
+
    public FootstepPlannerTimings()
    {
       clear();
@@ -41,6 +51,8 @@ public class FootstepPlannerTimings
       timePlanningBodyPathSeconds = -1.0;
       timePlanningStepsSeconds = -1.0;
       stepPlanningIterations = -1;
+      stepPlanningIterationsPerSecond = -1.0;
+      stepPlanningAllocatedBytes = -1;
    }
 
    public void setTotalElapsedSeconds(double totalElapsedSeconds)
@@ -68,6 +80,16 @@ public class FootstepPlannerTimings
       this.stepPlanningIterations = stepPlanningIterations;
    }
 
+   public void setStepPlanningIterationsPerSecond(double stepPlanningIterationsPerSecond)
+   {
+      this.stepPlanningIterationsPerSecond = stepPlanningIterationsPerSecond;
+   }
+
+   public void setStepPlanningAllocatedBytes(long stepPlanningAllocatedBytes)
+   {
+      this.stepPlanningAllocatedBytes = stepPlanningAllocatedBytes;
+   }
+
    public double getTotalElapsedSeconds()
    {
       return totalElapsedSeconds;
@@ -93,6 +115,27 @@ public class FootstepPlannerTimings
       return stepPlanningIterations;
    }
 
+   public double getStepPlanningIterationsPerSecond()
+   {
+      return stepPlanningIterationsPerSecond;
+   }
+
+   public long getStepPlanningAllocatedBytes()
+   {
+      return stepPlanningAllocatedBytes;
+   }
+
+   public void set(FootstepPlannerTimings other)
+   {
+      totalElapsedSeconds = other.totalElapsedSeconds;
+      timeBeforePlanningSeconds = other.timeBeforePlanningSeconds;
+      timePlanningBodyPathSeconds = other.timePlanningBodyPathSeconds;
+      timePlanningStepsSeconds = other.timePlanningStepsSeconds;
+      stepPlanningIterations = other.stepPlanningIterations;
+      stepPlanningIterationsPerSecond = other.stepPlanningIterationsPerSecond;
+      stepPlanningAllocatedBytes = other.stepPlanningAllocatedBytes;
+   }
+
    public void setFromPacket(FootstepPlanningTimingsMessage packet)
    {
       setTotalElapsedSeconds(packet.getTotalElapsedSeconds());
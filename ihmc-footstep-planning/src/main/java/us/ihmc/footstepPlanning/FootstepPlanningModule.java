@@ -12,6 +12,7 @@ import us.ihmc.footstepPlanning.graphSearch.AStarIterationData;
 import us.ihmc.footstepPlanning.graphSearch.VisibilityGraphPathPlanner;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapAndWiggler;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.graph.PackedFootstepSearchGraph;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.FootstepNodeChecker;
 import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlannerParameters;
 import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersBasics;
@@ -20,6 +21,7 @@ import us.ihmc.footstepPlanning.icp.DefaultSplitFractionCalculatorParameters;
 import us.ihmc.footstepPlanning.icp.PositionBasedSplitFractionCalculator;
 import us.ihmc.footstepPlanning.icp.SplitFractionCalculatorParametersBasics;
 import us.ihmc.footstepPlanning.log.FootstepPlannerEdgeData;
+import us.ihmc.footstepPlanning.log.FootstepPlannerEdgeDataBuffer;
 import us.ihmc.footstepPlanning.log.FootstepPlannerIterationData;
 import us.ihmc.footstepPlanning.log.VariableDescriptor;
 import us.ihmc.footstepPlanning.simplePlanners.PlanThenSnapPlanner;
@@ -99,6 +101,29 @@ public class FootstepPlanningModule implements CloseableAndDisposable
                                  SplitFractionCalculatorParametersBasics splitFractionParameters,
                                  WalkingControllerParameters walkingControllerParameters,
                                  SideDependentList<ConvexPolygon2D> footPolygons)
+   {
+      this(name,
+           visibilityGraphParameters,
+           footstepPlannerParameters,
+           swingPlannerParameters,
+           splitFractionParameters,
+           walkingControllerParameters,
+           footPolygons,
+           false);
+   }
+
+   /**
+    * @param usePackedSearchGraph if true, the A* planner keeps its search state in primitive arrays rather than hash maps of nodes and edges.
+    *                             This produces the same plans with much less allocation, see {@link PackedFootstepSearchGraph}
+    */
+   public FootstepPlanningModule(String name,
+                                 VisibilityGraphsParametersBasics visibilityGraphParameters,
+                                 FootstepPlannerParametersBasics footstepPlannerParameters,
+                                 SwingPlannerParametersBasics swingPlannerParameters,
+                                 SplitFractionCalculatorParametersBasics splitFractionParameters,
+                                 WalkingControllerParameters walkingControllerParameters,
+                                 SideDependentList<ConvexPolygon2D> footPolygons,
+                                 boolean usePackedSearchGraph)
    {
       this.name = name;
       this.visibilityGraphParameters = visibilityGraphParameters;
@@ -110,7 +135,7 @@ public class FootstepPlanningModule implements CloseableAndDisposable
                                                             registry);
 
       this.planThenSnapPlanner = new PlanThenSnapPlanner(footstepPlannerParameters, footPolygons);
-      this.aStarFootstepPlanner = new AStarFootstepPlanner(footstepPlannerParameters, footPolygons, bodyPathPlanHolder);
+      this.aStarFootstepPlanner = new AStarFootstepPlanner(footstepPlannerParameters, footPolygons, bodyPathPlanHolder, usePackedSearchGraph);
       this.postProcessHandler = new FootstepPlanPostProcessHandler(footstepPlannerParameters,
                                                                    swingPlannerParameters,
                                                                    splitFractionParameters,
@@ -309,6 +334,22 @@ public class FootstepPlanningModule implements CloseableAndDisposable
       aStarFootstepPlanner.halt();
    }
 
+   /**
+    * Sets the number of threads used to snap and wiggle candidate steps during A* expansion, see {@link AStarFootstepPlanner#setNumberOfSnapperThreads(int)}
+    */
+   public void setNumberOfSnapperThreads(int numberOfThreads)
+   {
+      aStarFootstepPlanner.setNumberOfSnapperThreads(numberOfThreads);
+   }
+
+   /**
+    * Enables reusing snap data between requests, see {@link AStarFootstepPlanner#setReuseSnapDataBetweenRequests(boolean)}
+    */
+   public void setReuseSnapDataBetweenRequests(boolean reuseSnapDataBetweenRequests)
+   {
+      aStarFootstepPlanner.setReuseSnapDataBetweenRequests(reuseSnapDataBetweenRequests);
+   }
+
    public String getName()
    {
       return name;
@@ -384,6 +425,24 @@ public class FootstepPlanningModule implements CloseableAndDisposable
       return aStarFootstepPlanner.getEdgeDataMap();
    }
 
+   public FootstepPlannerEdgeDataBuffer getEdgeDataBuffer()
+   {
+      return aStarFootstepPlanner.getEdgeDataBuffer();
+   }
+
+   /**
+    * See {@link AStarFootstepPlanner#enableBufferedEdgeDataLogging(int, int, boolean)}
+    */
+   public void enableBufferedEdgeDataLogging(int capacity, int samplePeriod, boolean overwriteOldest)
+   {
+      aStarFootstepPlanner.enableBufferedEdgeDataLogging(capacity, samplePeriod, overwriteOldest);
+   }
+
+   public void disableBufferedEdgeDataLogging()
+   {
+      aStarFootstepPlanner.disableBufferedEdgeDataLogging();
+   }
+
    public List<FootstepPlannerIterationData> getIterationData()
    {
       return aStarFootstepPlanner.getIterationData();
@@ -452,6 +511,8 @@ public class FootstepPlanningModule implements CloseableAndDisposable
    @Override
    public void closeAndDispose()
    {
+      aStarFootstepPlanner.setNumberOfSnapperThreads(1);
+
       if (ros2Node != null)
       {
          ros2Node.destroy();
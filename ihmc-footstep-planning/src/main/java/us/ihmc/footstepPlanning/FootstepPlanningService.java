@@ -0,0 +1,614 @@
+package us.ihmc.footstepPlanning;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlannerParameters;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersBasics;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersReadOnly;
+import us.ihmc.footstepPlanning.icp.DefaultSplitFractionCalculatorParameters;
+import us.ihmc.footstepPlanning.icp.SplitFractionCalculatorParametersBasics;
+import us.ihmc.footstepPlanning.icp.SplitFractionCalculatorParametersReadOnly;
+import us.ihmc.footstepPlanning.swing.DefaultSwingPlannerParameters;
+import us.ihmc.footstepPlanning.swing.SwingPlannerParametersBasics;
+import us.ihmc.footstepPlanning.swing.SwingPlannerParametersReadOnly;
+import us.ihmc.log.LogTools;
+import us.ihmc.pathPlanning.visibilityGraphs.parameters.DefaultVisibilityGraphParameters;
+import us.ihmc.pathPlanning.visibilityGraphs.parameters.VisibilityGraphsParametersBasics;
+import us.ihmc.pathPlanning.visibilityGraphs.parameters.VisibilityGraphsParametersReadOnly;
+import us.ihmc.tools.thread.CloseableAndDisposable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Serves footstep planning requests from several clients with a bounded pool of independent {@link FootstepPlanningModule}s.
+ *
+ * Each worker thread owns one module and takes requests from a shared bounded queue. When the queue is full, new requests are rejected
+ * rather than queued, see {@link #submitRequest(FootstepPlannerRequest)}, so clients get immediate back-pressure instead of waiting behind
+ * an ever growing backlog. Requests are identified by their request id, which is used to halt them while queued or planning.
+ *
+ * Each request carries the {@link Parameters} it is planned with, which the worker applies to its module before planning. This way all the
+ * modules of the pool plan with the same parameters, and updating the default parameters does not change requests already submitted.
+ *
+ * The queue depth and the latency of each request, split between time spent in the queue and total time to the result, are exposed to size
+ * the pool.
+ */
+public class FootstepPlanningService implements CloseableAndDisposable
+{
+   private final List<FootstepPlanningModule> modules = new ArrayList<>();
+   private final ArrayBlockingQueue<PendingRequest> requestQueue;
+   private final ConcurrentHashMap<Integer, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+   private final ExecutorService workers;
+   private volatile boolean isRunning = true;
+   private volatile Parameters defaultParameters;
+
+   private final AtomicLong numberOfRejectedRequests = new AtomicLong();
+   private final Object latencyLock = new Object();
+   private long numberOfCompletedRequests = 0;
+   private double totalLatency = 0.0;
+   private double maximumLatency = 0.0;
+   private double maximumQueueDuration = 0.0;
+   private Consumer<RequestLatency> latencyCallback = latency -> {};
+   private Consumer<FootstepPlannerOutput> serviceStatusCallback = output -> {};
+
+   /**
+    * @param moduleFactory creates the modules of the pool, each module has to be independent from the others
+    * @param numberOfWorkers number of requests planned at the same time
+    * @param queueCapacity maximum number of requests waiting for a worker before new ones get rejected
+    */
+   public FootstepPlanningService(Supplier<FootstepPlanningModule> moduleFactory, int numberOfWorkers, int queueCapacity)
+   {
+      if (numberOfWorkers < 1)
+         throw new IllegalArgumentException("Number of workers must be at least 1, got " + numberOfWorkers);
+      if (queueCapacity < 1)
+         throw new IllegalArgumentException("Queue capacity must be at least 1, got " + queueCapacity);
+
+      requestQueue = new ArrayBlockingQueue<>(queueCapacity);
+      workers = Executors.newFixedThreadPool(numberOfWorkers, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+
+      for (int i = 0; i < numberOfWorkers; i++)
+      {
+         FootstepPlanningModule module = moduleFactory.get();
+         modules.add(module);
+      }
+
+      defaultParameters = new Parameters(modules.get(0));
+
+      for (int i = 0; i < numberOfWorkers; i++)
+      {
+         workers.execute(new Worker(modules.get(i)));
+      }
+   }
+
+   /**
+    * @return the parameters used by the requests submitted without parameters
+    */
+   public Parameters getDefaultParameters()
+   {
+      return defaultParameters;
+   }
+
+   /**
+    * Updates the parameters used by the requests submitted without parameters from now on. Requests already submitted keep the parameters
+    * they were submitted with.
+    */
+   public synchronized void updateDefaultParameters(UnaryOperator<Parameters> update)
+   {
+      defaultParameters = update.apply(defaultParameters);
+   }
+
+   /**
+    * Queues the request to be planned with the current default parameters, see {@link #submitRequest(FootstepPlannerRequest, Parameters)}.
+    */
+   public CompletableFuture<FootstepPlannerOutput> submitRequest(FootstepPlannerRequest request)
+   {
+      return submitRequest(request, defaultParameters);
+   }
+
+   /**
+    * Queues the request to be planned by the next available module. The request is copied so the caller can reuse it.
+    *
+    * @param parameters the parameters to plan this request with, whichever module plans it
+    * @return the final output of the planner. It completes exceptionally with a {@link RejectedExecutionException} if the queue is full,
+    *       if a request with the same id is already pending or if the service is shut down.
+    */
+   public CompletableFuture<FootstepPlannerOutput> submitRequest(FootstepPlannerRequest request, Parameters parameters)
+   {
+      PendingRequest pendingRequest = new PendingRequest(request, parameters);
+
+      if (!isRunning)
+         return reject(pendingRequest, "service is shut down");
+      if (pendingRequests.putIfAbsent(pendingRequest.getRequestId(), pendingRequest) != null)
+         return reject(pendingRequest, "a request with the same id is pending");
+
+      if (!requestQueue.offer(pendingRequest))
+      {
+         pendingRequests.remove(pendingRequest.getRequestId(), pendingRequest);
+         return reject(pendingRequest, "queue is full");
+      }
+
+      return pendingRequest.result;
+   }
+
+   private CompletableFuture<FootstepPlannerOutput> reject(PendingRequest pendingRequest, String reason)
+   {
+      numberOfRejectedRequests.incrementAndGet();
+      pendingRequest.result.completeExceptionally(new RejectedExecutionException("Rejected request " + pendingRequest.getRequestId() + ", " + reason));
+      return pendingRequest.result;
+   }
+
+   /**
+    * Halts the request with the given id. A queued request is removed from the queue and completes with {@link FootstepPlanningResult#HALTED},
+    * a request being planned returns its current best plan as for {@link FootstepPlanningModule#halt()}.
+    *
+    * @return false if no request with this id is pending
+    */
+   public boolean halt(int requestId)
+   {
+      PendingRequest pendingRequest = pendingRequests.get(requestId);
+      if (pendingRequest == null)
+         return false;
+
+      pendingRequest.isHaltRequested = true;
+
+      if (requestQueue.remove(pendingRequest))
+      {
+         completeHalted(pendingRequest);
+      }
+      else
+      {
+         FootstepPlanningModule module = pendingRequest.module;
+         if (module != null)
+            module.halt();
+      }
+
+      return true;
+   }
+
+   /**
+    * Halts as requested by a {@code FootstepPlannerActionMessage}. A request id of 0 halts every request. Any other id only halts that request,
+    * a halt naming a request which is not pending, e.g. one that completed before the halt arrived, is ignored so that it cannot halt the
+    * requests of other clients.
+    *
+    * @return false if no request was halted
+    */
+   public boolean handleHaltAction(int requestId)
+   {
+      if (requestId == 0)
+      {
+         boolean anyRequestPending = !pendingRequests.isEmpty();
+         haltAll();
+         return anyRequestPending;
+      }
+
+      if (halt(requestId))
+         return true;
+
+      LogTools.info("Ignoring halt of footstep planning request " + requestId + ", it is not pending");
+      return false;
+   }
+
+   public void haltAll()
+   {
+      for (Integer requestId : pendingRequests.keySet())
+      {
+         halt(requestId);
+      }
+   }
+
+   private void completeHalted(PendingRequest pendingRequest)
+   {
+      FootstepPlannerOutput output = new FootstepPlannerOutput();
+      output.setRequestId(pendingRequest.getRequestId());
+      output.setFootstepPlanningResult(FootstepPlanningResult.HALTED);
+      completeWithoutModuleStatus(pendingRequest, output);
+   }
+
+   /**
+    * Completes a request for which no module reported a status, the status callbacks are notified with the output.
+    */
+   private void completeWithoutModuleStatus(PendingRequest pendingRequest, FootstepPlannerOutput output)
+   {
+      Consumer<FootstepPlannerOutput> serviceStatusCallback;
+      synchronized (latencyLock)
+      {
+         serviceStatusCallback = this.serviceStatusCallback;
+      }
+
+      serviceStatusCallback.accept(output);
+      complete(pendingRequest, output);
+   }
+
+   private void complete(PendingRequest pendingRequest, FootstepPlannerOutput output)
+   {
+      pendingRequests.remove(pendingRequest.getRequestId(), pendingRequest);
+
+      long completionTime = System.nanoTime();
+      long startTime = pendingRequest.startTime == -1L ? completionTime : pendingRequest.startTime;
+      RequestLatency latency = new RequestLatency(pendingRequest.getRequestId(),
+                                                  Conversions.nanosecondsToSeconds(startTime - pendingRequest.submitTime),
+                                                  Conversions.nanosecondsToSeconds(completionTime - pendingRequest.submitTime));
+
+      Consumer<RequestLatency> latencyCallback;
+      synchronized (latencyLock)
+      {
+         numberOfCompletedRequests++;
+         totalLatency += latency.getTotalDuration();
+         maximumLatency = Math.max(maximumLatency, latency.getTotalDuration());
+         maximumQueueDuration = Math.max(maximumQueueDuration, latency.getQueueDuration());
+         latencyCallback = this.latencyCallback;
+      }
+
+      latencyCallback.accept(latency);
+      pendingRequest.result.complete(output);
+   }
+
+   /**
+    * Adds a status callback to every module of the pool. It gets called from the worker threads, possibly at the same time for different
+    * requests. It is also called with the final output of the requests which complete without a module reporting it, i.e. requests halted
+    * while queued or for which the module returned no output. Rejected requests are only reported through their future. Should be called
+    * before submitting requests.
+    */
+   public void addStatusCallback(Consumer<FootstepPlannerOutput> callback)
+   {
+      for (int i = 0; i < modules.size(); i++)
+      {
+         modules.get(i).addStatusCallback(callback);
+      }
+
+      synchronized (latencyLock)
+      {
+         serviceStatusCallback = serviceStatusCallback.andThen(callback);
+      }
+   }
+
+   /**
+    * Adds a callback notified with the latency of each completed request, from the thread completing it.
+    */
+   public void addLatencyCallback(Consumer<RequestLatency> callback)
+   {
+      synchronized (latencyLock)
+      {
+         latencyCallback = latencyCallback.andThen(callback);
+      }
+   }
+
+   /**
+    * @return the modules of the pool, to add callbacks. Their parameters are overwritten by the parameters of each request, use
+    *       {@link #updateDefaultParameters(UnaryOperator)} instead.
+    */
+   public List<FootstepPlanningModule> getModules()
+   {
+      return Collections.unmodifiableList(modules);
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return modules.size();
+   }
+
+   /**
+    * @return number of requests waiting for a worker
+    */
+   public int getQueueDepth()
+   {
+      return requestQueue.size();
+   }
+
+   /**
+    * @return number of requests queued or being planned
+    */
+   public int getNumberOfPendingRequests()
+   {
+      return pendingRequests.size();
+   }
+
+   public boolean isRequestPending(int requestId)
+   {
+      return pendingRequests.containsKey(requestId);
+   }
+
+   public long getNumberOfRejectedRequests()
+   {
+      return numberOfRejectedRequests.get();
+   }
+
+   public long getNumberOfCompletedRequests()
+   {
+      synchronized (latencyLock)
+      {
+         return numberOfCompletedRequests;
+      }
+   }
+
+   /**
+    * @return average time in seconds from submission to completion of the completed requests, or NaN if none completed yet
+    */
+   public double getAverageLatency()
+   {
+      synchronized (latencyLock)
+      {
+         return numberOfCompletedRequests == 0 ? Double.NaN : totalLatency / numberOfCompletedRequests;
+      }
+   }
+
+   public double getMaximumLatency()
+   {
+      synchronized (latencyLock)
+      {
+         return maximumLatency;
+      }
+   }
+
+   public double getMaximumQueueDuration()
+   {
+      synchronized (latencyLock)
+      {
+         return maximumQueueDuration;
+      }
+   }
+
+   @Override
+   public void closeAndDispose()
+   {
+      isRunning = false;
+
+      List<PendingRequest> queuedRequests = new ArrayList<>();
+      requestQueue.drainTo(queuedRequests);
+      for (int i = 0; i < queuedRequests.size(); i++)
+      {
+         completeHalted(queuedRequests.get(i));
+      }
+
+      haltAll();
+      workers.shutdownNow();
+
+      for (int i = 0; i < modules.size(); i++)
+      {
+         modules.get(i).closeAndDispose();
+      }
+   }
+
+   private class Worker implements Runnable
+   {
+      private final FootstepPlanningModule module;
+      private final AtomicReference<PendingRequest> currentRequest = new AtomicReference<>();
+      private Parameters appliedParameters;
+
+      private Worker(FootstepPlanningModule module)
+      {
+         this.module = module;
+
+         // The module resets its halt flag when it starts planning, this catches halts requested between taking the request and starting A*
+         module.addCustomTerminationCondition((plannerTime, iterations, bestPathFinalStep, bestPathSize) ->
+                                              {
+                                                 PendingRequest pendingRequest = currentRequest.get();
+                                                 return pendingRequest != null && pendingRequest.isHaltRequested;
+                                              });
+      }
+
+      @Override
+      public void run()
+      {
+         while (isRunning)
+         {
+            PendingRequest pendingRequest;
+
+            try
+            {
+               pendingRequest = requestQueue.take();
+            }
+            catch (InterruptedException e)
+            {
+               break;
+            }
+
+            if (pendingRequest.isHaltRequested)
+            {
+               completeHalted(pendingRequest);
+               continue;
+            }
+
+            pendingRequest.startTime = System.nanoTime();
+            pendingRequest.module = module;
+            currentRequest.set(pendingRequest);
+
+            try
+            {
+               if (pendingRequest.parameters != appliedParameters)
+               {
+                  pendingRequest.parameters.applyTo(module);
+                  appliedParameters = pendingRequest.parameters;
+               }
+
+               FootstepPlannerOutput moduleOutput = module.handleRequest(pendingRequest.request);
+               FootstepPlannerOutput output = new FootstepPlannerOutput();
+
+               if (moduleOutput == null)
+               {
+                  output.setRequestId(pendingRequest.getRequestId());
+                  output.setFootstepPlanningResult(FootstepPlanningResult.EXCEPTION);
+                  completeWithoutModuleStatus(pendingRequest, output);
+               }
+               else
+               {
+                  output.set(moduleOutput);
+                  complete(pendingRequest, output);
+               }
+            }
+            catch (Throwable e)
+            {
+               LogTools.error("Footstep planning request " + pendingRequest.getRequestId() + " failed: " + e.getMessage());
+               pendingRequests.remove(pendingRequest.getRequestId(), pendingRequest);
+               pendingRequest.result.completeExceptionally(e);
+            }
+            finally
+            {
+               currentRequest.set(null);
+               pendingRequest.module = null;
+            }
+         }
+      }
+   }
+
+   private static class PendingRequest
+   {
+      private final FootstepPlannerRequest request = new FootstepPlannerRequest();
+      private final CompletableFuture<FootstepPlannerOutput> result = new CompletableFuture<>();
+      private final Parameters parameters;
+      private final long submitTime = System.nanoTime();
+      private volatile long startTime = -1L;
+      private volatile FootstepPlanningModule module;
+      private volatile boolean isHaltRequested = false;
+
+      private PendingRequest(FootstepPlannerRequest request, Parameters parameters)
+      {
+         this.request.set(request);
+         this.parameters = parameters;
+      }
+
+      private int getRequestId()
+      {
+         return request.getRequestId();
+      }
+   }
+
+   /**
+    * Immutable set of the parameters of a {@link FootstepPlanningModule}. The {@code with} methods return a modified copy.
+    */
+   public static class Parameters
+   {
+      private final DefaultFootstepPlannerParameters footstepPlannerParameters;
+      private final DefaultVisibilityGraphParameters visibilityGraphParameters;
+      private final DefaultSwingPlannerParameters swingPlannerParameters;
+      private final DefaultSplitFractionCalculatorParameters splitFractionParameters;
+
+      /**
+       * Copies the current parameters of the module.
+       */
+      public Parameters(FootstepPlanningModule module)
+      {
+         this(module.getFootstepPlannerParameters(),
+              module.getVisibilityGraphParameters(),
+              module.getSwingPlannerParameters(),
+              module.getSplitFractionParameters());
+      }
+
+      public Parameters(FootstepPlannerParametersReadOnly footstepPlannerParameters,
+                        VisibilityGraphsParametersReadOnly visibilityGraphParameters,
+                        SwingPlannerParametersReadOnly swingPlannerParameters,
+                        SplitFractionCalculatorParametersReadOnly splitFractionParameters)
+      {
+         this.footstepPlannerParameters = new DefaultFootstepPlannerParameters(footstepPlannerParameters);
+         this.visibilityGraphParameters = new DefaultVisibilityGraphParameters(visibilityGraphParameters);
+         this.swingPlannerParameters = new DefaultSwingPlannerParameters(swingPlannerParameters);
+         this.splitFractionParameters = new DefaultSplitFractionCalculatorParameters(splitFractionParameters);
+      }
+
+      public Parameters withFootstepPlannerParameters(Consumer<FootstepPlannerParametersBasics> modifier)
+      {
+         DefaultFootstepPlannerParameters modifiedParameters = new DefaultFootstepPlannerParameters(footstepPlannerParameters);
+         modifier.accept(modifiedParameters);
+         return new Parameters(modifiedParameters, visibilityGraphParameters, swingPlannerParameters, splitFractionParameters);
+      }
+
+      public Parameters withVisibilityGraphParameters(Consumer<VisibilityGraphsParametersBasics> modifier)
+      {
+         DefaultVisibilityGraphParameters modifiedParameters = new DefaultVisibilityGraphParameters(visibilityGraphParameters);
+         modifier.accept(modifiedParameters);
+         return new Parameters(footstepPlannerParameters, modifiedParameters, swingPlannerParameters, splitFractionParameters);
+      }
+
+      public Parameters withSwingPlannerParameters(Consumer<SwingPlannerParametersBasics> modifier)
+      {
+         DefaultSwingPlannerParameters modifiedParameters = new DefaultSwingPlannerParameters(swingPlannerParameters);
+         modifier.accept(modifiedParameters);
+         return new Parameters(footstepPlannerParameters, visibilityGraphParameters, modifiedParameters, splitFractionParameters);
+      }
+
+      public Parameters withSplitFractionParameters(Consumer<SplitFractionCalculatorParametersBasics> modifier)
+      {
+         DefaultSplitFractionCalculatorParameters modifiedParameters = new DefaultSplitFractionCalculatorParameters(splitFractionParameters);
+         modifier.accept(modifiedParameters);
+         return new Parameters(footstepPlannerParameters, visibilityGraphParameters, swingPlannerParameters, modifiedParameters);
+      }
+
+      public FootstepPlannerParametersReadOnly getFootstepPlannerParameters()
+      {
+         return footstepPlannerParameters;
+      }
+
+      public VisibilityGraphsParametersReadOnly getVisibilityGraphParameters()
+      {
+         return visibilityGraphParameters;
+      }
+
+      public SwingPlannerParametersReadOnly getSwingPlannerParameters()
+      {
+         return swingPlannerParameters;
+      }
+
+      public SplitFractionCalculatorParametersReadOnly getSplitFractionParameters()
+      {
+         return splitFractionParameters;
+      }
+
+      private void applyTo(FootstepPlanningModule module)
+      {
+         module.getFootstepPlannerParameters().set(footstepPlannerParameters);
+         module.getVisibilityGraphParameters().set(visibilityGraphParameters);
+         module.getSwingPlannerParameters().set(swingPlannerParameters);
+         module.getSplitFractionParameters().set(splitFractionParameters);
+      }
+   }
+
+   /**
+    * Latency of a completed request, in seconds
+    */
+   public static class RequestLatency
+   {
+      private final int requestId;
+      private final double queueDuration;
+      private final double totalDuration;
+
+      public RequestLatency(int requestId, double queueDuration, double totalDuration)
+      {
+         this.requestId = requestId;
+         this.queueDuration = queueDuration;
+         this.totalDuration = totalDuration;
+      }
+
+      public int getRequestId()
+      {
+         return requestId;
+      }
+
+      /**
+       * @return time between submission and a worker starting to plan
+       */
+      public double getQueueDuration()
+      {
+         return queueDuration;
+      }
+
+      /**
+       * @return time between submission and completion
+       */
+      public double getTotalDuration()
+      {
+         return totalDuration;
+      }
+   }
+}
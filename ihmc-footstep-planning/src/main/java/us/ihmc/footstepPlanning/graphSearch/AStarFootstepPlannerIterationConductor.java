@@ -2,26 +2,31 @@ package us.ihmc.footstepPlanning.graphSearch;
 
 import us.ihmc.footstepPlanning.AStarFootstepPlanner;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.graph.PackedFootstepSearchGraph;
 import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.FootstepNodeExpansion;
 import us.ihmc.pathPlanning.graph.structure.DirectedGraph;
 import us.ihmc.pathPlanning.graph.structure.NodeComparator;
+import us.ihmc.pathPlanning.graph.structure.SearchGraph;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.ToDoubleBiFunction;
 import java.util.function.ToDoubleFunction;
 
 /**
  * Class that performs planning iterations given generic node expansion, checker, cost and heuristic calculators.
- * Interfaces between {@link AStarFootstepPlanner} and {@link DirectedGraph}
+ * Interfaces between {@link AStarFootstepPlanner} and the search graph, which is either a {@link DirectedGraph}
+ * or a {@link PackedFootstepSearchGraph} that also holds the open set.
  */
 public class AStarFootstepPlannerIterationConductor
 {
-   private final HashSet<FootstepNode> expandedNodeSet = new HashSet<>();
-   private final DirectedGraph<FootstepNode> graph = new DirectedGraph<>();
+   private final HashSet<FootstepNode> expandedNodeSet;
+   private final SearchGraph<FootstepNode> graph;
+   private final PackedFootstepSearchGraph packedGraph;
    private final AStarIterationData<FootstepNode> iterationData = new AStarIterationData<>();
    private final List<FootstepNode> neighbors = new ArrayList<>();
 
@@ -29,6 +34,7 @@ public class AStarFootstepPlannerIterationConductor
    private final FootstepNodeExpansion nodeExpansion;
    private final BiPredicate<FootstepNode, FootstepNode> edgeChecker;
    private final ToDoubleBiFunction<FootstepNode, FootstepNode> edgeCostCalculator;
+   private BiConsumer<FootstepNode, List<FootstepNode>> neighborPreprocessor = null;
 
    /**
     * @param nodeExpansion edge calculator. Calling {@code nodeExpansion.apply} returns all possible neighbor nodes
@@ -40,13 +46,41 @@ public class AStarFootstepPlannerIterationConductor
                                                  BiPredicate<FootstepNode, FootstepNode> edgeChecker,
                                                  ToDoubleBiFunction<FootstepNode, FootstepNode> edgeCostCalculator,
                                                  ToDoubleFunction<FootstepNode> heuristicsCalculator)
+   {
+      this(nodeExpansion, edgeChecker, edgeCostCalculator, heuristicsCalculator, false);
+   }
+
+   /**
+    * @param usePackedSearchGraph if true, the search graph and open set are kept in a {@link PackedFootstepSearchGraph}
+    *                             instead of a {@link DirectedGraph} and {@link PriorityQueue}. Both produce the same plans.
+    */
+   public AStarFootstepPlannerIterationConductor(FootstepNodeExpansion nodeExpansion,
+                                                 BiPredicate<FootstepNode, FootstepNode> edgeChecker,
+                                                 ToDoubleBiFunction<FootstepNode, FootstepNode> edgeCostCalculator,
+                                                 ToDoubleFunction<FootstepNode> heuristicsCalculator,
+                                                 boolean usePackedSearchGraph)
    {
       this.nodeExpansion = nodeExpansion;
       this.edgeChecker = edgeChecker;
       this.edgeCostCalculator = edgeCostCalculator;
 
-      NodeComparator<FootstepNode> nodeComparator = new NodeComparator<>(graph, heuristicsCalculator);
-      this.stack = new PriorityQueue<>(nodeComparator);
+      if (usePackedSearchGraph)
+      {
+         packedGraph = new PackedFootstepSearchGraph();
+         packedGraph.setHeuristics(heuristicsCalculator);
+         graph = packedGraph;
+         stack = null;
+         expandedNodeSet = null;
+      }
+      else
+      {
+         DirectedGraph<FootstepNode> directedGraph = new DirectedGraph<>();
+         NodeComparator<FootstepNode> nodeComparator = new NodeComparator<>(directedGraph, heuristicsCalculator);
+         packedGraph = null;
+         graph = directedGraph;
+         stack = new PriorityQueue<>(nodeComparator);
+         expandedNodeSet = new HashSet<>();
+      }
    }
 
    /**
@@ -55,11 +89,18 @@ public class AStarFootstepPlannerIterationConductor
     */
    public void initialize(FootstepNode startNode)
    {
-      stack.clear();
-      stack.add(startNode);
       graph.initialize(startNode);
 
-      expandedNodeSet.clear();
+      if (packedGraph != null)
+      {
+         packedGraph.addToOpenSet(startNode);
+      }
+      else
+      {
+         stack.clear();
+         stack.add(startNode);
+         expandedNodeSet.clear();
+      }
    }
 
   /**
@@ -85,6 +126,11 @@ public class AStarFootstepPlannerIterationConductor
          partialExpansion = false;
       }
 
+      if (neighborPreprocessor != null)
+      {
+         neighborPreprocessor.accept(nodeToExpand, neighbors);
+      }
+
       for(FootstepNode neighbor : neighbors)
       {
          if(edgeChecker.test(neighbor, nodeToExpand))
@@ -92,7 +138,7 @@ public class AStarFootstepPlannerIterationConductor
             double edgeCost = edgeCostCalculator.applyAsDouble(nodeToExpand, neighbor);
             graph.checkAndSetEdge(nodeToExpand, neighbor, edgeCost);
             iterationData.getValidChildNodes().add(neighbor);
-            stack.add(neighbor);
+            addToOpenSet(neighbor);
          }
          else
          {
@@ -105,7 +151,11 @@ public class AStarFootstepPlannerIterationConductor
 
       if (partialExpansion)
       {
-         stack.add(nodeToExpand);
+         addToOpenSet(nodeToExpand);
+      }
+      else if (packedGraph != null)
+      {
+         packedGraph.markExpanded(nodeToExpand);
       }
       else
       {
@@ -115,8 +165,21 @@ public class AStarFootstepPlannerIterationConductor
       return iterationData;
    }
 
+   private void addToOpenSet(FootstepNode node)
+   {
+      if (packedGraph != null)
+         packedGraph.addToOpenSet(node);
+      else
+         stack.add(node);
+   }
+
    public FootstepNode getNextNode()
    {
+      if (packedGraph != null)
+      {
+         return packedGraph.pollOpenSet();
+      }
+
       while (!stack.isEmpty())
       {
          FootstepNode nextNode = stack.poll();
@@ -129,7 +192,16 @@ public class AStarFootstepPlannerIterationConductor
       return null;
    }
 
-   public DirectedGraph<FootstepNode> getGraph()
+   /**
+    * Sets a callback which receives the node being expanded and its neighbors before any of the neighbors are checked.
+    * Used to prepare data for the edge checker and cost calculator ahead of time, for example by snapping in parallel.
+    */
+   public void setNeighborPreprocessor(BiConsumer<FootstepNode, List<FootstepNode>> neighborPreprocessor)
+   {
+      this.neighborPreprocessor = neighborPreprocessor;
+   }
+
+   public SearchGraph<FootstepNode> getGraph()
    {
       return graph;
    }
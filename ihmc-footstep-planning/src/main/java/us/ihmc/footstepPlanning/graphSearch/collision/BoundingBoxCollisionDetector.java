@@ -1,5 +1,8 @@
 package us.ihmc.footstepPlanning.graphSearch.collision;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.shape.collision.EuclidShape3DCollisionResult;
 import us.ihmc.euclid.shape.collision.gjk.GilbertJohnsonKeerthiCollisionDetector;
@@ -31,6 +34,7 @@ public class BoundingBoxCollisionDetector
 
    private final RigidBodyTransform tempTransform = new RigidBodyTransform();
    private final Point3D tempPoint1 = new Point3D();
+   private final List<PlanarRegion> candidateRegions = new ArrayList<>();
 
    public void setPlanarRegionsList(PlanarRegionsList planarRegions)
    {
@@ -60,46 +64,45 @@ public class BoundingBoxCollisionDetector
       setBoundingBoxPosition();
       BodyCollisionData collisionData = new BodyCollisionData();
 
-      for(int i = 0; i < planarRegionsList.getNumberOfPlanarRegions(); i++)
+      setDimensionsToUpperBound();
+      candidateRegions.clear();
+      planarRegionsList.findPlanarRegionsIntersectingBoundingBox(boundingBox, candidateRegions);
+
+      for(int i = 0; i < candidateRegions.size(); i++)
       {
          setDimensionsToUpperBound();
-         PlanarRegion planarRegion = planarRegionsList.getPlanarRegion(i);
+         PlanarRegion region = candidateRegions.get(i);
+         EuclidShape3DCollisionResult collisionResult = collisionDetector.evaluateCollision(region, bodyBox);
 
-         if(planarRegion.getBoundingBox3dInWorld().intersectsExclusive(bodyBox.getBoundingBox()))
+         if(collisionResult.areShapesColliding())
          {
-            PlanarRegion region = planarRegionsList.getPlanarRegion(i);
-            EuclidShape3DCollisionResult collisionResult = collisionDetector.evaluateCollision(region, bodyBox);
+            setDimensionsToLowerBound();
+            collisionResult = collisionDetector.evaluateCollision(region, bodyBox);
 
             if(collisionResult.areShapesColliding())
             {
-               setDimensionsToLowerBound();
-               collisionResult = collisionDetector.evaluateCollision(region, bodyBox);
+               collisionData.setCollisionDetected(true);
+               break;
+            }
+            else
+            {
+               tempPoint1.set(collisionResult.getPointOnA());
+               tempTransform.setTranslationAndIdentityRotation(bodyPoseX, bodyPoseY, bodyPoseZ);
+               tempTransform.getRotation().setToYawOrientation(bodyPoseYaw);
+               tempTransform.invert();
+               tempTransform.transform(tempPoint1);
+
+               double dx = Math.abs(tempPoint1.getX()) - 0.5 * boxDepth;
+               double dy = Math.abs(tempPoint1.getY()) - 0.5 * boxWidth;
+               collisionData.setDistanceFromBoundingBox(getMinimumPositiveValue(dx, dy, collisionData.getDistanceFromBoundingBox()));
 
-               if(collisionResult.areShapesColliding())
+               if(tempPoint1.getX() < 0.0 && dx > 0.0)
                {
-                  collisionData.setCollisionDetected(true);
-                  break;
+                  collisionData.setDistanceOfClosestPointInBack(getMinimumPositiveValue(dx, collisionData.getDistanceOfClosestPointInBack()));
                }
-               else
+               else if(tempPoint1.getX() > 0.0 && dx > 0.0)
                {
-                  tempPoint1.set(collisionResult.getPointOnA());
-                  tempTransform.setTranslationAndIdentityRotation(bodyPoseX, bodyPoseY, bodyPoseZ);
-                  tempTransform.getRotation().setToYawOrientation(bodyPoseYaw);
-                  tempTransform.invert();
-                  tempTransform.transform(tempPoint1);
-
-                  double dx = Math.abs(tempPoint1.getX()) - 0.5 * boxDepth;
-                  double dy = Math.abs(tempPoint1.getY()) - 0.5 * boxWidth;
-                  collisionData.setDistanceFromBoundingBox(getMinimumPositiveValue(dx, dy, collisionData.getDistanceFromBoundingBox()));
-
-                  if(tempPoint1.getX() < 0.0 && dx > 0.0)
-                  {
-                     collisionData.setDistanceOfClosestPointInBack(getMinimumPositiveValue(dx, collisionData.getDistanceOfClosestPointInBack()));
-                  }
-                  else if(tempPoint1.getX() > 0.0 && dx > 0.0)
-                  {
-                     collisionData.setDistanceOfClosestPointInFront(getMinimumPositiveValue(dx, collisionData.getDistanceOfClosestPointInFront()));
-                  }
+                  collisionData.setDistanceOfClosestPointInFront(getMinimumPositiveValue(dx, collisionData.getDistanceOfClosestPointInFront()));
                }
             }
          }
@@ -1,6 +1,10 @@
 package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.apache.commons.lang3.mutable.MutableDouble;
 import us.ihmc.commonWalkingControlModules.polygonWiggling.*;
+import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.geometry.interfaces.ConvexPolygon2DReadOnly;
 import us.ihmc.euclid.geometry.interfaces.Vertex2DSupplier;
@@ -9,19 +13,30 @@ import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNodeTools;
+import us.ihmc.footstepPlanning.graphSearch.graph.LatticeNode;
 import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersReadOnly;
 import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListPolygonSnapper;
 import us.ihmc.log.LogTools;
 import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionSnapField;
+import us.ihmc.robotics.geometry.PlanarRegionTools;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.geometry.RigidBodyTransformGenerator;
+import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.robotSide.SideDependentList;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.ToDoubleFunction;
 
 public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
 {
+   private static final double regionChangeEpsilon = 1.0e-6;
+
    private final SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame;
    private final FootstepPlannerParametersReadOnly parameters;
 
@@ -34,21 +49,181 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
    private final RigidBodyTransformGenerator transformGenerator = new RigidBodyTransformGenerator();
    private final GradientDescentStepConstraintInput gradientDescentStepConstraintInput = new GradientDescentStepConstraintInput();
 
-   private final HashMap<FootstepNode, FootstepNodeSnapData> snapDataHolder = new HashMap<>();
+   /** Shared with worker snappers, see {@link #createWorkerSnapper()} */
+   private final Map<FootstepNode, FootstepNodeSnapData> snapDataHolder;
    protected PlanarRegionsList planarRegionsList;
+   /** Rasterization of the planar regions on the lattice, computed lazily around the queried nodes and shared with worker snappers. {@code null} if there are no regions or too many cells. */
+   private PlanarRegionSnapField snapField;
+   private final TIntArrayList candidateRegionIndices = new TIntArrayList();
+   private final List<PlanarRegion> candidateRegions = new ArrayList<>();
    private final ConvexPolygon2D tempPolygon = new ConvexPolygon2D();
    private final RigidBodyTransform tempTransform = new RigidBodyTransform();
+   private final MutableDouble highestRegionHeight = new MutableDouble();
+
+   /**
+    * Part of the snap data which does not depend on the stance step, recorded while planning when {@link #updatePlanarRegions} is used and
+    * shared with worker snappers.
+    */
+   private final Map<FootstepNode, ReusableSnapData> reusableSnapDataHolder;
+   /** Reusable snap data of the previous request that is still valid with the current planar regions, read-only while planning */
+   private Map<FootstepNode, ReusableSnapData> previousReusableSnapData = Collections.emptyMap();
+   private boolean recordReusableSnapData = false;
+   /** Copy of the regions and parameters the reusable snap data was computed with, see {@link #updatePlanarRegions} */
+   private PlanarRegionsList snappedPlanarRegionsList = null;
+   private List<Object> snappedParameterValues = null;
 
    public FootstepNodeSnapAndWiggler(SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame, FootstepPlannerParametersReadOnly parameters)
+   {
+      this(footPolygonsInSoleFrame, parameters, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+   }
+
+   private FootstepNodeSnapAndWiggler(SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame,
+                                      FootstepPlannerParametersReadOnly parameters,
+                                      Map<FootstepNode, FootstepNodeSnapData> snapDataHolder,
+                                      Map<FootstepNode, ReusableSnapData> reusableSnapDataHolder)
    {
       this.footPolygonsInSoleFrame = footPolygonsInSoleFrame;
       this.parameters = parameters;
+      this.snapDataHolder = snapDataHolder;
+      this.reusableSnapDataHolder = reusableSnapDataHolder;
+   }
+
+   /**
+    * Creates a snapper with its own working memory that shares this snapper's snap data cache.
+    * Used to snap nodes on worker threads, see {@link #precomputeSnapData}
+    */
+   public FootstepNodeSnapAndWiggler createWorkerSnapper()
+   {
+      return new FootstepNodeSnapAndWiggler(footPolygonsInSoleFrame, parameters, snapDataHolder, reusableSnapDataHolder);
+   }
+
+   /**
+    * Updates a worker snapper's planar regions and wiggle parameters to match the given snapper, without clearing the shared cache.
+    */
+   void synchronizeWith(FootstepNodeSnapAndWiggler snapper)
+   {
+      this.planarRegionsList = snapper.planarRegionsList;
+      this.snapField = snapper.snapField;
+      this.previousReusableSnapData = snapper.previousReusableSnapData;
+      this.recordReusableSnapData = snapper.recordReusableSnapData;
+      updateWiggleParameters(wiggleParameters, parameters);
    }
 
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
    {
       this.planarRegionsList = planarRegionsList;
-      snapDataHolder.clear();
+      snapField = PlanarRegionSnapField.build(planarRegionsList, LatticeNode.gridSizeXY);
+      reset();
+   }
+
+   /**
+    * Sets new planar regions and clears the snap data cache, but keeps the part of the snap data of the previous request which does not
+    * depend on the stance step for all nodes away from the regions that were added, removed or moved since the last call:
+    * <ul>
+    * <li>the snap transform and snapped region, reused when no region under the foot is above the maximum snap height of the stance step
+    * the node is reached from. Otherwise the node is snapped again.
+    * <li>the wiggle transform before checking overlap with the stance step. The overlap check and the cropped foothold are computed again.
+    * </ul>
+    * This way the planner returns the same plan as when planning from scratch, while skipping most of the snapping and wiggling when
+    * replanning on a slowly changing map.
+    * <p>
+    * A node's data is discarded if its foot polygon, grown by the maximum wiggle distance and the shin clearance, overlaps the bounding box
+    * of any changed region. Regions are matched by id, if that is not possible or if the planner parameters changed nothing is kept.
+    *
+    * @return the number of nodes whose snap data was kept
+    */
+   public int updatePlanarRegions(PlanarRegionsList planarRegionsList)
+   {
+      PlanarRegionsList previousPlanarRegionsList = snappedPlanarRegionsList;
+      List<Object> previousParameterValues = snappedParameterValues;
+      Map<FootstepNode, ReusableSnapData> recordedSnapData = new HashMap<>(reusableSnapDataHolder);
+      setPlanarRegions(planarRegionsList);
+
+      if (flatGroundMode())
+      {
+         return 0;
+      }
+
+      recordReusableSnapData = true;
+      snappedPlanarRegionsList = planarRegionsList.copy();
+      snappedParameterValues = new ArrayList<>(parameters.getAll());
+
+      if (previousPlanarRegionsList == null || !snappedParameterValues.equals(previousParameterValues))
+      {
+         return 0;
+      }
+
+      List<BoundingBox3D> changedRegionBoundingBoxes = PlanarRegionTools.computeBoundingBoxesOfChangedRegions(previousPlanarRegionsList.getPlanarRegionsAsList(),
+                                                                                                              planarRegionsList.getPlanarRegionsAsList(),
+                                                                                                              regionChangeEpsilon);
+      if (changedRegionBoundingBoxes == null)
+      {
+         return 0;
+      }
+
+      TIntIntHashMap regionIndicesById = new TIntIntHashMap(planarRegionsList.getNumberOfPlanarRegions(), 0.5f, -1, -1);
+      for (int i = 0; i < planarRegionsList.getNumberOfPlanarRegions(); i++)
+      {
+         regionIndicesById.put(planarRegionsList.getPlanarRegion(i).getRegionId(), i);
+      }
+
+      double footprintRadius = parameters.getMaximumXYWiggleDistance();
+      double maximumFootVertexDistance = 0.0;
+      for (RobotSide robotSide : RobotSide.values)
+      {
+         ConvexPolygon2D footPolygonInSoleFrame = footPolygonsInSoleFrame.get(robotSide);
+         for (int i = 0; i < footPolygonInSoleFrame.getNumberOfVertices(); i++)
+         {
+            maximumFootVertexDistance = Math.max(maximumFootVertexDistance, footPolygonInSoleFrame.getVertex(i).distanceFromOrigin());
+         }
+      }
+      footprintRadius += maximumFootVertexDistance;
+      if (parameters.getEnableConcaveHullWiggler() && parameters.getEnableShinCollisionCheck())
+      {
+         // the shin collision check considers all regions near the leg, which can be tilted along with the snapped foot
+         footprintRadius += parameters.getShinToeClearance() + parameters.getShinHeelClearance() + parameters.getShinLength();
+      }
+
+      Map<FootstepNode, ReusableSnapData> keptSnapData = new HashMap<>();
+      for (Map.Entry<FootstepNode, ReusableSnapData> entry : recordedSnapData.entrySet())
+      {
+         FootstepNode node = entry.getKey();
+         ReusableSnapData snapData = entry.getValue();
+
+         if (isNearChangedRegion(node, footprintRadius, changedRegionBoundingBoxes))
+         {
+            continue;
+         }
+
+         int regionId = previousPlanarRegionsList.getPlanarRegion(snapData.regionIndex).getRegionId();
+         int regionIndex = regionIndicesById.get(regionId);
+         if (regionIndex < 0)
+         {
+            continue;
+         }
+
+         snapData.regionIndex = regionIndex;
+         keptSnapData.put(node, snapData);
+      }
+
+      previousReusableSnapData = keptSnapData;
+      return keptSnapData.size();
+   }
+
+   private static boolean isNearChangedRegion(FootstepNode node, double footprintRadius, List<BoundingBox3D> changedRegionBoundingBoxes)
+   {
+      for (int i = 0; i < changedRegionBoundingBoxes.size(); i++)
+      {
+         BoundingBox3D boundingBox = changedRegionBoundingBoxes.get(i);
+         if (node.getX() + footprintRadius < boundingBox.getMinX() || node.getX() - footprintRadius > boundingBox.getMaxX())
+            continue;
+         if (node.getY() + footprintRadius < boundingBox.getMinY() || node.getY() - footprintRadius > boundingBox.getMaxY())
+            continue;
+
+         return true;
+      }
+
+      return false;
    }
 
    public void initialize()
@@ -80,6 +255,11 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
          {
             computeWiggleTransform(footstepNode, stanceNode, snapData);
          }
+         else if (snapData.isStanceCheckPending() && computeWiggleTransform)
+         {
+            snapData.setStanceCheckPending(false);
+            checkStanceOverlapAndCropFoothold(footstepNode, stanceNode, snapData);
+         }
 
          return snapData;
       }
@@ -105,6 +285,28 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
       }
    }
 
+   /**
+    * Snaps and, if requested, wiggles a node that is not yet in the cache and stores the result. Only the work which depends on this
+    * node alone is done here, so this may be called concurrently from worker snappers on distinct nodes. Checking overlap with the stance
+    * step and cropping the foothold are deferred until the node is next snapped with a wiggle transform, which keeps the result identical
+    * to snapping the nodes one at a time in the same order.
+    */
+   void precomputeSnapData(FootstepNode footstepNode, FootstepNode stanceNode, boolean computeWiggleTransform)
+   {
+      if (flatGroundMode() || snapDataHolder.containsKey(footstepNode))
+      {
+         return;
+      }
+
+      FootstepNodeSnapData snapData = computeSnapTransform(footstepNode, stanceNode);
+      if (computeWiggleTransform && !snapData.getSnapTransform().containsNaN())
+      {
+         snapData.setStanceCheckPending(computeWiggleTransformInRegion(footstepNode, snapData));
+      }
+
+      snapDataHolder.putIfAbsent(footstepNode, snapData);
+   }
+
    /**
     * Can manually add snap data for a footstep node to bypass the snapper.
     */
@@ -118,7 +320,28 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
       double maximumRegionHeightToConsider = getMaximumRegionHeightToConsider(stanceNode);
       FootstepNodeTools.getFootPolygon(footstepNode, footPolygonsInSoleFrame.get(footstepNode.getRobotSide()), footPolygon);
 
-      RigidBodyTransform snapTransform = PlanarRegionsListPolygonSnapper.snapPolygonToPlanarRegionsList(footPolygon, planarRegionsList, maximumRegionHeightToConsider, planarRegionToPack);
+      ReusableSnapData previousSnapData = previousReusableSnapData.get(footstepNode);
+      if (previousSnapData != null && previousSnapData.highestRegionHeight <= maximumRegionHeightToConsider)
+      {
+         // no region was left out by the stance step, so snapping again would give the same result
+         FootstepNodeSnapData snapData = new FootstepNodeSnapData(previousSnapData.snapTransform);
+         snapData.setRegionIndex(previousSnapData.regionIndex);
+         computeCroppedFoothold(footstepNode, snapData, planarRegionsList.getPlanarRegion(previousSnapData.regionIndex));
+         reusableSnapDataHolder.put(footstepNode, previousSnapData);
+         return snapData;
+      }
+
+      List<PlanarRegion> regionsToSnapTo = getCandidateRegions(footPolygon);
+      if (regionsToSnapTo.isEmpty())
+      {
+         return FootstepNodeSnapData.emptyData();
+      }
+
+      RigidBodyTransform snapTransform = PlanarRegionsListPolygonSnapper.snapPolygonToPlanarRegionsList(footPolygon,
+                                                                                                         regionsToSnapTo,
+                                                                                                         maximumRegionHeightToConsider,
+                                                                                                         planarRegionToPack,
+                                                                                                         highestRegionHeight);
       if (snapTransform == null)
       {
          return FootstepNodeSnapData.emptyData();
@@ -127,11 +350,37 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
       {
          FootstepNodeSnapData snapData = new FootstepNodeSnapData(snapTransform);
          snapData.setRegionIndex(getIndex(planarRegionToPack, planarRegionsList));
-         computeCroppedFoothold(footstepNode, snapData);
+         computeCroppedFoothold(footstepNode, snapData, planarRegionToPack);
+
+         if (recordReusableSnapData && snapData.getRegionIndex() != -1 && highestRegionHeight.doubleValue() <= maximumRegionHeightToConsider)
+         {
+            reusableSnapDataHolder.put(footstepNode, new ReusableSnapData(snapTransform, snapData.getRegionIndex(), highestRegionHeight.doubleValue()));
+         }
+
          return snapData;
       }
    }
 
+   /**
+    * Gets the regions whose bounding box overlaps the cells under the foot polygon, in the order of the planar regions list. Any other
+    * region cannot intersect the foot, so snapping to these gives the same result as snapping to all regions.
+    */
+   private List<PlanarRegion> getCandidateRegions(ConvexPolygon2DReadOnly footPolygon)
+   {
+      if (snapField == null)
+      {
+         return planarRegionsList.getPlanarRegionsAsList();
+      }
+
+      snapField.getCandidateRegionIndices(footPolygon.getMinX(), footPolygon.getMinY(), footPolygon.getMaxX(), footPolygon.getMaxY(), candidateRegionIndices);
+      candidateRegions.clear();
+      for (int i = 0; i < candidateRegionIndices.size(); i++)
+      {
+         candidateRegions.add(planarRegionsList.getPlanarRegion(candidateRegionIndices.get(i)));
+      }
+      return candidateRegions;
+   }
+
    private static int getIndex(PlanarRegion planarRegion, PlanarRegionsList planarRegionsList)
    {
       double epsilon = 1e-7;
@@ -165,13 +414,50 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
    }
 
    protected void computeWiggleTransform(FootstepNode footstepNode, FootstepNode stanceNode, FootstepNodeSnapData snapData)
+   {
+      if (computeWiggleTransformInRegion(footstepNode, snapData))
+      {
+         checkStanceOverlapAndCropFoothold(footstepNode, stanceNode, snapData);
+      }
+   }
+
+   /**
+    * Computes the wiggle transform of the given node, which only depends on the node and its snapped region.
+    *
+    * @return whether the node was wiggled, in which case {@link #checkStanceOverlapAndCropFoothold} should be called
+    */
+   private boolean computeWiggleTransformInRegion(FootstepNode footstepNode, FootstepNodeSnapData snapData)
+   {
+      ReusableSnapData reusableSnapData = recordReusableSnapData ? reusableSnapDataHolder.get(footstepNode) : null;
+      if (reusableSnapData == null)
+      {
+         return computeWiggleTransformInRegionFromScratch(footstepNode, snapData);
+      }
+
+      if (!reusableSnapData.hasWiggleTransform)
+      {
+         reusableSnapData.isWiggled = computeWiggleTransformInRegionFromScratch(footstepNode, snapData);
+         reusableSnapData.wiggleTransformInWorld.set(snapData.getWiggleTransformInWorld());
+         reusableSnapData.achievedInsideDelta = snapData.getAchievedInsideDelta();
+         reusableSnapData.hasWiggleTransform = true;
+      }
+      else
+      {
+         snapData.getWiggleTransformInWorld().set(reusableSnapData.wiggleTransformInWorld);
+         snapData.setAchievedInsideDelta(reusableSnapData.achievedInsideDelta);
+      }
+
+      return reusableSnapData.isWiggled;
+   }
+
+   private boolean computeWiggleTransformInRegionFromScratch(FootstepNode footstepNode, FootstepNodeSnapData snapData)
    {
       int regionIndex = snapData.getRegionIndex();
       if (regionIndex == -1)
       {
          LogTools.warn("Could not find matching region id, unable to find wiggle transform. Region id = " + snapData.getRegionIndex());
          snapData.getWiggleTransformInWorld().setIdentity();
-         return;
+         return false;
       }
       else
       {
@@ -224,14 +510,14 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
          {
             snapData.setAchievedInsideDelta(initialDeltaInside);
             snapData.getWiggleTransformInWorld().setIdentity();
-            return;
+            return false;
          }
          else
          {
             if ((wiggleTransformInLocal = wiggleIntoConvexHull(footPolygonInRegionFrame)) == null)
             {
                snapData.getWiggleTransformInWorld().setIdentity();
-               return;
+               return false;
             }
          }
       }
@@ -244,7 +530,11 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
       snapData.getWiggleTransformInWorld().set(planarRegionToPack.getTransformToLocal());
       snapData.getWiggleTransformInWorld().preMultiply(wiggleTransformInLocal);
       snapData.getWiggleTransformInWorld().preMultiply(planarRegionToPack.getTransformToWorld());
+      return true;
+   }
 
+   private void checkStanceOverlapAndCropFoothold(FootstepNode footstepNode, FootstepNode stanceNode, FootstepNodeSnapData snapData)
+   {
       if (stanceNode != null && snapDataHolder.containsKey(stanceNode))
       {
          FootstepNodeSnapData stanceNodeSnapData = snapDataHolder.get(stanceNode);
@@ -264,7 +554,7 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
          }
       }
 
-      computeCroppedFoothold(footstepNode, snapData);
+      computeCroppedFoothold(footstepNode, snapData, planarRegionsList.getPlanarRegion(snapData.getRegionIndex()));
    }
 
    /** Extracted to method for testing purposes */
@@ -300,7 +590,7 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
       return distance < parameters.getMinClearanceFromStance();
    }
 
-   protected void computeCroppedFoothold(FootstepNode footstepNode, FootstepNodeSnapData snapData)
+   protected void computeCroppedFoothold(FootstepNode footstepNode, FootstepNodeSnapData snapData, PlanarRegion planarRegion)
    {
       if (flatGroundMode())
       {
@@ -312,11 +602,11 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
 
       snapData.packSnapAndWiggleTransform(tempTransform);
       ConvexPolygon2D snappedPolygonInWorld = FootstepNodeSnappingTools.computeTransformedPolygon(footPolygon, tempTransform);
-      ConvexPolygon2D croppedFootPolygon = FootstepNodeSnappingTools.computeRegionIntersection(planarRegionToPack, snappedPolygonInWorld);
+      ConvexPolygon2D croppedFootPolygon = FootstepNodeSnappingTools.computeRegionIntersection(planarRegion, snappedPolygonInWorld);
 
       if (!croppedFootPolygon.isEmpty())
       {
-         FootstepNodeSnappingTools.changeFromPlanarRegionToSoleFrame(planarRegionToPack, footstepNode, tempTransform, croppedFootPolygon);
+         FootstepNodeSnappingTools.changeFromPlanarRegionToSoleFrame(planarRegion, footstepNode, tempTransform, croppedFootPolygon);
          snapData.getCroppedFoothold().set(croppedFootPolygon);
       }
    }
@@ -371,5 +661,34 @@ public class FootstepNodeSnapAndWiggler implements FootstepNodeSnapperReadOnly
    public void reset()
    {
       snapDataHolder.clear();
+      reusableSnapDataHolder.clear();
+      previousReusableSnapData = Collections.emptyMap();
+      recordReusableSnapData = false;
+      snappedPlanarRegionsList = null;
+      snappedParameterValues = null;
+   }
+
+   /**
+    * Snap data of a node which does not depend on the stance step it is reached from, see {@link #updatePlanarRegions}
+    */
+   private static class ReusableSnapData
+   {
+      private final RigidBodyTransform snapTransform;
+      private int regionIndex;
+      /** Height of the foot on the highest region under it, the snap is the same for any maximum region height above this */
+      private final double highestRegionHeight;
+
+      /** Wiggle transform before the stance check, set by the snapper computing the node's wiggle */
+      private final RigidBodyTransform wiggleTransformInWorld = new RigidBodyTransform();
+      private double achievedInsideDelta = Double.NaN;
+      private boolean isWiggled = false;
+      private volatile boolean hasWiggleTransform = false;
+
+      private ReusableSnapData(RigidBodyTransform snapTransform, int regionIndex, double highestRegionHeight)
+      {
+         this.snapTransform = new RigidBodyTransform(snapTransform);
+         this.regionIndex = regionIndex;
+         this.highestRegionHeight = highestRegionHeight;
+      }
    }
 }
@@ -17,6 +17,8 @@ public class FootstepNodeSnapData implements FootstepNodeSnapDataReadOnly
    private int regionIndex = -1;
    private double achievedInsideDelta = Double.NaN;
    private boolean snappedNodeTransformIncludesWiggleTransform = false;
+   /** Set when the wiggle transform was computed on a worker thread and overlap with the stance step has not been checked yet */
+   private boolean stanceCheckPending = false;
 
    public FootstepNodeSnapData()
    {
@@ -100,6 +102,16 @@ public class FootstepNodeSnapData implements FootstepNodeSnapDataReadOnly
       this.achievedInsideDelta = achievedInsideDelta;
    }
 
+   boolean isStanceCheckPending()
+   {
+      return stanceCheckPending;
+   }
+
+   void setStanceCheckPending(boolean stanceCheckPending)
+   {
+      this.stanceCheckPending = stanceCheckPending;
+   }
+
    private void updateSnappedNodeTransform(FootstepNode node)
    {
       if (snappedNodeTransform.containsNaN())
@@ -123,6 +135,7 @@ public class FootstepNodeSnapData implements FootstepNodeSnapDataReadOnly
       this.regionIndex = other.regionIndex;
       this.achievedInsideDelta = other.achievedInsideDelta;
       this.snappedNodeTransformIncludesWiggleTransform = other.snappedNodeTransformIncludesWiggleTransform;
+      this.stanceCheckPending = other.stanceCheckPending;
    }
 
    public void clear()
@@ -134,6 +147,7 @@ public class FootstepNodeSnapData implements FootstepNodeSnapDataReadOnly
       this.regionIndex = PlanarRegion.NO_REGION_ID;
       this.achievedInsideDelta = Double.NaN;
       this.snappedNodeTransformIncludesWiggleTransform = false;
+      this.stanceCheckPending = false;
    }
 
    private static final FootstepNodeSnapData EMPTY_SNAP_DATA;
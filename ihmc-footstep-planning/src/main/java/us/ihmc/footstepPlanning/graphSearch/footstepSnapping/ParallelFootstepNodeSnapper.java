@@ -0,0 +1,119 @@
+package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
+
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParametersReadOnly;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Snaps and wiggles the candidate children of a node on a fixed pool of worker threads before they are checked.
+ *
+ * Each worker thread uses its own {@link FootstepNodeSnapAndWiggler} created with {@link FootstepNodeSnapAndWiggler#createWorkerSnapper()},
+ * so all results land in the planner snapper's cache. The node checker and cost calculator then run on the planning thread in the original
+ * order and find the snap data already computed, which keeps the search deterministic and the plans identical to serial expansion.
+ */
+public class ParallelFootstepNodeSnapper
+{
+   private final FootstepNodeSnapAndWiggler snapper;
+   private final FootstepPlannerParametersReadOnly parameters;
+   private final ExecutorService executorService;
+   private final ArrayBlockingQueue<FootstepNodeSnapAndWiggler> workerSnappers;
+
+   private final List<Callable<Void>> tasks = new ArrayList<>();
+   private final List<FootstepNode> candidateNodes = new ArrayList<>();
+   private FootstepNode stanceNode;
+   private boolean computeWiggleTransform;
+
+   public ParallelFootstepNodeSnapper(FootstepNodeSnapAndWiggler snapper, FootstepPlannerParametersReadOnly parameters, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("Number of threads must be at least 1, got " + numberOfThreads);
+
+      this.snapper = snapper;
+      this.parameters = parameters;
+      this.executorService = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+      this.workerSnappers = new ArrayBlockingQueue<>(numberOfThreads);
+
+      for (int i = 0; i < numberOfThreads; i++)
+      {
+         workerSnappers.add(snapper.createWorkerSnapper());
+      }
+   }
+
+   /**
+    * Should be called after the planner snapper is initialized for a new request
+    */
+   public void initialize()
+   {
+      for (FootstepNodeSnapAndWiggler workerSnapper : workerSnappers)
+      {
+         workerSnapper.synchronizeWith(snapper);
+      }
+   }
+
+   /**
+    * Snaps all candidate nodes that are not already in the snapper's cache and blocks until done.
+    *
+    * @param stanceNode node being expanded
+    * @param candidateNodes child nodes of the stance node, in the order they will be checked
+    */
+   public void snapCandidateNodes(FootstepNode stanceNode, List<FootstepNode> candidateNodes)
+   {
+      this.stanceNode = stanceNode;
+      this.computeWiggleTransform = parameters.getWiggleWhilePlanning();
+      this.candidateNodes.clear();
+      this.candidateNodes.addAll(candidateNodes);
+
+      while (tasks.size() < candidateNodes.size())
+      {
+         int taskIndex = tasks.size();
+         tasks.add(() -> snapCandidateNode(taskIndex));
+      }
+
+      try
+      {
+         List<Future<Void>> futures = executorService.invokeAll(tasks.subList(0, candidateNodes.size()));
+         for (int i = 0; i < futures.size(); i++)
+         {
+            futures.get(i).get();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+   }
+
+   private Void snapCandidateNode(int index) throws InterruptedException
+   {
+      FootstepNodeSnapAndWiggler workerSnapper = workerSnappers.take();
+
+      try
+      {
+         workerSnapper.precomputeSnapData(candidateNodes.get(index), stanceNode, computeWiggleTransform);
+      }
+      finally
+      {
+         workerSnappers.put(workerSnapper);
+      }
+
+      return null;
+   }
+
+   public void shutdown()
+   {
+      executorService.shutdownNow();
+   }
+}
@@ -10,6 +10,11 @@ import java.util.Random;
 
 public class FootstepNode
 {
+   private static final int PACKED_XY_BITS = 24;
+   private static final int PACKED_YAW_BITS = 8;
+   private static final long PACKED_XY_MASK = (1L << PACKED_XY_BITS) - 1;
+   private static final long PACKED_YAW_MASK = (1L << PACKED_YAW_BITS) - 1;
+
    private final LatticeNode latticeNode;
    private final RobotSide robotSide;
 
@@ -70,6 +75,14 @@ public class FootstepNode
       return latticeNode.getYawIndex();
    }
 
+   /**
+    * Returns a key uniquely identifying this node's lattice cell and side, see {@link #packKey(int, int, int, RobotSide)}
+    */
+   public long getPackedKey()
+   {
+      return packKey(getXIndex(), getYIndex(), getYawIndex(), robotSide);
+   }
+
    public LatticeNode getLatticeNode()
    {
       return latticeNode;
@@ -140,6 +153,19 @@ public class FootstepNode
                               EuclidCoreRandomTools.nextDouble(random, Math.PI), robotSide);
    }
 
+   /**
+    * Packs lattice indices and side into a non-negative long: 24 bits each for the x and y indices,
+    * 8 bits for the yaw index and 1 bit for the side. Indices outside of +/- 2^23 alias.
+    */
+   public static long packKey(int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+   {
+      long key = xIndex & PACKED_XY_MASK;
+      key = (key << PACKED_XY_BITS) | (yIndex & PACKED_XY_MASK);
+      key = (key << PACKED_YAW_BITS) | (yawIndex & PACKED_YAW_MASK);
+      key = (key << 1) | (robotSide == RobotSide.LEFT ? 0 : 1);
+      return key;
+   }
+
    public Point2D getOrComputeMidFootPoint(double stepWidth)
    {
       if (midFootPoint == null)
@@ -0,0 +1,452 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import us.ihmc.pathPlanning.graph.structure.DirectedGraph;
+import us.ihmc.pathPlanning.graph.structure.GraphEdge;
+import us.ihmc.pathPlanning.graph.structure.SearchGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Search graph over {@link FootstepNode}s that keeps all of its state in primitive arrays.
+ *
+ * Nodes are identified by {@link FootstepNode#getPackedKey()} and mapped to an integer slot through an
+ * open-addressed hash table. Costs, parent pointers, outgoing edge lists and the A* open set are stored per slot,
+ * so once the arrays have grown to the size of a typical search no allocation happens while planning.
+ *
+ * Cost propagation follows {@link DirectedGraph} and the open set reproduces the ordering of
+ * {@link java.util.PriorityQueue} ordered by cost-from-start plus heuristic, so both graphs produce the same plans.
+ */
+public class PackedFootstepSearchGraph implements SearchGraph<FootstepNode>
+{
+   private static final long EMPTY_KEY = -1L;
+   private static final int NO_SLOT = -1;
+   private static final int INITIAL_CAPACITY = 1 << 12;
+
+   // hash table from packed key to slot
+   private long[] tableKeys = new long[2 * INITIAL_CAPACITY];
+   private int[] tableSlots = new int[2 * INITIAL_CAPACITY];
+   private int tableMask = tableKeys.length - 1;
+
+   // per node data, indexed by slot
+   private FootstepNode[] nodes = new FootstepNode[INITIAL_CAPACITY];
+   private double[] nodeCosts = new double[INITIAL_CAPACITY];
+   private double[] heuristicCosts = new double[INITIAL_CAPACITY];
+   private int[] parentSlots = new int[INITIAL_CAPACITY];
+   private int[] firstOutgoingEdges = new int[INITIAL_CAPACITY];
+   private int[] lastOutgoingEdges = new int[INITIAL_CAPACITY];
+   private boolean[] expanded = new boolean[INITIAL_CAPACITY];
+   private int numberOfNodes = 0;
+
+   // per edge data, outgoing edges of a node are stored as a linked list
+   private int[] edgeEndSlots = new int[INITIAL_CAPACITY];
+   private double[] edgeCosts = new double[INITIAL_CAPACITY];
+   private int[] nextOutgoingEdges = new int[INITIAL_CAPACITY];
+   private int numberOfEdges = 0;
+
+   // binary heap of slots
+   private int[] openSet = new int[INITIAL_CAPACITY];
+   private int openSetSize = 0;
+
+   private ToDoubleFunction<FootstepNode> heuristics = node -> 0.0;
+   private Consumer<GraphEdge<FootstepNode>> graphExpansionCallback = null;
+
+   public PackedFootstepSearchGraph()
+   {
+      Arrays.fill(tableKeys, EMPTY_KEY);
+   }
+
+   /**
+    * Sets the heuristic used to order the open set. It is evaluated once per node, when the node is first added to the open set.
+    */
+   public void setHeuristics(ToDoubleFunction<FootstepNode> heuristics)
+   {
+      this.heuristics = heuristics;
+   }
+
+   @Override
+   public void initialize(FootstepNode startNode)
+   {
+      Arrays.fill(tableKeys, EMPTY_KEY);
+      Arrays.fill(nodes, 0, numberOfNodes, null);
+      numberOfNodes = 0;
+      numberOfEdges = 0;
+      openSetSize = 0;
+
+      addNode(startNode);
+   }
+
+   @Override
+   public void checkAndSetEdge(FootstepNode startNode, FootstepNode endNode, double transitionCost)
+   {
+      int startSlot = getExistingSlot(startNode);
+      int endSlot = getSlot(endNode);
+      if (endSlot != NO_SLOT && findEdge(startSlot, endSlot) != NO_SLOT)
+         throw new RuntimeException("Edge exists already.");
+
+      boolean newEndNode = endSlot == NO_SLOT;
+      if (newEndNode)
+         endSlot = addNode(endNode);
+
+      int edge = addEdge(startSlot, endSlot, transitionCost);
+      setEdge(startSlot, edge, newEndNode);
+
+      if (graphExpansionCallback != null)
+         graphExpansionCallback.accept(new GraphEdge<>(startNode, endNode));
+   }
+
+   @Override
+   public void updateEdgeCost(FootstepNode startNode, FootstepNode endNode, double transitionCost)
+   {
+      int startSlot = getSlot(startNode);
+      int endSlot = getSlot(endNode);
+      int edge = startSlot == NO_SLOT || endSlot == NO_SLOT ? NO_SLOT : findEdge(startSlot, endSlot);
+
+      if (edge == NO_SLOT)
+      {
+         checkAndSetEdge(startNode, endNode, transitionCost);
+      }
+      else
+      {
+         edgeCosts[edge] = transitionCost;
+         setEdge(startSlot, edge, false);
+      }
+   }
+
+   private void setEdge(int startSlot, int edge, boolean newEndNode)
+   {
+      int endSlot = edgeEndSlots[edge];
+      double newNodeCost = nodeCosts[startSlot] + edgeCosts[edge];
+
+      if (newEndNode)
+      {
+         nodeCosts[endSlot] = newNodeCost;
+         parentSlots[endSlot] = startSlot;
+      }
+      else if (newNodeCost < nodeCosts[endSlot])
+      {
+         nodeCosts[endSlot] = newNodeCost;
+         parentSlots[endSlot] = startSlot;
+         updateChildCostsRecursively(endSlot);
+      }
+   }
+
+   private void updateChildCostsRecursively(int slot)
+   {
+      double parentNodeCost = nodeCosts[slot];
+      for (int edge = firstOutgoingEdges[slot]; edge != NO_SLOT; edge = nextOutgoingEdges[edge])
+      {
+         double newCost = parentNodeCost + edgeCosts[edge];
+         int childSlot = edgeEndSlots[edge];
+
+         if (nodeCosts[childSlot] <= newCost)
+            continue;
+
+         nodeCosts[childSlot] = newCost;
+         parentSlots[childSlot] = slot;
+         updateChildCostsRecursively(childSlot);
+      }
+   }
+
+   @Override
+   public double getCostFromStart(FootstepNode node)
+   {
+      return nodeCosts[getExistingSlot(node)];
+   }
+
+   @Override
+   public List<FootstepNode> getPathFromStart(FootstepNode node)
+   {
+      ArrayList<FootstepNode> path = new ArrayList<>();
+      for (int slot = getExistingSlot(node); slot != NO_SLOT; slot = parentSlots[slot])
+      {
+         path.add(nodes[slot]);
+      }
+
+      Collections.reverse(path);
+      return path;
+   }
+
+   @Override
+   public int getPathLengthFromStart(FootstepNode node)
+   {
+      int pathLength = 0;
+      for (int slot = parentSlots[getExistingSlot(node)]; slot != NO_SLOT; slot = parentSlots[slot])
+      {
+         pathLength++;
+      }
+
+      return pathLength;
+   }
+
+   @Override
+   public boolean doesNodeExist(FootstepNode node)
+   {
+      return getSlot(node) != NO_SLOT;
+   }
+
+   @Override
+   public FootstepNode getParentNode(FootstepNode node)
+   {
+      int parentSlot = parentSlots[getExistingSlot(node)];
+      return parentSlot == NO_SLOT ? null : nodes[parentSlot];
+   }
+
+   @Override
+   public boolean hasOutgoingEdges(FootstepNode node)
+   {
+      int slot = getSlot(node);
+      return slot != NO_SLOT && firstOutgoingEdges[slot] != NO_SLOT;
+   }
+
+   @Override
+   public void getValidChildNodes(FootstepNode node, List<FootstepNode> childNodesToPack)
+   {
+      childNodesToPack.clear();
+      int slot = getSlot(node);
+      if (slot == NO_SLOT)
+         return;
+
+      for (int edge = firstOutgoingEdges[slot]; edge != NO_SLOT; edge = nextOutgoingEdges[edge])
+      {
+         if (Double.isFinite(edgeCosts[edge]))
+            childNodesToPack.add(nodes[edgeEndSlots[edge]]);
+      }
+   }
+
+   @Override
+   public void setGraphExpansionCallback(Consumer<GraphEdge<FootstepNode>> graphExpansionCallback)
+   {
+      this.graphExpansionCallback = graphExpansionCallback;
+   }
+
+   public int getNumberOfNodes()
+   {
+      return numberOfNodes;
+   }
+
+   public int getNumberOfEdges()
+   {
+      return numberOfEdges;
+   }
+
+   // Open set
+
+   /**
+    * Adds the node to the open set. The node must already be in the graph. Nodes may be added more than once.
+    */
+   public void addToOpenSet(FootstepNode node)
+   {
+      int slot = getExistingSlot(node);
+      if (Double.isNaN(heuristicCosts[slot]))
+         heuristicCosts[slot] = heuristics.applyAsDouble(node);
+
+      if (openSetSize == openSet.length)
+         openSet = Arrays.copyOf(openSet, 2 * openSet.length);
+
+      siftUp(openSetSize++, slot);
+   }
+
+   /**
+    * Removes and returns the node with lowest cost-from-start plus heuristic which has not been marked as expanded,
+    * or null if there is none.
+    */
+   public FootstepNode pollOpenSet()
+   {
+      while (openSetSize > 0)
+      {
+         int slot = openSet[0];
+         int last = openSet[--openSetSize];
+         if (openSetSize > 0)
+            siftDown(0, last);
+
+         if (!expanded[slot])
+            return nodes[slot];
+      }
+
+      return null;
+   }
+
+   public void markExpanded(FootstepNode node)
+   {
+      expanded[getExistingSlot(node)] = true;
+   }
+
+   public boolean isExpanded(FootstepNode node)
+   {
+      int slot = getSlot(node);
+      return slot != NO_SLOT && expanded[slot];
+   }
+
+   public int getOpenSetSize()
+   {
+      return openSetSize;
+   }
+
+   private int compareSlots(int slotA, int slotB)
+   {
+      double costA = nodeCosts[slotA] + heuristicCosts[slotA];
+      double costB = nodeCosts[slotB] + heuristicCosts[slotB];
+      if (costA == costB)
+         return 0;
+      return costA < costB ? -1 : 1;
+   }
+
+   private void siftUp(int k, int slot)
+   {
+      while (k > 0)
+      {
+         int parent = (k - 1) >>> 1;
+         int parentSlot = openSet[parent];
+         if (compareSlots(slot, parentSlot) >= 0)
+            break;
+         openSet[k] = parentSlot;
+         k = parent;
+      }
+      openSet[k] = slot;
+   }
+
+   private void siftDown(int k, int slot)
+   {
+      int half = openSetSize >>> 1;
+      while (k < half)
+      {
+         int child = (k << 1) + 1;
+         int childSlot = openSet[child];
+         int right = child + 1;
+         if (right < openSetSize && compareSlots(childSlot, openSet[right]) > 0)
+            childSlot = openSet[child = right];
+         if (compareSlots(slot, childSlot) <= 0)
+            break;
+         openSet[k] = childSlot;
+         k = child;
+      }
+      openSet[k] = slot;
+   }
+
+   // Storage
+
+   private int getExistingSlot(FootstepNode node)
+   {
+      int slot = getSlot(node);
+      if (slot == NO_SLOT)
+         throw new RuntimeException("Node has not been added to graph yet.");
+      return slot;
+   }
+
+   private int getSlot(FootstepNode node)
+   {
+      long key = node.getPackedKey();
+      int index = hash(key) & tableMask;
+      while (true)
+      {
+         long tableKey = tableKeys[index];
+         if (tableKey == key)
+            return tableSlots[index];
+         if (tableKey == EMPTY_KEY)
+            return NO_SLOT;
+         index = (index + 1) & tableMask;
+      }
+   }
+
+   private int addNode(FootstepNode node)
+   {
+      if (numberOfNodes == nodes.length)
+         growNodeArrays();
+      if (2 * (numberOfNodes + 1) > tableKeys.length)
+         growTable();
+
+      int slot = numberOfNodes++;
+      nodes[slot] = node;
+      nodeCosts[slot] = 0.0;
+      heuristicCosts[slot] = Double.NaN;
+      parentSlots[slot] = NO_SLOT;
+      firstOutgoingEdges[slot] = NO_SLOT;
+      lastOutgoingEdges[slot] = NO_SLOT;
+      expanded[slot] = false;
+
+      insertIntoTable(node.getPackedKey(), slot);
+      return slot;
+   }
+
+   private int addEdge(int startSlot, int endSlot, double cost)
+   {
+      if (numberOfEdges == edgeEndSlots.length)
+      {
+         int capacity = 2 * edgeEndSlots.length;
+         edgeEndSlots = Arrays.copyOf(edgeEndSlots, capacity);
+         edgeCosts = Arrays.copyOf(edgeCosts, capacity);
+         nextOutgoingEdges = Arrays.copyOf(nextOutgoingEdges, capacity);
+      }
+
+      int edge = numberOfEdges++;
+      edgeEndSlots[edge] = endSlot;
+      edgeCosts[edge] = cost;
+      nextOutgoingEdges[edge] = NO_SLOT;
+
+      // append to keep edges in insertion order
+      if (firstOutgoingEdges[startSlot] == NO_SLOT)
+         firstOutgoingEdges[startSlot] = edge;
+      else
+         nextOutgoingEdges[lastOutgoingEdges[startSlot]] = edge;
+      lastOutgoingEdges[startSlot] = edge;
+
+      return edge;
+   }
+
+   private int findEdge(int startSlot, int endSlot)
+   {
+      for (int edge = firstOutgoingEdges[startSlot]; edge != NO_SLOT; edge = nextOutgoingEdges[edge])
+      {
+         if (edgeEndSlots[edge] == endSlot)
+            return edge;
+      }
+      return NO_SLOT;
+   }
+
+   private void insertIntoTable(long key, int slot)
+   {
+      int index = hash(key) & tableMask;
+      while (tableKeys[index] != EMPTY_KEY)
+      {
+         index = (index + 1) & tableMask;
+      }
+      tableKeys[index] = key;
+      tableSlots[index] = slot;
+   }
+
+   private void growNodeArrays()
+   {
+      int capacity = 2 * nodes.length;
+      nodes = Arrays.copyOf(nodes, capacity);
+      nodeCosts = Arrays.copyOf(nodeCosts, capacity);
+      heuristicCosts = Arrays.copyOf(heuristicCosts, capacity);
+      parentSlots = Arrays.copyOf(parentSlots, capacity);
+      firstOutgoingEdges = Arrays.copyOf(firstOutgoingEdges, capacity);
+      lastOutgoingEdges = Arrays.copyOf(lastOutgoingEdges, capacity);
+      expanded = Arrays.copyOf(expanded, capacity);
+   }
+
+   private void growTable()
+   {
+      tableKeys = new long[2 * tableKeys.length];
+      tableSlots = new int[tableKeys.length];
+      tableMask = tableKeys.length - 1;
+      Arrays.fill(tableKeys, EMPTY_KEY);
+
+      for (int slot = 0; slot < numberOfNodes; slot++)
+      {
+         insertIntoTable(nodes[slot].getPackedKey(), slot);
+      }
+   }
+
+   private static int hash(long key)
+   {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+   }
+}
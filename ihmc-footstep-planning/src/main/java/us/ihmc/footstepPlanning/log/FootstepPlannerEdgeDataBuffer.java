@@ -0,0 +1,439 @@
+package us.ihmc.footstepPlanning.log;
+
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple4D.Quaternion;
+import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapData;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Preallocated columnar store of the edge data recorded during a footstep plan, as a cheap alternative to creating a
+ * {@link FootstepPlannerEdgeData} per edge.
+ *
+ * Each field of the edge data is stored in its own primitive array and each logged variable in its own long array, so recording an edge
+ * only copies primitives and nothing is allocated while planning. To bound the cost further, only one out of {@code samplePeriod} edges
+ * can be recorded. Once full, the buffer either drops the new edges or, as a ring buffer, overwrites the oldest ones.
+ *
+ * The buffer is written and read in a binary format made of a header followed by each column, see {@link #write(Path)} and
+ * {@link #read(ByteBuffer)}. {@link MappedFootstepPlannerEdgeData} reads the same format in place.
+ */
+public class FootstepPlannerEdgeDataBuffer
+{
+   static final int MAGIC_NUMBER = 0x46504544; // "FPED"
+   static final int FORMAT_VERSION = 1;
+   static final int HEADER_SIZE = 5 * Integer.BYTES;
+   /** Cropped footholds with more vertices are truncated, foot polygons have 4 vertices. */
+   public static final int MAXIMUM_FOOTHOLD_VERTICES = 8;
+
+   static final int STANCE_X = 0, STANCE_Y = 1, STANCE_YAW = 2, STANCE_SIDE = 3;
+   static final int CANDIDATE_X = 4, CANDIDATE_Y = 5, CANDIDATE_YAW = 6, CANDIDATE_SIDE = 7;
+   static final int SOLUTION_EDGE = 8, REGION_INDEX = 9, FOOTHOLD_VERTICES = 10;
+   static final int NUMBER_OF_INT_COLUMNS = 11;
+
+   static final int SNAP_TRANSFORM = 0, WIGGLE_TRANSFORM = 7, INSIDE_DELTA = 14, FOOTHOLD = 15;
+   static final int NUMBER_OF_DOUBLE_COLUMNS = FOOTHOLD + 2 * MAXIMUM_FOOTHOLD_VERTICES;
+
+   private final int capacity;
+   private final int numberOfVariables;
+   private final int samplePeriod;
+   private final boolean overwriteOldest;
+
+   private final int[][] intColumns;
+   private final double[][] doubleColumns;
+   private final long[][] variableColumns;
+
+   /** Row of the oldest recorded edge */
+   private int firstRow = 0;
+   private int numberOfEdges = 0;
+   private long numberOfEdgesVisited = 0;
+   private long numberOfDroppedEdges = 0;
+
+   private final Quaternion quaternion = new Quaternion();
+   private final Vector3D translation = new Vector3D();
+
+   /**
+    * @param capacity maximum number of edges held
+    * @param numberOfVariables number of logged variables per edge
+    * @param samplePeriod records one out of this many edges, 1 to record all of them
+    * @param overwriteOldest when full, whether new edges overwrite the oldest ones or are dropped
+    */
+   public FootstepPlannerEdgeDataBuffer(int capacity, int numberOfVariables, int samplePeriod, boolean overwriteOldest)
+   {
+      if (capacity < 1)
+         throw new IllegalArgumentException("Capacity must be at least 1, got " + capacity);
+      if (samplePeriod < 1)
+         throw new IllegalArgumentException("Sample period must be at least 1, got " + samplePeriod);
+
+      this.capacity = capacity;
+      this.numberOfVariables = numberOfVariables;
+      this.samplePeriod = samplePeriod;
+      this.overwriteOldest = overwriteOldest;
+
+      intColumns = new int[NUMBER_OF_INT_COLUMNS][capacity];
+      doubleColumns = new double[NUMBER_OF_DOUBLE_COLUMNS][capacity];
+      variableColumns = new long[numberOfVariables][capacity];
+   }
+
+   public void clear()
+   {
+      firstRow = 0;
+      numberOfEdges = 0;
+      numberOfEdgesVisited = 0;
+      numberOfDroppedEdges = 0;
+   }
+
+   /**
+    * Counts an expanded edge and tells whether it should be recorded, according to the sample period and the remaining capacity. If this
+    * returns true, the edge has to be recorded with {@link #record(FootstepNode, FootstepNode, FootstepNodeSnapData, List)}.
+    */
+   public boolean startEdge()
+   {
+      long edgeIndex = numberOfEdgesVisited++;
+
+      if (edgeIndex % samplePeriod != 0)
+         return false;
+
+      if (numberOfEdges == capacity && !overwriteOldest)
+      {
+         numberOfDroppedEdges++;
+         return false;
+      }
+
+      return true;
+   }
+
+   public void record(FootstepNode stanceNode, FootstepNode candidateNode, FootstepNodeSnapData candidateSnapData, List<YoVariable> variables)
+   {
+      int row;
+      if (numberOfEdges < capacity)
+      {
+         row = (firstRow + numberOfEdges) % capacity;
+         numberOfEdges++;
+      }
+      else
+      {
+         row = firstRow;
+         firstRow = (firstRow + 1) % capacity;
+         numberOfDroppedEdges++;
+      }
+
+      setNode(row, STANCE_X, stanceNode);
+      setNode(row, CANDIDATE_X, candidateNode);
+      intColumns[SOLUTION_EDGE][row] = 0;
+      setSnapData(row, candidateSnapData);
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         variableColumns[i][row] = variables.get(i).getValueAsLongBits();
+      }
+   }
+
+   private void setNode(int row, int firstColumn, FootstepNode node)
+   {
+      intColumns[firstColumn][row] = node.getXIndex();
+      intColumns[firstColumn + 1][row] = node.getYIndex();
+      intColumns[firstColumn + 2][row] = node.getYawIndex();
+      intColumns[firstColumn + 3][row] = node.getRobotSide().ordinal();
+   }
+
+   private void setSnapData(int row, FootstepNodeSnapData snapData)
+   {
+      setTransform(row, SNAP_TRANSFORM, snapData.getSnapTransform());
+      setTransform(row, WIGGLE_TRANSFORM, snapData.getWiggleTransformInWorld());
+      doubleColumns[INSIDE_DELTA][row] = snapData.getAchievedInsideDelta();
+      intColumns[REGION_INDEX][row] = snapData.getRegionIndex();
+
+      ConvexPolygon2D croppedFoothold = snapData.getCroppedFoothold();
+      int numberOfVertices = croppedFoothold.isEmpty() || croppedFoothold.containsNaN() ? 0 : croppedFoothold.getNumberOfVertices();
+      numberOfVertices = Math.min(numberOfVertices, MAXIMUM_FOOTHOLD_VERTICES);
+      intColumns[FOOTHOLD_VERTICES][row] = numberOfVertices;
+
+      for (int i = 0; i < numberOfVertices; i++)
+      {
+         Point2DReadOnly vertex = croppedFoothold.getVertex(i);
+         doubleColumns[FOOTHOLD + 2 * i][row] = vertex.getX();
+         doubleColumns[FOOTHOLD + 2 * i + 1][row] = vertex.getY();
+      }
+   }
+
+   private void setTransform(int row, int firstColumn, RigidBodyTransform transform)
+   {
+      quaternion.set(transform.getRotation());
+      doubleColumns[firstColumn][row] = quaternion.getX();
+      doubleColumns[firstColumn + 1][row] = quaternion.getY();
+      doubleColumns[firstColumn + 2][row] = quaternion.getZ();
+      doubleColumns[firstColumn + 3][row] = quaternion.getS();
+      doubleColumns[firstColumn + 4][row] = transform.getTranslation().getX();
+      doubleColumns[firstColumn + 5][row] = transform.getTranslation().getY();
+      doubleColumns[firstColumn + 6][row] = transform.getTranslation().getZ();
+   }
+
+   private void getTransform(int row, int firstColumn, RigidBodyTransform transformToPack)
+   {
+      quaternion.set(doubleColumns[firstColumn][row], doubleColumns[firstColumn + 1][row], doubleColumns[firstColumn + 2][row], doubleColumns[firstColumn + 3][row]);
+      translation.set(doubleColumns[firstColumn + 4][row], doubleColumns[firstColumn + 5][row], doubleColumns[firstColumn + 6][row]);
+      transformToPack.set(quaternion, translation);
+   }
+
+   private int toRow(int edgeIndex)
+   {
+      if (edgeIndex < 0 || edgeIndex >= numberOfEdges)
+         throw new IndexOutOfBoundsException("Edge index " + edgeIndex + " out of bounds, number of edges: " + numberOfEdges);
+      return (firstRow + edgeIndex) % capacity;
+   }
+
+   /**
+    * @param edgeIndex index of the edge, from 0 for the oldest to {@link #getNumberOfEdges()} - 1
+    */
+   public FootstepNode getStanceNode(int edgeIndex)
+   {
+      return getNode(toRow(edgeIndex), STANCE_X);
+   }
+
+   public FootstepNode getCandidateNode(int edgeIndex)
+   {
+      return getNode(toRow(edgeIndex), CANDIDATE_X);
+   }
+
+   private FootstepNode getNode(int row, int firstColumn)
+   {
+      return new FootstepNode(intColumns[firstColumn][row],
+                              intColumns[firstColumn + 1][row],
+                              intColumns[firstColumn + 2][row],
+                              RobotSide.values[intColumns[firstColumn + 3][row]]);
+   }
+
+   public boolean isSolutionEdge(int edgeIndex)
+   {
+      return intColumns[SOLUTION_EDGE][toRow(edgeIndex)] != 0;
+   }
+
+   public void setSolutionEdge(int edgeIndex, boolean solutionEdge)
+   {
+      intColumns[SOLUTION_EDGE][toRow(edgeIndex)] = solutionEdge ? 1 : 0;
+   }
+
+   public void setCandidateNodeSnapData(int edgeIndex, FootstepNodeSnapData snapData)
+   {
+      setSnapData(toRow(edgeIndex), snapData);
+   }
+
+   public long getVariable(int edgeIndex, int variableIndex)
+   {
+      return variableColumns[variableIndex][toRow(edgeIndex)];
+   }
+
+   /**
+    * Unpacks the given edge in the format used by {@link FootstepPlannerLog}.
+    */
+   public FootstepPlannerEdgeData getEdgeData(int edgeIndex)
+   {
+      int row = toRow(edgeIndex);
+
+      FootstepPlannerEdgeData edgeData = new FootstepPlannerEdgeData(numberOfVariables);
+      edgeData.setStanceNode(getNode(row, STANCE_X));
+      edgeData.setCandidateNode(getNode(row, CANDIDATE_X));
+      edgeData.setSolutionEdge(intColumns[SOLUTION_EDGE][row] != 0);
+
+      FootstepNodeSnapData snapData = edgeData.getCandidateNodeSnapData();
+      getTransform(row, SNAP_TRANSFORM, snapData.getSnapTransform());
+      getTransform(row, WIGGLE_TRANSFORM, snapData.getWiggleTransformInWorld());
+      snapData.setAchievedInsideDelta(doubleColumns[INSIDE_DELTA][row]);
+      snapData.setRegionIndex(intColumns[REGION_INDEX][row]);
+
+      ConvexPolygon2D croppedFoothold = snapData.getCroppedFoothold();
+      croppedFoothold.clear();
+      for (int i = 0; i < intColumns[FOOTHOLD_VERTICES][row]; i++)
+      {
+         croppedFoothold.addVertex(doubleColumns[FOOTHOLD + 2 * i][row], doubleColumns[FOOTHOLD + 2 * i + 1][row]);
+      }
+      croppedFoothold.update();
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         edgeData.setData(i, variableColumns[i][row]);
+      }
+
+      return edgeData;
+   }
+
+   /**
+    * @return an independent copy holding the same edges, oldest first
+    */
+   public FootstepPlannerEdgeDataBuffer copy()
+   {
+      FootstepPlannerEdgeDataBuffer copy = new FootstepPlannerEdgeDataBuffer(Math.max(numberOfEdges, 1), numberOfVariables, samplePeriod, overwriteOldest);
+      copyColumns(intColumns, copy.intColumns);
+      copyColumns(doubleColumns, copy.doubleColumns);
+      copyColumns(variableColumns, copy.variableColumns);
+      copy.numberOfEdges = numberOfEdges;
+      copy.numberOfEdgesVisited = numberOfEdgesVisited;
+      copy.numberOfDroppedEdges = numberOfDroppedEdges;
+      return copy;
+   }
+
+   private void copyColumns(Object[] source, Object[] destination)
+   {
+      int firstChunk = Math.min(numberOfEdges, capacity - firstRow);
+      for (int i = 0; i < source.length; i++)
+      {
+         System.arraycopy(source[i], firstRow, destination[i], 0, firstChunk);
+         System.arraycopy(source[i], 0, destination[i], firstChunk, numberOfEdges - firstChunk);
+      }
+   }
+
+   /**
+    * Writes the recorded edges, oldest first, to the given file.
+    */
+   public void write(Path file) throws IOException
+   {
+      long size = HEADER_SIZE + (long) numberOfEdges * (NUMBER_OF_INT_COLUMNS * Integer.BYTES + NUMBER_OF_DOUBLE_COLUMNS * Double.BYTES
+                                                        + numberOfVariables * Long.BYTES);
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, 1 << 20)).order(ByteOrder.LITTLE_ENDIAN);
+
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         buffer.putInt(MAGIC_NUMBER);
+         buffer.putInt(FORMAT_VERSION);
+         buffer.putInt(numberOfVariables);
+         buffer.putInt(numberOfEdges);
+         buffer.putInt(MAXIMUM_FOOTHOLD_VERTICES);
+
+         for (int column = 0; column < NUMBER_OF_INT_COLUMNS; column++)
+         {
+            for (int i = 0; i < numberOfEdges; i++)
+            {
+               if (buffer.remaining() < Integer.BYTES)
+                  flush(buffer, channel);
+               buffer.putInt(intColumns[column][(firstRow + i) % capacity]);
+            }
+         }
+
+         for (int column = 0; column < NUMBER_OF_DOUBLE_COLUMNS; column++)
+         {
+            for (int i = 0; i < numberOfEdges; i++)
+            {
+               if (buffer.remaining() < Double.BYTES)
+                  flush(buffer, channel);
+               buffer.putDouble(doubleColumns[column][(firstRow + i) % capacity]);
+            }
+         }
+
+         for (int column = 0; column < numberOfVariables; column++)
+         {
+            for (int i = 0; i < numberOfEdges; i++)
+            {
+               if (buffer.remaining() < Long.BYTES)
+                  flush(buffer, channel);
+               buffer.putLong(variableColumns[column][(firstRow + i) % capacity]);
+            }
+         }
+
+         flush(buffer, channel);
+      }
+   }
+
+   private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException
+   {
+      buffer.flip();
+      while (buffer.hasRemaining())
+         channel.write(buffer);
+      buffer.clear();
+   }
+
+   /**
+    * Reads edges written with {@link #write(Path)}, typically from a memory-mapped file.
+    */
+   public static FootstepPlannerEdgeDataBuffer read(ByteBuffer buffer)
+   {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (buffer.getInt() != MAGIC_NUMBER)
+         throw new IllegalArgumentException("Not a footstep planner edge data file");
+      int version = buffer.getInt();
+      if (version != FORMAT_VERSION)
+         throw new IllegalArgumentException("Unsupported edge data format version: " + version);
+
+      int numberOfVariables = buffer.getInt();
+      int numberOfEdges = buffer.getInt();
+      int maximumFootholdVertices = buffer.getInt();
+      if (maximumFootholdVertices != MAXIMUM_FOOTHOLD_VERTICES)
+         throw new IllegalArgumentException("Unexpected number of foothold vertices: " + maximumFootholdVertices);
+
+      FootstepPlannerEdgeDataBuffer edgeDataBuffer = new FootstepPlannerEdgeDataBuffer(Math.max(numberOfEdges, 1), numberOfVariables, 1, false);
+      edgeDataBuffer.numberOfEdges = numberOfEdges;
+      edgeDataBuffer.numberOfEdgesVisited = numberOfEdges;
+
+      // Reading through views is much faster than element by element, the views do not advance the buffer position
+      for (int column = 0; column < NUMBER_OF_INT_COLUMNS; column++)
+      {
+         buffer.asIntBuffer().get(edgeDataBuffer.intColumns[column], 0, numberOfEdges);
+         buffer.position(buffer.position() + numberOfEdges * Integer.BYTES);
+      }
+      for (int column = 0; column < NUMBER_OF_DOUBLE_COLUMNS; column++)
+      {
+         buffer.asDoubleBuffer().get(edgeDataBuffer.doubleColumns[column], 0, numberOfEdges);
+         buffer.position(buffer.position() + numberOfEdges * Double.BYTES);
+      }
+      for (int column = 0; column < numberOfVariables; column++)
+      {
+         buffer.asLongBuffer().get(edgeDataBuffer.variableColumns[column], 0, numberOfEdges);
+         buffer.position(buffer.position() + numberOfEdges * Long.BYTES);
+      }
+
+      return edgeDataBuffer;
+   }
+
+   public int getCapacity()
+   {
+      return capacity;
+   }
+
+   public int getNumberOfVariables()
+   {
+      return numberOfVariables;
+   }
+
+   public int getSamplePeriod()
+   {
+      return samplePeriod;
+   }
+
+   public boolean isOverwritingOldest()
+   {
+      return overwriteOldest;
+   }
+
+   public int getNumberOfEdges()
+   {
+      return numberOfEdges;
+   }
+
+   /**
+    * @return number of edges expanded since the last clear, recorded or not
+    */
+   public long getNumberOfEdgesVisited()
+   {
+      return numberOfEdgesVisited;
+   }
+
+   /**
+    * @return number of edges dropped or overwritten because the buffer was full
+    */
+   public long getNumberOfDroppedEdges()
+   {
+      return numberOfDroppedEdges;
+   }
+}
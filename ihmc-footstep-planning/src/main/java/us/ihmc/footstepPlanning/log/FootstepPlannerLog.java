@@ -28,7 +28,7 @@ public class FootstepPlannerLog
    // Logged data
    private final VisibilityGraphHolder visibilityGraphHolder = new VisibilityGraphHolder();
    private final List<VariableDescriptor> variableDescriptors = new ArrayList<>();
-   private final Map<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> edgeDataMap = new HashMap<>();
+   private Map<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> edgeDataMap = new HashMap<>();
    private final List<FootstepPlannerIterationData> iterationData = new ArrayList<>();
    private final SideDependentList<ConvexPolygon2D> footPolygons = new SideDependentList<>();
 
@@ -87,6 +87,15 @@ public class FootstepPlannerLog
       return edgeDataMap;
    }
 
+   /**
+    * Replaces the edge data map, used for the edge data read in place from a buffered edge data file, see
+    * {@link MappedFootstepPlannerEdgeData#createEdgeDataMap()}.
+    */
+   void setEdgeDataMap(Map<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> edgeDataMap)
+   {
+      this.edgeDataMap = edgeDataMap;
+   }
+
    public List<FootstepPlannerIterationData> getIterationData()
    {
       return iterationData;
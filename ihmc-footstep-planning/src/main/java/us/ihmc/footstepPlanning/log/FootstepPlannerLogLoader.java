@@ -28,9 +28,11 @@ import us.ihmc.yoVariables.variable.YoVariableType;
 
 import javax.swing.*;
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 public class FootstepPlannerLogLoader
@@ -309,6 +311,13 @@ public class FootstepPlannerLogLoader
             }
          }
 
+         dataFileReader.close();
+         File edgeDataFile = new File(logDirectory, FootstepPlannerLogger.edgeDataFileName);
+         if (edgeDataFile.exists())
+         {
+            loadEdgeDataBuffer(edgeDataFile);
+         }
+
          return LoadResult.LOADED;
       }
       catch (Exception e)
@@ -319,6 +328,38 @@ public class FootstepPlannerLogLoader
       }
    }
 
+   /**
+    * Loads the edge data logged with buffered edge data logging, in which case the data file doesn't have any edges. The file stays mapped
+    * and the edge data is only unpacked when looked up, the nodes are read to list the children of each iteration and index the edges.
+    */
+   private void loadEdgeDataBuffer(File edgeDataFile) throws IOException
+   {
+      MappedFootstepPlannerEdgeData edgeData;
+      // the mapping stays valid once the channel is closed
+      try (FileChannel channel = FileChannel.open(edgeDataFile.toPath(), StandardOpenOption.READ))
+      {
+         edgeData = new MappedFootstepPlannerEdgeData(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      }
+
+      Map<FootstepNode, FootstepPlannerIterationData> iterationDataMap = new HashMap<>();
+      for (int i = 0; i < log.getIterationData().size(); i++)
+      {
+         FootstepPlannerIterationData iterationData = log.getIterationData().get(i);
+         iterationDataMap.put(iterationData.getStanceNode(), iterationData);
+      }
+
+      for (int edgeIndex = 0; edgeIndex < edgeData.getNumberOfEdges(); edgeIndex++)
+      {
+         FootstepPlannerIterationData iterationData = iterationDataMap.get(edgeData.getStanceNode(edgeIndex));
+         if (iterationData != null)
+         {
+            iterationData.getChildNodes().add(edgeData.getCandidateNode(edgeIndex));
+         }
+      }
+
+      log.setEdgeDataMap(edgeData.createEdgeDataMap());
+   }
+
    public FootstepPlannerLog getLog()
    {
       return log;
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import us.ihmc.commons.nio.BasicPathVisitor;
 import us.ihmc.commons.nio.FileTools;
 import us.ihmc.commons.nio.PathTools;
+import us.ihmc.commons.thread.ThreadTools;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.tools.EuclidCoreIOTools;
 import us.ihmc.euclid.transform.RigidBodyTransform;
@@ -37,6 +38,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class FootstepPlannerLogger
@@ -55,6 +61,7 @@ public class FootstepPlannerLogger
    static final String bodyPathPlanFileName = "BodyPathPlanData.log";
    static final String headerFileName = "Header.txt";
    static final String dataFileName = "PlannerIterationData.log";
+   static final String edgeDataFileName = "PlannerEdgeData.bin";
 
    private final FootstepPlanningModule planner;
    private final AtomicBoolean generatingLog = new AtomicBoolean();
@@ -62,6 +69,9 @@ public class FootstepPlannerLogger
    private FileOutputStream outputStream = null;
    private PrintStream printStream = null;
    private FileWriter fileWriter = null;
+   private ExecutorService edgeDataWriter = null;
+   private Future<?> pendingEdgeDataWrite = null;
+   private final AtomicBoolean edgeDataWriteFailed = new AtomicBoolean();
 
    private final FootstepPlanningRequestPacket requestPacket = new FootstepPlanningRequestPacket();
    private final FootstepPlannerParametersPacket footstepParametersPacket = new FootstepPlannerParametersPacket();
@@ -324,6 +334,7 @@ public class FootstepPlannerLogger
          FileTools.ensureFileExists(plannerDataFile.toPath());
          fileWriter = new FileWriter(plannerIterationDataFileName);
 
+         FootstepPlannerEdgeDataBuffer edgeDataBuffer = planner.getEdgeDataBuffer();
          List<FootstepPlannerIterationData> iterationDataList = planner.getIterationData();
          for (int i = 0; i < iterationDataList.size(); i++)
          {
@@ -331,10 +342,11 @@ public class FootstepPlannerLogger
             fileWriter.write("Iteration " + i + newLine);
             writeNode(1, "stanceNode", iterationData.getStanceNode());
             writeNode(1, "idealStep", iterationData.getIdealStep());
-            writeLine(1, "edges:" + iterationData.getChildNodes().size());
+            // with buffered edge data logging, the edges are in the binary file
+            writeLine(1, "edges:" + (edgeDataBuffer == null ? iterationData.getChildNodes().size() : 0));
             writeSnapData(1, iterationData.getStanceNodeSnapData());
 
-            for (int j = 0; j < iterationData.getChildNodes().size(); j++)
+            for (int j = 0; edgeDataBuffer == null && j < iterationData.getChildNodes().size(); j++)
             {
                FootstepPlannerEdgeData edgeData = planner.getEdgeDataMap().get(new GraphEdge<>(iterationData.getStanceNode(), iterationData.getChildNodes().get(j)));
 
@@ -367,9 +379,74 @@ public class FootstepPlannerLogger
          return false;
       }
 
+      // log buffered edge data, the buffer is copied so that the planner can be used while it's written
+      FootstepPlannerEdgeDataBuffer edgeDataBuffer = planner.getEdgeDataBuffer();
+      if (edgeDataBuffer != null)
+      {
+         writeEdgeDataInBackground(edgeDataBuffer.copy(), Paths.get(sessionDirectory + edgeDataFileName));
+      }
+
       return true;
    }
 
+   private void writeEdgeDataInBackground(FootstepPlannerEdgeDataBuffer edgeDataBuffer, Path file)
+   {
+      if (edgeDataWriter == null)
+      {
+         ThreadFactory threadFactory = ThreadTools.getNamedThreadFactory(getClass().getSimpleName());
+         edgeDataWriter = Executors.newSingleThreadExecutor(runnable ->
+         {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+
+      pendingEdgeDataWrite = edgeDataWriter.submit(() ->
+      {
+         try
+         {
+            FileTools.ensureFileExists(file);
+            edgeDataBuffer.write(file);
+         }
+         catch (Exception e)
+         {
+            LogTools.error("Error logging footstep planner edge data to {}: {}", file, e.getMessage());
+            edgeDataWriteFailed.set(true);
+         }
+      });
+   }
+
+   /**
+    * Blocks until the edge data of the previous sessions is written, only needed when buffered edge data logging is enabled.
+    *
+    * @return if the edge data of all the sessions logged since the previous call was written
+    */
+   public boolean awaitPendingWrites()
+   {
+      if (pendingEdgeDataWrite != null)
+      {
+         // the writer is single threaded, once the latest write is done the previous ones are as well
+         try
+         {
+            pendingEdgeDataWrite.get();
+         }
+         catch (InterruptedException e)
+         {
+            LogTools.error("Interrupted while waiting for the footstep planner edge data to be written");
+            Thread.currentThread().interrupt();
+            return false;
+         }
+         catch (ExecutionException e)
+         {
+            LogTools.error("Error logging footstep planner edge data: {}", e.getCause().getMessage());
+            edgeDataWriteFailed.set(true);
+         }
+      }
+
+      return !edgeDataWriteFailed.getAndSet(false);
+   }
+
    private void writeToFile(String file, byte[] fileContents) throws Exception
    {
       FileTools.ensureFileExists(new File(file).toPath());
@@ -0,0 +1,240 @@
+package us.ihmc.footstepPlanning.log;
+
+import static us.ihmc.footstepPlanning.log.FootstepPlannerEdgeDataBuffer.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple4D.Quaternion;
+import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapData;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.pathPlanning.graph.structure.GraphEdge;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Read-only view of the edge data written by {@link FootstepPlannerEdgeDataBuffer#write(java.nio.file.Path)}, typically a memory-mapped
+ * file. The columns are read in place and an edge is only unpacked into a {@link FootstepPlannerEdgeData} when it is requested, so loading
+ * a large log does not copy its edge data to the heap.
+ */
+public class MappedFootstepPlannerEdgeData
+{
+   private final ByteBuffer buffer;
+   private final int numberOfVariables;
+   private final int numberOfEdges;
+
+   private final int intColumnsStart;
+   private final int doubleColumnsStart;
+   private final int variableColumnsStart;
+
+   private final Quaternion quaternion = new Quaternion();
+   private final Vector3D translation = new Vector3D();
+
+   /**
+    * @param buffer the content of an edge data file, starting at its position. Its byte order is set to the order of the file.
+    */
+   public MappedFootstepPlannerEdgeData(ByteBuffer buffer)
+   {
+      this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+      int start = buffer.position();
+
+      if (buffer.getInt(start) != MAGIC_NUMBER)
+         throw new IllegalArgumentException("Not a footstep planner edge data file");
+      int version = buffer.getInt(start + Integer.BYTES);
+      if (version != FORMAT_VERSION)
+         throw new IllegalArgumentException("Unsupported edge data format version: " + version);
+
+      numberOfVariables = buffer.getInt(start + 2 * Integer.BYTES);
+      numberOfEdges = buffer.getInt(start + 3 * Integer.BYTES);
+      int maximumFootholdVertices = buffer.getInt(start + 4 * Integer.BYTES);
+      if (maximumFootholdVertices != MAXIMUM_FOOTHOLD_VERTICES)
+         throw new IllegalArgumentException("Unexpected number of foothold vertices: " + maximumFootholdVertices);
+
+      intColumnsStart = start + HEADER_SIZE;
+      doubleColumnsStart = intColumnsStart + NUMBER_OF_INT_COLUMNS * numberOfEdges * Integer.BYTES;
+      variableColumnsStart = doubleColumnsStart + NUMBER_OF_DOUBLE_COLUMNS * numberOfEdges * Double.BYTES;
+
+      int size = variableColumnsStart + numberOfVariables * numberOfEdges * Long.BYTES;
+      if (size > buffer.limit())
+         throw new IllegalArgumentException("Truncated edge data file, expected " + size + " bytes, got " + buffer.limit());
+   }
+
+   public int getNumberOfEdges()
+   {
+      return numberOfEdges;
+   }
+
+   public int getNumberOfVariables()
+   {
+      return numberOfVariables;
+   }
+
+   /**
+    * @param edgeIndex index of the edge, from 0 for the oldest to {@link #getNumberOfEdges()} - 1
+    */
+   public FootstepNode getStanceNode(int edgeIndex)
+   {
+      return getNode(checkIndex(edgeIndex), STANCE_X);
+   }
+
+   public FootstepNode getCandidateNode(int edgeIndex)
+   {
+      return getNode(checkIndex(edgeIndex), CANDIDATE_X);
+   }
+
+   public boolean isSolutionEdge(int edgeIndex)
+   {
+      return getInt(SOLUTION_EDGE, checkIndex(edgeIndex)) != 0;
+   }
+
+   public long getVariable(int edgeIndex, int variableIndex)
+   {
+      return buffer.getLong(variableColumnsStart + (variableIndex * numberOfEdges + checkIndex(edgeIndex)) * Long.BYTES);
+   }
+
+   /**
+    * Unpacks the given edge in the format used by {@link FootstepPlannerLog}.
+    */
+   public FootstepPlannerEdgeData getEdgeData(int edgeIndex)
+   {
+      checkIndex(edgeIndex);
+
+      FootstepPlannerEdgeData edgeData = new FootstepPlannerEdgeData(numberOfVariables);
+      edgeData.setStanceNode(getNode(edgeIndex, STANCE_X));
+      edgeData.setCandidateNode(getNode(edgeIndex, CANDIDATE_X));
+      edgeData.setSolutionEdge(getInt(SOLUTION_EDGE, edgeIndex) != 0);
+
+      FootstepNodeSnapData snapData = edgeData.getCandidateNodeSnapData();
+      getTransform(edgeIndex, SNAP_TRANSFORM, snapData.getSnapTransform());
+      getTransform(edgeIndex, WIGGLE_TRANSFORM, snapData.getWiggleTransformInWorld());
+      snapData.setAchievedInsideDelta(getDouble(INSIDE_DELTA, edgeIndex));
+      snapData.setRegionIndex(getInt(REGION_INDEX, edgeIndex));
+
+      ConvexPolygon2D croppedFoothold = snapData.getCroppedFoothold();
+      croppedFoothold.clear();
+      for (int i = 0; i < getInt(FOOTHOLD_VERTICES, edgeIndex); i++)
+      {
+         croppedFoothold.addVertex(getDouble(FOOTHOLD + 2 * i, edgeIndex), getDouble(FOOTHOLD + 2 * i + 1, edgeIndex));
+      }
+      croppedFoothold.update();
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         edgeData.setData(i, getVariable(edgeIndex, i));
+      }
+
+      return edgeData;
+   }
+
+   /**
+    * Creates a read-only map of the edges which unpacks an edge each time it is looked up. Only the nodes of the edges are read to index
+    * them, their snap data and variables, which make up most of the file, stay in the buffer. As in the edge data map of the planner, a later
+    * edge replaces an earlier one with the same nodes.
+    */
+   public Map<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> createEdgeDataMap()
+   {
+      Map<GraphEdge<FootstepNode>, Integer> edgeIndices = new HashMap<>();
+      for (int edgeIndex = 0; edgeIndex < numberOfEdges; edgeIndex++)
+      {
+         edgeIndices.put(new GraphEdge<>(getNode(edgeIndex, STANCE_X), getNode(edgeIndex, CANDIDATE_X)), edgeIndex);
+      }
+
+      return new AbstractMap<GraphEdge<FootstepNode>, FootstepPlannerEdgeData>()
+      {
+         @Override
+         public FootstepPlannerEdgeData get(Object key)
+         {
+            Integer edgeIndex = edgeIndices.get(key);
+            return edgeIndex == null ? null : getEdgeData(edgeIndex);
+         }
+
+         @Override
+         public boolean containsKey(Object key)
+         {
+            return edgeIndices.containsKey(key);
+         }
+
+         @Override
+         public int size()
+         {
+            return edgeIndices.size();
+         }
+
+         @Override
+         public Set<Entry<GraphEdge<FootstepNode>, FootstepPlannerEdgeData>> entrySet()
+         {
+            return new AbstractSet<Entry<GraphEdge<FootstepNode>, FootstepPlannerEdgeData>>()
+            {
+               @Override
+               public Iterator<Entry<GraphEdge<FootstepNode>, FootstepPlannerEdgeData>> iterator()
+               {
+                  Iterator<Entry<GraphEdge<FootstepNode>, Integer>> indexIterator = edgeIndices.entrySet().iterator();
+
+                  return new Iterator<Entry<GraphEdge<FootstepNode>, FootstepPlannerEdgeData>>()
+                  {
+                     @Override
+                     public boolean hasNext()
+                     {
+                        return indexIterator.hasNext();
+                     }
+
+                     @Override
+                     public Entry<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> next()
+                     {
+                        Entry<GraphEdge<FootstepNode>, Integer> entry = indexIterator.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), getEdgeData(entry.getValue()));
+                     }
+                  };
+               }
+
+               @Override
+               public int size()
+               {
+                  return edgeIndices.size();
+               }
+            };
+         }
+      };
+   }
+
+   private int checkIndex(int edgeIndex)
+   {
+      if (edgeIndex < 0 || edgeIndex >= numberOfEdges)
+         throw new IndexOutOfBoundsException("Edge index " + edgeIndex + " out of bounds, number of edges: " + numberOfEdges);
+      return edgeIndex;
+   }
+
+   private int getInt(int column, int edgeIndex)
+   {
+      return buffer.getInt(intColumnsStart + (column * numberOfEdges + edgeIndex) * Integer.BYTES);
+   }
+
+   private double getDouble(int column, int edgeIndex)
+   {
+      return buffer.getDouble(doubleColumnsStart + (column * numberOfEdges + edgeIndex) * Double.BYTES);
+   }
+
+   private FootstepNode getNode(int edgeIndex, int firstColumn)
+   {
+      return new FootstepNode(getInt(firstColumn, edgeIndex),
+                              getInt(firstColumn + 1, edgeIndex),
+                              getInt(firstColumn + 2, edgeIndex),
+                              RobotSide.values[getInt(firstColumn + 3, edgeIndex)]);
+   }
+
+   private void getTransform(int edgeIndex, int firstColumn, RigidBodyTransform transformToPack)
+   {
+      quaternion.set(getDouble(firstColumn, edgeIndex), getDouble(firstColumn + 1, edgeIndex), getDouble(firstColumn + 2, edgeIndex),
+                     getDouble(firstColumn + 3, edgeIndex));
+      translation.set(getDouble(firstColumn + 4, edgeIndex), getDouble(firstColumn + 5, edgeIndex), getDouble(firstColumn + 6, edgeIndex));
+      transformToPack.set(quaternion, translation);
+   }
+}
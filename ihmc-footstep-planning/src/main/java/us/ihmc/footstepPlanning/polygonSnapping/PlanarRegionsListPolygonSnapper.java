@@ -2,6 +2,8 @@ package us.ihmc.footstepPlanning.polygonSnapping;
 
 import java.util.List;
 
+import org.apache.commons.lang3.mutable.MutableDouble;
+
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.geometry.interfaces.ConvexPolygon2DReadOnly;
 import us.ihmc.euclid.transform.RigidBodyTransform;
@@ -41,6 +43,26 @@ public class PlanarRegionsListPolygonSnapper
 
    public static RigidBodyTransform snapPolygonToPlanarRegionsList(ConvexPolygon2DReadOnly polygonToSnap, List<PlanarRegion> planarRegionsListToSnapTo, double maximumRegionHeightToConsider, PlanarRegion regionToPack)
    {
+      return snapPolygonToPlanarRegionsList(polygonToSnap, planarRegionsListToSnapTo, maximumRegionHeightToConsider, regionToPack, null);
+   }
+
+   /**
+    * Same as {@link #snapPolygonToPlanarRegionsList(ConvexPolygon2DReadOnly, List, double, PlanarRegion)}, also packs the height of the
+    * polygon snapped on the highest intersecting region, including the regions above {@code maximumRegionHeightToConsider}. The result is
+    * the same for any maximum region height at or above this height.
+    *
+    * @param highestRegionHeightToPack the height of the highest intersecting region will be packed here, negative infinity if none
+    *       intersects (can be null).
+    */
+   public static RigidBodyTransform snapPolygonToPlanarRegionsList(ConvexPolygon2DReadOnly polygonToSnap,
+                                                                  List<PlanarRegion> planarRegionsListToSnapTo,
+                                                                  double maximumRegionHeightToConsider,
+                                                                  PlanarRegion regionToPack,
+                                                                  MutableDouble highestRegionHeightToPack)
+   {
+      if (highestRegionHeightToPack != null)
+         highestRegionHeightToPack.setValue(Double.NEGATIVE_INFINITY);
+
       double allowableExtraZ = 0.003; // For close ones. When close, take one that is flatter...
       List<PlanarRegion> intersectingRegions = PlanarRegionTools.findPlanarRegionsIntersectingPolygon(polygonToSnap, planarRegionsListToSnapTo);
 
@@ -64,6 +86,9 @@ public class PlanarRegionsListPolygonSnapper
 
          RigidBodyTransform snapTransform = PlanarRegionPolygonSnapper.snapPolygonToPlanarRegion(polygonToSnap, planarRegion, highestVertexInWorld);
 
+         if (highestRegionHeightToPack != null && highestVertexInWorld.getZ() > highestRegionHeightToPack.doubleValue())
+            highestRegionHeightToPack.setValue(highestVertexInWorld.getZ());
+
          if (highestVertexInWorld.getZ() > maximumRegionHeightToConsider)
          {
             continue;
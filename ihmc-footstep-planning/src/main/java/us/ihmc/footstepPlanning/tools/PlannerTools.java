@@ -33,12 +33,15 @@ import us.ihmc.yoVariables.euclid.referenceFrame.YoFramePoint3D;
 import us.ihmc.yoVariables.euclid.referenceFrame.YoFrameVector3D;
 import us.ihmc.yoVariables.registry.YoRegistry;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PlannerTools
 {
    private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+   private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
 
    public static final double footLength = 0.2;
    public static final double footWidth = 0.1;
@@ -251,4 +254,19 @@ public class PlannerTools
       double alphaToQuery = MathTools.clamp(alpha + horizonDistanceToCheck / totalPathLength, 0.0, 1.0);
       bodyPathPlanHolder.getPointAlongPath(alphaToQuery, poseToPack);
    }
+
+   /**
+    * Returns the total number of bytes allocated by the calling thread, or -1 if the JVM does not support allocation measurement.
+    */
+   public static long getCurrentThreadAllocatedBytes()
+   {
+      if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+      {
+         return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+      else
+      {
+         return -1;
+      }
+   }
 }
@@ -13,6 +13,8 @@ import us.ihmc.pathPlanning.DataSet;
 import us.ihmc.pathPlanning.DataSetIOTools;
 import us.ihmc.pathPlanning.DataSetName;
 import us.ihmc.pathPlanning.PlannerInput;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.geometry.PlanarRegionsListGenerator;
 import us.ihmc.robotics.robotSide.RobotSide;
 
@@ -333,4 +335,103 @@ public class FootstepPlanningModuleTest
       double finalStepX = plan.getFootstep(plan.getNumberOfSteps() - 1).getFootstepPose().getX();
       Assertions.assertTrue(MathTools.intervalContains(finalStepX, xThreshold, xThreshold + planningModule.getFootstepPlannerParameters().getMaximumStepReach(), 1e-5));
    }
+
+   @Test
+   public void testParallelSnappingProducesSamePlan()
+   {
+      DataSet dataSet = DataSetIOTools.loadDataSet(DataSetName._20190219_182005_Random);
+      PlannerInput plannerInput = dataSet.getPlannerInput();
+
+      FootstepPlanningModule serialPlanningModule = new FootstepPlanningModule(getClass().getSimpleName() + "Serial");
+      FootstepPlanningModule parallelPlanningModule = new FootstepPlanningModule(getClass().getSimpleName() + "Parallel");
+      parallelPlanningModule.setNumberOfSnapperThreads(4);
+
+      FootstepPlannerRequest request = new FootstepPlannerRequest();
+      request.setTimeout(Double.MAX_VALUE);
+      request.setMaximumIterations(100);
+      Pose3D initialMidFootPose = new Pose3D(plannerInput.getStartPosition(), new Quaternion(plannerInput.getStartYaw(), 0.0, 0.0));
+      Pose3D goalMidFootPose = new Pose3D(plannerInput.getGoalPosition(), new Quaternion(plannerInput.getGoalYaw(), 0.0, 0.0));
+      request.setStartFootPoses(serialPlanningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), initialMidFootPose);
+      request.setGoalFootPoses(serialPlanningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), goalMidFootPose);
+      request.setRequestedInitialStanceSide(RobotSide.LEFT);
+      request.setPlanarRegionsList(dataSet.getPlanarRegionsList());
+      request.setPlanBodyPath(false);
+      request.setAbortIfBodyPathPlannerFails(false);
+
+      FootstepPlan serialPlan = new FootstepPlan(serialPlanningModule.handleRequest(request).getFootstepPlan());
+      FootstepPlannerOutput parallelOutput = parallelPlanningModule.handleRequest(request);
+      parallelPlanningModule.closeAndDispose();
+
+      Assertions.assertEquals(serialPlan.getNumberOfSteps(), parallelOutput.getFootstepPlan().getNumberOfSteps());
+      for (int i = 0; i < serialPlan.getNumberOfSteps(); i++)
+      {
+         PlannedFootstep serialStep = serialPlan.getFootstep(i);
+         PlannedFootstep parallelStep = parallelOutput.getFootstepPlan().getFootstep(i);
+         Assertions.assertEquals(serialStep.getRobotSide(), parallelStep.getRobotSide());
+         Assertions.assertTrue(serialStep.getFootstepPose().epsilonEquals(parallelStep.getFootstepPose(), 1e-10));
+      }
+   }
+
+   @Test
+   public void testReusedSnapDataProducesSamePlan()
+   {
+      DataSet dataSet = DataSetIOTools.loadDataSet(DataSetName._20190219_182005_Random);
+      PlannerInput plannerInput = dataSet.getPlannerInput();
+
+      // regions are matched by id between requests
+      PlanarRegionsList planarRegionsList = dataSet.getPlanarRegionsList().copy();
+      for (int i = 0; i < planarRegionsList.getNumberOfPlanarRegions(); i++)
+      {
+         planarRegionsList.getPlanarRegion(i).setRegionId(i);
+      }
+
+      FootstepPlanningModule reusingPlanningModule = new FootstepPlanningModule(getClass().getSimpleName() + "Reusing");
+      reusingPlanningModule.setReuseSnapDataBetweenRequests(true);
+
+      FootstepPlannerRequest request = new FootstepPlannerRequest();
+      request.setTimeout(Double.MAX_VALUE);
+      request.setMaximumIterations(100);
+      Pose3D initialMidFootPose = new Pose3D(plannerInput.getStartPosition(), new Quaternion(plannerInput.getStartYaw(), 0.0, 0.0));
+      Pose3D goalMidFootPose = new Pose3D(plannerInput.getGoalPosition(), new Quaternion(plannerInput.getGoalYaw(), 0.0, 0.0));
+      request.setStartFootPoses(reusingPlanningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), initialMidFootPose);
+      request.setGoalFootPoses(reusingPlanningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), goalMidFootPose);
+      request.setRequestedInitialStanceSide(RobotSide.LEFT);
+      request.setPlanarRegionsList(planarRegionsList);
+      request.setPlanBodyPath(false);
+      request.setAbortIfBodyPathPlannerFails(false);
+      reusingPlanningModule.handleRequest(request);
+
+      // raise one of the regions and replan from the first step of the plan
+      PlanarRegionsList updatedPlanarRegionsList = planarRegionsList.copy();
+      PlanarRegion raisedRegion = updatedPlanarRegionsList.getPlanarRegion(updatedPlanarRegionsList.getNumberOfPlanarRegions() / 2);
+      raisedRegion.getTransformToWorld().appendTranslation(0.0, 0.0, 0.05);
+      raisedRegion.setTransformToWorld(raisedRegion.getTransformToWorld());
+      request.setPlanarRegionsList(updatedPlanarRegionsList);
+
+      for (int replan = 0; replan < 2; replan++)
+      {
+         FootstepPlanningModule freshPlanningModule = new FootstepPlanningModule(getClass().getSimpleName() + "Fresh");
+         FootstepPlan freshPlan = new FootstepPlan(freshPlanningModule.handleRequest(request).getFootstepPlan());
+         freshPlanningModule.closeAndDispose();
+         FootstepPlan replannedPlan = reusingPlanningModule.handleRequest(request).getFootstepPlan();
+
+         Assertions.assertTrue(freshPlan.getNumberOfSteps() > 0);
+         Assertions.assertEquals(freshPlan.getNumberOfSteps(), replannedPlan.getNumberOfSteps());
+         for (int i = 0; i < freshPlan.getNumberOfSteps(); i++)
+         {
+            PlannedFootstep freshStep = freshPlan.getFootstep(i);
+            PlannedFootstep replannedStep = replannedPlan.getFootstep(i);
+            Assertions.assertEquals(freshStep.getRobotSide(), replannedStep.getRobotSide());
+            Assertions.assertTrue(freshStep.getFootstepPose().epsilonEquals(replannedStep.getFootstepPose(), 1e-10));
+            Assertions.assertTrue(freshStep.getFoothold().epsilonEquals(replannedStep.getFoothold(), 1e-10));
+         }
+
+         // the second replan starts from the first step of the first replan
+         PlannedFootstep firstStep = freshPlan.getFootstep(0);
+         request.setRequestedInitialStanceSide(firstStep.getRobotSide());
+         request.getStartFootPoses().get(firstStep.getRobotSide()).set(firstStep.getFootstepPose());
+      }
+
+      reusingPlanningModule.closeAndDispose();
+   }
 }
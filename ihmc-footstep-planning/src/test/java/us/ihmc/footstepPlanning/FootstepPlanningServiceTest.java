@@ -0,0 +1,197 @@
+package us.ihmc.footstepPlanning;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.euclid.geometry.Pose3D;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class FootstepPlanningServiceTest
+{
+   private static final double idealStepWidth = 0.22;
+
+   @Test
+   public void testRequestsArePlannedByThePool() throws Exception
+   {
+      int numberOfWorkers = 2;
+      int numberOfRequests = 6;
+      FootstepPlanningService service = new FootstepPlanningService(() -> new FootstepPlanningModule(getClass().getSimpleName()),
+                                                                    numberOfWorkers,
+                                                                    numberOfRequests);
+      Assertions.assertEquals(numberOfWorkers, service.getNumberOfWorkers());
+
+      List<CompletableFuture<FootstepPlannerOutput>> results = new ArrayList<>();
+      for (int i = 0; i < numberOfRequests; i++)
+      {
+         results.add(service.submitRequest(createRequest(i, 1.0 + 0.2 * i, 10.0)));
+      }
+
+      for (int i = 0; i < numberOfRequests; i++)
+      {
+         FootstepPlannerOutput output = results.get(i).get(30, TimeUnit.SECONDS);
+         Assertions.assertEquals(i, output.getRequestId());
+         Assertions.assertEquals(FootstepPlanningResult.FOUND_SOLUTION, output.getFootstepPlanningResult());
+         Assertions.assertTrue(output.getFootstepPlan().getNumberOfSteps() > 0);
+      }
+
+      Assertions.assertEquals(numberOfRequests, service.getNumberOfCompletedRequests());
+      Assertions.assertEquals(0, service.getNumberOfPendingRequests());
+      Assertions.assertEquals(0, service.getQueueDepth());
+      Assertions.assertTrue(service.getAverageLatency() > 0.0);
+      Assertions.assertTrue(service.getMaximumLatency() >= service.getAverageLatency());
+
+      service.closeAndDispose();
+   }
+
+   @Test
+   public void testBackPressureAndHalt() throws Exception
+   {
+      FootstepPlanningService service = new FootstepPlanningService(() -> new FootstepPlanningModule(getClass().getSimpleName()), 1, 1);
+      Map<Integer, FootstepPlanningResult> reportedResults = new ConcurrentHashMap<>();
+      service.addStatusCallback(status ->
+                                {
+                                   if (status.getFootstepPlanningResult() != null && status.getFootstepPlanningResult().terminalResult())
+                                      reportedResults.put(status.getRequestId(), status.getFootstepPlanningResult());
+                                });
+
+      // goal is unreachable within the timeout
+      CompletableFuture<FootstepPlannerOutput> planningResult = service.submitRequest(createRequest(0, 500.0, 60.0));
+      waitForQueueDepth(service, 0);
+
+      CompletableFuture<FootstepPlannerOutput> queuedResult = service.submitRequest(createRequest(1, 500.0, 60.0));
+      Assertions.assertEquals(1, service.getQueueDepth());
+
+      CompletableFuture<FootstepPlannerOutput> rejectedResult = service.submitRequest(createRequest(2, 1.0, 10.0));
+      assertRejected(rejectedResult);
+      CompletableFuture<FootstepPlannerOutput> duplicateResult = service.submitRequest(createRequest(1, 1.0, 10.0));
+      assertRejected(duplicateResult);
+      Assertions.assertEquals(2, service.getNumberOfRejectedRequests());
+
+      Assertions.assertTrue(service.halt(1));
+      Assertions.assertEquals(FootstepPlanningResult.HALTED, queuedResult.get(1, TimeUnit.SECONDS).getFootstepPlanningResult());
+      Assertions.assertEquals(0, service.getQueueDepth());
+      // the request never reached a module, its status is still reported
+      Assertions.assertEquals(FootstepPlanningResult.HALTED, reportedResults.get(1));
+
+      Assertions.assertTrue(service.halt(0));
+      FootstepPlannerOutput output = planningResult.get(30, TimeUnit.SECONDS);
+      Assertions.assertEquals(0, output.getRequestId());
+      Assertions.assertEquals(FootstepPlanningResult.HALTED, output.getFootstepPlanningResult());
+      Assertions.assertEquals(FootstepPlanningResult.HALTED, reportedResults.get(0));
+      Assertions.assertFalse(service.halt(0));
+
+      // the worker is available again
+      Assertions.assertEquals(FootstepPlanningResult.FOUND_SOLUTION,
+                              service.submitRequest(createRequest(3, 1.0, 10.0)).get(30, TimeUnit.SECONDS).getFootstepPlanningResult());
+
+      service.closeAndDispose();
+      assertRejected(service.submitRequest(createRequest(4, 1.0, 10.0)));
+   }
+
+   @Test
+   public void testLateScopedHaltDoesNotHaltOtherRequests() throws Exception
+   {
+      FootstepPlanningService service = new FootstepPlanningService(() -> new FootstepPlanningModule(getClass().getSimpleName()), 2, 2);
+
+      // the first client's request completes before its halt arrives
+      Assertions.assertEquals(FootstepPlanningResult.FOUND_SOLUTION,
+                              service.submitRequest(createRequest(1, 1.0, 10.0)).get(30, TimeUnit.SECONDS).getFootstepPlanningResult());
+
+      // goal is unreachable within the timeout
+      CompletableFuture<FootstepPlannerOutput> planningResult = service.submitRequest(createRequest(2, 500.0, 60.0));
+      waitForQueueDepth(service, 0);
+
+      Assertions.assertFalse(service.handleHaltAction(1));
+      Assertions.assertFalse(service.handleHaltAction(5));
+      ThreadTools.sleep(500);
+      Assertions.assertFalse(planningResult.isDone());
+      Assertions.assertTrue(service.isRequestPending(2));
+
+      // an unscoped halt still halts every request
+      Assertions.assertTrue(service.handleHaltAction(0));
+      Assertions.assertEquals(FootstepPlanningResult.HALTED, planningResult.get(30, TimeUnit.SECONDS).getFootstepPlanningResult());
+
+      service.closeAndDispose();
+   }
+
+   @Test
+   public void testRequestsCarryTheirParameters() throws Exception
+   {
+      FootstepPlanningService service = new FootstepPlanningService(() -> new FootstepPlanningModule(getClass().getSimpleName()), 1, 3);
+      FootstepPlanningModule module = service.getModules().get(0);
+      Map<Integer, Double> plannedStepWidths = new ConcurrentHashMap<>();
+      module.addRequestCallback(request -> plannedStepWidths.put(request.getRequestId(), module.getFootstepPlannerParameters().getIdealFootstepWidth()));
+      double defaultStepWidth = service.getDefaultParameters().getFootstepPlannerParameters().getIdealFootstepWidth();
+
+      // keeps the worker busy while the other requests are queued
+      CompletableFuture<FootstepPlannerOutput> planningResult = service.submitRequest(createRequest(0, 500.0, 60.0));
+      waitForQueueDepth(service, 0);
+
+      CompletableFuture<FootstepPlannerOutput> defaultResult = service.submitRequest(createRequest(1, 1.0, 10.0));
+      service.updateDefaultParameters(parameters -> parameters.withFootstepPlannerParameters(p -> p.setIdealFootstepWidth(0.3)));
+      CompletableFuture<FootstepPlannerOutput> updatedResult = service.submitRequest(createRequest(2, 1.0, 10.0));
+      FootstepPlanningService.Parameters requestParameters = service.getDefaultParameters()
+                                                                    .withFootstepPlannerParameters(p -> p.setIdealFootstepWidth(0.25));
+      CompletableFuture<FootstepPlannerOutput> customResult = service.submitRequest(createRequest(3, 1.0, 10.0), requestParameters);
+
+      service.halt(0);
+      planningResult.get(30, TimeUnit.SECONDS);
+      defaultResult.get(30, TimeUnit.SECONDS);
+      updatedResult.get(30, TimeUnit.SECONDS);
+      customResult.get(30, TimeUnit.SECONDS);
+
+      // the update does not change the request queued before it, and the request parameters do not change the defaults
+      Assertions.assertEquals(defaultStepWidth, plannedStepWidths.get(1), 1.0e-10);
+      Assertions.assertEquals(0.3, plannedStepWidths.get(2), 1.0e-10);
+      Assertions.assertEquals(0.25, plannedStepWidths.get(3), 1.0e-10);
+      Assertions.assertEquals(0.3, service.getDefaultParameters().getFootstepPlannerParameters().getIdealFootstepWidth(), 1.0e-10);
+
+      service.closeAndDispose();
+   }
+
+   private static void assertRejected(CompletableFuture<FootstepPlannerOutput> result) throws InterruptedException, TimeoutException
+   {
+      try
+      {
+         result.get(1, TimeUnit.SECONDS);
+         Assertions.fail("Request should have been rejected");
+      }
+      catch (ExecutionException e)
+      {
+         Assertions.assertTrue(e.getCause() instanceof RejectedExecutionException);
+      }
+   }
+
+   private static void waitForQueueDepth(FootstepPlanningService service, int queueDepth)
+   {
+      for (int i = 0; i < 1000 && service.getQueueDepth() != queueDepth; i++)
+      {
+         ThreadTools.sleep(10);
+      }
+
+      Assertions.assertEquals(queueDepth, service.getQueueDepth());
+   }
+
+   private static FootstepPlannerRequest createRequest(int requestId, double goalX, double timeout)
+   {
+      FootstepPlannerRequest request = new FootstepPlannerRequest();
+      request.setRequestId(requestId);
+      request.setAssumeFlatGround(true);
+      request.setPlanBodyPath(false);
+      request.setTimeout(timeout);
+      request.setRequestedInitialStanceSide(RobotSide.LEFT);
+      request.setStartFootPoses(idealStepWidth, new Pose3D());
+      request.setGoalFootPoses(idealStepWidth, new Pose3D(goalX, 0.0, 0.0, 0.0, 0.0, 0.0));
+      return request;
+   }
+}
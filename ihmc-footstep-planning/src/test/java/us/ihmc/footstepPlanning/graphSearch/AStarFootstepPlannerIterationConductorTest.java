@@ -49,11 +49,26 @@ public class AStarFootstepPlannerIterationConductorTest
 
    @Test
    public void test2DSearchWithObstacle()
+   {
+      run2DSearchWithObstacle(false);
+   }
+
+   @Test
+   public void test2DSearchWithObstacleUsingPackedSearchGraph()
+   {
+      run2DSearchWithObstacle(true);
+   }
+
+   private void run2DSearchWithObstacle(boolean usePackedSearchGraph)
    {
       ManhattanDistanceCalculator distanceCalculator = new ManhattanDistanceCalculator();
       BiPredicate<FootstepNode, FootstepNode> edgeChecker = (child, parent) -> !child.getLatticeNode().equals(new LatticeNode(0, 4, 0));
       ToDoubleBiFunction<FootstepNode, FootstepNode> edgeCost = (n1, n2) -> 1.0 + (n2.getXIndex() < 0 ? 2.0 : 0.0);
-      AStarFootstepPlannerIterationConductor planner = new AStarFootstepPlannerIterationConductor(this::getNeighbors, edgeChecker, edgeCost, distanceCalculator::getManhattanDistance);
+      AStarFootstepPlannerIterationConductor planner = new AStarFootstepPlannerIterationConductor(this::getNeighbors,
+                                                                                                  edgeChecker,
+                                                                                                  edgeCost,
+                                                                                                  distanceCalculator::getManhattanDistance,
+                                                                                                  usePackedSearchGraph);
 
       FootstepNode startNode = new FootstepNode(0, 0, 0, RobotSide.LEFT);
       FootstepNode goalNode = new FootstepNode(0, 5, 0, RobotSide.RIGHT);
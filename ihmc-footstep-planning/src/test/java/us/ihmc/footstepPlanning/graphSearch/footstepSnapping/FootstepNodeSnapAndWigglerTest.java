@@ -86,6 +86,51 @@ public class FootstepNodeSnapAndWigglerTest
       }
    }
 
+   @Test
+   public void testSnapDataIsKeptAwayFromChangedRegions()
+   {
+      DefaultFootstepPlannerParameters footstepPlannerParameters = new DefaultFootstepPlannerParameters();
+      FootstepNodeSnapAndWiggler snapAndWiggler = new FootstepNodeSnapAndWiggler(PlannerTools.createDefaultFootPolygons(), footstepPlannerParameters);
+
+      ConvexPolygon2D polygon = new ConvexPolygon2D();
+      polygon.addVertex(0.5, 0.5);
+      polygon.addVertex(0.5, -0.5);
+      polygon.addVertex(-0.5, 0.5);
+      polygon.addVertex(-0.5, -0.5);
+      polygon.update();
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      PlanarRegion region0 = new PlanarRegion(transform, polygon);
+      region0.setRegionId(0);
+      transform.getTranslation().set(5.0, 0.0, 0.0);
+      PlanarRegion region1 = new PlanarRegion(transform, polygon);
+      region1.setRegionId(1);
+
+      FootstepNode node0 = new FootstepNode(0.0, 0.0, 0.0, RobotSide.LEFT);
+      FootstepNode node1 = new FootstepNode(5.0, 0.0, 0.0, RobotSide.LEFT);
+
+      Assertions.assertEquals(0, snapAndWiggler.updatePlanarRegions(new PlanarRegionsList(region0, region1)));
+      FootstepNodeSnapData snapData0 = snapAndWiggler.snapFootstepNode(node0, null, true);
+      FootstepNodeSnapData snapData1 = snapAndWiggler.snapFootstepNode(node1, null, true);
+      Assertions.assertEquals(1, snapData1.getRegionIndex());
+
+      // swap the order of the regions and raise the second one
+      transform.getTranslation().set(5.0, 0.0, 0.2);
+      PlanarRegion raisedRegion1 = new PlanarRegion(transform, polygon);
+      raisedRegion1.setRegionId(1);
+
+      Assertions.assertEquals(1, snapAndWiggler.updatePlanarRegions(new PlanarRegionsList(raisedRegion1, region0.copy())));
+      Assertions.assertSame(snapData0, snapAndWiggler.snapFootstepNode(node0, null, true));
+      Assertions.assertEquals(1, snapData0.getRegionIndex());
+
+      FootstepNodeSnapData raisedSnapData1 = snapAndWiggler.snapFootstepNode(node1, null, true);
+      Assertions.assertNotSame(snapData1, raisedSnapData1);
+      Assertions.assertEquals(0.2, raisedSnapData1.getSnapTransform().getTranslationZ(), 1e-10);
+
+      // regions without ids can't be matched, so nothing is kept
+      Assertions.assertEquals(0, snapAndWiggler.updatePlanarRegions(new PlanarRegionsList(new PlanarRegion(new RigidBodyTransform(), polygon))));
+   }
+
    @Test
    public void testMaximumSnapHeightOnFlatRegions()
    {
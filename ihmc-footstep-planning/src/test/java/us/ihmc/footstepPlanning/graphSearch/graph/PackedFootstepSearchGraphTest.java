@@ -0,0 +1,116 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import us.ihmc.pathPlanning.graph.structure.DirectedGraph;
+import us.ihmc.pathPlanning.graph.structure.GraphEdge;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class PackedFootstepSearchGraphTest
+{
+   @Test
+   public void testPackedKeysAreUnique()
+   {
+      HashSet<Long> keys = new HashSet<>();
+      for (int x = -20; x <= 20; x++)
+      {
+         for (int y = -20; y <= 20; y++)
+         {
+            for (int yaw = 0; yaw < LatticeNode.yawDivisions; yaw++)
+            {
+               for (RobotSide robotSide : RobotSide.values)
+               {
+                  long key = new FootstepNode(x, y, yaw, robotSide).getPackedKey();
+                  Assertions.assertTrue(key >= 0);
+                  Assertions.assertTrue(keys.add(key));
+               }
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testMatchesDirectedGraph()
+   {
+      Random random = new Random(3920);
+      int numberOfNodes = 300;
+      int numberOfEdges = 3000;
+
+      List<FootstepNode> nodes = new ArrayList<>();
+      for (int i = 0; i < numberOfNodes; i++)
+      {
+         nodes.add(new FootstepNode(random.nextInt(200) - 100, random.nextInt(200) - 100, random.nextInt(LatticeNode.yawDivisions), RobotSide.generateRandomRobotSide(random)));
+      }
+
+      DirectedGraph<FootstepNode> directedGraph = new DirectedGraph<>();
+      PackedFootstepSearchGraph packedGraph = new PackedFootstepSearchGraph();
+      directedGraph.initialize(nodes.get(0));
+      packedGraph.initialize(nodes.get(0));
+
+      List<FootstepNode> addedNodes = new ArrayList<>();
+      addedNodes.add(nodes.get(0));
+
+      for (int i = 0; i < numberOfEdges; i++)
+      {
+         FootstepNode startNode = addedNodes.get(random.nextInt(addedNodes.size()));
+         FootstepNode endNode = nodes.get(random.nextInt(numberOfNodes));
+         double cost = random.nextDouble() < 0.1 ? Double.POSITIVE_INFINITY : random.nextDouble();
+
+         if (directedGraph.getEdgeCostMap().containsKey(new GraphEdge<>(startNode, endNode)))
+         {
+            directedGraph.updateEdgeCost(startNode, endNode, cost);
+            packedGraph.updateEdgeCost(startNode, endNode, cost);
+         }
+         else
+         {
+            directedGraph.checkAndSetEdge(startNode, endNode, cost);
+            packedGraph.checkAndSetEdge(startNode, endNode, cost);
+         }
+
+         if (!addedNodes.contains(endNode))
+            addedNodes.add(endNode);
+      }
+
+      for (FootstepNode node : addedNodes)
+      {
+         Assertions.assertTrue(packedGraph.doesNodeExist(node));
+         Assertions.assertEquals(directedGraph.getCostFromStart(node), packedGraph.getCostFromStart(node), 1e-10);
+         Assertions.assertEquals(directedGraph.hasOutgoingEdges(node), packedGraph.hasOutgoingEdges(node));
+      }
+
+      Assertions.assertEquals(addedNodes.size(), packedGraph.getNumberOfNodes());
+   }
+
+   @Test
+   public void testOpenSetOrdering()
+   {
+      Random random = new Random(2390);
+      PackedFootstepSearchGraph graph = new PackedFootstepSearchGraph();
+      FootstepNode startNode = new FootstepNode(0, 0, 0, RobotSide.LEFT);
+      graph.initialize(startNode);
+
+      int numberOfNodes = 500;
+      for (int i = 0; i < numberOfNodes; i++)
+      {
+         FootstepNode node = new FootstepNode(i + 1, 0, 0, RobotSide.RIGHT);
+         graph.checkAndSetEdge(startNode, node, random.nextDouble());
+         graph.addToOpenSet(node);
+      }
+
+      double previousCost = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < numberOfNodes; i++)
+      {
+         FootstepNode node = graph.pollOpenSet();
+         double cost = graph.getCostFromStart(node);
+         Assertions.assertTrue(cost >= previousCost);
+         previousCost = cost;
+      }
+
+      Assertions.assertNull(graph.pollOpenSet());
+   }
+}
@@ -0,0 +1,175 @@
+package us.ihmc.footstepPlanning.log;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapData;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+public class FootstepPlannerEdgeDataBufferTest
+{
+   private static final double epsilon = 1e-12;
+
+   private final YoRegistry registry = new YoRegistry(getClass().getSimpleName());
+   private final YoDouble cost = new YoDouble("cost", registry);
+   private final YoInteger rejectionReason = new YoInteger("rejectionReason", registry);
+   private final List<YoVariable> variables = registry.collectSubtreeVariables();
+
+   @Test
+   public void testSampling()
+   {
+      FootstepPlannerEdgeDataBuffer buffer = new FootstepPlannerEdgeDataBuffer(100, variables.size(), 3, false);
+      Random random = new Random(3290);
+
+      for (int i = 0; i < 30; i++)
+      {
+         if (buffer.startEdge())
+         {
+            cost.set(i);
+            buffer.record(nextNode(random), nextNode(random), nextSnapData(random), variables);
+         }
+      }
+
+      Assertions.assertEquals(30, buffer.getNumberOfEdgesVisited());
+      Assertions.assertEquals(10, buffer.getNumberOfEdges());
+      Assertions.assertEquals(0, buffer.getNumberOfDroppedEdges());
+
+      for (int i = 0; i < buffer.getNumberOfEdges(); i++)
+      {
+         Assertions.assertEquals(3.0 * i, Double.longBitsToDouble(buffer.getVariable(i, variables.indexOf(cost))), epsilon);
+      }
+   }
+
+   @Test
+   public void testFullBuffer()
+   {
+      Random random = new Random(9023);
+      FootstepPlannerEdgeDataBuffer droppingBuffer = new FootstepPlannerEdgeDataBuffer(5, variables.size(), 1, false);
+      FootstepPlannerEdgeDataBuffer overwritingBuffer = new FootstepPlannerEdgeDataBuffer(5, variables.size(), 1, true);
+
+      for (int i = 0; i < 12; i++)
+      {
+         rejectionReason.set(i);
+         FootstepNode stanceNode = nextNode(random);
+         FootstepNode candidateNode = nextNode(random);
+         FootstepNodeSnapData snapData = nextSnapData(random);
+
+         if (droppingBuffer.startEdge())
+            droppingBuffer.record(stanceNode, candidateNode, snapData, variables);
+         if (overwritingBuffer.startEdge())
+            overwritingBuffer.record(stanceNode, candidateNode, snapData, variables);
+      }
+
+      Assertions.assertEquals(5, droppingBuffer.getNumberOfEdges());
+      Assertions.assertEquals(7, droppingBuffer.getNumberOfDroppedEdges());
+      Assertions.assertEquals(5, overwritingBuffer.getNumberOfEdges());
+      Assertions.assertEquals(7, overwritingBuffer.getNumberOfDroppedEdges());
+
+      int variableIndex = variables.indexOf(rejectionReason);
+      for (int i = 0; i < 5; i++)
+      {
+         // the dropping buffer keeps the first edges, the overwriting buffer the last ones
+         Assertions.assertEquals(i, droppingBuffer.getVariable(i, variableIndex));
+         Assertions.assertEquals(7 + i, overwritingBuffer.getVariable(i, variableIndex));
+         Assertions.assertEquals(7 + i, overwritingBuffer.getEdgeData(i).getDataBuffer()[variableIndex]);
+      }
+
+      Assertions.assertThrows(IndexOutOfBoundsException.class, () -> overwritingBuffer.getVariable(5, variableIndex));
+
+      overwritingBuffer.clear();
+      Assertions.assertEquals(0, overwritingBuffer.getNumberOfEdges());
+      Assertions.assertEquals(0, overwritingBuffer.getNumberOfEdgesVisited());
+   }
+
+   @Test
+   public void testWriteAndRead() throws IOException
+   {
+      Random random = new Random(4092);
+      FootstepPlannerEdgeDataBuffer buffer = new FootstepPlannerEdgeDataBuffer(20, variables.size(), 1, true);
+
+      for (int i = 0; i < 33; i++)
+      {
+         cost.set(EuclidCoreRandomTools.nextDouble(random, 10.0));
+         rejectionReason.set(random.nextInt(10));
+         if (buffer.startEdge())
+            buffer.record(nextNode(random), nextNode(random), nextSnapData(random), variables);
+      }
+
+      buffer.setSolutionEdge(4, true);
+
+      Path file = Files.createTempFile(getClass().getSimpleName(), ".bin");
+      try
+      {
+         buffer.write(file);
+
+         FootstepPlannerEdgeDataBuffer loadedBuffer;
+         try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+         {
+            MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            loadedBuffer = FootstepPlannerEdgeDataBuffer.read(mappedBuffer);
+         }
+
+         Assertions.assertEquals(buffer.getNumberOfEdges(), loadedBuffer.getNumberOfEdges());
+         Assertions.assertEquals(buffer.getNumberOfVariables(), loadedBuffer.getNumberOfVariables());
+
+         for (int i = 0; i < buffer.getNumberOfEdges(); i++)
+         {
+            FootstepPlannerEdgeData expected = buffer.getEdgeData(i);
+            FootstepPlannerEdgeData actual = loadedBuffer.getEdgeData(i);
+
+            Assertions.assertEquals(expected.getStanceNode(), actual.getStanceNode());
+            Assertions.assertEquals(expected.getCandidateNode(), actual.getCandidateNode());
+            Assertions.assertEquals(i == 4, actual.isSolutionEdge());
+            Assertions.assertArrayEquals(expected.getDataBuffer(), actual.getDataBuffer());
+
+            FootstepNodeSnapData expectedSnapData = expected.getCandidateNodeSnapData();
+            FootstepNodeSnapData actualSnapData = actual.getCandidateNodeSnapData();
+            Assertions.assertTrue(expectedSnapData.getSnapTransform().epsilonEquals(actualSnapData.getSnapTransform(), epsilon));
+            Assertions.assertTrue(expectedSnapData.getWiggleTransformInWorld().epsilonEquals(actualSnapData.getWiggleTransformInWorld(), epsilon));
+            Assertions.assertTrue(expectedSnapData.getCroppedFoothold().epsilonEquals(actualSnapData.getCroppedFoothold(), epsilon));
+            Assertions.assertEquals(expectedSnapData.getRegionIndex(), actualSnapData.getRegionIndex());
+            Assertions.assertEquals(expectedSnapData.getAchievedInsideDelta(), actualSnapData.getAchievedInsideDelta(), epsilon);
+         }
+      }
+      finally
+      {
+         Files.deleteIfExists(file);
+      }
+   }
+
+   private static FootstepNode nextNode(Random random)
+   {
+      return new FootstepNode(random.nextInt(200) - 100, random.nextInt(200) - 100, random.nextInt(36), RobotSide.generateRandomRobotSide(random));
+   }
+
+   private static FootstepNodeSnapData nextSnapData(Random random)
+   {
+      ConvexPolygon2D foothold = new ConvexPolygon2D();
+      for (int i = 0; i < 4; i++)
+      {
+         foothold.addVertex(EuclidCoreRandomTools.nextPoint2D(random, 0.2));
+      }
+      foothold.update();
+
+      FootstepNodeSnapData snapData = new FootstepNodeSnapData(EuclidCoreRandomTools.nextRigidBodyTransform(random), foothold);
+      snapData.getWiggleTransformInWorld().set(EuclidCoreRandomTools.nextRigidBodyTransform(random));
+      snapData.setRegionIndex(random.nextInt(10));
+      snapData.setAchievedInsideDelta(random.nextDouble());
+      return snapData;
+   }
+}
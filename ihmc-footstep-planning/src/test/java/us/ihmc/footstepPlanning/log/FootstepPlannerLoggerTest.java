@@ -5,17 +5,22 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import us.ihmc.euclid.geometry.Pose3D;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
 import us.ihmc.euclid.tuple4D.Quaternion;
 import us.ihmc.footstepPlanning.FootstepPlannerOutput;
 import us.ihmc.footstepPlanning.FootstepPlannerRequest;
 import us.ihmc.footstepPlanning.FootstepPlanningModule;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
 import us.ihmc.footstepPlanning.tools.FootstepPlannerMessageTools;
 import us.ihmc.pathPlanning.DataSet;
 import us.ihmc.pathPlanning.DataSetIOTools;
 import us.ihmc.pathPlanning.DataSetName;
+import us.ihmc.pathPlanning.graph.structure.GraphEdge;
 import us.ihmc.robotics.robotSide.RobotSide;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
 public class FootstepPlannerLoggerTest
 {
@@ -31,30 +36,12 @@ public class FootstepPlannerLoggerTest
    public void testLogger()
    {
       FootstepPlanningModule planningModule = new FootstepPlanningModule("testModule");
-      DataSet dataSet = DataSetIOTools.loadDataSet(DataSetName._20190220_172417_EOD_Cinders);
-
-      FootstepPlannerRequest request = new FootstepPlannerRequest();
-      Pose3D initialMidFootPose = new Pose3D(dataSet.getPlannerInput().getStartPosition(), new Quaternion(dataSet.getPlannerInput().getStartYaw(), 0.0, 0.0));
-      Pose3D goalMidFootPose = new Pose3D(dataSet.getPlannerInput().getGoalPosition(), new Quaternion(dataSet.getPlannerInput().getGoalYaw(), 0.0, 0.0));
-      request.setRequestedInitialStanceSide(RobotSide.LEFT);
-      request.setStartFootPoses(planningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), initialMidFootPose);
-      request.setGoalFootPoses(planningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), goalMidFootPose);
-      request.setPlanarRegionsList(dataSet.getPlanarRegionsList());
-      request.setAssumeFlatGround(false);
-      request.setPlanBodyPath(true);
-
-      planningModule.getFootstepPlannerParameters().setMaximumStepZ(0.294);
-      planningModule.getFootstepPlannerParameters().setYawWeight(0.17);
-      planningModule.getFootstepPlannerParameters().setMaximumStepZWhenSteppingUp(0.4);
-      planningModule.getFootstepPlannerParameters().setMaximumZPenetrationOnValleyRegions(1.0);
-      planningModule.getVisibilityGraphParameters().setNavigableExtrusionDistance(0.01);
-      planningModule.getVisibilityGraphParameters().setExplorationDistanceFromStartGoal(50.0);
-
-      FootstepPlannerOutput plannerOutput = planningModule.handleRequest(request);
-
+      FootstepPlannerOutput plannerOutput = planRequest(planningModule);
+      FootstepPlannerRequest request = planningModule.getRequest();
       FootstepPlannerLogger logger = new FootstepPlannerLogger(planningModule);
       boolean success = logger.logSession(logDirectory);
       Assertions.assertTrue(success, "Error generating footstep planner log");
+      Assertions.assertTrue(logger.awaitPendingWrites(), "Error writing footstep planner edge data");
 
       FootstepPlannerLogLoader logLoader = new FootstepPlannerLogLoader();
       FootstepPlannerLogLoader.LoadResult loadResult = logLoader.load(new File(logger.getLatestLogDirectory()));
@@ -77,4 +64,82 @@ public class FootstepPlannerLoggerTest
       Assertions.assertTrue(expectedBodyPathParameters.epsilonEquals(log.getBodyPathParametersPacket(), 1e-5));
       Assertions.assertTrue(expectedOutputStatusPacket.epsilonEquals(log.getStatusPacket(), 1e-5));
    }
+
+   @Test
+   public void testBufferedEdgeDataLogging()
+   {
+      FootstepPlanningModule planningModule = new FootstepPlanningModule("testModule");
+      planningModule.enableBufferedEdgeDataLogging(100000, 1, false);
+      planRequest(planningModule);
+
+      FootstepPlannerEdgeDataBuffer edgeDataBuffer = planningModule.getEdgeDataBuffer();
+      Assertions.assertTrue(edgeDataBuffer.getNumberOfEdges() > 0);
+      // as for the edge data map of the planner, a later edge replaces an earlier one with the same nodes
+      Map<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> expectedEdgeData = new HashMap<>();
+      for (int i = 0; i < edgeDataBuffer.getNumberOfEdges(); i++)
+      {
+         FootstepPlannerEdgeData edgeData = edgeDataBuffer.getEdgeData(i);
+         expectedEdgeData.put(new GraphEdge<>(edgeData.getStanceNode(), edgeData.getCandidateNode()), edgeData);
+      }
+
+      FootstepPlannerLogger logger = new FootstepPlannerLogger(planningModule);
+      Assertions.assertTrue(logger.logSession(logDirectory), "Error generating footstep planner log");
+      Assertions.assertTrue(logger.awaitPendingWrites(), "Error writing footstep planner edge data");
+      Assertions.assertTrue(new File(logger.getLatestLogDirectory(), FootstepPlannerLogger.edgeDataFileName).exists());
+
+      FootstepPlannerLogLoader logLoader = new FootstepPlannerLogLoader();
+      FootstepPlannerLogLoader.LoadResult loadResult = logLoader.load(new File(logger.getLatestLogDirectory()));
+      Assertions.assertSame(loadResult, FootstepPlannerLogLoader.LoadResult.LOADED, "Error loading footstep planner log");
+      Map<GraphEdge<FootstepNode>, FootstepPlannerEdgeData> loadedEdgeData = logLoader.getLog().getEdgeDataMap();
+
+      Assertions.assertEquals(expectedEdgeData.size(), loadedEdgeData.size());
+      for (GraphEdge<FootstepNode> edge : expectedEdgeData.keySet())
+      {
+         FootstepPlannerEdgeData expected = expectedEdgeData.get(edge);
+         FootstepPlannerEdgeData loaded = loadedEdgeData.get(edge);
+         Assertions.assertNotNull(loaded, "Missing edge " + edge);
+         Assertions.assertEquals(expected.getCandidateNode(), loaded.getCandidateNode());
+         Assertions.assertEquals(expected.isSolutionEdge(), loaded.isSolutionEdge());
+         Assertions.assertArrayEquals(expected.getDataBuffer(), loaded.getDataBuffer());
+         EuclidCoreTestTools.assertRigidBodyTransformEquals(expected.getCandidateNodeSnapData().getSnapTransform(),
+                                                            loaded.getCandidateNodeSnapData().getSnapTransform(), 1e-10);
+         EuclidCoreTestTools.assertRigidBodyTransformEquals(expected.getCandidateNodeSnapData().getWiggleTransformInWorld(),
+                                                            loaded.getCandidateNodeSnapData().getWiggleTransformInWorld(), 1e-10);
+         Assertions.assertTrue(expected.getCandidateNodeSnapData().getCroppedFoothold().epsilonEquals(loaded.getCandidateNodeSnapData().getCroppedFoothold(), 1e-10));
+      }
+
+      // the children of each iteration are read from the edge data file
+      int numberOfChildNodes = 0;
+      for (FootstepPlannerIterationData iterationData : logLoader.getLog().getIterationData())
+      {
+         numberOfChildNodes += iterationData.getChildNodes().size();
+         for (FootstepNode childNode : iterationData.getChildNodes())
+            Assertions.assertTrue(loadedEdgeData.containsKey(new GraphEdge<>(iterationData.getStanceNode(), childNode)));
+      }
+      Assertions.assertTrue(numberOfChildNodes > 0);
+   }
+
+   private static FootstepPlannerOutput planRequest(FootstepPlanningModule planningModule)
+   {
+      DataSet dataSet = DataSetIOTools.loadDataSet(DataSetName._20190220_172417_EOD_Cinders);
+
+      FootstepPlannerRequest request = new FootstepPlannerRequest();
+      Pose3D initialMidFootPose = new Pose3D(dataSet.getPlannerInput().getStartPosition(), new Quaternion(dataSet.getPlannerInput().getStartYaw(), 0.0, 0.0));
+      Pose3D goalMidFootPose = new Pose3D(dataSet.getPlannerInput().getGoalPosition(), new Quaternion(dataSet.getPlannerInput().getGoalYaw(), 0.0, 0.0));
+      request.setRequestedInitialStanceSide(RobotSide.LEFT);
+      request.setStartFootPoses(planningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), initialMidFootPose);
+      request.setGoalFootPoses(planningModule.getFootstepPlannerParameters().getIdealFootstepWidth(), goalMidFootPose);
+      request.setPlanarRegionsList(dataSet.getPlanarRegionsList());
+      request.setAssumeFlatGround(false);
+      request.setPlanBodyPath(true);
+
+      planningModule.getFootstepPlannerParameters().setMaximumStepZ(0.294);
+      planningModule.getFootstepPlannerParameters().setYawWeight(0.17);
+      planningModule.getFootstepPlannerParameters().setMaximumStepZWhenSteppingUp(0.4);
+      planningModule.getFootstepPlannerParameters().setMaximumZPenetrationOnValleyRegions(1.0);
+      planningModule.getVisibilityGraphParameters().setNavigableExtrusionDistance(0.01);
+      planningModule.getVisibilityGraphParameters().setExplorationDistanceFromStartGoal(50.0);
+
+      return planningModule.handleRequest(request);
+   }
 }
@@ -29,6 +29,18 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
    public controller_msgs.msg.dds.PlanarRegionsListMessage planar_regions_list_;
    public us.ihmc.idl.IDLSequence.Object<us.ihmc.euclid.geometry.Pose3D>  body_path_;
    public us.ihmc.euclid.geometry.Pose3D low_level_planner_goal_;
+   /**
+            * Planning time in seconds at which the first solution was found, -1 if none was found.
+            */
+   public double time_to_first_solution_ = -1.0;
+   /**
+            * Planning time in seconds at which each improved solution was found, in the order they were found.
+            */
+   public us.ihmc.idl.IDLSequence.Double  solution_times_;
+   /**
+            * Cost of each improved solution, matching solution_times.
+            */
+   public us.ihmc.idl.IDLSequence.Double  solution_costs_;
 
    public PawStepPlanningToolboxOutputStatus()
    {
@@ -36,6 +48,10 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
       planar_regions_list_ = new controller_msgs.msg.dds.PlanarRegionsListMessage();
       body_path_ = new us.ihmc.idl.IDLSequence.Object<us.ihmc.euclid.geometry.Pose3D> (100, new geometry_msgs.msg.dds.PosePubSubType());
       low_level_planner_goal_ = new us.ihmc.euclid.geometry.Pose3D();
+      solution_times_ = new us.ihmc.idl.IDLSequence.Double (100, "type_6");
+
+      solution_costs_ = new us.ihmc.idl.IDLSequence.Double (100, "type_6");
+
 
    }
 
@@ -59,6 +75,10 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
       controller_msgs.msg.dds.PlanarRegionsListMessagePubSubType.staticCopy(other.planar_regions_list_, planar_regions_list_);
       body_path_.set(other.body_path_);
       geometry_msgs.msg.dds.PosePubSubType.staticCopy(other.low_level_planner_goal_, low_level_planner_goal_);
+      time_to_first_solution_ = other.time_to_first_solution_;
+
+      solution_times_.set(other.solution_times_);
+      solution_costs_.set(other.solution_costs_);
    }
 
    /**
@@ -127,6 +147,39 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
       return low_level_planner_goal_;
    }
 
+   /**
+            * Planning time in seconds at which the first solution was found, -1 if none was found.
+            */
+   public void setTimeToFirstSolution(double time_to_first_solution)
+   {
+      time_to_first_solution_ = time_to_first_solution;
+   }
+   /**
+            * Planning time in seconds at which the first solution was found, -1 if none was found.
+            */
+   public double getTimeToFirstSolution()
+   {
+      return time_to_first_solution_;
+   }
+
+
+   /**
+            * Planning time in seconds at which each improved solution was found, in the order they were found.
+            */
+   public us.ihmc.idl.IDLSequence.Double  getSolutionTimes()
+   {
+      return solution_times_;
+   }
+
+
+   /**
+            * Cost of each improved solution, matching solution_times.
+            */
+   public us.ihmc.idl.IDLSequence.Double  getSolutionCosts()
+   {
+      return solution_costs_;
+   }
+
 
    public static Supplier<PawStepPlanningToolboxOutputStatusPubSubType> getPubSubType()
    {
@@ -163,6 +216,12 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
       }
 
       if (!this.low_level_planner_goal_.epsilonEquals(other.low_level_planner_goal_, epsilon)) return false;
+      if (!us.ihmc.idl.IDLTools.epsilonEqualsPrimitive(this.time_to_first_solution_, other.time_to_first_solution_, epsilon)) return false;
+
+      if (!us.ihmc.idl.IDLTools.epsilonEqualsDoubleSequence(this.solution_times_, other.solution_times_, epsilon)) return false;
+
+      if (!us.ihmc.idl.IDLTools.epsilonEqualsDoubleSequence(this.solution_costs_, other.solution_costs_, epsilon)) return false;
+
 
       return true;
    }
@@ -188,6 +247,10 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
       if (!this.planar_regions_list_.equals(otherMyClass.planar_regions_list_)) return false;
       if (!this.body_path_.equals(otherMyClass.body_path_)) return false;
       if (!this.low_level_planner_goal_.equals(otherMyClass.low_level_planner_goal_)) return false;
+      if(this.time_to_first_solution_ != otherMyClass.time_to_first_solution_) return false;
+
+      if (!this.solution_times_.equals(otherMyClass.solution_times_)) return false;
+      if (!this.solution_costs_.equals(otherMyClass.solution_costs_)) return false;
 
       return true;
    }
@@ -213,7 +276,13 @@ public class PawStepPlanningToolboxOutputStatus extends Packet<PawStepPlanningTo
       builder.append("body_path=");
       builder.append(this.body_path_);      builder.append(", ");
       builder.append("low_level_planner_goal=");
-      builder.append(this.low_level_planner_goal_);
+      builder.append(this.low_level_planner_goal_);      builder.append(", ");
+      builder.append("time_to_first_solution=");
+      builder.append(this.time_to_first_solution_);      builder.append(", ");
+      builder.append("solution_times=");
+      builder.append(this.solution_times_);      builder.append(", ");
+      builder.append("solution_costs=");
+      builder.append(this.solution_costs_);
       builder.append("}");
       return builder.toString();
    }
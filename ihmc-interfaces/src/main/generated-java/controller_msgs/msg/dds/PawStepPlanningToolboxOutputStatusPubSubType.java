@@ -57,6 +57,12 @@ public class PawStepPlanningToolboxOutputStatusPubSubType implements us.ihmc.pub
           current_alignment += geometry_msgs.msg.dds.PosePubSubType.getMaxCdrSerializedSize(current_alignment);}
       current_alignment += geometry_msgs.msg.dds.PosePubSubType.getMaxCdrSerializedSize(current_alignment);
 
+      current_alignment += 8 + us.ihmc.idl.CDR.alignment(current_alignment, 8);
+
+      current_alignment += 4 + us.ihmc.idl.CDR.alignment(current_alignment, 4);current_alignment += (100 * 8) + us.ihmc.idl.CDR.alignment(current_alignment, 8);
+
+      current_alignment += 4 + us.ihmc.idl.CDR.alignment(current_alignment, 4);current_alignment += (100 * 8) + us.ihmc.idl.CDR.alignment(current_alignment, 8);
+
 
       return current_alignment - initial_alignment;
    }
@@ -93,6 +99,17 @@ public class PawStepPlanningToolboxOutputStatusPubSubType implements us.ihmc.pub
 
       current_alignment += geometry_msgs.msg.dds.PosePubSubType.getCdrSerializedSize(data.getLowLevelPlannerGoal(), current_alignment);
 
+      current_alignment += 8 + us.ihmc.idl.CDR.alignment(current_alignment, 8);
+
+
+      current_alignment += 4 + us.ihmc.idl.CDR.alignment(current_alignment, 4);
+      current_alignment += (data.getSolutionTimes().size() * 8) + us.ihmc.idl.CDR.alignment(current_alignment, 8);
+
+
+      current_alignment += 4 + us.ihmc.idl.CDR.alignment(current_alignment, 4);
+      current_alignment += (data.getSolutionCosts().size() * 8) + us.ihmc.idl.CDR.alignment(current_alignment, 8);
+
+
 
       return current_alignment - initial_alignment;
    }
@@ -114,6 +131,16 @@ public class PawStepPlanningToolboxOutputStatusPubSubType implements us.ihmc.pub
           throw new RuntimeException("body_path field exceeds the maximum length");
 
       geometry_msgs.msg.dds.PosePubSubType.write(data.getLowLevelPlannerGoal(), cdr);
+      cdr.write_type_6(data.getTimeToFirstSolution());
+
+      if(data.getSolutionTimes().size() <= 100)
+      cdr.write_type_e(data.getSolutionTimes());else
+          throw new RuntimeException("solution_times field exceeds the maximum length");
+
+      if(data.getSolutionCosts().size() <= 100)
+      cdr.write_type_e(data.getSolutionCosts());else
+          throw new RuntimeException("solution_costs field exceeds the maximum length");
+
    }
 
    public static void read(controller_msgs.msg.dds.PawStepPlanningToolboxOutputStatus data, us.ihmc.idl.CDR cdr)
@@ -130,6 +157,10 @@ public class PawStepPlanningToolboxOutputStatusPubSubType implements us.ihmc.pub
       controller_msgs.msg.dds.PlanarRegionsListMessagePubSubType.read(data.getPlanarRegionsList(), cdr);	
       cdr.read_type_e(data.getBodyPath());	
       geometry_msgs.msg.dds.PosePubSubType.read(data.getLowLevelPlannerGoal(), cdr);	
+      data.setTimeToFirstSolution(cdr.read_type_6());
+      	
+      cdr.read_type_e(data.getSolutionTimes());	
+      cdr.read_type_e(data.getSolutionCosts());	
 
    }
 
@@ -147,6 +178,9 @@ public class PawStepPlanningToolboxOutputStatusPubSubType implements us.ihmc.pub
       ser.write_type_e("body_path", data.getBodyPath());
       ser.write_type_a("low_level_planner_goal", new geometry_msgs.msg.dds.PosePubSubType(), data.getLowLevelPlannerGoal());
 
+      ser.write_type_6("time_to_first_solution", data.getTimeToFirstSolution());
+      ser.write_type_e("solution_times", data.getSolutionTimes());
+      ser.write_type_e("solution_costs", data.getSolutionCosts());
    }
 
    @Override
@@ -163,6 +197,9 @@ public class PawStepPlanningToolboxOutputStatusPubSubType implements us.ihmc.pub
       ser.read_type_e("body_path", data.getBodyPath());
       ser.read_type_a("low_level_planner_goal", new geometry_msgs.msg.dds.PosePubSubType(), data.getLowLevelPlannerGoal());
 
+      data.setTimeToFirstSolution(ser.read_type_6("time_to_first_solution"));
+      ser.read_type_e("solution_times", data.getSolutionTimes());
+      ser.read_type_e("solution_costs", data.getSolutionCosts());
    }
 
    public static void staticCopy(controller_msgs.msg.dds.PawStepPlanningToolboxOutputStatus src, controller_msgs.msg.dds.PawStepPlanningToolboxOutputStatus dest)
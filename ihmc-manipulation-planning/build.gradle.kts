@@ -35,3 +35,10 @@ mainDependencies {
 testDependencies {
    api("us.ihmc:ihmc-communication-test:source")
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+
+   api("us.ihmc:ihmc-robotics-toolkit-benchmarks:source")
+   "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.25")
+}
@@ -0,0 +1,68 @@
+package us.ihmc.manipulation.planning.rrt.configurationAndTimeSpace;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+
+/**
+ * Expansions per second of a {@link CTTaskNodeTree} that already holds {@link #numberOfNodes} nodes, with the k-d tree nearest node search
+ * and with the linear search. The tree keeps growing during an iteration and is grown again from scratch before each iteration.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CTTaskNodeTreeBenchmark
+{
+   private static final int numberOfTasks = 6;
+
+   @Param({"1000", "10000", "100000"})
+   public int numberOfNodes;
+
+   @Param({"false", "true"})
+   public boolean useNearestNeighborTree;
+
+   private CTTaskNodeTree tree;
+
+   @Setup(Level.Iteration)
+   public void setup()
+   {
+      CTTaskNode rootNode = new CTTaskNode(numberOfTasks + 1);
+      for (int i = 1; i < numberOfTasks + 1; i++)
+         rootNode.setNodeData(i, 0.5);
+
+      TaskRegion taskRegion = new TaskRegion(numberOfTasks + 1);
+      for (int i = 0; i < numberOfTasks + 1; i++)
+         taskRegion.setRandomRegion(i, 0.0, 1.0);
+
+      rootNode.convertDataToNormalizedData(taskRegion);
+      tree = new CTTaskNodeTree(rootNode);
+      tree.setTaskRegion(taskRegion);
+
+      tree.setUseNearestNeighborTree(true);
+      while (tree.getWholeNodes().size() < numberOfNodes)
+         expandTree();
+      tree.setUseNearestNeighborTree(useNearestNeighborTree);
+   }
+
+   @Benchmark
+   public CTTaskNode expandTree()
+   {
+      tree.updateRandomConfiguration();
+      tree.updateNearestNodeTaskTime();
+      tree.updateNewConfiguration();
+      tree.connectNewNode(true);
+      return tree.getNewNode();
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(CTTaskNodeTreeBenchmark.class, args);
+   }
+}
@@ -0,0 +1,519 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dynamic k-d tree used by the RRT trees to find the nearest node to a sample without scanning the whole tree.
+ *
+ * Elements are inserted one by one into buckets which are split once full. Every cell keeps the bounding box of its elements so that a
+ * query can skip the cells that can't hold anything closer than the best element found so far. The part of the tree that
+ * becomes unbalanced is rebuilt when an element is inserted too deep.
+ *
+ * The distance is defined by the {@link Metric}, which only has to provide a lower bound of the distance for the elements in a box. An
+ * element is never selected if its distance is {@link Double#MAX_VALUE} or more, which lets the metric exclude elements.
+ *
+ * @param <T> type of the elements, also used for the queries.
+ */
+public class NearestNeighborTree<T>
+{
+   private static final int BUCKET_SIZE = 8;
+   private static final int MINIMUM_DEPTH_FOR_REBUILD = 16;
+   /** A cell is rebuilt when one of its children holds more than this ratio of its elements. */
+   private static final double BALANCE_RATIO = 0.75;
+
+   private final int dimension;
+   private final CoordinateProvider<T> coordinateProvider;
+   private final Metric<T> metric;
+
+   private final List<T> elements = new ArrayList<>();
+   private final List<double[]> elementCoordinates = new ArrayList<>();
+   private Cell rootCell;
+
+   private final List<Cell> insertionPath = new ArrayList<>();
+
+   private T nearestElement;
+   private double nearestDistance;
+
+   private int numberOfNeighbors;
+   private final List<T> neighbors = new ArrayList<>();
+   private double[] neighborDistances = new double[0];
+
+   public interface CoordinateProvider<T>
+   {
+      void getCoordinates(T element, double[] coordinatesToPack);
+   }
+
+   public interface Metric<T>
+   {
+      /**
+       * @return the distance from the element to the query, {@link Double#MAX_VALUE} if the element can't be selected for the query.
+       */
+      double distance(T element, T query);
+
+      /**
+       * @return a value lower or equal to the distance from the query to any element with coordinates between {@code lower} and {@code upper}.
+       */
+      double lowerBound(double[] lower, double[] upper, T query);
+   }
+
+   public NearestNeighborTree(int dimension, CoordinateProvider<T> coordinateProvider, Metric<T> metric)
+   {
+      if (dimension < 1)
+         throw new IllegalArgumentException("Dimension must be at least 1, got " + dimension);
+
+      this.dimension = dimension;
+      this.coordinateProvider = coordinateProvider;
+      this.metric = metric;
+   }
+
+   public void clear()
+   {
+      elements.clear();
+      elementCoordinates.clear();
+      rootCell = null;
+   }
+
+   /**
+    * The coordinates of the element are copied, the tree has to be cleared and filled again if they change.
+    */
+   public void add(T element)
+   {
+      int index = elements.size();
+      double[] coordinates = new double[dimension];
+      coordinateProvider.getCoordinates(element, coordinates);
+      elements.add(element);
+      elementCoordinates.add(coordinates);
+
+      if (rootCell == null)
+         rootCell = new Cell(coordinates);
+
+      Cell cell = rootCell;
+      insertionPath.clear();
+      while (true)
+      {
+         insertionPath.add(cell);
+
+         cell.expand(coordinates);
+         cell.size++;
+
+         if (cell.isLeaf())
+            break;
+
+         cell = coordinates[cell.splitAxis] < cell.splitValue ? cell.lowCell : cell.highCell;
+      }
+
+      cell.addToBucket(index);
+      int insertionDepth = insertionPath.size();
+      if (cell.bucketSize > BUCKET_SIZE && cell.split())
+         insertionDepth++;
+
+      if (insertionDepth > MINIMUM_DEPTH_FOR_REBUILD && insertionDepth > 2 * log2(elements.size() / BUCKET_SIZE + 1))
+         rebuildUnbalancedCell();
+   }
+
+   /**
+    * Rebuilds the highest cell on the insertion path that has a child holding most of its elements.
+    */
+   private void rebuildUnbalancedCell()
+   {
+      for (int i = 0; i < insertionPath.size(); i++)
+      {
+         Cell cell = insertionPath.get(i);
+         if (!cell.isLeaf() && Math.max(cell.lowCell.size, cell.highCell.size) > BALANCE_RATIO * cell.size)
+         {
+            int[] indices = new int[cell.size];
+            collectIndices(cell, indices, 0);
+            Cell rebuiltCell = build(indices, 0, indices.length);
+
+            if (i == 0)
+               rootCell = rebuiltCell;
+            else if (insertionPath.get(i - 1).lowCell == cell)
+               insertionPath.get(i - 1).lowCell = rebuiltCell;
+            else
+               insertionPath.get(i - 1).highCell = rebuiltCell;
+            return;
+         }
+      }
+   }
+
+   private int collectIndices(Cell cell, int[] indices, int start)
+   {
+      if (cell.isLeaf())
+      {
+         System.arraycopy(cell.bucket, 0, indices, start, cell.bucketSize);
+         return start + cell.bucketSize;
+      }
+
+      start = collectIndices(cell.lowCell, indices, start);
+      return collectIndices(cell.highCell, indices, start);
+   }
+
+   /**
+    * Rebuilds a balanced tree with all the elements.
+    */
+   public void rebuild()
+   {
+      if (elements.isEmpty())
+      {
+         rootCell = null;
+         return;
+      }
+
+      int[] indices = new int[elements.size()];
+      for (int i = 0; i < indices.length; i++)
+         indices[i] = i;
+
+      rootCell = build(indices, 0, indices.length);
+   }
+
+   private Cell build(int[] indices, int start, int end)
+   {
+      Cell cell = new Cell(elementCoordinates.get(indices[start]));
+      for (int i = start + 1; i < end; i++)
+         cell.expand(elementCoordinates.get(indices[i]));
+      cell.size = end - start;
+
+      int splitAxis = cell.getLargestAxis();
+      if (end - start <= BUCKET_SIZE || cell.upper[splitAxis] <= cell.lower[splitAxis])
+      {
+         for (int i = start; i < end; i++)
+            cell.addToBucket(indices[i]);
+         return cell;
+      }
+
+      int median = (start + end) >>> 1;
+      select(indices, start, end - 1, median, splitAxis);
+      double splitValue = elementCoordinates.get(indices[median])[splitAxis];
+
+      // Elements equal to the split value go to the high cell, find where they start.
+      int firstHigh = start;
+      for (int i = start; i < end; i++)
+      {
+         if (elementCoordinates.get(indices[i])[splitAxis] < splitValue)
+            swap(indices, i, firstHigh++);
+      }
+
+      if (firstHigh == start)
+      {
+         // The median is the minimum, splitting right above it instead.
+         splitValue = Math.nextUp(splitValue);
+         for (int i = start; i < end; i++)
+         {
+            if (elementCoordinates.get(indices[i])[splitAxis] < splitValue)
+               swap(indices, i, firstHigh++);
+         }
+      }
+
+      cell.splitAxis = splitAxis;
+      cell.splitValue = splitValue;
+      cell.lowCell = build(indices, start, firstHigh);
+      cell.highCell = build(indices, firstHigh, end);
+      return cell;
+   }
+
+   private void select(int[] indices, int left, int right, int k, int axis)
+   {
+      while (right > left)
+      {
+         double pivot = elementCoordinates.get(indices[(left + right) >>> 1])[axis];
+         int i = left;
+         int j = right;
+         while (i <= j)
+         {
+            while (elementCoordinates.get(indices[i])[axis] < pivot)
+               i++;
+            while (elementCoordinates.get(indices[j])[axis] > pivot)
+               j--;
+            if (i <= j)
+               swap(indices, i++, j--);
+         }
+
+         if (k <= j)
+            right = j;
+         else if (k >= i)
+            left = i;
+         else
+            return;
+      }
+   }
+
+   private static void swap(int[] indices, int i, int j)
+   {
+      int temp = indices[i];
+      indices[i] = indices[j];
+      indices[j] = temp;
+   }
+
+   private static int log2(int value)
+   {
+      return 32 - Integer.numberOfLeadingZeros(value);
+   }
+
+   /**
+    * @return the element closest to the query, or {@code null} if the tree doesn't have any element that can be selected for the query.
+    */
+   public T findNearest(T query)
+   {
+      nearestElement = null;
+      nearestDistance = Double.MAX_VALUE;
+
+      if (rootCell != null)
+         searchNearest(rootCell, query);
+
+      return nearestElement;
+   }
+
+   /**
+    * Batched version of {@link #findNearest(Object)}, the results are packed in the same order as the queries.
+    */
+   public void findNearest(List<? extends T> queries, List<T> nearestElementsToPack)
+   {
+      nearestElementsToPack.clear();
+      for (int i = 0; i < queries.size(); i++)
+         nearestElementsToPack.add(findNearest(queries.get(i)));
+   }
+
+   private void searchNearest(Cell cell, T query)
+   {
+      if (cell.isLeaf())
+      {
+         for (int i = 0; i < cell.bucketSize; i++)
+         {
+            double distance = metric.distance(elements.get(cell.bucket[i]), query);
+            if (distance < nearestDistance)
+            {
+               nearestDistance = distance;
+               nearestElement = elements.get(cell.bucket[i]);
+            }
+         }
+         return;
+      }
+
+      double lowBound = metric.lowerBound(cell.lowCell.lower, cell.lowCell.upper, query);
+      double highBound = metric.lowerBound(cell.highCell.lower, cell.highCell.upper, query);
+
+      Cell first = lowBound <= highBound ? cell.lowCell : cell.highCell;
+      Cell second = lowBound <= highBound ? cell.highCell : cell.lowCell;
+      double secondBound = Math.max(lowBound, highBound);
+
+      if (Math.min(lowBound, highBound) < nearestDistance)
+         searchNearest(first, query);
+      if (secondBound < nearestDistance)
+         searchNearest(second, query);
+   }
+
+   /**
+    * Finds the {@code k} elements closest to the query, sorted from the closest.
+    *
+    * @param neighborsToPack cleared and filled with at most {@code k} elements, fewer if not enough elements can be selected for the query.
+    */
+   public void findKNearest(T query, int k, List<T> neighborsToPack)
+   {
+      if (k < 1)
+         throw new IllegalArgumentException("k must be at least 1, got " + k);
+
+      neighbors.clear();
+      if (neighborDistances.length < k)
+         neighborDistances = new double[k];
+      numberOfNeighbors = 0;
+
+      if (rootCell != null)
+         searchKNearest(rootCell, query, k);
+
+      neighborsToPack.clear();
+      neighborsToPack.addAll(neighbors);
+   }
+
+   /**
+    * Batched version of {@link #findKNearest(Object, int, List)}.
+    */
+   public void findKNearest(List<? extends T> queries, int k, List<List<T>> neighborsToPack)
+   {
+      neighborsToPack.clear();
+      for (int i = 0; i < queries.size(); i++)
+      {
+         List<T> queryNeighbors = new ArrayList<>(k);
+         findKNearest(queries.get(i), k, queryNeighbors);
+         neighborsToPack.add(queryNeighbors);
+      }
+   }
+
+   private void searchKNearest(Cell cell, T query, int k)
+   {
+      if (cell.isLeaf())
+      {
+         for (int i = 0; i < cell.bucketSize; i++)
+         {
+            double distance = metric.distance(elements.get(cell.bucket[i]), query);
+            if (distance < getKthDistance(k))
+               insertNeighbor(elements.get(cell.bucket[i]), distance, k);
+         }
+         return;
+      }
+
+      double lowBound = metric.lowerBound(cell.lowCell.lower, cell.lowCell.upper, query);
+      double highBound = metric.lowerBound(cell.highCell.lower, cell.highCell.upper, query);
+
+      Cell first = lowBound <= highBound ? cell.lowCell : cell.highCell;
+      Cell second = lowBound <= highBound ? cell.highCell : cell.lowCell;
+
+      if (Math.min(lowBound, highBound) < getKthDistance(k))
+         searchKNearest(first, query, k);
+      if (Math.max(lowBound, highBound) < getKthDistance(k))
+         searchKNearest(second, query, k);
+   }
+
+   private double getKthDistance(int k)
+   {
+      return numberOfNeighbors < k ? Double.MAX_VALUE : neighborDistances[k - 1];
+   }
+
+   private void insertNeighbor(T element, double distance, int k)
+   {
+      int index = numberOfNeighbors;
+      while (index > 0 && neighborDistances[index - 1] > distance)
+         index--;
+
+      if (numberOfNeighbors == k)
+      {
+         neighbors.remove(k - 1);
+         numberOfNeighbors--;
+      }
+
+      System.arraycopy(neighborDistances, index, neighborDistances, index + 1, numberOfNeighbors - index);
+      neighborDistances[index] = distance;
+      neighbors.add(index, element);
+      numberOfNeighbors++;
+   }
+
+   public int size()
+   {
+      return elements.size();
+   }
+
+   /**
+    * @return the number of cells from the root to the deepest leaf, computed by going through the whole tree.
+    */
+   public int getDepth()
+   {
+      return getDepth(rootCell);
+   }
+
+   private int getDepth(Cell cell)
+   {
+      if (cell == null)
+         return 0;
+      if (cell.isLeaf())
+         return 1;
+      return 1 + Math.max(getDepth(cell.lowCell), getDepth(cell.highCell));
+   }
+
+   public int getDimension()
+   {
+      return dimension;
+   }
+
+   private class Cell
+   {
+      private final double[] lower;
+      private final double[] upper;
+
+      private int splitAxis = -1;
+      private double splitValue;
+      private Cell lowCell;
+      private Cell highCell;
+
+      /** Indices of the elements of a leaf cell. */
+      private int[] bucket;
+      private int bucketSize = 0;
+      /** Number of elements in the cell and its children. */
+      private int size = 0;
+
+      private Cell(double[] firstCoordinates)
+      {
+         lower = Arrays.copyOf(firstCoordinates, dimension);
+         upper = Arrays.copyOf(firstCoordinates, dimension);
+      }
+
+      private boolean isLeaf()
+      {
+         return splitAxis == -1;
+      }
+
+      private void expand(double[] coordinates)
+      {
+         for (int i = 0; i < dimension; i++)
+         {
+            lower[i] = Math.min(lower[i], coordinates[i]);
+            upper[i] = Math.max(upper[i], coordinates[i]);
+         }
+      }
+
+      private void addToBucket(int index)
+      {
+         if (bucket == null)
+         {
+            bucket = new int[BUCKET_SIZE + 1];
+         }
+         else if (bucketSize == bucket.length)
+         {
+            // Only happens when all the elements have the same coordinates.
+            bucket = Arrays.copyOf(bucket, 2 * bucket.length);
+         }
+
+         bucket[bucketSize++] = index;
+      }
+
+      private int getLargestAxis()
+      {
+         int largestAxis = 0;
+         for (int i = 1; i < dimension; i++)
+         {
+            if (upper[i] - lower[i] > upper[largestAxis] - lower[largestAxis])
+               largestAxis = i;
+         }
+         return largestAxis;
+      }
+
+      /**
+       * Splits the bucket in two at the middle of its largest axis.
+       *
+       * @return false if the elements of the bucket can't be separated.
+       */
+      private boolean split()
+      {
+         int axis = getLargestAxis();
+         if (upper[axis] <= lower[axis])
+            return false;
+
+         splitAxis = axis;
+         splitValue = 0.5 * (lower[axis] + upper[axis]);
+         if (splitValue <= lower[axis])
+            splitValue = upper[axis];
+
+         for (int i = 0; i < bucketSize; i++)
+         {
+            double[] coordinates = elementCoordinates.get(bucket[i]);
+            boolean low = coordinates[axis] < splitValue;
+            Cell child = low ? lowCell : highCell;
+            if (child == null)
+            {
+               child = new Cell(coordinates);
+               if (low)
+                  lowCell = child;
+               else
+                  highCell = child;
+            }
+            child.expand(coordinates);
+            child.addToBucket(bucket[i]);
+            child.size++;
+         }
+
+         bucket = null;
+         bucketSize = 0;
+         return true;
+      }
+   }
+}
@@ -41,6 +41,9 @@ public class RRTTree
    public ArrayList<RRTNode> failNodes = new ArrayList<RRTNode>();
 
    protected RRTNode nodeCreator;
+
+   private boolean useNearestNeighborTree = true;
+   private NearestNeighborTree<RRTNode> nearestNeighborTree;
    
    // numberOfNodes, ArrayList<RRTNode> nodes. every node of the nodes has its parent node.
 
@@ -77,6 +80,31 @@ public class RRTTree
       return nodeOne.getDistance(nodeTwo);
    }
 
+   /**
+    * Lower bound of {@link #getMatric(RRTNode, RRTNode)} between the target node and any node with node data between the given bounds.
+    * Used to skip parts of the tree when looking for the near node.
+    * User that overrides getMatric with a matric smaller than the euclidean distance must override this too, returning 0.0 is always safe.
+    */
+   public double getMatricLowerBound(double[] lowerNodeData, double[] upperNodeData, RRTNode targetNode)
+   {
+      double squaredDistance = 0.0;
+      for (int i = 0; i < lowerNodeData.length; i++)
+      {
+         double value = targetNode.getNodeData(i);
+         double gap = Math.max(0.0, Math.max(lowerNodeData[i] - value, value - upperNodeData[i]));
+         squaredDistance += gap * gap;
+      }
+      return Math.sqrt(squaredDistance);
+   }
+
+   /**
+    * When enabled (default), the near node is found with a k-d tree instead of checking every node of the tree.
+    */
+   public void setUseNearestNeighborTree(boolean useNearestNeighborTree)
+   {
+      this.useNearestNeighborTree = useNearestNeighborTree;
+   }
+
    public RRTNode getRandomNode()
    {
       warningMessage();
@@ -109,6 +137,13 @@ public class RRTTree
 
    public void updateNearNodeForTargetNode(RRTNode targetNode)
    {
+      if (useNearestNeighborTree)
+      {
+         RRTNode optNode = getNearestNeighborTree().findNearest(targetNode);
+         this.nearNode = optNode == null ? this.wholeNodes.get(0) : optNode;
+         return;
+      }
+
       RRTNode optNode = this.wholeNodes.get(0);
       RRTNode curNode;
 
@@ -130,6 +165,42 @@ public class RRTTree
    }
    
 
+   /**
+    * Returns the k-d tree of the nodes, after adding the nodes added to the tree since the last call.
+    */
+   public NearestNeighborTree<RRTNode> getNearestNeighborTree()
+   {
+      if (nearestNeighborTree == null)
+      {
+         nearestNeighborTree = new NearestNeighborTree<>(rootNode.getDimensionOfNodeData(), (node, nodeData) ->
+         {
+            for (int i = 0; i < nodeData.length; i++)
+               nodeData[i] = node.getNodeData(i);
+         }, new NearestNeighborTree.Metric<RRTNode>()
+         {
+            @Override
+            public double distance(RRTNode node, RRTNode targetNode)
+            {
+               return getMatric(node, targetNode);
+            }
+
+            @Override
+            public double lowerBound(double[] lowerNodeData, double[] upperNodeData, RRTNode targetNode)
+            {
+               return getMatricLowerBound(lowerNodeData, upperNodeData, targetNode);
+            }
+         });
+      }
+
+      // wholeNodes can be modified from outside, it is only expected to grow.
+      if (nearestNeighborTree.size() > wholeNodes.size())
+         nearestNeighborTree.clear();
+      for (int i = nearestNeighborTree.size(); i < wholeNodes.size(); i++)
+         nearestNeighborTree.add(wholeNodes.get(i));
+
+      return nearestNeighborTree;
+   }
+
    public RRTNode getNewNode(RRTNode targetNode)
    {
       RRTNode newNode = nodeCreator.createNode();
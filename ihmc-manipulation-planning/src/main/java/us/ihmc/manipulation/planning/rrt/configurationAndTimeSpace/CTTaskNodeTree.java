@@ -3,6 +3,7 @@ package us.ihmc.manipulation.planning.rrt.configurationAndTimeSpace;
 import java.util.ArrayList;
 
 import us.ihmc.commons.PrintTools;
+import us.ihmc.manipulation.planning.rrt.NearestNeighborTree;
 
 public class CTTaskNodeTree
 {
@@ -40,6 +41,13 @@ public class CTTaskNodeTree
 
    private double treeReachingTime = 0.0;
 
+   private boolean useNearestNeighborTree = true;
+   private NearestNeighborTree<CTTaskNode> nearestNeighborTree;
+   /**
+    * Selects the metric used by {@link #nearestNeighborTree}, the time gap is weighted by this ratio.
+    */
+   private double nearestNeighborTimeRatio;
+
    public CTTaskNodeTree(CTTaskNode rootNode)
    {
       this.rootNode = new CTTaskNode(rootNode);
@@ -159,8 +167,79 @@ public class CTTaskNodeTree
       this.randomNode = randomNode;
    }
 
+   /**
+    * Lower bound of the metric between the random node and any node with normalized node data between the given bounds.
+    */
+   private static double getMetricLowerBound(double[] lowerNormalizedNodeData, double[] upperNormalizedNodeData, CTTaskNode randomNode, double timeRatio)
+   {
+      double time = randomNode.getNormalizedNodeData(0);
+      if (lowerNormalizedNodeData[0] >= time)
+         return Double.MAX_VALUE;
+
+      double timeGap = time - Math.min(upperNormalizedNodeData[0], time);
+      double squaredMetric = timeGap * timeGap * timeRatio;
+
+      for (int i = 1; i < lowerNormalizedNodeData.length; i++)
+      {
+         double value = randomNode.getNormalizedNodeData(i);
+         double gap = Math.max(0.0, Math.max(lowerNormalizedNodeData[i] - value, value - upperNormalizedNodeData[i]));
+         squaredMetric += gap * gap;
+      }
+
+      return Math.sqrt(squaredMetric);
+   }
+
+   /**
+    * When enabled (default), the nearest node is found with a k-d tree instead of checking every node of the tree.
+    */
+   public void setUseNearestNeighborTree(boolean useNearestNeighborTree)
+   {
+      this.useNearestNeighborTree = useNearestNeighborTree;
+   }
+
+   private CTTaskNode findNearestNode(double timeRatio)
+   {
+      if (nearestNeighborTree == null)
+      {
+         nearestNeighborTree = new NearestNeighborTree<>(rootNode.getDimensionOfNodeData(), (node, normalizedNodeData) ->
+         {
+            for (int i = 0; i < normalizedNodeData.length; i++)
+               normalizedNodeData[i] = node.getNormalizedNodeData(i);
+         }, new NearestNeighborTree.Metric<CTTaskNode>()
+         {
+            @Override
+            public double distance(CTTaskNode node, CTTaskNode randomNode)
+            {
+               return nearestNeighborTimeRatio == 0.0 ? getMetricTaskOnly(node, randomNode) : getMetricTaskTime(node, randomNode);
+            }
+
+            @Override
+            public double lowerBound(double[] lowerNormalizedNodeData, double[] upperNormalizedNodeData, CTTaskNode randomNode)
+            {
+               return getMetricLowerBound(lowerNormalizedNodeData, upperNormalizedNodeData, randomNode, nearestNeighborTimeRatio);
+            }
+         });
+      }
+
+      // wholeNodes can be modified from outside, it is only expected to grow.
+      if (nearestNeighborTree.size() > wholeNodes.size())
+         nearestNeighborTree.clear();
+      for (int i = nearestNeighborTree.size(); i < wholeNodes.size(); i++)
+         nearestNeighborTree.add(wholeNodes.get(i));
+
+      nearestNeighborTimeRatio = timeRatio;
+      CTTaskNode nearNode = nearestNeighborTree.findNearest(randomNode);
+      return nearNode == null ? this.rootNode : nearNode;
+   }
+
    public void updateNearestNodeTaskOnly()
    {
+      if (useNearestNeighborTree)
+      {
+         this.nearNode = findNearestNode(0.0);
+         return;
+      }
+
       CTTaskNode nearNode = this.rootNode;
       CTTaskNode curNode;
 
@@ -184,6 +263,12 @@ public class CTTaskNodeTree
    
    public void updateNearestNodeTaskTime()
    {
+      if (useNearestNeighborTree)
+      {
+         this.nearNode = findNearestNode(matricRatioTimeToTask);
+         return;
+      }
+
       CTTaskNode nearNode = this.rootNode;
       CTTaskNode curNode;
 
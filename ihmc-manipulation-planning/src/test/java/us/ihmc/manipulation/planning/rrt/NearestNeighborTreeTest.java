@@ -0,0 +1,168 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertNull;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NearestNeighborTreeTest
+{
+   private static final int ITERATIONS = 10;
+
+   /**
+    * Euclidean distance, only the points before the query along the first axis can be selected.
+    */
+   private static final NearestNeighborTree.Metric<double[]> metric = new NearestNeighborTree.Metric<double[]>()
+   {
+      @Override
+      public double distance(double[] point, double[] query)
+      {
+         return getDistance(point, query);
+      }
+
+      @Override
+      public double lowerBound(double[] lower, double[] upper, double[] query)
+      {
+         if (lower[0] >= query[0])
+            return Double.MAX_VALUE;
+
+         double squaredDistance = 0.0;
+         for (int i = 0; i < lower.length; i++)
+         {
+            double gap = Math.max(0.0, Math.max(lower[i] - query[i], query[i] - upper[i]));
+            squaredDistance += gap * gap;
+         }
+         return Math.sqrt(squaredDistance);
+      }
+   };
+
+   @Test
+   public void testAgainstBruteForce()
+   {
+      Random random = new Random(3452L);
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         int dimension = 1 + random.nextInt(7);
+         // Sampling on a coarse grid gives a lot of identical coordinates.
+         boolean sampleOnGrid = random.nextBoolean();
+         NearestNeighborTree<double[]> tree = createTree(dimension);
+         List<double[]> points = new ArrayList<>();
+
+         for (int i = 0; i < 5000; i++)
+         {
+            double[] point = nextPoint(random, dimension, sampleOnGrid);
+            // Like the RRT trees, the tree grows along the first axis.
+            point[0] = sampleOnGrid ? point[0] : (double) i / 5000;
+            points.add(point);
+            tree.add(point);
+
+            if (i % 50 != 0)
+               continue;
+
+            double[] query = nextPoint(random, dimension, sampleOnGrid);
+            List<Double> expectedDistances = getSortedDistances(points, query);
+
+            double[] nearest = tree.findNearest(query);
+            if (expectedDistances.isEmpty())
+               assertNull(nearest);
+            else
+               assertEquals(expectedDistances.get(0), getDistance(nearest, query), 0.0);
+
+            int k = 1 + random.nextInt(10);
+            List<double[]> neighbors = new ArrayList<>();
+            tree.findKNearest(query, k, neighbors);
+            assertEquals(Math.min(k, expectedDistances.size()), neighbors.size());
+            for (int j = 0; j < neighbors.size(); j++)
+               assertEquals(expectedDistances.get(j), getDistance(neighbors.get(j), query), 0.0);
+         }
+
+         tree.rebuild();
+         double[] query = nextPoint(random, dimension, sampleOnGrid);
+         List<Double> expectedDistances = getSortedDistances(points, query);
+         if (!expectedDistances.isEmpty())
+            assertEquals(expectedDistances.get(0), getDistance(tree.findNearest(query), query), 0.0);
+      }
+   }
+
+   @Test
+   public void testBatchedQueries()
+   {
+      Random random = new Random(9823L);
+      NearestNeighborTree<double[]> tree = createTree(3);
+      for (int i = 0; i < 1000; i++)
+         tree.add(nextPoint(random, 3, false));
+
+      List<double[]> queries = new ArrayList<>();
+      for (int i = 0; i < 20; i++)
+         queries.add(nextPoint(random, 3, false));
+
+      List<double[]> nearestPoints = new ArrayList<>();
+      List<List<double[]>> neighbors = new ArrayList<>();
+      tree.findNearest(queries, nearestPoints);
+      tree.findKNearest(queries, 3, neighbors);
+
+      assertEquals(queries.size(), nearestPoints.size());
+      assertEquals(queries.size(), neighbors.size());
+      for (int i = 0; i < queries.size(); i++)
+      {
+         assertEquals(tree.findNearest(queries.get(i)), nearestPoints.get(i));
+         if (nearestPoints.get(i) != null)
+            assertEquals(nearestPoints.get(i), neighbors.get(i).get(0));
+      }
+   }
+
+   @Test
+   public void testBalance()
+   {
+      NearestNeighborTree<double[]> tree = createTree(1);
+      for (int i = 0; i < 100000; i++)
+         tree.add(new double[] {i});
+
+      // Sorted insertions, the tree is rebuilt when it gets too deep.
+      assertEquals(100000, tree.size());
+      assertTrue("The tree is too deep: " + tree.getDepth(), tree.getDepth() <= 3 * 32 - 3 * Integer.numberOfLeadingZeros(100000 / 8 + 1));
+   }
+
+   private static NearestNeighborTree<double[]> createTree(int dimension)
+   {
+      return new NearestNeighborTree<>(dimension, (point, coordinates) -> System.arraycopy(point, 0, coordinates, 0, dimension), metric);
+   }
+
+   private static double[] nextPoint(Random random, int dimension, boolean sampleOnGrid)
+   {
+      double[] point = new double[dimension];
+      for (int i = 0; i < dimension; i++)
+         point[i] = sampleOnGrid ? random.nextInt(4) : random.nextDouble();
+      return point;
+   }
+
+   private static double getDistance(double[] point, double[] query)
+   {
+      if (point[0] >= query[0])
+         return Double.MAX_VALUE;
+
+      double squaredDistance = 0.0;
+      for (int i = 0; i < point.length; i++)
+         squaredDistance += (point[i] - query[i]) * (point[i] - query[i]);
+      return Math.sqrt(squaredDistance);
+   }
+
+   private static List<Double> getSortedDistances(List<double[]> points, double[] query)
+   {
+      List<Double> distances = new ArrayList<>();
+      for (double[] point : points)
+      {
+         double distance = getDistance(point, query);
+         if (distance < Double.MAX_VALUE)
+            distances.add(distance);
+      }
+      distances.sort(null);
+      return distances;
+   }
+}
@@ -0,0 +1,53 @@
+package us.ihmc.manipulation.planning.rrt.configurationAndTimeSpace;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CTTaskNodeTreeTest
+{
+   private static final int numberOfTasks = 5;
+
+   @Test
+   public void testNearestNodeAgainstLinearSearch()
+   {
+      Random random = new Random(6532L);
+
+      CTTaskNode rootNode = new CTTaskNode(numberOfTasks + 1);
+      rootNode.setNodeData(0, 0.0);
+      for (int i = 1; i < numberOfTasks + 1; i++)
+         rootNode.setNodeData(i, 0.5);
+
+      TaskRegion taskRegion = new TaskRegion(numberOfTasks + 1);
+      for (int i = 0; i < numberOfTasks + 1; i++)
+         taskRegion.setRandomRegion(i, 0.0, i == 3 ? 0.0 : 1.0);
+
+      rootNode.convertDataToNormalizedData(taskRegion);
+      CTTaskNodeTree tree = new CTTaskNodeTree(rootNode);
+      tree.setTaskRegion(taskRegion);
+
+      for (int i = 0; i < 3000; i++)
+      {
+         tree.updateRandomConfiguration();
+
+         tree.setUseNearestNeighborTree(false);
+         tree.updateNearestNodeTaskOnly();
+         double expectedTaskOnlyMetric = tree.getMetricTaskOnly(tree.getNearNode(), tree.randomNode);
+         tree.updateNearestNodeTaskTime();
+         double expectedTaskTimeMetric = tree.getMetricTaskTime(tree.getNearNode(), tree.randomNode);
+
+         tree.setUseNearestNeighborTree(true);
+         tree.updateNearestNodeTaskOnly();
+         assertEquals(expectedTaskOnlyMetric, tree.getMetricTaskOnly(tree.getNearNode(), tree.randomNode), 0.0);
+         tree.updateNearestNodeTaskTime();
+         assertEquals(expectedTaskTimeMetric, tree.getMetricTaskTime(tree.getNearNode(), tree.randomNode), 0.0);
+
+         tree.updateNewConfiguration();
+         tree.getNewNode().convertNormalizedDataToData(taskRegion);
+         tree.getNewNode().setParentNode(tree.getNearNode());
+         tree.connectNewNode(random.nextDouble() < 0.8);
+      }
+   }
+}
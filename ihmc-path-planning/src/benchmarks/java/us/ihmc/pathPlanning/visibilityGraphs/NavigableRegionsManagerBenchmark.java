@@ -0,0 +1,77 @@
+package us.ihmc.pathPlanning.visibilityGraphs;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.pathPlanning.DataSet;
+import us.ihmc.pathPlanning.DataSetIOTools;
+import us.ihmc.pathPlanning.DataSetName;
+import us.ihmc.pathPlanning.PlannerInput;
+import us.ihmc.pathPlanning.visibilityGraphs.parameters.DefaultVisibilityGraphParameters;
+import us.ihmc.pathPlanning.visibilityGraphs.postProcessing.ObstacleAvoidanceProcessor;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+/**
+ * Plans body paths with the visibility graph planner. {@link #calculateBodyPath()} includes building the navigable regions and inter-region
+ * connections for the data set, {@link #calculateBodyPathWithOcclusions()} uses the occlusion-aware variant of the planner.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NavigableRegionsManagerBenchmark
+{
+   @Param({"_20171215_214730_CinderBlockField",
+           "_20171218_205040_SimpleMaze",
+           "_20171215_200805_RampsAndCorridors",
+           "_20190219_182005_Corridor",
+           "_20190219_182005_SpiralStaircase"})
+   public DataSetName dataSetName;
+
+   @Param({"false", "true"})
+   public boolean usePostProcessor;
+
+   private NavigableRegionsManager navigableRegionsManager;
+   private List<PlanarRegion> planarRegions;
+   private Point3DReadOnly start;
+   private Point3DReadOnly goal;
+
+   @Setup
+   public void setup()
+   {
+      DataSet dataSet = DataSetIOTools.loadDataSet(dataSetName);
+      PlannerInput plannerInput = dataSet.getPlannerInput();
+      planarRegions = dataSet.getPlanarRegionsList().getPlanarRegionsAsList();
+      start = plannerInput.getStartPosition();
+      goal = plannerInput.getGoalPosition();
+
+      DefaultVisibilityGraphParameters parameters = new DefaultVisibilityGraphParameters();
+      navigableRegionsManager = new NavigableRegionsManager(parameters, null, usePostProcessor ? new ObstacleAvoidanceProcessor(parameters) : null);
+   }
+
+   @Benchmark
+   public List<Point3DReadOnly> calculateBodyPath()
+   {
+      navigableRegionsManager.setPlanarRegions(planarRegions);
+      return navigableRegionsManager.calculateBodyPath(start, goal);
+   }
+
+   @Benchmark
+   public List<Point3DReadOnly> calculateBodyPathWithOcclusions()
+   {
+      navigableRegionsManager.setPlanarRegions(planarRegions);
+      return navigableRegionsManager.calculateBodyPathWithOcclusions(start, goal);
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(NavigableRegionsManagerBenchmark.class, args);
+   }
+}
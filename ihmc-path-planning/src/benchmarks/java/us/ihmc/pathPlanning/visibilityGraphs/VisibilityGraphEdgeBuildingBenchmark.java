@@ -0,0 +1,126 @@
+package us.ihmc.pathPlanning.visibilityGraphs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
+import us.ihmc.pathPlanning.PlannerTestEnvironments;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.ExtrusionHull;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
+import us.ihmc.pathPlanning.visibilityGraphs.parameters.DefaultVisibilityGraphParameters;
+import us.ihmc.pathPlanning.visibilityGraphs.tools.ClusterSegmentIndex;
+import us.ihmc.pathPlanning.visibilityGraphs.tools.VisibilityTools;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+
+/**
+ * Builds all the inner and inter-region edges of the visibility graph of the large {@link PlannerTestEnvironments} maps. The navigable regions
+ * are created once, each invocation creates a new graph, including the segment indices of its regions, and fully expands it.
+ * <p>
+ * {@link #sameRegionVisibility()} isolates the visibility checks: it checks every pair of navigable extrusion points of each home region
+ * against the clusters of the region, with or without the {@link ClusterSegmentIndex}, such that the gain of the index can be told apart
+ * from the rest of the edge building.
+ * </p>
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VisibilityGraphEdgeBuildingBenchmark
+{
+   public enum Environment
+   {
+      MAZE_CORRIDOR(PlannerTestEnvironments::getMazeCorridor),
+      TRICK_CORRIDOR_WIDENED(PlannerTestEnvironments::getTrickCorridorWidened),
+      SPIRAL_STAIRCASE(PlannerTestEnvironments::getSpiralStaircase),
+      PLATFORMS_WITH_GAPS(PlannerTestEnvironments::getPlatformsWithGaps),
+      QUADRUPED_ENVIRONMENT_3(PlannerTestEnvironments::getQuadrupedEnvironment3);
+
+      private final Supplier<PlanarRegionsList> planarRegionsSupplier;
+
+      Environment(Supplier<PlanarRegionsList> planarRegionsSupplier)
+      {
+         this.planarRegionsSupplier = planarRegionsSupplier;
+      }
+   }
+
+   @Param({"MAZE_CORRIDOR", "TRICK_CORRIDOR_WIDENED", "SPIRAL_STAIRCASE", "PLATFORMS_WITH_GAPS", "QUADRUPED_ENVIRONMENT_3"})
+   public Environment environment;
+
+   /** Only used by {@link #sameRegionVisibility()}, the visibility graph always uses the index of its regions. */
+   @Param({"true", "false"})
+   public boolean useSegmentIndex;
+
+   private DefaultVisibilityGraphParameters parameters;
+   private NavigableRegions navigableRegions;
+   private final List<List<Cluster>> regionClusters = new ArrayList<>();
+   private final List<ClusterSegmentIndex> regionSegmentIndices = new ArrayList<>();
+   private final List<ExtrusionHull> regionNavigableExtrusions = new ArrayList<>();
+
+   @Setup
+   public void setup()
+   {
+      parameters = new DefaultVisibilityGraphParameters();
+      navigableRegions = new NavigableRegions(parameters, environment.planarRegionsSupplier.get());
+      navigableRegions.createNavigableRegions();
+
+      for (NavigableRegion navigableRegion : navigableRegions.getNavigableRegionsList())
+      {
+         List<Cluster> clusters = navigableRegion.getAllClusters();
+         regionClusters.add(clusters);
+         regionSegmentIndices.add(useSegmentIndex ? new ClusterSegmentIndex(clusters) : null);
+         regionNavigableExtrusions.add(navigableRegion.getHomeRegionCluster().getNavigableExtrusionsInLocal());
+      }
+   }
+
+   @Benchmark
+   public VisibilityGraph buildEdges()
+   {
+      VisibilityGraph visibilityGraph = new VisibilityGraph(navigableRegions,
+                                                            parameters.getInterRegionConnectionFilter(),
+                                                            parameters.getPreferredToPreferredInterRegionConnectionFilter(),
+                                                            parameters.getPreferredToNonPreferredInterRegionConnectionFilter(),
+                                                            parameters);
+      visibilityGraph.fullyExpandVisibilityGraph();
+      return visibilityGraph;
+   }
+
+   @Benchmark
+   public int sameRegionVisibility()
+   {
+      int numberOfVisiblePairs = 0;
+
+      for (int regionIndex = 0; regionIndex < regionClusters.size(); regionIndex++)
+      {
+         List<Cluster> clusters = regionClusters.get(regionIndex);
+         ClusterSegmentIndex segmentIndex = regionSegmentIndices.get(regionIndex);
+         ExtrusionHull navigableExtrusions = regionNavigableExtrusions.get(regionIndex);
+
+         for (int i = 0; i < navigableExtrusions.size(); i++)
+         {
+            Point2DReadOnly observer = navigableExtrusions.get(i);
+
+            for (int j = i + 1; j < navigableExtrusions.size(); j++)
+            {
+               if (VisibilityTools.isPointVisibleToPointInSameRegion(clusters, segmentIndex, observer, navigableExtrusions.get(j), false))
+                  numberOfVisiblePairs++;
+            }
+         }
+      }
+
+      return numberOfVisiblePairs;
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(VisibilityGraphEdgeBuildingBenchmark.class, args);
+   }
+}
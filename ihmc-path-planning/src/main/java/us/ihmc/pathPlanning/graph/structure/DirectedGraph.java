@@ -12,7 +12,7 @@ import java.util.function.Consumer;
  *
  * @author Georg
  */
-public class DirectedGraph<N>
+public class DirectedGraph<N> implements SearchGraph<N>
 {
    private final HashMap<GraphEdge<N>, EdgeCost> edgeCostMap = new HashMap<>();
    private final HashMap<N, NodeCost> nodeCostMap = new HashMap<>();
@@ -29,6 +29,7 @@ public class DirectedGraph<N>
     *
     * @param startNode start node of the new graph
     */
+   @Override
    public void initialize(N startNode)
    {
       edgeCostMap.clear();
@@ -54,6 +55,7 @@ public class DirectedGraph<N>
     * @param endNode
     * @param transitionCost
     */
+   @Override
    public void checkAndSetEdge(N startNode, N endNode, double transitionCost)
    {
       checkNodeExists(startNode);
@@ -69,6 +71,7 @@ public class DirectedGraph<N>
          graphExpansionCallback.accept(edge);
    }
 
+   @Override
    public void updateEdgeCost(N startNode, N endNode, double transitionCost)
    {
       GraphEdge<N> edge = new GraphEdge<>(startNode, endNode);
@@ -111,6 +114,7 @@ public class DirectedGraph<N>
    /**
     * Gets the cost associated to traveling from the start node to the given node.
     */
+   @Override
    public double getCostFromStart(N node)
    {
       checkNodeExists(node);
@@ -122,6 +126,7 @@ public class DirectedGraph<N>
     * Returns all nodes required to travel from the start node to the given node.
     * The nodes returned include start and end node of the path.
     */
+   @Override
    public List<N> getPathFromStart(N node)
    {
       checkNodeExists(node);
@@ -144,6 +149,7 @@ public class DirectedGraph<N>
    /**
     * Returns the number of edges along the path from the start node to the given node
     */
+   @Override
    public int getPathLengthFromStart(N node)
    {
       checkNodeExists(node);
@@ -165,6 +171,7 @@ public class DirectedGraph<N>
     * Will check if a node exists in the graph.
     * @param node
     */
+   @Override
    public boolean doesNodeExist(N node)
    {
       return nodeCostMap.containsKey(node);
@@ -197,11 +204,33 @@ public class DirectedGraph<N>
          throw new RuntimeException("Node has not been added to graph yet.");
    }
 
+   @Override
    public N getParentNode(N node)
    {
       return incomingBestEdge.get(node).getStartNode();
    }
 
+   @Override
+   public boolean hasOutgoingEdges(N node)
+   {
+      return outgoingEdges.containsKey(node);
+   }
+
+   @Override
+   public void getValidChildNodes(N node, List<N> childNodesToPack)
+   {
+      childNodesToPack.clear();
+      if (!outgoingEdges.containsKey(node))
+         return;
+
+      for (GraphEdge<N> outgoingEdge : outgoingEdges.get(node))
+      {
+         if (Double.isFinite(edgeCostMap.get(outgoingEdge).getEdgeCost()))
+            childNodesToPack.add(outgoingEdge.getEndNode());
+      }
+   }
+
+   @Override
    public void setGraphExpansionCallback(Consumer<GraphEdge<N>> graphExpansionCallback)
    {
       this.graphExpansionCallback = graphExpansionCallback;
@@ -0,0 +1,69 @@
+package us.ihmc.pathPlanning.graph.structure;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Search graph used by the A* planners. The graph is initialized with a start node and grown by adding
+ * edges that originate at known nodes. Implementations keep track of the lowest cost to reach every node
+ * and the incoming edge along that cheapest path.
+ *
+ * {@link DirectedGraph} is the generic, map-backed implementation.
+ */
+public interface SearchGraph<N>
+{
+   /**
+    * Removes all nodes and edges stored in the graph and
+    * starts a new graph from the specified start node.
+    */
+   void initialize(N startNode);
+
+   /**
+    * Adds an edge to the graph and updates all path and node costs affected. The edge must
+    * originate at a known node and must not already exist.
+    */
+   void checkAndSetEdge(N startNode, N endNode, double transitionCost);
+
+   /**
+    * Updates the cost of an existing edge, or adds it if it does not exist yet.
+    */
+   void updateEdgeCost(N startNode, N endNode, double transitionCost);
+
+   /**
+    * Gets the cost associated to traveling from the start node to the given node.
+    */
+   double getCostFromStart(N node);
+
+   /**
+    * Returns all nodes required to travel from the start node to the given node.
+    * The nodes returned include start and end node of the path.
+    */
+   List<N> getPathFromStart(N node);
+
+   /**
+    * Returns the number of edges along the path from the start node to the given node
+    */
+   int getPathLengthFromStart(N node);
+
+   boolean doesNodeExist(N node);
+
+   /**
+    * Returns the parent of the given node along the cheapest known path, or null for the start node.
+    */
+   N getParentNode(N node);
+
+   /**
+    * Returns whether any edge, valid or not, has been added from the given node.
+    */
+   boolean hasOutgoingEdges(N node);
+
+   /**
+    * Packs the end nodes of all outgoing edges of the given node with a finite cost.
+    */
+   void getValidChildNodes(N node, List<N> childNodesToPack);
+
+   /**
+    * Sets a callback triggered whenever {@link #checkAndSetEdge(Object, Object, double)} adds an edge
+    */
+   void setGraphExpansionCallback(Consumer<GraphEdge<N>> graphExpansionCallback);
+}
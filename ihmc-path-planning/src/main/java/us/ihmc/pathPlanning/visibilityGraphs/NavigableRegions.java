@@ -1,10 +1,18 @@
 package us.ihmc.pathPlanning.visibilityGraphs;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.NavigableRegionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.ObstacleRegionFilter;
 import us.ihmc.pathPlanning.visibilityGraphs.parameters.DefaultVisibilityGraphParameters;
 import us.ihmc.pathPlanning.visibilityGraphs.parameters.VisibilityGraphsParametersReadOnly;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.REAPlanarRegionTools;
@@ -21,6 +29,17 @@ public class NavigableRegions
 
    private final VisibilityGraphsParametersReadOnly parameters;
 
+   /**
+    * Copies of the regions used to create the navigable regions during the last call to
+    * {@link #updateNavigableRegions()}, keyed by region id. They are copies such that modifying a
+    * region after the update cannot make it look unchanged at the next update.
+    */
+   private final Map<Integer, PlanarRegion> previousRegions = new HashMap<>();
+   private final Map<Integer, Integer> previousRegionHashes = new HashMap<>();
+   private final Map<Integer, NavigableRegion> navigableRegionCache = new HashMap<>();
+   /** Values of the parameters used during the last call to {@link #updateNavigableRegions()}, the cache is only used if they are unchanged. */
+   private List<Object> previousParameterValues = null;
+
    public NavigableRegions(VisibilityGraphsParametersReadOnly parameters, PlanarRegionsList regions)
    {
       this(parameters, regions.getPlanarRegionsAsList());
@@ -53,9 +72,204 @@ public class NavigableRegions
 
    public void createNavigableRegions()
    {
+      previousRegions.clear();
+      previousRegionHashes.clear();
+      navigableRegionCache.clear();
+      previousParameterValues = null;
       navigableRegions = NavigableRegionsFactory.createNavigableRegions(regions, parameters);
    }
 
+   /**
+    * Incremental version of {@link #createNavigableRegions()}.
+    * <p>
+    * The navigable regions created during the previous call are reused when their planar region
+    * has the same id and content, and when none of the planar regions that changed, appeared, or
+    * disappeared is an obstacle for them. The regions need to have unique ids and the parameters,
+    * such as the extrusion distances, need to be unchanged for the cache to be used, otherwise all
+    * the navigable regions are recreated.
+    * </p>
+    *
+    * @return whether the navigable regions changed since the last call.
+    */
+   public boolean updateNavigableRegions()
+   {
+      Map<Integer, PlanarRegion> currentRegions = new HashMap<>();
+      Map<Integer, Integer> currentRegionHashes = new HashMap<>();
+      boolean haveRegionsUniqueIds = true;
+
+      for (int i = 0; i < regions.size(); i++)
+      {
+         PlanarRegion region = regions.get(i);
+
+         if (!region.hasARegionId() || currentRegions.put(region.getRegionId(), region) != null)
+            haveRegionsUniqueIds = false;
+         currentRegionHashes.put(region.getRegionId(), computeContentHash(region));
+      }
+
+      List<Object> currentParameterValues = new ArrayList<>(parameters.getAll());
+      boolean canUseCache = haveRegionsUniqueIds && navigableRegions != null && !previousRegionHashes.isEmpty()
+            && currentParameterValues.equals(previousParameterValues);
+
+      Set<Integer> changedRegionIds = new HashSet<>();
+      List<PlanarRegion> changedRegions = new ArrayList<>();
+
+      if (canUseCache)
+      {
+         for (int i = 0; i < regions.size(); i++)
+         {
+            PlanarRegion region = regions.get(i);
+            Integer previousHash = previousRegionHashes.get(region.getRegionId());
+            PlanarRegion previousRegion = previousRegions.get(region.getRegionId());
+
+            // The hash only filters out the regions that changed, equal hashes are confirmed by comparing the content.
+            if (previousHash == null || previousHash.intValue() != currentRegionHashes.get(region.getRegionId()).intValue()
+                  || !haveSameContent(previousRegion, region))
+            {
+               changedRegionIds.add(region.getRegionId());
+               changedRegions.add(region);
+               if (previousRegion != null)
+                  changedRegions.add(previousRegion);
+            }
+         }
+
+         for (PlanarRegion previousRegion : previousRegions.values())
+         {
+            if (!currentRegions.containsKey(previousRegion.getRegionId()))
+            {
+               changedRegionIds.add(previousRegion.getRegionId());
+               changedRegions.add(previousRegion);
+            }
+         }
+
+         if (changedRegionIds.isEmpty())
+            return false;
+      }
+
+      NavigableRegionFilter navigableRegionFilter = parameters.getNavigableRegionFilter();
+      ObstacleRegionFilter obstacleRegionFilter = parameters.getObstacleRegionFilter();
+      Map<Integer, NavigableRegion> currentNavigableRegions = new HashMap<>();
+      navigableRegions = new ArrayList<>(regions.size());
+
+      for (int candidateIndex = 0; candidateIndex < regions.size(); candidateIndex++)
+      {
+         PlanarRegion candidate = regions.get(candidateIndex);
+
+         List<PlanarRegion> otherRegions = new ArrayList<>(regions);
+         otherRegions.remove(candidate);
+
+         if (!navigableRegionFilter.isPlanarRegionNavigable(candidate, otherRegions))
+            continue;
+
+         NavigableRegion navigableRegion = canUseCache ? navigableRegionCache.get(candidate.getRegionId()) : null;
+
+         if (navigableRegion != null)
+         {
+            if (changedRegionIds.contains(candidate.getRegionId()))
+            {
+               navigableRegion = null;
+            }
+            else
+            {
+               for (int i = 0; i < changedRegions.size(); i++)
+               {
+                  if (obstacleRegionFilter.isRegionValidObstacle(changedRegions.get(i), navigableRegion.getHomePlanarRegion()))
+                  {
+                     navigableRegion = null;
+                     break;
+                  }
+               }
+            }
+         }
+
+         if (navigableRegion == null)
+            navigableRegion = NavigableRegionsFactory.createNavigableRegion(candidate, otherRegions, parameters);
+
+         navigableRegions.add(navigableRegion);
+         currentNavigableRegions.put(candidate.getRegionId(), navigableRegion);
+      }
+
+      previousRegions.clear();
+      previousRegionHashes.clear();
+      navigableRegionCache.clear();
+      previousParameterValues = currentParameterValues;
+
+      if (haveRegionsUniqueIds)
+      {
+         for (PlanarRegion region : currentRegions.values())
+            previousRegions.put(region.getRegionId(), region.copy());
+         previousRegionHashes.putAll(currentRegionHashes);
+         navigableRegionCache.putAll(currentNavigableRegions);
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes a hash code from the pose and the polygons of the given region. Two regions with the
+    * same content have the same hash code.
+    */
+   static int computeContentHash(PlanarRegion region)
+   {
+      int hash = region.getTransformToWorld().hashCode();
+
+      for (int i = 0; i < region.getConcaveHullSize(); i++)
+         hash = 31 * hash + region.getConcaveHullVertex(i).hashCode();
+
+      for (int polygonIndex = 0; polygonIndex < region.getNumberOfConvexPolygons(); polygonIndex++)
+      {
+         ConvexPolygon2D convexPolygon = region.getConvexPolygon(polygonIndex);
+
+         for (int vertexIndex = 0; vertexIndex < convexPolygon.getNumberOfVertices(); vertexIndex++)
+            hash = 31 * hash + convexPolygon.getVertex(vertexIndex).hashCode();
+      }
+
+      return hash;
+   }
+
+   /**
+    * Compares exactly the pose and the polygons of the given regions, the content used by
+    * {@link #computeContentHash(PlanarRegion)}.
+    */
+   static boolean haveSameContent(PlanarRegion region, PlanarRegion other)
+   {
+      if (region == other)
+         return true;
+      if (region == null || other == null)
+         return false;
+
+      if (!region.getTransformToWorld().equals(other.getTransformToWorld()))
+         return false;
+
+      if (region.getConcaveHullSize() != other.getConcaveHullSize())
+         return false;
+
+      for (int i = 0; i < region.getConcaveHullSize(); i++)
+      {
+         if (!region.getConcaveHullVertex(i).equals(other.getConcaveHullVertex(i)))
+            return false;
+      }
+
+      if (region.getNumberOfConvexPolygons() != other.getNumberOfConvexPolygons())
+         return false;
+
+      for (int polygonIndex = 0; polygonIndex < region.getNumberOfConvexPolygons(); polygonIndex++)
+      {
+         ConvexPolygon2D convexPolygon = region.getConvexPolygon(polygonIndex);
+         ConvexPolygon2D otherConvexPolygon = other.getConvexPolygon(polygonIndex);
+
+         if (convexPolygon.getNumberOfVertices() != otherConvexPolygon.getNumberOfVertices())
+            return false;
+
+         for (int vertexIndex = 0; vertexIndex < convexPolygon.getNumberOfVertices(); vertexIndex++)
+         {
+            if (!convexPolygon.getVertex(vertexIndex).equals(otherConvexPolygon.getVertex(vertexIndex)))
+               return false;
+         }
+      }
+
+      return true;
+   }
+
    public List<NavigableRegion> getNavigableRegionsList()
    {
       return navigableRegions;
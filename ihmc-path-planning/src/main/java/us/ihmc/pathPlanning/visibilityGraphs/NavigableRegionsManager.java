@@ -35,6 +35,7 @@ public class NavigableRegionsManager
 
    private final VisibilityMapSolution visibilityMapSolution = new VisibilityMapSolution();
 
+   private boolean usePersistentVisibilityGraph = false;
    private VisibilityGraph visibilityGraph;
    private VisibilityGraphNode startNode;
    private VisibilityGraphNode goalNode;
@@ -97,6 +98,19 @@ public class NavigableRegionsManager
       return visibilityMapSolution.getVisibilityMapsWithNavigableRegions();
    }
 
+   /**
+    * When enabled, the navigable regions and the visibility graph are kept in between queries. Only
+    * the navigable regions affected by a change in the planar regions are recomputed, and when the
+    * planar regions have not changed the start and goal are simply re-attached to the existing
+    * graph. This is useful for continuous replanning.
+    *
+    * @param usePersistentVisibilityGraph whether to reuse the visibility graph between queries.
+    */
+   public void setUsePersistentVisibilityGraph(boolean usePersistentVisibilityGraph)
+   {
+      this.usePersistentVisibilityGraph = usePersistentVisibilityGraph;
+   }
+
    public void setPlanarRegions(List<PlanarRegion> planarRegions)
    {
       visibilityMapSolution.getNavigableRegions().setPlanarRegions(planarRegions);
@@ -144,12 +158,31 @@ public class NavigableRegionsManager
       NavigableRegions navigableRegions = visibilityMapSolution.getNavigableRegions();
       navigableRegions.filterPlanarRegionsWithBoundingCapsule(startInWorld, goalInWorld, parameters.getExplorationDistanceFromStartGoal());
 
-      navigableRegions.createNavigableRegions(); // big deal; does a lot of computation and finds obstacles
+      if (usePersistentVisibilityGraph)
+      {
+         boolean haveNavigableRegionsChanged = navigableRegions.updateNavigableRegions();
+
+         if (!haveNavigableRegionsChanged && visibilityGraph != null)
+         {
+            visibilityGraph.resetForNewStartAndGoal();
+         }
+         else
+         {
+            visibilityGraph = new VisibilityGraph(navigableRegions, visibilityGraph, parameters.getInterRegionConnectionFilter(),
+                                                  parameters.getPreferredToPreferredInterRegionConnectionFilter(),
+                                                  parameters.getPreferredToNonPreferredInterRegionConnectionFilter(),
+                                                  parameters);
+         }
+      }
+      else
+      {
+         navigableRegions.createNavigableRegions(); // big deal; does a lot of computation and finds obstacles
 
-      visibilityGraph = new VisibilityGraph(navigableRegions, parameters.getInterRegionConnectionFilter(),
-                                            parameters.getPreferredToPreferredInterRegionConnectionFilter(),
-                                            parameters.getPreferredToNonPreferredInterRegionConnectionFilter(),
-                                            parameters);
+         visibilityGraph = new VisibilityGraph(navigableRegions, parameters.getInterRegionConnectionFilter(),
+                                               parameters.getPreferredToPreferredInterRegionConnectionFilter(),
+                                               parameters.getPreferredToNonPreferredInterRegionConnectionFilter(),
+                                               parameters);
+      }
 
       if (fullyExpandVisibilityGraph)
          visibilityGraph.fullyExpandVisibilityGraph();
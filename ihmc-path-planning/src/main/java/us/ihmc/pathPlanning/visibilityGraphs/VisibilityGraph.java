@@ -12,6 +12,7 @@ import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.*;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.InterRegionConnectionFilter;
 import us.ihmc.pathPlanning.visibilityGraphs.parameters.VisibilityGraphsParametersReadOnly;
+import us.ihmc.pathPlanning.visibilityGraphs.tools.ClusterSegmentIndex;
 import us.ihmc.pathPlanning.visibilityGraphs.tools.NavigableRegionTools;
 import us.ihmc.pathPlanning.visibilityGraphs.tools.VisibilityTools;
 import us.ihmc.robotics.geometry.PlanarRegion;
@@ -19,7 +20,10 @@ import us.ihmc.robotics.geometry.PlanarRegionTools;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 public class VisibilityGraph
 {
@@ -36,6 +40,7 @@ public class VisibilityGraph
    private final List<VisibilityGraphEdge> crossRegionEdges = new ArrayList<>();
 
    private VisibilityGraphNode startNode, goalNode;
+   private boolean isFullyExpanded = false;
 
    private final VisibilityGraphsParametersReadOnly parameters;
    private final InterRegionConnectionFilter interRegionConnectionFilter;
@@ -47,6 +52,24 @@ public class VisibilityGraph
                           InterRegionConnectionFilter preferredInterRegionConnectionFilter,
                           InterRegionConnectionFilter preferredToNonPreferredInterRegionConnectionFilter,
                           VisibilityGraphsParametersReadOnly parameters)
+   {
+      this(navigableRegions, null, interRegionConnectionFilter, preferredInterRegionConnectionFilter, preferredToNonPreferredInterRegionConnectionFilter,
+           parameters);
+   }
+
+   /**
+    * Creates a new visibility graph reusing the nodes and inner-region edges of the previous graph for
+    * the navigable regions that are shared by both graphs.
+    *
+    * @param navigableRegions the regions to create the graph for.
+    * @param previousVisibilityGraph the graph to reuse the navigable regions from, can be
+    *           {@code null}. It should not be used after calling this constructor.
+    */
+   public VisibilityGraph(NavigableRegions navigableRegions, VisibilityGraph previousVisibilityGraph,
+                          InterRegionConnectionFilter interRegionConnectionFilter,
+                          InterRegionConnectionFilter preferredInterRegionConnectionFilter,
+                          InterRegionConnectionFilter preferredToNonPreferredInterRegionConnectionFilter,
+                          VisibilityGraphsParametersReadOnly parameters)
    {
       this.navigableRegions = navigableRegions;
       this.interRegionConnectionFilter = interRegionConnectionFilter;
@@ -69,21 +92,75 @@ public class VisibilityGraph
          }
       };
 
+      Map<NavigableRegion, VisibilityGraphNavigableRegion> previousVisibilityGraphNavigableRegions = new IdentityHashMap<>();
+
+      if (previousVisibilityGraph != null)
+      {
+         for (VisibilityGraphNavigableRegion previousVisibilityGraphNavigableRegion : previousVisibilityGraph.visibilityGraphNavigableRegions)
+            previousVisibilityGraphNavigableRegions.put(previousVisibilityGraphNavigableRegion.getNavigableRegion(), previousVisibilityGraphNavigableRegion);
+      }
+
       List<NavigableRegion> navigableRegionsList = navigableRegions.getNavigableRegionsList();
 
       for (NavigableRegion navigableRegion : navigableRegionsList)
       {
-         VisibilityGraphNavigableRegion visibilityGraphNavigableRegion = new VisibilityGraphNavigableRegion(navigableRegion, createEdgesAroundClusterRing);
+         VisibilityGraphNavigableRegion visibilityGraphNavigableRegion = previousVisibilityGraphNavigableRegions.get(navigableRegion);
 
-         if (createNavigableRegionNodesOnConstruction)
-            visibilityGraphNavigableRegion.createNavigableRegionNodes();
+         if (visibilityGraphNavigableRegion != null)
+         {
+            visibilityGraphNavigableRegion.resetForNewVisibilityGraph();
+         }
+         else
+         {
+            visibilityGraphNavigableRegion = new VisibilityGraphNavigableRegion(navigableRegion, createEdgesAroundClusterRing);
+
+            if (createNavigableRegionNodesOnConstruction)
+               visibilityGraphNavigableRegion.createNavigableRegionNodes();
+         }
 
          visibilityGraphNavigableRegions.add(visibilityGraphNavigableRegion);
       }
    }
 
+   /**
+    * Removes the start and goal nodes and their edges from this graph and clears the search
+    * information of all the nodes, such that this graph can be used for a new query over the same
+    * navigable regions.
+    */
+   public void resetForNewStartAndGoal()
+   {
+      removeNodeEdges(startNode);
+      removeNodeEdges(goalNode);
+      startNode = null;
+      goalNode = null;
+
+      for (VisibilityGraphNavigableRegion visibilityGraphNavigableRegion : visibilityGraphNavigableRegions)
+         visibilityGraphNavigableRegion.resetSearchState();
+   }
+
+   private void removeNodeEdges(VisibilityGraphNode node)
+   {
+      if (node == null)
+         return;
+
+      for (VisibilityGraphEdge edge : node.getEdges())
+      {
+         VisibilityGraphNode otherNode = edge.getSourceNode() == node ? edge.getTargetNode() : edge.getSourceNode();
+         otherNode.removeEdge(edge);
+      }
+
+      Predicate<VisibilityGraphEdge> isConnectedToNode = edge -> edge.getSourceNode() == node || edge.getTargetNode() == node;
+      crossRegionEdges.removeIf(isConnectedToNode);
+
+      for (VisibilityGraphNavigableRegion visibilityGraphNavigableRegion : visibilityGraphNavigableRegions)
+         visibilityGraphNavigableRegion.getAllEdges().removeIf(isConnectedToNode);
+   }
+
    public void fullyExpandVisibilityGraph()
    {
+      if (isFullyExpanded)
+         return;
+
       double nonPreferredWeight = parameters.includePreferredExtrusions() ? parameters.getWeightForNonPreferredEdge() : 1.0;
 
       for (VisibilityGraphNavigableRegion visibilityGraphNavigableRegion : visibilityGraphNavigableRegions)
@@ -113,6 +190,8 @@ public class VisibilityGraph
          for (VisibilityGraphNode node : allPreferredNavigableNodes)
             node.setEdgesHaveBeenDetermined(true);
       }
+
+      isFullyExpanded = true;
    }
 
    public void computeInterEdgesWhenOnNoRegion(VisibilityGraphNode sourceNode, InterRegionConnectionFilter filter, double edgeWeight)
@@ -139,8 +218,12 @@ public class VisibilityGraph
    {
       double nonPreferredWeight = parameters.includePreferredExtrusions() ? parameters.getWeightForNonPreferredEdge() : 1.0;
 
-      VisibilityGraphNavigableRegion sourceVisibilityGraphNavigableRegion = sourceNode.getVisibilityGraphNavigableRegion();
-      sourceVisibilityGraphNavigableRegion.addInnerRegionEdgesFromSourceNode(sourceNode, nonPreferredWeight);
+      if (!sourceNode.getInnerEdgesHaveBeenDetermined())
+      {
+         VisibilityGraphNavigableRegion sourceVisibilityGraphNavigableRegion = sourceNode.getVisibilityGraphNavigableRegion();
+         sourceVisibilityGraphNavigableRegion.addInnerRegionEdgesFromSourceNode(sourceNode, nonPreferredWeight);
+         sourceNode.setInnerEdgesHaveBeenDetermined(true);
+      }
 
       computeInterEdges(sourceNode);
 
@@ -573,7 +656,9 @@ public class VisibilityGraph
 
                //TODO: +++JerryPratt: Inter-region connections and obstacles still needs some thought and some good unit tests.
             boolean checkForPreferredCollisions = sourceNode.isPreferredNode() && targetNode.isPreferredNode();
-            boolean sourceIsVisibleThroughTargetObstacles = VisibilityTools.isPointVisibleToPointInSameRegion(targetObstacleClusters, targetInTargetLocal,
+            ClusterSegmentIndex targetSegmentIndex = targetNode.getVisibilityGraphNavigableRegion().getClusterSegmentIndex();
+            boolean sourceIsVisibleThroughTargetObstacles = VisibilityTools.isPointVisibleToPointInSameRegion(targetObstacleClusters, targetSegmentIndex,
+                                                                                                              targetInTargetLocal,
                                                                                                               new Point2D(sourceProjectedVerticallyOntoTarget),
                                                                                                               checkForPreferredCollisions);
 
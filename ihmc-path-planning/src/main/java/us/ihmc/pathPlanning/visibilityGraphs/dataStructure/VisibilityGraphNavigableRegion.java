@@ -1,14 +1,19 @@
 package us.ihmc.pathPlanning.visibilityGraphs.dataStructure;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
 import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.ExtrusionHull;
+import us.ihmc.pathPlanning.visibilityGraphs.tools.ClusterSegmentIndex;
 import us.ihmc.pathPlanning.visibilityGraphs.tools.VisibilityTools;
 import us.ihmc.robotics.geometry.PlanarRegion;
 
@@ -35,9 +40,12 @@ public class VisibilityGraphNavigableRegion
    private final List<VisibilityGraphNode> allPreferredNavigableNodes = new ArrayList<>();
 
    private final HashSet<VisibilityGraphEdge> innerRegionEdges = new HashSet<>();
+   /** Index of the extrusion segments of this region's clusters, used to speed up the visibility checks. */
+   private volatile ClusterSegmentIndex clusterSegmentIndex = null;
 
    private final boolean createEdgesAroundClusterRing;
    private boolean haveNodesBeenCreated = false;
+   private boolean haveInnerClusterRingEdgesBeenCreated = false;
 
    public VisibilityGraphNavigableRegion(NavigableRegion navigableRegion, boolean createEdgesAroundClusterRing)
    {
@@ -94,6 +102,30 @@ public class VisibilityGraphNavigableRegion
       return obstacleNavigableNodes;
    }
 
+   /**
+    * Gets the segment index of the clusters of this region, creating it the first time it is
+    * requested.
+    */
+   public ClusterSegmentIndex getClusterSegmentIndex()
+   {
+      ClusterSegmentIndex index = clusterSegmentIndex;
+
+      if (index == null)
+      {
+         synchronized (this)
+         {
+            index = clusterSegmentIndex;
+            if (index == null)
+            {
+               index = new ClusterSegmentIndex(navigableRegion.getAllClusters());
+               clusterSegmentIndex = index;
+            }
+         }
+      }
+
+      return index;
+   }
+
    public HashSet<VisibilityGraphEdge> getAllEdges()
    {
       if (!haveNodesBeenCreated)
@@ -153,6 +185,9 @@ public class VisibilityGraphNavigableRegion
     */
    public void createGraphBetweenInnerClusterRings(double nonPreferredWeight)
    {
+      if (haveInnerClusterRingEdgesBeenCreated)
+         return;
+
       List<Cluster> allClusters = navigableRegion.getAllClusters();
       createNavigableRegionNodes();
 
@@ -232,6 +267,13 @@ public class VisibilityGraphNavigableRegion
             addCrossClusterVisibility(sourceNodes, targetNodes, allClusters, innerRegionEdges, nonPreferredWeight, false);
          }
       }
+
+      for (int i = 0; i < allNavigableNodes.size(); i++)
+         allNavigableNodes.get(i).setInnerEdgesHaveBeenDetermined(true);
+      for (int i = 0; i < allPreferredNavigableNodes.size(); i++)
+         allPreferredNavigableNodes.get(i).setInnerEdgesHaveBeenDetermined(true);
+
+      haveInnerClusterRingEdgesBeenCreated = true;
    }
 
    private static void createNavigableRegionNodes(VisibilityGraphNavigableRegion visibilityGraphNavigableRegion, Cluster clusterToBuildMapOf,
@@ -302,7 +344,9 @@ public class VisibilityGraphNavigableRegion
             Point2DReadOnly targetPointInLocal = targetNode.getPoint2DInLocal();
 
             // Finally run the expensive test to verify if the target can be seen from the source.
-            if (VisibilityTools.isPointVisibleToPointInSameRegion(allClusters, sourcePointInLocal, targetPointInLocal, checkForPreferredVisibility))
+            ClusterSegmentIndex segmentIndex = sourceNode.getVisibilityGraphNavigableRegion().getClusterSegmentIndex();
+            if (VisibilityTools.isPointVisibleToPointInSameRegion(allClusters, segmentIndex, sourcePointInLocal, targetPointInLocal,
+                                                                  checkForPreferredVisibility))
             {
                VisibilityGraphEdge edge = new VisibilityGraphEdge(sourceNode, targetNode);
                edge.registerEnds();
@@ -358,12 +402,15 @@ public class VisibilityGraphNavigableRegion
    private static void addClusterVisibility(List<Cluster> allClusters, VisibilityGraphNode sourceNode, List<VisibilityGraphNode> targetNodes, int targetStartIndex,
                                             HashSet<VisibilityGraphEdge> edgesToPack, double edgeWeight, boolean connectsAllOnPreferredMap)
    {
+      ClusterSegmentIndex segmentIndex = sourceNode.getVisibilityGraphNavigableRegion().getClusterSegmentIndex();
+
       for (int targetIndex = targetStartIndex; targetIndex < targetNodes.size(); targetIndex++)
       {
          VisibilityGraphNode targetNode = targetNodes.get(targetIndex);
 
          // Finally run the expensive test to verify if the target can be seen from the source.
-         if (VisibilityTools.isPointVisibleToPointInSameRegion(allClusters, sourceNode.getPoint2DInLocal(), targetNode.getPoint2DInLocal(), connectsAllOnPreferredMap))
+         if (VisibilityTools.isPointVisibleToPointInSameRegion(allClusters, segmentIndex, sourceNode.getPoint2DInLocal(), targetNode.getPoint2DInLocal(),
+                                                               connectsAllOnPreferredMap))
          {
             VisibilityGraphEdge edge = new VisibilityGraphEdge(sourceNode, targetNode);
             edge.setEdgeWeight(edgeWeight);
@@ -412,6 +459,45 @@ public class VisibilityGraphNavigableRegion
       }
    }
 
+   /**
+    * Prepares this region to be reused in a new visibility graph. The edges between the nodes of this
+    * region are kept while the edges connecting to any other node, i.e. the inter-region edges and
+    * the edges to the start and goal, are removed.
+    */
+   public void resetForNewVisibilityGraph()
+   {
+      if (!haveNodesBeenCreated)
+         return;
+
+      Set<VisibilityGraphNode> ownNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+      ownNodes.addAll(allNavigableNodes);
+      ownNodes.addAll(allPreferredNavigableNodes);
+      Predicate<VisibilityGraphEdge> isForeignEdge = edge -> !ownNodes.contains(edge.getSourceNode()) || !ownNodes.contains(edge.getTargetNode());
+
+      innerRegionEdges.removeIf(isForeignEdge);
+
+      for (VisibilityGraphNode node : ownNodes)
+      {
+         node.getEdges().removeIf(isForeignEdge);
+         node.setEdgesHaveBeenDetermined(false);
+         node.resetSearchState();
+      }
+   }
+
+   /**
+    * Clears the search information of all the nodes of this region.
+    */
+   public void resetSearchState()
+   {
+      if (!haveNodesBeenCreated)
+         return;
+
+      for (int i = 0; i < allNavigableNodes.size(); i++)
+         allNavigableNodes.get(i).resetSearchState();
+      for (int i = 0; i < allPreferredNavigableNodes.size(); i++)
+         allPreferredNavigableNodes.get(i).resetSearchState();
+   }
+
    private void checkNavigableRegionConsistency(VisibilityGraphNode sourceNode, VisibilityGraphNode targetNode)
    {
       if ((sourceNode.getVisibilityGraphNavigableRegion() != this) || (targetNode.getVisibilityGraphNavigableRegion() != this))
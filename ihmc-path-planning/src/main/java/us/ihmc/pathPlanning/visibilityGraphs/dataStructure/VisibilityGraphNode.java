@@ -22,6 +22,7 @@ public class VisibilityGraphNode implements EpsilonComparable<VisibilityGraphNod
    private final Point2D point2DInLocal;
 
    private boolean edgesHaveBeenDetermined = false;
+   private boolean innerEdgesHaveBeenDetermined = false;
 
    private double costFromStart = Double.NaN;
 
@@ -78,6 +79,12 @@ public class VisibilityGraphNode implements EpsilonComparable<VisibilityGraphNod
       }
    }
 
+   public synchronized void removeEdge(VisibilityGraphEdge edge)
+   {
+      // Comparing references as two edges with the same ends are considered equal.
+      edges.removeIf(candidate -> candidate == edge);
+   }
+
    public HashSet<VisibilityGraphEdge> getEdges()
    {
       return edges;
@@ -129,6 +136,31 @@ public class VisibilityGraphNode implements EpsilonComparable<VisibilityGraphNod
       this.edgesHaveBeenDetermined = edgesHaveBeenDetermined;
    }
 
+   /**
+    * Whether the edges to the other nodes of the same navigable region have been computed. These
+    * edges only depend on the navigable region and remain valid when the node is reused for another
+    * query.
+    */
+   public boolean getInnerEdgesHaveBeenDetermined()
+   {
+      return innerEdgesHaveBeenDetermined;
+   }
+
+   public void setInnerEdgesHaveBeenDetermined(boolean innerEdgesHaveBeenDetermined)
+   {
+      this.innerEdgesHaveBeenDetermined = innerEdgesHaveBeenDetermined;
+   }
+
+   /**
+    * Clears the cost, parent, and expansion status such that this node can be used for a new search.
+    */
+   public void resetSearchState()
+   {
+      costFromStart = Double.NaN;
+      bestParentNode = null;
+      hasBeenExpanded = false;
+   }
+
    @Override
    public int hashCode()
    {
@@ -0,0 +1,416 @@
+package us.ihmc.pathPlanning.visibilityGraphs.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.euclid.geometry.tools.EuclidGeometryTools;
+import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.ExtrusionHull;
+
+/**
+ * Acceleration structure for the visibility checks against the non-navigable extrusions of the
+ * clusters of a navigable region.
+ * <p>
+ * The segments of all the extrusion hulls of the region are stored in a single uniform grid, each
+ * segment tagged with the id of its hull. A line of sight is traversed through the grid and only
+ * tested against the segments lying in the cells it crosses, see {@link #castLineOfSight}. The
+ * result is the set of hulls blocking the line of sight, such that the visibility predicates only
+ * have to look at the clusters owning these hulls to apply their preferred and inner extrusion
+ * logic. The segments are tested with the same intersection test as
+ * {@link VisibilityTools#isPointVisible(Point2DReadOnly, Point2DReadOnly, List, boolean)}, so the
+ * result is identical to the brute force check.
+ * </p>
+ * <p>
+ * The index has to be created once the clusters are complete. The closing segment of the hulls is
+ * only indexed for the closed clusters, as for the brute force check.
+ * </p>
+ */
+public class ClusterSegmentIndex
+{
+   private static final int MAXIMUM_CELLS_PER_AXIS = 256;
+   private static final double MINIMUM_CELL_SIZE = 1.0e-3;
+   /**
+    * Segments are registered in all the cells they are within this distance of. This covers the
+    * tolerance of the intersection test and the round-off errors when traversing the grid.
+    */
+   private static final double CELL_MARGIN = 1.0e-5;
+
+   private final List<Cluster> clusters;
+   private final Map<Cluster, Integer> clusterIds = new IdentityHashMap<>();
+   private final Map<ExtrusionHull, Integer> hullIds = new IdentityHashMap<>();
+   private final TIntArrayList hullClusterIds = new TIntArrayList();
+
+   private final int numberOfSegments;
+   private final Point2DReadOnly[] segmentFirstPoints;
+   private final Point2DReadOnly[] segmentSecondPoints;
+   private final int[] segmentHullIds;
+
+   private final double xMin, yMin, xMax, yMax;
+   private final double cellSize;
+   private final int numberOfCellsX, numberOfCellsY;
+   /** For each cell, the indices of the segments in the cell, {@code null} if empty. */
+   private final int[][] cells;
+
+   /** Positions of the clusters of the index in the cluster lists given to the predicates. */
+   private volatile ClusterPositions[] clusterPositions = new ClusterPositions[0];
+   private final ThreadLocal<LineOfSight> lineOfSight = ThreadLocal.withInitial(LineOfSight::new);
+
+   public ClusterSegmentIndex(List<Cluster> clusters)
+   {
+      this.clusters = new ArrayList<>(clusters);
+
+      List<Point2DReadOnly> firstPoints = new ArrayList<>();
+      List<Point2DReadOnly> secondPoints = new ArrayList<>();
+      TIntArrayList hullIdsOfSegments = new TIntArrayList();
+
+      for (int clusterId = 0; clusterId < clusters.size(); clusterId++)
+      {
+         Cluster cluster = clusters.get(clusterId);
+         clusterIds.put(cluster, clusterId);
+
+         addHull(cluster.getNonNavigableExtrusionsInLocal(), clusterId, cluster.isClosed(), firstPoints, secondPoints, hullIdsOfSegments);
+
+         List<ExtrusionHull> preferredNonNavigableExtrusions = cluster.getPreferredNonNavigableExtrusionsInLocal();
+         for (int j = 0; j < preferredNonNavigableExtrusions.size(); j++)
+            addHull(preferredNonNavigableExtrusions.get(j), clusterId, cluster.isClosed(), firstPoints, secondPoints, hullIdsOfSegments);
+      }
+
+      numberOfSegments = firstPoints.size();
+      segmentFirstPoints = firstPoints.toArray(new Point2DReadOnly[numberOfSegments]);
+      segmentSecondPoints = secondPoints.toArray(new Point2DReadOnly[numberOfSegments]);
+      segmentHullIds = hullIdsOfSegments.toArray();
+
+      double xMin = Double.POSITIVE_INFINITY, yMin = Double.POSITIVE_INFINITY;
+      double xMax = Double.NEGATIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+      double totalLength = 0.0;
+
+      for (int i = 0; i < numberOfSegments; i++)
+      {
+         Point2DReadOnly first = segmentFirstPoints[i];
+         Point2DReadOnly second = segmentSecondPoints[i];
+         xMin = Math.min(xMin, Math.min(first.getX(), second.getX()));
+         yMin = Math.min(yMin, Math.min(first.getY(), second.getY()));
+         xMax = Math.max(xMax, Math.max(first.getX(), second.getX()));
+         yMax = Math.max(yMax, Math.max(first.getY(), second.getY()));
+         totalLength += first.distance(second);
+      }
+
+      if (numberOfSegments == 0)
+      {
+         xMin = yMin = xMax = yMax = 0.0;
+      }
+
+      this.xMin = xMin - CELL_MARGIN;
+      this.yMin = yMin - CELL_MARGIN;
+      this.xMax = xMax + CELL_MARGIN;
+      this.yMax = yMax + CELL_MARGIN;
+
+      double maximumExtent = Math.max(this.xMax - this.xMin, this.yMax - this.yMin);
+      double averageSegmentLength = numberOfSegments == 0 ? maximumExtent : totalLength / numberOfSegments;
+      cellSize = Math.max(Math.max(averageSegmentLength, maximumExtent / MAXIMUM_CELLS_PER_AXIS), MINIMUM_CELL_SIZE);
+      numberOfCellsX = Math.min(Math.max((int) Math.ceil((this.xMax - this.xMin) / cellSize), 1), MAXIMUM_CELLS_PER_AXIS);
+      numberOfCellsY = Math.min(Math.max((int) Math.ceil((this.yMax - this.yMin) / cellSize), 1), MAXIMUM_CELLS_PER_AXIS);
+
+      TIntArrayList[] cellLists = new TIntArrayList[numberOfCellsX * numberOfCellsY];
+
+      for (int i = 0; i < numberOfSegments; i++)
+      {
+         Point2DReadOnly first = segmentFirstPoints[i];
+         Point2DReadOnly second = segmentSecondPoints[i];
+
+         int xIndexMin = toCellIndexX(Math.min(first.getX(), second.getX()) - CELL_MARGIN);
+         int xIndexMax = toCellIndexX(Math.max(first.getX(), second.getX()) + CELL_MARGIN);
+         int yIndexMin = toCellIndexY(Math.min(first.getY(), second.getY()) - CELL_MARGIN);
+         int yIndexMax = toCellIndexY(Math.max(first.getY(), second.getY()) + CELL_MARGIN);
+
+         for (int xIndex = xIndexMin; xIndex <= xIndexMax; xIndex++)
+         {
+            for (int yIndex = yIndexMin; yIndex <= yIndexMax; yIndex++)
+            {
+               int cellIndex = xIndex * numberOfCellsY + yIndex;
+               if (cellLists[cellIndex] == null)
+                  cellLists[cellIndex] = new TIntArrayList(4);
+               cellLists[cellIndex].add(i);
+            }
+         }
+      }
+
+      cells = new int[cellLists.length][];
+      for (int i = 0; i < cellLists.length; i++)
+      {
+         if (cellLists[i] != null)
+            cells[i] = cellLists[i].toArray();
+      }
+   }
+
+   private void addHull(ExtrusionHull hull, int clusterId, boolean closed, List<Point2DReadOnly> firstPoints, List<Point2DReadOnly> secondPoints,
+                        TIntArrayList hullIdsOfSegments)
+   {
+      if (hullIds.containsKey(hull))
+         return;
+
+      int hullId = hullClusterIds.size();
+      hullIds.put(hull, hullId);
+      hullClusterIds.add(clusterId);
+
+      List<Point2DReadOnly> points = hull.getPoints();
+      int numberOfPoints = points.size();
+      // The closing segment goes from the last point to the first one.
+      int numberOfSegments = closed ? numberOfPoints : numberOfPoints - 1;
+
+      for (int i = 0; i < numberOfSegments; i++)
+      {
+         firstPoints.add(points.get(i));
+         secondPoints.add(points.get(i + 1 == numberOfPoints ? 0 : i + 1));
+         hullIdsOfSegments.add(hullId);
+      }
+   }
+
+   /**
+    * Finds all the hulls of the index blocking the line of sight from the observer to the target.
+    * <p>
+    * The result is reused by the next call from the same thread.
+    * </p>
+    */
+   public LineOfSight castLineOfSight(Point2DReadOnly observer, Point2DReadOnly targetPoint)
+   {
+      LineOfSight lineOfSight = this.lineOfSight.get();
+      lineOfSight.reset(hullClusterIds.size());
+
+      double x0 = observer.getX();
+      double y0 = observer.getY();
+      double dx = targetPoint.getX() - x0;
+      double dy = targetPoint.getY() - y0;
+
+      // Clipping the line of sight to the grid, if it does not cross the grid it cannot hit any segment.
+      double tEnter = 0.0;
+      double tExit = 1.0;
+
+      if (dx == 0.0)
+      {
+         if (x0 < xMin || x0 > xMax)
+            return lineOfSight;
+      }
+      else
+      {
+         double t0 = (xMin - x0) / dx;
+         double t1 = (xMax - x0) / dx;
+         tEnter = Math.max(tEnter, Math.min(t0, t1));
+         tExit = Math.min(tExit, Math.max(t0, t1));
+      }
+
+      if (dy == 0.0)
+      {
+         if (y0 < yMin || y0 > yMax)
+            return lineOfSight;
+      }
+      else
+      {
+         double t0 = (yMin - y0) / dy;
+         double t1 = (yMax - y0) / dy;
+         tEnter = Math.max(tEnter, Math.min(t0, t1));
+         tExit = Math.min(tExit, Math.max(t0, t1));
+      }
+
+      if (tEnter > tExit)
+         return lineOfSight;
+
+      int xIndex = toCellIndexX(x0 + tEnter * dx);
+      int yIndex = toCellIndexY(y0 + tEnter * dy);
+
+      int xStep = dx > 0.0 ? 1 : -1;
+      int yStep = dy > 0.0 ? 1 : -1;
+      double tDeltaX = dx != 0.0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+      double tDeltaY = dy != 0.0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+      double tNextX = dx != 0.0 ? (xMin + (xIndex + (dx > 0.0 ? 1 : 0)) * cellSize - x0) / dx : Double.POSITIVE_INFINITY;
+      double tNextY = dy != 0.0 ? (yMin + (yIndex + (dy > 0.0 ? 1 : 0)) * cellSize - y0) / dy : Double.POSITIVE_INFINITY;
+
+      while (true)
+      {
+         int[] cell = cells[xIndex * numberOfCellsY + yIndex];
+
+         if (cell != null)
+         {
+            for (int i = 0; i < cell.length; i++)
+            {
+               int segmentIndex = cell[i];
+               int hullId = segmentHullIds[segmentIndex];
+               if (lineOfSight.isBlockedByHull[hullId])
+                  continue;
+
+               if (EuclidGeometryTools.doLineSegment2DsIntersect(segmentFirstPoints[segmentIndex], segmentSecondPoints[segmentIndex], observer, targetPoint))
+                  lineOfSight.addBlockingHull(hullId, hullClusterIds.get(hullId));
+            }
+         }
+
+         if (tNextX < tNextY)
+         {
+            if (tNextX > tExit)
+               break;
+            xIndex += xStep;
+            tNextX += tDeltaX;
+         }
+         else
+         {
+            if (tNextY > tExit)
+               break;
+            yIndex += yStep;
+            tNextY += tDeltaY;
+         }
+
+         if (xIndex < 0 || xIndex >= numberOfCellsX || yIndex < 0 || yIndex >= numberOfCellsY)
+            break;
+      }
+
+      return lineOfSight;
+   }
+
+   /**
+    * Gets, for each cluster of this index, its position in the given list or -1 if it is not in the
+    * list. Returns {@code null} if the list has clusters that are not part of this index, in which
+    * case the index cannot be used with this list.
+    * <p>
+    * The result is cached for the few cluster lists used with a region.
+    * </p>
+    */
+   int[] getClusterPositions(List<Cluster> clusters)
+   {
+      ClusterPositions[] clusterPositions = this.clusterPositions;
+
+      for (ClusterPositions positions : clusterPositions)
+      {
+         if (positions.clusters == clusters && positions.size == clusters.size())
+            return positions.positions;
+      }
+
+      int[] positions = new int[this.clusters.size()];
+      Arrays.fill(positions, -1);
+
+      for (int i = 0; i < clusters.size(); i++)
+      {
+         Integer clusterId = clusterIds.get(clusters.get(i));
+         if (clusterId == null)
+         {
+            positions = null;
+            break;
+         }
+         positions[clusterId] = i;
+      }
+
+      synchronized (this)
+      {
+         ClusterPositions[] newClusterPositions = Arrays.copyOf(this.clusterPositions, this.clusterPositions.length + 1);
+         newClusterPositions[newClusterPositions.length - 1] = new ClusterPositions(clusters, positions);
+         this.clusterPositions = newClusterPositions;
+      }
+
+      return positions;
+   }
+
+   public int getNumberOfIndexedHulls()
+   {
+      return hullClusterIds.size();
+   }
+
+   public int getNumberOfIndexedSegments()
+   {
+      return numberOfSegments;
+   }
+
+   private int toCellIndexX(double x)
+   {
+      return Math.min(Math.max((int) Math.floor((x - xMin) / cellSize), 0), numberOfCellsX - 1);
+   }
+
+   private int toCellIndexY(double y)
+   {
+      return Math.min(Math.max((int) Math.floor((y - yMin) / cellSize), 0), numberOfCellsY - 1);
+   }
+
+   private static class ClusterPositions
+   {
+      private final List<Cluster> clusters;
+      private final int size;
+      private final int[] positions;
+
+      private ClusterPositions(List<Cluster> clusters, int[] positions)
+      {
+         this.clusters = clusters;
+         this.size = clusters.size();
+         this.positions = positions;
+      }
+   }
+
+   /**
+    * The hulls blocking a line of sight, see {@link ClusterSegmentIndex#castLineOfSight}.
+    */
+   public class LineOfSight
+   {
+      private boolean[] isBlockedByHull = new boolean[0];
+      private final TIntArrayList blockingHullIds = new TIntArrayList();
+      private final TIntArrayList blockingClusterIds = new TIntArrayList();
+
+      private void reset(int numberOfHulls)
+      {
+         if (isBlockedByHull.length < numberOfHulls)
+            isBlockedByHull = new boolean[numberOfHulls];
+
+         for (int i = 0; i < blockingHullIds.size(); i++)
+            isBlockedByHull[blockingHullIds.get(i)] = false;
+
+         blockingHullIds.resetQuick();
+         blockingClusterIds.resetQuick();
+      }
+
+      private void addBlockingHull(int hullId, int clusterId)
+      {
+         isBlockedByHull[hullId] = true;
+         blockingHullIds.add(hullId);
+         if (!blockingClusterIds.contains(clusterId))
+            blockingClusterIds.add(clusterId);
+      }
+
+      public boolean isVisible()
+      {
+         return blockingHullIds.isEmpty();
+      }
+
+      /**
+       * @return the number of clusters owning at least one hull blocking the line of sight.
+       */
+      public int getNumberOfBlockingClusters()
+      {
+         return blockingClusterIds.size();
+      }
+
+      /**
+       * @return the id of the cluster, i.e. its index in the list the index was created with.
+       */
+      public int getBlockingClusterId(int index)
+      {
+         return blockingClusterIds.get(index);
+      }
+
+      /**
+       * @return whether the hull blocks the line of sight, {@code false} if the hull is not part of the index.
+       */
+      public boolean isBlockedBy(ExtrusionHull hull)
+      {
+         Integer hullId = hullIds.get(hull);
+         return hullId != null && isBlockedByHull[hullId];
+      }
+
+      /**
+       * @return whether the hull is part of the index the line of sight was cast in.
+       */
+      public boolean isIndexed(ExtrusionHull hull)
+      {
+         return hullIds.containsKey(hull);
+      }
+   }
+}
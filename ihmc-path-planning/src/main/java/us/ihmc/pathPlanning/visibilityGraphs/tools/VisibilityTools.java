@@ -16,6 +16,7 @@ import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
 import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster.ExtrusionSide;
 import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.ExtrusionHull;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.ConnectionPoint3D;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.VisibilityGraphNavigableRegion;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.VisibilityGraphNode;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.InterRegionConnectionFilter;
 import us.ihmc.robotics.EuclidCoreMissingTools;
@@ -267,12 +268,14 @@ public class VisibilityTools
    public static boolean isInnerRegionEdgeValid(VisibilityGraphNode sourceNode, VisibilityGraphNode targetNode)
    {
       boolean bothEndsArePreferred = sourceNode.isPreferredNode() && targetNode.isPreferredNode();
-      List<Cluster> allClusters = sourceNode.getVisibilityGraphNavigableRegion().getNavigableRegion().getAllClusters();
+      VisibilityGraphNavigableRegion sourceRegion = sourceNode.getVisibilityGraphNavigableRegion();
+      List<Cluster> allClusters = sourceRegion.getNavigableRegion().getAllClusters();
 
       Point2DReadOnly sourceNodeInLocal = sourceNode.getPoint2DInLocal();
       Point2DReadOnly targetNodeInLocal = targetNode.getPoint2DInLocal();
 
-      return isPointVisibleToPointInSameRegion(allClusters, sourceNodeInLocal, targetNodeInLocal, bothEndsArePreferred);
+      return isPointVisibleToPointInSameRegion(allClusters, sourceRegion.getClusterSegmentIndex(), sourceNodeInLocal, targetNodeInLocal,
+                                               bothEndsArePreferred);
    }
 
    static boolean isPointVisibleToPointInSameRegion(List<Cluster> clusters, Point2DReadOnly observer, Point2DReadOnly targetPoint)
@@ -283,52 +286,88 @@ public class VisibilityTools
    public static boolean isPointVisibleToPointInSameRegion(List<Cluster> clusters, Point2DReadOnly observer, Point2DReadOnly targetPoint,
                                                            boolean checkPreferredExtrusions)
    {
-      for (Cluster cluster : clusters)
-      {
-         boolean closed = cluster.isClosed();
+      return isPointVisibleToPointInSameRegion(clusters, null, observer, targetPoint, checkPreferredExtrusions);
+   }
 
-         List<ExtrusionHull> preferredNonNavigableExtrusions = cluster.getPreferredNonNavigableExtrusionsInLocal();
+   /**
+    * Same as {@link #isPointVisibleToPointInSameRegion(List, Point2DReadOnly, Point2DReadOnly, boolean)}
+    * but uses the given index, when not {@code null}, to only check the clusters whose extrusions cross
+    * the line of sight.
+    */
+   public static boolean isPointVisibleToPointInSameRegion(List<Cluster> clusters, ClusterSegmentIndex segmentIndex, Point2DReadOnly observer,
+                                                           Point2DReadOnly targetPoint, boolean checkPreferredExtrusions)
+   {
+      int[] clusterPositions = segmentIndex == null ? null : segmentIndex.getClusterPositions(clusters);
 
-         // if it's an outer extrusion, it's an obstacle. This means that you cannot pass through it.
-         boolean isAnOuterExtrusion = cluster.getExtrusionSide() == ExtrusionSide.OUTSIDE;
-         if (isAnOuterExtrusion)
+      if (clusterPositions == null)
+      {
+         for (Cluster cluster : clusters)
          {
-            BoundingBox2DReadOnly outerMostBoundingBoxToCheck = checkPreferredExtrusions ?
-                  cluster.getPreferredNonNavigableExtrusionsBoundingBox() : cluster.getNonNavigableExtrusionsBoundingBox();
-
-            // If either the target or observer or both are in the bounding box, we have to check the interior bounding box.
-            // If both are outside the bounding box, then we can check if the line segment does not intersect.
-            // If that is the case, then the point is visible and we can check the next one.
-            if (!outerMostBoundingBoxToCheck.isInsideInclusive(observer) && !outerMostBoundingBoxToCheck.isInsideInclusive(targetPoint))
-            {
-               if (!outerMostBoundingBoxToCheck.doesIntersectWithLineSegment2D(observer, targetPoint))
-               {
-                  continue;
-               }
-            }
+            if (!isPointVisibleThroughClusterInSameRegion(cluster, null, observer, targetPoint, checkPreferredExtrusions))
+               return false;
          }
 
-         // this is more expensive, as you potentially have to check multiple regions.
-         if (checkPreferredExtrusions)
+         return true;
+      }
+
+      ClusterSegmentIndex.LineOfSight lineOfSight = segmentIndex.castLineOfSight(observer, targetPoint);
+
+      for (int i = 0; i < lineOfSight.getNumberOfBlockingClusters(); i++)
+      {
+         int position = clusterPositions[lineOfSight.getBlockingClusterId(i)];
+         if (position == -1)
+            continue;
+
+         if (!isPointVisibleThroughClusterInSameRegion(clusters.get(position), lineOfSight, observer, targetPoint, checkPreferredExtrusions))
+            return false;
+      }
+
+      return true;
+   }
+
+   private static boolean isPointVisibleThroughClusterInSameRegion(Cluster cluster, ClusterSegmentIndex.LineOfSight lineOfSight, Point2DReadOnly observer,
+                                                                   Point2DReadOnly targetPoint, boolean checkPreferredExtrusions)
+   {
+      boolean closed = cluster.isClosed();
+
+      List<ExtrusionHull> preferredNonNavigableExtrusions = cluster.getPreferredNonNavigableExtrusionsInLocal();
+
+      // if it's an outer extrusion, it's an obstacle. This means that you cannot pass through it.
+      boolean isAnOuterExtrusion = cluster.getExtrusionSide() == ExtrusionSide.OUTSIDE;
+      if (isAnOuterExtrusion)
+      {
+         BoundingBox2DReadOnly outerMostBoundingBoxToCheck = checkPreferredExtrusions ?
+               cluster.getPreferredNonNavigableExtrusionsBoundingBox() : cluster.getNonNavigableExtrusionsBoundingBox();
+
+         // If either the target or observer or both are in the bounding box, we have to check the interior bounding box.
+         // If both are outside the bounding box, then we can check if the line segment does not intersect.
+         // If that is the case, then the point is visible and we can check the next one.
+         if (!outerMostBoundingBoxToCheck.isInsideInclusive(observer) && !outerMostBoundingBoxToCheck.isInsideInclusive(targetPoint))
          {
-            // If we start in a preferred region, that means you're already in a preferred extrusion. If it's an outer extrusion, we want to get out of the
-            // non-preferred area, so we shouldn't check for visibility. If it's an inner extrusion, we want to cross into the non-preferred area.
-            boolean startsInPreferredRegion = preferredNonNavigableExtrusions.stream().anyMatch(
-                  extrusion -> PlanarRegionTools.isPointInsidePolygon(extrusion.getPoints(), observer));
-            if (isAnOuterExtrusion ^ startsInPreferredRegion)
+            if (!outerMostBoundingBoxToCheck.doesIntersectWithLineSegment2D(observer, targetPoint))
             {
-               boolean isNotVisible = preferredNonNavigableExtrusions.stream().anyMatch(
-                     extrusion -> !VisibilityTools.isPointVisible(observer, targetPoint, extrusion, closed));
-               if (isNotVisible)
-                  return false;
+               return true;
             }
          }
+      }
 
-         if (!VisibilityTools.isPointVisible(observer, targetPoint, cluster.getNonNavigableExtrusionsInLocal(), closed))
-            return false;
+      // this is more expensive, as you potentially have to check multiple regions.
+      if (checkPreferredExtrusions)
+      {
+         // If we start in a preferred region, that means you're already in a preferred extrusion. If it's an outer extrusion, we want to get out of the
+         // non-preferred area, so we shouldn't check for visibility. If it's an inner extrusion, we want to cross into the non-preferred area.
+         boolean startsInPreferredRegion = preferredNonNavigableExtrusions.stream().anyMatch(
+               extrusion -> PlanarRegionTools.isPointInsidePolygon(extrusion.getPoints(), observer));
+         if (isAnOuterExtrusion ^ startsInPreferredRegion)
+         {
+            boolean isNotVisible = preferredNonNavigableExtrusions.stream().anyMatch(
+                  extrusion -> !isPointVisible(lineOfSight, observer, targetPoint, extrusion, closed));
+            if (isNotVisible)
+               return false;
+         }
       }
 
-      return true;
+      return isPointVisible(lineOfSight, observer, targetPoint, cluster.getNonNavigableExtrusionsInLocal(), closed);
    }
 
    public static boolean isInterRegionEdgeValid(VisibilityGraphNode sourceNode, VisibilityGraphNode targetNode, List<Cluster> sourceObstacleClusters,
@@ -374,12 +413,16 @@ public class VisibilityTools
       boolean checkForPreferredVisibility = sourceNode.isPreferredNode() && targetNode.isPreferredNode();
 
       //TODO: +++JerryPratt: Inter-region connections and obstacles still needs some thought and some good unit tests.
+      ClusterSegmentIndex sourceSegmentIndex = sourceNode.getVisibilityGraphNavigableRegion().getClusterSegmentIndex();
+      ClusterSegmentIndex targetSegmentIndex = targetNode.getVisibilityGraphNavigableRegion().getClusterSegmentIndex();
       boolean targetIsVisibleThroughSourceObstacles = VisibilityTools.isPointVisibleToPointInOtherRegion(sourceObstacleClusters, sourceObstacleRegions,
-                                                                                                         sourceInSourceLocal, targetHomeRegion,
-                                                                                                         targetInSourceLocal, checkForPreferredVisibility);
+                                                                                                         sourceSegmentIndex, sourceInSourceLocal,
+                                                                                                         targetHomeRegion, targetInSourceLocal,
+                                                                                                         checkForPreferredVisibility);
       boolean sourceIsVisibleThroughTargetObstacles = VisibilityTools.isPointVisibleToPointInOtherRegion(targetObstacleClusters, targetObstacleRegions,
-                                                                                                         targetInTargetLocal,  sourceHomeRegion,
-                                                                                                         sourceInTargetLocal, checkForPreferredVisibility);
+                                                                                                         targetSegmentIndex, targetInTargetLocal,
+                                                                                                         sourceHomeRegion, sourceInTargetLocal,
+                                                                                                         checkForPreferredVisibility);
 
 
       return targetIsVisibleThroughSourceObstacles && sourceIsVisibleThroughTargetObstacles;
@@ -389,48 +432,98 @@ public class VisibilityTools
                                                             Point2DReadOnly observer, PlanarRegion targetRegion, Point2DReadOnly targetPoint,
                                                            boolean checkPreferredExtrusions)
    {
-      for (int i = 0; i < observerObstacleClusters.size(); i++)
+      return isPointVisibleToPointInOtherRegion(observerObstacleClusters, observerObstacleRegions, null, observer, targetRegion, targetPoint,
+                                                checkPreferredExtrusions);
+   }
+
+   /**
+    * Same as
+    * {@link #isPointVisibleToPointInOtherRegion(List, List, Point2DReadOnly, PlanarRegion, Point2DReadOnly, boolean)}
+    * but uses the given index, when not {@code null}, to only check the clusters whose extrusions cross
+    * the line of sight.
+    */
+   public static boolean isPointVisibleToPointInOtherRegion(List<Cluster> observerObstacleClusters, List<PlanarRegion> observerObstacleRegions,
+                                                            ClusterSegmentIndex segmentIndex, Point2DReadOnly observer, PlanarRegion targetRegion,
+                                                            Point2DReadOnly targetPoint, boolean checkPreferredExtrusions)
+   {
+      int[] clusterPositions = segmentIndex == null ? null : segmentIndex.getClusterPositions(observerObstacleClusters);
+
+      if (clusterPositions == null)
+      {
+         for (int i = 0; i < observerObstacleClusters.size(); i++)
+         {
+            if (observerObstacleRegions.get(i) == targetRegion)
+               continue;
+
+            if (!isPointVisibleThroughClusterInOtherRegion(observerObstacleClusters.get(i), null, observer, targetPoint, checkPreferredExtrusions))
+               return false;
+         }
+
+         return true;
+      }
+
+      ClusterSegmentIndex.LineOfSight lineOfSight = segmentIndex.castLineOfSight(observer, targetPoint);
+
+      for (int i = 0; i < lineOfSight.getNumberOfBlockingClusters(); i++)
       {
-         if (observerObstacleRegions.get(i) == targetRegion)
+         int position = clusterPositions[lineOfSight.getBlockingClusterId(i)];
+         if (position == -1 || observerObstacleRegions.get(position) == targetRegion)
             continue;
 
-         Cluster cluster = observerObstacleClusters.get(i);
+         if (!isPointVisibleThroughClusterInOtherRegion(observerObstacleClusters.get(position), lineOfSight, observer, targetPoint, checkPreferredExtrusions))
+            return false;
+      }
+
+      return true;
+   }
+
+   private static boolean isPointVisibleThroughClusterInOtherRegion(Cluster cluster, ClusterSegmentIndex.LineOfSight lineOfSight, Point2DReadOnly observer,
+                                                                    Point2DReadOnly targetPoint, boolean checkPreferredExtrusions)
+   {
+      boolean closed = cluster.isClosed();
 
-         boolean closed = cluster.isClosed();
+      List<ExtrusionHull> preferredNonNavigableExtrusions = cluster.getPreferredNonNavigableExtrusionsInLocal();
 
-         List<ExtrusionHull> preferredNonNavigableExtrusions = cluster.getPreferredNonNavigableExtrusionsInLocal();
+      // if it's an outer extrusion, it's an obstacle. This means that you cannot pass through it.
+      boolean isAnOuterExtrusion = cluster.getExtrusionSide() == ExtrusionSide.OUTSIDE;
+      if (isAnOuterExtrusion)
+      {
+         BoundingBox2DReadOnly outerMostBoundingBoxToCheck = checkPreferredExtrusions ?
+               cluster.getPreferredNonNavigableExtrusionsBoundingBox() : cluster.getNonNavigableExtrusionsBoundingBox();
 
-         // if it's an outer extrusion, it's an obstacle. This means that you cannot pass through it.
-         boolean isAnOuterExtrusion = cluster.getExtrusionSide() == ExtrusionSide.OUTSIDE;
-         if (isAnOuterExtrusion)
+         // If either the target or observer or both are in the bounding box, we have to check the interior bounding box.
+         // If both are outside the bounding box, then we can check if the line segment does not intersect.
+         // If that is the case, then the point is visible and we can check the next one.
+         if (!outerMostBoundingBoxToCheck.isInsideInclusive(observer) && !outerMostBoundingBoxToCheck.isInsideInclusive(targetPoint))
          {
-            BoundingBox2DReadOnly outerMostBoundingBoxToCheck = checkPreferredExtrusions ?
-                  cluster.getPreferredNonNavigableExtrusionsBoundingBox() : cluster.getNonNavigableExtrusionsBoundingBox();
-
-            // If either the target or observer or both are in the bounding box, we have to check the interior bounding box.
-            // If both are outside the bounding box, then we can check if the line segment does not intersect.
-            // If that is the case, then the point is visible and we can check the next one.
-            if (!outerMostBoundingBoxToCheck.isInsideInclusive(observer) && !outerMostBoundingBoxToCheck.isInsideInclusive(targetPoint))
+            if (!outerMostBoundingBoxToCheck.doesIntersectWithLineSegment2D(observer, targetPoint))
             {
-               if (!outerMostBoundingBoxToCheck.doesIntersectWithLineSegment2D(observer, targetPoint))
-               {
-                  continue;
-               }
+               return true;
             }
          }
+      }
 
-         // this is more expensive, as you potentially have to check multiple regions.
-         if (checkPreferredExtrusions)
-         {
-            boolean isNotVisible = preferredNonNavigableExtrusions.stream().anyMatch(
-                  extrusion -> !VisibilityTools.isPointVisible(observer, targetPoint, extrusion, closed));
-            if (isNotVisible)
-               return false;
-         }
-         else if (!VisibilityTools.isPointVisible(observer, targetPoint, cluster.getNonNavigableExtrusionsInLocal(), closed))
-            return false;
+      // this is more expensive, as you potentially have to check multiple regions.
+      if (checkPreferredExtrusions)
+      {
+         return preferredNonNavigableExtrusions.stream().allMatch(extrusion -> isPointVisible(lineOfSight, observer, targetPoint, extrusion, closed));
       }
+      else
+      {
+         return isPointVisible(lineOfSight, observer, targetPoint, cluster.getNonNavigableExtrusionsInLocal(), closed);
+      }
+   }
 
-      return true;
+   /**
+    * Checks the hull against the line of sight cast in the segment index, or by brute force if there is
+    * no line of sight or the hull is not part of the index.
+    */
+   private static boolean isPointVisible(ClusterSegmentIndex.LineOfSight lineOfSight, Point2DReadOnly observer, Point2DReadOnly targetPoint,
+                                         ExtrusionHull extrusion, boolean closed)
+   {
+      if (lineOfSight == null || !lineOfSight.isIndexed(extrusion))
+         return isPointVisible(observer, targetPoint, extrusion, closed);
+      else
+         return !lineOfSight.isBlockedBy(extrusion);
    }
 }
@@ -20,6 +20,7 @@ import us.ihmc.euclid.geometry.Pose3D;
 import us.ihmc.euclid.geometry.interfaces.Pose3DReadOnly;
 import us.ihmc.euclid.shape.primitives.Ellipsoid3D;
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DBasics;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
@@ -142,6 +143,108 @@ public class NavigableRegionsManagerTest
       checkPath(posePath, start, goal, parameters, planarRegionsList, navigableRegionsManager.getNavigableRegionsList());
    }
 
+   @Test
+   public void testPersistentVisibilityGraphGivesSamePaths()
+   {
+      VisibilityGraphsParametersReadOnly parameters = createVisibilityGraphParametersForTest();
+
+      List<PlanarRegion> planarRegions = TestEnvironmentTools.createFlatGroundWithBoxEnvironment();
+      for (int i = 0; i < planarRegions.size(); i++)
+         planarRegions.get(i).setRegionId(i + 1);
+
+      NavigableRegionsManager persistentManager = new NavigableRegionsManager(parameters, null, new ObstacleAvoidanceProcessor(parameters));
+      persistentManager.setUsePersistentVisibilityGraph(true);
+
+      Point3D[] starts = {new Point3D(-15.0, 0.0, 0.0), new Point3D(-15.0, 1.0, 0.0), new Point3D(-14.0, -2.0, 0.0)};
+      Point3D[] goals = {new Point3D(-5.0, 0.0, 0.0), new Point3D(-5.0, -1.0, 0.0), new Point3D(-6.0, 2.0, 0.0)};
+      VisibilityGraph previousVisibilityGraph = null;
+
+      for (int query = 0; query < 2 * starts.length; query++)
+      {
+         if (query == starts.length)
+         { // Moving the side wall of the box, the graph has to be updated.
+            PlanarRegion movedSideWall = planarRegions.get(3).copy();
+            RigidBodyTransform translation = new RigidBodyTransform();
+            translation.getTranslation().set(0.0, 0.5, 0.0);
+            movedSideWall.applyTransform(translation);
+            movedSideWall.setRegionId(planarRegions.get(3).getRegionId());
+            planarRegions.set(3, movedSideWall);
+         }
+
+         Point3D start = starts[query % starts.length];
+         Point3D goal = goals[query % goals.length];
+
+         NavigableRegionsManager expectedManager = new NavigableRegionsManager(parameters, null, new ObstacleAvoidanceProcessor(parameters));
+         expectedManager.setPlanarRegions(planarRegions);
+         // Fully expanding the graphs such that the result does not depend on the order the nodes were expanded in.
+         List<Point3DReadOnly> expectedPath = expectedManager.calculateBodyPath(start, goal, true);
+
+         persistentManager.setPlanarRegions(planarRegions);
+         List<Point3DReadOnly> path = persistentManager.calculateBodyPath(start, goal, true);
+
+         if (query % starts.length != 0)
+            Assert.assertTrue(persistentManager.getVisibilityGraph() == previousVisibilityGraph);
+         else
+            Assert.assertTrue(persistentManager.getVisibilityGraph() != previousVisibilityGraph);
+         previousVisibilityGraph = persistentManager.getVisibilityGraph();
+
+         EuclidCoreTestTools.assertTuple3DEquals(expectedPath.get(expectedPath.size() - 1), path.get(path.size() - 1), epsilon);
+         Assert.assertEquals(computePathLength(expectedPath), computePathLength(path), epsilon);
+      }
+   }
+
+   @Test
+   public void testNavigableRegionsAreUpdatedWhenRegionsOrParametersChange()
+   {
+      DefaultVisibilityGraphParameters parameters = new DefaultVisibilityGraphParameters();
+
+      List<PlanarRegion> planarRegions = TestEnvironmentTools.createFlatGroundWithBoxEnvironment();
+      for (int i = 0; i < planarRegions.size(); i++)
+         planarRegions.get(i).setRegionId(i + 1);
+
+      NavigableRegions navigableRegions = new NavigableRegions(parameters, planarRegions);
+      Assert.assertTrue(navigableRegions.updateNavigableRegions());
+      navigableRegions.setPlanarRegions(planarRegions);
+      Assert.assertFalse(navigableRegions.updateNavigableRegions());
+
+      // Modifying a region in place and sending the same list again.
+      RigidBodyTransform translation = new RigidBodyTransform();
+      translation.getTranslation().set(0.0, 0.5, 0.0);
+      planarRegions.get(3).applyTransform(translation);
+      navigableRegions.setPlanarRegions(planarRegions);
+      Assert.assertTrue(navigableRegions.updateNavigableRegions());
+      Assert.assertFalse(navigableRegions.updateNavigableRegions());
+
+      parameters.setObstacleExtrusionDistance(parameters.getObstacleExtrusionDistance() + 0.1);
+      Assert.assertTrue(navigableRegions.updateNavigableRegions());
+      Assert.assertFalse(navigableRegions.updateNavigableRegions());
+   }
+
+   @Test
+   public void testRegionContentComparison()
+   {
+      for (PlanarRegion planarRegion : TestEnvironmentTools.createFlatGroundWithBoxEnvironment())
+      {
+         PlanarRegion copy = planarRegion.copy();
+         Assert.assertEquals(NavigableRegions.computeContentHash(planarRegion), NavigableRegions.computeContentHash(copy));
+         Assert.assertTrue(NavigableRegions.haveSameContent(planarRegion, copy));
+
+         RigidBodyTransform translation = new RigidBodyTransform();
+         translation.getTranslation().set(0.0, 0.0, 1.0e-9);
+         copy.applyTransform(translation);
+         Assert.assertFalse(NavigableRegions.haveSameContent(planarRegion, copy));
+         Assert.assertFalse(NavigableRegions.haveSameContent(planarRegion, null));
+      }
+   }
+
+   private static double computePathLength(List<Point3DReadOnly> path)
+   {
+      double length = 0.0;
+      for (int i = 1; i < path.size(); i++)
+         length += path.get(i - 1).distance(path.get(i));
+      return length;
+   }
+
    @Test
    public void testFlatGroundWithWallOnOppositeSidesOfWall()
    {
@@ -0,0 +1,204 @@
+package us.ihmc.pathPlanning.visibilityGraphs.tools;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster.ClusterType;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster.ExtrusionSide;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.ExtrusionHull;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+public class ClusterSegmentIndexTest
+{
+   private static final int ITERATIONS = 200;
+
+   @Test
+   public void testLineOfSightAgainstBruteForce()
+   {
+      Random random = new Random(45L);
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         List<Cluster> clusters = nextRegionClusters(random);
+         ClusterSegmentIndex index = new ClusterSegmentIndex(clusters);
+
+         List<ExtrusionHull> hulls = new ArrayList<>();
+         List<Cluster> hullClusters = new ArrayList<>();
+         for (Cluster cluster : clusters)
+         {
+            hulls.add(cluster.getNonNavigableExtrusionsInLocal());
+            hullClusters.add(cluster);
+            for (ExtrusionHull preferredHull : cluster.getPreferredNonNavigableExtrusionsInLocal())
+            {
+               hulls.add(preferredHull);
+               hullClusters.add(cluster);
+            }
+         }
+         assertEquals(hulls.size(), index.getNumberOfIndexedHulls());
+
+         for (int query = 0; query < 100; query++)
+         {
+            Point2D observer = nextQueryPoint(random, hulls);
+            Point2D target = nextQueryPoint(random, hulls);
+
+            ClusterSegmentIndex.LineOfSight lineOfSight = index.castLineOfSight(observer, target);
+            boolean isVisible = true;
+
+            for (int i = 0; i < hulls.size(); i++)
+            {
+               boolean expected = VisibilityTools.isPointVisible(observer, target, hulls.get(i), hullClusters.get(i).isClosed());
+               assertEquals(expected, !lineOfSight.isBlockedBy(hulls.get(i)));
+               isVisible &= expected;
+            }
+
+            assertEquals(isVisible, lineOfSight.isVisible());
+         }
+      }
+   }
+
+   @Test
+   public void testVisibilityPredicatesAgainstBruteForce()
+   {
+      Random random = new Random(4599L);
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         List<Cluster> clusters = nextRegionClusters(random);
+         ClusterSegmentIndex index = new ClusterSegmentIndex(clusters);
+
+         // The obstacle clusters of a region are a subset of its clusters, each with the region it comes from.
+         List<Cluster> obstacleClusters = new ArrayList<>();
+         List<PlanarRegion> obstacleRegions = new ArrayList<>();
+         PlanarRegion targetRegion = new PlanarRegion();
+         for (int i = 1; i < clusters.size(); i++)
+         {
+            obstacleClusters.add(clusters.get(i));
+            obstacleRegions.add(random.nextInt(4) == 0 ? targetRegion : new PlanarRegion());
+         }
+
+         List<ExtrusionHull> hulls = new ArrayList<>();
+         for (Cluster cluster : clusters)
+         {
+            hulls.add(cluster.getNonNavigableExtrusionsInLocal());
+            hulls.addAll(cluster.getPreferredNonNavigableExtrusionsInLocal());
+         }
+
+         for (int query = 0; query < 100; query++)
+         {
+            Point2D observer = nextQueryPoint(random, hulls);
+            Point2D target = nextQueryPoint(random, hulls);
+
+            for (boolean checkPreferredExtrusions : new boolean[] {true, false})
+            {
+               assertEquals(VisibilityTools.isPointVisibleToPointInSameRegion(clusters, null, observer, target, checkPreferredExtrusions),
+                            VisibilityTools.isPointVisibleToPointInSameRegion(clusters, index, observer, target, checkPreferredExtrusions));
+               assertEquals(VisibilityTools.isPointVisibleToPointInSameRegion(obstacleClusters, null, observer, target, checkPreferredExtrusions),
+                            VisibilityTools.isPointVisibleToPointInSameRegion(obstacleClusters, index, observer, target, checkPreferredExtrusions));
+               assertEquals(VisibilityTools.isPointVisibleToPointInOtherRegion(obstacleClusters, obstacleRegions, null, observer, targetRegion, target,
+                                                                               checkPreferredExtrusions),
+                            VisibilityTools.isPointVisibleToPointInOtherRegion(obstacleClusters, obstacleRegions, index, observer, targetRegion, target,
+                                                                               checkPreferredExtrusions));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testClustersOutsideOfTheIndexAreCheckedByBruteForce()
+   {
+      Random random = new Random(3457L);
+      List<Cluster> clusters = nextRegionClusters(random);
+      ClusterSegmentIndex index = new ClusterSegmentIndex(clusters);
+
+      // A wall crossing the whole region, in a cluster that is not part of the index.
+      Cluster wall = new Cluster(ExtrusionSide.OUTSIDE, ClusterType.MULTI_LINE);
+      ExtrusionHull wallHull = new ExtrusionHull();
+      wallHull.addPoint(new Point2D(0.0, -20.0));
+      wallHull.addPoint(new Point2D(0.0, 20.0));
+      wall.addNonNavigableExtrusionsInLocal(wallHull);
+      List<Cluster> clustersWithWall = new ArrayList<>(clusters);
+      clustersWithWall.add(wall);
+
+      Point2D observer = new Point2D(-15.0, 0.0);
+      Point2D target = new Point2D(15.0, 0.0);
+      assertEquals(false, VisibilityTools.isPointVisibleToPointInSameRegion(clustersWithWall, index, observer, target, false));
+   }
+
+   /**
+    * Creates the clusters of a region: a boundary, obstacles with preferred extrusions, and open walls.
+    */
+   private static List<Cluster> nextRegionClusters(Random random)
+   {
+      List<Cluster> clusters = new ArrayList<>();
+
+      Cluster boundary = new Cluster(ExtrusionSide.INSIDE, ClusterType.POLYGON);
+      boundary.addNonNavigableExtrusionsInLocal(nextStarShapedHull(random, new Point2D(), 20 + random.nextInt(40), 8.0, 10.0));
+      boundary.addPreferredNonNavigableExtrusionInLocal(nextStarShapedHull(random, new Point2D(), 20 + random.nextInt(20), 7.0, 8.0));
+      clusters.add(boundary);
+
+      int numberOfObstacles = 2 + random.nextInt(10);
+      for (int i = 0; i < numberOfObstacles; i++)
+      {
+         Point2D center = EuclidCoreRandomTools.nextPoint2D(random, 6.0);
+         Cluster obstacle = new Cluster(ExtrusionSide.OUTSIDE, ClusterType.POLYGON);
+         obstacle.addNonNavigableExtrusionsInLocal(nextStarShapedHull(random, center, 4 + random.nextInt(30), 0.3, 1.0));
+         if (random.nextBoolean())
+            obstacle.addPreferredNonNavigableExtrusionInLocal(nextStarShapedHull(random, center, 4 + random.nextInt(10), 1.0, 1.5));
+         clusters.add(obstacle);
+      }
+
+      int numberOfWalls = random.nextInt(4);
+      for (int i = 0; i < numberOfWalls; i++)
+      {
+         Cluster wall = new Cluster(ExtrusionSide.OUTSIDE, ClusterType.MULTI_LINE);
+         wall.addNonNavigableExtrusionsInLocal(nextPolyline(random, EuclidCoreRandomTools.nextPoint2D(random, 6.0), 2 + random.nextInt(20)));
+         clusters.add(wall);
+      }
+
+      return clusters;
+   }
+
+   private static ExtrusionHull nextStarShapedHull(Random random, Point2D center, int numberOfPoints, double minimumRadius, double maximumRadius)
+   {
+      ExtrusionHull hull = new ExtrusionHull();
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         double angle = 2.0 * Math.PI * i / numberOfPoints;
+         double radius = minimumRadius + (maximumRadius - minimumRadius) * random.nextDouble();
+         hull.addPoint(new Point2D(center.getX() + radius * Math.cos(angle), center.getY() + radius * Math.sin(angle)));
+      }
+      return hull;
+   }
+
+   private static ExtrusionHull nextPolyline(Random random, Point2D start, int numberOfPoints)
+   {
+      ExtrusionHull hull = new ExtrusionHull();
+      Point2D point = new Point2D(start);
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         point.add(EuclidCoreRandomTools.nextVector2D(random, 0.5));
+         hull.addPoint(new Point2D(point));
+      }
+      return hull;
+   }
+
+   private static Point2D nextQueryPoint(Random random, List<ExtrusionHull> hulls)
+   {
+      // Visibility graph nodes are often exactly on the hulls.
+      if (random.nextBoolean())
+      {
+         ExtrusionHull hull = hulls.get(random.nextInt(hulls.size()));
+         return new Point2D(hull.get(random.nextInt(hull.size())));
+      }
+
+      return EuclidCoreRandomTools.nextPoint2D(random, 11.0);
+   }
+}
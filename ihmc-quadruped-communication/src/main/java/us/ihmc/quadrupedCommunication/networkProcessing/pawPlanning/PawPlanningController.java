@@ -7,6 +7,7 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import gnu.trove.list.array.TDoubleArrayList;
 import controller_msgs.msg.dds.BodyPathPlanMessage;
 import controller_msgs.msg.dds.FootstepPlannerStatusMessage;
 import controller_msgs.msg.dds.FootstepPlanningRequestPacket;
@@ -65,9 +66,12 @@ import us.ihmc.yoVariables.variable.YoInteger;
 public class PawPlanningController extends QuadrupedToolboxController
 {
    private final static boolean debug = false;
+   /** Maximum length of the solution times and costs of {@link PawStepPlanningToolboxOutputStatus}. */
+   private final static int maximumNumberOfReportedSolutions = 100;
 
    private final YoEnum<PawStepPlannerType> activePlanner = new YoEnum<>("activePlanner", registry, PawStepPlannerType.class);
    private final EnumMap<PawStepPlannerType, BodyPathAndPawPlanner> plannerMap = new EnumMap<>(PawStepPlannerType.class);
+   private final AStarPawStepPlanner aStarPlanner;
 
    private final AtomicReference<PawStepPlanningRequestPacket> latestRequestReference = new AtomicReference<>(null);
    private Optional<PlanarRegionsList> planarRegionsList = Optional.empty();
@@ -104,8 +108,9 @@ public class PawPlanningController extends QuadrupedToolboxController
                         new QuadrupedVisGraphWithTurnWalkTurnPlanner(xGaitSettings, visibilityGraphParameters, robotTimestamp, pointFootSnapperParameters,
                                                                      robotDataReceiver.getReferenceFrames(), null, registry));
       }
-      plannerMap.put(PawStepPlannerType.A_STAR,
-                     AStarPawStepPlanner.createPlanner(this.pawPlannerParameters, xGaitSettings, null, registry));
+      aStarPlanner = AStarPawStepPlanner.createPlanner(this.pawPlannerParameters, xGaitSettings, null, registry);
+      aStarPlanner.addImprovedPlanListener(this::reportImprovedPlan);
+      plannerMap.put(PawStepPlannerType.A_STAR, aStarPlanner);
       plannerMap.put(PawStepPlannerType.VIS_GRAPH_WITH_A_STAR, new VisibilityGraphWithAStarPawPlanner(this.pawPlannerParameters, xGaitSettings,
                                                                                                       visibilityGraphParameters, graphicsListRegistry, registry));
       activePlanner.set(PawStepPlannerType.SIMPLE_PATH_TURN_WALK_TURN);
@@ -304,6 +309,21 @@ public class PawPlanningController extends QuadrupedToolboxController
       finishUp();
    }
 
+   /**
+    * Publishes each plan improved by the anytime search of the A* planner, such that the robot can
+    * start walking before the search is over. The final plan is published by {@link #updateInternal()}.
+    */
+   private void reportImprovedPlan(PawStepPlan pawStepPlan)
+   {
+      if (activePlanner.getEnumValue() != PawStepPlannerType.A_STAR)
+         return;
+
+      PawStepPlanningToolboxOutputStatus result = packStepResult(pawStepPlan, null, PawStepPlanningResult.SUB_OPTIMAL_SOLUTION);
+      TDoubleArrayList solutionTimes = aStarPlanner.getSolutionTimes();
+      result.setTimeTaken(solutionTimes.get(solutionTimes.size() - 1));
+      reportMessage(result);
+   }
+
    public void finishUp()
    {
       if (DEBUG)
@@ -374,9 +394,28 @@ public class PawPlanningController extends QuadrupedToolboxController
       result.setFootstepPlanningResult(status.toByte());
       result.setTimeTaken(plannerMap.get(activePlanner.getEnumValue()).getPlanningDuration());
 
+      if (activePlanner.getEnumValue() == PawStepPlannerType.A_STAR)
+         packSolutionHistory(result);
+
       return result;
    }
 
+   private void packSolutionHistory(PawStepPlanningToolboxOutputStatus result)
+   {
+      double timeToFirstSolution = aStarPlanner.getTimeToFirstSolution();
+      result.setTimeToFirstSolution(Double.isNaN(timeToFirstSolution) ? -1.0 : timeToFirstSolution);
+
+      TDoubleArrayList solutionTimes = aStarPlanner.getSolutionTimes();
+      TDoubleArrayList solutionCosts = aStarPlanner.getSolutionCosts();
+      // Keeps the latest solutions when there are more than the message can hold.
+      int firstSolution = Math.max(0, solutionTimes.size() - maximumNumberOfReportedSolutions);
+      for (int i = firstSolution; i < solutionTimes.size(); i++)
+      {
+         result.getSolutionTimes().add(solutionTimes.get(i));
+         result.getSolutionCosts().add(solutionCosts.get(i));
+      }
+   }
+
    private static QuadrupedTimedStepListMessage convertToTimedStepListMessage(PawStepPlan pawStepPlan)
    {
       if (pawStepPlan == null)
@@ -5,10 +5,12 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 import org.apache.commons.math3.util.Precision;
 
 import controller_msgs.msg.dds.GroundPlaneMessage;
+import gnu.trove.list.array.TDoubleArrayList;
 import us.ihmc.commons.Conversions;
 import us.ihmc.commons.PrintTools;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
@@ -73,6 +75,7 @@ import us.ihmc.robotics.robotSide.RobotQuadrant;
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.variable.YoBoolean;
 import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
 import us.ihmc.yoVariables.variable.YoLong;
 
 public class AStarPawStepPlanner implements BodyPathAndPawPlanner
@@ -93,6 +96,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
 
    private HashSet<PawNode> expandedNodes;
    private PriorityQueue<PawNode> stack;
+   private final List<PawNode> openNodes = new ArrayList<>();
    private final FramePose3D goalPoseInWorld = new FramePose3D();
    private PawNode startNode;
    private QuadrantDependentList<PawNode> goalNodes;
@@ -110,6 +114,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
    private final PawNodeSnapper snapper;
 
    private final ArrayList<StartAndGoalPawListener> startAndGoalListeners = new ArrayList<>();
+   private final ArrayList<Consumer<PawStepPlan>> improvedPlanListeners = new ArrayList<>();
 
    private final YoDouble timeout = new YoDouble("pawPlannerTimeout", registry);
    private final YoDouble bestEffortTimeout = new YoDouble("pawPlannerBestEffortTimeout", registry);
@@ -127,6 +132,13 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
 
    private final YoDouble heuristicsInflationWeight = new YoDouble("heuristicsInflationWeight", registry);
 
+   private final YoDouble timeToFirstSolution = new YoDouble("TimeToFirstSolution", registry);
+   private final YoDouble solutionCost = new YoDouble("SolutionCost", registry);
+   private final YoInteger numberOfSolutions = new YoInteger("NumberOfSolutions", registry);
+   /** Planning time and cost of each improved solution, see {@link #getSolutionTimes()} */
+   private final TDoubleArrayList solutionTimes = new TDoubleArrayList();
+   private final TDoubleArrayList solutionCosts = new TDoubleArrayList();
+
    public AStarPawStepPlanner(PawStepPlannerParametersReadOnly parameters, QuadrupedXGaitSettingsReadOnly xGaitSettings, PawNodeChecker nodeChecker,
                               PawNodeTransitionChecker nodeTransitionChecker, PawPlanningCostToGoHeuristics heuristics, PawNodeExpansion nodeExpansion,
                               PawNodeCost stepCostCalculator, PawNodeSnapper snapper,
@@ -156,6 +168,17 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       startAndGoalListeners.add(startAndGoalListener);
    }
 
+   /**
+    * Adds a listener that is given the plan each time the search finds a solution cheaper than the
+    * previous one. When {@link PawStepPlannerParametersReadOnly#performGraphRepairingStep()} is
+    * enabled, this happens as the heuristics inflation weight is reduced, such that the robot can
+    * start walking on the first plan while it is being refined.
+    */
+   public void addImprovedPlanListener(Consumer<PawStepPlan> improvedPlanListener)
+   {
+      improvedPlanListeners.add(improvedPlanListener);
+   }
+
    public PawStepPlanningResult planPath()
    {
       return PawStepPlanningResult.OPTIMAL_SOLUTION;
@@ -471,6 +494,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
          System.out.println("   Expanded each node to an average of " + numberOfExpandedNodes.getLongValue() + " children nodes.");
          System.out.println("   Planning took a total of " + iterationCount.getLongValue() + " iterations.");
          System.out.println("   During the planning " + percentRejectedNodes.getDoubleValue() + "% of nodes were rejected as invalid.");
+         System.out.println("   Found " + numberOfSolutions.getIntegerValue() + " solutions, the first one after " + Precision.round(timeToFirstSolution.getDoubleValue(), 2) + " seconds.");
          System.out.println("   Goal was : " + goalPoseInWorld);
       }
 
@@ -552,6 +576,30 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       return planningTime.getDoubleValue();
    }
 
+   /**
+    * @return the planning time until the first solution was found, or {@code NaN} if none was found.
+    */
+   public double getTimeToFirstSolution()
+   {
+      return timeToFirstSolution.getDoubleValue();
+   }
+
+   /**
+    * @return the planning time at which each improved solution of the last plan was found.
+    */
+   public TDoubleArrayList getSolutionTimes()
+   {
+      return solutionTimes;
+   }
+
+   /**
+    * @return the cost of each improved solution of the last plan, matching {@link #getSolutionTimes()}.
+    */
+   public TDoubleArrayList getSolutionCosts()
+   {
+      return solutionCosts;
+   }
+
    private boolean initialize()
    {
       if (startNode == null)
@@ -588,6 +636,12 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       heuristicsInflationWeight.set(parameters.getHeuristicsInflationWeight());
       hasReachedFinalGoal.set(false);
 
+      timeToFirstSolution.setToNaN();
+      solutionCost.set(Double.POSITIVE_INFINITY);
+      numberOfSolutions.set(0);
+      solutionTimes.resetQuick();
+      solutionCosts.resetQuick();
+
       if (listener != null)
       {
          listener.addNode(startNode, null);
@@ -664,6 +718,13 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
 
          iterations++;
 
+         if (parameters.performGraphRepairingStep() && isSolutionWithinInflationBound())
+         {
+            if (!performRepairingStep())
+               break;
+            continue;
+         }
+
          PawNode nodeToExpand = stack.poll();
          if (expandedNodes.contains(nodeToExpand))
          {
@@ -675,19 +736,15 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
          hasReachedFinalGoal.set(checkAndHandleNodeAtFinalGoal(nodeToExpand));
          if (hasReachedFinalGoal.getBooleanValue())
          {
-            if (parameters.returnBestEffortPlan())
-            {
-               if (!performRepairingStep())
-                  break;
-            }
-            else
-            {
+            checkAndReportImprovedSolution(planningStartTime);
+
+            if (!parameters.performGraphRepairingStep())
                break;
-            }
          }
 
          checkAndHandleBestEffortNode(nodeToExpand);
 
+         boolean hasLoweredNodeCost = false;
          HashSet<PawNode> neighbors = nodeExpansion.expandNode(nodeToExpand);
          expandedNodesCount += neighbors.size();
          for (PawNode neighbor : neighbors)
@@ -710,7 +767,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
             }
 
             double transitionCost = stepCostCalculator.compute(nodeToExpand, neighbor);
-            graph.checkAndSetEdge(nodeToExpand, neighbor, transitionCost);
+            hasLoweredNodeCost |= graph.checkAndSetEdge(nodeToExpand, neighbor, transitionCost);
 
 //            if (!parameters.returnBestEffortPlan() || endNode == null || stack.comparator().compare(neighbor, endNode) < 0)
                stack.add(neighbor);
@@ -719,6 +776,10 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
          if (listener != null)
             listener.tickAndUpdate();
 
+         // New edges can lower the cost of the nodes of the current solution.
+         if (hasLoweredNodeCost)
+            checkAndReportImprovedSolution(planningStartTime);
+
          long timeInNano = System.nanoTime();
          double planningTime = Conversions.nanosecondsToSeconds(timeInNano - planningStartTime);
          boolean hardTimeout =  planningTime > timeout.getDoubleValue();
@@ -750,6 +811,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       RobotQuadrant nodeQuadrant = nodeToExpand.getMovingQuadrant();
       if (goalNodes.get(nodeQuadrant).equals(nodeToExpand))
       {
+         PawNode solutionEndNode = null;
          PawNode parentNode = nodeToExpand;
          nodeQuadrant = nodeQuadrant.getNextRegularGaitSwingQuadrant();
          while (nodeQuadrant != nodeToExpand.getMovingQuadrant())
@@ -763,14 +825,21 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
                break;
             }
 
-            endNode = nodeAtGoal;
-            graph.checkAndSetEdge(parentNode, endNode, 0.0);
+            solutionEndNode = nodeAtGoal;
+            graph.checkAndSetEdge(parentNode, solutionEndNode, 0.0);
 
-            parentNode = endNode;
+            parentNode = solutionEndNode;
             nodeQuadrant = nodeQuadrant.getNextRegularGaitSwingQuadrant();
          }
 
-         return endNode != null;
+         if (solutionEndNode == null)
+            return false;
+
+         // When searching for improved solutions, keeps the previous one if it is cheaper.
+         if (!hasSolution() || graph.getCostFromStart(solutionEndNode) < graph.getCostFromStart(endNode))
+            endNode = solutionEndNode;
+
+         return true;
       }
 
       return false;
@@ -796,13 +865,79 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       }
       heuristicsInflationWeight.set(newInflationWeight);
 
+      // The expanded nodes are not expanded again: all their outgoing edges are in the graph, which
+      // propagates any cost improvement to their children. Only the open nodes need to be sorted with
+      // the new weight, the queue is rebuilt in place.
+      openNodes.clear();
+      for (PawNode openNode : stack)
+      {
+         if (!expandedNodes.contains(openNode))
+            openNodes.add(openNode);
+      }
+      stack.clear();
+      stack.addAll(openNodes);
+      openNodes.clear();
+
       return true;
    }
 
+   private boolean hasSolution()
+   {
+      return numberOfSolutions.getIntegerValue() > 0;
+   }
+
+   /**
+    * The current solution is within the inflation weight of the optimal one once no open node can
+    * lead to a cheaper solution with the inflated heuristics.
+    */
+   private boolean isSolutionWithinInflationBound()
+   {
+      if (!hasSolution())
+         return false;
+
+      while (!stack.isEmpty() && expandedNodes.contains(stack.peek()))
+         stack.poll();
+
+      if (stack.isEmpty())
+         return true;
+
+      PawNode nextNode = stack.peek();
+      return graph.getCostFromStart(nextNode) + heuristics.compute(nextNode) >= solutionCost.getDoubleValue();
+   }
+
+   private void checkAndReportImprovedSolution(long planningStartTime)
+   {
+      if (!hasReachedFinalGoal.getBooleanValue() && !hasSolution())
+         return;
+
+      double cost = graph.getCostFromStart(endNode);
+      if (cost >= solutionCost.getDoubleValue())
+         return;
+
+      double time = Conversions.nanosecondsToSeconds(System.nanoTime() - planningStartTime);
+      if (!hasSolution())
+         timeToFirstSolution.set(time);
+
+      solutionCost.set(cost);
+      numberOfSolutions.increment();
+      solutionTimes.add(time);
+      solutionCosts.add(cost);
+
+      if (debug)
+         System.out.println("Found a solution of cost " + cost + " after " + time + " seconds with inflation weight " + heuristicsInflationWeight.getDoubleValue());
+
+      if (!improvedPlanListeners.isEmpty())
+      {
+         PawStepPlan plan = getPlan();
+         for (int i = 0; i < improvedPlanListeners.size(); i++)
+            improvedPlanListeners.get(i).accept(plan);
+      }
+   }
+
 
    private void checkAndHandleBestEffortNode(PawNode nodeToExpand)
    {
-      if (!parameters.returnBestEffortPlan())
+      if (!parameters.returnBestEffortPlan() || hasSolution())
          return;
 
       if (graph.getPathFromStart(nodeToExpand).size() - 1 < parameters.getMinimumStepsForBestEffortPlan())
@@ -42,8 +42,11 @@ public class PawStepGraph
    /**
     * Adds an edge to the graph and updates all path and node costs affected. The edge must
     * originate at a known node and the cost associated to moving along the edge must be given.
+    *
+    * @return whether the edge lowered the cost of a node that was already in the graph, and so of
+    *         its children.
     */
-   public void checkAndSetEdge(PawNode startNode, PawNode endNode, double transitionCost)
+   public boolean checkAndSetEdge(PawNode startNode, PawNode endNode, double transitionCost)
    {
       checkNodeExists(startNode);
 
@@ -62,16 +65,18 @@ public class PawStepGraph
       {
          double oldNodeCost = nodeCostMap.get(endNode).getNodeCost();
          if (newNodeCost >= oldNodeCost)
-            return;
+            return false;
 
          nodeCostMap.put(endNode, new PawNodeCost(newNodeCost));
          incomingBestEdge.put(endNode, edge);
          updateChildCostsRecursively(endNode);
+         return true;
       }
       else
       {
          nodeCostMap.put(endNode, new PawNodeCost(newNodeCost));
          incomingBestEdge.put(endNode, edge);
+         return false;
       }
    }
 
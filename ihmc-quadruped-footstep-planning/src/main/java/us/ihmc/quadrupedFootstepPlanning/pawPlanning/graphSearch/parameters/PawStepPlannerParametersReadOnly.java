@@ -297,6 +297,13 @@ public interface PawStepPlannerParametersReadOnly extends StoredPropertySetReadO
       return get(minStepsForBestEffortPlan);
    }
 
+   /**
+    * Enables the anytime search of the planner. The search starts with the heuristics inflated by
+    * {@link #getHeuristicsInflationWeight()}. Each time a solution is found within that bound, the
+    * weight is reduced using {@link #getRepairingHeuristicWeightScaling()} and
+    * {@link #getMinimumHeuristicWeightReduction()}, and the search resumes on the already expanded
+    * graph until the weight reaches 1.0 or the planner times out.
+    */
    default boolean performGraphRepairingStep()
    {
       return get(performGraphRepairingStep);
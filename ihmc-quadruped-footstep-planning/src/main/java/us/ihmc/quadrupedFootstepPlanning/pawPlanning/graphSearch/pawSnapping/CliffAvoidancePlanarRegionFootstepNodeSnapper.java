@@ -14,6 +14,8 @@ import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.PawS
 import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.robotSide.RobotQuadrant;
 
+import java.util.List;
+
 public class CliffAvoidancePlanarRegionFootstepNodeSnapper extends SimplePlanarRegionPawNodeSnapper
 {
    private final double cliffHeightToAvoid;
@@ -31,12 +33,15 @@ public class CliffAvoidancePlanarRegionFootstepNodeSnapper extends SimplePlanarR
    public PawNodeSnapData snapInternal(RobotQuadrant robotQuadrant, int xIndex, int yIndex, double yaw)
    {
       PawNodeTools.getPawPosition(xIndex, yIndex, pawPosition);
+      List<PlanarRegion> candidateRegions = getCandidateRegions(xIndex, yIndex);
+      if (candidateRegions.isEmpty())
+         return PawNodeSnapData.emptyData();
+
       Vector2D projectionTranslation = new Vector2D();
 
 
       PlanarRegion highestRegion = PlanarRegionPawSnapTools
-            .findHighestRegionWithProjection(pawPosition, projectionTranslation, constraintDataHolder, planarRegionsList.getPlanarRegionsAsList(),
-                                             constraintDataParameters);
+            .findHighestRegionWithProjection(pawPosition, projectionTranslation, constraintDataHolder, candidateRegions, constraintDataParameters);
 
       if (highestRegion == null || projectionTranslation.containsNaN() || isTranslationBiggerThanGridCell(projectionTranslation))
       {
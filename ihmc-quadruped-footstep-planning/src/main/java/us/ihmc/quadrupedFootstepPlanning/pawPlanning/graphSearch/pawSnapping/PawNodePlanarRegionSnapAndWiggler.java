@@ -59,7 +59,7 @@ public class PawNodePlanarRegionSnapAndWiggler extends PawNodeSnapper
       PawNodeTools.getPawPosition(xIndex, yIndex, pawPosition);
       constraintDataParameters.projectionInsideDelta = Math.min(projectionInsideDelta.getValue(), 0.025);
       PlanarRegion highestPlanarRegion = PlanarRegionPawSnapTools.findHighestRegionWithProjection(pawPosition, new Vector2D(), constraintDataHolder,
-                                                                                                  planarRegionsList.getPlanarRegionsAsList(),
+                                                                                                  getCandidateRegions(xIndex, yIndex),
                                                                                                   constraintDataParameters);
       constraintDataParameters.projectionInsideDelta = projectionInsideDelta.getValue();
 
@@ -2,15 +2,21 @@ package us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.pawSnapping;
 
 import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.graph.PawNode;
 import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.PawStepPlannerParametersReadOnly;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionSnapField;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.robotSide.RobotQuadrant;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
 {
    private final HashMap<SnapKey, PawNodeSnapData> snapDataHolder = new HashMap<>();
    protected PlanarRegionsList planarRegionsList;
+   protected PlanarRegionSnapField snapField;
+   private final List<PlanarRegion> candidateRegions = new ArrayList<>();
 
    protected final PawStepPlannerParametersReadOnly parameters;
 
@@ -27,6 +33,7 @@ public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
    {
       this.planarRegionsList = planarRegionsList;
+      snapField = PlanarRegionSnapField.build(planarRegionsList, PawNode.gridSizeXY);
 
       snapDataHolder.clear();
    }
@@ -36,6 +43,30 @@ public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
       return planarRegionsList;
    }
 
+   /**
+    * @return the rasterization of the planar regions on the paw lattice, or {@code null} if there are
+    *         no regions or if they cover too large an area.
+    */
+   public PlanarRegionSnapField getSnapField()
+   {
+      return snapField;
+   }
+
+   /**
+    * Gets the regions that can contain the paw at the given lattice cell, in the order of the planar
+    * regions list. The returned list is reused by the next call.
+    */
+   protected List<PlanarRegion> getCandidateRegions(int xIndex, int yIndex)
+   {
+      if (snapField == null || snapField.getGridSize() != PawNode.gridSizeXY)
+         return planarRegionsList.getPlanarRegionsAsList();
+
+      candidateRegions.clear();
+      for (int i = 0; i < snapField.getNumberOfCandidateRegions(xIndex, yIndex); i++)
+         candidateRegions.add(planarRegionsList.getPlanarRegion(snapField.getCandidateRegionIndex(xIndex, yIndex, i)));
+      return candidateRegions;
+   }
+
    public boolean hasPlanarRegions()
    {
       return planarRegionsList != null && !planarRegionsList.isEmpty();
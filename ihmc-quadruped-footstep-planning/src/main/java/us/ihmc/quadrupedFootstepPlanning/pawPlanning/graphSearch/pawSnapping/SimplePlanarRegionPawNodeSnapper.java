@@ -15,6 +15,8 @@ import us.ihmc.robotics.robotSide.RobotQuadrant;
 import us.ihmc.yoVariables.providers.BooleanProvider;
 import us.ihmc.yoVariables.providers.DoubleProvider;
 
+import java.util.List;
+
 public class SimplePlanarRegionPawNodeSnapper extends PawNodeSnapper
 {
    protected final Point2D pawPosition = new Point2D();
@@ -60,10 +62,13 @@ public class SimplePlanarRegionPawNodeSnapper extends PawNodeSnapper
    public PawNodeSnapData snapInternal(RobotQuadrant robotQuadrant, int xIndex, int yIndex, double yaw)
    {
       PawNodeTools.getPawPosition(xIndex, yIndex, pawPosition);
+      List<PlanarRegion> candidateRegions = getCandidateRegions(xIndex, yIndex);
+      if (candidateRegions.isEmpty())
+         return PawNodeSnapData.emptyData();
+
       Vector2D projectionTranslation = new Vector2D();
       PlanarRegion highestRegion = PlanarRegionPawSnapTools
-            .findHighestRegionWithProjection(pawPosition, projectionTranslation, constraintDataHolder, planarRegionsList.getPlanarRegionsAsList(),
-                                             constraintDataParameters);
+            .findHighestRegionWithProjection(pawPosition, projectionTranslation, constraintDataHolder, candidateRegions, constraintDataParameters);
 
       if (highestRegion == null || projectionTranslation.containsNaN() || isTranslationBiggerThanGridCell(projectionTranslation))
       {
@@ -1,5 +1,6 @@
 package us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch;
 
+import gnu.trove.list.array.TDoubleArrayList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -35,6 +36,9 @@ import us.ihmc.robotics.robotSide.RobotQuadrant;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
 import us.ihmc.yoVariables.registry.YoRegistry;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static us.ihmc.robotics.Assert.assertTrue;
 import static us.ihmc.robotics.Assert.assertEquals;
 
@@ -225,6 +229,63 @@ public class AStarPawStepPlannerTest
       runTest(stanceLength, stanceWidth, startPose, goalPose, planarRegionsList, timeout);
    }
 
+   @Test
+   public void testAnytimePlanning()
+   {
+      YoRegistry registry = new YoRegistry("test");
+      QuadrupedXGaitSettings xGaitSettings = new QuadrupedXGaitSettings();
+      xGaitSettings.setStanceLength(1.0);
+      xGaitSettings.setStanceWidth(0.5);
+      xGaitSettings.setEndPhaseShift(90.0);
+      xGaitSettings.setQuadrupedSpeed(QuadrupedSpeed.MEDIUM);
+      xGaitSettings.getAmbleMediumTimings().setStepDuration(0.4);
+      xGaitSettings.getAmbleMediumTimings().setEndDoubleSupportDuration(0.35);
+      DefaultPawStepPlannerParameters parameters = new DefaultPawStepPlannerParameters();
+      // A heavily inflated search finds a greedy first plan, that the following searches improve on.
+      parameters.setHeuristicsInflationWeight(10.0);
+      parameters.setPerformGraphRepairingStep(true);
+      AStarPawStepPlanner planner = AStarPawStepPlanner.createPlanner(parameters, xGaitSettings, null, registry);
+
+      List<PawStepPlan> improvedPlans = new ArrayList<>();
+      planner.addImprovedPlanListener(improvedPlans::add);
+
+      FramePose3D startPose = new FramePose3D();
+      FramePose3D goalPose = new FramePose3D();
+      goalPose.getPosition().set(2.5, 2.5, 0.0);
+      goalPose.getOrientation().setYawPitchRoll(Math.PI / 3.0, 0.0, 0.0);
+
+      PawStepPlannerStart start = new PawStepPlannerStart();
+      PawStepPlannerGoal goal = new PawStepPlannerGoal();
+      start.setStartPose(startPose);
+      goal.setGoalPose(goalPose);
+
+      planner.setStart(start);
+      planner.setGoal(goal);
+      planner.setTimeout(30.0);
+      planner.setPlanarRegionsList(null);
+
+      PawStepPlanningResult result = planner.plan();
+      assertTrue("Result was : " + result, result.validForExecution());
+
+      TDoubleArrayList solutionTimes = planner.getSolutionTimes();
+      TDoubleArrayList solutionCosts = planner.getSolutionCosts();
+      assertTrue("Found " + solutionCosts.size() + " solutions", solutionCosts.size() >= 2);
+      assertEquals(solutionCosts.size(), solutionTimes.size());
+      assertEquals(solutionCosts.size(), improvedPlans.size());
+      assertEquals(solutionTimes.get(0), planner.getTimeToFirstSolution(), 1e-10);
+      assertTrue(planner.getTimeToFirstSolution() <= planner.getPlanningDuration());
+
+      for (int i = 1; i < solutionCosts.size(); i++)
+      {
+         assertTrue("Solution " + i + " is not cheaper than the previous one", solutionCosts.get(i) < solutionCosts.get(i - 1));
+         assertTrue(solutionTimes.get(i) >= solutionTimes.get(i - 1));
+      }
+
+      for (PawStepPlan improvedPlan : improvedPlans)
+         assertPlanIsValid(improvedPlan, goalPose.getPosition(), goalPose.getYaw());
+      assertPlanIsValid(planner.getPlan(), goalPose.getPosition(), goalPose.getYaw());
+   }
+
    private void runTest(double stanceLength, double stanceWidth, FramePose3D startPose, FramePose3D goalPose, PlanarRegionsList planarRegionsList, double timeout)
    {
       runTest(stanceLength, stanceWidth, startPose, goalPose, planarRegionsList, timeout, null);
@@ -18,6 +18,7 @@ import us.ihmc.commons.Conversions;
 import us.ihmc.log.LogTools;
 import us.ihmc.robotDataLogger.LogProperties;
 import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog;
 import us.ihmc.robotDataVisualizer.logger.util.CustomProgressMonitor;
 import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
@@ -50,8 +51,25 @@ public class YoVariableExporter extends YoVariableLogReader
       }
    }
 
+   /**
+    * Exports the data from {@code start} to {@code end}. When the log has a columnar store, see
+    * {@link YoVariableColumnarLog}, only the columns of the exported variables are read.
+    */
    public void exportMatlabData(File file, long start, long end, VarGroup vargroup)
    {
+      try (YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(logDirectory))
+      {
+         if (columnarLog != null)
+         {
+            exportMatlabData(file, columnarLog, start, end, vargroup);
+            return;
+         }
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+
       ProgressMonitorInterface monitor = new CustomProgressMonitor("Export data to Matlab", "Reading variable data", 0, 100);
 
       if (!initialize())
@@ -114,6 +132,65 @@ public class YoVariableExporter extends YoVariableLogReader
       }
    }
 
+   private void exportMatlabData(File file, YoVariableColumnarLog columnarLog, long start, long end, VarGroup vargroup) throws IOException
+   {
+      ProgressMonitorInterface monitor = new CustomProgressMonitor("Export data to Matlab", "Reading variable columns", 0, 100);
+
+      int startPosition = columnarLog.getPosition(start);
+      int endPosition = columnarLog.getPosition(end);
+      int elements = endPosition - startPosition + 1;
+
+      // Time element
+      MLInt64 timestamp = new MLInt64("timestamp", new int[] {elements, 1});
+      MLDouble robotTime = new MLDouble("robotTime", new int[] {elements, 1});
+
+      long firstTimestamp = columnarLog.getTimestamp(startPosition);
+      for (int i = startPosition; i <= endPosition; i++)
+      {
+         long entryTimestamp = columnarLog.getTimestamp(i);
+         timestamp.setReal(entryTimestamp, i - startPosition);
+         robotTime.setReal(Conversions.nanosecondsToSeconds(entryTimestamp - firstTimestamp), i - startPosition);
+      }
+
+      List<DataHolder<?>> dataHolders = toDataHolders(elements, vargroup);
+      ArrayList<MLArray> matlabData = new ArrayList<>();
+      matlabData.add(timestamp);
+      matlabData.add(robotTime);
+
+      if (dataHolders != null)
+      {
+         long[] columnData = new long[Math.min(elements, columnarLog.getChunkSize())];
+
+         for (int holderIndex = 0; holderIndex < dataHolders.size(); holderIndex++)
+         {
+            monitor.setProgress(90 * holderIndex / dataHolders.size());
+
+            DataHolder<?> dataHolder = dataHolders.get(holderIndex);
+            int column = columnarLog.getColumnIndex(dataHolder.getVariable().getFullNameString());
+            if (column == -1)
+            {
+               LogTools.warn("Could not find column for " + dataHolder.getVariable().getFullNameString());
+               continue;
+            }
+
+            for (int i = startPosition; i <= endPosition; i += columnData.length)
+            {
+               int length = Math.min(columnData.length, endPosition - i + 1);
+               columnarLog.getRawValues(column, i, columnData, 0, length);
+               for (int j = 0; j < length; j++)
+                  dataHolder.addEntry(columnData[j]);
+            }
+
+            matlabData.add(dataHolder.getData());
+         }
+      }
+
+      monitor.setNote("Writing data to disk");
+      new MatFileWriter(file, matlabData);
+
+      monitor.close();
+   }
+
    private List<DataHolder<?>> toDataHolders(int elements, VarGroup vargroup)
    {
       List<DataHolder<?>> dataHolders = new ArrayList<>();
@@ -175,7 +252,7 @@ public class YoVariableExporter extends YoVariableLogReader
       String name = variable.getName();
       if (variable instanceof YoEnum<?>)
       {
-         return new DataHolder<Long>(offset, new MLInt64(name, dims))
+         return new DataHolder<Long>(offset, variable, new MLInt64(name, dims))
          {
             @Override
             public void set(long entryAsLong)
@@ -187,7 +264,7 @@ public class YoVariableExporter extends YoVariableLogReader
       }
       else if (variable instanceof YoLong)
       {
-         return new DataHolder<Long>(offset, new MLInt64(name, dims))
+         return new DataHolder<Long>(offset, variable, new MLInt64(name, dims))
          {
             @Override
             public void set(long entryAsLong)
@@ -199,7 +276,7 @@ public class YoVariableExporter extends YoVariableLogReader
       }
       else if (variable instanceof YoInteger)
       {
-         return new DataHolder<Long>(offset, new MLInt64(name, dims))
+         return new DataHolder<Long>(offset, variable, new MLInt64(name, dims))
          {
             @Override
             public void set(long entryAsLong)
@@ -211,7 +288,7 @@ public class YoVariableExporter extends YoVariableLogReader
       }
       else if (variable instanceof YoDouble)
       {
-         return new DataHolder<Double>(offset, new MLDouble(name, dims))
+         return new DataHolder<Double>(offset, variable, new MLDouble(name, dims))
          {
             @Override
             public void set(long entryAsLong)
@@ -223,7 +300,7 @@ public class YoVariableExporter extends YoVariableLogReader
       }
       else if (variable instanceof YoBoolean)
       {
-         return new DataHolder<Long>(offset, new MLInt64(name, dims))
+         return new DataHolder<Long>(offset, variable, new MLInt64(name, dims))
          {
             @Override
             public void set(long entryAsLong)
@@ -242,22 +319,33 @@ public class YoVariableExporter extends YoVariableLogReader
    {
       private final MLNumericArray<T> data;
       private final int offset;
+      private final YoVariable variable;
 
       private int index = 0;
 
-      private DataHolder(int offset, MLNumericArray<T> data)
+      private DataHolder(int offset, YoVariable variable, MLNumericArray<T> data)
       {
          this.data = data;
          this.offset = offset;
+         this.variable = variable;
       }
 
       public void addEntry(LongBuffer dataAsLong)
       {
-         long entryAsLong = dataAsLong.get(offset);
+         addEntry(dataAsLong.get(offset));
+      }
+
+      public void addEntry(long entryAsLong)
+      {
          set(entryAsLong);
          index++;
       }
 
+      public YoVariable getVariable()
+      {
+         return variable;
+      }
+
       public abstract void set(long entryAsLong);
 
       protected void set(T entryAsDataType)
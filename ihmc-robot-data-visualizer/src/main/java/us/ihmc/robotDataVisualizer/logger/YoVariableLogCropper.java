@@ -8,6 +8,7 @@ import java.nio.channels.FileChannel;
 
 import us.ihmc.robotDataLogger.LogProperties;
 import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog;
 import us.ihmc.robotDataVisualizer.logger.util.CustomProgressMonitor;
 import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
 
@@ -102,6 +103,15 @@ public class YoVariableLogCropper extends YoVariableLogReader
          indexChannel.close();
          indexStream.close();
 
+         try (YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(logDirectory))
+         {
+            if (columnarLog != null)
+            {
+               monitor.setNote("Cropping columnar data");
+               columnarLog.crop(YoVariableColumnarLog.getDefaultFile(destination), startPosition, endPosition);
+            }
+         }
+
          monitor.setNote("Cropping video files");
 
          if (player != null)
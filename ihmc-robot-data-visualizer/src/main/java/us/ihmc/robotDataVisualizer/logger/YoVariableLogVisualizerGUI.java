@@ -12,6 +12,8 @@ import javax.swing.event.ChangeListener;
 
 import us.ihmc.robotDataLogger.LogProperties;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLogConverter;
+import us.ihmc.robotDataVisualizer.logger.util.CustomProgressMonitor;
 import us.ihmc.yoVariables.listener.YoVariableChangedListener;
 import us.ihmc.yoVariables.variable.YoInteger;
 import us.ihmc.yoVariables.variable.YoVariable;
@@ -38,6 +40,7 @@ public class YoVariableLogVisualizerGUI extends JPanel
    private boolean isSeeking = false;
 
    private final YoVariableExporter exporter;
+   private final YoVariableColumnarLogConverter columnarLogConverter;
 
    public YoVariableLogVisualizerGUI(File directory, LogProperties properties, MultiVideoDataPlayer player, YoVariableHandshakeParser parser,
                                      YoVariableLogPlaybackRobot robot, SimulationConstructionSet scs)
@@ -53,11 +56,13 @@ public class YoVariableLogVisualizerGUI extends JPanel
       {
          yoVariableLogCropper = new YoVariableLogCropper(player, directory, properties);
          exporter = new YoVariableExporter(scs, directory, properties, parser.getYoVariablesList());
+         columnarLogConverter = new YoVariableColumnarLogConverter(directory, properties, parser.getYoVariablesList());
       }
       else
       {
          yoVariableLogCropper = null;
          exporter = null;
+         columnarLogConverter = null;
       }
 
       setLayout(new GridLayout(1, 2));
@@ -279,6 +284,29 @@ public class YoVariableLogVisualizerGUI extends JPanel
       }
    }
 
+   private void createColumnarLog()
+   {
+      if (columnarLogConverter != null)
+      {
+         new Thread("IHMC-LogVisualizerGUI")
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  columnarLogConverter.convert(new CustomProgressMonitor());
+               }
+               catch (IOException e)
+               {
+                  e.printStackTrace();
+                  JOptionPane.showMessageDialog(null, "Cannot create columnar log: " + e.getMessage(), "Failure to convert", JOptionPane.ERROR_MESSAGE);
+               }
+            }
+         }.start();
+      }
+   }
+
    private void crop(int start, int end)
    {
       if (start == -1 || end == -1)
@@ -457,6 +485,10 @@ public class YoVariableLogVisualizerGUI extends JPanel
       exportData.setToolTipText("Export variables that are graphed in the main window from the in point till the out point");
       exportData.addActionListener(event -> exportMatlabDataDialog(slider.getStart(), slider.getEnd()));
 
+      final JButton createColumnarLog = new JButton("Index columns");
+      createColumnarLog.setToolTipText("Transpose the log into a columnar store to speed up exports, searches, and cropping");
+      createColumnarLog.addActionListener(event -> createColumnarLog());
+
       timePanel.add(slider, BorderLayout.CENTER);
       timePanel.add(currentTime, BorderLayout.EAST);
 
@@ -480,6 +512,7 @@ public class YoVariableLogVisualizerGUI extends JPanel
       subPanel.add(exportVideo);
       subPanel.add(crop);
       subPanel.add(exportData);
+      subPanel.add(createColumnarLog);
       add(subPanel);
    }
 }
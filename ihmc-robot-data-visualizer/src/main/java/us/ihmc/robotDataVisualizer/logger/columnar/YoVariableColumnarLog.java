@@ -0,0 +1,344 @@
+package us.ihmc.robotDataVisualizer.logger.columnar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Read-only, memory-mapped view of a log transposed into columns by
+ * {@link YoVariableColumnarLogWriter}.
+ * <p>
+ * Each column holds the raw long bits of one variable for every entry of the log, such that
+ * reading a variable only touches the pages of its own column. The columns are split in chunks of
+ * {@link #getChunkSize()} entries for which the minimum and maximum values are stored in a chunk
+ * index, allowing searches to skip the chunks that cannot match.
+ * </p>
+ * <p>
+ * File layout:
+ * <ul>
+ * <li>header: magic, version, number of entries, number of columns, chunk size, number of chunks,
+ * and the offsets of the timestamp, chunk index, and data sections.
+ * <li>column descriptions: type and UTF-8 name of each column.
+ * <li>timestamps: one long per entry.
+ * <li>chunk index: for each chunk and each column, the minimum and maximum values as doubles.
+ * <li>data: the columns one after the other, one long per entry.
+ * </ul>
+ * </p>
+ */
+public class YoVariableColumnarLog implements Closeable
+{
+   public static final String defaultFileName = "robotData.columns";
+
+   static final int MAGIC = 0x59434F4C;
+   static final int VERSION = 1;
+   static final int HEADER_SIZE = 6 * Integer.BYTES + 3 * Long.BYTES;
+   static final int CHUNK_INDEX_ENTRY_SIZE = 2 * Double.BYTES;
+
+   public enum ColumnType
+   {
+      DOUBLE, LONG, BOOLEAN;
+
+      public static final ColumnType[] values = values();
+
+      public double toDouble(long rawValue)
+      {
+         switch (this)
+         {
+            case DOUBLE:
+               return Double.longBitsToDouble(rawValue);
+            case BOOLEAN:
+               return rawValue == 0L ? 0.0 : 1.0;
+            default:
+               return rawValue;
+         }
+      }
+
+      public static ColumnType fromYoVariable(YoVariable variable)
+      {
+         if (variable instanceof YoDouble)
+            return DOUBLE;
+         else if (variable instanceof YoBoolean)
+            return BOOLEAN;
+         else
+            return LONG;
+      }
+   }
+
+   private final FileChannel channel;
+
+   private final int numberOfEntries;
+   private final int numberOfColumns;
+   private final int chunkSize;
+   private final int numberOfChunks;
+   private final long dataOffset;
+
+   private final String[] columnNames;
+   private final ColumnType[] columnTypes;
+   private final Map<String, Integer> nameToColumnMap = new HashMap<>();
+
+   private final LongBuffer timestamps;
+   private final ByteBuffer chunkIndex;
+   private final LongBuffer[] columns;
+
+   public static File getDefaultFile(File logDirectory)
+   {
+      return new File(logDirectory, defaultFileName);
+   }
+
+   /**
+    * Opens the columnar store of the given log directory if it has been created.
+    *
+    * @return the store, or {@code null} if the log directory does not have one.
+    */
+   public static YoVariableColumnarLog openIfExists(File logDirectory) throws IOException
+   {
+      File file = getDefaultFile(logDirectory);
+      if (!file.exists())
+         return null;
+      return new YoVariableColumnarLog(file);
+   }
+
+   public YoVariableColumnarLog(File file) throws IOException
+   {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+      try
+      {
+         ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+         if (header.getInt() != MAGIC)
+            throw new IOException(file + " is not a columnar log.");
+         int version = header.getInt();
+         if (version != VERSION)
+            throw new IOException("Unsupported columnar log version " + version + ", expected " + VERSION);
+
+         numberOfEntries = header.getInt();
+         numberOfColumns = header.getInt();
+         chunkSize = header.getInt();
+         numberOfChunks = header.getInt();
+         long timestampOffset = header.getLong();
+         long chunkIndexOffset = header.getLong();
+         dataOffset = header.getLong();
+
+         ByteBuffer descriptions = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, timestampOffset - HEADER_SIZE);
+         columnNames = new String[numberOfColumns];
+         columnTypes = new ColumnType[numberOfColumns];
+         for (int column = 0; column < numberOfColumns; column++)
+         {
+            columnTypes[column] = ColumnType.values[descriptions.get()];
+            byte[] name = new byte[descriptions.getShort()];
+            descriptions.get(name);
+            columnNames[column] = new String(name, StandardCharsets.UTF_8);
+            nameToColumnMap.putIfAbsent(columnNames[column], column);
+         }
+
+         timestamps = channel.map(FileChannel.MapMode.READ_ONLY, timestampOffset, checkMappable((long) numberOfEntries * Long.BYTES)).asLongBuffer();
+         chunkIndex = channel.map(FileChannel.MapMode.READ_ONLY,
+                                  chunkIndexOffset,
+                                  checkMappable((long) numberOfChunks * numberOfColumns * CHUNK_INDEX_ENTRY_SIZE));
+         columns = new LongBuffer[numberOfColumns];
+      }
+      catch (IOException | RuntimeException e)
+      {
+         channel.close();
+         throw e;
+      }
+   }
+
+   private static long checkMappable(long size) throws IOException
+   {
+      if (size > Integer.MAX_VALUE)
+         throw new IOException("Section of " + size + " bytes is too large to be memory mapped.");
+      return size;
+   }
+
+   public int getNumberOfEntries()
+   {
+      return numberOfEntries;
+   }
+
+   public int getNumberOfColumns()
+   {
+      return numberOfColumns;
+   }
+
+   public int getChunkSize()
+   {
+      return chunkSize;
+   }
+
+   public int getNumberOfChunks()
+   {
+      return numberOfChunks;
+   }
+
+   public String getColumnName(int column)
+   {
+      return columnNames[column];
+   }
+
+   public ColumnType getColumnType(int column)
+   {
+      return columnTypes[column];
+   }
+
+   /**
+    * @return the index of the column with the given name, or {@code -1} if there is none.
+    */
+   public int getColumnIndex(String name)
+   {
+      Integer column = nameToColumnMap.get(name);
+      return column == null ? -1 : column;
+   }
+
+   public long getTimestamp(int entry)
+   {
+      return timestamps.get(entry);
+   }
+
+   /**
+    * @return the index of the last entry recorded at or before {@code timestamp}, {@code 0} if the
+    *         log starts after it.
+    */
+   public int getPosition(long timestamp)
+   {
+      int low = 0;
+      int high = numberOfEntries - 1;
+
+      while (low < high)
+      {
+         int middle = (low + high + 1) >>> 1;
+         if (timestamps.get(middle) <= timestamp)
+            low = middle;
+         else
+            high = middle - 1;
+      }
+
+      return low;
+   }
+
+   public long getRawValue(int column, int entry)
+   {
+      return getColumn(column).get(entry);
+   }
+
+   public double getValue(int column, int entry)
+   {
+      return columnTypes[column].toDouble(getRawValue(column, entry));
+   }
+
+   /**
+    * Copies the timestamps of {@code length} entries starting at {@code firstEntry}.
+    */
+   public void getTimestamps(int firstEntry, long[] destination, int offset, int length)
+   {
+      LongBuffer view = timestamps.duplicate();
+      view.position(firstEntry);
+      view.get(destination, offset, length);
+   }
+
+   /**
+    * Copies the raw values of {@code length} entries of a column starting at {@code firstEntry}.
+    */
+   public void getRawValues(int column, int firstEntry, long[] destination, int offset, int length)
+   {
+      LongBuffer view = getColumn(column).duplicate();
+      view.position(firstEntry);
+      view.get(destination, offset, length);
+   }
+
+   public double getChunkMinimum(int column, int chunk)
+   {
+      return chunkIndex.getDouble(chunkIndexPosition(column, chunk));
+   }
+
+   public double getChunkMaximum(int column, int chunk)
+   {
+      return chunkIndex.getDouble(chunkIndexPosition(column, chunk) + Double.BYTES);
+   }
+
+   private int chunkIndexPosition(int column, int chunk)
+   {
+      return (chunk * numberOfColumns + column) * CHUNK_INDEX_ENTRY_SIZE;
+   }
+
+   /**
+    * Searches the first entry, starting at {@code firstEntry}, for which the value of the column is
+    * in {@code [lowerBound, upperBound]}. Chunks whose range does not overlap the bounds are skipped
+    * without reading their data.
+    *
+    * @return the index of the entry found, or {@code -1} if there is none.
+    */
+   public int findFirst(int column, int firstEntry, double lowerBound, double upperBound)
+   {
+      ColumnType type = columnTypes[column];
+      LongBuffer values = getColumn(column);
+
+      for (int chunk = firstEntry / chunkSize; chunk < numberOfChunks; chunk++)
+      {
+         if (getChunkMaximum(column, chunk) < lowerBound || getChunkMinimum(column, chunk) > upperBound)
+            continue;
+
+         int start = Math.max(firstEntry, chunk * chunkSize);
+         int end = Math.min(numberOfEntries, (chunk + 1) * chunkSize);
+
+         for (int entry = start; entry < end; entry++)
+         {
+            double value = type.toDouble(values.get(entry));
+            if (value >= lowerBound && value <= upperBound)
+               return entry;
+         }
+      }
+
+      return -1;
+   }
+
+   /**
+    * Writes the entries from {@code firstEntry} to {@code lastEntry}, both included, to a new
+    * columnar log. The data is copied column by column.
+    */
+   public void crop(File destination, int firstEntry, int lastEntry) throws IOException
+   {
+      if (firstEntry < 0 || lastEntry >= numberOfEntries || lastEntry < firstEntry)
+         throw new IllegalArgumentException("Invalid entry range [" + firstEntry + ", " + lastEntry + "] for a log of " + numberOfEntries + " entries.");
+
+      try (YoVariableColumnarLogWriter writer = new YoVariableColumnarLogWriter(destination, columnNames, columnTypes, lastEntry - firstEntry + 1, chunkSize))
+      {
+         writer.appendEntries(this, firstEntry, lastEntry - firstEntry + 1);
+      }
+   }
+
+   private synchronized LongBuffer getColumn(int column)
+   {
+      if (columns[column] == null)
+      {
+         long size = (long) numberOfEntries * Long.BYTES;
+         try
+         {
+            columns[column] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + column * size, checkMappable(size)).asLongBuffer();
+         }
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
+         }
+      }
+
+      return columns[column];
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+}
@@ -0,0 +1,174 @@
+package us.ihmc.robotDataVisualizer.logger.columnar;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.LongBuffer;
+import java.util.List;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog.ColumnType;
+import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Transposes the variable data of a log into a {@link YoVariableColumnarLog}.
+ * <p>
+ * The log is read once, entry by entry, and only one chunk of entries is held in memory. The
+ * variables are named after their full name, the joint states that follow them in each entry are
+ * stored as double columns named {@code jointState<index>}.
+ * </p>
+ */
+public class YoVariableColumnarLogConverter extends YoVariableLogReader
+{
+   private final List<YoVariable> variables;
+
+   public YoVariableColumnarLogConverter(File logDirectory, LogProperties logProperties, List<YoVariable> variables)
+   {
+      super(logDirectory, logProperties);
+      this.variables = variables;
+   }
+
+   /**
+    * Creates the columnar store in the log directory, see
+    * {@link YoVariableColumnarLog#getDefaultFile(File)}.
+    */
+   public boolean convert(ProgressMonitorInterface monitor) throws IOException
+   {
+      return convert(YoVariableColumnarLog.getDefaultFile(logDirectory), YoVariableColumnarLogWriter.DEFAULT_CHUNK_SIZE, monitor);
+   }
+
+   public synchronized boolean convert(File destination, int chunkSize, ProgressMonitorInterface monitor) throws IOException
+   {
+      if (!initialize())
+      {
+         return false;
+      }
+
+      int numberOfEntries = getNumberOfEntries();
+      if (numberOfEntries == 0)
+      {
+         monitor.setError("The log does not have any entry.");
+         return false;
+      }
+
+      monitor.initialize("Creating columnar log", "Transposing variable data", 0, 100);
+
+      // Every entry starts with the timestamp, followed by the variables and the joint states.
+      int numberOfColumns = readData(0).remaining() / Long.BYTES - 1;
+      if (numberOfColumns < variables.size())
+         throw new RuntimeException("The log entries have " + numberOfColumns + " values, expected at least " + variables.size());
+
+      String[] columnNames = new String[numberOfColumns];
+      ColumnType[] columnTypes = new ColumnType[numberOfColumns];
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         if (column < variables.size())
+         {
+            columnNames[column] = variables.get(column).getFullNameString();
+            columnTypes[column] = ColumnType.fromYoVariable(variables.get(column));
+         }
+         else
+         {
+            columnNames[column] = "jointState" + (column - variables.size());
+            columnTypes[column] = ColumnType.DOUBLE;
+         }
+      }
+
+      int step = Math.max(1, numberOfEntries / 100);
+
+      try (YoVariableColumnarLogWriter writer = new YoVariableColumnarLogWriter(destination, columnNames, columnTypes, numberOfEntries, chunkSize))
+      {
+         for (int i = 0; i < numberOfEntries; i++)
+         {
+            if (i % step == 0)
+            {
+               monitor.setProgress(i / step);
+            }
+
+            LongBuffer entry = readData(i).asLongBuffer();
+            long timestamp = entry.get();
+            writer.appendEntry(timestamp, entry);
+         }
+      }
+
+      monitor.close();
+      return true;
+   }
+
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length != 1)
+      {
+         System.err.println("Usage: " + YoVariableColumnarLogConverter.class.getSimpleName() + " <log directory>");
+         return;
+      }
+
+      File logDirectory = new File(args[0]);
+      LogPropertiesReader logProperties = new LogPropertiesReader(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+
+      File handshake = new File(logDirectory, logProperties.getVariables().getHandshakeAsString());
+      if (!handshake.exists())
+      {
+         throw new RuntimeException("Cannot find " + logProperties.getVariables().getHandshakeAsString());
+      }
+
+      byte[] handshakeData = new byte[(int) handshake.length()];
+      try (DataInputStream handshakeStream = new DataInputStream(new FileInputStream(handshake)))
+      {
+         handshakeStream.readFully(handshakeData);
+      }
+
+      YoVariableHandshakeParser parser = YoVariableHandshakeParser.create(logProperties.getVariables().getHandshakeFileType());
+      parser.parseFrom(handshakeData);
+
+      YoVariableColumnarLogConverter converter = new YoVariableColumnarLogConverter(logDirectory, logProperties, parser.getYoVariablesList());
+      converter.convert(new ConsoleProgressMonitor());
+   }
+
+   private static class ConsoleProgressMonitor implements ProgressMonitorInterface
+   {
+      @Override
+      public void setNote(String note)
+      {
+         System.out.println(note);
+      }
+
+      @Override
+      public void setProgress(int i)
+      {
+         if (i % 10 == 0)
+            System.out.println(i + "%");
+      }
+
+      @Override
+      public PrintStream getPrintStream()
+      {
+         return System.out;
+      }
+
+      @Override
+      public void close()
+      {
+         System.out.println("Done");
+      }
+
+      @Override
+      public void setError(String string)
+      {
+         System.err.println(string);
+      }
+
+      @Override
+      public void initialize(String message, String note, int min, int max)
+      {
+         System.out.println(message);
+      }
+   }
+}
@@ -0,0 +1,285 @@
+package us.ihmc.robotDataVisualizer.logger.columnar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog.ColumnType;
+
+/**
+ * Writes a {@link YoVariableColumnarLog} from entries given row by row.
+ * <p>
+ * Only one chunk of entries is kept in memory: once it is full, each of its columns is written at
+ * its final position in the file together with the chunk index.
+ * </p>
+ * <p>
+ * The data is written to a temporary file next to the destination. It is moved over the destination
+ * only once all the entries have been written and the writer is closed, such that an interrupted
+ * conversion never leaves a columnar log that looks valid but is incomplete.
+ * </p>
+ */
+public class YoVariableColumnarLogWriter implements Closeable
+{
+   public static final int DEFAULT_CHUNK_SIZE = 512;
+   public static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+   private final Path destination;
+   private final Path temporaryFile;
+   private final FileChannel channel;
+
+   private final int numberOfEntries;
+   private final int numberOfColumns;
+   private final int chunkSize;
+   private final ColumnType[] columnTypes;
+
+   private final long timestampOffset;
+   private final long chunkIndexOffset;
+   private final long dataOffset;
+
+   private final long[] timestampBlock;
+   private final long[][] columnBlocks;
+   private final ByteBuffer writeBuffer;
+   private final ByteBuffer chunkIndexBuffer;
+
+   private int numberOfEntriesInBlock = 0;
+   private int numberOfEntriesWritten = 0;
+   private int currentChunk = 0;
+
+   public YoVariableColumnarLogWriter(File file, String[] columnNames, ColumnType[] columnTypes, int numberOfEntries, int chunkSize) throws IOException
+   {
+      if (columnNames.length != columnTypes.length)
+         throw new IllegalArgumentException("Got " + columnNames.length + " column names but " + columnTypes.length + " column types.");
+      if (numberOfEntries < 1)
+         throw new IllegalArgumentException("The log should have at least one entry.");
+      if (chunkSize < 1)
+         throw new IllegalArgumentException("The chunk size should be at least 1, was: " + chunkSize);
+
+      this.numberOfEntries = numberOfEntries;
+      this.numberOfColumns = columnNames.length;
+      this.chunkSize = Math.min(chunkSize, numberOfEntries);
+      this.columnTypes = columnTypes;
+      int numberOfChunks = (numberOfEntries + this.chunkSize - 1) / this.chunkSize;
+
+      byte[][] encodedNames = new byte[numberOfColumns][];
+      int descriptionsSize = 0;
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         encodedNames[column] = columnNames[column].getBytes(StandardCharsets.UTF_8);
+         if (encodedNames[column].length > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Column name is too long: " + columnNames[column]);
+         descriptionsSize += 1 + Short.BYTES + encodedNames[column].length;
+      }
+
+      timestampOffset = align(YoVariableColumnarLog.HEADER_SIZE + descriptionsSize);
+      chunkIndexOffset = timestampOffset + (long) numberOfEntries * Long.BYTES;
+      dataOffset = chunkIndexOffset + (long) numberOfChunks * numberOfColumns * YoVariableColumnarLog.CHUNK_INDEX_ENTRY_SIZE;
+
+      timestampBlock = new long[this.chunkSize];
+      columnBlocks = new long[numberOfColumns][this.chunkSize];
+      writeBuffer = ByteBuffer.allocateDirect(this.chunkSize * Long.BYTES);
+      chunkIndexBuffer = ByteBuffer.allocateDirect(numberOfColumns * YoVariableColumnarLog.CHUNK_INDEX_ENTRY_SIZE);
+
+      destination = file.toPath();
+      temporaryFile = destination.resolveSibling(destination.getFileName() + TEMPORARY_FILE_EXTENSION);
+      channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+      ByteBuffer header = ByteBuffer.allocate((int) timestampOffset);
+      header.putInt(YoVariableColumnarLog.MAGIC);
+      header.putInt(YoVariableColumnarLog.VERSION);
+      header.putInt(numberOfEntries);
+      header.putInt(numberOfColumns);
+      header.putInt(this.chunkSize);
+      header.putInt(numberOfChunks);
+      header.putLong(timestampOffset);
+      header.putLong(chunkIndexOffset);
+      header.putLong(dataOffset);
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         header.put((byte) columnTypes[column].ordinal());
+         header.putShort((short) encodedNames[column].length);
+         header.put(encodedNames[column]);
+      }
+      header.clear();
+
+      try
+      {
+         write(header, 0);
+      }
+      catch (IOException e)
+      {
+         channel.close();
+         Files.deleteIfExists(temporaryFile);
+         throw e;
+      }
+   }
+
+   private static long align(long position)
+   {
+      return (position + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+   }
+
+   /**
+    * Appends one entry.
+    *
+    * @param timestamp the timestamp of the entry.
+    * @param values    the raw values of the columns, starting at the buffer position. The buffer
+    *                  position is not modified.
+    */
+   public void appendEntry(long timestamp, LongBuffer values) throws IOException
+   {
+      checkRemainingEntries(1);
+
+      int position = values.position();
+      timestampBlock[numberOfEntriesInBlock] = timestamp;
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         columnBlocks[column][numberOfEntriesInBlock] = values.get(position + column);
+      }
+
+      numberOfEntriesInBlock++;
+      numberOfEntriesWritten++;
+      flushBlockIfFull();
+   }
+
+   /**
+    * Appends {@code length} entries of another columnar log with the same columns, starting at
+    * {@code firstEntry}. The data is copied column by column.
+    */
+   public void appendEntries(YoVariableColumnarLog source, int firstEntry, int length) throws IOException
+   {
+      if (source.getNumberOfColumns() != numberOfColumns)
+         throw new IllegalArgumentException("Expected " + numberOfColumns + " columns, the source has " + source.getNumberOfColumns());
+      checkRemainingEntries(length);
+
+      while (length > 0)
+      {
+         int blockLength = Math.min(length, chunkSize - numberOfEntriesInBlock);
+
+         source.getTimestamps(firstEntry, timestampBlock, numberOfEntriesInBlock, blockLength);
+         for (int column = 0; column < numberOfColumns; column++)
+         {
+            source.getRawValues(column, firstEntry, columnBlocks[column], numberOfEntriesInBlock, blockLength);
+         }
+
+         numberOfEntriesInBlock += blockLength;
+         numberOfEntriesWritten += blockLength;
+         firstEntry += blockLength;
+         length -= blockLength;
+         flushBlockIfFull();
+      }
+   }
+
+   private void checkRemainingEntries(int length)
+   {
+      if (numberOfEntriesWritten + length > numberOfEntries)
+         throw new IllegalStateException("Cannot write more than " + numberOfEntries + " entries.");
+   }
+
+   private void flushBlockIfFull() throws IOException
+   {
+      if (numberOfEntriesInBlock < chunkSize && numberOfEntriesWritten < numberOfEntries)
+         return;
+
+      long firstEntry = (long) currentChunk * chunkSize;
+
+      writeLongs(timestampBlock, numberOfEntriesInBlock, timestampOffset + firstEntry * Long.BYTES);
+
+      chunkIndexBuffer.clear();
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         long[] block = columnBlocks[column];
+         writeLongs(block, numberOfEntriesInBlock, dataOffset + ((long) column * numberOfEntries + firstEntry) * Long.BYTES);
+
+         double minimum = Double.POSITIVE_INFINITY;
+         double maximum = Double.NEGATIVE_INFINITY;
+         ColumnType type = columnTypes[column];
+         for (int i = 0; i < numberOfEntriesInBlock; i++)
+         {
+            double value = type.toDouble(block[i]);
+            if (value < minimum)
+               minimum = value;
+            if (value > maximum)
+               maximum = value;
+         }
+
+         if (minimum > maximum)
+         { // Only NaNs in this chunk.
+            minimum = Double.NaN;
+            maximum = Double.NaN;
+         }
+
+         chunkIndexBuffer.putDouble(minimum);
+         chunkIndexBuffer.putDouble(maximum);
+      }
+      chunkIndexBuffer.flip();
+      write(chunkIndexBuffer, chunkIndexOffset + (long) currentChunk * chunkIndexBuffer.capacity());
+
+      currentChunk++;
+      numberOfEntriesInBlock = 0;
+   }
+
+   private void writeLongs(long[] values, int length, long position) throws IOException
+   {
+      writeBuffer.clear();
+      writeBuffer.asLongBuffer().put(values, 0, length);
+      writeBuffer.limit(length * Long.BYTES);
+      write(writeBuffer, position);
+   }
+
+   private void write(ByteBuffer buffer, long position) throws IOException
+   {
+      while (buffer.hasRemaining())
+      {
+         position += channel.write(buffer, position);
+      }
+   }
+
+   public int getNumberOfEntriesWritten()
+   {
+      return numberOfEntriesWritten;
+   }
+
+   /**
+    * Closes the file and, if all the entries have been written, moves it to its destination.
+    * Otherwise, the temporary file is deleted and the destination is left untouched.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      if (!channel.isOpen())
+         return;
+
+      boolean isComplete = numberOfEntriesWritten == numberOfEntries;
+
+      try
+      {
+         if (isComplete)
+            channel.force(false);
+      }
+      catch (IOException e)
+      {
+         isComplete = false;
+         throw e;
+      }
+      finally
+      {
+         channel.close();
+
+         if (!isComplete)
+            Files.deleteIfExists(temporaryFile);
+      }
+
+      if (!isComplete)
+         throw new IOException("Expected " + numberOfEntries + " entries, only " + numberOfEntriesWritten + " have been written.");
+
+      Files.move(temporaryFile, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+   }
+}
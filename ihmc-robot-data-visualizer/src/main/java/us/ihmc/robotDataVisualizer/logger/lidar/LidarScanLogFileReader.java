@@ -0,0 +1,306 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import us.ihmc.tools.compression.LZ4CompressionImplementation;
+
+/**
+ * Random access reader for the lidar logs written by {@link LidarScanLogFileWriter}.
+ * <p>
+ * The blocks are memory-mapped when accessed, and only the last accessed block is kept
+ * decompressed such that scrubbing back and forth within a block is cheap. When the index is
+ * missing, for instance if the recording was interrupted, it is rebuilt by scanning the blocks.
+ * Logs written in the former unindexed format, where the scans are simply concatenated, are also
+ * supported.
+ * </p>
+ */
+public class LidarScanLogFileReader implements Closeable
+{
+   private final FileChannel channel;
+   private final long fileSize;
+   private final boolean legacyFormat;
+   private final boolean compressed;
+   private final LZ4CompressionImplementation decompressor;
+
+   private final TLongArrayList timestamps = new TLongArrayList();
+   private final TLongArrayList blockOffsets = new TLongArrayList();
+   private final TIntArrayList offsetsInBlock = new TIntArrayList();
+
+   private final ByteBuffer blockHeader = ByteBuffer.allocate(LidarScanLogFileWriter.BLOCK_HEADER_SIZE);
+   private long currentBlockOffset = -1L;
+   private ByteBuffer currentBlock;
+   private ByteBuffer decompressedBlock;
+
+   public LidarScanLogFileReader(File file) throws IOException
+   {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+      try
+      {
+         fileSize = channel.size();
+
+         ByteBuffer header = ByteBuffer.allocate(LidarScanLogFileWriter.HEADER_SIZE);
+         boolean hasHeader = read(header, 0L) && header.getLong(0) == LidarScanLogFileWriter.MAGIC;
+
+         if (hasHeader)
+         {
+            int version = header.getInt(Long.BYTES);
+            if (version != LidarScanLogFileWriter.VERSION)
+               throw new IOException("Unsupported lidar log version " + version + ", expected " + LidarScanLogFileWriter.VERSION);
+
+            legacyFormat = false;
+            compressed = (header.getInt(Long.BYTES + Integer.BYTES) & LidarScanLogFileWriter.COMPRESSED_FLAG) != 0;
+            decompressor = compressed ? new LZ4CompressionImplementation() : null;
+
+            if (!readIndex())
+               rebuildIndex();
+         }
+         else
+         {
+            legacyFormat = true;
+            compressed = false;
+            decompressor = null;
+            indexLegacyScans();
+         }
+      }
+      catch (IOException | RuntimeException e)
+      {
+         channel.close();
+         throw e;
+      }
+   }
+
+   private boolean readIndex() throws IOException
+   {
+      if (fileSize < LidarScanLogFileWriter.HEADER_SIZE + LidarScanLogFileWriter.FOOTER_SIZE)
+         return false;
+
+      ByteBuffer footer = ByteBuffer.allocate(LidarScanLogFileWriter.FOOTER_SIZE);
+      read(footer, fileSize - LidarScanLogFileWriter.FOOTER_SIZE);
+      long indexOffset = footer.getLong();
+      int numberOfScans = footer.getInt();
+      if (footer.getLong() != LidarScanLogFileWriter.MAGIC)
+         return false;
+
+      ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) numberOfScans * LidarScanLogFileWriter.INDEX_ENTRY_SIZE);
+      for (int i = 0; i < numberOfScans; i++)
+      {
+         timestamps.add(index.getLong());
+         blockOffsets.add(index.getLong());
+         offsetsInBlock.add(index.getInt());
+      }
+      return true;
+   }
+
+   private void rebuildIndex() throws IOException
+   {
+      long blockOffset = LidarScanLogFileWriter.HEADER_SIZE;
+
+      while (blockOffset + LidarScanLogFileWriter.BLOCK_HEADER_SIZE <= fileSize)
+      {
+         ByteBuffer block = loadBlock(blockOffset);
+         if (block == null)
+            break; // Incomplete block, the recording was interrupted while writing it.
+
+         int numberOfScans = blockHeader.getInt(0);
+         for (int i = 0; i < numberOfScans; i++)
+         {
+            int offsetInBlock = block.position();
+            timestamps.add(block.getLong(offsetInBlock));
+            blockOffsets.add(blockOffset);
+            offsetsInBlock.add(offsetInBlock);
+            skipScan(block);
+         }
+
+         blockOffset += LidarScanLogFileWriter.BLOCK_HEADER_SIZE + blockHeader.getInt(2 * Integer.BYTES);
+      }
+   }
+
+   private void indexLegacyScans() throws IOException
+   {
+      ByteBuffer scanHeader = ByteBuffer.allocate(Long.BYTES + 7 * Float.BYTES + Integer.BYTES);
+      long scanOffset = 0L;
+
+      while (read(scanHeader, scanOffset))
+      {
+         int scanLength = scanHeader.getInt(Long.BYTES + 7 * Float.BYTES);
+         long nextScanOffset = scanOffset + scanHeader.capacity() + (long) scanLength * Float.BYTES;
+         if (scanLength < 0 || nextScanOffset > fileSize)
+            break;
+
+         timestamps.add(scanHeader.getLong(0));
+         blockOffsets.add(scanOffset);
+         offsetsInBlock.add(0);
+         scanOffset = nextScanOffset;
+      }
+   }
+
+   /**
+    * Reads {@code buffer.capacity()} bytes at the given file position.
+    *
+    * @return {@code false} if the end of the file is reached before filling the buffer.
+    */
+   private boolean read(ByteBuffer buffer, long position) throws IOException
+   {
+      buffer.clear();
+      while (buffer.hasRemaining())
+      {
+         int read = channel.read(buffer, position);
+         if (read < 0)
+            return false;
+         position += read;
+      }
+      buffer.flip();
+      return true;
+   }
+
+   public int getNumberOfScans()
+   {
+      return timestamps.size();
+   }
+
+   public long getTimestamp(int scanIndex)
+   {
+      return timestamps.get(scanIndex);
+   }
+
+   public boolean isCompressed()
+   {
+      return compressed;
+   }
+
+   /**
+    * @return the index of the last scan recorded at or before {@code timestamp}, {@code 0} if the
+    *         log starts after it.
+    */
+   public int getScanIndex(long timestamp)
+   {
+      int low = 0;
+      int high = timestamps.size() - 1;
+
+      while (low < high)
+      {
+         int middle = (low + high + 1) >>> 1;
+         if (timestamps.get(middle) <= timestamp)
+            low = middle;
+         else
+            high = middle - 1;
+      }
+
+      return low;
+   }
+
+   public LidarScanMessage read(int scanIndex) throws IOException
+   {
+      LidarScanMessage lidarScanMessage = new LidarScanMessage();
+      read(scanIndex, lidarScanMessage);
+      return lidarScanMessage;
+   }
+
+   public void read(int scanIndex, LidarScanMessage lidarScanMessageToPack) throws IOException
+   {
+      if (scanIndex < 0 || scanIndex >= timestamps.size())
+         throw new IndexOutOfBoundsException("Scan index " + scanIndex + " is out of bounds, the log has " + timestamps.size() + " scans.");
+
+      ByteBuffer block = loadBlock(blockOffsets.get(scanIndex));
+      if (block == null)
+         throw new IOException("The block of the scan " + scanIndex + " is incomplete.");
+
+      block.position(offsetsInBlock.get(scanIndex));
+      deserialize(block, lidarScanMessageToPack);
+   }
+
+   private ByteBuffer loadBlock(long blockOffset) throws IOException
+   {
+      if (blockOffset == currentBlockOffset)
+      {
+         currentBlock.rewind();
+         return currentBlock;
+      }
+
+      ByteBuffer block;
+
+      if (legacyFormat)
+      {
+         int scanIndex = blockOffsets.binarySearch(blockOffset);
+         long nextScanOffset = scanIndex + 1 < blockOffsets.size() ? blockOffsets.get(scanIndex + 1) : fileSize;
+         block = channel.map(FileChannel.MapMode.READ_ONLY, blockOffset, nextScanOffset - blockOffset);
+      }
+      else
+      {
+         if (!read(blockHeader, blockOffset))
+            return null;
+
+         int uncompressedSize = blockHeader.getInt(Integer.BYTES);
+         int storedSize = blockHeader.getInt(2 * Integer.BYTES);
+         long dataOffset = blockOffset + LidarScanLogFileWriter.BLOCK_HEADER_SIZE;
+         if (dataOffset + storedSize > fileSize)
+            return null;
+
+         ByteBuffer storedBlock = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, storedSize);
+
+         if (compressed)
+         {
+            if (decompressedBlock == null || decompressedBlock.capacity() < uncompressedSize)
+               decompressedBlock = ByteBuffer.allocate(uncompressedSize);
+
+            decompressedBlock.clear();
+            decompressor.decompress(storedBlock, decompressedBlock, uncompressedSize);
+            decompressedBlock.position(0);
+            decompressedBlock.limit(uncompressedSize);
+            block = decompressedBlock;
+         }
+         else
+         {
+            block = storedBlock;
+         }
+      }
+
+      currentBlockOffset = blockOffset;
+      currentBlock = block;
+      return block;
+   }
+
+   private static void skipScan(ByteBuffer buffer)
+   {
+      int scanLengthPosition = buffer.position() + Long.BYTES + 7 * Float.BYTES;
+      buffer.position(scanLengthPosition + Integer.BYTES + buffer.getInt(scanLengthPosition) * Float.BYTES);
+   }
+
+   static void deserialize(ByteBuffer buffer, LidarScanMessage lidarScanMessageToPack)
+   {
+      lidarScanMessageToPack.setRobotTimestamp(buffer.getLong());
+
+      lidarScanMessageToPack.getLidarPosition().setX(buffer.getFloat());
+      lidarScanMessageToPack.getLidarPosition().setY(buffer.getFloat());
+      lidarScanMessageToPack.getLidarPosition().setZ(buffer.getFloat());
+
+      double x = buffer.getFloat();
+      double y = buffer.getFloat();
+      double z = buffer.getFloat();
+      double w = buffer.getFloat();
+      lidarScanMessageToPack.getLidarOrientation().set(x, y, z, w);
+
+      int scanLength = buffer.getInt();
+      lidarScanMessageToPack.getScan().reset();
+
+      for (int i = 0; i < scanLength; i++)
+      {
+         lidarScanMessageToPack.getScan().add(buffer.getFloat());
+      }
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+}
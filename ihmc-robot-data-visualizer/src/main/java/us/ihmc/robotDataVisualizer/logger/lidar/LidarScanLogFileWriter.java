@@ -0,0 +1,223 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import us.ihmc.tools.compression.LZ4CompressionImplementation;
+
+/**
+ * Writes lidar scans in blocks through a {@link FileChannel}.
+ * <p>
+ * The scans are serialized in a block buffer that is written, optionally compressed with LZ4, in a
+ * single call once full or when {@link #flush()} is called. When closed, an index holding the timestamp and location of every scan is
+ * appended to the file such that {@link LidarScanLogFileReader} can access any scan directly.
+ * </p>
+ * <p>
+ * File layout:
+ * <ul>
+ * <li>header: magic, version, and flags.
+ * <li>blocks: number of scans, uncompressed size, and stored size, followed by the stored bytes.
+ * Each scan is stored as: timestamp, lidar position, lidar orientation, number of points, points.
+ * <li>index: for each scan, its timestamp, the file offset of its block, and its offset in the
+ * uncompressed block.
+ * <li>footer: offset of the index, number of scans, and magic.
+ * </ul>
+ * </p>
+ */
+public class LidarScanLogFileWriter implements Closeable
+{
+   public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+   static final long MAGIC = 0x49484D434C494452L;
+   static final int VERSION = 1;
+   static final int COMPRESSED_FLAG = 1;
+   static final int HEADER_SIZE = Long.BYTES + 2 * Integer.BYTES;
+   static final int BLOCK_HEADER_SIZE = 3 * Integer.BYTES;
+   static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES + Integer.BYTES;
+   static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+   private final FileChannel channel;
+   private final LZ4CompressionImplementation compressor;
+
+   private ByteBuffer block;
+   private ByteBuffer compressedBlock;
+   private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+   private int numberOfScansInBlock = 0;
+   private long position;
+
+   private final TLongArrayList timestamps = new TLongArrayList();
+   private final TLongArrayList blockOffsets = new TLongArrayList();
+   private final TIntArrayList offsetsInBlock = new TIntArrayList();
+
+   public LidarScanLogFileWriter(File file, boolean compress) throws IOException
+   {
+      this(file, compress, DEFAULT_BLOCK_SIZE);
+   }
+
+   public LidarScanLogFileWriter(File file, boolean compress, int blockSize) throws IOException
+   {
+      if (blockSize < 1)
+         throw new IllegalArgumentException("The block size should be at least 1, was: " + blockSize);
+
+      compressor = compress ? new LZ4CompressionImplementation() : null;
+      block = ByteBuffer.allocate(blockSize);
+      compressedBlock = compress ? ByteBuffer.allocate(maxCompressedLength(blockSize)) : null;
+
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putLong(MAGIC);
+      header.putInt(VERSION);
+      header.putInt(compress ? COMPRESSED_FLAG : 0);
+      header.flip();
+      position = write(header, 0L);
+   }
+
+   /**
+    * Serializes the scan in the current block, the block is written to the file when full.
+    */
+   public void write(LidarScanMessage lidarScanMessage) throws IOException
+   {
+      int size = getSerializedSize(lidarScanMessage);
+
+      if (size > block.remaining())
+      {
+         flush();
+
+         if (size > block.capacity())
+         {
+            block = ByteBuffer.allocate(size);
+            if (compressor != null)
+               compressedBlock = ByteBuffer.allocate(maxCompressedLength(size));
+         }
+      }
+
+      timestamps.add(lidarScanMessage.getRobotTimestamp());
+      blockOffsets.add(position);
+      offsetsInBlock.add(block.position());
+
+      serialize(lidarScanMessage, block);
+      numberOfScansInBlock++;
+   }
+
+   /**
+    * Writes the current block to the file.
+    */
+   public void flush() throws IOException
+   {
+      if (numberOfScansInBlock == 0)
+         return;
+
+      block.flip();
+      int uncompressedSize = block.remaining();
+
+      ByteBuffer storedBlock;
+      if (compressor != null)
+      {
+         compressedBlock.clear();
+         int compressedSize = compressor.compress(block, compressedBlock);
+         compressedBlock.position(0);
+         compressedBlock.limit(compressedSize);
+         storedBlock = compressedBlock;
+      }
+      else
+      {
+         storedBlock = block;
+      }
+
+      blockHeader.clear();
+      blockHeader.putInt(numberOfScansInBlock);
+      blockHeader.putInt(uncompressedSize);
+      blockHeader.putInt(storedBlock.remaining());
+      blockHeader.flip();
+
+      position = write(blockHeader, position);
+      position = write(storedBlock, position);
+
+      block.clear();
+      numberOfScansInBlock = 0;
+   }
+
+   private long write(ByteBuffer buffer, long position) throws IOException
+   {
+      while (buffer.hasRemaining())
+      {
+         position += channel.write(buffer, position);
+      }
+      return position;
+   }
+
+   public int getNumberOfScans()
+   {
+      return timestamps.size();
+   }
+
+   /**
+    * Writes the remaining scans and the index, then closes the file.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      try
+      {
+         flush();
+
+         long indexOffset = position;
+         ByteBuffer index = ByteBuffer.allocate(timestamps.size() * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+         for (int i = 0; i < timestamps.size(); i++)
+         {
+            index.putLong(timestamps.get(i));
+            index.putLong(blockOffsets.get(i));
+            index.putInt(offsetsInBlock.get(i));
+         }
+         index.putLong(indexOffset);
+         index.putInt(timestamps.size());
+         index.putLong(MAGIC);
+         index.flip();
+         write(index, position);
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   static int maxCompressedLength(int length)
+   {
+      return length + length / 255 + 16;
+   }
+
+   static int getSerializedSize(LidarScanMessage lidarScanMessage)
+   {
+      return Long.BYTES + 7 * Float.BYTES + Integer.BYTES + lidarScanMessage.getScan().size() * Float.BYTES;
+   }
+
+   static void serialize(LidarScanMessage lidarScanMessage, ByteBuffer buffer)
+   {
+      buffer.putLong(lidarScanMessage.getRobotTimestamp());
+
+      buffer.putFloat(lidarScanMessage.getLidarPosition().getX32());
+      buffer.putFloat(lidarScanMessage.getLidarPosition().getY32());
+      buffer.putFloat(lidarScanMessage.getLidarPosition().getZ32());
+
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getX32());
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getY32());
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getZ32());
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getS32());
+
+      int scanLength = lidarScanMessage.getScan().size();
+      buffer.putInt(scanLength);
+
+      for (int i = 0; i < scanLength; i++)
+      {
+         buffer.putFloat(lidarScanMessage.getScan().get(i));
+      }
+   }
+}
@@ -1,16 +1,13 @@
 package us.ihmc.robotDataVisualizer.logger.lidar;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import controller_msgs.msg.dds.LidarScanMessage;
@@ -27,7 +24,7 @@ public class LidarScanLogReader
 {
    private static final boolean DEBUG = true;
 
-   private DataInputStream logDataInputStream = null;
+   private volatile LidarScanLogFileReader logFileReader = null;
 
    private final String threadName = getClass().getSimpleName();
    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(ThreadTools.getNamedThreadFactory(threadName));
@@ -42,6 +39,8 @@ public class LidarScanLogReader
    private final AtomicBoolean reloadLog = new AtomicBoolean(false);
    private final AtomicBoolean waitForListener = new AtomicBoolean(false);
    private final AtomicReference<File> currentLogFileReference = new AtomicReference<>(null);
+   private final AtomicInteger currentScanIndex = new AtomicInteger(0);
+   private volatile int numberOfScans = 0;
 
    private final AtomicBoolean receivedLidarScanRequest = new AtomicBoolean(true);
 
@@ -120,6 +119,34 @@ public class LidarScanLogReader
       lidarScanConsumer = consumer;
    }
 
+   /**
+    * Moves the reading to the given scan, the scan is published on the next read.
+    */
+   public void seek(int scanIndex)
+   {
+      currentScanIndex.set(Math.max(0, Math.min(scanIndex, numberOfScans - 1)));
+   }
+
+   /**
+    * Moves the reading to the last scan recorded at or before the given timestamp.
+    */
+   public void seekToTimestamp(long timestamp)
+   {
+      LidarScanLogFileReader reader = logFileReader;
+      if (reader != null)
+         seek(reader.getScanIndex(timestamp));
+   }
+
+   public int getCurrentScanIndex()
+   {
+      return currentScanIndex.get();
+   }
+
+   public int getNumberOfScans()
+   {
+      return numberOfScans;
+   }
+
    public String getCurrentLogFileFullName()
    {
       if (currentLogFileReference.get() == null)
@@ -145,15 +172,17 @@ public class LidarScanLogReader
 
       try
       {
-         FileInputStream fileInputStream = new FileInputStream(logFile);
-         logDataInputStream = new DataInputStream(fileInputStream);
+         logFileReader = new LidarScanLogFileReader(logFile);
+         numberOfScans = logFileReader.getNumberOfScans();
+         currentScanIndex.set(0);
          loggingEnabled.set(true);
-         LogTools.info("Reading lidar log: " + logFile.getPath());
+         LogTools.info("Reading lidar log: " + logFile.getPath() + ", " + numberOfScans + " scans.");
       }
-      catch (FileNotFoundException e)
+      catch (IOException e)
       {
          e.printStackTrace();
-         logDataInputStream = null;
+         logFileReader = null;
+         numberOfScans = 0;
          loggingEnabled.set(false);
       }
    }
@@ -169,18 +198,18 @@ public class LidarScanLogReader
       {
          if (reloadLog.get())
          {
-            closeDataInputStream();
+            closeLogFileReader();
             startReading(currentLogFileReference.get());
             reloadLog.set(false);
             return;
          }
 
-         if (pauseReading.get() || logDataInputStream == null)
+         if (pauseReading.get() || logFileReader == null)
             return;
 
          if (!loggingEnabled.get())
          {
-            closeDataInputStream();
+            closeLogFileReader();
             return;
          }
 
@@ -202,61 +231,45 @@ public class LidarScanLogReader
 
    private LidarScanMessage readMessage()
    {
-      if (!loggingEnabled.get() || logDataInputStream == null)
+      if (!loggingEnabled.get() || logFileReader == null)
          return null;
 
-      try
-      {
-         LidarScanMessage lidarScanMessage = new LidarScanMessage();
-         lidarScanMessage.setRobotTimestamp(logDataInputStream.readLong());
-
-         lidarScanMessage.getLidarPosition().setX(logDataInputStream.readFloat());
-         lidarScanMessage.getLidarPosition().setY(logDataInputStream.readFloat());
-         lidarScanMessage.getLidarPosition().setZ(logDataInputStream.readFloat());
+      int scanIndex = currentScanIndex.getAndIncrement();
 
-         double x = logDataInputStream.readFloat();
-         double y = logDataInputStream.readFloat();
-         double z = logDataInputStream.readFloat();
-         double w = logDataInputStream.readFloat();
-         lidarScanMessage.getLidarOrientation().set(x, y, z, w);
-
-         int scanLength = logDataInputStream.readInt();
-
-         for (int i = 0; i < scanLength; i++)
-         {
-            lidarScanMessage.getScan().add(logDataInputStream.readFloat());
-         }
-         return lidarScanMessage;
-      }
-      catch (EOFException e)
+      if (scanIndex >= logFileReader.getNumberOfScans())
       {
-         closeDataInputStream();
+         closeLogFileReader();
          return null;
       }
+
+      try
+      {
+         return logFileReader.read(scanIndex);
+      }
       catch (IOException e)
       {
          if (DEBUG)
             e.printStackTrace();
-         closeDataInputStream();
+         closeLogFileReader();
          return null;
       }
    }
 
-   private void closeDataInputStream()
+   private void closeLogFileReader()
    {
       try
       {
-         if (logDataInputStream != null)
+         if (logFileReader != null)
          {
-            logDataInputStream.close();
-            logDataInputStream = null;
+            logFileReader.close();
+            logFileReader = null;
             LogTools.info("Finish loading.");
             loggingEnabled.set(false);
          }
       }
       catch (IOException e)
       {
-         throw new RuntimeException("Could not close the input stream", e);
+         throw new RuntimeException("Could not close the log file", e);
       }
    }
 }
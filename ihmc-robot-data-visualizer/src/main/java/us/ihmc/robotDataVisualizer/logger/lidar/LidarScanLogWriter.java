@@ -1,16 +1,14 @@
 package us.ihmc.robotDataVisualizer.logger.lidar;
 
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import controller_msgs.msg.dds.LidarScanMessage;
 import us.ihmc.commons.thread.ThreadTools;
@@ -23,14 +21,25 @@ import us.ihmc.ros2.ROS2Subscription;
 public class LidarScanLogWriter
 {
    private static final boolean DEBUG = false;
-
-   private DataOutputStream logDataOutputStream = null;
+   /** Period at which the queued messages are written to the log. */
+   private static final long WRITING_PERIOD_IN_MILLISECONDS = 10L;
+   /** Maximum number of messages waiting to be written, newer messages are dropped beyond. */
+   static final int MAXIMUM_QUEUE_SIZE = 1000;
+   /** Maximum time scans are kept in the open block, bounds the scans lost if the process dies. */
+   static final long MAXIMUM_BLOCK_DURATION_IN_NANOSECONDS = TimeUnit.SECONDS.toNanos(1L);
+
+   private LidarScanLogFileWriter logFileWriter = null;
+   private boolean compressLog = true;
+   private boolean isBlockOpen = false;
+   private long blockStartTime;
 
    private final String threadName = getClass().getSimpleName();
    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(ThreadTools.getNamedThreadFactory(threadName));
    private ScheduledFuture<?> currentLoggingTask = null;
 
-   private final AtomicReference<LidarScanMessage> newMessage = new AtomicReference<>(null);
+   private final ConcurrentLinkedQueue<LidarScanMessage> messageQueue = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger queueSize = new AtomicInteger(0);
+   private final AtomicInteger numberOfDroppedMessages = new AtomicInteger(0);
    private PacketConsumer<LidarScanMessage> lidarScanConsumer = null;
 
    private final AtomicBoolean loggingEnabled = new AtomicBoolean(false);
@@ -55,7 +64,7 @@ public class LidarScanLogWriter
       }
 
       if (currentLoggingTask == null)
-         currentLoggingTask = executorService.scheduleAtFixedRate(this::writeData, 0L, 1L, TimeUnit.MILLISECONDS);
+         currentLoggingTask = executorService.scheduleAtFixedRate(this::writeData, 0L, WRITING_PERIOD_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
    }
 
    public void disconnectFromNetworkProcessor()
@@ -96,6 +105,19 @@ public class LidarScanLogWriter
       lidarScanConsumer = consumer;
    }
 
+   /**
+    * Sets whether the blocks of the next recordings are compressed with LZ4, enabled by default.
+    */
+   public void setCompressLog(boolean compressLog)
+   {
+      this.compressLog = compressLog;
+   }
+
+   public int getNumberOfDroppedMessages()
+   {
+      return numberOfDroppedMessages.get();
+   }
+
    public void startWriting(File logFile)
    {
       if (loggingEnabled.get())
@@ -106,22 +128,47 @@ public class LidarScanLogWriter
 
       try
       {
-         FileOutputStream fileOutputStream = new FileOutputStream(logFile);
-         logDataOutputStream = new DataOutputStream(fileOutputStream);
-         loggingEnabled.set(true);
+         // The file is opened by the writing thread such that the previous recording is closed first.
+         executorService.submit(() ->
+         {
+            closeLogFileWriter();
+            logFileWriter = new LidarScanLogFileWriter(logFile, compressLog);
+            loggingEnabled.set(true);
+            return null;
+         }).get();
          LogTools.info("Recording lidar log: " + logFile.getPath());
       }
-      catch (FileNotFoundException e)
+      catch (Exception e)
       {
          e.printStackTrace();
-         logDataOutputStream = null;
          loggingEnabled.set(false);
       }
    }
 
+   /**
+    * Writes the scans that are still queued and closes the log file.
+    */
    public void stopWriting()
    {
-      loggingEnabled.set(false);
+      if (!loggingEnabled.get())
+         return;
+
+      try
+      {
+         // The scans are written by the writing thread, such that they are not interleaved with its periodic writes.
+         executorService.submit(() ->
+         {
+            writeQueuedMessages(System.nanoTime());
+            loggingEnabled.set(false);
+            closeLogFileWriter();
+            return null;
+         }).get();
+      }
+      catch (Exception e)
+      {
+         LogTools.error("Error finishing the lidar log: " + e.getMessage());
+         loggingEnabled.set(false);
+      }
    }
 
    private void writeData()
@@ -129,71 +176,119 @@ public class LidarScanLogWriter
       if (subscription == null)
          return;
 
-      LidarScanMessage lidarScanMessage = newMessage.getAndSet(null);
+      // An exception thrown out of the task would silently cancel all the next runs.
+      try
+      {
+         writeQueuedMessages(System.nanoTime());
+      }
+      catch (Exception e)
+      {
+         LogTools.error("Error writing the lidar log: " + e.getMessage());
+      }
+   }
 
+   /**
+    * Writes the queued messages, and writes the open block to the file once it has been open for
+    * {@link #MAXIMUM_BLOCK_DURATION_IN_NANOSECONDS}.
+    *
+    * @param currentTime the current time in nanoseconds, as given by {@link System#nanoTime()}.
+    */
+   void writeQueuedMessages(long currentTime)
+   {
       if (!loggingEnabled.get())
-         closeDataOutputStream();
+         closeLogFileWriter();
 
-      if (lidarScanMessage == null)
-         return;
+      LidarScanMessage lidarScanMessage;
+      LidarScanMessage latestMessage = null;
 
-      writeMessage(lidarScanMessage);
-      lidarScanConsumer.receivedPacket(lidarScanMessage);
+      while ((lidarScanMessage = messageQueue.poll()) != null)
+      {
+         queueSize.decrementAndGet();
+         writeMessage(lidarScanMessage, currentTime);
+         latestMessage = lidarScanMessage;
+      }
+
+      if (isBlockOpen && currentTime - blockStartTime >= MAXIMUM_BLOCK_DURATION_IN_NANOSECONDS)
+         flushLogFileWriter();
+
+      // Only the latest message is forwarded, the consumer is used for visualization.
+      if (latestMessage != null && lidarScanConsumer != null)
+         lidarScanConsumer.receivedPacket(latestMessage);
    }
 
-   private void closeDataOutputStream()
+   private void closeLogFileWriter()
    {
+      isBlockOpen = false;
+
       try
       {
-         if (logDataOutputStream != null)
+         if (logFileWriter != null)
          {
-            logDataOutputStream.close();
-            logDataOutputStream = null;
-            LogTools.info("Finish recording.");
+            logFileWriter.close();
+            LogTools.info("Finish recording, " + logFileWriter.getNumberOfScans() + " scans recorded.");
+            logFileWriter = null;
          }
       }
       catch (IOException e)
       {
-         throw new RuntimeException("Could not close the output stream", e);
+         logFileWriter = null;
+         throw new RuntimeException("Could not close the log file", e);
       }
    }
 
-   private void writeMessage(LidarScanMessage lidarScanMessage)
+   private void writeMessage(LidarScanMessage lidarScanMessage, long currentTime)
    {
-      if (!loggingEnabled.get() || logDataOutputStream == null)
+      if (!loggingEnabled.get() || logFileWriter == null)
          return;
 
       try
       {
-         logDataOutputStream.writeLong(lidarScanMessage.getRobotTimestamp());
+         logFileWriter.write(lidarScanMessage);
 
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarPosition().getX32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarPosition().getY32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarPosition().getZ32());
+         if (!isBlockOpen)
+         {
+            isBlockOpen = true;
+            blockStartTime = currentTime;
+         }
+      }
+      catch (IOException e)
+      {
+         if (DEBUG)
+            e.printStackTrace();
+         loggingEnabled.set(false);
+         closeLogFileWriter();
+      }
+   }
 
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getX32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getY32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getZ32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getS32());
+   private void flushLogFileWriter()
+   {
+      isBlockOpen = false;
 
-         logDataOutputStream.writeInt(lidarScanMessage.getScan().size());
+      if (logFileWriter == null)
+         return;
 
-         for (float scanPoint : lidarScanMessage.getScan().toArray())
-         {
-            logDataOutputStream.writeFloat(scanPoint);
-         }
+      try
+      {
+         logFileWriter.flush();
       }
       catch (IOException e)
       {
          if (DEBUG)
             e.printStackTrace();
-         closeDataOutputStream();
          loggingEnabled.set(false);
+         closeLogFileWriter();
       }
    }
 
-   private void receiveLidarScanMessage(LidarScanMessage message)
+   void receiveLidarScanMessage(LidarScanMessage message)
    {
-      newMessage.set(message);
+      if (queueSize.incrementAndGet() > MAXIMUM_QUEUE_SIZE)
+      {
+         queueSize.decrementAndGet();
+         numberOfDroppedMessages.incrementAndGet();
+         return;
+      }
+
+      messageQueue.offer(message);
    }
 }
@@ -12,6 +12,7 @@ import us.ihmc.modelFileLoaders.SdfLoader.SDFModelLoader;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
 import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog;
 import us.ihmc.robotDataVisualizer.logger.converters.LogFormatUpdater;
 import us.ihmc.robotics.robotDescription.RobotDescription;
 import us.ihmc.yoVariables.variable.YoVariable;
@@ -86,8 +87,12 @@ public class LogCrawler implements Runnable
 
       YoVariable[] yoVariablesToUpdate = playbackListener.getYovariablesToUpdate(parser.getRootRegistry(), robotDescription);
       
+      YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(selectedFile);
+      if (columnarLog != null)
+         System.out.println("Reading variables from the columnar log " + YoVariableColumnarLog.getDefaultFile(selectedFile));
+
       robot = new SpecificLogVariableUpdater(selectedFile, robotDescription, parser.getJointStates(), parser.getYoVariablesList(), logProperties,
-            yoVariablesToUpdate);
+            columnarLog, yoVariablesToUpdate);
       dt = parser.getDt();
    }
 
@@ -14,6 +14,7 @@ import us.ihmc.commons.Conversions;
 import us.ihmc.robotDataLogger.LogIndex;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog;
 import us.ihmc.yoVariables.registry.YoRegistry;
 import us.ihmc.yoVariables.variable.YoDouble;
 import us.ihmc.yoVariables.variable.YoLong;
@@ -44,9 +45,25 @@ public class SpecificLogVariableUpdater
    private YoVariable[] variablesToUpdate;
    private final HashMap<YoVariable, AtomicInteger> indexes = new HashMap<>();
 
+   // Columnar data helpers, only the columns of the variables to update are read.
+   private final YoVariableColumnarLog columnarLog;
+   private final int[] columnIndices;
+
    public SpecificLogVariableUpdater(File selectedFile, RobotDescription robotDescription,
          List<JointState> jointStates, List<YoVariable> variables, LogPropertiesReader logProperties, YoVariable... variablesToUpdate )
          throws IOException
+   {
+      this(selectedFile, robotDescription, jointStates, variables, logProperties, null, variablesToUpdate);
+   }
+
+   /**
+    * @param columnarLog the columnar store of the log, can be {@code null}. When provided, the
+    *                    variables to update are read from their columns instead of decoding every
+    *                    log line.
+    */
+   public SpecificLogVariableUpdater(File selectedFile, RobotDescription robotDescription, List<JointState> jointStates, List<YoVariable> variables,
+                                     LogPropertiesReader logProperties, YoVariableColumnarLog columnarLog, YoVariable... variablesToUpdate)
+         throws IOException
    {
       this.variables = variables;
       this.variablesToUpdate = variablesToUpdate;
@@ -107,6 +124,22 @@ public class SpecificLogVariableUpdater
       }
       
       getIndexes();
+
+      this.columnarLog = columnarLog;
+      if (columnarLog != null)
+      {
+         columnIndices = new int[variablesToUpdate.length];
+         for (int i = 0; i < variablesToUpdate.length; i++)
+         {
+            columnIndices[i] = columnarLog.getColumnIndex(variablesToUpdate[i].getFullNameString());
+            if (columnIndices[i] == -1)
+               throw new RuntimeException("Cannot find the column of " + variablesToUpdate[i].getFullNameString());
+         }
+      }
+      else
+      {
+         columnIndices = null;
+      }
    }
 
    public void getIndexes()
@@ -128,6 +161,9 @@ public class SpecificLogVariableUpdater
 
    public boolean readAndProcessALogLineReturnTrueIfDone(double DT)
    {
+      if (columnarLog != null)
+         return readColumnsReturnTrueIfDone();
+
       try
       {
          if (!readLogLine())
@@ -154,6 +190,25 @@ public class SpecificLogVariableUpdater
       return false;
    }
 
+   private boolean readColumnsReturnTrueIfDone()
+   {
+      if (index >= columnarLog.getNumberOfEntries())
+      {
+         return true;
+      }
+
+      timestamp.set(columnarLog.getTimestamp(index));
+      robotTime.set(Conversions.nanosecondsToSeconds(timestamp.getLongValue() - initialTimestamp));
+
+      for (int i = 0; i < variablesToUpdate.length; i++)
+      {
+         variablesToUpdate[i].setValueFromLongBits(columnarLog.getRawValue(columnIndices[i], index), false);
+      }
+
+      ++index;
+      return false;
+   }
+
    private void positionChannel(int position) throws IOException
    {
       if (compressed)
@@ -219,6 +274,8 @@ public class SpecificLogVariableUpdater
    
    public int getNumberOfEntries()
    {
+      if (columnarLog != null)
+         return columnarLog.getNumberOfEntries();
       return logIndex.getNumberOfEntries();
    }
 
@@ -227,6 +284,8 @@ public class SpecificLogVariableUpdater
       try
       {
          logChannel.close();
+         if (columnarLog != null)
+            columnarLog.close();
       }
       catch (IOException e)
       {
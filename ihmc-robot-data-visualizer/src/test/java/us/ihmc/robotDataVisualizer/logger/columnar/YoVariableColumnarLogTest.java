@@ -0,0 +1,379 @@
+package us.ihmc.robotDataVisualizer.logger.columnar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.logger.LogPropertiesWriter;
+import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.robotDataVisualizer.logger.columnar.YoVariableColumnarLog.ColumnType;
+import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.registry.YoRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoLong;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class YoVariableColumnarLogTest
+{
+   private static final String[] columnNames = {"root.controller.q_x", "root.controller.tick", "root.controller.isInContact"};
+   private static final ColumnType[] columnTypes = {ColumnType.DOUBLE, ColumnType.LONG, ColumnType.BOOLEAN};
+
+   private File directory;
+
+   @BeforeEach
+   public void setup() throws IOException
+   {
+      directory = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+   }
+
+   @AfterEach
+   public void tearDown()
+   {
+      for (File file : directory.listFiles())
+         file.delete();
+      directory.delete();
+   }
+
+   @Test
+   public void testWriteAndRead() throws IOException
+   {
+      Random random = new Random(4592);
+      int numberOfEntries = 1000;
+      long[][] rows = createRows(random, numberOfEntries);
+
+      File file = new File(directory, YoVariableColumnarLog.defaultFileName);
+      write(file, rows, 64);
+
+      try (YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(directory))
+      {
+         assertEquals(numberOfEntries, columnarLog.getNumberOfEntries());
+         assertEquals(columnNames.length, columnarLog.getNumberOfColumns());
+         assertEquals(16, columnarLog.getNumberOfChunks());
+
+         for (int column = 0; column < columnNames.length; column++)
+         {
+            assertEquals(columnNames[column], columnarLog.getColumnName(column));
+            assertEquals(columnTypes[column], columnarLog.getColumnType(column));
+            assertEquals(column, columnarLog.getColumnIndex(columnNames[column]));
+         }
+         assertEquals(-1, columnarLog.getColumnIndex("root.controller.unknown"));
+
+         for (int entry = 0; entry < numberOfEntries; entry++)
+         {
+            assertEquals(rows[entry][0], columnarLog.getTimestamp(entry));
+            for (int column = 0; column < columnNames.length; column++)
+            {
+               assertEquals(rows[entry][column + 1], columnarLog.getRawValue(column, entry));
+            }
+            assertEquals(Double.longBitsToDouble(rows[entry][1]), columnarLog.getValue(0, entry));
+         }
+
+         for (int chunk = 0; chunk < columnarLog.getNumberOfChunks(); chunk++)
+         {
+            double minimum = Double.POSITIVE_INFINITY;
+            double maximum = Double.NEGATIVE_INFINITY;
+            for (int entry = chunk * 64; entry < Math.min(numberOfEntries, (chunk + 1) * 64); entry++)
+            {
+               minimum = Math.min(minimum, columnarLog.getValue(0, entry));
+               maximum = Math.max(maximum, columnarLog.getValue(0, entry));
+            }
+            assertEquals(minimum, columnarLog.getChunkMinimum(0, chunk));
+            assertEquals(maximum, columnarLog.getChunkMaximum(0, chunk));
+         }
+      }
+   }
+
+   @Test
+   public void testSearch() throws IOException
+   {
+      Random random = new Random(7823);
+      int numberOfEntries = 500;
+      long[][] rows = createRows(random, numberOfEntries);
+
+      File file = new File(directory, YoVariableColumnarLog.defaultFileName);
+      write(file, rows, 32);
+
+      try (YoVariableColumnarLog columnarLog = new YoVariableColumnarLog(file))
+      {
+         for (int i = 0; i < 100; i++)
+         {
+            int firstEntry = random.nextInt(numberOfEntries);
+            double lowerBound = -1.0 + 2.0 * random.nextDouble();
+            double upperBound = lowerBound + 0.01 * random.nextDouble();
+
+            int expected = -1;
+            for (int entry = firstEntry; entry < numberOfEntries; entry++)
+            {
+               double value = Double.longBitsToDouble(rows[entry][1]);
+               if (value >= lowerBound && value <= upperBound)
+               {
+                  expected = entry;
+                  break;
+               }
+            }
+
+            assertEquals(expected, columnarLog.findFirst(0, firstEntry, lowerBound, upperBound));
+         }
+
+         assertEquals(0, columnarLog.getPosition(rows[0][0] - 1));
+         assertEquals(numberOfEntries - 1, columnarLog.getPosition(Long.MAX_VALUE));
+         for (int entry = 0; entry < numberOfEntries; entry++)
+         {
+            assertEquals(entry, columnarLog.getPosition(rows[entry][0]));
+            assertEquals(entry, columnarLog.getPosition(rows[entry][0] + 1));
+         }
+      }
+   }
+
+   @Test
+   public void testCrop() throws IOException
+   {
+      Random random = new Random(2390);
+      int numberOfEntries = 300;
+      long[][] rows = createRows(random, numberOfEntries);
+
+      File file = new File(directory, YoVariableColumnarLog.defaultFileName);
+      File croppedFile = new File(directory, "cropped.columns");
+      write(file, rows, 50);
+
+      int firstEntry = 37;
+      int lastEntry = 211;
+
+      try (YoVariableColumnarLog columnarLog = new YoVariableColumnarLog(file))
+      {
+         columnarLog.crop(croppedFile, firstEntry, lastEntry);
+         assertThrows(IllegalArgumentException.class, () -> columnarLog.crop(croppedFile, 10, numberOfEntries));
+      }
+
+      try (YoVariableColumnarLog croppedLog = new YoVariableColumnarLog(croppedFile))
+      {
+         assertEquals(lastEntry - firstEntry + 1, croppedLog.getNumberOfEntries());
+         assertEquals(50, croppedLog.getChunkSize());
+
+         for (int entry = 0; entry < croppedLog.getNumberOfEntries(); entry++)
+         {
+            assertEquals(rows[firstEntry + entry][0], croppedLog.getTimestamp(entry));
+            for (int column = 0; column < columnNames.length; column++)
+            {
+               assertEquals(rows[firstEntry + entry][column + 1], croppedLog.getRawValue(column, entry));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testIncompleteLog() throws IOException
+   {
+      File file = new File(directory, YoVariableColumnarLog.defaultFileName);
+      YoVariableColumnarLogWriter writer = new YoVariableColumnarLogWriter(file, columnNames, columnTypes, 10, 4);
+      writer.appendEntry(0L, LongBuffer.wrap(new long[columnNames.length]));
+
+      assertThrows(IOException.class, writer::close);
+      assertFalse(file.exists());
+      assertFalse(new File(directory, file.getName() + YoVariableColumnarLogWriter.TEMPORARY_FILE_EXTENSION).exists());
+      assertNull(YoVariableColumnarLog.openIfExists(directory));
+   }
+
+   @Test
+   public void testInterruptedConversionKeepsPreviousLog() throws IOException
+   {
+      Random random = new Random(3381);
+      long[][] rows = createRows(random, 100);
+
+      File file = new File(directory, YoVariableColumnarLog.defaultFileName);
+      write(file, rows, 16);
+
+      YoVariableColumnarLogWriter writer = new YoVariableColumnarLogWriter(file, columnNames, columnTypes, 200, 16);
+      for (int entry = 0; entry < 150; entry++)
+         writer.appendEntry(entry, LongBuffer.wrap(new long[columnNames.length]));
+
+      // The entries being written are not visible until the writer is closed.
+      try (YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(directory))
+      {
+         assertEquals(rows.length, columnarLog.getNumberOfEntries());
+      }
+
+      assertThrows(IOException.class, writer::close);
+
+      try (YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(directory))
+      {
+         assertEquals(rows.length, columnarLog.getNumberOfEntries());
+         assertEquals(rows[rows.length - 1][0], columnarLog.getTimestamp(rows.length - 1));
+      }
+   }
+
+   @Test
+   public void testConverterRoundTrip() throws IOException
+   {
+      Random random = new Random(6104);
+      int numberOfEntries = 700;
+      int numberOfJointStates = 2;
+
+      YoRegistry registry = new YoRegistry("root");
+      List<YoVariable> variables = Arrays.asList(new YoDouble("q_x", registry), new YoLong("tick", registry), new YoBoolean("isInContact", registry));
+
+      long[][] rows = createRows(random, numberOfEntries);
+      for (int entry = 0; entry < numberOfEntries; entry++)
+      {
+         rows[entry] = Arrays.copyOf(rows[entry], rows[entry].length + numberOfJointStates);
+         for (int jointState = 0; jointState < numberOfJointStates; jointState++)
+            rows[entry][variables.size() + 1 + jointState] = Double.doubleToLongBits(random.nextDouble());
+      }
+
+      LogProperties logProperties = writeLog(directory, rows);
+      YoVariableColumnarLogConverter converter = new YoVariableColumnarLogConverter(directory, logProperties, variables);
+      assertTrue(converter.convert(new NullProgressMonitor()));
+
+      try (YoVariableColumnarLog columnarLog = YoVariableColumnarLog.openIfExists(directory))
+      {
+         assertEquals(numberOfEntries, columnarLog.getNumberOfEntries());
+         assertEquals(variables.size() + numberOfJointStates, columnarLog.getNumberOfColumns());
+
+         for (int column = 0; column < variables.size(); column++)
+         {
+            assertEquals(variables.get(column).getFullNameString(), columnarLog.getColumnName(column));
+            assertEquals(columnTypes[column], columnarLog.getColumnType(column));
+         }
+         for (int jointState = 0; jointState < numberOfJointStates; jointState++)
+         {
+            assertEquals("jointState" + jointState, columnarLog.getColumnName(variables.size() + jointState));
+            assertEquals(ColumnType.DOUBLE, columnarLog.getColumnType(variables.size() + jointState));
+         }
+
+         for (int entry = 0; entry < numberOfEntries; entry++)
+         {
+            assertEquals(rows[entry][0], columnarLog.getTimestamp(entry));
+            for (int column = 0; column < columnarLog.getNumberOfColumns(); column++)
+            {
+               assertEquals(rows[entry][column + 1], columnarLog.getRawValue(column, entry));
+            }
+         }
+      }
+   }
+
+   private static long[][] createRows(Random random, int numberOfEntries)
+   {
+      long[][] rows = new long[numberOfEntries][columnNames.length + 1];
+      long timestamp = random.nextInt(1000000);
+
+      for (int entry = 0; entry < numberOfEntries; entry++)
+      {
+         timestamp += 1000 + random.nextInt(1000);
+         rows[entry][0] = timestamp;
+         rows[entry][1] = Double.doubleToLongBits(-1.0 + 2.0 * random.nextDouble());
+         rows[entry][2] = entry;
+         rows[entry][3] = random.nextBoolean() ? 1L : 0L;
+      }
+
+      return rows;
+   }
+
+   /**
+    * Writes the rows as the variable data of a log: each entry is compressed and indexed by its
+    * timestamp and offset in the data file.
+    */
+   private static LogProperties writeLog(File logDirectory, long[][] rows) throws IOException
+   {
+      LogPropertiesWriter logProperties = new LogPropertiesWriter(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+      logProperties.getVariables().setData("robotData.bsz");
+      logProperties.getVariables().setIndex("robotData.dat");
+      logProperties.getVariables().setCompressed(true);
+      logProperties.getVariables().setTimestamped(true);
+      logProperties.store();
+
+      ByteBuffer entry = ByteBuffer.allocate(rows[0].length * Long.BYTES);
+      ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(entry.capacity()));
+      ByteBuffer indexLine = ByteBuffer.allocate(2 * Long.BYTES);
+
+      try (FileChannel dataChannel = FileChannel.open(new File(logDirectory, "robotData.bsz").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileChannel indexChannel = FileChannel.open(new File(logDirectory, "robotData.dat").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+      {
+         for (long[] row : rows)
+         {
+            entry.clear();
+            entry.asLongBuffer().put(row);
+            compressed.clear();
+            SnappyUtils.compress(entry, compressed);
+            compressed.flip();
+
+            indexLine.clear();
+            indexLine.putLong(row[0]);
+            indexLine.putLong(dataChannel.position());
+            indexLine.flip();
+
+            indexChannel.write(indexLine);
+            dataChannel.write(compressed);
+         }
+      }
+
+      return logProperties;
+   }
+
+   private static void write(File file, long[][] rows, int chunkSize) throws IOException
+   {
+      try (YoVariableColumnarLogWriter writer = new YoVariableColumnarLogWriter(file, columnNames, columnTypes, rows.length, chunkSize))
+      {
+         for (long[] row : rows)
+         {
+            LongBuffer values = LongBuffer.wrap(row);
+            values.position(1);
+            writer.appendEntry(row[0], values);
+         }
+      }
+   }
+
+   private static class NullProgressMonitor implements ProgressMonitorInterface
+   {
+      @Override
+      public void setNote(String note)
+      {
+      }
+
+      @Override
+      public void setProgress(int i)
+      {
+      }
+
+      @Override
+      public PrintStream getPrintStream()
+      {
+         return System.out;
+      }
+
+      @Override
+      public void close()
+      {
+      }
+
+      @Override
+      public void setError(String string)
+      {
+      }
+
+      @Override
+      public void initialize(String message, String note, int min, int max)
+      {
+      }
+   }
+}
@@ -0,0 +1,219 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+
+public class LidarScanLogFileTest
+{
+   private File directory;
+
+   @BeforeEach
+   public void setup() throws IOException
+   {
+      directory = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+   }
+
+   @AfterEach
+   public void tearDown()
+   {
+      for (File file : directory.listFiles())
+         file.delete();
+      directory.delete();
+   }
+
+   @Test
+   public void testWriteAndReadCompressed() throws IOException
+   {
+      testWriteAndRead(true);
+   }
+
+   @Test
+   public void testWriteAndReadUncompressed() throws IOException
+   {
+      testWriteAndRead(false);
+   }
+
+   private void testWriteAndRead(boolean compress) throws IOException
+   {
+      Random random = new Random(6743);
+      List<LidarScanMessage> messages = createMessages(random, 200);
+      File file = new File(directory, "lidar.log");
+
+      try (LidarScanLogFileWriter writer = new LidarScanLogFileWriter(file, compress, 8192))
+      {
+         for (LidarScanMessage message : messages)
+            writer.write(message);
+         assertEquals(messages.size(), writer.getNumberOfScans());
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertEquals(compress, reader.isCompressed());
+         assertEquals(messages.size(), reader.getNumberOfScans());
+
+         for (int i = 0; i < messages.size(); i++)
+            assertScanEquals(messages.get(i), reader.read(i));
+
+         // Random access, jumping back and forth between blocks.
+         LidarScanMessage scan = new LidarScanMessage();
+         for (int i = 0; i < 100; i++)
+         {
+            int scanIndex = random.nextInt(messages.size());
+            reader.read(scanIndex, scan);
+            assertScanEquals(messages.get(scanIndex), scan);
+         }
+      }
+   }
+
+   @Test
+   public void testGetScanIndex() throws IOException
+   {
+      Random random = new Random(2348);
+      List<LidarScanMessage> messages = createMessages(random, 50);
+      File file = new File(directory, "lidar.log");
+
+      try (LidarScanLogFileWriter writer = new LidarScanLogFileWriter(file, true))
+      {
+         for (LidarScanMessage message : messages)
+            writer.write(message);
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertEquals(0, reader.getScanIndex(messages.get(0).getRobotTimestamp() - 1));
+         assertEquals(messages.size() - 1, reader.getScanIndex(Long.MAX_VALUE));
+
+         for (int i = 0; i < messages.size(); i++)
+         {
+            long timestamp = messages.get(i).getRobotTimestamp();
+            assertEquals(timestamp, reader.getTimestamp(i));
+            assertEquals(i, reader.getScanIndex(timestamp));
+            assertEquals(i, reader.getScanIndex(timestamp + 1));
+         }
+      }
+   }
+
+   @Test
+   public void testRebuildIndexOfInterruptedRecording() throws IOException
+   {
+      Random random = new Random(9812);
+      List<LidarScanMessage> messages = createMessages(random, 100);
+      File file = new File(directory, "lidar.log");
+      long endOfLastCompleteBlock;
+
+      LidarScanLogFileWriter writer = new LidarScanLogFileWriter(file, true, 4096);
+      for (LidarScanMessage message : messages)
+         writer.write(message);
+      writer.flush();
+      endOfLastCompleteBlock = file.length();
+      writer.close();
+
+      // Remove the index and footer, then append a truncated block.
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+      {
+         randomAccessFile.setLength(endOfLastCompleteBlock);
+         randomAccessFile.seek(endOfLastCompleteBlock);
+         randomAccessFile.writeInt(3);
+         randomAccessFile.writeInt(1000);
+         randomAccessFile.writeInt(500);
+         randomAccessFile.write(new byte[20]);
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertTrue(reader.isCompressed());
+         assertEquals(messages.size(), reader.getNumberOfScans());
+
+         for (int i = messages.size() - 1; i >= 0; i--)
+            assertScanEquals(messages.get(i), reader.read(i));
+      }
+   }
+
+   @Test
+   public void testReadLegacyLog() throws IOException
+   {
+      Random random = new Random(1234);
+      List<LidarScanMessage> messages = createMessages(random, 30);
+      File file = new File(directory, "lidar.log");
+
+      try (DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(file)))
+      {
+         for (LidarScanMessage message : messages)
+         {
+            outputStream.writeLong(message.getRobotTimestamp());
+            outputStream.writeFloat(message.getLidarPosition().getX32());
+            outputStream.writeFloat(message.getLidarPosition().getY32());
+            outputStream.writeFloat(message.getLidarPosition().getZ32());
+            outputStream.writeFloat(message.getLidarOrientation().getX32());
+            outputStream.writeFloat(message.getLidarOrientation().getY32());
+            outputStream.writeFloat(message.getLidarOrientation().getZ32());
+            outputStream.writeFloat(message.getLidarOrientation().getS32());
+            outputStream.writeInt(message.getScan().size());
+            for (int i = 0; i < message.getScan().size(); i++)
+               outputStream.writeFloat(message.getScan().get(i));
+         }
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertFalse(reader.isCompressed());
+         assertEquals(messages.size(), reader.getNumberOfScans());
+
+         for (int i = messages.size() - 1; i >= 0; i--)
+            assertScanEquals(messages.get(i), reader.read(i));
+      }
+   }
+
+   private static List<LidarScanMessage> createMessages(Random random, int numberOfMessages)
+   {
+      List<LidarScanMessage> messages = new ArrayList<>();
+      long timestamp = random.nextInt(1000000);
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         LidarScanMessage message = new LidarScanMessage();
+         timestamp += 1000 + random.nextInt(1000);
+         message.setRobotTimestamp(timestamp);
+         message.getLidarPosition().set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+         message.getLidarOrientation().set(0.5, 0.5, 0.5, 0.5);
+
+         int scanLength = 3 * random.nextInt(200);
+         for (int j = 0; j < scanLength; j++)
+            message.getScan().add(random.nextFloat());
+
+         messages.add(message);
+      }
+
+      return messages;
+   }
+
+   private static void assertScanEquals(LidarScanMessage expected, LidarScanMessage actual)
+   {
+      assertEquals(expected.getRobotTimestamp(), actual.getRobotTimestamp());
+      assertEquals(expected.getLidarPosition().getX32(), actual.getLidarPosition().getX32());
+      assertEquals(expected.getLidarPosition().getY32(), actual.getLidarPosition().getY32());
+      assertEquals(expected.getLidarPosition().getZ32(), actual.getLidarPosition().getZ32());
+      assertEquals(expected.getLidarOrientation().getS32(), actual.getLidarOrientation().getS32());
+      assertEquals(expected.getScan().size(), actual.getScan().size());
+
+      for (int i = 0; i < expected.getScan().size(); i++)
+         assertEquals(expected.getScan().get(i), actual.getScan().get(i));
+   }
+}
@@ -0,0 +1,122 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+
+public class LidarScanLogWriterTest
+{
+   private File directory;
+   private LidarScanLogWriter logWriter;
+
+   @BeforeEach
+   public void setup() throws IOException
+   {
+      directory = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+      // Not connected, the test drives the writing instead of the executor.
+      logWriter = new LidarScanLogWriter(null);
+   }
+
+   @AfterEach
+   public void tearDown()
+   {
+      logWriter.stopWriting();
+      logWriter.writeQueuedMessages(0L);
+      logWriter.stopExecutor();
+
+      for (File file : directory.listFiles())
+         file.delete();
+      directory.delete();
+   }
+
+   @Test
+   public void testFullQueueDropsNewestMessages()
+   {
+      List<LidarScanMessage> receivedMessages = new ArrayList<>();
+      logWriter.setLidarScanMessageConsumer(receivedMessages::add);
+
+      int numberOfExtraMessages = 10;
+      for (int i = 0; i < LidarScanLogWriter.MAXIMUM_QUEUE_SIZE + numberOfExtraMessages; i++)
+         logWriter.receiveLidarScanMessage(createMessage(i));
+
+      assertEquals(numberOfExtraMessages, logWriter.getNumberOfDroppedMessages());
+
+      logWriter.writeQueuedMessages(0L);
+      // The oldest messages are kept, so the latest one forwarded is the last that fit in the queue.
+      assertEquals(1, receivedMessages.size());
+      assertEquals(LidarScanLogWriter.MAXIMUM_QUEUE_SIZE - 1, receivedMessages.get(0).getRobotTimestamp());
+
+      // Once drained, the queue accepts messages again.
+      logWriter.receiveLidarScanMessage(createMessage(-1));
+      assertEquals(numberOfExtraMessages, logWriter.getNumberOfDroppedMessages());
+      logWriter.writeQueuedMessages(0L);
+      assertEquals(-1, receivedMessages.get(1).getRobotTimestamp());
+   }
+
+   @Test
+   public void testOpenBlockIsWrittenAfterMaximumDuration() throws IOException
+   {
+      File file = new File(directory, "lidar.log");
+      logWriter.startWriting(file);
+
+      for (int i = 0; i < 5; i++)
+         logWriter.receiveLidarScanMessage(createMessage(i));
+      logWriter.writeQueuedMessages(0L);
+
+      // The block is still open, an interrupted recording would not contain the scans.
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertEquals(0, reader.getNumberOfScans());
+      }
+
+      for (int i = 5; i < 10; i++)
+         logWriter.receiveLidarScanMessage(createMessage(i));
+      logWriter.writeQueuedMessages(LidarScanLogWriter.MAXIMUM_BLOCK_DURATION_IN_NANOSECONDS);
+
+      // The index is only written when closing, the reader rebuilds it from the blocks.
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertEquals(10, reader.getNumberOfScans());
+         for (int i = 0; i < 10; i++)
+            assertEquals(i, reader.getTimestamp(i));
+      }
+   }
+
+   @Test
+   public void testStopWritingWritesQueuedScans() throws IOException
+   {
+      File file = new File(directory, "lidar.log");
+      logWriter.startWriting(file);
+
+      for (int i = 0; i < 5; i++)
+         logWriter.receiveLidarScanMessage(createMessage(i));
+      logWriter.stopWriting();
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(file))
+      {
+         assertEquals(5, reader.getNumberOfScans());
+         for (int i = 0; i < 5; i++)
+            assertEquals(i, reader.getTimestamp(i));
+      }
+   }
+
+   private static LidarScanMessage createMessage(long timestamp)
+   {
+      LidarScanMessage message = new LidarScanMessage();
+      message.setRobotTimestamp(timestamp);
+      message.getLidarOrientation().set(0.0, 0.0, 0.0, 1.0);
+      for (int i = 0; i < 30; i++)
+         message.getScan().add(i);
+      return message;
+   }
+}
@@ -52,3 +52,10 @@ testDependencies {
    api("us.ihmc:ihmc-commons-testing:0.30.3")
    api("us.ihmc:ihmc-matrix-library-test:0.17.0")
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+
+   api("org.openjdk.jmh:jmh-core:1.25")
+   "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.25")
+}
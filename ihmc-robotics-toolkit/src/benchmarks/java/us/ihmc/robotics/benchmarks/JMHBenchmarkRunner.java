@@ -0,0 +1,60 @@
+package us.ihmc.robotics.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs JMH benchmarks with the settings shared by all benchmark source sets: throughput mode, the GC profiler to report allocation rates,
+ * and JSON results so runs can be compared between commits.
+ *
+ * Any regular JMH command line option can be passed in {@code args} and takes precedence over these defaults, for example
+ * {@code -f 1 -wi 3 -i 5 -p environment=CORRIDOR -rf csv -rff results.csv}.
+ */
+public class JMHBenchmarkRunner
+{
+   public static final String RESULTS_FILE_SUFFIX = "-jmh.json";
+
+   /**
+    * Runs the benchmarks declared in {@code benchmarkClass}. Results are written to {@code <ClassName>-jmh.json} unless specified otherwise.
+    */
+   public static void run(Class<?> benchmarkClass, String[] args) throws RunnerException, CommandLineOptionException
+   {
+      CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+      ChainedOptionsBuilder options = createOptions(commandLineOptions, benchmarkClass.getSimpleName());
+      if (commandLineOptions.getIncludes().isEmpty())
+         options.include(benchmarkClass.getName());
+
+      new Runner(options.build()).run();
+   }
+
+   /**
+    * Runs every benchmark on the classpath matching the JMH command line options.
+    */
+   public static void main(String[] args) throws RunnerException, CommandLineOptionException
+   {
+      new Runner(createOptions(new CommandLineOptions(args), "benchmarks").build()).run();
+   }
+
+   private static ChainedOptionsBuilder createOptions(CommandLineOptions commandLineOptions, String resultsFilePrefix)
+   {
+      ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+
+      if (commandLineOptions.getBenchModes().isEmpty())
+         options.mode(Mode.Throughput);
+      if (commandLineOptions.getProfilers().isEmpty())
+         options.addProfiler(GCProfiler.class);
+      if (!commandLineOptions.getResultFormat().hasValue())
+         options.resultFormat(ResultFormatType.JSON);
+      if (!commandLineOptions.getResult().hasValue())
+         options.result(resultsFilePrefix + RESULTS_FILE_SUFFIX);
+
+      return options;
+   }
+}
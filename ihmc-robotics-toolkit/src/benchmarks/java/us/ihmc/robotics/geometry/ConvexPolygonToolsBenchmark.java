@@ -0,0 +1,101 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.geometry.Line2D;
+import us.ihmc.euclid.geometry.LineSegment2D;
+import us.ihmc.euclid.geometry.tools.EuclidGeometryRandomTools;
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConvexPolygonToolsBenchmark
+{
+   private static final int numberOfPolygonPairs = 256;
+
+   @Param({"8", "32"})
+   public int numberOfVertices;
+
+   private final ConvexPolygonTools convexPolygonTools = new ConvexPolygonTools();
+
+   private final ConvexPolygon2D[] overlappingPolygonsP = new ConvexPolygon2D[numberOfPolygonPairs];
+   private final ConvexPolygon2D[] overlappingPolygonsQ = new ConvexPolygon2D[numberOfPolygonPairs];
+   private final ConvexPolygon2D[] disjointPolygonsQ = new ConvexPolygon2D[numberOfPolygonPairs];
+   private final Line2D[] cuttingLines = new Line2D[numberOfPolygonPairs];
+
+   private final ConvexPolygon2D polygonToPack = new ConvexPolygon2D();
+   private final LineSegment2D connectingEdge1 = new LineSegment2D();
+   private final LineSegment2D connectingEdge2 = new LineSegment2D();
+   private final Point2D firstIntersection = new Point2D();
+   private final Point2D secondIntersection = new Point2D();
+
+   private int index = 0;
+
+   @Setup
+   public void setup()
+   {
+      Random random = new Random(1776L);
+
+      for (int i = 0; i < numberOfPolygonPairs; i++)
+      {
+         overlappingPolygonsP[i] = EuclidGeometryRandomTools.nextConvexPolygon2D(random, 1.0, numberOfVertices);
+         overlappingPolygonsQ[i] = EuclidGeometryRandomTools.nextConvexPolygon2D(random, 1.0, numberOfVertices);
+
+         disjointPolygonsQ[i] = new ConvexPolygon2D(overlappingPolygonsQ[i]);
+         disjointPolygonsQ[i].translate(3.0, 0.0);
+
+         cuttingLines[i] = new Line2D(overlappingPolygonsP[i].getCentroid(), EuclidGeometryRandomTools.nextVector2D(random));
+      }
+   }
+
+   private int nextIndex()
+   {
+      index = (index + 1) % numberOfPolygonPairs;
+      return index;
+   }
+
+   @Benchmark
+   public boolean computeIntersectionOfPolygons()
+   {
+      int i = nextIndex();
+      return convexPolygonTools.computeIntersectionOfPolygons(overlappingPolygonsP[i], overlappingPolygonsQ[i], polygonToPack);
+   }
+
+   @Benchmark
+   public double computeIntersectionAreaOfPolygons()
+   {
+      int i = nextIndex();
+      return convexPolygonTools.computeIntersectionAreaOfPolygons(overlappingPolygonsP[i], overlappingPolygonsQ[i]);
+   }
+
+   @Benchmark
+   public boolean combineDisjointPolygons()
+   {
+      int i = nextIndex();
+      return convexPolygonTools.combineDisjointPolygons(overlappingPolygonsP[i], disjointPolygonsQ[i], polygonToPack, connectingEdge1, connectingEdge2);
+   }
+
+   @Benchmark
+   public void cutPolygonToLeftOfLine(Blackhole blackhole)
+   {
+      int i = nextIndex();
+      blackhole.consume(ConvexPolygonTools.cutPolygonToLeftOfLine(overlappingPolygonsP[i], cuttingLines[i], polygonToPack, firstIntersection, secondIntersection));
+      blackhole.consume(polygonToPack);
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(ConvexPolygonToolsBenchmark.class, args);
+   }
+}
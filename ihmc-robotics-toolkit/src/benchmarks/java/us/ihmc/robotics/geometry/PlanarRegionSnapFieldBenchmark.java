@@ -0,0 +1,69 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+
+/**
+ * Creates a snap field over random regions and queries either the area around the origin, as a
+ * planner exploring around its start would, or the whole field.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PlanarRegionSnapFieldBenchmark
+{
+   private static final double gridSize = 0.05;
+   /** Half the size of the area around the origin queried by {@link #buildAndQueryLocalArea()}, in cells. */
+   private static final int localAreaHalfSize = 40;
+
+   @Param({"50", "200"})
+   public int numberOfRegions;
+
+   private PlanarRegionsList planarRegionsList;
+
+   @Setup
+   public void setup()
+   {
+      Random random = new Random(4390L);
+      planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, numberOfRegions, 15.0, 8, 20);
+   }
+
+   @Benchmark
+   public int buildAndQueryLocalArea()
+   {
+      PlanarRegionSnapField snapField = PlanarRegionSnapField.build(planarRegionsList, gridSize);
+      return queryCells(snapField, -localAreaHalfSize, -localAreaHalfSize, localAreaHalfSize, localAreaHalfSize);
+   }
+
+   @Benchmark
+   public int buildAndQueryWholeField()
+   {
+      PlanarRegionSnapField snapField = PlanarRegionSnapField.build(planarRegionsList, gridSize);
+      int halfSize = (int) Math.ceil(Math.sqrt(snapField.getNumberOfCells()));
+      return queryCells(snapField, -halfSize, -halfSize, halfSize, halfSize);
+   }
+
+   private static int queryCells(PlanarRegionSnapField snapField, int xIndexMin, int yIndexMin, int xIndexMax, int yIndexMax)
+   {
+      int sum = 0;
+      for (int xIndex = xIndexMin; xIndex <= xIndexMax; xIndex++)
+      {
+         for (int yIndex = yIndexMin; yIndex <= yIndexMax; yIndex++)
+            sum += snapField.getRegionIndex(xIndex, yIndex);
+      }
+      return sum;
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(PlanarRegionSnapFieldBenchmark.class, args);
+   }
+}
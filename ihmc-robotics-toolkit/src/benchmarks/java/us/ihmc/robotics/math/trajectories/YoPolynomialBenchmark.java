@@ -0,0 +1,89 @@
+package us.ihmc.robotics.math.trajectories;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+import us.ihmc.yoVariables.registry.YoRegistry;
+
+/**
+ * Compares the cost of setting the standard boundary-value polynomials with the closed-form solutions against the general linear solver.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class YoPolynomialBenchmark
+{
+   private static final int numberOfProblems = 256;
+
+   @Param({"true", "false"})
+   public boolean useClosedFormSolutions;
+
+   private YoPolynomial polynomial;
+
+   private final double[] initialTimes = new double[numberOfProblems];
+   private final double[] finalTimes = new double[numberOfProblems];
+   private final double[][] boundaryConditions = new double[numberOfProblems][];
+
+   private int index = 0;
+
+   @Setup
+   public void setup()
+   {
+      Random random = new Random(4235L);
+      polynomial = new YoPolynomial("polynomial", 8, new YoRegistry("benchmark"));
+      polynomial.setUseClosedFormSolutions(useClosedFormSolutions);
+
+      for (int i = 0; i < numberOfProblems; i++)
+      {
+         initialTimes[i] = RandomNumbers.nextDouble(random, 0.0, 1.0);
+         finalTimes[i] = initialTimes[i] + RandomNumbers.nextDouble(random, 0.2, 2.0);
+         boundaryConditions[i] = RandomNumbers.nextDoubleArray(random, 8, 1.0);
+      }
+   }
+
+   private int nextIndex()
+   {
+      index = (index + 1) % numberOfProblems;
+      return index;
+   }
+
+   @Benchmark
+   public double setCubic()
+   {
+      int i = nextIndex();
+      double[] z = boundaryConditions[i];
+      polynomial.setCubic(initialTimes[i], finalTimes[i], z[0], z[1], z[2], z[3]);
+      return polynomial.getCoefficient(3);
+   }
+
+   @Benchmark
+   public double setQuintic()
+   {
+      int i = nextIndex();
+      double[] z = boundaryConditions[i];
+      polynomial.setQuintic(initialTimes[i], finalTimes[i], z[0], z[1], z[2], z[3], z[4], z[5]);
+      return polynomial.getCoefficient(5);
+   }
+
+   @Benchmark
+   public double setSeptic()
+   {
+      int i = nextIndex();
+      double[] z = boundaryConditions[i];
+      polynomial.setSeptic(initialTimes[i], finalTimes[i], z[0], z[1], z[2], z[3], z[4], z[5], z[6], z[7]);
+      return polynomial.getCoefficient(7);
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(YoPolynomialBenchmark.class, args);
+   }
+}
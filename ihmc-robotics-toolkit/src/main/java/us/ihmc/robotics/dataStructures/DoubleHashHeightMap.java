@@ -8,6 +8,10 @@ import java.util.List;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.robotics.geometry.InclusionFunction;
 
+/**
+ * @deprecated use {@link TiledHeightMap} instead, which stores the heights in primitive arrays.
+ */
+@Deprecated
 public class DoubleHashHeightMap implements HeightMapWithPoints
 {
    private HashMap<Integer, LinkedHashMap<Integer, Double>> rows;
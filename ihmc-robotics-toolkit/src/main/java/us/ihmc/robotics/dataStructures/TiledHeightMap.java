@@ -0,0 +1,412 @@
+package us.ihmc.robotics.dataStructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DReadOnly;
+import us.ihmc.robotics.geometry.InclusionFunction;
+
+/**
+ * Height map storing the heights in fixed-size tiles of primitive doubles.
+ * <p>
+ * The grid is split into square tiles of {@value #TILE_SIZE}x{@value #TILE_SIZE} cells, which are
+ * only allocated once a point lands in them. The tiles are stored in an open-addressed table such
+ * that a lookup is a single hash probe in most cases, and no boxing happens when adding or querying
+ * heights. Empty cells hold {@code NaN}.
+ * </p>
+ * <p>
+ * As with {@link DoubleHashHeightMap}, a point is assigned to the cell whose center is the closest,
+ * the cell centers being at the multiples of the grid size. Adding a point overrides the height of
+ * its cell, and non-finite heights are ignored.
+ * </p>
+ * <p>
+ * The modifications are synchronized, while the point queries are lock-free and can run
+ * concurrently with them.
+ * </p>
+ */
+public class TiledHeightMap implements HeightMapWithPoints
+{
+   private static final int TILE_SHIFT = 4;
+   /** Number of cells along each side of a tile. */
+   public static final int TILE_SIZE = 1 << TILE_SHIFT;
+   private static final int TILE_MASK = TILE_SIZE - 1;
+   private static final int CELLS_PER_TILE = TILE_SIZE * TILE_SIZE;
+
+   private static final int INITIAL_TABLE_CAPACITY = 64;
+
+   private final double gridSize;
+
+   /** The table of tiles, a {@code null} entry is empty. Replaced as a whole when growing. */
+   private volatile Tile[] tiles = new Tile[INITIAL_TABLE_CAPACITY];
+   private int numberOfTiles = 0;
+
+   /** Buffer holding the tiles intersecting the area being iterated over. */
+   private Tile[] tilesInArea = new Tile[0];
+
+   public TiledHeightMap(double gridSize)
+   {
+      if (!(gridSize > 0.0))
+         throw new IllegalArgumentException("The grid size should be positive, was: " + gridSize);
+
+      this.gridSize = gridSize;
+   }
+
+   public double gridSize()
+   {
+      return gridSize;
+   }
+
+   @Override
+   public double getHeightAtPoint(double x, double y)
+   {
+      int xIndex = index(x);
+      int yIndex = index(y);
+      Tile tile = getTile(tiles, xIndex >> TILE_SHIFT, yIndex >> TILE_SHIFT);
+
+      if (tile == null)
+         return Double.NaN;
+      return tile.heights[cellIndex(xIndex, yIndex)];
+   }
+
+   @Override
+   public boolean containsPoint(double x, double y)
+   {
+      return !Double.isNaN(getHeightAtPoint(x, y));
+   }
+
+   @Override
+   public boolean addPoint(double x, double y, double z)
+   {
+      if (!Double.isFinite(z))
+         return true;
+
+      synchronized (this)
+      {
+         setHeight(index(x), index(y), z, null);
+      }
+
+      return true;
+   }
+
+   /**
+    * Adds all the points under a single lock. Consecutive points falling in the same tile do not
+    * require a table lookup, which makes the insertion of point clouds cheap.
+    *
+    * @param points the points to add. Not modified.
+    */
+   public void addPoints(List<? extends Tuple3DReadOnly> points)
+   {
+      synchronized (this)
+      {
+         Tile lastTile = null;
+
+         for (int i = 0; i < points.size(); i++)
+         {
+            Tuple3DReadOnly point = points.get(i);
+            if (Double.isFinite(point.getZ()))
+               lastTile = setHeight(index(point.getX()), index(point.getY()), point.getZ(), lastTile);
+         }
+      }
+   }
+
+   /**
+    * Adds the points of a point cloud packed as {@code x0, y0, z0, x1, y1, z1, ...}.
+    *
+    * @param pointCloud     the coordinates of the points. Not modified.
+    * @param numberOfPoints the number of points to read from {@code pointCloud}.
+    */
+   public void addPoints(float[] pointCloud, int numberOfPoints)
+   {
+      if (3 * numberOfPoints > pointCloud.length)
+         throw new IllegalArgumentException("The point cloud holds " + pointCloud.length / 3 + " points, cannot add " + numberOfPoints + " points.");
+
+      synchronized (this)
+      {
+         Tile lastTile = null;
+
+         for (int i = 0; i < numberOfPoints; i++)
+         {
+            float z = pointCloud[3 * i + 2];
+            if (Float.isFinite(z))
+               lastTile = setHeight(index(pointCloud[3 * i]), index(pointCloud[3 * i + 1]), z, lastTile);
+         }
+      }
+   }
+
+   /**
+    * Sets the height of a cell, allocating its tile if needed.
+    *
+    * @param lastTile the tile of the previous modified cell, checked before looking up the table. Can
+    *                 be {@code null}.
+    * @return the tile of the cell.
+    */
+   private Tile setHeight(int xIndex, int yIndex, double z, Tile lastTile)
+   {
+      int tileX = xIndex >> TILE_SHIFT;
+      int tileY = yIndex >> TILE_SHIFT;
+
+      Tile tile;
+      if (lastTile != null && lastTile.tileX == tileX && lastTile.tileY == tileY)
+         tile = lastTile;
+      else
+         tile = getOrCreateTile(tileX, tileY);
+
+      tile.heights[cellIndex(xIndex, yIndex)] = z;
+      return tile;
+   }
+
+   @Override
+   public void clear()
+   {
+      synchronized (this)
+      {
+         tiles = new Tile[INITIAL_TABLE_CAPACITY];
+         numberOfTiles = 0;
+         Arrays.fill(tilesInArea, null);
+      }
+   }
+
+   /**
+    * @return the number of tiles currently allocated.
+    */
+   public int getNumberOfTiles()
+   {
+      return numberOfTiles;
+   }
+
+   /**
+    * @return the approximate number of bytes used by a single tile, including its heights.
+    */
+   public static long getTileMemoryFootprint()
+   {
+      // object header and fields of the tile, plus the header and elements of the height array
+      return 24L + 16L + (long) CELLS_PER_TILE * Double.BYTES;
+   }
+
+   /**
+    * @return the approximate number of bytes used by the tiles and the table holding them.
+    */
+   public long getMemoryFootprint()
+   {
+      Tile[] tiles = this.tiles;
+      return numberOfTiles * getTileMemoryFootprint() + 16L + 4L * tiles.length;
+   }
+
+   @Override
+   public List<Point3D> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent)
+   {
+      return getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent, null);
+   }
+
+   @Override
+   public List<Point3D> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent,
+                                               InclusionFunction<Point3D> maskFunctionAboutCenter)
+   {
+      List<Point3D> points = new ArrayList<>();
+
+      forEachPointWithinArea(xCenter - 0.5 * xExtent, xCenter + 0.5 * xExtent, yCenter - 0.5 * yExtent, yCenter + 0.5 * yExtent, (x, y, z) ->
+      {
+         Point3D point = new Point3D(x, y, z);
+         if (maskFunctionAboutCenter == null || maskFunctionAboutCenter.isIncluded(point))
+            points.add(point);
+      });
+
+      return points;
+   }
+
+   /**
+    * Calls {@code consumer} for each point of the map within the given bounds, without creating any
+    * point object. The points are visited by increasing x, and by increasing y for the same x. The map
+    * cannot be modified from {@code consumer}.
+    */
+   public void forEachPointWithinArea(double xMin, double xMax, double yMin, double yMax, CellConsumer consumer)
+   {
+      int xIndexMin = index(xMin);
+      int xIndexMax = index(xMax);
+      int yIndexMin = index(yMin);
+      int yIndexMax = index(yMax);
+
+      if (xIndexMax < xIndexMin || yIndexMax < yIndexMin)
+         return;
+
+      synchronized (this)
+      {
+         int tileXMin = xIndexMin >> TILE_SHIFT;
+         int tileXMax = xIndexMax >> TILE_SHIFT;
+         int tileYMin = yIndexMin >> TILE_SHIFT;
+         int tileYMax = yIndexMax >> TILE_SHIFT;
+
+         int numberOfTilesInArea = collectTilesInArea(tileXMin, tileXMax, tileYMin, tileYMax);
+         int firstTileInColumn = 0;
+
+         while (firstTileInColumn < numberOfTilesInArea)
+         {
+            int tileX = tilesInArea[firstTileInColumn].tileX;
+            int endTileInColumn = firstTileInColumn + 1;
+            while (endTileInColumn < numberOfTilesInArea && tilesInArea[endTileInColumn].tileX == tileX)
+               endTileInColumn++;
+
+            int xStart = Math.max(xIndexMin, tileX << TILE_SHIFT);
+            int xEnd = Math.min(xIndexMax, (tileX << TILE_SHIFT) + TILE_MASK);
+
+            for (int xIndex = xStart; xIndex <= xEnd; xIndex++)
+            {
+               for (int i = firstTileInColumn; i < endTileInColumn; i++)
+               {
+                  Tile tile = tilesInArea[i];
+                  int yStart = Math.max(yIndexMin, tile.tileY << TILE_SHIFT);
+                  int yEnd = Math.min(yIndexMax, (tile.tileY << TILE_SHIFT) + TILE_MASK);
+
+                  for (int yIndex = yStart; yIndex <= yEnd; yIndex++)
+                  {
+                     double z = tile.heights[cellIndex(xIndex, yIndex)];
+                     if (!Double.isNaN(z))
+                        consumer.accept(xIndex * gridSize, yIndex * gridSize, z);
+                  }
+               }
+            }
+
+            firstTileInColumn = endTileInColumn;
+         }
+      }
+   }
+
+   /**
+    * Gathers the allocated tiles within the given tile bounds, sorted by x and then y. Either probes
+    * each tile of the area, or scans the table when the area holds more tiles than the table.
+    *
+    * @return the number of tiles stored in {@link #tilesInArea}.
+    */
+   private int collectTilesInArea(int tileXMin, int tileXMax, int tileYMin, int tileYMax)
+   {
+      Tile[] tiles = this.tiles;
+      long numberOfTilesInArea = ((long) tileXMax - tileXMin + 1) * ((long) tileYMax - tileYMin + 1);
+      if (tilesInArea.length < numberOfTiles)
+         tilesInArea = new Tile[tiles.length];
+      int count = 0;
+
+      if (numberOfTilesInArea <= tiles.length)
+      {
+         for (int tileX = tileXMin; tileX <= tileXMax; tileX++)
+         {
+            for (int tileY = tileYMin; tileY <= tileYMax; tileY++)
+            {
+               Tile tile = getTile(tiles, tileX, tileY);
+               if (tile != null)
+                  tilesInArea[count++] = tile;
+            }
+         }
+      }
+      else
+      {
+         for (Tile tile : tiles)
+         {
+            if (tile != null && tile.tileX >= tileXMin && tile.tileX <= tileXMax && tile.tileY >= tileYMin && tile.tileY <= tileYMax)
+               tilesInArea[count++] = tile;
+         }
+
+         Arrays.sort(tilesInArea, 0, count, (tileA, tileB) ->
+         {
+            int comparison = Integer.compare(tileA.tileX, tileB.tileX);
+            return comparison != 0 ? comparison : Integer.compare(tileA.tileY, tileB.tileY);
+         });
+      }
+
+      return count;
+   }
+
+   private static Tile getTile(Tile[] tiles, int tileX, int tileY)
+   {
+      int mask = tiles.length - 1;
+
+      for (int slot = hash(tileX, tileY) & mask;; slot = (slot + 1) & mask)
+      {
+         Tile tile = tiles[slot];
+         if (tile == null || (tile.tileX == tileX && tile.tileY == tileY))
+            return tile;
+      }
+   }
+
+   private Tile getOrCreateTile(int tileX, int tileY)
+   {
+      Tile[] tiles = this.tiles;
+      int mask = tiles.length - 1;
+      int slot = hash(tileX, tileY) & mask;
+
+      for (;; slot = (slot + 1) & mask)
+      {
+         Tile tile = tiles[slot];
+         if (tile == null)
+            break;
+         if (tile.tileX == tileX && tile.tileY == tileY)
+            return tile;
+      }
+
+      Tile tile = new Tile(tileX, tileY);
+
+      if (2 * (numberOfTiles + 1) > tiles.length)
+      { // Keeps the table at most half full such that the probe sequences stay short.
+         Tile[] newTiles = new Tile[2 * tiles.length];
+         for (Tile existingTile : tiles)
+         {
+            if (existingTile != null)
+               insert(newTiles, existingTile);
+         }
+         insert(newTiles, tile);
+         this.tiles = newTiles;
+      }
+      else
+      {
+         tiles[slot] = tile;
+      }
+
+      numberOfTiles++;
+      return tile;
+   }
+
+   private static void insert(Tile[] tiles, Tile tile)
+   {
+      int mask = tiles.length - 1;
+      int slot = hash(tile.tileX, tile.tileY) & mask;
+      while (tiles[slot] != null)
+         slot = (slot + 1) & mask;
+      tiles[slot] = tile;
+   }
+
+   private static int hash(int tileX, int tileY)
+   {
+      int hash = tileX * 0x9E3779B9 + tileY;
+      return hash ^ (hash >>> 16);
+   }
+
+   private static int cellIndex(int xIndex, int yIndex)
+   {
+      return ((xIndex & TILE_MASK) << TILE_SHIFT) | (yIndex & TILE_MASK);
+   }
+
+   private int index(double coordinate)
+   {
+      return (int) Math.round(coordinate / gridSize);
+   }
+
+   private static class Tile
+   {
+      private final int tileX;
+      private final int tileY;
+      private final double[] heights = new double[CELLS_PER_TILE];
+
+      private Tile(int tileX, int tileY)
+      {
+         this.tileX = tileX;
+         this.tileY = tileY;
+         Arrays.fill(heights, Double.NaN);
+      }
+   }
+
+   public static interface CellConsumer
+   {
+      void accept(double x, double y, double z);
+   }
+}
@@ -0,0 +1,471 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.UnitVector3DReadOnly;
+
+/**
+ * Rasterization of a {@link PlanarRegionsList} on a grid such that the footstep planners can query
+ * the terrain in constant time.
+ * <p>
+ * The cell {@code (xIndex, yIndex)} is centered at {@code (xIndex * gridSize, yIndex * gridSize)},
+ * which matches the lattice of the planners. For each cell, the field holds:
+ * <ul>
+ * <li>the indices of the regions whose bounding box overlaps the cell, in the order of the planar
+ * regions list, such that a snapper only has to consider the regions around the step.
+ * <li>the highest region containing the cell center, along with its height and normal at the
+ * center, and the distance from the center to the edge of the region's convex hull.
+ * </ul>
+ * The cells are computed by chunks of {@code CHUNK_SIZE} x {@code CHUNK_SIZE} cells the first time
+ * a query touches them, such that only the area explored by the planner is rasterized. The
+ * candidate regions, which is all the snappers need, only require bounding box checks. The highest
+ * region data requires a point-in-region test per candidate region and is computed in separate
+ * chunks, only when one of its getters is called. Queries can be made from any thread. A chunk
+ * first queried by several threads at once may be computed more than once, only one of the
+ * identical results is kept.
+ * </p>
+ */
+public class PlanarRegionSnapField
+{
+   /** Fields with more cells are not built, see {@link #build(PlanarRegionsList, double)}. */
+   public static final int MAXIMUM_NUMBER_OF_CELLS = 1 << 22;
+   /** Growth of the cells when checking the region bounding boxes, such that regions on the cell boundary are kept. */
+   private static final double cellEpsilon = 1.0e-7;
+   private static final int CHUNK_SIZE_LOG2 = 4;
+   private static final int CHUNK_SIZE = 1 << CHUNK_SIZE_LOG2;
+   private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+   private final double gridSize;
+   private final int xIndexMin;
+   private final int yIndexMin;
+   private final int xSize;
+   private final int ySize;
+
+   private final List<PlanarRegion> planarRegions;
+   /** For each region, the bounds of its bounding box in XY: xMin, yMin, xMax, yMax. */
+   private final double[] regionBounds;
+
+   private final int numberOfChunksY;
+   private final AtomicReferenceArray<Chunk> chunks;
+   private final AtomicReferenceArray<SurfaceChunk> surfaceChunks;
+
+   private PlanarRegionSnapField(double gridSize, int xIndexMin, int yIndexMin, int xSize, int ySize, List<PlanarRegion> planarRegions,
+                                 double[] regionBounds)
+   {
+      this.gridSize = gridSize;
+      this.xIndexMin = xIndexMin;
+      this.yIndexMin = yIndexMin;
+      this.xSize = xSize;
+      this.ySize = ySize;
+      this.planarRegions = planarRegions;
+      this.regionBounds = regionBounds;
+
+      int numberOfChunksX = (xSize + CHUNK_MASK) >> CHUNK_SIZE_LOG2;
+      numberOfChunksY = (ySize + CHUNK_MASK) >> CHUNK_SIZE_LOG2;
+      chunks = new AtomicReferenceArray<>(numberOfChunksX * numberOfChunksY);
+      surfaceChunks = new AtomicReferenceArray<>(numberOfChunksX * numberOfChunksY);
+   }
+
+   /**
+    * Creates the field for the given regions. The cells are only computed when queried.
+    *
+    * @param planarRegionsList the regions to rasterize. The regions should not be modified while the
+    *                          field is in use.
+    * @param gridSize          the size of the cells, should be the resolution of the planner lattice.
+    * @return the field, or {@code null} if there are no regions or if the regions span more than
+    *         {@link #MAXIMUM_NUMBER_OF_CELLS} cells.
+    */
+   public static PlanarRegionSnapField build(PlanarRegionsList planarRegionsList, double gridSize)
+   {
+      if (!(gridSize > 0.0))
+         throw new IllegalArgumentException("The grid size should be positive, was: " + gridSize);
+      if (planarRegionsList == null || planarRegionsList.isEmpty())
+         return null;
+
+      List<PlanarRegion> planarRegions = new ArrayList<>(planarRegionsList.getPlanarRegionsAsList());
+      int numberOfRegions = planarRegions.size();
+      double[] regionBounds = new double[4 * numberOfRegions];
+      double xMin = Double.POSITIVE_INFINITY, yMin = Double.POSITIVE_INFINITY;
+      double xMax = Double.NEGATIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+
+      for (int i = 0; i < numberOfRegions; i++)
+      {
+         BoundingBox3D boundingBox = planarRegions.get(i).getBoundingBox3dInWorld();
+         regionBounds[4 * i] = boundingBox.getMinX();
+         regionBounds[4 * i + 1] = boundingBox.getMinY();
+         regionBounds[4 * i + 2] = boundingBox.getMaxX();
+         regionBounds[4 * i + 3] = boundingBox.getMaxY();
+
+         if (boundingBox.containsNaN())
+            continue;
+
+         xMin = Math.min(xMin, boundingBox.getMinX());
+         yMin = Math.min(yMin, boundingBox.getMinY());
+         xMax = Math.max(xMax, boundingBox.getMaxX());
+         yMax = Math.max(yMax, boundingBox.getMaxY());
+      }
+
+      if (xMin > xMax || yMin > yMax)
+         return null;
+
+      int xIndexMin = (int) Math.floor(xMin / gridSize - 0.5);
+      int yIndexMin = (int) Math.floor(yMin / gridSize - 0.5);
+      long xSize = (long) Math.ceil(xMax / gridSize + 0.5) - xIndexMin + 1;
+      long ySize = (long) Math.ceil(yMax / gridSize + 0.5) - yIndexMin + 1;
+
+      if (xSize * ySize > MAXIMUM_NUMBER_OF_CELLS)
+         return null;
+
+      return new PlanarRegionSnapField(gridSize, xIndexMin, yIndexMin, (int) xSize, (int) ySize, planarRegions, regionBounds);
+   }
+
+   /**
+    * Candidate regions of the cells of a square area of the field, the arrays are indexed by
+    * {@code (row % CHUNK_SIZE) * CHUNK_SIZE + column % CHUNK_SIZE}.
+    */
+   private static class Chunk
+   {
+      /** The candidate regions of a cell are between {@code candidateRegionOffsets[cell]} and {@code candidateRegionOffsets[cell + 1]}. */
+      private final int[] candidateRegionOffsets = new int[CHUNK_SIZE * CHUNK_SIZE + 1];
+      private int[] candidateRegionIndices;
+   }
+
+   /**
+    * Highest region at the center of the cells of a square area of the field, indexed as for
+    * {@link Chunk}.
+    */
+   private static class SurfaceChunk
+   {
+      private final int[] regionIndices = new int[CHUNK_SIZE * CHUNK_SIZE];
+      private final double[] heights = new double[CHUNK_SIZE * CHUNK_SIZE];
+      private final float[] normals = new float[3 * CHUNK_SIZE * CHUNK_SIZE];
+      private final float[] edgeDistances = new float[CHUNK_SIZE * CHUNK_SIZE];
+   }
+
+   /**
+    * Gets the chunk holding the given cell, computing it if needed.
+    */
+   private Chunk getChunk(int row, int column)
+   {
+      int chunkIndex = (row >> CHUNK_SIZE_LOG2) * numberOfChunksY + (column >> CHUNK_SIZE_LOG2);
+      Chunk chunk = chunks.get(chunkIndex);
+
+      if (chunk == null)
+      {
+         chunk = computeChunk(row & ~CHUNK_MASK, column & ~CHUNK_MASK);
+
+         if (!chunks.compareAndSet(chunkIndex, null, chunk))
+            chunk = chunks.get(chunkIndex);
+      }
+
+      return chunk;
+   }
+
+   /**
+    * Gets the surface chunk holding the given cell, computing it if needed.
+    */
+   private SurfaceChunk getSurfaceChunk(int row, int column)
+   {
+      int chunkIndex = (row >> CHUNK_SIZE_LOG2) * numberOfChunksY + (column >> CHUNK_SIZE_LOG2);
+      SurfaceChunk surfaceChunk = surfaceChunks.get(chunkIndex);
+
+      if (surfaceChunk == null)
+      {
+         surfaceChunk = computeSurfaceChunk(row & ~CHUNK_MASK, column & ~CHUNK_MASK, getChunk(row, column));
+
+         if (!surfaceChunks.compareAndSet(chunkIndex, null, surfaceChunk))
+            surfaceChunk = surfaceChunks.get(chunkIndex);
+      }
+
+      return surfaceChunk;
+   }
+
+   private static int getCellInChunk(int row, int column)
+   {
+      return ((row & CHUNK_MASK) << CHUNK_SIZE_LOG2) | (column & CHUNK_MASK);
+   }
+
+   private Chunk computeChunk(int firstRow, int firstColumn)
+   {
+      int lastRow = Math.min(firstRow + CHUNK_SIZE, xSize) - 1;
+      int lastColumn = Math.min(firstColumn + CHUNK_SIZE, ySize) - 1;
+      double chunkXMin = (firstRow + xIndexMin - 0.5) * gridSize - cellEpsilon;
+      double chunkXMax = (lastRow + xIndexMin + 0.5) * gridSize + cellEpsilon;
+      double chunkYMin = (firstColumn + yIndexMin - 0.5) * gridSize - cellEpsilon;
+      double chunkYMax = (lastColumn + yIndexMin + 0.5) * gridSize + cellEpsilon;
+
+      TIntArrayList chunkRegionIndices = new TIntArrayList();
+      for (int regionIndex = 0; regionIndex < planarRegions.size(); regionIndex++)
+      {
+         // Written such that the empty regions, whose bounds are NaN, are skipped.
+         if (regionBounds[4 * regionIndex] <= chunkXMax && regionBounds[4 * regionIndex + 2] >= chunkXMin && regionBounds[4 * regionIndex + 1] <= chunkYMax
+               && regionBounds[4 * regionIndex + 3] >= chunkYMin)
+            chunkRegionIndices.add(regionIndex);
+      }
+
+      Chunk chunk = new Chunk();
+      TIntArrayList candidateRegionIndices = new TIntArrayList();
+
+      for (int row = firstRow; row < firstRow + CHUNK_SIZE; row++)
+      {
+         double x = (row + xIndexMin) * gridSize;
+         double cellXMin = x - 0.5 * gridSize - cellEpsilon;
+         double cellXMax = x + 0.5 * gridSize + cellEpsilon;
+
+         for (int column = firstColumn; column < firstColumn + CHUNK_SIZE; column++)
+         {
+            int cell = getCellInChunk(row, column);
+            chunk.candidateRegionOffsets[cell] = candidateRegionIndices.size();
+
+            if (row > lastRow || column > lastColumn)
+               continue;
+
+            double y = (column + yIndexMin) * gridSize;
+            double cellYMin = y - 0.5 * gridSize - cellEpsilon;
+            double cellYMax = y + 0.5 * gridSize + cellEpsilon;
+
+            for (int i = 0; i < chunkRegionIndices.size(); i++)
+            {
+               int regionIndex = chunkRegionIndices.getQuick(i);
+
+               if (regionBounds[4 * regionIndex] > cellXMax || regionBounds[4 * regionIndex + 2] < cellXMin)
+                  continue;
+               if (regionBounds[4 * regionIndex + 1] > cellYMax || regionBounds[4 * regionIndex + 3] < cellYMin)
+                  continue;
+
+               candidateRegionIndices.add(regionIndex);
+            }
+         }
+      }
+
+      chunk.candidateRegionOffsets[CHUNK_SIZE * CHUNK_SIZE] = candidateRegionIndices.size();
+      chunk.candidateRegionIndices = candidateRegionIndices.toArray();
+      return chunk;
+   }
+
+   private SurfaceChunk computeSurfaceChunk(int firstRow, int firstColumn, Chunk chunk)
+   {
+      SurfaceChunk surfaceChunk = new SurfaceChunk();
+      Arrays.fill(surfaceChunk.regionIndices, -1);
+      Arrays.fill(surfaceChunk.heights, Double.NaN);
+      Arrays.fill(surfaceChunk.normals, Float.NaN);
+      Arrays.fill(surfaceChunk.edgeDistances, Float.NaN);
+
+      Point3D pointInLocal = new Point3D();
+      Point2D pointInLocal2D = new Point2D();
+
+      for (int row = firstRow; row < firstRow + CHUNK_SIZE; row++)
+      {
+         double x = (row + xIndexMin) * gridSize;
+
+         for (int column = firstColumn; column < firstColumn + CHUNK_SIZE; column++)
+         {
+            double y = (column + yIndexMin) * gridSize;
+            int cell = getCellInChunk(row, column);
+
+            // The cells outside of the field have no candidate regions.
+            for (int i = chunk.candidateRegionOffsets[cell]; i < chunk.candidateRegionOffsets[cell + 1]; i++)
+            {
+               int regionIndex = chunk.candidateRegionIndices[i];
+               PlanarRegion planarRegion = planarRegions.get(regionIndex);
+               if (planarRegion.isVertical() || !planarRegion.isPointInsideByProjectionOntoXYPlane(x, y))
+                  continue;
+
+               double height = planarRegion.getPlaneZGivenXY(x, y);
+               if (surfaceChunk.regionIndices[cell] != -1 && height <= surfaceChunk.heights[cell])
+                  continue;
+
+               pointInLocal.set(x, y, height);
+               planarRegion.transformFromWorldToLocal(pointInLocal);
+               UnitVector3DReadOnly normal = planarRegion.getNormal();
+
+               surfaceChunk.regionIndices[cell] = regionIndex;
+               surfaceChunk.heights[cell] = height;
+               surfaceChunk.normals[3 * cell] = (float) normal.getX();
+               surfaceChunk.normals[3 * cell + 1] = (float) normal.getY();
+               surfaceChunk.normals[3 * cell + 2] = (float) normal.getZ();
+               pointInLocal2D.set(pointInLocal.getX(), pointInLocal.getY());
+               surfaceChunk.edgeDistances[cell] = (float) -planarRegion.getConvexHull().signedDistance(pointInLocal2D);
+            }
+         }
+      }
+
+      return surfaceChunk;
+   }
+
+   public double getGridSize()
+   {
+      return gridSize;
+   }
+
+   public int getXIndex(double x)
+   {
+      return (int) Math.round(x / gridSize);
+   }
+
+   public int getYIndex(double y)
+   {
+      return (int) Math.round(y / gridSize);
+   }
+
+   /**
+    * @return whether the cell is inside the field. No region overlaps the cells outside of it.
+    */
+   private boolean isInside(int row, int column)
+   {
+      return row >= 0 && row < xSize && column >= 0 && column < ySize;
+   }
+
+   /**
+    * @return the number of regions whose bounding box overlaps the cell.
+    */
+   public int getNumberOfCandidateRegions(int xIndex, int yIndex)
+   {
+      int row = xIndex - xIndexMin;
+      int column = yIndex - yIndexMin;
+      if (!isInside(row, column))
+         return 0;
+
+      int cell = getCellInChunk(row, column);
+      int[] candidateRegionOffsets = getChunk(row, column).candidateRegionOffsets;
+      return candidateRegionOffsets[cell + 1] - candidateRegionOffsets[cell];
+   }
+
+   /**
+    * @return the index in the planar regions list of the {@code i}<sup>th</sup> region whose bounding
+    *         box overlaps the cell.
+    */
+   public int getCandidateRegionIndex(int xIndex, int yIndex, int i)
+   {
+      int row = xIndex - xIndexMin;
+      int column = yIndex - yIndexMin;
+      if (!isInside(row, column))
+         throw new IndexOutOfBoundsException("No region overlaps the cell (" + xIndex + ", " + yIndex + ")");
+
+      Chunk chunk = getChunk(row, column);
+      return chunk.candidateRegionIndices[chunk.candidateRegionOffsets[getCellInChunk(row, column)] + i];
+   }
+
+   /**
+    * Packs the indices of the regions whose bounding box overlaps the given area, sorted and without
+    * duplicates, such that the regions are considered in the same order as in the planar regions
+    * list.
+    *
+    * @param indicesToPack the indices of the regions. Modified.
+    */
+   public void getCandidateRegionIndices(double xMin, double yMin, double xMax, double yMax, TIntArrayList indicesToPack)
+   {
+      indicesToPack.resetQuick();
+
+      int rowStart = Math.max(0, getXIndex(xMin) - xIndexMin);
+      int rowEnd = Math.min(xSize - 1, getXIndex(xMax) - xIndexMin);
+      int columnStart = Math.max(0, getYIndex(yMin) - yIndexMin);
+      int columnEnd = Math.min(ySize - 1, getYIndex(yMax) - yIndexMin);
+
+      for (int row = rowStart; row <= rowEnd; row++)
+      {
+         for (int column = columnStart; column <= columnEnd; column++)
+         {
+            Chunk chunk = getChunk(row, column);
+            int cell = getCellInChunk(row, column);
+            int offset = chunk.candidateRegionOffsets[cell];
+            indicesToPack.add(chunk.candidateRegionIndices, offset, chunk.candidateRegionOffsets[cell + 1] - offset);
+         }
+      }
+
+      indicesToPack.sort();
+
+      int numberOfUniqueIndices = 0;
+      for (int i = 0; i < indicesToPack.size(); i++)
+      {
+         if (i == 0 || indicesToPack.getQuick(i) != indicesToPack.getQuick(i - 1))
+            indicesToPack.setQuick(numberOfUniqueIndices++, indicesToPack.getQuick(i));
+      }
+      indicesToPack.remove(numberOfUniqueIndices, indicesToPack.size() - numberOfUniqueIndices);
+   }
+
+   /**
+    * @return the index of the highest region containing the cell center, or {@code -1} if there is
+    *         none.
+    */
+   public int getRegionIndex(int xIndex, int yIndex)
+   {
+      int row = xIndex - xIndexMin;
+      int column = yIndex - yIndexMin;
+      return isInside(row, column) ? getSurfaceChunk(row, column).regionIndices[getCellInChunk(row, column)] : -1;
+   }
+
+   /**
+    * @return the height of the highest region at the cell center, or {@code NaN} if there is none.
+    */
+   public double getHeight(int xIndex, int yIndex)
+   {
+      int row = xIndex - xIndexMin;
+      int column = yIndex - yIndexMin;
+      return isInside(row, column) ? getSurfaceChunk(row, column).heights[getCellInChunk(row, column)] : Double.NaN;
+   }
+
+   /**
+    * @return the component {@code axis} (0 for x, 1 for y, 2 for z) of the normal of the highest region
+    *         at the cell center, or {@code NaN} if there is none.
+    */
+   public double getNormal(int xIndex, int yIndex, int axis)
+   {
+      int row = xIndex - xIndexMin;
+      int column = yIndex - yIndexMin;
+      return isInside(row, column) ? getSurfaceChunk(row, column).normals[3 * getCellInChunk(row, column) + axis] : Double.NaN;
+   }
+
+   /**
+    * @return the distance from the cell center to the edge of the convex hull of the highest region
+    *         at the center, or {@code NaN} if there is none.
+    */
+   public double getEdgeDistance(int xIndex, int yIndex)
+   {
+      int row = xIndex - xIndexMin;
+      int column = yIndex - yIndexMin;
+      return isInside(row, column) ? getSurfaceChunk(row, column).edgeDistances[getCellInChunk(row, column)] : Double.NaN;
+   }
+
+   public int getNumberOfCells()
+   {
+      return xSize * ySize;
+   }
+
+   /**
+    * @return the number of cells computed so far, including the cells of the computed chunks that
+    *         are outside of the field.
+    */
+   public int getNumberOfComputedCells()
+   {
+      int numberOfComputedChunks = 0;
+      for (int i = 0; i < chunks.length(); i++)
+      {
+         if (chunks.get(i) != null)
+            numberOfComputedChunks++;
+      }
+      return numberOfComputedChunks * CHUNK_SIZE * CHUNK_SIZE;
+   }
+
+   /**
+    * @return the number of cells whose highest region has been computed so far, including the cells
+    *         of the computed chunks that are outside of the field.
+    */
+   public int getNumberOfComputedSurfaceCells()
+   {
+      int numberOfComputedChunks = 0;
+      for (int i = 0; i < surfaceChunks.length(); i++)
+      {
+         if (surfaceChunks.get(i) != null)
+            numberOfComputedChunks++;
+      }
+      return numberOfComputedChunks * CHUNK_SIZE * CHUNK_SIZE;
+   }
+}
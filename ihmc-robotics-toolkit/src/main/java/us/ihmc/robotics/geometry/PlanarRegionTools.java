@@ -19,6 +19,7 @@ import us.ihmc.robotics.RegionInWorldInterface;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -1252,4 +1253,55 @@ public class PlanarRegionTools
       Point3D closestPoint = closestPointOnPlane(point, region);
       return closestPoint.epsilonEquals(point, epsilon);
    }
+
+   /**
+    * Matches the regions of two lists by region id and returns the bounding boxes of all the regions that were added, removed or
+    * changed. For a region that changed, the bounding boxes before and after the change are both returned.
+    *
+    * @param previousRegions the regions before the update.
+    * @param currentRegions the regions after the update.
+    * @param epsilon tolerance used to decide whether a region has changed.
+    * @return the bounding boxes of the regions that differ. Returns null when the regions cannot be matched because of missing
+    *       or duplicate region ids.
+    */
+   public static List<BoundingBox3D> computeBoundingBoxesOfChangedRegions(List<PlanarRegion> previousRegions, List<PlanarRegion> currentRegions, double epsilon)
+   {
+      HashMap<Integer, PlanarRegion> previousRegionsById = new HashMap<>();
+      for (int i = 0; i < previousRegions.size(); i++)
+      {
+         PlanarRegion previousRegion = previousRegions.get(i);
+         if (previousRegion.getRegionId() == PlanarRegion.NO_REGION_ID || previousRegionsById.put(previousRegion.getRegionId(), previousRegion) != null)
+            return null;
+      }
+
+      List<BoundingBox3D> changedBoundingBoxes = new ArrayList<>();
+      HashMap<Integer, PlanarRegion> currentRegionsById = new HashMap<>();
+
+      for (int i = 0; i < currentRegions.size(); i++)
+      {
+         PlanarRegion currentRegion = currentRegions.get(i);
+         if (currentRegion.getRegionId() == PlanarRegion.NO_REGION_ID || currentRegionsById.put(currentRegion.getRegionId(), currentRegion) != null)
+            return null;
+
+         PlanarRegion previousRegion = previousRegionsById.get(currentRegion.getRegionId());
+         if (previousRegion == null)
+         {
+            changedBoundingBoxes.add(new BoundingBox3D(currentRegion.getBoundingBox3dInWorld()));
+         }
+         else if (!previousRegion.epsilonEquals(currentRegion, epsilon))
+         {
+            changedBoundingBoxes.add(new BoundingBox3D(previousRegion.getBoundingBox3dInWorld()));
+            changedBoundingBoxes.add(new BoundingBox3D(currentRegion.getBoundingBox3dInWorld()));
+         }
+      }
+
+      for (int i = 0; i < previousRegions.size(); i++)
+      {
+         PlanarRegion previousRegion = previousRegions.get(i);
+         if (!currentRegionsById.containsKey(previousRegion.getRegionId()))
+            changedBoundingBoxes.add(new BoundingBox3D(previousRegion.getBoundingBox3dInWorld()));
+      }
+
+      return changedBoundingBoxes;
+   }
 }
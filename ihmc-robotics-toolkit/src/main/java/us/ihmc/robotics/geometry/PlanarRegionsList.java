@@ -1,12 +1,14 @@
 package us.ihmc.robotics.geometry;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 
 import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.geometry.interfaces.BoundingBox3DReadOnly;
 import us.ihmc.euclid.geometry.interfaces.LineSegment2DReadOnly;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
@@ -14,8 +16,14 @@ import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 
 public class PlanarRegionsList
 {
+   /** Margin added around point queries answered with the spatial index to account for round-off in the region transforms. */
+   private static final double SPATIAL_INDEX_POINT_QUERY_MARGIN = 1.0e-7;
+
    private final List<PlanarRegion> regions;
 
+   private boolean useSpatialIndex = false;
+   private volatile PlanarRegionsListSpatialIndex spatialIndex = null;
+
    public PlanarRegionsList()
    {
       regions = new ArrayList<>();
@@ -48,16 +56,19 @@ public class PlanarRegionsList
    public void addPlanarRegion(PlanarRegion region)
    {
       regions.add(region);
+      invalidateSpatialIndex();
    }
 
    public void addPlanarRegions(List<PlanarRegion> regions)
    {
       this.regions.addAll(regions);
+      invalidateSpatialIndex();
    }
 
    public void addPlanarRegionsList(PlanarRegionsList planarRegionsList)
    {
       regions.addAll(planarRegionsList.getPlanarRegionsAsList());
+      invalidateSpatialIndex();
    }
 
    /**
@@ -66,6 +77,54 @@ public class PlanarRegionsList
    public void clear()
    {
       regions.clear();
+      invalidateSpatialIndex();
+   }
+
+   /**
+    * Enables or disables a uniform grid over the XY bounding boxes of the regions, used to speed up
+    * {@link #findPlanarRegionsIntersectingLineSegment(LineSegment2DReadOnly, List)},
+    * {@link #findPlanarRegionsWithinEpsilonOfPoint(Point3DReadOnly, double, List)},
+    * {@link #findPlanarRegionsIntersectingBoundingBox(BoundingBox3DReadOnly, List)},
+    * {@link #findPlanarRegionsContainingPointByProjectionOntoXYPlane(double, double)} and
+    * {@link #findPlanarRegionsContainingPointByVerticalLineIntersection(double, double)}. Results are
+    * identical to the linear scan and returned in the same order.
+    * <p>
+    * The grid is built on the first query and rebuilt after the list is modified through this class.
+    * If a region is modified directly, {@link #invalidateSpatialIndex()} has to be called.
+    * </p>
+    */
+   public void setUseSpatialIndex(boolean useSpatialIndex)
+   {
+      this.useSpatialIndex = useSpatialIndex;
+      invalidateSpatialIndex();
+   }
+
+   public boolean isUsingSpatialIndex()
+   {
+      return useSpatialIndex;
+   }
+
+   /**
+    * Forces the spatial index to be rebuilt on the next query.
+    */
+   public void invalidateSpatialIndex()
+   {
+      spatialIndex = null;
+   }
+
+   private PlanarRegionsListSpatialIndex getSpatialIndex()
+   {
+      if (!useSpatialIndex)
+         return null;
+
+      PlanarRegionsListSpatialIndex index = spatialIndex;
+      if (index == null || index.getNumberOfRegions() != regions.size())
+      {
+         index = new PlanarRegionsListSpatialIndex(regions);
+         spatialIndex = index;
+      }
+
+      return index;
    }
 
 
@@ -79,19 +138,46 @@ public class PlanarRegionsList
     */
    public void findPlanarRegionsIntersectingLineSegment(LineSegment2DReadOnly lineSegmentInWorld, List<PlanarRegion> intersectingRegionsToPack)
    {
-      for (int i = 0; i < regions.size(); i++)
-      {
-         PlanarRegion candidateRegion = regions.get(i);
-         if (isLineSegmentObviouslyOutsideBoundingBox(candidateRegion, lineSegmentInWorld))
-            continue;
-
-         if (candidateRegion.isVertical())
-            continue;
+      Point2DReadOnly firstEndpoint = lineSegmentInWorld.getFirstEndpoint();
+      Point2DReadOnly secondEndpoint = lineSegmentInWorld.getSecondEndpoint();
+      double queryMinX = Math.min(firstEndpoint.getX(), secondEndpoint.getX());
+      double queryMinY = Math.min(firstEndpoint.getY(), secondEndpoint.getY());
+      double queryMaxX = Math.max(firstEndpoint.getX(), secondEndpoint.getX());
+      double queryMaxY = Math.max(firstEndpoint.getY(), secondEndpoint.getY());
 
-         if (candidateRegion.isLineSegmentIntersecting(lineSegmentInWorld))
+      PlanarRegionsListSpatialIndex index = getSpatialIndex();
+      if (index == null || !PlanarRegionsListSpatialIndex.isQueryValid(queryMinX, queryMinY, queryMaxX, queryMaxY))
+      {
+         for (int i = 0; i < regions.size(); i++)
          {
-            intersectingRegionsToPack.add(candidateRegion);
+            checkLineSegmentIntersection(regions.get(i), lineSegmentInWorld, intersectingRegionsToPack);
          }
+         return;
+      }
+
+      int minCellX = index.toCellX(queryMinX);
+      int minCellY = index.toCellY(queryMinY);
+      int maxCellX = index.toCellX(queryMaxX);
+      int maxCellY = index.toCellY(queryMaxY);
+
+      BitSet candidates = index.collectCandidates(minCellX, minCellY, maxCellX, maxCellY);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+      {
+         checkLineSegmentIntersection(regions.get(i), lineSegmentInWorld, intersectingRegionsToPack);
+      }
+   }
+
+   private void checkLineSegmentIntersection(PlanarRegion candidateRegion, LineSegment2DReadOnly lineSegmentInWorld, List<PlanarRegion> intersectingRegionsToPack)
+   {
+      if (isLineSegmentObviouslyOutsideBoundingBox(candidateRegion, lineSegmentInWorld))
+         return;
+
+      if (candidateRegion.isVertical())
+         return;
+
+      if (candidateRegion.isLineSegmentIntersecting(lineSegmentInWorld))
+      {
+         intersectingRegionsToPack.add(candidateRegion);
       }
    }
 
@@ -105,19 +191,88 @@ public class PlanarRegionsList
     */
    public void findPlanarRegionsWithinEpsilonOfPoint(Point3DReadOnly pointInWorld, double epsilon, List<PlanarRegion> intersectingRegionsToPack)
    {
-      for (int i = 0; i < regions.size(); i++)
+      double queryMinX = pointInWorld.getX() - epsilon;
+      double queryMinY = pointInWorld.getY() - epsilon;
+      double queryMaxX = pointInWorld.getX() + epsilon;
+      double queryMaxY = pointInWorld.getY() + epsilon;
+
+      PlanarRegionsListSpatialIndex index = getSpatialIndex();
+      if (index == null || epsilon < 0.0 || !PlanarRegionsListSpatialIndex.isQueryValid(queryMinX, queryMinY, queryMaxX, queryMaxY))
       {
-         PlanarRegion candidateRegion = regions.get(i);
-         if (isPointXYObviouslyOutsideBoundingBox(candidateRegion, pointInWorld, epsilon))
-            continue;
+         for (int i = 0; i < regions.size(); i++)
+         {
+            checkPointWithinEpsilon(regions.get(i), pointInWorld, epsilon, intersectingRegionsToPack);
+         }
+         return;
+      }
+
+      int minCellX = index.toCellX(queryMinX);
+      int minCellY = index.toCellY(queryMinY);
+      int maxCellX = index.toCellX(queryMaxX);
+      int maxCellY = index.toCellY(queryMaxY);
+
+      BitSet candidates = index.collectCandidates(minCellX, minCellY, maxCellX, maxCellY);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+      {
+         checkPointWithinEpsilon(regions.get(i), pointInWorld, epsilon, intersectingRegionsToPack);
+      }
+   }
 
-         if (candidateRegion.isVertical())
-            continue;
+   /**
+    * Find all the planar regions whose bounding box intersects the given bounding box, see
+    * {@link BoundingBox3DReadOnly#intersectsExclusive(BoundingBox3DReadOnly)}. The regions are packed
+    * in the order they appear in this list.
+    *
+    * @param boundingBoxInWorld        the query.
+    * @param intersectingRegionsToPack list in which the intersecting regions are packed.
+    */
+   public void findPlanarRegionsIntersectingBoundingBox(BoundingBox3DReadOnly boundingBoxInWorld, List<PlanarRegion> intersectingRegionsToPack)
+   {
+      double queryMinX = boundingBoxInWorld.getMinX();
+      double queryMinY = boundingBoxInWorld.getMinY();
+      double queryMaxX = boundingBoxInWorld.getMaxX();
+      double queryMaxY = boundingBoxInWorld.getMaxY();
 
-         if (candidateRegion.isPointInWorld2DInside(pointInWorld, epsilon))
+      PlanarRegionsListSpatialIndex index = getSpatialIndex();
+      if (index == null || !PlanarRegionsListSpatialIndex.isQueryValid(queryMinX, queryMinY, queryMaxX, queryMaxY))
+      {
+         for (int i = 0; i < regions.size(); i++)
          {
-            intersectingRegionsToPack.add(candidateRegion);
+            checkBoundingBoxIntersection(regions.get(i), boundingBoxInWorld, intersectingRegionsToPack);
          }
+         return;
+      }
+
+      int minCellX = index.toCellX(queryMinX);
+      int minCellY = index.toCellY(queryMinY);
+      int maxCellX = index.toCellX(queryMaxX);
+      int maxCellY = index.toCellY(queryMaxY);
+
+      BitSet candidates = index.collectCandidates(minCellX, minCellY, maxCellX, maxCellY);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+      {
+         checkBoundingBoxIntersection(regions.get(i), boundingBoxInWorld, intersectingRegionsToPack);
+      }
+   }
+
+   private static void checkBoundingBoxIntersection(PlanarRegion candidateRegion, BoundingBox3DReadOnly boundingBoxInWorld,
+                                                    List<PlanarRegion> intersectingRegionsToPack)
+   {
+      if (candidateRegion.getBoundingBox3dInWorld().intersectsExclusive(boundingBoxInWorld))
+         intersectingRegionsToPack.add(candidateRegion);
+   }
+
+   private void checkPointWithinEpsilon(PlanarRegion candidateRegion, Point3DReadOnly pointInWorld, double epsilon, List<PlanarRegion> intersectingRegionsToPack)
+   {
+      if (isPointXYObviouslyOutsideBoundingBox(candidateRegion, pointInWorld, epsilon))
+         return;
+
+      if (candidateRegion.isVertical())
+         return;
+
+      if (candidateRegion.isPointInWorld2DInside(pointInWorld, epsilon))
+      {
+         intersectingRegionsToPack.add(candidateRegion);
       }
    }
 
@@ -237,7 +392,30 @@ public class PlanarRegionsList
    {
       List<PlanarRegion> containers = null;
 
-      for (int i = 0; i < regions.size(); i++)
+      PlanarRegionsListSpatialIndex index = getPointQuerySpatialIndex(x, y);
+      if (index == null)
+      {
+         for (int i = 0; i < regions.size(); i++)
+         {
+            PlanarRegion candidateRegion = regions.get(i);
+            if (candidateRegion.isPointInsideByProjectionOntoXYPlane(x, y))
+            {
+               if (containers == null)
+                  containers = new ArrayList<>();
+               containers.add(candidateRegion);
+            }
+         }
+
+         return containers;
+      }
+
+      int minCellX = index.toCellX(x - SPATIAL_INDEX_POINT_QUERY_MARGIN);
+      int minCellY = index.toCellY(y - SPATIAL_INDEX_POINT_QUERY_MARGIN);
+      int maxCellX = index.toCellX(x + SPATIAL_INDEX_POINT_QUERY_MARGIN);
+      int maxCellY = index.toCellY(y + SPATIAL_INDEX_POINT_QUERY_MARGIN);
+
+      BitSet candidates = index.collectCandidates(minCellX, minCellY, maxCellX, maxCellY);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
       {
          PlanarRegion candidateRegion = regions.get(i);
          if (candidateRegion.isPointInsideByProjectionOntoXYPlane(x, y))
@@ -260,7 +438,30 @@ public class PlanarRegionsList
    {
       List<PlanarRegion> containers = null;
 
-      for (int i = 0; i < regions.size(); i++)
+      PlanarRegionsListSpatialIndex index = getPointQuerySpatialIndex(x, y);
+      if (index == null)
+      {
+         for (int i = 0; i < regions.size(); i++)
+         {
+            PlanarRegion candidateRegion = regions.get(i);
+            if (candidateRegion.isPointInsideByVerticalLineIntersection(x, y))
+            {
+               if (containers == null)
+                  containers = new ArrayList<>();
+               containers.add(candidateRegion);
+            }
+         }
+
+         return containers;
+      }
+
+      int minCellX = index.toCellX(x - SPATIAL_INDEX_POINT_QUERY_MARGIN);
+      int minCellY = index.toCellY(y - SPATIAL_INDEX_POINT_QUERY_MARGIN);
+      int maxCellX = index.toCellX(x + SPATIAL_INDEX_POINT_QUERY_MARGIN);
+      int maxCellY = index.toCellY(y + SPATIAL_INDEX_POINT_QUERY_MARGIN);
+
+      BitSet candidates = index.collectCandidates(minCellX, minCellY, maxCellX, maxCellY);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
       {
          PlanarRegion candidateRegion = regions.get(i);
          if (candidateRegion.isPointInsideByVerticalLineIntersection(x, y))
@@ -274,6 +475,14 @@ public class PlanarRegionsList
       return containers;
    }
 
+   private PlanarRegionsListSpatialIndex getPointQuerySpatialIndex(double x, double y)
+   {
+      PlanarRegionsListSpatialIndex index = getSpatialIndex();
+      if (index == null || !PlanarRegionsListSpatialIndex.isQueryValid(x, y, x, y))
+         return null;
+      return index;
+   }
+
    /**
     * Find the closest planar region to the given point. The algorithm is equivalent to
     * projecting all the regions onto the XY-plane and then finding the closest one to the point.
@@ -365,6 +574,7 @@ public class PlanarRegionsList
    /** Retrieves the i<sup>th</sup> planar region of this list and removes it from this list. */
    public PlanarRegion pollPlanarRegion(int index)
    {
+      invalidateSpatialIndex();
       return regions.remove(index);
    }
 
@@ -391,7 +601,9 @@ public class PlanarRegionsList
       for (int i = 0; i < getNumberOfPlanarRegions(); i++)
          planarRegionsCopy.add(regions.get(i).copy());
 
-      return new PlanarRegionsList(planarRegionsCopy);
+      PlanarRegionsList copy = new PlanarRegionsList(planarRegionsCopy);
+      copy.setUseSpatialIndex(useSpatialIndex);
+      return copy;
    }
 
    /**
@@ -405,6 +617,8 @@ public class PlanarRegionsList
       {
          regions.get(i).applyTransform(rigidBodyTransform);
       }
+
+      invalidateSpatialIndex();
    }
 
    public static PlanarRegionsList generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(Random random, int numberOfRandomlyGeneratedPolygons,
@@ -0,0 +1,204 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+
+/**
+ * Uniform grid over the XY bounding boxes of a list of planar regions. Each cell stores the indices
+ * of the regions whose bounding box overlaps the cell. The candidates of a query are gathered in a
+ * bit set so that they are visited once each and in the same order as a linear scan over the list.
+ *
+ * Regions with an undefined bounding box are added to every cell.
+ */
+class PlanarRegionsListSpatialIndex
+{
+   private static final int MAXIMUM_CELLS_PER_AXIS = 256;
+   private static final int TARGET_CELLS_PER_REGION = 2;
+   private static final double MINIMUM_CELL_SIZE = 1.0e-3;
+
+   private static final ThreadLocal<BitSet> threadLocalCandidates = ThreadLocal.withInitial(BitSet::new);
+
+   private final int numberOfRegions;
+
+   private final double minX, minY;
+   private final double cellSizeX, cellSizeY;
+   private final int numberOfCellsX, numberOfCellsY;
+
+   /** Entries of cell {@code i} are stored in {@code cellEntries[cellStarts[i]]} to {@code cellEntries[cellStarts[i + 1] - 1]} */
+   private final int[] cellStarts;
+   private final int[] cellEntries;
+
+   PlanarRegionsListSpatialIndex(List<PlanarRegion> regions)
+   {
+      numberOfRegions = regions.size();
+
+      double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < numberOfRegions; i++)
+      {
+         BoundingBox3D boundingBox = regions.get(i).getBoundingBox3dInWorld();
+         if (!hasValidXYBounds(boundingBox))
+            continue;
+
+         minX = Math.min(minX, boundingBox.getMinX());
+         minY = Math.min(minY, boundingBox.getMinY());
+         maxX = Math.max(maxX, boundingBox.getMaxX());
+         maxY = Math.max(maxY, boundingBox.getMaxY());
+      }
+
+      if (minX > maxX)
+      {
+         minX = minY = 0.0;
+         maxX = maxY = MINIMUM_CELL_SIZE;
+      }
+
+      double sizeX = Math.max(maxX - minX, MINIMUM_CELL_SIZE);
+      double sizeY = Math.max(maxY - minY, MINIMUM_CELL_SIZE);
+      double cellSize = Math.max(Math.sqrt(sizeX * sizeY / Math.max(TARGET_CELLS_PER_REGION * numberOfRegions, 1)), MINIMUM_CELL_SIZE);
+
+      this.minX = minX;
+      this.minY = minY;
+      this.numberOfCellsX = Math.min((int) Math.ceil(sizeX / cellSize), MAXIMUM_CELLS_PER_AXIS);
+      this.numberOfCellsY = Math.min((int) Math.ceil(sizeY / cellSize), MAXIMUM_CELLS_PER_AXIS);
+      this.cellSizeX = sizeX / numberOfCellsX;
+      this.cellSizeY = sizeY / numberOfCellsY;
+
+      int numberOfCells = numberOfCellsX * numberOfCellsY;
+      cellStarts = new int[numberOfCells + 1];
+
+      int[] regionCellRanges = new int[4 * numberOfRegions];
+      for (int i = 0; i < numberOfRegions; i++)
+      {
+         BoundingBox3D boundingBox = regions.get(i).getBoundingBox3dInWorld();
+         int offset = 4 * i;
+
+         if (hasValidXYBounds(boundingBox))
+         {
+            regionCellRanges[offset] = toCellX(boundingBox.getMinX());
+            regionCellRanges[offset + 1] = toCellY(boundingBox.getMinY());
+            regionCellRanges[offset + 2] = toCellX(boundingBox.getMaxX());
+            regionCellRanges[offset + 3] = toCellY(boundingBox.getMaxY());
+         }
+         else
+         {
+            regionCellRanges[offset] = 0;
+            regionCellRanges[offset + 1] = 0;
+            regionCellRanges[offset + 2] = numberOfCellsX - 1;
+            regionCellRanges[offset + 3] = numberOfCellsY - 1;
+         }
+
+         for (int cellX = regionCellRanges[offset]; cellX <= regionCellRanges[offset + 2]; cellX++)
+         {
+            for (int cellY = regionCellRanges[offset + 1]; cellY <= regionCellRanges[offset + 3]; cellY++)
+            {
+               cellStarts[getCellIndex(cellX, cellY) + 1]++;
+            }
+         }
+      }
+
+      for (int i = 0; i < numberOfCells; i++)
+         cellStarts[i + 1] += cellStarts[i];
+
+      cellEntries = new int[cellStarts[numberOfCells]];
+      int[] cellFill = Arrays.copyOf(cellStarts, numberOfCells);
+
+      for (int i = 0; i < numberOfRegions; i++)
+      {
+         int offset = 4 * i;
+         for (int cellX = regionCellRanges[offset]; cellX <= regionCellRanges[offset + 2]; cellX++)
+         {
+            for (int cellY = regionCellRanges[offset + 1]; cellY <= regionCellRanges[offset + 3]; cellY++)
+            {
+               cellEntries[cellFill[getCellIndex(cellX, cellY)]++] = i;
+            }
+         }
+      }
+   }
+
+   private static boolean hasValidXYBounds(BoundingBox3D boundingBox)
+   {
+      return Double.isFinite(boundingBox.getMinX()) && Double.isFinite(boundingBox.getMinY()) && Double.isFinite(boundingBox.getMaxX())
+            && Double.isFinite(boundingBox.getMaxY());
+   }
+
+   /**
+    * Returns the number of regions the index was built for. If it differs from the size of the region list, the index is out of date.
+    */
+   int getNumberOfRegions()
+   {
+      return numberOfRegions;
+   }
+
+   /**
+    * Returns whether the given box can be queried. Query bounds that are NaN or infinite should fall back to a linear scan.
+    */
+   static boolean isQueryValid(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY)
+   {
+      return Double.isFinite(queryMinX) && Double.isFinite(queryMinY) && Double.isFinite(queryMaxX) && Double.isFinite(queryMaxY);
+   }
+
+   int toCellX(double x)
+   {
+      return clampCell((int) Math.floor((x - minX) / cellSizeX), numberOfCellsX);
+   }
+
+   int toCellY(double y)
+   {
+      return clampCell((int) Math.floor((y - minY) / cellSizeY), numberOfCellsY);
+   }
+
+   private static int clampCell(int cell, int numberOfCells)
+   {
+      if (cell < 0)
+         return 0;
+      if (cell >= numberOfCells)
+         return numberOfCells - 1;
+      return cell;
+   }
+
+   private int getCellIndex(int cellX, int cellY)
+   {
+      return cellX * numberOfCellsY + cellY;
+   }
+
+   /**
+    * Marks the regions stored in any cell of the given cell range. Each candidate is marked once, and
+    * iterating over the set bits visits the candidates in ascending order, i.e. the order of a linear
+    * scan.
+    * <p>
+    * The returned set is owned by the calling thread and is reused by its next query, whichever
+    * index it is made on.
+    * </p>
+    */
+   BitSet collectCandidates(int minCellX, int minCellY, int maxCellX, int maxCellY)
+   {
+      BitSet candidates = threadLocalCandidates.get();
+      candidates.clear();
+
+      for (int cellX = minCellX; cellX <= maxCellX; cellX++)
+      {
+         for (int cellY = minCellY; cellY <= maxCellY; cellY++)
+         {
+            int cellIndex = getCellIndex(cellX, cellY);
+
+            for (int entry = cellStarts[cellIndex]; entry < cellStarts[cellIndex + 1]; entry++)
+               candidates.set(cellEntries[entry]);
+         }
+      }
+
+      return candidates;
+   }
+
+   int getNumberOfCellsX()
+   {
+      return numberOfCellsX;
+   }
+
+   int getNumberOfCellsY()
+   {
+      return numberOfCellsY;
+   }
+}
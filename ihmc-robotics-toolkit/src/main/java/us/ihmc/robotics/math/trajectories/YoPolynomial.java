@@ -14,6 +14,19 @@ import us.ihmc.yoVariables.variable.YoInteger;
 
 public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolder
 {
+   /**
+    * Inverses of the constraint matrices of the Hermite boundary-value problems solved in closed form, indexed by the number of conditions
+    * per end point. Row {@code j} of the matrix inverted holds the {@code j}-th derivative of the highest order terms
+    * {@code s^k, k = m..2m-1} at {@code s = 1}.
+    */
+   private static final double[][][] HERMITE_CONSTRAINT_INVERSES = {null,
+                                                                    {{1.0}},
+                                                                    {{3.0, -1.0}, {-2.0, 1.0}},
+                                                                    {{10.0, -4.0, 0.5}, {-15.0, 7.0, -1.0}, {6.0, -3.0, 0.5}},
+                                                                    {{35.0, -15.0, 5.0 / 2.0, -1.0 / 6.0}, {-84.0, 39.0, -7.0, 0.5},
+                                                                     {70.0, -34.0, 13.0 / 2.0, -0.5}, {-20.0, 10.0, -2.0, 1.0 / 6.0}}};
+   private static final int MAXIMUM_NUMBER_OF_HERMITE_CONDITIONS = HERMITE_CONSTRAINT_INVERSES.length - 1;
+
    private final int maximumNumberOfCoefficients;
    private double pos, vel, acc, jerk, dPos;
    private final YoDouble[] a;
@@ -28,6 +41,12 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
 
    private final LinearSolverDense<DMatrixRMaj> solver;
 
+   private boolean useClosedFormSolutions = true;
+   private final double[] hermiteInitialConditions = new double[MAXIMUM_NUMBER_OF_HERMITE_CONDITIONS];
+   private final double[] hermiteFinalConditions = new double[MAXIMUM_NUMBER_OF_HERMITE_CONDITIONS];
+   private final double[] hermiteResiduals = new double[MAXIMUM_NUMBER_OF_HERMITE_CONDITIONS];
+   private final double[] hermiteCoefficients = new double[2 * MAXIMUM_NUMBER_OF_HERMITE_CONDITIONS];
+
    public YoPolynomial(String name, int maximumNumberOfCoefficients, YoRegistry registry)
    {
       this.maximumNumberOfCoefficients = maximumNumberOfCoefficients;
@@ -67,6 +86,15 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
       xPowersDerivativeVector = new DMatrixRMaj(maximumNumberOfCoefficients, 1);
    }
 
+   /**
+    * Sets whether the linear, cubic, quintic, and septic boundary-value problems are solved in closed form rather than with the general linear
+    * solver. Both give the same polynomial within numerical precision, the closed form is much cheaper. Default value is {@code true}.
+    */
+   public void setUseClosedFormSolutions(boolean useClosedFormSolutions)
+   {
+      this.useClosedFormSolutions = useClosedFormSolutions;
+   }
+
    @Override
    public double getPosition()
    {
@@ -143,6 +171,14 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
 
    public void setLinear(double t0, double tFinal, double z0, double zf)
    {
+      if (canUseClosedFormSolution(t0, tFinal))
+      {
+         hermiteInitialConditions[0] = z0;
+         hermiteFinalConditions[0] = zf;
+         solveHermiteBoundaryValueProblem(t0, tFinal, 1);
+         return;
+      }
+
       reshape(2);
       setPositionRow(0, t0, z0);
       setPositionRow(1, tFinal, zf);
@@ -161,6 +197,18 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
 
    public void setQuintic(double t0, double tFinal, double z0, double zd0, double zdd0, double zf, double zdf, double zddf)
    {
+      if (canUseClosedFormSolution(t0, tFinal))
+      {
+         hermiteInitialConditions[0] = z0;
+         hermiteInitialConditions[1] = zd0;
+         hermiteInitialConditions[2] = zdd0;
+         hermiteFinalConditions[0] = zf;
+         hermiteFinalConditions[1] = zdf;
+         hermiteFinalConditions[2] = zddf;
+         solveHermiteBoundaryValueProblem(t0, tFinal, 3);
+         return;
+      }
+
       reshape(6);
       setPositionRow(0, t0, z0);
       setVelocityRow(1, t0, zd0);
@@ -277,6 +325,35 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
       setYoVariables();
    }
 
+   public void setSeptic(double t0, double tFinal, double z0, double zd0, double zdd0, double zddd0, double zf, double zdf, double zddf, double zdddf)
+   {
+      if (canUseClosedFormSolution(t0, tFinal))
+      {
+         hermiteInitialConditions[0] = z0;
+         hermiteInitialConditions[1] = zd0;
+         hermiteInitialConditions[2] = zdd0;
+         hermiteInitialConditions[3] = zddd0;
+         hermiteFinalConditions[0] = zf;
+         hermiteFinalConditions[1] = zdf;
+         hermiteFinalConditions[2] = zddf;
+         hermiteFinalConditions[3] = zdddf;
+         solveHermiteBoundaryValueProblem(t0, tFinal, 4);
+         return;
+      }
+
+      reshape(8);
+      setPositionRow(0, t0, z0);
+      setVelocityRow(1, t0, zd0);
+      setAccelerationRow(2, t0, zdd0);
+      setConstraintRow(3, t0, zddd0, 3);
+      setPositionRow(4, tFinal, zf);
+      setVelocityRow(5, tFinal, zdf);
+      setAccelerationRow(6, tFinal, zddf);
+      setConstraintRow(7, tFinal, zdddf, 3);
+      solveForCoefficients();
+      setYoVariables();
+   }
+
    public void setSepticInitialAndFinalAcceleration(double t0, double tIntermediate0, double tIntermediate1, double tFinal, double z0, double zd0, double zdd0,
                                                     double zIntermediate0, double zIntermediate1, double zf, double zdf, double zddf)
    {
@@ -383,6 +460,12 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
 
    public void setCubic(double t0, double tFinal, double z0, double zFinal)
    {
+      if (canUseClosedFormSolution(t0, tFinal))
+      {
+         setCubic(t0, tFinal, z0, 0.0, zFinal, 0.0);
+         return;
+      }
+
       reshape(4);
       setPositionRow(0, t0, z0);
       setVelocityRow(1, t0, 0.0);
@@ -394,6 +477,16 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
 
    public void setCubic(double t0, double tFinal, double z0, double zd0, double zFinal, double zdFinal)
    {
+      if (canUseClosedFormSolution(t0, tFinal))
+      {
+         hermiteInitialConditions[0] = z0;
+         hermiteInitialConditions[1] = zd0;
+         hermiteFinalConditions[0] = zFinal;
+         hermiteFinalConditions[1] = zdFinal;
+         solveHermiteBoundaryValueProblem(t0, tFinal, 2);
+         return;
+      }
+
       reshape(4);
       setPositionRow(0, t0, z0);
       setVelocityRow(1, t0, zd0);
@@ -568,6 +661,81 @@ public class YoPolynomial implements PolynomialReadOnly, PolynomialVariableHolde
       solver.solve(constraintVector, coefficientVector);
    }
 
+   private boolean canUseClosedFormSolution(double t0, double tFinal)
+   {
+      // A zero duration makes the problem singular, let the general solver handle it as it always did.
+      return useClosedFormSolutions && tFinal != t0;
+   }
+
+   /**
+    * Solves for the polynomial of degree {@code 2 * numberOfConditions - 1} that matches the first {@code numberOfConditions} derivatives
+    * stored in {@link #hermiteInitialConditions} at {@code t0} and in {@link #hermiteFinalConditions} at {@code tFinal}.
+    * <p>
+    * The polynomial is first computed in the local time {@code s = t - t0}: the lower order coefficients are given directly by the initial
+    * conditions, the higher order ones are obtained by applying the precomputed inverse from {@link #HERMITE_CONSTRAINT_INVERSES} to the final
+    * conditions normalized by the duration. The coefficients are then shifted back to be expressed in {@code t}.
+    * </p>
+    */
+   private void solveHermiteBoundaryValueProblem(double t0, double tFinal, int numberOfConditions)
+   {
+      int numberOfCoefficients = 2 * numberOfConditions;
+      reshape(numberOfCoefficients);
+
+      double duration = tFinal - t0;
+      double factorial = 1.0;
+
+      for (int k = 0; k < numberOfConditions; k++)
+      {
+         if (k > 0)
+            factorial *= k;
+         hermiteCoefficients[k] = hermiteInitialConditions[k] / factorial;
+      }
+
+      double durationPower = 1.0;
+
+      for (int j = 0; j < numberOfConditions; j++)
+      {
+         double residual = hermiteFinalConditions[j];
+         double termDurationPower = 1.0;
+
+         for (int k = j; k < numberOfConditions; k++)
+         {
+            residual -= getDerivativeCoefficient(j, k) * hermiteCoefficients[k] * termDurationPower;
+            termDurationPower *= duration;
+         }
+
+         hermiteResiduals[j] = residual * durationPower;
+         durationPower *= duration;
+      }
+
+      double[][] constraintInverse = HERMITE_CONSTRAINT_INVERSES[numberOfConditions];
+      double inverseDurationPower = 1.0 / durationPower;
+
+      for (int i = 0; i < numberOfConditions; i++)
+      {
+         double normalizedCoefficient = 0.0;
+         for (int j = 0; j < numberOfConditions; j++)
+            normalizedCoefficient += constraintInverse[i][j] * hermiteResiduals[j];
+
+         hermiteCoefficients[numberOfConditions + i] = normalizedCoefficient * inverseDurationPower;
+         inverseDurationPower /= duration;
+      }
+
+      // Taylor shift: p(s) -> p(t - t0)
+      if (t0 != 0.0)
+      {
+         for (int i = 0; i < numberOfCoefficients; i++)
+         {
+            for (int k = numberOfCoefficients - 2; k >= i; k--)
+               hermiteCoefficients[k] -= t0 * hermiteCoefficients[k + 1];
+         }
+      }
+
+      for (int i = 0; i < numberOfCoefficients; i++)
+         coefficientVector.set(i, 0, hermiteCoefficients[i]);
+      setYoVariables();
+   }
+
    public void setDirectly(DMatrixRMaj coefficients)
    {
       reshape(coefficients.getNumRows());
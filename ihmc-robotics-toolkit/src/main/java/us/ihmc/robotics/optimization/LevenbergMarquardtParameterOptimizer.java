@@ -10,6 +10,9 @@ import gnu.trove.list.array.TIntArrayList;
 import org.ejml.MatrixDimensionException;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.factory.LinearSolverFactory_DDRM;
+import org.ejml.dense.row.linsol.LinearSolverSafe;
+import org.ejml.interfaces.linsol.LinearSolverDense;
 
 import us.ihmc.commons.Conversions;
 import us.ihmc.commons.RandomNumbers;
@@ -32,6 +35,10 @@ import us.ihmc.matrixlib.MatrixTools;
  * <p>
  * {@linkplain -inv(J^T * J + W_N) * J^T * e }
  * <p>
+ * the jacobian is computed by finite differences unless the output calculator provides it with
+ * {@link OutputCalculator#computeJacobian(DMatrixRMaj, DMatrixRMaj)}. the damped normal equations
+ * are solved with a Cholesky decomposition instead of inverting {@code J^T * J + W_N}.
+ * <p>
  * see the following examples and slides.
  * <p>
  * {@link LevenbergMarquardtICPTest}, {@link LevenbergMarquardtICPVisualizer}.
@@ -54,7 +61,9 @@ public class LevenbergMarquardtParameterOptimizer
 
    private final DMatrixRMaj squaredJacobian;
    private final DMatrixRMaj dampingMatrix;
-   private final DMatrixRMaj invMultJacobianTranspose;
+   private final DMatrixRMaj jacobianTransposeMultError;
+   private final LinearSolverDense<DMatrixRMaj> normalEquationSolver;
+   private final LinearSolverDense<DMatrixRMaj> fallbackSolver;
 
    private final DMatrixRMaj optimizeDirection;
 
@@ -72,6 +81,7 @@ public class LevenbergMarquardtParameterOptimizer
 
    private int iteration;
    private int numberOfCorrespondences;
+   private boolean isLastJacobianAnalytic;
    private boolean optimized;
 
    /**
@@ -96,7 +106,9 @@ public class LevenbergMarquardtParameterOptimizer
 
       squaredJacobian = new DMatrixRMaj(inputParameterDimension, inputParameterDimension);
       dampingMatrix = new DMatrixRMaj(inputParameterDimension, inputParameterDimension);
-      invMultJacobianTranspose = new DMatrixRMaj(inputParameterDimension, outputDimension);
+      jacobianTransposeMultError = new DMatrixRMaj(inputParameterDimension, 1);
+      normalEquationSolver = new LinearSolverSafe<>(LinearSolverFactory_DDRM.symmPosDef(inputParameterDimension));
+      fallbackSolver = new LinearSolverSafe<>(LinearSolverFactory_DDRM.pseudoInverse(true));
 
       optimizeDirection = new DMatrixRMaj(inputParameterDimension, 1);
    }
@@ -150,26 +162,12 @@ public class LevenbergMarquardtParameterOptimizer
 
       numberOfCorrespondences = currentOutputSpace.getNumberOfCorrespondingPoints();
       jacobian.reshape(numberOfCorrespondences, inputDimension);
-      invMultJacobianTranspose.reshape(inputDimension, numberOfCorrespondences);
 
       // start.      
       // compute jacobian.
-      perturbedInput.set(currentInput);
-      for (int i = 0; i < inputDimension; i++)
-      {
-         perturbedInput.add(i, 0, perturbationVector.get(i));
-
-         DMatrixRMaj perturbedOutput = outputCalculator.apply(perturbedInput);
-         DMatrixRMaj currentOutput = currentOutputSpace.getCorrespondingOutput();
-
-         for (int j = 0; j < numberOfCorrespondences; j++)
-         {
-            double partialValue = (perturbedOutput.get(j) - currentOutput.get(j)) / perturbationVector.get(i);
-            jacobian.set(j, i, partialValue);
-         }
-
-         perturbedInput.add(i, 0, -perturbationVector.get(i));
-      }
+      isLastJacobianAnalytic = outputCalculator.computeJacobian(currentInput, jacobian);
+      if (!isLastJacobianAnalytic)
+         computeFiniteDifferenceJacobian();
 
       // compute direction.
       CommonOps_DDRM.multInner(jacobian, squaredJacobian);
@@ -177,10 +175,14 @@ public class LevenbergMarquardtParameterOptimizer
       {
          CommonOps_DDRM.addEquals(squaredJacobian, dampingMatrix);
       }
-      CommonOps_DDRM.invert(squaredJacobian);
+      CommonOps_DDRM.multTransA(jacobian, currentOutputSpace.getCorrespondingOutput(), jacobianTransposeMultError);
 
-      CommonOps_DDRM.multTransB(squaredJacobian, jacobian, invMultJacobianTranspose);
-      CommonOps_DDRM.mult(invMultJacobianTranspose, currentOutputSpace.getCorrespondingOutput(), optimizeDirection);
+      if (normalEquationSolver.setA(squaredJacobian))
+         normalEquationSolver.solve(jacobianTransposeMultError, optimizeDirection);
+      else if (fallbackSolver.setA(squaredJacobian))
+         fallbackSolver.solve(jacobianTransposeMultError, optimizeDirection);
+      else
+         optimizeDirection.zero();
 
       // update currentInput.
       CommonOps_DDRM.subtractEquals(currentInput, optimizeDirection);
@@ -199,6 +201,26 @@ public class LevenbergMarquardtParameterOptimizer
       return currentOutputSpace.getCorrespondingQuality();
    }
 
+   private void computeFiniteDifferenceJacobian()
+   {
+      perturbedInput.set(currentInput);
+      for (int i = 0; i < inputDimension; i++)
+      {
+         perturbedInput.add(i, 0, perturbationVector.get(i));
+
+         DMatrixRMaj perturbedOutput = outputCalculator.apply(perturbedInput);
+         DMatrixRMaj currentOutput = currentOutputSpace.getCorrespondingOutput();
+
+         for (int j = 0; j < numberOfCorrespondences; j++)
+         {
+            double partialValue = (perturbedOutput.get(j) - currentOutput.get(j)) / perturbationVector.get(i);
+            jacobian.set(j, i, partialValue);
+         }
+
+         perturbedInput.add(i, 0, -perturbationVector.get(i));
+      }
+   }
+
    public void convertInputToTransform(DMatrixRMaj input, RigidBodyTransform transformToPack)
    {
       if (input.getData().length != inputDimension)
@@ -236,6 +258,15 @@ public class LevenbergMarquardtParameterOptimizer
       return iteration;
    }
 
+   /**
+    * returns true if the jacobian of the last iteration was provided by the output calculator rather
+    * than computed by finite differences.
+    */
+   public boolean isLastJacobianAnalytic()
+   {
+      return isLastJacobianAnalytic;
+   }
+
    public static Function<DMatrixRMaj, RigidBodyTransform> createSpatialInputFunction(boolean includePitchAndRoll)
    {
       return new Function<DMatrixRMaj, RigidBodyTransform>()
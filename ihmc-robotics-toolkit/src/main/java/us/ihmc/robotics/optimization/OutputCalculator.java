@@ -12,4 +12,18 @@ public interface OutputCalculator extends UnaryOperator<DMatrixRMaj>
 
    default void resetIndicesToCompute()
    {}
+
+   /**
+    * Packs the analytic Jacobian of the output with respect to the input. The rows correspond to the
+    * indices set with {@link #setIndicesToCompute(TIntArrayList)}, in the same order.
+    *
+    * @param input          the input at which the Jacobian is evaluated.
+    * @param jacobianToPack the Jacobian, already reshaped to (number of indices) x (input dimension).
+    * @return {@code false} if the analytic Jacobian is not available, in which case the optimizer
+    *         computes it by finite differences.
+    */
+   default boolean computeJacobian(DMatrixRMaj input, DMatrixRMaj jacobianToPack)
+   {
+      return false;
+   }
 }
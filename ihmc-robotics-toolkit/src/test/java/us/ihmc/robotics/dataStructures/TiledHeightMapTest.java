@@ -0,0 +1,154 @@
+package us.ihmc.robotics.dataStructures;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+
+public class TiledHeightMapTest extends AbstractHeightMapTest
+{
+   private static final double RESOLUTION = 0.1;
+   private static final double eps = 1e-7;
+
+   @Test
+   public void testAgainstDoubleHashHeightMap()
+   {
+      Random random = new Random(3487L);
+      TiledHeightMap tiledHeightMap = new TiledHeightMap(RESOLUTION);
+      HeightMapWithPoints referenceHeightMap = new DoubleHashHeightMap(RESOLUTION);
+
+      for (int i = 0; i < 20000; i++)
+      {
+         double x = 20.0 * (random.nextDouble() - 0.5);
+         double y = 20.0 * (random.nextDouble() - 0.5);
+         double z = random.nextInt(20) == 0 ? Double.NaN : random.nextDouble();
+         tiledHeightMap.addPoint(x, y, z);
+         referenceHeightMap.addPoint(x, y, z);
+      }
+
+      for (int i = 0; i < 10000; i++)
+      {
+         double x = 22.0 * (random.nextDouble() - 0.5);
+         double y = 22.0 * (random.nextDouble() - 0.5);
+         assertEquals(referenceHeightMap.containsPoint(x, y), tiledHeightMap.containsPoint(x, y));
+         assertEquals(referenceHeightMap.getHeightAtPoint(x, y), tiledHeightMap.getHeightAtPoint(x, y), eps);
+      }
+
+      for (int i = 0; i < 100; i++)
+      {
+         double xCenter = 22.0 * (random.nextDouble() - 0.5);
+         double yCenter = 22.0 * (random.nextDouble() - 0.5);
+         double xExtent = 5.0 * random.nextDouble();
+         double yExtent = 5.0 * random.nextDouble();
+
+         List<Point3D> expectedPoints = referenceHeightMap.getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent);
+         List<Point3D> actualPoints = tiledHeightMap.getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent);
+         assertPointsEqual(sortByXThenY(expectedPoints), actualPoints);
+      }
+
+      // Area larger than the table, iterating over the stored tiles
+      List<Point3D> expectedPoints = referenceHeightMap.getAllPointsWithinArea(0.0, 0.0, 1000.0, 1000.0);
+      List<Point3D> actualPoints = tiledHeightMap.getAllPointsWithinArea(0.0, 0.0, 1000.0, 1000.0);
+      assertPointsEqual(sortByXThenY(expectedPoints), actualPoints);
+   }
+
+   @Test
+   public void testBulkInsertion()
+   {
+      Random random = new Random(9082L);
+      int numberOfPoints = 5000;
+      float[] pointCloud = new float[3 * numberOfPoints];
+      List<Point3D> points = new ArrayList<>();
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         Point3D point = new Point3D(10.0 * (random.nextDouble() - 0.5), 10.0 * (random.nextDouble() - 0.5), random.nextDouble());
+         point.set((float) point.getX(), (float) point.getY(), (float) point.getZ());
+         points.add(point);
+         pointCloud[3 * i] = (float) point.getX();
+         pointCloud[3 * i + 1] = (float) point.getY();
+         pointCloud[3 * i + 2] = (float) point.getZ();
+      }
+
+      TiledHeightMap heightMapFromList = new TiledHeightMap(RESOLUTION);
+      TiledHeightMap heightMapFromPointCloud = new TiledHeightMap(RESOLUTION);
+      TiledHeightMap heightMapFromSinglePoints = new TiledHeightMap(RESOLUTION);
+      heightMapFromList.addPoints(points);
+      heightMapFromPointCloud.addPoints(pointCloud, numberOfPoints);
+      for (Point3D point : points)
+         heightMapFromSinglePoints.addPoint(point.getX(), point.getY(), point.getZ());
+
+      List<Point3D> expectedPoints = heightMapFromSinglePoints.getAllPointsWithinArea(0.0, 0.0, 12.0, 12.0);
+      assertPointsEqual(expectedPoints, heightMapFromList.getAllPointsWithinArea(0.0, 0.0, 12.0, 12.0));
+      assertPointsEqual(expectedPoints, heightMapFromPointCloud.getAllPointsWithinArea(0.0, 0.0, 12.0, 12.0));
+   }
+
+   @Test
+   public void testTilesAndMemoryFootprint()
+   {
+      TiledHeightMap heightMap = new TiledHeightMap(RESOLUTION);
+      assertEquals(0, heightMap.getNumberOfTiles());
+
+      // Cells on both sides of the origin along each axis belong to different tiles.
+      heightMap.addPoint(0.0, 0.0, 1.0);
+      heightMap.addPoint(-RESOLUTION, 0.0, 2.0);
+      heightMap.addPoint(0.0, -RESOLUTION, 3.0);
+      heightMap.addPoint((TiledHeightMap.TILE_SIZE - 1) * RESOLUTION, (TiledHeightMap.TILE_SIZE - 1) * RESOLUTION, 4.0);
+      assertEquals(3, heightMap.getNumberOfTiles());
+      assertEquals(1.0, heightMap.getHeightAtPoint(0.0, 0.0), eps);
+      assertEquals(2.0, heightMap.getHeightAtPoint(-RESOLUTION, 0.0), eps);
+      assertEquals(3.0, heightMap.getHeightAtPoint(0.0, -RESOLUTION), eps);
+      assertFalse(heightMap.containsPoint(-RESOLUTION, -RESOLUTION));
+
+      long footprintWithThreeTiles = heightMap.getMemoryFootprint();
+      assertTrue(footprintWithThreeTiles >= 3 * TiledHeightMap.getTileMemoryFootprint());
+
+      for (int i = 0; i < 1000; i++)
+         heightMap.addPoint(i * TiledHeightMap.TILE_SIZE * RESOLUTION, 0.0, i);
+      assertEquals(1002, heightMap.getNumberOfTiles());
+      assertTrue(heightMap.getMemoryFootprint() >= 1002 * TiledHeightMap.getTileMemoryFootprint());
+      for (int i = 0; i < 1000; i++)
+         assertEquals(i, heightMap.getHeightAtPoint(i * TiledHeightMap.TILE_SIZE * RESOLUTION, 0.0), eps);
+
+      heightMap.clear();
+      assertEquals(0, heightMap.getNumberOfTiles());
+      assertFalse(heightMap.containsPoint(0.0, 0.0));
+      assertTrue(heightMap.getMemoryFootprint() < footprintWithThreeTiles);
+   }
+
+   private static List<Point3D> sortByXThenY(List<Point3D> points)
+   {
+      List<Point3D> sortedPoints = new ArrayList<>(points);
+      sortedPoints.sort((pointA, pointB) ->
+      {
+         int comparison = Double.compare(pointA.getX(), pointB.getX());
+         return comparison != 0 ? comparison : Double.compare(pointA.getY(), pointB.getY());
+      });
+      return sortedPoints;
+   }
+
+   private static void assertPointsEqual(List<Point3D> expectedPoints, List<Point3D> actualPoints)
+   {
+      assertEquals(expectedPoints.size(), actualPoints.size());
+
+      for (int i = 0; i < expectedPoints.size(); i++)
+      {
+         assertEquals(expectedPoints.get(i).getX(), actualPoints.get(i).getX(), eps);
+         assertEquals(expectedPoints.get(i).getY(), actualPoints.get(i).getY(), eps);
+         assertEquals(expectedPoints.get(i).getZ(), actualPoints.get(i).getZ(), eps);
+      }
+   }
+
+   @Override
+   public HeightMapWithPoints getHeightMap(double minX, double minY, double maxX, double maxY, double resolution)
+   {
+      return new TiledHeightMap(resolution);
+   }
+}
@@ -0,0 +1,207 @@
+package us.ihmc.robotics.geometry;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertNull;
+import static us.ihmc.robotics.Assert.assertTrue;
+import static us.ihmc.robotics.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.interfaces.UnitVector3DReadOnly;
+
+public class PlanarRegionSnapFieldTest
+{
+   private static final int iters = 5;
+   private static final double gridSize = 0.1;
+   private static final double epsilon = 1.0e-5;
+
+   @Test
+   public void testAgainstBruteForce()
+   {
+      Random random = new Random(2378L);
+
+      for (int iter = 0; iter < iters; iter++)
+      {
+         PlanarRegionsList planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 2, 3.0, 6, 20);
+         PlanarRegionSnapField snapField = PlanarRegionSnapField.build(planarRegionsList, gridSize);
+
+         for (int xIndex = -150; xIndex <= 150; xIndex += 1 + random.nextInt(3))
+         {
+            for (int yIndex = -150; yIndex <= 150; yIndex += 1 + random.nextInt(3))
+            {
+               assertCandidateRegionsAreCorrect(planarRegionsList, snapField, xIndex, yIndex);
+               assertHighestRegionIsCorrect(planarRegionsList, snapField, xIndex, yIndex);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testCandidateRegionsOfArea()
+   {
+      Random random = new Random(7729L);
+      TIntArrayList candidateRegionIndices = new TIntArrayList();
+
+      for (int iter = 0; iter < iters; iter++)
+      {
+         PlanarRegionsList planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 2, 3.0, 6, 20);
+         PlanarRegionSnapField snapField = PlanarRegionSnapField.build(planarRegionsList, gridSize);
+
+         for (int i = 0; i < 1000; i++)
+         {
+            double xMin = 30.0 * (random.nextDouble() - 0.5);
+            double yMin = 30.0 * (random.nextDouble() - 0.5);
+            double xMax = xMin + 0.5 * random.nextDouble();
+            double yMax = yMin + 0.5 * random.nextDouble();
+            snapField.getCandidateRegionIndices(xMin, yMin, xMax, yMax, candidateRegionIndices);
+
+            for (int j = 1; j < candidateRegionIndices.size(); j++)
+               assertTrue(candidateRegionIndices.get(j - 1) < candidateRegionIndices.get(j));
+
+            for (int regionIndex = 0; regionIndex < planarRegionsList.getNumberOfPlanarRegions(); regionIndex++)
+            {
+               BoundingBox3D boundingBox = planarRegionsList.getPlanarRegion(regionIndex).getBoundingBox3dInWorld();
+               if (overlaps(boundingBox, xMin, yMin, xMax, yMax, 0.0))
+                  assertTrue(candidateRegionIndices.contains(regionIndex));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testEmptyAndInvalidInputs()
+   {
+      assertNull(PlanarRegionSnapField.build(null, gridSize));
+      assertNull(PlanarRegionSnapField.build(new PlanarRegionsList(), gridSize));
+      // A huge region at a fine resolution is not rasterized.
+      assertNull(PlanarRegionSnapField.build(PlanarRegionsList.flatGround(1000.0), 0.05));
+
+      try
+      {
+         PlanarRegionSnapField.build(PlanarRegionsList.flatGround(1.0), 0.0);
+         fail("Should have thrown an exception.");
+      }
+      catch (IllegalArgumentException e)
+      {
+         // Good
+      }
+
+      PlanarRegionSnapField snapField = PlanarRegionSnapField.build(PlanarRegionsList.flatGround(1.0), gridSize);
+      assertEquals(0, snapField.getRegionIndex(0, 0));
+      assertEquals(0.0, snapField.getHeight(0, 0), epsilon);
+      assertEquals(1.0, snapField.getNormal(0, 0, 2), epsilon);
+      assertEquals(0.5, snapField.getEdgeDistance(0, 0), epsilon);
+      assertEquals(0.1, snapField.getEdgeDistance(4, 2), epsilon);
+      assertEquals(-1, snapField.getRegionIndex(100, 0));
+      assertEquals(0, snapField.getNumberOfCandidateRegions(100, 0));
+      assertTrue(Double.isNaN(snapField.getHeight(100, 0)));
+   }
+
+   @Test
+   public void testCellsAreComputedWhenQueried()
+   {
+      PlanarRegionSnapField snapField = PlanarRegionSnapField.build(PlanarRegionsList.flatGround(20.0), gridSize);
+      assertEquals(0, snapField.getNumberOfComputedCells());
+
+      // The candidate regions, used by the snappers, do not compute the highest region.
+      assertEquals(1, snapField.getNumberOfCandidateRegions(0, 0));
+      assertTrue(snapField.getNumberOfComputedCells() > 0);
+      assertEquals(0, snapField.getNumberOfComputedSurfaceCells());
+
+      assertEquals(0, snapField.getRegionIndex(0, 0));
+      assertEquals(snapField.getNumberOfComputedCells(), snapField.getNumberOfComputedSurfaceCells());
+      assertTrue(snapField.getNumberOfComputedCells() < snapField.getNumberOfCells() / 100);
+   }
+
+   @Test
+   public void testHighestRegionOfCloseHeights()
+   {
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setTranslation(0.0, 0.0, 1.0 + 3.0e-8);
+      PlanarRegion higherRegion = PlanarRegionsList.flatGround(1.0, transform).getPlanarRegion(0);
+      transform.setTranslation(0.0, 0.0, 1.0 + 2.0e-8);
+      PlanarRegion lowerRegion = PlanarRegionsList.flatGround(1.0, transform).getPlanarRegion(0);
+
+      // Both heights round to the same float, the comparison has to be done on the doubles.
+      PlanarRegionSnapField snapField = PlanarRegionSnapField.build(new PlanarRegionsList(higherRegion, lowerRegion), gridSize);
+      assertEquals(0, snapField.getRegionIndex(0, 0));
+      assertEquals(1.0 + 3.0e-8, snapField.getHeight(0, 0), 1.0e-12);
+   }
+
+   private static void assertCandidateRegionsAreCorrect(PlanarRegionsList planarRegionsList, PlanarRegionSnapField snapField, int xIndex, int yIndex)
+   {
+      double x = xIndex * gridSize;
+      double y = yIndex * gridSize;
+      double xMin = x - 0.5 * gridSize, xMax = x + 0.5 * gridSize;
+      double yMin = y - 0.5 * gridSize, yMax = y + 0.5 * gridSize;
+      int numberOfCandidateRegions = snapField.getNumberOfCandidateRegions(xIndex, yIndex);
+      int candidate = 0;
+
+      for (int regionIndex = 0; regionIndex < planarRegionsList.getNumberOfPlanarRegions(); regionIndex++)
+      {
+         BoundingBox3D boundingBox = planarRegionsList.getPlanarRegion(regionIndex).getBoundingBox3dInWorld();
+         boolean isCandidate = candidate < numberOfCandidateRegions && snapField.getCandidateRegionIndex(xIndex, yIndex, candidate) == regionIndex;
+
+         if (overlaps(boundingBox, xMin, yMin, xMax, yMax, 0.0))
+            assertTrue(isCandidate);
+         else if (!overlaps(boundingBox, xMin, yMin, xMax, yMax, 1.0e-6))
+            assertFalse(isCandidate);
+
+         if (isCandidate)
+            candidate++;
+      }
+
+      assertEquals(numberOfCandidateRegions, candidate);
+   }
+
+   private static void assertHighestRegionIsCorrect(PlanarRegionsList planarRegionsList, PlanarRegionSnapField snapField, int xIndex, int yIndex)
+   {
+      double x = xIndex * gridSize;
+      double y = yIndex * gridSize;
+      int expectedRegionIndex = -1;
+      double expectedHeight = Double.NEGATIVE_INFINITY;
+
+      for (int regionIndex = 0; regionIndex < planarRegionsList.getNumberOfPlanarRegions(); regionIndex++)
+      {
+         PlanarRegion planarRegion = planarRegionsList.getPlanarRegion(regionIndex);
+         if (planarRegion.isVertical() || !planarRegion.isPointInsideByProjectionOntoXYPlane(x, y))
+            continue;
+
+         double height = planarRegion.getPlaneZGivenXY(x, y);
+         if (height > expectedHeight)
+         {
+            expectedRegionIndex = regionIndex;
+            expectedHeight = height;
+         }
+      }
+
+      assertEquals(expectedRegionIndex, snapField.getRegionIndex(xIndex, yIndex));
+
+      if (expectedRegionIndex == -1)
+      {
+         assertTrue(Double.isNaN(snapField.getHeight(xIndex, yIndex)));
+         return;
+      }
+
+      PlanarRegion planarRegion = planarRegionsList.getPlanarRegion(expectedRegionIndex);
+      UnitVector3DReadOnly normal = planarRegion.getNormal();
+      assertEquals(expectedHeight, snapField.getHeight(xIndex, yIndex), epsilon);
+      assertEquals(normal.getX(), snapField.getNormal(xIndex, yIndex, 0), epsilon);
+      assertEquals(normal.getY(), snapField.getNormal(xIndex, yIndex, 1), epsilon);
+      assertEquals(normal.getZ(), snapField.getNormal(xIndex, yIndex, 2), epsilon);
+      // The center is inside one of the convex polygons, so inside the convex hull.
+      assertTrue(snapField.getEdgeDistance(xIndex, yIndex) > -epsilon);
+   }
+
+   private static boolean overlaps(BoundingBox3D boundingBox, double xMin, double yMin, double xMax, double yMax, double margin)
+   {
+      return boundingBox.getMinX() <= xMax + margin && boundingBox.getMaxX() >= xMin - margin && boundingBox.getMinY() <= yMax + margin
+            && boundingBox.getMaxY() >= yMin - margin;
+   }
+}
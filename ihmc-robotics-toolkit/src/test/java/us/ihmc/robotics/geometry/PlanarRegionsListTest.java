@@ -4,13 +4,16 @@ import static us.ihmc.robotics.Assert.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
 import us.ihmc.commons.MutationTestFacilitator;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Disabled;
+import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.geometry.LineSegment2D;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.euclid.tuple3D.Point3D;
@@ -149,6 +152,133 @@ public class PlanarRegionsListTest
 
    }
 
+   @Test
+   public void testSpatialIndexQueriesMatchLinearSearch()
+   {
+      Random random = new Random(1738L);
+
+      for (int iteration = 0; iteration < 20; iteration++)
+      {
+         PlanarRegionsList linearRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 3, 2.0, 6, 60);
+         PlanarRegionsList indexedRegionsList = new PlanarRegionsList(new ArrayList<>(linearRegionsList.getPlanarRegionsAsList()));
+         indexedRegionsList.setUseSpatialIndex(true);
+
+         for (int query = 0; query < 200; query++)
+         {
+            double x = 10.0 * (random.nextDouble() - 0.5);
+            double y = 10.0 * (random.nextDouble() - 0.5);
+
+            assertEquals(linearRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y),
+                         indexedRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y));
+            assertEquals(linearRegionsList.findPlanarRegionsContainingPointByVerticalLineIntersection(x, y),
+                         indexedRegionsList.findPlanarRegionsContainingPointByVerticalLineIntersection(x, y));
+
+            Point3D point = new Point3D(x, y, 0.0);
+            double epsilon = 0.1 * random.nextDouble();
+            List<PlanarRegion> expected = new ArrayList<>();
+            List<PlanarRegion> actual = new ArrayList<>();
+            linearRegionsList.findPlanarRegionsWithinEpsilonOfPoint(point, epsilon, expected);
+            indexedRegionsList.findPlanarRegionsWithinEpsilonOfPoint(point, epsilon, actual);
+            assertEquals(expected, actual);
+
+            LineSegment2D lineSegment = new LineSegment2D(x, y, x + 2.0 * (random.nextDouble() - 0.5), y + 2.0 * (random.nextDouble() - 0.5));
+            expected.clear();
+            actual.clear();
+            linearRegionsList.findPlanarRegionsIntersectingLineSegment(lineSegment, expected);
+            indexedRegionsList.findPlanarRegionsIntersectingLineSegment(lineSegment, actual);
+            assertEquals(expected, actual);
+         }
+      }
+   }
+
+   @Test
+   public void testSpatialIndexQueriesMatchBruteForceScanWithManyRegions()
+   {
+      Random random = new Random(95123L);
+
+      PlanarRegionsList indexedRegionsList = new PlanarRegionsList();
+      while (indexedRegionsList.getNumberOfPlanarRegions() < 1000)
+         indexedRegionsList.addPlanarRegion(PlanarRegion.generatePlanarRegionFromRandomPolygonsWithRandomTransform(random, 2, 1.0, 6));
+      indexedRegionsList.setUseSpatialIndex(true);
+      List<PlanarRegion> regions = indexedRegionsList.getPlanarRegionsAsList();
+      PlanarRegionsList linearRegionsList = new PlanarRegionsList(new ArrayList<>(regions));
+
+      List<PlanarRegion> expected = new ArrayList<>();
+      List<PlanarRegion> actual = new ArrayList<>();
+
+      for (int query = 0; query < 2000; query++)
+      {
+         // Queries range a bit outside of the regions to also exercise the clamping to the grid.
+         double x = 25.0 * (random.nextDouble() - 0.5);
+         double y = 25.0 * (random.nextDouble() - 0.5);
+
+         expected.clear();
+         for (PlanarRegion region : regions)
+         {
+            if (region.isPointInsideByProjectionOntoXYPlane(x, y))
+               expected.add(region);
+         }
+         assertEquals(expected.isEmpty() ? null : expected, indexedRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y));
+
+         expected.clear();
+         for (PlanarRegion region : regions)
+         {
+            if (region.isPointInsideByVerticalLineIntersection(x, y))
+               expected.add(region);
+         }
+         assertEquals(expected.isEmpty() ? null : expected, indexedRegionsList.findPlanarRegionsContainingPointByVerticalLineIntersection(x, y));
+
+         double halfSizeX = 3.0 * random.nextDouble();
+         double halfSizeY = 3.0 * random.nextDouble();
+         double z = 10.0 * (random.nextDouble() - 0.5);
+         BoundingBox3D boundingBox = new BoundingBox3D(x - halfSizeX, y - halfSizeY, z - 1.0, x + halfSizeX, y + halfSizeY, z + 1.0);
+         expected.clear();
+         for (PlanarRegion region : regions)
+         {
+            if (region.getBoundingBox3dInWorld().intersectsExclusive(boundingBox))
+               expected.add(region);
+         }
+         actual.clear();
+         indexedRegionsList.findPlanarRegionsIntersectingBoundingBox(boundingBox, actual);
+         assertEquals(expected, actual);
+
+         Point3D point = new Point3D(x, y, z);
+         double epsilon = 0.5 * random.nextDouble();
+         expected.clear();
+         actual.clear();
+         linearRegionsList.findPlanarRegionsWithinEpsilonOfPoint(point, epsilon, expected);
+         indexedRegionsList.findPlanarRegionsWithinEpsilonOfPoint(point, epsilon, actual);
+         assertEquals(expected, actual);
+
+         LineSegment2D lineSegment = new LineSegment2D(x, y, x + 10.0 * (random.nextDouble() - 0.5), y + 10.0 * (random.nextDouble() - 0.5));
+         expected.clear();
+         actual.clear();
+         linearRegionsList.findPlanarRegionsIntersectingLineSegment(lineSegment, expected);
+         indexedRegionsList.findPlanarRegionsIntersectingLineSegment(lineSegment, actual);
+         assertEquals(expected, actual);
+      }
+
+      assertTrue(indexedRegionsList.isUsingSpatialIndex());
+   }
+
+   @Test
+   public void testSpatialIndexIsInvalidatedWhenRegionsChange()
+   {
+      PlanarRegionsList planarRegionsList = PlanarRegionsList.flatGround(1.0);
+      planarRegionsList.setUseSpatialIndex(true);
+      assertNull(planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(5.0, 0.0));
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.getTranslation().set(5.0, 0.0, 0.0);
+      planarRegionsList.addPlanarRegion(PlanarRegionsList.flatGround(1.0, transform).getLastPlanarRegion());
+      assertEquals(1, planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(5.0, 0.0).size());
+
+      planarRegionsList.applyTransform(transform);
+      assertEquals(1, planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(5.0, 0.0).size());
+      assertNull(planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(0.0, 0.0));
+      assertEquals(1, planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(10.0, 0.0).size());
+   }
+
    public static void main(String[] args)
    {
       MutationTestFacilitator.facilitateMutationTestForClass(PlanarRegionsList.class, PlanarRegionsListTest.class);
@@ -2,9 +2,12 @@ package us.ihmc.robotics.math.trajectories;
 
 import static us.ihmc.robotics.Assert.assertEquals;
 
+import java.util.Random;
+
 import org.ejml.data.DMatrixRMaj;
 import org.junit.jupiter.api.Test;
 
+import us.ihmc.commons.RandomNumbers;
 import us.ihmc.yoVariables.registry.YoRegistry;
 
 public class YoPolynomialTest
@@ -206,6 +209,69 @@ public class YoPolynomialTest
       }
    }
    
+   @Test
+   public void testClosedFormSolutionsMatchGeneralSolver()
+   {
+      Random random = new Random(3452);
+      YoRegistry registry = new YoRegistry(namePrefix);
+      YoPolynomial closedForm = new YoPolynomial(namePrefix + "ClosedForm", 8, registry);
+      YoPolynomial general = new YoPolynomial(namePrefix + "General", 8, registry);
+      general.setUseClosedFormSolutions(false);
+
+      for (int iteration = 0; iteration < 1000; iteration++)
+      {
+         double t0 = random.nextBoolean() ? 0.0 : RandomNumbers.nextDouble(random, 1.0);
+         double tFinal = t0 + RandomNumbers.nextDouble(random, 0.5, 3.0);
+         double[] z = RandomNumbers.nextDoubleArray(random, 8, 3.0);
+
+         closedForm.setLinear(t0, tFinal, z[0], z[1]);
+         general.setLinear(t0, tFinal, z[0], z[1]);
+         assertPolynomialsEqual(general, closedForm, t0, tFinal);
+
+         closedForm.setCubic(t0, tFinal, z[0], z[1]);
+         general.setCubic(t0, tFinal, z[0], z[1]);
+         assertPolynomialsEqual(general, closedForm, t0, tFinal);
+
+         closedForm.setCubic(t0, tFinal, z[0], z[1], z[2], z[3]);
+         general.setCubic(t0, tFinal, z[0], z[1], z[2], z[3]);
+         assertPolynomialsEqual(general, closedForm, t0, tFinal);
+
+         closedForm.setQuintic(t0, tFinal, z[0], z[1], z[2], z[3], z[4], z[5]);
+         general.setQuintic(t0, tFinal, z[0], z[1], z[2], z[3], z[4], z[5]);
+         assertPolynomialsEqual(general, closedForm, t0, tFinal);
+
+         closedForm.setSeptic(t0, tFinal, z[0], z[1], z[2], z[3], z[4], z[5], z[6], z[7]);
+         general.setSeptic(t0, tFinal, z[0], z[1], z[2], z[3], z[4], z[5], z[6], z[7]);
+         assertPolynomialsEqual(general, closedForm, t0, tFinal);
+
+         closedForm.compute(t0);
+         assertEquals(z[0], closedForm.getPosition(), EPSILON);
+         assertEquals(z[1], closedForm.getVelocity(), EPSILON);
+         assertEquals(z[2], closedForm.getAcceleration(), EPSILON);
+         assertEquals(z[3], closedForm.getJerk(), EPSILON);
+         closedForm.compute(tFinal);
+         assertEquals(z[4], closedForm.getPosition(), EPSILON);
+         assertEquals(z[5], closedForm.getVelocity(), EPSILON);
+         assertEquals(z[6], closedForm.getAcceleration(), EPSILON);
+         assertEquals(z[7], closedForm.getJerk(), EPSILON);
+      }
+   }
+
+   private static void assertPolynomialsEqual(YoPolynomial expected, YoPolynomial actual, double t0, double tFinal)
+   {
+      assertEquals(expected.getNumberOfCoefficients(), actual.getNumberOfCoefficients());
+
+      for (double alpha = 0.0; alpha <= 1.0; alpha += 0.1)
+      {
+         double t = t0 + alpha * (tFinal - t0);
+         expected.compute(t);
+         actual.compute(t);
+         assertEquals(expected.getPosition(), actual.getPosition(), EPSILON);
+         assertEquals(expected.getVelocity(), actual.getVelocity(), EPSILON);
+         assertEquals(expected.getAcceleration(), actual.getAcceleration(), EPSILON);
+      }
+   }
+
    public void compareXPowersDerivativesVector(YoPolynomial polynomial, double x)
    {
       double[] coefficients = polynomial.getCoefficients();
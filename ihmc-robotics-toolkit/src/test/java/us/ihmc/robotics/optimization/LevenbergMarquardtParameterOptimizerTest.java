@@ -0,0 +1,161 @@
+package us.ihmc.robotics.optimization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.ejml.data.DMatrixRMaj;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.Axis3D;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+
+public class LevenbergMarquardtParameterOptimizerTest
+{
+   private static final int NUMBER_OF_POINTS = 50;
+
+   @Test
+   public void testFiniteDifferenceAndAnalyticJacobianConverge()
+   {
+      Random random = new Random(2345);
+
+      List<Point3D> points = new ArrayList<>();
+      List<Vector3D> normals = new ArrayList<>();
+      for (int i = 0; i < NUMBER_OF_POINTS; i++)
+      {
+         points.add(EuclidCoreRandomTools.nextPoint3D(random, 1.0));
+         normals.add(EuclidCoreRandomTools.nextVector3DWithFixedLength(random, 1.0));
+      }
+
+      DMatrixRMaj expectedInput = new DMatrixRMaj(4, 1);
+      expectedInput.set(0, 0.05);
+      expectedInput.set(1, -0.03);
+      expectedInput.set(2, 0.02);
+      expectedInput.set(3, 0.1);
+
+      Function<DMatrixRMaj, RigidBodyTransform> inputFunction = LevenbergMarquardtParameterOptimizer.createSpatialInputFunction(false);
+      RigidBodyTransform expectedTransform = inputFunction.apply(expectedInput);
+      List<Point3D> targets = new ArrayList<>();
+      for (Point3D point : points)
+      {
+         Point3D target = new Point3D(point);
+         expectedTransform.transform(target);
+         targets.add(target);
+      }
+
+      for (boolean useAnalyticJacobian : new boolean[] {false, true})
+      {
+         PointToPlaneCalculator outputCalculator = new PointToPlaneCalculator(inputFunction, points, normals, targets, useAnalyticJacobian);
+         LevenbergMarquardtParameterOptimizer optimizer = new LevenbergMarquardtParameterOptimizer(inputFunction, outputCalculator, 4, NUMBER_OF_POINTS);
+         assertTrue(optimizer.initialize());
+
+         for (int i = 0; i < 20; i++)
+            optimizer.iterate();
+
+         assertEquals(useAnalyticJacobian, optimizer.isLastJacobianAnalytic());
+         for (int i = 0; i < 4; i++)
+            assertEquals(expectedInput.get(i), optimizer.getOptimalParameter().get(i), 1.0e-6);
+         assertEquals(0.0, optimizer.getQuality(), 1.0e-10);
+      }
+   }
+
+   @Test
+   public void testDefaultCalculatorHasNoJacobian()
+   {
+      OutputCalculator outputCalculator = input -> input;
+      assertFalse(outputCalculator.computeJacobian(new DMatrixRMaj(1, 1), new DMatrixRMaj(1, 1)));
+   }
+
+   /**
+    * Signed distances from the transformed points to the planes going through the targets.
+    */
+   private static class PointToPlaneCalculator implements OutputCalculator
+   {
+      private final Function<DMatrixRMaj, RigidBodyTransform> inputFunction;
+      private final List<Point3D> points;
+      private final List<Vector3D> normals;
+      private final List<Point3D> targets;
+      private final boolean useAnalyticJacobian;
+      private final TIntArrayList indicesToCompute = new TIntArrayList();
+
+      PointToPlaneCalculator(Function<DMatrixRMaj, RigidBodyTransform> inputFunction, List<Point3D> points, List<Vector3D> normals, List<Point3D> targets,
+                             boolean useAnalyticJacobian)
+      {
+         this.inputFunction = inputFunction;
+         this.points = points;
+         this.normals = normals;
+         this.targets = targets;
+         this.useAnalyticJacobian = useAnalyticJacobian;
+         resetIndicesToCompute();
+      }
+
+      @Override
+      public void setIndicesToCompute(TIntArrayList indicesToCompute)
+      {
+         this.indicesToCompute.reset();
+         this.indicesToCompute.addAll(indicesToCompute);
+      }
+
+      @Override
+      public void resetIndicesToCompute()
+      {
+         indicesToCompute.reset();
+         for (int i = 0; i < points.size(); i++)
+            indicesToCompute.add(i);
+      }
+
+      @Override
+      public DMatrixRMaj apply(DMatrixRMaj input)
+      {
+         RigidBodyTransform transform = inputFunction.apply(input);
+         DMatrixRMaj output = new DMatrixRMaj(indicesToCompute.size(), 1);
+
+         for (int i = 0; i < indicesToCompute.size(); i++)
+         {
+            int index = indicesToCompute.get(i);
+            Vector3D error = new Vector3D(points.get(index));
+            transform.transform(error);
+            error.add(transform.getTranslation());
+            error.sub(targets.get(index));
+            output.set(i, normals.get(index).dot(error));
+         }
+
+         return output;
+      }
+
+      @Override
+      public boolean computeJacobian(DMatrixRMaj input, DMatrixRMaj jacobianToPack)
+      {
+         if (!useAnalyticJacobian)
+            return false;
+
+         RigidBodyTransform transform = inputFunction.apply(input);
+         Vector3D derivative = new Vector3D();
+
+         for (int i = 0; i < indicesToCompute.size(); i++)
+         {
+            int index = indicesToCompute.get(i);
+            Vector3D normal = normals.get(index);
+            Vector3D rotatedPoint = new Vector3D(points.get(index));
+            transform.getRotation().transform(rotatedPoint);
+            derivative.cross(Axis3D.Z, rotatedPoint);
+
+            jacobianToPack.set(i, 0, normal.getX());
+            jacobianToPack.set(i, 1, normal.getY());
+            jacobianToPack.set(i, 2, normal.getZ());
+            jacobianToPack.set(i, 3, normal.dot(derivative));
+         }
+
+         return true;
+      }
+   }
+}
@@ -6,11 +6,13 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import gnu.trove.list.array.TIntArrayList;
 import org.ejml.data.DMatrixRMaj;
 
+import us.ihmc.euclid.Axis3D;
 import us.ihmc.euclid.geometry.Plane3D;
 import us.ihmc.euclid.geometry.interfaces.Plane3DReadOnly;
 import us.ihmc.euclid.matrix.RotationMatrix;
@@ -18,6 +20,7 @@ import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.transform.interfaces.RigidBodyTransformBasics;
 import us.ihmc.euclid.transform.interfaces.RigidBodyTransformReadOnly;
 import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.euclid.tuple4D.Quaternion;
 import us.ihmc.log.LogTools;
@@ -30,6 +33,9 @@ public class SurfaceElementICPSLAM extends SLAMBasics
    public static final boolean DEBUG = false;
    private final AtomicReference<SurfaceElementICPSLAMParameters> parameters = new AtomicReference<>(new SurfaceElementICPSLAMParameters());
 
+   private boolean computeResidualsInParallel = true;
+   private boolean useAnalyticJacobian = false;
+
    public SurfaceElementICPSLAM(double octreeResolution)
    {
       this(octreeResolution, new RigidBodyTransform());
@@ -45,6 +51,23 @@ public class SurfaceElementICPSLAM extends SLAMBasics
       this.parameters.set(parameters);
    }
 
+   /**
+    * Whether the distances from the surfels to the map are computed on the common fork-join pool.
+    */
+   public void setComputeResidualsInParallel(boolean computeResidualsInParallel)
+   {
+      this.computeResidualsInParallel = computeResidualsInParallel;
+   }
+
+   /**
+    * Whether the Jacobian of the surfel distances is computed analytically rather than by finite differences, which saves one evaluation
+    * of all the correspondences per input dimension at every iteration.
+    */
+   public void setUseAnalyticJacobian(boolean useAnalyticJacobian)
+   {
+      this.useAnalyticJacobian = useAnalyticJacobian;
+   }
+
    @Override
    public RigidBodyTransformReadOnly computeFrameCorrectionTransformer(SLAMFrame frame)
    {
@@ -68,6 +91,10 @@ public class SurfaceElementICPSLAM extends SLAMBasics
       if (DEBUG)
          LogTools.info("numberOfSurfel " + numberOfSurfel);
 
+      boolean includePitchAndRoll = surfaceElementICPSLAMParameters.getIncludePitchAndRoll();
+      boolean computeResidualsInParallel = this.computeResidualsInParallel;
+      boolean useAnalyticJacobian = this.useAnalyticJacobian;
+
       OutputCalculator outputCalculator = new OutputCalculator()
       {
          private List<Point3DReadOnly> surfaceElementPoints = new ArrayList<>();
@@ -96,35 +123,94 @@ public class SurfaceElementICPSLAM extends SLAMBasics
             correctedCorrespondingPointLocation = new Point3D[size];
             DMatrixRMaj errorSpace = new DMatrixRMaj(size, 1);
 
-            Stream<Point3DReadOnly> surfelPointStream = surfaceElementPoints.stream();
-            List<Point3D> surfelPointsInWorld = surfelPointStream.map(point ->
-                                                              {
-                                                                 Point3D correctedSurfelInWorld = new Point3D();
-                                                                 correctedLocalPoseInWorld.transform(point, correctedSurfelInWorld);
-                                                                 return correctedSurfelInWorld;
-                                                              }).collect(Collectors.toList());
-
-            for (int i = 0; i < size; i++)
+            Point3D[] surfelPointsInWorld = correctedCorrespondingPointLocation;
+            IntStream indexStream = IntStream.range(0, size);
+            if (computeResidualsInParallel)
+               indexStream = indexStream.parallel();
+            indexStream.forEach(i ->
             {
-               Point3D correctedSurfelInWorld = surfelPointsInWorld.get(i);
+               Point3D correctedSurfelInWorld = new Point3D();
+               correctedLocalPoseInWorld.transform(surfaceElementPoints.get(i), correctedSurfelInWorld);
+               surfelPointsInWorld[i] = correctedSurfelInWorld;
+               errorSpace.set(i, computeClosestDistance(correctedSurfelInWorld, null));
+            });
+
+            return errorSpace;
+         }
+
+         @Override
+         public boolean computeJacobian(DMatrixRMaj inputParameter, DMatrixRMaj jacobianToPack)
+         {
+            if (!useAnalyticJacobian)
+               return false;
 
-               correctedCorrespondingPointLocation[i] = correctedSurfelInWorld;
+            RigidBodyTransformReadOnly driftCorrectionTransform = transformConverter.apply(inputParameter);
+            RigidBodyTransformReadOnly uncorrectedLocalPoseInWorld = frame.getUncorrectedLocalPoseInWorld();
+            RigidBodyTransformBasics correctedLocalPoseInWorld = new RigidBodyTransform(uncorrectedLocalPoseInWorld);
+            correctedLocalPoseInWorld.multiply(driftCorrectionTransform);
 
-               double distance = computeClosestDistance(correctedSurfelInWorld);
-               errorSpace.set(i, distance);
+            RotationMatrix yawRotation = new RotationMatrix();
+            RotationMatrix yawPitchRotation = new RotationMatrix();
+            if (includePitchAndRoll)
+            {
+               yawRotation.setToYawOrientation(inputParameter.get(5));
+               yawPitchRotation.setYawPitchRoll(inputParameter.get(5), inputParameter.get(4), 0.0);
             }
 
-            return errorSpace;
+            IntStream indexStream = IntStream.range(0, surfaceElementPoints.size());
+            if (computeResidualsInParallel)
+               indexStream = indexStream.parallel();
+            indexStream.forEach(i ->
+            {
+               Point3DReadOnly surfelInLocal = surfaceElementPoints.get(i);
+               Point3D correctedSurfelInWorld = new Point3D();
+               correctedLocalPoseInWorld.transform(surfelInLocal, correctedSurfelInWorld);
+
+               Vector3D gradient = new Vector3D();
+               computeClosestDistance(correctedSurfelInWorld, gradient);
+               // The translation of the drift correction is applied in the uncorrected local frame.
+               uncorrectedLocalPoseInWorld.inverseTransform(gradient);
+
+               jacobianToPack.set(i, 0, gradient.getX());
+               jacobianToPack.set(i, 1, gradient.getY());
+               jacobianToPack.set(i, 2, gradient.getZ());
+
+               // Surfel rotated by the drift correction, the derivative with respect to an angle is the cross product with the rotation axis.
+               Vector3D rotatedSurfel = new Vector3D(surfelInLocal);
+               driftCorrectionTransform.getRotation().transform(rotatedSurfel);
+               Vector3D derivative = new Vector3D();
+
+               derivative.cross(Axis3D.Z, rotatedSurfel);
+               jacobianToPack.set(i, includePitchAndRoll ? 5 : 3, gradient.dot(derivative));
+
+               if (includePitchAndRoll)
+               {
+                  Vector3D pitchedSurfel = new Vector3D();
+                  yawRotation.inverseTransform(rotatedSurfel, pitchedSurfel);
+                  derivative.cross(Axis3D.Y, pitchedSurfel);
+                  yawRotation.transform(derivative);
+                  jacobianToPack.set(i, 4, gradient.dot(derivative));
+
+                  Vector3D rolledSurfel = new Vector3D();
+                  yawPitchRotation.inverseTransform(rotatedSurfel, rolledSurfel);
+                  derivative.cross(Axis3D.X, rolledSurfel);
+                  yawPitchRotation.transform(derivative);
+                  jacobianToPack.set(i, 3, gradient.dot(derivative));
+               }
+            });
+
+            return true;
          }
 
-         private double computeClosestDistance(Point3DReadOnly surfelLocation)
+         private double computeClosestDistance(Point3DReadOnly surfelLocation, Vector3D gradientToPack)
          {
             return SLAMTools.computeBoundedPerpendicularDistancePointToNormalOctree(mapOcTree,
                                                                                     surfelLocation,
-                                                                                    mapOcTree.getResolution() * surfaceElementICPSLAMParameters.getBoundRatio());
+                                                                                    mapOcTree.getResolution() * surfaceElementICPSLAMParameters.getBoundRatio(),
+                                                                                    gradientToPack);
          }
       };
-      int problemSize = surfaceElementICPSLAMParameters.getIncludePitchAndRoll() ? 6 : 4;
+      int problemSize = includePitchAndRoll ? 6 : 4;
       LevenbergMarquardtParameterOptimizer optimizer = new LevenbergMarquardtParameterOptimizer(transformConverter, outputCalculator, problemSize, numberOfSurfel);
       if (frame.getPreviousFrame() != null && surfaceElementICPSLAMParameters.getWarmStartDriftTransform())
       {
@@ -18,8 +18,10 @@ import us.ihmc.euclid.geometry.interfaces.Vertex3DSupplier;
 import us.ihmc.euclid.geometry.tools.EuclidGeometryTools;
 import us.ihmc.euclid.transform.interfaces.RigidBodyTransformReadOnly;
 import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.euclid.tuple3D.interfaces.Tuple3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DBasics;
 import us.ihmc.jOctoMap.iterators.OcTreeIterable;
 import us.ihmc.jOctoMap.iterators.OcTreeIteratorFactory;
 import us.ihmc.jOctoMap.key.OcTreeKey;
@@ -149,27 +151,64 @@ public class SLAMTools
    }
 
    public static double computeBoundedPerpendicularDistancePointToNormalOctree(NormalOcTree octree, Point3DReadOnly point, double bound)
+   {
+      return computeBoundedPerpendicularDistancePointToNormalOctree(octree, point, bound, null);
+   }
+
+   /**
+    * Same as {@link #computeBoundedPerpendicularDistancePointToNormalOctree(NormalOcTree, Point3DReadOnly, double)} and also packs the
+    * gradient of the distance with respect to the point. The gradient is set to zero when no node is found around the point.
+    *
+    * @param gradientToPack the gradient of the returned distance with respect to {@code point}. Can be {@code null}.
+    */
+   public static double computeBoundedPerpendicularDistancePointToNormalOctree(NormalOcTree octree, Point3DReadOnly point, double bound,
+                                                                               Vector3DBasics gradientToPack)
    {
       OcTreeKey occupiedKey = octree.coordinateToKey(point);
       OcTreeKey nearestKey = new OcTreeKey();
       OcTreeNearestNeighborTools.findNearestNeighbor(octree.getRoot(), octree.keyToCoordinate(occupiedKey), nearestKey);
 
       MutableDouble nearestHitDistanceSquared = new MutableDouble(Double.POSITIVE_INFINITY);
+      if (gradientToPack != null)
+         gradientToPack.setToZero();
 
       double resolution = octree.getResolution();
       OcTreeNearestNeighborTools.findRadiusNeighbors(octree.getRoot(), octree.keyToCoordinate(nearestKey), resolution * 2, node ->
       {
-         double linearDistance = point.distance(node.getHitLocationCopy());
+         Point3D hitLocation = node.getHitLocationCopy();
+         double linearDistance = point.distance(hitLocation);
 
          double distance = linearDistance;
+         Vector3D normal = null;
 
          if (linearDistance < bound)
          {
-            double distanceToSurfel = EuclidGeometryTools.distanceFromPoint3DToPlane3D(point, node.getHitLocationCopy(), node.getNormalCopy());
+            normal = node.getNormalCopy();
+            double distanceToSurfel = EuclidGeometryTools.distanceFromPoint3DToPlane3D(point, hitLocation, normal);
             distance = distanceToSurfel;
          }
 
-         nearestHitDistanceSquared.setValue(Math.min(nearestHitDistanceSquared.doubleValue(), distance));
+         if (distance < nearestHitDistanceSquared.doubleValue())
+         {
+            nearestHitDistanceSquared.setValue(distance);
+
+            if (gradientToPack != null)
+            {
+               gradientToPack.sub(point, hitLocation);
+               if (normal != null)
+               {
+                  // d|n.(p - h)|/dp = sign(n.(p - h)) n
+                  normal.normalize();
+                  double signedDistance = normal.dot(gradientToPack);
+                  gradientToPack.set(normal);
+                  gradientToPack.scale(Math.signum(signedDistance));
+               }
+               else if (linearDistance > 0.0)
+               {
+                  gradientToPack.scale(1.0 / linearDistance);
+               }
+            }
+         }
       });
 
       return nearestHitDistanceSquared.getValue();
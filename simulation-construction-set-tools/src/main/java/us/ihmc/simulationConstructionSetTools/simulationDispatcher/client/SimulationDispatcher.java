@@ -12,6 +12,11 @@ import java.util.ArrayList;
 import us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.gui.SimulationDispatcherGUI;
 import us.ihmc.simulationConstructionSetTools.simulationDispatcher.interfaces.RemoteSimulationRunnerInterface;
 
+/**
+ * Dispatches simulations over RMI to the {@link us.ihmc.simulationConstructionSetTools.simulationDispatcher.server.RemoteSimulationRunner}s
+ * of a list of hosts. To spread simulations over the cores of this machine, use
+ * {@link us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm.LocalSimulationFarm} instead.
+ */
 public class SimulationDispatcher implements Runnable
 {
    private final String password = "***REMOVED***";
@@ -0,0 +1,543 @@
+package us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.DispatchDoneListener;
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.DispatchedSimulationDescription;
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.SimulationToDispatch;
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.SimulationsChangedListener;
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.interfaces.RemoteSimulationDescription;
+
+/**
+ * Runs {@link SimulationToDispatch}es on a pool of headless worker JVMs forked on this machine.
+ * <p>
+ * This is the local counterpart of the RMI based
+ * {@link us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.SimulationDispatcher}:
+ * there is no registry, host list or security manager to set up. Each worker is a
+ * {@link LocalSimulationWorker} started with the classpath of this JVM, which receives its jobs
+ * over a loopback socket. Workers are kept alive between jobs to avoid paying the JVM start-up and
+ * class loading for every simulation, and are recycled after a given number of jobs to bound the
+ * effect of leaks in the simulations.
+ * </p>
+ * <p>
+ * When a worker dies while running a simulation, the simulation is queued again, up to
+ * {@link #MAXIMUM_NUMBER_OF_ATTEMPTS} times. A simulation that runs longer than the job timeout
+ * has its worker killed and replaced, and is not attempted again. A simulation that cannot be run
+ * is reported done with a {@code null} final state and the cause in its results string.
+ * </p>
+ * <p>
+ * Only the results are deserialized on the farm side, and only once the worker has authenticated
+ * itself, see {@link LocalSimulationWorker}.
+ * </p>
+ */
+public class LocalSimulationFarm
+{
+   /** Number of times a simulation is attempted when its worker keeps dying. */
+   public static final int MAXIMUM_NUMBER_OF_ATTEMPTS = 3;
+   private static final int DEFAULT_MAXIMUM_NUMBER_OF_JOBS_PER_WORKER = 100;
+   private static final long DEFAULT_JOB_TIMEOUT_MILLIS = 30 * 60 * 1000;
+   private static final int WORKER_CONNECTION_TIMEOUT_MILLIS = 60000;
+   /** Period at which the farm checks that the worker being started is still alive. */
+   private static final int WORKER_CONNECTION_POLLING_PERIOD_MILLIS = 500;
+
+   private final int maximumNumberOfJobsPerWorker;
+   private volatile long jobTimeoutMillis = DEFAULT_JOB_TIMEOUT_MILLIS;
+   private final List<String> workerJVMArguments;
+   private final SecureRandom random = new SecureRandom();
+
+   private final ArrayList<SimulationToDispatch> simulationsToDispatch = new ArrayList<>();
+   private final ArrayList<SimulationToDispatch> dispatchedSimulations = new ArrayList<>();
+   private final ArrayList<SimulationToDispatch> doneSimulations = new ArrayList<>();
+   private final Map<SimulationToDispatch, Integer> numberOfAttempts = new HashMap<>();
+   private final ArrayList<SimulationsChangedListener> simulationsChangedListeners = new ArrayList<>();
+
+   private final WorkerSlot[] workerSlots;
+   private int numberOfWorkerJVMsStarted = 0;
+   private long firstSimulationAddedTime = -1;
+   private long lastSimulationDoneTime = -1;
+   private boolean isShutdown = false;
+
+   /**
+    * Creates a farm with one worker per available processor.
+    */
+   public LocalSimulationFarm()
+   {
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+   public LocalSimulationFarm(int numberOfWorkers)
+   {
+      this(numberOfWorkers, DEFAULT_MAXIMUM_NUMBER_OF_JOBS_PER_WORKER);
+   }
+
+   /**
+    * @param numberOfWorkers              the number of worker JVMs running simulations in parallel.
+    * @param maximumNumberOfJobsPerWorker the number of simulations a worker JVM runs before it is
+    *                                     replaced by a fresh one.
+    * @param workerJVMArguments           additional arguments for the worker JVMs, for instance
+    *                                     {@code -Xmx2g}.
+    */
+   public LocalSimulationFarm(int numberOfWorkers, int maximumNumberOfJobsPerWorker, String... workerJVMArguments)
+   {
+      if (numberOfWorkers < 1)
+         throw new IllegalArgumentException("The number of workers must be at least 1, was: " + numberOfWorkers);
+      if (maximumNumberOfJobsPerWorker < 1)
+         throw new IllegalArgumentException("The maximum number of jobs per worker must be at least 1, was: " + maximumNumberOfJobsPerWorker);
+
+      this.maximumNumberOfJobsPerWorker = maximumNumberOfJobsPerWorker;
+      this.workerJVMArguments = Arrays.asList(workerJVMArguments);
+
+      workerSlots = new WorkerSlot[numberOfWorkers];
+
+      for (int i = 0; i < numberOfWorkers; i++)
+      {
+         workerSlots[i] = new WorkerSlot();
+         Thread thread = new Thread(workerSlots[i], "Simulation Farm Worker " + i);
+         thread.setDaemon(true);
+         thread.start();
+      }
+   }
+
+   public synchronized void addSimulation(SimulationToDispatch simulation)
+   {
+      if (isShutdown)
+         throw new IllegalStateException("The simulation farm has been shut down.");
+
+      if (firstSimulationAddedTime == -1)
+         firstSimulationAddedTime = System.nanoTime();
+
+      simulationsToDispatch.add(simulation);
+      notifyAll();
+      notifyListeners();
+   }
+
+   /**
+    * Sets the time a single simulation is allowed to run. When exceeded, its worker JVM is killed
+    * and replaced and the simulation is reported done with a {@code null} final state.
+    *
+    * @param jobTimeoutMillis the timeout in milliseconds, 30 minutes by default.
+    */
+   public void setJobTimeout(long jobTimeoutMillis)
+   {
+      if (jobTimeoutMillis < 1 || jobTimeoutMillis > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("The job timeout must be in [1, " + Integer.MAX_VALUE + "] milliseconds, was: " + jobTimeoutMillis);
+      this.jobTimeoutMillis = jobTimeoutMillis;
+   }
+
+   public synchronized void addSimulationsChangedListener(SimulationsChangedListener listener)
+   {
+      simulationsChangedListeners.add(listener);
+   }
+
+   /**
+    * @return the number of simulations waiting for a worker, i.e. the depth of the queue.
+    */
+   public synchronized int getNumberSimulationsToDispatch()
+   {
+      return simulationsToDispatch.size();
+   }
+
+   public synchronized int getNumberSimulationsCurrentlyDispatched()
+   {
+      return dispatchedSimulations.size();
+   }
+
+   public synchronized int getNumberSimulationsDone()
+   {
+      return doneSimulations.size();
+   }
+
+   public synchronized SimulationToDispatch[] getSimulationsToDispatch()
+   {
+      return simulationsToDispatch.toArray(new SimulationToDispatch[simulationsToDispatch.size()]);
+   }
+
+   public synchronized SimulationToDispatch[] getDoneSimulations()
+   {
+      return doneSimulations.toArray(new SimulationToDispatch[doneSimulations.size()]);
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return workerSlots.length;
+   }
+
+   /**
+    * @return the number of worker JVMs started so far, including the ones replacing recycled or dead
+    *         workers.
+    */
+   public synchronized int getNumberOfWorkerJVMsStarted()
+   {
+      return numberOfWorkerJVMsStarted;
+   }
+
+   /**
+    * Gets the number of simulations done per second, measured from the first simulation added to
+    * the last one done.
+    *
+    * @return the throughput of the farm in simulations per second, or 0 if no simulation is done.
+    */
+   public synchronized double getThroughput()
+   {
+      if (doneSimulations.isEmpty() || lastSimulationDoneTime == firstSimulationAddedTime)
+         return 0.0;
+
+      return doneSimulations.size() / ((lastSimulationDoneTime - firstSimulationAddedTime) * 1.0e-9);
+   }
+
+   /**
+    * Blocks until all the simulations added so far are done.
+    */
+   public synchronized void waitUntilAllSimulationsAreDone() throws InterruptedException
+   {
+      while (!isShutdown && (!simulationsToDispatch.isEmpty() || !dispatchedSimulations.isEmpty()))
+         wait();
+   }
+
+   /**
+    * Stops all the workers. Simulations that are running are abandoned and the ones still waiting
+    * are never run.
+    */
+   public void shutdown()
+   {
+      synchronized (this)
+      {
+         isShutdown = true;
+         notifyAll();
+      }
+
+      for (WorkerSlot workerSlot : workerSlots)
+         workerSlot.stopWorker();
+   }
+
+   /**
+    * Creates the description shipped to the worker that runs the given simulation. Override to run
+    * other kinds of {@link RemoteSimulationDescription}s.
+    */
+   protected RemoteSimulationDescription createSimulationDescription(SimulationToDispatch simulation)
+   {
+      return new DispatchedSimulationDescription(simulation.getConstructor(), simulation.getInputStateVariableNames(),
+                                                 simulation.getOutputStateVariableNames());
+   }
+
+   private synchronized SimulationToDispatch takeNextSimulation() throws InterruptedException
+   {
+      while (!isShutdown && simulationsToDispatch.isEmpty())
+         wait();
+
+      if (isShutdown)
+         return null;
+
+      SimulationToDispatch simulation = simulationsToDispatch.remove(0);
+      dispatchedSimulations.add(simulation);
+      notifyListeners();
+      return simulation;
+   }
+
+   private void reportSimulationDone(SimulationToDispatch simulation, double[] finalState, String resultsString)
+   {
+      simulation.setFinalState(finalState);
+      simulation.setResultsString(resultsString);
+
+      // Notified before the simulation counts as done, so that the listeners are done when waitUntilAllSimulationsAreDone() returns.
+      DispatchDoneListener listener = simulation.getDispatchDoneListener();
+      if (listener != null)
+         listener.dispatchDone(simulation, finalState);
+
+      synchronized (this)
+      {
+         if (isShutdown)
+            return;
+
+         dispatchedSimulations.remove(simulation);
+         numberOfAttempts.remove(simulation);
+         simulation.setSimulationFinished();
+         doneSimulations.add(simulation);
+         lastSimulationDoneTime = System.nanoTime();
+         notifyAll();
+         notifyListeners();
+      }
+   }
+
+   private void reportWorkerFailure(SimulationToDispatch simulation, Exception exception)
+   {
+      int attempts;
+
+      synchronized (this)
+      {
+         if (isShutdown)
+            return;
+
+         attempts = numberOfAttempts.getOrDefault(simulation, 0) + 1;
+         numberOfAttempts.put(simulation, attempts);
+
+         // The simulation itself cannot be sent, trying again would not help.
+         if (attempts < MAXIMUM_NUMBER_OF_ATTEMPTS && !(exception instanceof NotSerializableException))
+         {
+            System.err.println("Simulation farm worker died while running " + simulation.getDescription() + ", dispatching it again. Cause: " + exception);
+            dispatchedSimulations.remove(simulation);
+            simulationsToDispatch.add(simulation);
+            notifyAll();
+            notifyListeners();
+            return;
+         }
+      }
+
+      System.err.println("Giving up on " + simulation.getDescription() + " after " + attempts + " attempt(s). Cause: " + exception);
+      reportSimulationDone(simulation, null, "Could not run the simulation: " + exception);
+   }
+
+   private synchronized void notifyListeners()
+   {
+      for (int i = 0; i < simulationsChangedListeners.size(); i++)
+      {
+         simulationsChangedListeners.get(i).simulationsChanged();
+      }
+   }
+
+   private synchronized void reportWorkerJVMStarted()
+   {
+      numberOfWorkerJVMsStarted++;
+   }
+
+   /**
+    * Feeds one worker JVM with simulations, starting a new JVM whenever the previous one died or ran
+    * its share of jobs.
+    */
+   private class WorkerSlot implements Runnable
+   {
+      private Process process;
+      private Socket socket;
+      private ObjectOutputStream outputStream;
+      private ObjectInputStream inputStream;
+      private int numberOfJobsRun = 0;
+
+      @Override
+      public void run()
+      {
+         while (true)
+         {
+            SimulationToDispatch simulation;
+
+            try
+            {
+               simulation = takeNextSimulation();
+            }
+            catch (InterruptedException e)
+            {
+               break;
+            }
+
+            if (simulation == null)
+               break;
+
+            try
+            {
+               if (process == null)
+                  startWorker();
+
+               SimulationFarmJob job = new SimulationFarmJob(createSimulationDescription(simulation),
+                                                             simulation.getStructuralParameterNames(),
+                                                             simulation.getStructuralParameterValues(),
+                                                             simulation.getInputState());
+               outputStream.writeObject(job);
+               outputStream.flush();
+               outputStream.reset();
+               SimulationFarmResult result = readResult();
+               numberOfJobsRun++;
+
+               if (result.getErrorMessage() == null)
+                  reportSimulationDone(simulation, result.getFinalState(), null);
+               else
+                  reportSimulationDone(simulation, null, result.getErrorMessage());
+
+               if (numberOfJobsRun >= maximumNumberOfJobsPerWorker)
+                  stopWorker();
+            }
+            catch (SimulationTimeoutException e)
+            {
+               stopWorker();
+               System.err.println("Simulation farm worker killed, " + simulation.getDescription() + " " + e.getMessage());
+               reportSimulationDone(simulation, null, "The simulation " + e.getMessage());
+            }
+            catch (IOException | ClassNotFoundException e)
+            {
+               stopWorker();
+               reportWorkerFailure(simulation, e);
+            }
+         }
+
+         stopWorker();
+      }
+
+      private SimulationFarmResult readResult() throws IOException, ClassNotFoundException
+      {
+         long timeout = jobTimeoutMillis;
+         socket.setSoTimeout((int) timeout);
+
+         try
+         {
+            return (SimulationFarmResult) inputStream.readObject();
+         }
+         catch (SocketTimeoutException e)
+         {
+            throw new SimulationTimeoutException("did not complete within " + timeout + " ms.");
+         }
+      }
+
+      private void startWorker() throws IOException
+      {
+         byte[] workerToken = createToken();
+         byte[] farmToken = createToken();
+
+         try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+         {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-Djava.awt.headless=true");
+            command.addAll(workerJVMArguments);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(LocalSimulationWorker.class.getName());
+            command.add(Integer.toString(serverSocket.getLocalPort()));
+
+            // The tokens are passed through the environment, the command line is visible to every user.
+            ProcessBuilder processBuilder = new ProcessBuilder(command).inheritIO();
+            processBuilder.environment().put(LocalSimulationWorker.WORKER_TOKEN_ENVIRONMENT_VARIABLE, Base64.getEncoder().encodeToString(workerToken));
+            processBuilder.environment().put(LocalSimulationWorker.FARM_TOKEN_ENVIRONMENT_VARIABLE, Base64.getEncoder().encodeToString(farmToken));
+
+            Process process;
+            synchronized (this)
+            {
+               process = processBuilder.start();
+               this.process = process;
+            }
+            reportWorkerJVMStarted();
+            numberOfJobsRun = 0;
+
+            Socket socket = acceptWorker(serverSocket, process, workerToken);
+            synchronized (this)
+            {
+               this.socket = socket;
+            }
+            socket.getOutputStream().write(farmToken);
+            socket.getOutputStream().flush();
+
+            outputStream = new ObjectOutputStream(socket.getOutputStream());
+            outputStream.flush();
+            inputStream = new SimulationFarmObjectInputStream(socket.getInputStream(), SimulationFarmResult.class, double[].class);
+         }
+      }
+
+      /**
+       * Waits for the worker to connect and authenticate. Connections from other processes are
+       * closed without reading anything else than the token, and do not count as a worker failure.
+       */
+      private Socket acceptWorker(ServerSocket serverSocket, Process process, byte[] workerToken) throws IOException
+      {
+         long deadline = System.currentTimeMillis() + WORKER_CONNECTION_TIMEOUT_MILLIS;
+
+         while (true)
+         {
+            long remainingTime = deadline - System.currentTimeMillis();
+            if (remainingTime <= 0)
+               throw new IOException("The worker did not connect to the simulation farm within " + WORKER_CONNECTION_TIMEOUT_MILLIS + " ms.");
+            if (!process.isAlive())
+               throw new IOException("The worker exited before connecting to the simulation farm, exit value: " + process.exitValue());
+
+            serverSocket.setSoTimeout((int) Math.min(remainingTime, WORKER_CONNECTION_POLLING_PERIOD_MILLIS));
+            Socket candidate;
+
+            try
+            {
+               candidate = serverSocket.accept();
+            }
+            catch (SocketTimeoutException e)
+            {
+               continue;
+            }
+
+            try
+            {
+               candidate.setSoTimeout(LocalSimulationWorker.TOKEN_READ_TIMEOUT_MILLIS);
+               if (MessageDigest.isEqual(workerToken, LocalSimulationWorker.readToken(candidate)))
+               {
+                  candidate.setSoTimeout(0);
+                  return candidate;
+               }
+            }
+            catch (IOException e)
+            { // Same as a wrong token.
+            }
+
+            System.err.println("A process other than the worker connected to the simulation farm, connection closed.");
+            closeQuietly(candidate);
+         }
+      }
+
+      private byte[] createToken()
+      {
+         byte[] token = new byte[LocalSimulationWorker.TOKEN_LENGTH];
+         random.nextBytes(token);
+         return token;
+      }
+
+      /**
+       * Closes the connection to the worker JVM, which makes it exit, and makes sure it is gone.
+       */
+      private synchronized void stopWorker()
+      {
+         if (socket != null)
+            closeQuietly(socket);
+
+         // A worker stuck in a simulation may not react to a regular termination request.
+         if (process != null)
+            process.destroyForcibly();
+
+         process = null;
+         socket = null;
+         outputStream = null;
+         inputStream = null;
+      }
+   }
+
+   private static void closeQuietly(Socket socket)
+   {
+      try
+      {
+         socket.close();
+      }
+      catch (IOException e)
+      {
+      }
+   }
+
+   /**
+    * Thrown when a simulation does not complete within the job timeout.
+    */
+   private static class SimulationTimeoutException extends IOException
+   {
+      private static final long serialVersionUID = -4262213946101779335L;
+
+      public SimulationTimeoutException(String message)
+      {
+         super(message);
+      }
+   }
+}
@@ -0,0 +1,142 @@
+package us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.interfaces.RemoteSimulationDescription;
+
+/**
+ * Entry point of the worker JVMs started by the {@link LocalSimulationFarm}.
+ * <p>
+ * The worker connects back to the farm on the loopback interface and the two sides authenticate
+ * each other with the tokens passed through the environment, so that they do not show up in the
+ * process list. Nothing is deserialized before that. The worker then runs the
+ * {@link SimulationFarmJob}s it receives one after the other until the farm closes the connection.
+ * Staying alive between jobs keeps the JVM and its loaded classes warm.
+ * </p>
+ */
+public class LocalSimulationWorker
+{
+   /** Environment variable holding the token the worker sends to authenticate itself. */
+   static final String WORKER_TOKEN_ENVIRONMENT_VARIABLE = "IHMC_SIMULATION_FARM_WORKER_TOKEN";
+   /** Environment variable holding the token the farm sends back to authenticate itself. */
+   static final String FARM_TOKEN_ENVIRONMENT_VARIABLE = "IHMC_SIMULATION_FARM_TOKEN";
+   /** Length in bytes of the tokens, sent as is before any object is exchanged. */
+   static final int TOKEN_LENGTH = 32;
+   static final int TOKEN_READ_TIMEOUT_MILLIS = 10000;
+
+   private static final long SIMULATION_DONE_POLLING_PERIOD_MILLIS = 10;
+
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length != 1)
+         throw new IllegalArgumentException("Usage: " + LocalSimulationWorker.class.getSimpleName() + " <farm port>");
+
+      int port = Integer.parseInt(args[0]);
+      byte[] workerToken = getToken(WORKER_TOKEN_ENVIRONMENT_VARIABLE);
+      byte[] farmToken = getToken(FARM_TOKEN_ENVIRONMENT_VARIABLE);
+
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+      {
+         socket.getOutputStream().write(workerToken);
+         socket.getOutputStream().flush();
+
+         socket.setSoTimeout(TOKEN_READ_TIMEOUT_MILLIS);
+         if (!MessageDigest.isEqual(farmToken, readToken(socket)))
+            throw new IOException("The process listening on port " + port + " is not the simulation farm.");
+         socket.setSoTimeout(0);
+
+         ObjectOutputStream outputStream = new ObjectOutputStream(socket.getOutputStream());
+         outputStream.flush();
+         ObjectInputStream inputStream = new ObjectInputStream(socket.getInputStream());
+
+         while (true)
+         {
+            SimulationFarmJob job;
+
+            try
+            {
+               job = (SimulationFarmJob) inputStream.readObject();
+            }
+            catch (IOException e)
+            { // The farm is done with this worker, or is gone.
+               break;
+            }
+            catch (ClassNotFoundException e)
+            {
+               outputStream.writeObject(new SimulationFarmResult(null, "Could not load the simulation on the worker: " + e));
+               outputStream.flush();
+               continue;
+            }
+
+            outputStream.writeObject(runJob(job));
+            outputStream.flush();
+            // Forget the objects written so far, the stream would otherwise keep them in memory.
+            outputStream.reset();
+         }
+      }
+
+      // Simulation threads that did not terminate would otherwise keep the worker alive.
+      System.exit(0);
+   }
+
+   private static byte[] getToken(String environmentVariable)
+   {
+      String token = System.getenv(environmentVariable);
+      if (token == null)
+         throw new IllegalStateException("The environment variable " + environmentVariable + " is not set, workers are meant to be started by the "
+               + LocalSimulationFarm.class.getSimpleName() + ".");
+      return Base64.getDecoder().decode(token);
+   }
+
+   static byte[] readToken(Socket socket) throws IOException
+   {
+      byte[] token = new byte[TOKEN_LENGTH];
+      new DataInputStream(socket.getInputStream()).readFully(token);
+      return token;
+   }
+
+   private static SimulationFarmResult runJob(SimulationFarmJob job)
+   {
+      RemoteSimulationDescription description = job.getDescription();
+
+      try
+      {
+         description.createSimulation(job.getStructuralParameterNames(), job.getStructuralParameterValues());
+         description.setSimulationState(job.getInputState());
+         description.startSimulation();
+
+         while (!description.isSimulationDone())
+            Thread.sleep(SIMULATION_DONE_POLLING_PERIOD_MILLIS);
+
+         return new SimulationFarmResult((double[]) description.getSimulationState(), null);
+      }
+      catch (Exception e)
+      {
+         e.printStackTrace();
+         return new SimulationFarmResult(null, e.toString());
+      }
+      finally
+      {
+         destroySimulation(description);
+      }
+   }
+
+   private static void destroySimulation(RemoteSimulationDescription description)
+   {
+      try
+      {
+         description.destroySimulation();
+      }
+      catch (Exception e)
+      { // The result is already known, the next job gets a new simulation anyway.
+         e.printStackTrace();
+      }
+   }
+}
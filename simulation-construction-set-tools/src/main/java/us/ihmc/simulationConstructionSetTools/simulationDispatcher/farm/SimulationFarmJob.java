@@ -0,0 +1,47 @@
+package us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm;
+
+import java.io.Serializable;
+
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.interfaces.RemoteSimulationDescription;
+
+/**
+ * Message sent by the {@link LocalSimulationFarm} to a {@link LocalSimulationWorker} to run one
+ * simulation.
+ */
+class SimulationFarmJob implements Serializable
+{
+   private static final long serialVersionUID = -3360743829143150925L;
+
+   private final RemoteSimulationDescription description;
+   private final String[] structuralParameterNames;
+   private final double[] structuralParameterValues;
+   private final double[] inputState;
+
+   SimulationFarmJob(RemoteSimulationDescription description, String[] structuralParameterNames, double[] structuralParameterValues, double[] inputState)
+   {
+      this.description = description;
+      this.structuralParameterNames = structuralParameterNames;
+      this.structuralParameterValues = structuralParameterValues;
+      this.inputState = inputState;
+   }
+
+   RemoteSimulationDescription getDescription()
+   {
+      return description;
+   }
+
+   String[] getStructuralParameterNames()
+   {
+      return structuralParameterNames;
+   }
+
+   double[] getStructuralParameterValues()
+   {
+      return structuralParameterValues;
+   }
+
+   double[] getInputState()
+   {
+      return inputState;
+   }
+}
@@ -0,0 +1,43 @@
+package us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Object input stream that refuses to deserialize any class that is not explicitly allowed.
+ * <p>
+ * The classes are checked before being loaded, so that a misbehaving peer cannot get arbitrary
+ * classes instantiated on this side of the connection.
+ * </p>
+ */
+class SimulationFarmObjectInputStream extends ObjectInputStream
+{
+   private final Set<String> allowedClassNames;
+
+   /**
+    * @param inputStream    the stream to read from.
+    * @param allowedClasses the classes that can be deserialized. {@code String}s and primitives are
+    *                       always allowed.
+    */
+   SimulationFarmObjectInputStream(InputStream inputStream, Class<?>... allowedClasses) throws IOException
+   {
+      super(inputStream);
+      allowedClassNames = new HashSet<>();
+      Arrays.stream(allowedClasses).map(Class::getName).forEach(allowedClassNames::add);
+   }
+
+   @Override
+   protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException
+   {
+      if (!allowedClassNames.contains(description.getName()))
+         throw new InvalidClassException(description.getName(), "Class not allowed by the simulation farm.");
+
+      return super.resolveClass(description);
+   }
+}
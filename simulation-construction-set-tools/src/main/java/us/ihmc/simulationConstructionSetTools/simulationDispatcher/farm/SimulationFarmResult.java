@@ -0,0 +1,37 @@
+package us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm;
+
+import java.io.Serializable;
+
+/**
+ * Message sent back by a {@link LocalSimulationWorker} once a {@link SimulationFarmJob} is done.
+ */
+class SimulationFarmResult implements Serializable
+{
+   private static final long serialVersionUID = 4706128503771265541L;
+
+   private final double[] finalState;
+   private final String errorMessage;
+
+   SimulationFarmResult(double[] finalState, String errorMessage)
+   {
+      this.finalState = finalState;
+      this.errorMessage = errorMessage;
+   }
+
+   /**
+    * @return the output state of the simulation, or {@code null} if it could not be run.
+    */
+   double[] getFinalState()
+   {
+      return finalState;
+   }
+
+   /**
+    * @return the description of the error that prevented the simulation from running, or
+    *         {@code null} if it ran.
+    */
+   String getErrorMessage()
+   {
+      return errorMessage;
+   }
+}
@@ -26,8 +26,31 @@ import us.ihmc.simulationconstructionset.util.ground.SimpleTableTerrainObject;
 import us.ihmc.simulationconstructionset.util.ground.SphereTerrainObject;
 import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
 
+/**
+ * Terrain made of several {@link TerrainObject3D}s.
+ * <p>
+ * Contact and height queries are narrowed down with a uniform grid over the XY bounding boxes of
+ * the terrain objects, so that only the objects near the query point are tested. The grid assumes
+ * that a terrain object is only ever close to a point that is inside its bounding box in XY.
+ * Terrain objects without a finite bounding box are tested for every query.
+ * </p>
+ * <p>
+ * The grid is built on the first query after terrain objects are added. Adding terrain objects to a
+ * nested {@code CombinedTerrainObject3D} also updates the grid of the terrains it is part of. Other
+ * terrain objects are assumed to not move once added, {@link #invalidateBroadPhase()} has to be
+ * called otherwise. The queries can be made from several threads as long as no terrain object is
+ * added at the same time.
+ * </p>
+ */
 public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNormals
 {
+   /** Number of grid cells per terrain object that the broad phase aims for. */
+   private static final int CELLS_PER_TERRAIN_OBJECT = 4;
+   /** Upper bound on the number of cells the broad phase aims for. */
+   private static final int MAXIMUM_TARGET_NUMBER_OF_CELLS = 1 << 16;
+   /** Objects overlapping more than this fraction of the cells are tested for every query instead. */
+   private static final double LARGE_TERRAIN_OBJECT_CELL_FRACTION = 0.5;
+
    private BoundingBox3D boundingBox = null;
 
    private ArrayList<TerrainObject3D> terrainObjects = new ArrayList<TerrainObject3D>();
@@ -35,10 +58,15 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
 
    private final String name;
 
-   private final Point3D tempPointToCheck = new Point3D();
-
    private final ArrayList<Shape3DReadOnly> terrainCollisionShapes = new ArrayList<>();
 
+   /** Grid narrowing down the terrain objects tested by the queries, {@code null} until the next query when it is out of date. */
+   private volatile BroadPhase broadPhase = null;
+   /** Scratch of the current query, one per thread so that the queries are reentrant. */
+   private final ThreadLocal<QueryScratch> threadLocalQueryScratch = ThreadLocal.withInitial(QueryScratch::new);
+   /** Combined terrain objects this terrain has been added to, they are notified when terrain objects are added to this one. */
+   private final List<CombinedTerrainObject3D> parents = new ArrayList<>();
+
    public CombinedTerrainObject3D(String name)
    {
       linkGraphics = new Graphics3DObject();
@@ -159,6 +187,49 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       {
          boundingBox = BoundingBox3D.union(boundingBox, object.getBoundingBox());
       }
+
+      if (object instanceof CombinedTerrainObject3D)
+         ((CombinedTerrainObject3D) object).parents.add(this);
+
+      invalidateBroadPhase();
+   }
+
+   /**
+    * Discards the grid used to narrow down the terrain objects tested by the queries, it is rebuilt on
+    * the next query. The combined terrains this terrain is part of update their bounding box and
+    * discard their grid as well.
+    * <p>
+    * This is done automatically when terrain objects are added. It has to be called when a terrain
+    * object moves or changes size after having been added.
+    * </p>
+    */
+   public void invalidateBroadPhase()
+   {
+      broadPhase = null;
+
+      for (int i = 0; i < parents.size(); i++)
+         parents.get(i).updateBoundingBoxAndInvalidateBroadPhase();
+   }
+
+   private void updateBoundingBoxAndInvalidateBroadPhase()
+   {
+      BoundingBox3D updatedBoundingBox = null;
+
+      for (int i = 0; i < terrainObjects.size(); i++)
+      {
+         BoundingBox3D terrainObjectBoundingBox = terrainObjects.get(i).getBoundingBox();
+
+         if (terrainObjectBoundingBox == null)
+            continue;
+
+         if (updatedBoundingBox == null)
+            updatedBoundingBox = new BoundingBox3D(terrainObjectBoundingBox);
+         else
+            updatedBoundingBox = BoundingBox3D.union(updatedBoundingBox, terrainObjectBoundingBox);
+      }
+
+      boundingBox = updatedBoundingBox;
+      invalidateBroadPhase();
    }
 
    public void addStaticLinkGraphics(Graphics3DObject linkGraphics)
@@ -177,31 +248,32 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       return this.linkGraphics;
    }
 
-   private final Point3D localIntersection = new Point3D();
-   private final Vector3D localNormal = new Vector3D();
-
    @Override
    public boolean checkIfInside(double x, double y, double z, Point3DBasics intersectionToPack, Vector3DBasics normalToPack)
    {
       double smallestDistance = Double.MAX_VALUE;
       boolean isInside = false;
 
-      tempPointToCheck.set(x, y, z);
-
       // Pre-set some values, in case no object is close.
       intersectionToPack.set(x, y, 0.0);
       normalToPack.set(0.0, 0.0, 1.0);
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      QueryScratch candidates = collectCandidateTerrainObjects(x, y);
+      Point3D pointToCheck = candidates.pointToCheck;
+      Point3D localIntersection = candidates.localIntersection;
+      Vector3D localNormal = candidates.localNormal;
+      pointToCheck.set(x, y, z);
+
+      for (int i = 0; i < candidates.size; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates.indices[i]);
          if (terrainObject.isClose(x, y, z))
          {
             boolean localIsInside = terrainObject.checkIfInside(x, y, z, localIntersection, localNormal);
 
-            if (localIsInside && (tempPointToCheck.distance(localIntersection) < smallestDistance))
+            if (localIsInside && (pointToCheck.distance(localIntersection) < smallestDistance))
             {
-               smallestDistance = tempPointToCheck.distance(localIntersection);
+               smallestDistance = pointToCheck.distance(localIntersection);
                intersectionToPack.set(localIntersection);
                normalToPack.set(localNormal);
                isInside = true;
@@ -209,9 +281,6 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
          }
       }
 
-      // Reset pointToCheck for rewindability tests
-      tempPointToCheck.set(0.0, 0.0, 0.0);
-
       return isInside;
    }
 
@@ -299,9 +368,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      QueryScratch candidates = collectCandidateTerrainObjects(x, y);
+
+      for (int i = 0; i < candidates.size; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates.indices[i]);
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -325,9 +396,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      QueryScratch candidates = collectCandidateTerrainObjects(x, y);
+
+      for (int i = 0; i < candidates.size; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates.indices[i]);
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -346,6 +419,247 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       return heightAt;
    }
 
+   /**
+    * Gets the indices, in increasing order, of the terrain objects that can be close to a point with
+    * the given XY coordinates. The returned scratch is reused by the next query of the calling thread.
+    */
+   private QueryScratch collectCandidateTerrainObjects(double x, double y)
+   {
+      QueryScratch candidates = threadLocalQueryScratch.get();
+      getBroadPhase().collectCandidates(x, y, candidates);
+      return candidates;
+   }
+
+   private BroadPhase getBroadPhase()
+   {
+      BroadPhase broadPhase = this.broadPhase;
+
+      if (broadPhase == null || broadPhase.numberOfTerrainObjects != terrainObjects.size())
+      {
+         synchronized (this)
+         {
+            broadPhase = this.broadPhase;
+
+            // Also picks up objects added directly to the list returned by getTerrainObjects().
+            if (broadPhase == null || broadPhase.numberOfTerrainObjects != terrainObjects.size())
+            {
+               broadPhase = new BroadPhase(terrainObjects);
+               this.broadPhase = broadPhase;
+            }
+         }
+      }
+
+      return broadPhase;
+   }
+
+   /**
+    * Gets the number of cells of the grid used to narrow down the terrain objects tested by the
+    * queries. Mostly meant for testing and debugging.
+    */
+   public int getNumberOfBroadPhaseCells()
+   {
+      BroadPhase broadPhase = getBroadPhase();
+      return broadPhase.gridSizeX * broadPhase.gridSizeY;
+   }
+
+   private static class QueryScratch
+   {
+      /** Indices of the candidate terrain objects, only the first {@link #size} are valid. */
+      private int[] indices = new int[0];
+      private int size = 0;
+
+      private final Point3D pointToCheck = new Point3D();
+      private final Point3D localIntersection = new Point3D();
+      private final Vector3D localNormal = new Vector3D();
+   }
+
+   /**
+    * Uniform grid over the XY bounding boxes of the terrain objects. It is not modified once built,
+    * such that it can be queried from several threads.
+    */
+   private static class BroadPhase
+   {
+      private final int numberOfTerrainObjects;
+      private final double gridMinX, gridMinY;
+      private final double gridMaxX, gridMaxY;
+      private final double gridCellSize;
+      private final int gridSizeX, gridSizeY;
+      /** Terrain object indices of each cell are stored between {@code cellStartIndices[cell]} and {@code cellStartIndices[cell + 1]}, in increasing order. */
+      private final int[] cellStartIndices;
+      private final int[] cellTerrainObjectIndices;
+      /** Indices, in increasing order, of the terrain objects that are tested for every query. */
+      private final int[] alwaysCheckedTerrainObjectIndices;
+      private final int numberOfAlwaysCheckedTerrainObjects;
+
+      /**
+       * Builds the grid from the bounding boxes of the terrain objects. The cell size is picked such
+       * that the grid has a few cells per terrain object.
+       */
+      private BroadPhase(List<TerrainObject3D> terrainObjects)
+      {
+         numberOfTerrainObjects = terrainObjects.size();
+         alwaysCheckedTerrainObjectIndices = new int[numberOfTerrainObjects];
+
+         double minX = Double.POSITIVE_INFINITY;
+         double minY = Double.POSITIVE_INFINITY;
+         double maxX = Double.NEGATIVE_INFINITY;
+         double maxY = Double.NEGATIVE_INFINITY;
+
+         for (int i = 0; i < numberOfTerrainObjects; i++)
+         {
+            BoundingBox3D terrainObjectBoundingBox = terrainObjects.get(i).getBoundingBox();
+            if (!isBoundedInXY(terrainObjectBoundingBox))
+               continue;
+
+            minX = Math.min(minX, terrainObjectBoundingBox.getMinX());
+            minY = Math.min(minY, terrainObjectBoundingBox.getMinY());
+            maxX = Math.max(maxX, terrainObjectBoundingBox.getMaxX());
+            maxY = Math.max(maxY, terrainObjectBoundingBox.getMaxY());
+         }
+
+         gridMinX = minX;
+         gridMinY = minY;
+         gridMaxX = maxX;
+         gridMaxY = maxY;
+
+         if (gridMinX > gridMaxX)
+         { // None of the terrain objects is bounded, the query points are never inside the grid.
+            gridCellSize = 1.0;
+            gridSizeX = 0;
+            gridSizeY = 0;
+         }
+         else
+         {
+            double gridLengthX = gridMaxX - gridMinX;
+            double gridLengthY = gridMaxY - gridMinY;
+            int targetNumberOfCells = Math.min(CELLS_PER_TERRAIN_OBJECT * numberOfTerrainObjects, MAXIMUM_TARGET_NUMBER_OF_CELLS);
+            // The second term keeps the number of cells in check for terrains that are flat in X or Y.
+            double cellSize = Math.max(Math.sqrt(gridLengthX * gridLengthY / targetNumberOfCells), Math.max(gridLengthX, gridLengthY) / targetNumberOfCells);
+            gridCellSize = cellSize > 0.0 ? cellSize : 1.0;
+            gridSizeX = (int) (gridLengthX / gridCellSize) + 1;
+            gridSizeY = (int) (gridLengthY / gridCellSize) + 1;
+         }
+
+         int numberOfCells = gridSizeX * gridSizeY;
+         int[] terrainObjectCellRanges = new int[4 * numberOfTerrainObjects];
+         cellStartIndices = new int[numberOfCells + 1];
+         int numberOfAlwaysCheckedTerrainObjects = 0;
+
+         // First pass: count the terrain objects in each cell, cellStartIndices[cell + 1] holds the count of the cell.
+         for (int i = 0; i < numberOfTerrainObjects; i++)
+         {
+            BoundingBox3D terrainObjectBoundingBox = terrainObjects.get(i).getBoundingBox();
+            boolean isAlwaysChecked = !isBoundedInXY(terrainObjectBoundingBox);
+
+            if (!isAlwaysChecked)
+            {
+               int xIndexMin = getGridXIndex(terrainObjectBoundingBox.getMinX());
+               int yIndexMin = getGridYIndex(terrainObjectBoundingBox.getMinY());
+               int xIndexMax = getGridXIndex(terrainObjectBoundingBox.getMaxX());
+               int yIndexMax = getGridYIndex(terrainObjectBoundingBox.getMaxY());
+               long numberOfOverlappedCells = (long) (xIndexMax - xIndexMin + 1) * (yIndexMax - yIndexMin + 1);
+               isAlwaysChecked = numberOfOverlappedCells > 1 && numberOfOverlappedCells > LARGE_TERRAIN_OBJECT_CELL_FRACTION * numberOfCells;
+
+               terrainObjectCellRanges[4 * i] = xIndexMin;
+               terrainObjectCellRanges[4 * i + 1] = yIndexMin;
+               terrainObjectCellRanges[4 * i + 2] = xIndexMax;
+               terrainObjectCellRanges[4 * i + 3] = yIndexMax;
+            }
+
+            if (isAlwaysChecked)
+            {
+               alwaysCheckedTerrainObjectIndices[numberOfAlwaysCheckedTerrainObjects++] = i;
+               terrainObjectCellRanges[4 * i] = -1;
+               continue;
+            }
+
+            for (int xIndex = terrainObjectCellRanges[4 * i]; xIndex <= terrainObjectCellRanges[4 * i + 2]; xIndex++)
+            {
+               for (int yIndex = terrainObjectCellRanges[4 * i + 1]; yIndex <= terrainObjectCellRanges[4 * i + 3]; yIndex++)
+                  cellStartIndices[xIndex * gridSizeY + yIndex + 1]++;
+            }
+         }
+
+         this.numberOfAlwaysCheckedTerrainObjects = numberOfAlwaysCheckedTerrainObjects;
+
+         for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++)
+            cellStartIndices[cellIndex + 1] += cellStartIndices[cellIndex];
+
+         // Second pass: fill the cells, visiting the terrain objects in order keeps the indices of each cell sorted.
+         int[] cellCursors = new int[numberOfCells];
+         System.arraycopy(cellStartIndices, 0, cellCursors, 0, numberOfCells);
+         cellTerrainObjectIndices = new int[cellStartIndices[numberOfCells]];
+
+         for (int i = 0; i < numberOfTerrainObjects; i++)
+         {
+            if (terrainObjectCellRanges[4 * i] == -1)
+               continue;
+
+            for (int xIndex = terrainObjectCellRanges[4 * i]; xIndex <= terrainObjectCellRanges[4 * i + 2]; xIndex++)
+            {
+               for (int yIndex = terrainObjectCellRanges[4 * i + 1]; yIndex <= terrainObjectCellRanges[4 * i + 3]; yIndex++)
+                  cellTerrainObjectIndices[cellCursors[xIndex * gridSizeY + yIndex]++] = i;
+            }
+         }
+      }
+
+      /**
+       * Packs the indices, in increasing order, of the terrain objects that can be close to a point with
+       * the given XY coordinates.
+       */
+      private void collectCandidates(double x, double y, QueryScratch candidates)
+      {
+         if (candidates.indices.length < numberOfTerrainObjects)
+            candidates.indices = new int[numberOfTerrainObjects];
+
+         int cellStart = 0;
+         int cellEnd = 0;
+
+         // Also false for NaN coordinates, none of the bounded terrain objects can be close then.
+         if (x >= gridMinX && x <= gridMaxX && y >= gridMinY && y <= gridMaxY)
+         {
+            int cellIndex = getGridXIndex(x) * gridSizeY + getGridYIndex(y);
+            cellStart = cellStartIndices[cellIndex];
+            cellEnd = cellStartIndices[cellIndex + 1];
+         }
+
+         // Merge the indices of the cell with the ones of the objects that are always checked, to query the objects in the order they were added.
+         int alwaysCheckedIndex = 0;
+         int[] indices = candidates.indices;
+         int size = 0;
+
+         while (cellStart < cellEnd || alwaysCheckedIndex < numberOfAlwaysCheckedTerrainObjects)
+         {
+            if (alwaysCheckedIndex == numberOfAlwaysCheckedTerrainObjects
+                  || (cellStart < cellEnd && cellTerrainObjectIndices[cellStart] < alwaysCheckedTerrainObjectIndices[alwaysCheckedIndex]))
+               indices[size++] = cellTerrainObjectIndices[cellStart++];
+            else
+               indices[size++] = alwaysCheckedTerrainObjectIndices[alwaysCheckedIndex++];
+         }
+
+         candidates.size = size;
+      }
+
+      private int getGridXIndex(double x)
+      {
+         return Math.min((int) ((x - gridMinX) / gridCellSize), gridSizeX - 1);
+      }
+
+      private int getGridYIndex(double y)
+      {
+         return Math.min((int) ((y - gridMinY) / gridCellSize), gridSizeY - 1);
+      }
+
+      private static boolean isBoundedInXY(BoundingBox3D boundingBox)
+      {
+         if (boundingBox == null)
+            return false;
+
+         return Double.isFinite(boundingBox.getMinX()) && Double.isFinite(boundingBox.getMinY()) && Double.isFinite(boundingBox.getMaxX())
+               && Double.isFinite(boundingBox.getMaxY());
+      }
+   }
+
    public double getXMin()
    {
       return boundingBox.getMinX();
@@ -0,0 +1,248 @@
+package us.ihmc.simulationConstructionSetTools.simulationDispatcher.farm;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertNull;
+import static us.ihmc.robotics.Assert.assertTrue;
+import static us.ihmc.robotics.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.client.SimulationToDispatch;
+import us.ihmc.simulationConstructionSetTools.simulationDispatcher.interfaces.RemoteSimulationDescription;
+
+public class LocalSimulationFarmTest
+{
+   private static final String CRASHING_SIMULATION = "crash";
+   private static final String HANGING_SIMULATION = "hang";
+
+   @Test
+   @Timeout(120)
+   public void testSimulationsAreRunOnRecycledWorkers() throws InterruptedException
+   {
+      int numberOfWorkers = 2;
+      int maximumNumberOfJobsPerWorker = 3;
+      int numberOfSimulations = 20;
+      LocalSimulationFarm farm = new TestSimulationFarm(numberOfWorkers, maximumNumberOfJobsPerWorker);
+
+      try
+      {
+         runSimulationsOnRecycledWorkers(farm, numberOfSimulations, maximumNumberOfJobsPerWorker);
+      }
+      finally
+      {
+         farm.shutdown();
+      }
+   }
+
+   private static void runSimulationsOnRecycledWorkers(LocalSimulationFarm farm, int numberOfSimulations, int maximumNumberOfJobsPerWorker)
+         throws InterruptedException
+   {
+      SimulationToDispatch[] simulations = new SimulationToDispatch[numberOfSimulations];
+      int[] numberOfDispatchDoneCalls = new int[1];
+
+      for (int i = 0; i < numberOfSimulations; i++)
+      {
+         simulations[i] = new SimulationToDispatch(null, "sum" + i, null, null, null, new String[] {"a", "b"}, new double[] {i, 0.5},
+                                                   new String[] {"sum", "jobsRunByWorker"}, (simulation, finalState) ->
+                                                   {
+                                                      synchronized (numberOfDispatchDoneCalls)
+                                                      {
+                                                         numberOfDispatchDoneCalls[0]++;
+                                                      }
+                                                   });
+         farm.addSimulation(simulations[i]);
+      }
+
+      farm.waitUntilAllSimulationsAreDone();
+
+      assertEquals(0, farm.getNumberSimulationsToDispatch());
+      assertEquals(0, farm.getNumberSimulationsCurrentlyDispatched());
+      assertEquals(numberOfSimulations, farm.getNumberSimulationsDone());
+      assertEquals(numberOfSimulations, numberOfDispatchDoneCalls[0]);
+      assertTrue(farm.getThroughput() > 0.0);
+
+      for (int i = 0; i < numberOfSimulations; i++)
+      {
+         assertTrue(simulations[i].isSimulationFinished());
+         assertEquals(i + 0.5, simulations[i].getFinalState()[0], 1.0e-12);
+         assertTrue(simulations[i].getFinalState()[1] <= maximumNumberOfJobsPerWorker);
+      }
+
+      // Each worker JVM runs at most 3 of the 20 simulations.
+      assertTrue(farm.getNumberOfWorkerJVMsStarted() >= 7);
+   }
+
+   @Test
+   @Timeout(120)
+   public void testDyingWorkers() throws InterruptedException
+   {
+      LocalSimulationFarm farm = new TestSimulationFarm(2, 10);
+
+      try
+      {
+         SimulationToDispatch crashingSimulation = new SimulationToDispatch(null, CRASHING_SIMULATION, null, null, null, new String[0], new double[0],
+                                                                            new String[0], null);
+         SimulationToDispatch simulation = new SimulationToDispatch(null, "sum", null, null, null, new String[] {"a"}, new double[] {2.0},
+                                                                    new String[] {"sum", "jobsRunByWorker"}, null);
+         farm.addSimulation(crashingSimulation);
+         farm.addSimulation(simulation);
+         farm.waitUntilAllSimulationsAreDone();
+
+         assertTrue(crashingSimulation.isSimulationFinished());
+         assertNull(crashingSimulation.getFinalState());
+         assertTrue(crashingSimulation.getResultsString() != null);
+         assertEquals(2.0, simulation.getFinalState()[0], 1.0e-12);
+         assertTrue(farm.getNumberOfWorkerJVMsStarted() >= LocalSimulationFarm.MAXIMUM_NUMBER_OF_ATTEMPTS);
+      }
+      finally
+      {
+         farm.shutdown();
+      }
+   }
+
+   @Test
+   @Timeout(120)
+   public void testHangingSimulationIsKilled() throws InterruptedException
+   {
+      LocalSimulationFarm farm = new TestSimulationFarm(1, 10);
+      farm.setJobTimeout(2000);
+
+      try
+      {
+         SimulationToDispatch hangingSimulation = new SimulationToDispatch(null, HANGING_SIMULATION, null, null, null, new String[0], new double[0],
+                                                                           new String[0], null);
+         SimulationToDispatch simulation = new SimulationToDispatch(null, "sum", null, null, null, new String[] {"a"}, new double[] {3.0},
+                                                                    new String[] {"sum", "jobsRunByWorker"}, null);
+         farm.addSimulation(hangingSimulation);
+         farm.addSimulation(simulation);
+         farm.waitUntilAllSimulationsAreDone();
+
+         assertTrue(hangingSimulation.isSimulationFinished());
+         assertNull(hangingSimulation.getFinalState());
+         assertTrue(hangingSimulation.getResultsString().contains("did not complete"));
+         // The worker running the hanging simulation was replaced, and the simulation was not attempted again.
+         assertEquals(3.0, simulation.getFinalState()[0], 1.0e-12);
+         assertEquals(1.0, simulation.getFinalState()[1], 1.0e-12);
+         assertEquals(2, farm.getNumberOfWorkerJVMsStarted());
+      }
+      finally
+      {
+         farm.shutdown();
+      }
+   }
+
+   @Test
+   public void testOnlyResultsAreDeserializedByTheFarm() throws IOException, ClassNotFoundException
+   {
+      SimulationFarmResult result = new SimulationFarmResult(new double[] {1.0, 2.0}, null);
+      SimulationFarmResult readResult = (SimulationFarmResult) createFarmInputStream(result).readObject();
+      assertEquals(2.0, readResult.getFinalState()[1], 0.0);
+
+      try
+      {
+         createFarmInputStream(new ArrayList<>()).readObject();
+         fail("The farm should not deserialize arbitrary classes.");
+      }
+      catch (InvalidClassException e)
+      {
+         // Expected.
+      }
+   }
+
+   private static ObjectInputStream createFarmInputStream(Object object) throws IOException
+   {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes))
+      {
+         outputStream.writeObject(object);
+      }
+      return new SimulationFarmObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()), SimulationFarmResult.class, double[].class);
+   }
+
+   private static class TestSimulationFarm extends LocalSimulationFarm
+   {
+      public TestSimulationFarm(int numberOfWorkers, int maximumNumberOfJobsPerWorker)
+      {
+         super(numberOfWorkers, maximumNumberOfJobsPerWorker);
+      }
+
+      @Override
+      protected RemoteSimulationDescription createSimulationDescription(SimulationToDispatch simulation)
+      {
+         return new SumDescription(CRASHING_SIMULATION.equals(simulation.getDescription()), HANGING_SIMULATION.equals(simulation.getDescription()));
+      }
+   }
+
+   /**
+    * Sums the input state, and reports how many jobs the worker JVM running it has run so far.
+    */
+   private static class SumDescription implements RemoteSimulationDescription
+   {
+      private static final long serialVersionUID = 2912547735019722436L;
+      private static int jobsRunByThisJVM = 0;
+
+      private final boolean crash;
+      private final boolean hang;
+      private double sum;
+
+      public SumDescription(boolean crash, boolean hang)
+      {
+         this.crash = crash;
+         this.hang = hang;
+      }
+
+      @Override
+      public void createSimulation(String[] structuralParameterNames, double[] structuralParameterValues)
+      {
+      }
+
+      @Override
+      public void destroySimulation()
+      {
+      }
+
+      @Override
+      public void setSimulationState(Object state)
+      {
+         sum = 0.0;
+         for (double value : (double[]) state)
+            sum += value;
+      }
+
+      @Override
+      public void startSimulation()
+      {
+         if (crash)
+            Runtime.getRuntime().halt(1);
+
+         jobsRunByThisJVM++;
+      }
+
+      @Override
+      public boolean isSimulationDone()
+      {
+         return !hang;
+      }
+
+      @Override
+      public Object getSimulationState()
+      {
+         return new double[] {sum, jobsRunByThisJVM};
+      }
+
+      @Override
+      public Object getSimulationData()
+      {
+         return null;
+      }
+   }
+}
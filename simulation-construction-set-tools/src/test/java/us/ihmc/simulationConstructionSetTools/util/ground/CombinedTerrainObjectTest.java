@@ -1,5 +1,15 @@
 package us.ihmc.simulationConstructionSetTools.util.ground;
 
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.Test;
 
 import org.junit.jupiter.api.Tag;
@@ -9,6 +19,8 @@ import us.ihmc.euclid.geometry.interfaces.Vertex2DSupplier;
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.graphicsDescription.HeightMapWithNormals;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
 import us.ihmc.simulationConstructionSetTools.util.ground.CombinedTerrainObject3D;
 import us.ihmc.simulationConstructionSetTools.util.ground.RotatableConvexPolygonTerrainObject;
 
@@ -39,6 +51,185 @@ public class CombinedTerrainObjectTest
       EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, resultNormal, 1e-4);
    }
 
+   @Test
+   public void testBroadPhaseAgainstBruteForce()
+   {
+      Random random = new Random(4521L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Random Terrain");
+      // Spans the whole terrain, so it is tested for every query.
+      combinedTerrainObject.addBox(-10.0, -10.0, 10.0, 10.0, -0.1, 0.0);
+
+      for (int i = 0; i < 200; i++)
+      {
+         double x = 18.0 * (random.nextDouble() - 0.5);
+         double y = 18.0 * (random.nextDouble() - 0.5);
+         double length = 0.1 + random.nextDouble();
+         double width = 0.1 + random.nextDouble();
+         double height = 0.5 * random.nextDouble();
+
+         switch (random.nextInt(3))
+         {
+            case 0:
+               combinedTerrainObject.addBox(x, y, x + length, y + width, height);
+               break;
+            case 1:
+               combinedTerrainObject.addRamp(x, y, x + length, y + width, height);
+               break;
+            default:
+               combinedTerrainObject.addCone(x, y, length, 0.5 * length, height);
+               break;
+         }
+      }
+
+      CombinedTerrainObject3D nestedTerrainObject = new CombinedTerrainObject3D("Nested Terrain");
+      nestedTerrainObject.addBox(1.0, 1.0, 2.0, 2.0, 0.3);
+      nestedTerrainObject.addBox(1.5, 1.5, 2.5, 2.5, 0.4);
+      combinedTerrainObject.addTerrainObject(nestedTerrainObject);
+
+      assertTrue(combinedTerrainObject.getNumberOfBroadPhaseCells() > 1);
+      assertQueriesMatchBruteForce(random, combinedTerrainObject);
+
+      // Objects added directly to the list are picked up as well.
+      combinedTerrainObject.getTerrainObjects().add(new RotatableConvexPolygonTerrainObject(new Vector3D(0.0, 0.0, 1.0), createSquare(3.0, 3.0, 1.0), 0.8));
+      assertQueriesMatchBruteForce(random, combinedTerrainObject);
+   }
+
+   @Test
+   public void testBroadPhaseIsUpdatedWhenNestedTerrainGrows()
+   {
+      Random random = new Random(9812L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Terrain");
+      CombinedTerrainObject3D nestedTerrainObject = new CombinedTerrainObject3D("Nested Terrain");
+      CombinedTerrainObject3D innerTerrainObject = new CombinedTerrainObject3D("Inner Terrain");
+
+      for (int i = 0; i < 20; i++)
+         combinedTerrainObject.addBox(i, 0.0, i + 0.5, 0.5, 0.2);
+      innerTerrainObject.addBox(0.0, 2.0, 0.5, 2.5, 0.3);
+      nestedTerrainObject.addTerrainObject(innerTerrainObject);
+      combinedTerrainObject.addTerrainObject(nestedTerrainObject);
+      assertQueriesMatchBruteForce(random, combinedTerrainObject);
+
+      // Grows the nested terrains well outside of the grid built by the previous queries.
+      innerTerrainObject.addBox(8.0, -9.0, 9.0, -8.0, 0.4);
+      nestedTerrainObject.addBox(-9.0, 8.0, -8.0, 9.0, 0.5);
+
+      assertEquals(0.4, combinedTerrainObject.heightAt(8.5, -8.5, 0.1), 1e-12);
+      assertEquals(0.5, combinedTerrainObject.heightAt(-8.5, 8.5, 0.1), 1e-12);
+      assertEquals(-9.0, combinedTerrainObject.getBoundingBox().getMinY(), 1e-12);
+      assertEquals(9.0, combinedTerrainObject.getBoundingBox().getMaxY(), 1e-12);
+      assertQueriesMatchBruteForce(random, combinedTerrainObject);
+   }
+
+   @Test
+   public void testQueriesFromSeveralThreads() throws Exception
+   {
+      Random random = new Random(2360L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Terrain");
+
+      for (int i = 0; i < 100; i++)
+      {
+         double x = 18.0 * (random.nextDouble() - 0.5);
+         double y = 18.0 * (random.nextDouble() - 0.5);
+         combinedTerrainObject.addBox(x, y, x + 0.1 + random.nextDouble(), y + 0.1 + random.nextDouble(), 0.5 * random.nextDouble());
+      }
+
+      int numberOfThreads = 4;
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+
+      try
+      {
+         List<Future<?>> futures = new ArrayList<>();
+
+         // The grid is built by whichever thread queries first.
+         for (int i = 0; i < numberOfThreads; i++)
+         {
+            long seed = random.nextLong();
+            futures.add(executor.submit(() -> assertQueriesMatchBruteForce(new Random(seed), combinedTerrainObject)));
+         }
+
+         for (Future<?> future : futures)
+            future.get();
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   private static void assertQueriesMatchBruteForce(Random random, CombinedTerrainObject3D combinedTerrainObject)
+   {
+      Point3D expectedIntersection = new Point3D();
+      Vector3D expectedNormal = new Vector3D();
+      Point3D resultIntersection = new Point3D();
+      Vector3D resultNormal = new Vector3D();
+
+      for (int i = 0; i < 20000; i++)
+      {
+         double x = 24.0 * (random.nextDouble() - 0.5);
+         double y = 24.0 * (random.nextDouble() - 0.5);
+         double z = 0.6 * random.nextDouble() - 0.1;
+
+         boolean expectedIsInside = checkIfInsideBruteForce(combinedTerrainObject, x, y, z, expectedIntersection, expectedNormal);
+         assertEquals(expectedIsInside, combinedTerrainObject.checkIfInside(x, y, z, resultIntersection, resultNormal));
+         EuclidCoreTestTools.assertTuple3DEquals(expectedIntersection, resultIntersection, 1e-12);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, resultNormal, 1e-12);
+
+         double expectedHeight = heightAndNormalAtBruteForce(combinedTerrainObject, x, y, z, expectedNormal);
+         assertEquals(expectedHeight, combinedTerrainObject.heightAt(x, y, z), 1e-12);
+         assertEquals(expectedHeight, combinedTerrainObject.heightAndNormalAt(x, y, z, resultNormal), 1e-12);
+         if (expectedHeight > Double.NEGATIVE_INFINITY)
+            EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, resultNormal, 1e-12);
+      }
+   }
+
+   private static boolean checkIfInsideBruteForce(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Point3D intersectionToPack,
+                                                  Vector3D normalToPack)
+   {
+      Point3D pointToCheck = new Point3D(x, y, z);
+      Point3D localIntersection = new Point3D();
+      Vector3D localNormal = new Vector3D();
+      double smallestDistance = Double.MAX_VALUE;
+      boolean isInside = false;
+      intersectionToPack.set(x, y, 0.0);
+      normalToPack.set(0.0, 0.0, 1.0);
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.checkIfInside(x, y, z, localIntersection, localNormal)
+               && pointToCheck.distance(localIntersection) < smallestDistance)
+         {
+            smallestDistance = pointToCheck.distance(localIntersection);
+            intersectionToPack.set(localIntersection);
+            normalToPack.set(localNormal);
+            isInside = true;
+         }
+      }
+
+      return isInside;
+   }
+
+   private static double heightAndNormalAtBruteForce(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Vector3D normalToPack)
+   {
+      double height = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         HeightMapWithNormals heightMap = terrainObject.getHeightMapIfAvailable();
+         if (terrainObject.isClose(x, y, z) && heightMap != null && heightMap.heightAt(x, y, z) > height)
+            height = heightMap.heightAndNormalAt(x, y, z, normalToPack);
+      }
+
+      return height;
+   }
+
+   private static ConvexPolygon2D createSquare(double xCenter, double yCenter, double sideLength)
+   {
+      double halfSide = 0.5 * sideLength;
+      double[][] vertices = {{xCenter - halfSide, yCenter - halfSide}, {xCenter + halfSide, yCenter - halfSide}, {xCenter + halfSide, yCenter + halfSide},
+            {xCenter - halfSide, yCenter + halfSide}};
+      return new ConvexPolygon2D(Vertex2DSupplier.asVertex2DSupplier(vertices));
+   }
+
    private void setupTwoIntersectingBoxesMadeFromPolygons(CombinedTerrainObject3D combinedTerrainObject)
    {
       Vector3D normalVector = new Vector3D(0.0, 0.0, 1.0);
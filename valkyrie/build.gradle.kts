@@ -72,6 +72,13 @@ testDependencies {
    api("us.ihmc:ihmc-avatar-interfaces-test:source")
 }
 
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+
+   api("us.ihmc:ihmc-avatar-interfaces-benchmarks:source")
+   "annotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.25")
+}
+
 ihmc.jarWithLibFolder()
 tasks.getByPath("installDist").dependsOn("compositeJar")
 
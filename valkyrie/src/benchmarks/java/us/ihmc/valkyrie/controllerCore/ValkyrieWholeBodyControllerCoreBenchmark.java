@@ -0,0 +1,21 @@
+package us.ihmc.valkyrie.controllerCore;
+
+import us.ihmc.avatar.controllerCore.AvatarWholeBodyControllerCoreBenchmark;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.robotics.benchmarks.JMHBenchmarkRunner;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+public class ValkyrieWholeBodyControllerCoreBenchmark extends AvatarWholeBodyControllerCoreBenchmark
+{
+   @Override
+   protected DRCRobotModel createRobotModel()
+   {
+      return new ValkyrieRobotModel(RobotTarget.SCS);
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      JMHBenchmarkRunner.run(ValkyrieWholeBodyControllerCoreBenchmark.class, args);
+   }
+}
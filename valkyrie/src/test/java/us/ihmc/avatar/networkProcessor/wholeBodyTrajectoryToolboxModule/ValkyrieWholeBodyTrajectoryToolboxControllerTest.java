@@ -78,6 +78,13 @@ public class ValkyrieWholeBodyTrajectoryToolboxControllerTest extends AvatarWhol
       super.testHandCirclePositionAndYawPitchRoll();
    }
 
+   @Override
+   @Test
+   public void testParallelValidationMatchesSequentialValidation()
+   {
+      super.testParallelValidationMatchesSequentialValidation();
+   }
+
    @Test
    public void testDoorMotion() throws Exception, UnreasonableAccelerationException
    {